@@ -16,19 +16,25 @@
 package com.axway.ats.action.filetransfer;
 
 import java.io.File;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
 
 import org.apache.log4j.Logger;
 
 import com.axway.ats.action.ActionLibraryConfigurator;
 import com.axway.ats.common.PublicAtsApi;
+import com.axway.ats.common.filetransfer.BulkTransferResult;
 import com.axway.ats.common.filetransfer.FileTransferException;
 import com.axway.ats.common.filetransfer.TransferMode;
 import com.axway.ats.common.filetransfer.TransferProtocol;
+import com.axway.ats.core.filetransfer.BulkFileTransfer;
 import com.axway.ats.core.filetransfer.ClientFactory;
 import com.axway.ats.core.filetransfer.FtpsClient;
 import com.axway.ats.core.filetransfer.HttpClient;
 import com.axway.ats.core.filetransfer.HttpsClient;
 import com.axway.ats.core.filetransfer.SftpClient;
+import com.axway.ats.core.filetransfer.model.BulkTransferListener;
 import com.axway.ats.core.filetransfer.model.IFileTransferClient;
 import com.axway.ats.core.utils.IoUtils;
 import com.axway.ats.core.validation.Validate;
@@ -130,8 +136,23 @@ public class FileTransferClient {
     @PublicAtsApi
     public static final String    HTTPS_CIPHER_SUITES                              = HttpsClient.HTTPS_CIPHER_SUITES;
 
+    private static final int      DEFAULT_BULK_TRANSFER_SESSIONS                   = 4;
+    private static final int      DEFAULT_BULK_TRANSFER_RETRIES                    = 3;
+
     protected IFileTransferClient client                                           = null;
 
+    // the client settings are kept, so the bulk transfers can open more sessions with the same settings
+    private TransferProtocol      protocol;
+    private Integer               customPort;
+    private TransferMode          transferMode;
+    private Integer               connectionTimeout;
+    private Map<String, Object>   customProperties                                 = new LinkedHashMap<String, Object>();
+    private String[]              connectParameters;
+
+    private int                   bulkTransferSessions                             = DEFAULT_BULK_TRANSFER_SESSIONS;
+    private int                   bulkTransferRetries                              = DEFAULT_BULK_TRANSFER_RETRIES;
+    private BulkTransferListener  bulkTransferListener;
+
     protected FileTransferClient() {
 
         // this constructor is used as an alternative for classes that extend
@@ -150,6 +171,7 @@ public class FileTransferClient {
     public void setConnectionTimeout( int newValue ) {
 
         this.client.setConnectionTimeout( newValue );
+        this.connectionTimeout = newValue;
     }
 
     /**
@@ -162,12 +184,19 @@ public class FileTransferClient {
     @PublicAtsApi
     public FileTransferClient( TransferProtocol protocol ) {
 
+        this.protocol = protocol;
+        this.client = createClient( protocol );
+    }
+
+    private static IFileTransferClient createClient( TransferProtocol protocol ) {
+
         try {
+            IFileTransferClient client;
             int port = protocol.getDefaultPort();
 
             if( !protocol.toString().contains( "CUSTOM" ) ) {
                 // a regular client we develop
-                this.client = ClientFactory.getInstance().getClient( protocol, port );
+                client = ClientFactory.getInstance().getClient( protocol, port );
             } else {
             	int customPort = FileTransferConfigurator.getInstance().getPort();
             	if (customPort == -1){
@@ -178,12 +207,12 @@ public class FileTransferClient {
                 String customFileTransferClient = FileTransferConfigurator.getInstance()
                                                                           .getFileTransferClient( protocol );
 
-                this.client = ClientFactory.getInstance().getClient( protocol, customPort,
-                                                                     customFileTransferClient );
+                client = ClientFactory.getInstance().getClient( protocol, customPort,
+                                                                customFileTransferClient );
             }
 
-            this.client.setDebugMode( ActionLibraryConfigurator.getInstance().getFileTransferVerboseMode() );
-
+            client.setDebugMode( ActionLibraryConfigurator.getInstance().getFileTransferVerboseMode() );
+            return client;
         } catch( Exception e ) {
             throw new FileTransferException( e );
         }
@@ -207,6 +236,7 @@ public class FileTransferClient {
         new Validator().validateMethodParameters( new Object[]{ port } );
 
         this.client.setCustomPort( port );
+        this.customPort = port;
     }
 
     // -------------------- ACTIONS --------------------
@@ -222,6 +252,7 @@ public class FileTransferClient {
     public void setTransferMode( TransferMode mode ) {
 
         this.client.setTransferMode( mode );
+        this.transferMode = mode;
     }
 
     /**
@@ -240,6 +271,7 @@ public class FileTransferClient {
     public void addCustomProperty( String key, Object value ) throws IllegalArgumentException {
 
         this.client.addCustomProperty( key, value );
+        this.customProperties.put( key, value );
     }
 
     /**
@@ -331,6 +363,210 @@ public class FileTransferClient {
         this.client.downloadFile( IoUtils.normalizeDirPath( localDir ) + remoteFile, remoteDir, remoteFile );
     }
 
+    /**
+     * Set the number of parallel sessions used for transferring many files at once.
+     * The default is 4.
+     *
+     * @param numberSessions the maximum number of parallel sessions
+     */
+    @PublicAtsApi
+    public void setBulkTransferSessions( @Validate(name = "numberSessions", type = ValidationType.NUMBER_GREATER_THAN_ZERO) int numberSessions ) {
+
+        // validate input parameters
+        new Validator().validateMethodParameters( new Object[]{ numberSessions } );
+
+        this.bulkTransferSessions = numberSessions;
+    }
+
+    /**
+     * Set how many times a file is retried when transferring many files at once.
+     * A retried FTP or SFTP transfer continues from where the failed one stopped.
+     * The default is 3.
+     *
+     * @param numberRetries the number of retries for each file
+     */
+    @PublicAtsApi
+    public void setBulkTransferRetries( @Validate(name = "numberRetries", type = ValidationType.NUMBER_POSITIVE) int numberRetries ) {
+
+        // validate input parameters
+        new Validator().validateMethodParameters( new Object[]{ numberRetries } );
+
+        this.bulkTransferRetries = numberRetries;
+    }
+
+    /**
+     * Set a listener to be notified about the progress of transferring many files at once.
+     * It is called from the threads of the parallel sessions.
+     *
+     * @param listener the listener, null to remove the current one
+     */
+    @PublicAtsApi
+    public void setBulkTransferListener( BulkTransferListener listener ) {
+
+        this.bulkTransferListener = listener;
+    }
+
+    /**
+     * Upload all files of a local directory tree over a number of parallel sessions.
+     * The missing remote sub-directories are created.
+     * Each session connects the same way this client was connected.
+     *
+     * @param localDir
+     *            the local directory to upload
+     * @param remoteDir
+     *            the remote directory to upload the files to
+     * @return the transfer statistics
+     * @see #setBulkTransferSessions(int)
+     * @see #setBulkTransferRetries(int)
+     */
+    @PublicAtsApi
+    public BulkTransferResult uploadFiles( String localDir, String remoteDir ) {
+
+        return uploadFiles( localDir, remoteDir, null );
+    }
+
+    /**
+     * Upload the files of a local directory tree, which match a glob pattern, over a number of parallel sessions.
+     * The missing remote sub-directories are created.
+     * Each session connects the same way this client was connected.
+     *
+     * @param localDir
+     *            the local directory to upload
+     * @param remoteDir
+     *            the remote directory to upload the files to
+     * @param filesGlob
+     *            glob pattern like "*.xml" or "data/**.csv". A pattern without '/' is matched against the file names,
+     *            otherwise it is matched against the file paths relative to the local directory. Null means all files
+     * @return the transfer statistics
+     * @throws FileTransferException if some files could not be transferred
+     * @see #setBulkTransferSessions(int)
+     * @see #setBulkTransferRetries(int)
+     */
+    @PublicAtsApi
+    public BulkTransferResult uploadFiles( @Validate(name = "localDir", type = ValidationType.STRING_NOT_EMPTY) String localDir,
+                                           @Validate(name = "remoteDir", type = ValidationType.STRING_NOT_EMPTY) String remoteDir,
+                                           @Validate(name = "filesGlob", type = ValidationType.NONE) String filesGlob ) {
+
+        // validate input parameters
+        new Validator().validateMethodParameters( new Object[]{ localDir, remoteDir, filesGlob } );
+
+        return checkBulkTransferResult( createBulkFileTransfer().upload( localDir, remoteDir, filesGlob ) );
+    }
+
+    /**
+     * Download all files of a remote directory tree over a number of parallel sessions.
+     * The missing local sub-directories are created.
+     * Each session connects the same way this client was connected.
+     * Only FTP and SFTP can list the remote directories, so only they support this operation.
+     *
+     * @param localDir
+     *            the local directory to download the files to
+     * @param remoteDir
+     *            the remote directory to download
+     * @return the transfer statistics
+     * @see #setBulkTransferSessions(int)
+     * @see #setBulkTransferRetries(int)
+     */
+    @PublicAtsApi
+    public BulkTransferResult downloadFiles( String localDir, String remoteDir ) {
+
+        return downloadFiles( localDir, remoteDir, null );
+    }
+
+    /**
+     * Download the files of a remote directory tree, which match a glob pattern, over a number of parallel sessions.
+     * The missing local sub-directories are created.
+     * Each session connects the same way this client was connected.
+     * Only FTP and SFTP can list the remote directories, so only they support this operation.
+     *
+     * @param localDir
+     *            the local directory to download the files to
+     * @param remoteDir
+     *            the remote directory to download
+     * @param filesGlob
+     *            glob pattern like "*.xml" or "data/**.csv". A pattern without '/' is matched against the file names,
+     *            otherwise it is matched against the file paths relative to the remote directory. Null means all files
+     * @return the transfer statistics
+     * @throws FileTransferException if some files could not be transferred
+     * @see #setBulkTransferSessions(int)
+     * @see #setBulkTransferRetries(int)
+     */
+    @PublicAtsApi
+    public BulkTransferResult downloadFiles( @Validate(name = "localDir", type = ValidationType.STRING_NOT_EMPTY) String localDir,
+                                             @Validate(name = "remoteDir", type = ValidationType.STRING_NOT_EMPTY) String remoteDir,
+                                             @Validate(name = "filesGlob", type = ValidationType.NONE) String filesGlob ) {
+
+        // validate input parameters
+        new Validator().validateMethodParameters( new Object[]{ localDir, remoteDir, filesGlob } );
+
+        return checkBulkTransferResult( createBulkFileTransfer().download( localDir, remoteDir, filesGlob ) );
+    }
+
+    private BulkFileTransfer createBulkFileTransfer() {
+
+        if( connectParameters == null ) {
+            throw new FileTransferException( "Connect before transferring files" );
+        }
+
+        BulkFileTransfer bulkFileTransfer = new BulkFileTransfer( new BulkFileTransfer.SessionFactory() {
+
+            @Override
+            public IFileTransferClient createSession() throws FileTransferException {
+
+                return FileTransferClient.this.createSession();
+            }
+        }, bulkTransferSessions, bulkTransferRetries );
+        bulkFileTransfer.setListener( bulkTransferListener );
+        return bulkFileTransfer;
+    }
+
+    private BulkTransferResult checkBulkTransferResult( BulkTransferResult result ) {
+
+        if( !result.getFailedFiles().isEmpty() ) {
+            // there may be many failed files, all of them are logged by the bulk transfer
+            Entry<String, String> firstFailure = result.getFailedFiles().entrySet().iterator().next();
+            throw new FileTransferException( result.getFailedFiles().size() + " of " + result.getNumberFiles()
+                                             + " files could not be transferred. '" + firstFailure.getKey()
+                                             + "' failed with: " + firstFailure.getValue() );
+        }
+        return result;
+    }
+
+    /**
+     * Create a new client with the settings of this one and connect it the same way.
+     * It is used for the parallel sessions of the bulk transfers.
+     *
+     * @return a new connected client
+     */
+    protected IFileTransferClient createSession() {
+
+        if( protocol == null ) {
+            throw new FileTransferException( "The transfer protocol is not known, so new sessions can not be created" );
+        }
+
+        IFileTransferClient session = createClient( protocol );
+        if( customPort != null ) {
+            session.setCustomPort( customPort );
+        }
+        if( connectionTimeout != null ) {
+            session.setConnectionTimeout( connectionTimeout );
+        }
+        if( transferMode != null ) {
+            session.setTransferMode( transferMode );
+        }
+        for( Entry<String, Object> customProperty : customProperties.entrySet() ) {
+            session.addCustomProperty( customProperty.getKey(), customProperty.getValue() );
+        }
+
+        if( connectParameters.length == 3 ) {
+            session.connect( connectParameters[0], connectParameters[1], connectParameters[2] );
+        } else {
+            session.connect( connectParameters[0], connectParameters[1], connectParameters[2],
+                             connectParameters[3] );
+        }
+        return session;
+    }
+
     /**
      * Execute some custom command.
      * This is specific for each protocol and remote server.
@@ -436,6 +672,7 @@ public class FileTransferClient {
         // connect using base authentication
         try {
             this.client.connect( hostname, userName, password );
+            this.connectParameters = new String[]{ hostname, userName, password };
             return;
         } catch( FileTransferException e ) {
             log.error( "Connection attempt failed", e );
@@ -469,6 +706,7 @@ public class FileTransferClient {
         // connect using base authentication
         try {
             this.client.connect( hostname, keystoreFile, keystorePassword, privateKeyAlias );
+            this.connectParameters = new String[]{ hostname, keystoreFile, keystorePassword, privateKeyAlias };
             return;
         } catch( FileTransferException e ) {
             log.error( "Connection attempt failed", e );
@@ -798,6 +798,39 @@ public class Test_GenericTransferClient extends BaseTest {
         verify( ftpMock );
     }
 
+    /**
+     * Test case
+     * @throws Exception
+     */
+    @Test(expected = InvalidInputArgumentsException.class)
+    public void testUploadFilesWrongLocalDir() throws Exception {
+
+        // execute operations
+        testObject.uploadFiles( "", SAMPLE_REMOTE_DIRECTORY );
+    }
+
+    /**
+     * Test case
+     * @throws Exception
+     */
+    @Test(expected = InvalidInputArgumentsException.class)
+    public void testSetBulkTransferSessionsWrongValue() throws Exception {
+
+        // execute operations
+        testObject.setBulkTransferSessions( 0 );
+    }
+
+    /**
+     * Test case
+     * @throws Exception
+     */
+    @Test(expected = FileTransferException.class)
+    public void testDownloadFilesNotConnected() throws Exception {
+
+        // execute operations
+        testObject.downloadFiles( SAMPLE_LOCAL_DIRECTORY, SAMPLE_REMOTE_DIRECTORY, "*.txt" );
+    }
+
     /**
      * COPIED from GenericTransferClient class
      */
@@ -28,6 +28,7 @@ import com.axway.ats.agent.core.model.Parameter;
 import com.axway.ats.common.performance.monitor.PerformanceMonitor;
 import com.axway.ats.common.performance.monitor.beans.FullReadingBean;
 import com.axway.ats.common.performance.monitor.beans.MonitorResults;
+import com.axway.ats.common.performance.monitor.beans.ReadingsBatch;
 
 public class InternalSystemMonitoringOperations {
 
@@ -83,6 +84,20 @@ public class InternalSystemMonitoringOperations {
         }
     }
 
+    /**
+     * The same as {@link #getCollectedResults()}, but the results are returned in
+     * a compact form, which is much smaller when sent over the wire
+     */
+    @Action(name = "Internal System Monitoring Operations Get Collected Readings")
+    public ReadingsBatch getCollectedReadings() throws Exception {
+
+        try {
+            return ReadingsBatch.fromMonitorResults( monitoringAgent.getMonitoringResults() );
+        } catch( Exception e ) {
+            throw new OperationUnsuccessfulException( "Unable to get the collected results", e );
+        }
+    }
+
     @Action(name = "Internal System Monitoring Operations Stop Monitoring")
     public void stopMonitoring() throws Exception {
 
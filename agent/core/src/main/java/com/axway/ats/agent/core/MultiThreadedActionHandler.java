@@ -28,6 +28,7 @@ import com.axway.ats.agent.core.exceptions.ActionExecutionException;
 import com.axway.ats.agent.core.exceptions.NoCompatibleMethodFoundException;
 import com.axway.ats.agent.core.exceptions.NoSuchActionException;
 import com.axway.ats.agent.core.exceptions.NoSuchComponentException;
+import com.axway.ats.agent.core.monitoring.queue.QueueStateEvents;
 import com.axway.ats.agent.core.threading.AbstractQueueLoader;
 import com.axway.ats.agent.core.threading.ActionTaskLoaderState;
 import com.axway.ats.agent.core.threading.LoadQueueFactory;
@@ -63,7 +64,10 @@ public class MultiThreadedActionHandler {
 
     private List<QueueLoaderListener>         listeners;
 
-    private MultiThreadedActionHandler() {
+    // passes the queue state changes to the subscribed clients
+    private QueueStateEvents                  queueStateEvents;
+
+    private MultiThreadedActionHandler( String caller ) {
 
         this.queueLoadersMap = new HashMap<String, QueueLoader>();
 
@@ -71,6 +75,8 @@ public class MultiThreadedActionHandler {
 
         //add the default listeners
         this.listeners.add( new SimpleLoadQueueListener() );
+
+        this.queueStateEvents = QueueStateEvents.getInstance( caller );
     }
 
     /**
@@ -82,7 +88,7 @@ public class MultiThreadedActionHandler {
 
         MultiThreadedActionHandler instance = multiThreadedActionHandlerMap.get( caller );
         if( instance == null ) {
-            instance = new MultiThreadedActionHandler();
+            instance = new MultiThreadedActionHandler( caller );
             multiThreadedActionHandlerMap.put( caller, instance );
         }
 
@@ -196,6 +202,7 @@ public class MultiThreadedActionHandler {
         queueLoadersMap.put( queueName, queueLoader );
 
         log.info( "Scheduled queue '" + queueName + "'" );
+        queueStateEvents.publish( queueName, ActionTaskLoaderState.SCHEDULED );
     }
 
     /**
@@ -221,6 +228,51 @@ public class MultiThreadedActionHandler {
         queueLoader.start();
     }
 
+    /**
+     * Start a queue at some moment. Used when a queue is distributed between a number of agents,
+     * so all agents start it at the same time.
+     *
+     * @param queueName queue name
+     * @param startTimestamp the time to start the queue at, in milliseconds since the epoch.
+     * If this time has already passed, the queue is started right away
+     * @return the time the queue was actually started at
+     * @throws NoSuchLoadQueueException
+     * @throws ActionExecutionException
+     * @throws ActionTaskLoaderException
+     */
+    public long startQueue( String queueName, long startTimestamp ) throws NoSuchLoadQueueException,
+                                                                    ActionExecutionException,
+                                                                    ActionTaskLoaderException {
+
+        //first cleanup the queues
+        cleanupFinishedQueues();
+
+        QueueLoader queueLoader = queueLoadersMap.get( queueName );
+        if( queueLoader == null ) {
+            throw new NoSuchLoadQueueException( queueName );
+        }
+
+        long delay;
+        while( ( delay = startTimestamp - System.currentTimeMillis() ) > 0 ) {
+            try {
+                Thread.sleep( delay );
+            } catch( InterruptedException ie ) {
+                Thread.currentThread().interrupt();
+                throw new ActionTaskLoaderException( "Interrupted while waiting to start queue '" + queueName
+                                                     + "'" );
+            }
+        }
+
+        long actualStartTimestamp = System.currentTimeMillis();
+        log.info( "Starting queue '" + queueName + "', " + ( actualStartTimestamp - startTimestamp )
+                  + " ms after the requested start time" );
+
+        //start the queue
+        queueLoader.start();
+
+        return actualStartTimestamp;
+    }
+
     public void resumeQueue( String actionQueueName ) throws NoSuchLoadQueueException,
                                                       ActionExecutionException, ActionTaskLoaderException {
 
@@ -376,15 +428,26 @@ public class MultiThreadedActionHandler {
 
     /**
      * This listener is responsible for removing the agent from the list
-     * of agents once it is done
+     * of agents once it is done. It also passes the queue state changes to the subscribers
      */
     private class SimpleLoadQueueListener implements QueueLoaderListener {
 
+        public void onStart( String actionQueueName ) {
+
+            queueStateEvents.publish( actionQueueName, ActionTaskLoaderState.RUNNING );
+        }
+
+        public void onPause( String actionQueueName ) {
+
+            queueStateEvents.publish( actionQueueName, ActionTaskLoaderState.PAUSED );
+        }
+
         public void onFinish( String actionQueueName ) {
 
             log.cleanupLoadQueueState( actionQueueName );
 
             log.info( "Finished executing queue '" + actionQueueName + "'" );
+            queueStateEvents.publish( actionQueueName, ActionTaskLoaderState.FINISHED );
         }
     }
 }
@@ -22,6 +22,7 @@ import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.regex.Pattern;
 
 import org.apache.log4j.Logger;
 
@@ -44,6 +45,15 @@ public class ActionMethod {
 
     private static final Logger log                                         = Logger.getLogger( ActionMethod.class );
 
+    /*
+     * ATS has some actions for internal usage and users should not see them.
+     * Currently we do not have some good way to distinguish these actions from the regular ones, for
+     * example we could use a new attribute in the Action annotation.
+     * For now we can filter these ATS internal actions by expecting their names match the next regular
+     * expression.
+     */
+    private static final Pattern INTERNAL_ACTION_NAME_PATTERN               = Pattern.compile( "Internal.*Operations.*" );
+
     protected String            componentName;
     protected String            actionName;                                                                          // as defined by the user in the name attribute of the Action annotation
     private boolean             registerActionExecution                     = true;
@@ -54,6 +64,15 @@ public class ActionMethod {
     private List<String>        parameterNames;
     private boolean             isDeprecated;
     protected boolean           hasEnumParameter;
+    private boolean             isInternalAction;
+
+    // the parameter types and the Parameter annotations, they are needed on each invocation
+    private Class<?>[]          parameterTypes;
+    private Parameter[]         parameterAnnotations;
+    // the validation arguments of each parameter, including the resolved arrays with valid constants
+    private String[][]          parameterValidationArgs;
+    // why the validation arguments of a parameter could not be resolved, reported when it is validated
+    private String[]            parameterValidationErrors;
 
     /**
      * @param componentName name of the component
@@ -87,15 +106,19 @@ public class ActionMethod {
         //generate a map of the parameters
         this.parameterNames = new ArrayList<String>();
         Annotation[][] methodParameterAnnotations = method.getParameterAnnotations();
+        this.parameterAnnotations = new Parameter[methodParameterAnnotations.length];
         for( int i = 0; i < methodParameterAnnotations.length; i++ ) {
             Annotation[] paramAnnotations = methodParameterAnnotations[i];
             for( Annotation paramAnnotation : paramAnnotations ) {
                 if( paramAnnotation instanceof Parameter ) {
                     parameterNames.add( ( ( Parameter ) paramAnnotation ).name() );
+                    parameterAnnotations[i] = ( Parameter ) paramAnnotation;
                 }
             }
         }
 
+        resolveValidationArgs();
+
         //check if this method is deprecated
         Annotation deprecatedAnnotation = method.getAnnotation( Deprecated.class );
         if( deprecatedAnnotation != null ) {
@@ -103,12 +126,16 @@ public class ActionMethod {
         }
 
         //check if this method has an Enumeration parameter
-        for( Class<?> paramType : method.getParameterTypes() ) {
+        this.parameterTypes = method.getParameterTypes();
+        for( Class<?> paramType : parameterTypes ) {
             if( paramType.isEnum() || ( paramType.isArray() && paramType.getComponentType().isEnum() ) ) {
                 this.hasEnumParameter = true;
                 break;
             }
         }
+
+        this.isInternalAction = INTERNAL_ACTION_NAME_PATTERN.matcher( actionName ).matches()
+                                || actionName.startsWith( "InternalProcessTalker" );
     }
 
     /**
@@ -156,18 +183,10 @@ public class ActionMethod {
                                                           IllegalAccessException, InvocationTargetException,
                                                           ActionExecutionException {
 
-        /*
-         * Here we log the action we are going to be execute.
-         *
-         * ATS has some actions for internal usage and users should not see them.
-         * Currently we do not have some good way to distinguish these actions from the regular ones, for
-         * example we could use a new attribute in the Action annotation.
-         * For now we can filter these ATS internal actions by expecting their names match the next regular
-         * expression.
-         */
+        // Here we log the action we are going to be execute.
+        // The ATS internal actions are logged at debug level only.
         if( log.isInfoEnabled() ) {
-            if( !actionName.matches( "Internal.*Operations.*" )
-                && !actionName.startsWith( "InternalProcessTalker" ) ) {
+            if( !isInternalAction ) {
                 log.info( "Executing '" + actionName + "' with arguments "
                           + StringUtils.methodInputArgumentsToString( parameterValues ) );
             } else {
@@ -270,7 +289,6 @@ public class ActionMethod {
         Object[] processedArgs = new Object[args.length];
 
         //try to convert all strings to enums
-        Class<?>[] parameterTypes = method.getParameterTypes();
         for( int i = 0; i < parameterTypes.length; i++ ) {
 
             if( args[i] == null ) {
@@ -331,72 +349,92 @@ public class ActionMethod {
      */
     protected void validateArguments( Object[] args ) throws ActionExecutionException {
 
-        Annotation[][] annotations = method.getParameterAnnotations();
-        for( int i = 0; i < annotations.length; i++ ) {
+        for( int i = 0; i < parameterAnnotations.length; i++ ) {
 
-            Annotation[] paramAnnotations = annotations[i];
+            Parameter paramDescriptionAnnotation = parameterAnnotations[i];
+            if( paramDescriptionAnnotation == null ) {
+                continue;
+            }
 
-            for( Annotation paramAnnotation : paramAnnotations ) {
-                if( paramAnnotation instanceof Parameter ) {
-                    Parameter paramDescriptionAnnotation = ( Parameter ) paramAnnotation;
-                    ValidationType validationType = paramDescriptionAnnotation.validation();
-
-                    String[] validationArgs;
-
-                    // if we are checking for valid constants, then the
-                    // args array should contain
-                    // the name of the array holding the valid constants
-                    if( validationType == ValidationType.STRING_CONSTANT
-                        || validationType == ValidationType.NUMBER_CONSTANT ) {
-                        try {
-                            String arrayName = paramDescriptionAnnotation.args()[0];
-
-                            // get the field and set access level if
-                            // necessary
-                            Field arrayField = method.getDeclaringClass().getDeclaredField( arrayName );
-                            if( !arrayField.isAccessible() ) {
-                                arrayField.setAccessible( true );
-                            }
-                            Object arrayValidConstants = arrayField.get( null );
+            ValidationType validationType = paramDescriptionAnnotation.validation();
+            if( validationType == ValidationType.NONE ) {
+                // there is nothing to validate
+                continue;
+            }
 
-                            // convert the object array to string array
-                            String[] arrayValidConstatnsStr = new String[Array.getLength( arrayValidConstants )];
-                            for( int j = 0; j < Array.getLength( arrayValidConstants ); j++ ) {
-                                arrayValidConstatnsStr[j] = Array.get( arrayValidConstants, j ).toString();
-                            }
+            if( parameterValidationErrors[i] != null ) {
+                // this is a fatal error
+                throw new ActionExecutionException( parameterValidationErrors[i] );
+            }
+            String[] validationArgs = parameterValidationArgs[i];
+
+            List<BaseType> typeValidators = createBaseTypes( paramDescriptionAnnotation.validation(),
+                                                             paramDescriptionAnnotation.name(),
+                                                             args[i], validationArgs );
+            //perform validation
+            for( BaseType baseType : typeValidators ) {
+                if( baseType != null ) {
+                    try {
+                        baseType.validate();
+                    } catch( TypeException e ) {
+                        throw new InvalidInputArgumentsException( "Validation failed while validating argument "
+                                                                  + paramDescriptionAnnotation.name()
+                                                                  + e.getMessage() );
+                    }
+                } else {
+                    log.warn( "Could not perform validation on argument "
+                              + paramDescriptionAnnotation.name() );
+                }
+            }
+        }
+    }
 
-                            validationArgs = arrayValidConstatnsStr;
+    /**
+     * Resolve the validation arguments of all parameters, so it is not done on each invocation.
+     * If we are checking for valid constants, then the args array should contain the name of
+     * the array holding the valid constants
+     */
+    private void resolveValidationArgs() {
 
-                        } catch( IndexOutOfBoundsException iobe ) {
-                            // this is a fatal error
-                            throw new ActionExecutionException( "You need to specify the name of the array with valid constants in the 'args' field of the Parameter annotation" );
-                        } catch( Exception e ) {
-                            // this is a fatal error
-                            throw new ActionExecutionException( "Could not get array with valid constants - action annotations are incorrect" );
-                        }
-                    } else {
-                        validationArgs = paramDescriptionAnnotation.args();
+        this.parameterValidationArgs = new String[parameterAnnotations.length][];
+        this.parameterValidationErrors = new String[parameterAnnotations.length];
+
+        for( int i = 0; i < parameterAnnotations.length; i++ ) {
+
+            Parameter paramDescriptionAnnotation = parameterAnnotations[i];
+            if( paramDescriptionAnnotation == null ) {
+                continue;
+            }
+
+            ValidationType validationType = paramDescriptionAnnotation.validation();
+            if( validationType == ValidationType.STRING_CONSTANT
+                || validationType == ValidationType.NUMBER_CONSTANT ) {
+                try {
+                    String arrayName = paramDescriptionAnnotation.args()[0];
+
+                    // get the field and set access level if
+                    // necessary
+                    Field arrayField = method.getDeclaringClass().getDeclaredField( arrayName );
+                    if( !arrayField.isAccessible() ) {
+                        arrayField.setAccessible( true );
                     }
+                    Object arrayValidConstants = arrayField.get( null );
 
-                    List<BaseType> typeValidators = createBaseTypes( paramDescriptionAnnotation.validation(),
-                                                                     paramDescriptionAnnotation.name(),
-                                                                     args[i], validationArgs );
-                    //perform validation
-                    for( BaseType baseType : typeValidators ) {
-                        if( baseType != null ) {
-                            try {
-                                baseType.validate();
-                            } catch( TypeException e ) {
-                                throw new InvalidInputArgumentsException( "Validation failed while validating argument "
-                                                                          + paramDescriptionAnnotation.name()
-                                                                          + e.getMessage() );
-                            }
-                        } else {
-                            log.warn( "Could not perform validation on argument "
-                                      + paramDescriptionAnnotation.name() );
-                        }
+                    // convert the object array to string array
+                    String[] arrayValidConstatnsStr = new String[Array.getLength( arrayValidConstants )];
+                    for( int j = 0; j < Array.getLength( arrayValidConstants ); j++ ) {
+                        arrayValidConstatnsStr[j] = Array.get( arrayValidConstants, j ).toString();
                     }
+
+                    parameterValidationArgs[i] = arrayValidConstatnsStr;
+
+                } catch( IndexOutOfBoundsException iobe ) {
+                    parameterValidationErrors[i] = "You need to specify the name of the array with valid constants in the 'args' field of the Parameter annotation";
+                } catch( Exception e ) {
+                    parameterValidationErrors[i] = "Could not get array with valid constants - action annotations are incorrect";
                 }
+            } else {
+                parameterValidationArgs[i] = paramDescriptionAnnotation.args();
             }
         }
     }
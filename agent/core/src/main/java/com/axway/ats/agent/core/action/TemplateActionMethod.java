@@ -29,12 +29,13 @@ import com.axway.ats.agent.core.configuration.TemplateActionsResponseVerificatio
 import com.axway.ats.agent.core.context.ThreadContext;
 import com.axway.ats.agent.core.exceptions.ActionExecutionException;
 import com.axway.ats.agent.core.templateactions.CompositeResult;
+import com.axway.ats.agent.core.templateactions.exceptions.XmlUtilitiesException;
+import com.axway.ats.agent.core.templateactions.model.ActualHttpResponse;
 import com.axway.ats.agent.core.templateactions.model.HttpClient;
+import com.axway.ats.agent.core.templateactions.model.TemplateActionPlan;
+import com.axway.ats.agent.core.templateactions.model.TemplateActionStep;
 import com.axway.ats.agent.core.templateactions.model.XmlReader;
 import com.axway.ats.agent.core.templateactions.model.XmlUtilities;
-import com.axway.ats.agent.core.templateactions.model.objects.ActionHeader;
-import com.axway.ats.agent.core.templateactions.model.objects.ActionParser;
-import com.axway.ats.agent.core.templateactions.model.objects.ActionResponseObject;
 import com.axway.ats.agent.core.threading.AbstractActionTask;
 import com.axway.ats.common.agent.templateactions.NetworkingStopWatch;
 import com.axway.ats.common.systemproperties.AtsSystemProperties;
@@ -132,6 +133,7 @@ public class TemplateActionMethod extends ActionMethod {
         long actionStartTimestamp = -1;
         long totalTimeOfAllActionStepsNet = 0;
         long totalTimeOfAllActionStepsBetweenReqAndResp = 0;
+        long totalTimeOfAllActionStepsConnection = 0;
         Object objectToReturn = null;
         String checkpointName;
         if( AbstractActionTask.REGISTER_FULL_AND_NET_ACTION_TIME_FOR_TEMPLATE_ACTIONS ) {
@@ -147,76 +149,59 @@ public class TemplateActionMethod extends ActionMethod {
                 autoLogger.startCheckpoint( checkpointName, "", actionStartTimestamp );
             }
 
-            XmlReader xmlReader = new XmlReader( actionsXml );
+            TemplateActionPlan actionPlan = new XmlReader( actionsXml ).getActionPlan();
             XmlUtilities xmlUtilities = new XmlUtilities();
 
             long xmlParsingTime = System.currentTimeMillis() - actionStartTimestamp;
             // this is the actual Action start time, skipping the actionXML parsing time
             actionStartTimestamp += xmlParsingTime;
 
-            int actionNum = 1;
             long currentTimeOfActionStepRequest;
             NetworkingStopWatch stopWatch = new NetworkingStopWatch( actionMethodName );
-            while( xmlReader.goToNextAction() ) {
+            for( TemplateActionStep step : actionPlan.getSteps() ) {
 
+                int actionNum = step.getStepNumber();
                 String actionStep = actionMethodName + "[" + actionNum + "]";
                 stopWatch.step0_SetNewContext( actionStep );
-                String httpUrl = xmlReader.getRequestHttpUrl();
-                String httpMethod = xmlReader.getRequestHttpMethod();
-                List<ActionHeader> httpHeaders = xmlReader.getRequestHttpHeaders();
 
                 // connect to the specified URL
-                HttpClient httpClient = new HttpClient( httpUrl, httpMethod, httpHeaders, stopWatch );
+                HttpClient httpClient = new HttpClient( step.getHttpUrl(), step.getHttpMethod(),
+                                                        step.getHttpHeaders(), stopWatch );
                 // send HTTP request
-                String fileToSend = xmlReader.getRequestResourceFile();
-                httpClient.sendHttpRequest( actionStep, fileToSend,
-                                            xmlReader.hasParamsInRequestResourceFile() );
+                httpClient.sendHttpRequest( actionStep, step.getResourceFile(), step.hasParamsInResourceFile() );
 
                 currentTimeOfActionStepRequest = stopWatch.getNetworkingTime();
                 // Measure and log time between last data sent and start of receive.
                 // Thread could be suspended but this could be server processing time too.
                 stopWatch.step5_StartInterimTimer(); // and log request time
 
-                // read response
-                ActionResponseObject expectedHttpResponseNode = xmlReader.getResponse();
-                // disconnect the connection
-                //                httpClient.disconnect(); // TODO: why this is needed. This is also before getting response
-                if( xmlReader.isLastAction()
-                    && ( wantedXpathEntries != null || returnResponseBodyAsString ) ) {
+                if( step.isLastStep() && ( wantedXpathEntries != null || returnResponseBodyAsString ) ) {
+                    // this is the last action and user wants to extract the response content
+                    ActualHttpResponse actualHttpResponse = httpClient.readResponse( actionsXml, actionNum,
+                                                                                     true );
                     if( returnResponseBodyAsString ) {
-
-                        // this is the last action and user wants to extract the response content as string
-                        ActionParser actualHttpResponse = xmlUtilities.readActionResponse( httpClient,
-                                                                                           actionsXml,
-                                                                                           actionNum, true );
-                        String contentAsString = actualHttpResponse.getBodyContentAsString();
-                        actualHttpResponse.cleanupMembers();
-                        objectToReturn = contentAsString;
-                        // log response time below and after that return result
+                        objectToReturn = actualHttpResponse.getBodyContentAsString();
                     } else {
-
-                        // this is the last action and user wants to extract some data from the response
-                        ActionParser actualHttpResponse = xmlUtilities.readActionResponse( httpClient,
-                                                                                           actionsXml,
-                                                                                           actionNum, false );
-                        String[][] extractedXpathEntries = XmlUtilities.extractXpathEntries( null,
-                                                                                             wantedXpathEntries );
-                        actualHttpResponse.cleanupMembers();
-
-                        objectToReturn = extractedXpathEntries;
-                        // log response time below and after that return result
+                        if( actualHttpResponse.getBodyBytes() == null ) {
+                            throw new XmlUtilitiesException( "Can not extract XPath entries from " + actionStep
+                                                             + " as its response has no body" );
+                        }
+                        objectToReturn = XmlUtilities.extractXpathEntries( XmlUtilities.bytesToXmlDocumentObj( actualHttpResponse.getBodyBytes() ),
+                                                                           wantedXpathEntries );
                     }
-
+                    actualHttpResponse.cleanupMembers();
+                    // log response time below and after that return result
                 } else {
                     // verify the received response
                     xmlUtilities.verifyResponse( actionsXml, actionMethodName, actionNum,
-                                                 expectedHttpResponseNode, httpClient,
+                                                 step.getExpectedResponse(), httpClient,
                                                  responseVerificationConfigurator );
                 }
 
                 long currentTimeOfActionStepEnd = stopWatch.getNetworkingTime();
                 totalTimeOfAllActionStepsNet += currentTimeOfActionStepEnd;
                 totalTimeOfAllActionStepsBetweenReqAndResp += stopWatch.getTimeBetweenReqAndResponse();
+                totalTimeOfAllActionStepsConnection += stopWatch.getConnectionTime();
 
                 if( HttpClient.logTimer.isTraceEnabled() ) {
                     HttpClient.logTimer.trace( "This action step " + actionStep
@@ -228,9 +213,9 @@ public class TemplateActionMethod extends ActionMethod {
                                                + " ms" );
                     HttpClient.logTimer.trace( "This action step " + actionStep + " total network time took "
                                                + currentTimeOfActionStepEnd + " ms" );
+                    HttpClient.logTimer.trace( "This action step " + actionStep + " connection time took "
+                                               + stopWatch.getConnectionTime() + " ms" );
                 }
-
-                actionNum++;
             }
 
             if( isRegisterActionExecution() ) {
@@ -271,6 +256,10 @@ public class TemplateActionMethod extends ActionMethod {
             autoLogger.insertCheckpoint( actionName + "-betweenReqAndResp", actionStartTimestamp,
                                          totalTimeOfAllActionStepsBetweenReqAndResp, 0L, null,
                                          CheckpointResult.PASSED );
+            // Time for opening connections and TLS handshakes. It is not part of the net time
+            autoLogger.insertCheckpoint( actionName + "-connect", actionStartTimestamp,
+                                         totalTimeOfAllActionStepsConnection, 0L, null,
+                                         CheckpointResult.PASSED );
         }
 
         return new CompositeResult( objectToReturn, totalTimeOfAllActionStepsNet );
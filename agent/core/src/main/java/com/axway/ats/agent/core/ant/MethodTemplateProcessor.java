@@ -55,10 +55,14 @@ class MethodTemplateProcessor extends TemplateProcessor {
             //construct the return type
             String returnTypeName = returnType.getSimpleName();
             StringBuilder execDefinition = new StringBuilder();
+            // the primitive return type is passed to the client, so it can return a default value
+            // when the action is not executed immediately, as it is added to a batch
+            String returnClassArgument = "";
             if( !"void".equals( returnTypeName ) ) {
                 execDefinition.append( "return ( " );
                 if( returnType.isPrimitive() && !returnType.isArray() ) {
                     execDefinition.append( getObjectTypeForPrimitive( returnTypeName ) );
+                    returnClassArgument = ", " + returnTypeName + ".class";
                 } else {
 
                     Type genericReturnType = actionImplementation.getGenericReturnType();
@@ -81,6 +85,7 @@ class MethodTemplateProcessor extends TemplateProcessor {
             }
             placeHolderValues.put( "$RETURN_TYPE$", returnTypeName );
             placeHolderValues.put( "$EXEC_RETURN_DEFINITION$", execDefinition.toString() );
+            placeHolderValues.put( "$RETURN_CLASS_ARGUMENT$", returnClassArgument );
 
             StringBuilder paramDefinition = new StringBuilder();
             StringBuilder argumentArray = new StringBuilder();
@@ -15,6 +15,7 @@
  */
 package com.axway.ats.agent.core.configuration;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
@@ -88,20 +89,11 @@ public class TemplateActionsResponseVerificationConfigurator implements Configur
     }
 
     /**
-     * Returns new copy because of same multi threaded access
+     * The returned matchers are shared by all threads, they are not modified when verifying the responses
      */
     public Set<HeaderMatcher> getGlobalHeaderMatchers() {
 
-        // FIXME - get new instance only for new thread. Use ThreadContext
-        // return new instance because referenced headers are modified in merging steps in XmlUtilities.verifyResponseHeaders()
-        //long startTime = System.nanoTime();
-        Set<HeaderMatcher> newCopy = new HashSet<HeaderMatcher>( globalHeadersMatchers.size() );
-        for( HeaderMatcher headerMatcher : globalHeadersMatchers ) {
-            HeaderMatcher newHeaderMatcher = new HeaderMatcher( headerMatcher );
-            newCopy.add( newHeaderMatcher );
-        }
-        // log.debug( "**** TMP FIXME: copy global header matchers with size: " + globalHeadersMatchers.size() + ", done in " + (System.nanoTime()-startTime) + " ms.");
-        return newCopy;
+        return Collections.unmodifiableSet( globalHeadersMatchers );
     }
 
     public void addActionVerificator( TemplateActionResponseVerificator verificator ) {
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2017 Axway Software
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.axway.ats.agent.core.monitoring;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A counter which many threads can update at the same time without contending for a lock
+ * or for a single memory location.
+ * 
+ * The value is split in a number of cells, each thread updates the cell chosen by its id.
+ * The cells are placed on different cache lines. Reading the value sums all cells, so it is
+ * not an atomic snapshot while the counter is being updated.
+ */
+public class StripedCounter {
+
+    // the number of longs between two cells, so they are on different cache lines
+    private static final int    CELL_PADDING = 16;
+
+    private static final int    NUMBER_CELLS;
+
+    static {
+        int numberCells = 1;
+        int numberProcessors = Runtime.getRuntime().availableProcessors();
+        while( numberCells < numberProcessors && numberCells < 32 ) {
+            numberCells <<= 1;
+        }
+        NUMBER_CELLS = numberCells;
+    }
+
+    private final AtomicLongArray cells = new AtomicLongArray( NUMBER_CELLS * CELL_PADDING );
+
+    public void increment() {
+
+        add( 1 );
+    }
+
+    public void decrement() {
+
+        add( -1 );
+    }
+
+    public void add( long delta ) {
+
+        cells.addAndGet( getCellIndex(), delta );
+    }
+
+    /**
+     * @return the current value
+     */
+    public long sum() {
+
+        long sum = 0;
+        for( int i = 0; i < NUMBER_CELLS; i++ ) {
+            sum += cells.get( i * CELL_PADDING );
+        }
+        return sum;
+    }
+
+    /**
+     * Set the value to 0. The updates made meanwhile by other threads may be lost.
+     */
+    public void reset() {
+
+        for( int i = 0; i < NUMBER_CELLS; i++ ) {
+            cells.set( i * CELL_PADDING, 0 );
+        }
+    }
+
+    @Override
+    public String toString() {
+
+        return String.valueOf( sum() );
+    }
+
+    private static int getCellIndex() {
+
+        // spread the sequential thread ids over the cells
+        long id = Thread.currentThread().getId();
+        int hash = ( int ) ( id ^ ( id >>> 32 ) ) * 0x9E3779B9;
+        return ( ( hash >>> 16 ) & ( NUMBER_CELLS - 1 ) ) * CELL_PADDING;
+    }
+}
@@ -20,6 +20,8 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.apache.log4j.Logger;
 
@@ -37,8 +39,9 @@ public class UserActionsMonitoringAgent {
     // instance for each remote caller
     private static Map<String, UserActionsMonitoringAgent> instances                     = new HashMap<String, UserActionsMonitoringAgent>();
 
-    // a map which remembers how many users are currently running a particular action
-    private Map<String, Integer>                           runningActionsMap;
+    // a map which remembers how many users are currently running a particular action.
+    // It is replaced with a new one on reset, so the actions started before the reset are not counted
+    private volatile ConcurrentMap<String, StripedCounter> runningActionsMap;
 
     // the information ready to be sent out
     private List<MonitorResults>                           collectedResults;
@@ -49,11 +52,11 @@ public class UserActionsMonitoringAgent {
 
     // a simple clock which gets the info from the actions map and fills the collected data buffer
     // this is done on regular time intervals
-    private MonitoringThread                               monitoringThread;
+    private volatile MonitoringThread                      monitoringThread;
 
     private UserActionsMonitoringAgent() {
 
-        this.runningActionsMap = new HashMap<String, Integer>();
+        this.runningActionsMap = new ConcurrentHashMap<String, StripedCounter>();
         this.collectedResults = new ArrayList<MonitorResults>();
         this.knownReadingBeans = new HashMap<String, FullReadingBean>();
     }
@@ -137,15 +140,19 @@ public class UserActionsMonitoringAgent {
      *
      * @param actionName the name of the action
      */
-    public synchronized void actionStarted( String actionName ) {
+    public void actionStarted( String actionName ) {
 
         if( monitoringThread != null ) {
-            Integer nRunning = runningActionsMap.get( actionName );
+            ConcurrentMap<String, StripedCounter> runningActions = this.runningActionsMap;
+            StripedCounter nRunning = runningActions.get( actionName );
             if( nRunning == null ) {
-                runningActionsMap.put( actionName, 1 );
-            } else {
-                runningActionsMap.put( actionName, nRunning + 1 );
+                nRunning = new StripedCounter();
+                StripedCounter existingNRunning = runningActions.putIfAbsent( actionName, nRunning );
+                if( existingNRunning != null ) {
+                    nRunning = existingNRunning;
+                }
             }
+            nRunning.increment();
         }
     }
 
@@ -157,10 +164,10 @@ public class UserActionsMonitoringAgent {
      *
      * @param actionName the name of the action
      */
-    public synchronized void actionEnded( String actionName ) {
+    public void actionEnded( String actionName ) {
 
         if( monitoringThread != null ) {
-            Integer nRunning = runningActionsMap.get( actionName );
+            StripedCounter nRunning = runningActionsMap.get( actionName );
             if( nRunning == null ) {
                 /* We can not END this actions as it is not been STARTED
                  *
@@ -171,7 +178,7 @@ public class UserActionsMonitoringAgent {
                  * is ending, so we come right here
                  */
             } else {
-                runningActionsMap.put( actionName, nRunning - 1 );
+                nRunning.decrement();
             }
         }
     }
@@ -179,9 +186,13 @@ public class UserActionsMonitoringAgent {
     /**
      * @return a new instance of the actions map
      */
-    private synchronized Map<String, Integer> getRunningActionsMapCopy() {
+    private Map<String, Integer> getRunningActionsMapCopy() {
 
-        return new HashMap<String, Integer>( this.runningActionsMap );
+        Map<String, Integer> runningActionsMapCopy = new HashMap<String, Integer>();
+        for( Entry<String, StripedCounter> runningAction : this.runningActionsMap.entrySet() ) {
+            runningActionsMapCopy.put( runningAction.getKey(), ( int ) runningAction.getValue().sum() );
+        }
+        return runningActionsMapCopy;
     }
 
     /**
@@ -198,7 +209,7 @@ public class UserActionsMonitoringAgent {
      */
     private synchronized void resetTheMonitoringAgent() {
 
-        runningActionsMap.clear();
+        runningActionsMap = new ConcurrentHashMap<String, StripedCounter>();
         collectedResults.clear();
         knownReadingBeans.clear();
     }
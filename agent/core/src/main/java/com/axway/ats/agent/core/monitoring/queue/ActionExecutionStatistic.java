@@ -34,6 +34,13 @@ public class ActionExecutionStatistic implements Serializable {
         this.actionName = actionName;
     }
 
+    public ActionExecutionStatistic( String actionName, int numberPassed, int numberFailed ) {
+
+        this.actionName = actionName;
+        this.numberPassed = numberPassed;
+        this.numberFailed = numberFailed;
+    }
+
     public String getActionName() {
 
         return actionName;
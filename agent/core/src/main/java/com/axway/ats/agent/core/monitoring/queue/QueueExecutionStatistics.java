@@ -16,22 +16,26 @@
 package com.axway.ats.agent.core.monitoring.queue;
 
 import java.util.ArrayList;
-import java.util.Collection;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import com.axway.ats.agent.core.exceptions.AgentException;
+import com.axway.ats.agent.core.monitoring.StripedCounter;
 
 /**
  * Singleton keeping info about the action execution results for each queue 
  * running on some agent
+ * 
+ * The results are counted without locking, as all threads of all queues register
+ * the result of each action they execute
  */
 public class QueueExecutionStatistics {
 
-    private Map<String, Map<String, ActionExecutionStatistic>> actionsPerQueue = new HashMap<String, Map<String, ActionExecutionStatistic>>();
+    private ConcurrentMap<String, ConcurrentMap<String, ActionExecutionCounter>> actionsPerQueue = new ConcurrentHashMap<String, ConcurrentMap<String, ActionExecutionCounter>>();
 
-    private static final QueueExecutionStatistics              instance;
+    private static final QueueExecutionStatistics                                instance;
 
     static {
         instance = new QueueExecutionStatistics();
@@ -50,14 +54,16 @@ public class QueueExecutionStatistics {
     public void initActionExecutionResults(
                                             String queueName ) throws AgentException {
 
-        Map<String, ActionExecutionStatistic> thisQueueStatics = actionsPerQueue.get( queueName );
+        ConcurrentMap<String, ActionExecutionCounter> thisQueueStatics = actionsPerQueue.get( queueName );
         if( thisQueueStatics != null ) {
             // there is already information about queue with same name, maybe this is another run of same test
-            // cleanup this info
-            thisQueueStatics.clear();
+            // cleanup this info. The counters are kept as the queue threads may already refer them
+            for( ActionExecutionCounter actionCounter : thisQueueStatics.values() ) {
+                actionCounter.reset();
+            }
         } else {
             // unknown queue
-            actionsPerQueue.put( queueName, new HashMap<String, ActionExecutionStatistic>() );
+            getQueueStatistics( queueName );
         }
     }
 
@@ -70,9 +76,45 @@ public class QueueExecutionStatistics {
     public List<ActionExecutionStatistic> getActionExecutionResults(
                                                                      String queueName ) throws AgentException {
 
-        Collection<ActionExecutionStatistic> thisQueueStatics = actionsPerQueue.get( queueName ).values();
+        List<ActionExecutionStatistic> thisQueueStatics = new ArrayList<ActionExecutionStatistic>();
+        for( Entry<String, ActionExecutionCounter> actionCounter : getQueueStatistics( queueName ).entrySet() ) {
+            int numberPassed = ( int ) actionCounter.getValue().passed.sum();
+            int numberFailed = ( int ) actionCounter.getValue().failed.sum();
+            if( numberPassed > 0 || numberFailed > 0 ) {
+                // skip the registered, but not executed actions
+                thisQueueStatics.add( new ActionExecutionStatistic( actionCounter.getKey(), numberPassed,
+                                                                    numberFailed ) );
+            }
+        }
+
+        return thisQueueStatics;
+    }
+
+    /**
+     * Called when a queue thread is created, so it can register its action execution
+     * results without looking up the queue and action each time
+     * 
+     * @param queueName
+     * @param actionName
+     * @return the counter of the execution results of this action
+     */
+    public ActionExecutionCounter registerAction(
+                                                  String queueName,
+                                                  String actionName ) {
 
-        return new ArrayList<ActionExecutionStatistic>( thisQueueStatics );
+        ConcurrentMap<String, ActionExecutionCounter> thisQueueStatics = getQueueStatistics( queueName );
+
+        ActionExecutionCounter thisActionCounter = thisQueueStatics.get( actionName );
+        if( thisActionCounter == null ) {
+            // new action
+            thisActionCounter = new ActionExecutionCounter();
+            ActionExecutionCounter existingActionCounter = thisQueueStatics.putIfAbsent( actionName,
+                                                                                         thisActionCounter );
+            if( existingActionCounter != null ) {
+                thisActionCounter = existingActionCounter;
+            }
+        }
+        return thisActionCounter;
     }
 
     /**
@@ -82,23 +124,51 @@ public class QueueExecutionStatistics {
      * @param actionName
      * @param passed
      */
-    synchronized public void registerActionExecutionResult(
-                                                            String queueName,
-                                                            String actionName,
-                                                            boolean passed ) {
+    public void registerActionExecutionResult(
+                                               String queueName,
+                                               String actionName,
+                                               boolean passed ) {
 
-        // find the queue, we know it is available as the initialize method was already called
-        Map<String, ActionExecutionStatistic> thisQueueStatics = actionsPerQueue.get( queueName );
+        registerAction( queueName, actionName ).registerExecutionResult( passed );
+    }
 
-        // find the action
-        ActionExecutionStatistic thisActionStatistic = thisQueueStatics.get( actionName );
-        if( thisActionStatistic == null ) {
-            // new action
-            thisActionStatistic = new ActionExecutionStatistic( actionName );
-            thisQueueStatics.put( actionName, thisActionStatistic );
+    private ConcurrentMap<String, ActionExecutionCounter> getQueueStatistics(
+                                                                              String queueName ) {
+
+        ConcurrentMap<String, ActionExecutionCounter> thisQueueStatics = actionsPerQueue.get( queueName );
+        if( thisQueueStatics == null ) {
+            thisQueueStatics = new ConcurrentHashMap<String, ActionExecutionCounter>();
+            ConcurrentMap<String, ActionExecutionCounter> existingQueueStatics = actionsPerQueue.putIfAbsent( queueName,
+                                                                                                              thisQueueStatics );
+            if( existingQueueStatics != null ) {
+                thisQueueStatics = existingQueueStatics;
+            }
+        }
+        return thisQueueStatics;
+    }
+
+    /**
+     * Counts the execution results of one action in one queue
+     */
+    public static class ActionExecutionCounter {
+
+        private final StripedCounter passed = new StripedCounter();
+        private final StripedCounter failed = new StripedCounter();
+
+        public void registerExecutionResult(
+                                             boolean passed ) {
+
+            if( passed ) {
+                this.passed.increment();
+            } else {
+                this.failed.increment();
+            }
         }
 
-        // register the action execution result
-        thisActionStatistic.registerExecutionResult( passed );
+        void reset() {
+
+            passed.reset();
+            failed.reset();
+        }
     }
 }
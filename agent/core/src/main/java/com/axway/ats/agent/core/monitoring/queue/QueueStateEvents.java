@@ -0,0 +1,155 @@
+/*
+ * Copyright 2017 Axway Software
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.axway.ats.agent.core.monitoring.queue;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import com.axway.ats.agent.core.threading.ActionTaskLoaderState;
+
+/**
+ * Passes the state changes of the load queues of some caller to the subscribers,
+ * so they do not have to poll the agent for them.
+ *
+ * The events are kept for each subscriber until it takes them. Nothing is kept when there are no subscribers.
+ */
+public class QueueStateEvents {
+
+    // < caller id, QueueStateEvents >
+    private static Map<String, QueueStateEvents> instances     = new HashMap<>();
+
+    private final List<Subscription>             subscriptions = new CopyOnWriteArrayList<Subscription>();
+
+    private QueueStateEvents() {
+
+    }
+
+    public static synchronized QueueStateEvents getInstance( String caller ) {
+
+        QueueStateEvents instance = instances.get( caller );
+        if( instance == null ) {
+            instance = new QueueStateEvents();
+            instances.put( caller, instance );
+        }
+        return instance;
+    }
+
+    /**
+     * Start receiving the queue state changes. The subscription must be cancelled when no longer needed.
+     *
+     * @return the new subscription
+     */
+    public Subscription subscribe() {
+
+        Subscription subscription = new Subscription();
+        subscriptions.add( subscription );
+        return subscription;
+    }
+
+    /**
+     * Called when a queue changes its state
+     *
+     * @param queueName the queue name
+     * @param state the new queue state
+     */
+    public void publish( String queueName, ActionTaskLoaderState state ) {
+
+        if( subscriptions.isEmpty() ) {
+            return;
+        }
+
+        QueueStateEvent event = new QueueStateEvent( queueName, state, System.currentTimeMillis() );
+        for( Subscription subscription : subscriptions ) {
+            subscription.events.offer( event );
+        }
+    }
+
+    /**
+     * The queue state changes which are not taken yet by one subscriber
+     */
+    public class Subscription {
+
+        private final LinkedBlockingQueue<QueueStateEvent> events = new LinkedBlockingQueue<QueueStateEvent>();
+
+        private Subscription() {
+
+        }
+
+        /**
+         * Take the next event, wait for it if needed
+         *
+         * @param timeout how long to wait
+         * @param unit the timeout unit
+         * @return the event or null if there is no event before the timeout
+         * @throws InterruptedException
+         */
+        public QueueStateEvent poll( long timeout, TimeUnit unit ) throws InterruptedException {
+
+            return events.poll( timeout, unit );
+        }
+
+        /**
+         * Stop receiving events
+         */
+        public void cancel() {
+
+            subscriptions.remove( this );
+            events.clear();
+        }
+    }
+
+    /**
+     * A state change of a queue
+     */
+    public static class QueueStateEvent {
+
+        private final String                queueName;
+        private final ActionTaskLoaderState state;
+        private final long                  timestamp;
+
+        public QueueStateEvent( String queueName, ActionTaskLoaderState state, long timestamp ) {
+
+            this.queueName = queueName;
+            this.state = state;
+            this.timestamp = timestamp;
+        }
+
+        public String getQueueName() {
+
+            return queueName;
+        }
+
+        public ActionTaskLoaderState getState() {
+
+            return state;
+        }
+
+        public long getTimestamp() {
+
+            return timestamp;
+        }
+
+        @Override
+        public String toString() {
+
+            return "queue '" + queueName + "' is " + state;
+        }
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright 2017 Axway Software
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.axway.ats.agent.core.protocol;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.axway.ats.agent.core.monitoring.queue.ActionExecutionStatistic;
+import com.axway.ats.agent.core.monitoring.queue.QueueStateEvents.QueueStateEvent;
+import com.axway.ats.agent.core.threading.ActionTaskLoaderState;
+import com.axway.ats.common.performance.monitor.beans.MonitorResults;
+
+/**
+ * The protocol of the events stream, which an ATS Agent keeps sending to a subscribed client.
+ *
+ * The stream starts with the {@link BinaryActionProtocol} header, followed by events until the client disconnects.
+ * The action statistics contain the number of actions executed since the previous statistics of the same queue.
+ * A heartbeat is sent when there is nothing else to send, so a lost connection is noticed by both sides.
+ *
+ * <pre>
+ * event: byte QUEUE_STATE, string queue name, string state, long timestamp
+ *     or byte ACTION_STATISTICS, string queue name, int number actions, (string action name, int passed, int failed)...
+ *     or byte MONITOR_RESULTS, value list of monitor results
+ *     or byte HEARTBEAT
+ * </pre>
+ */
+public final class AgentEventsProtocol {
+
+    public static final String CONTENT_TYPE      = "application/x-ats-events";
+
+    public static final byte   QUEUE_STATE       = 1;
+    public static final byte   ACTION_STATISTICS = 2;
+    public static final byte   MONITOR_RESULTS   = 3;
+    public static final byte   HEARTBEAT         = 4;
+
+    private AgentEventsProtocol() {
+
+    }
+
+    public static void writeQueueState( DataOutput out, QueueStateEvent event ) throws IOException {
+
+        out.writeByte( QUEUE_STATE );
+        ValueCodec.writeString( out, event.getQueueName() );
+        ValueCodec.writeString( out, event.getState().name() );
+        out.writeLong( event.getTimestamp() );
+    }
+
+    public static void writeActionStatistics( DataOutput out, String queueName,
+                                              List<ActionExecutionStatistic> statistics ) throws IOException {
+
+        out.writeByte( ACTION_STATISTICS );
+        ValueCodec.writeString( out, queueName );
+        out.writeInt( statistics.size() );
+        for( ActionExecutionStatistic statistic : statistics ) {
+            ValueCodec.writeString( out, statistic.getActionName() );
+            out.writeInt( statistic.getNumberPassed() );
+            out.writeInt( statistic.getNumberFailed() );
+        }
+    }
+
+    public static void writeMonitorResults( DataOutput out, List<MonitorResults> monitorResults ) throws IOException {
+
+        out.writeByte( MONITOR_RESULTS );
+        // the list may be a view of some other list, so it is copied to a serializable one
+        ValueCodec.write( out, new ArrayList<MonitorResults>( monitorResults ) );
+    }
+
+    public static void writeHeartbeat( DataOutput out ) throws IOException {
+
+        out.writeByte( HEARTBEAT );
+    }
+
+    /**
+     * Read the type of the next event. It is followed by the event fields, which are read with
+     * the read method for this event type
+     *
+     * @param in where to read from
+     * @return one of the event type constants
+     * @throws IOException
+     */
+    public static byte readEventType( DataInput in ) throws IOException {
+
+        byte type = in.readByte();
+        if( type != QUEUE_STATE && type != ACTION_STATISTICS && type != MONITOR_RESULTS && type != HEARTBEAT ) {
+            throw new IOException( "Unknown event type " + type );
+        }
+        return type;
+    }
+
+    public static QueueStateEvent readQueueState( DataInput in ) throws IOException {
+
+        String queueName = ValueCodec.readString( in );
+        String state = ValueCodec.readString( in );
+        long timestamp = in.readLong();
+        try {
+            return new QueueStateEvent( queueName, ActionTaskLoaderState.valueOf( state ), timestamp );
+        } catch( IllegalArgumentException e ) {
+            throw new IOException( "Unknown state '" + state + "' of queue '" + queueName + "'" );
+        }
+    }
+
+    /**
+     * Read the fields of an action statistics event, without the queue name.
+     * The queue name is read before that with {@link #readQueueName(DataInput)}
+     *
+     * @param in where to read from
+     * @return the number of actions executed since the previous statistics
+     * @throws IOException
+     */
+    public static List<ActionExecutionStatistic> readActionStatistics( DataInput in ) throws IOException {
+
+        int numberActions = in.readInt();
+        List<ActionExecutionStatistic> statistics = new ArrayList<ActionExecutionStatistic>( numberActions );
+        for( int i = 0; i < numberActions; i++ ) {
+            statistics.add( new ActionExecutionStatistic( ValueCodec.readString( in ), in.readInt(),
+                                                          in.readInt() ) );
+        }
+        return statistics;
+    }
+
+    public static String readQueueName( DataInput in ) throws IOException {
+
+        return ValueCodec.readString( in );
+    }
+
+    @SuppressWarnings("unchecked")
+    public static List<MonitorResults> readMonitorResults( DataInput in ) throws IOException {
+
+        try {
+            return ( List<MonitorResults> ) ValueCodec.read( in );
+        } catch( ClassNotFoundException cnfe ) {
+            throw new IOException( "Could not read the monitoring results", cnfe );
+        } catch( ClassCastException cce ) {
+            throw new IOException( "Could not read the monitoring results", cce );
+        }
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright 2017 Axway Software
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.axway.ats.agent.core.protocol;
+
+import com.axway.ats.agent.core.action.ActionRequest;
+
+/**
+ * An entry of a batch read with {@link BinaryActionProtocol#readBatch(java.io.DataInputStream)}
+ */
+public class BatchEntry {
+
+    private final ActionRequest actionRequest;
+    private final boolean       isIndependent;
+    private final String        readError;
+
+    BatchEntry( ActionRequest actionRequest, boolean isIndependent, String readError ) {
+
+        this.actionRequest = actionRequest;
+        this.isIndependent = isIndependent;
+        this.readError = readError;
+    }
+
+    /**
+     * @return the action request, null if it could not be read
+     */
+    public ActionRequest getActionRequest() {
+
+        return actionRequest;
+    }
+
+    /**
+     * @return whether this entry can be executed at the same time as the independent entries next to it
+     */
+    public boolean isIndependent() {
+
+        return isIndependent;
+    }
+
+    /**
+     * @return the reason the action request could not be read, null if it was read
+     */
+    public String getReadError() {
+
+        return readError;
+    }
+}
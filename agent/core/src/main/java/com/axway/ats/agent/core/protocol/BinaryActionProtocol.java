@@ -0,0 +1,264 @@
+/*
+ * Copyright 2017 Axway Software
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.axway.ats.agent.core.protocol;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.axway.ats.agent.core.action.ActionRequest;
+
+/**
+ * The binary protocol for executing actions on a remote ATS Agent.
+ *
+ * The request stream starts with a header, followed by one or more action requests.
+ * The agent executes them in order and writes back a header, followed by a response for each request.
+ * If an action fails, its response is an error and the agent does not execute the requests after it.
+ *
+ * Instead of requests, the stream can contain one batch. The agent executes all batch entries, no matter if some
+ * of them fail, and writes back a response for each entry. The consecutive entries marked as independent
+ * may be executed at the same time. Each entry has its length, so an entry which cannot be read
+ * fails alone.
+ *
+ * <pre>
+ * header:   int magic, byte version
+ * request:  byte REQUEST, string component name, string action name, int number arguments, value arguments...
+ * batch:    byte BATCH, int number entries, entries...
+ * entry:    boolean independent, int length, request
+ * response: byte RESULT, value result
+ *        or byte INTERNAL_COMPONENT_ERROR, string component name, string action name, value exception message
+ *        or byte AGENT_ERROR, value error message
+ * </pre>
+ *
+ * The values are written with the {@link ValueCodec}.
+ */
+public final class BinaryActionProtocol {
+
+    public static final String CONTENT_TYPE                      = "application/x-ats-actions";
+
+    private static final int   MAGIC                             = 0x41545341;                 // "ATSA"
+    private static final byte  VERSION                           = 1;
+
+    private static final byte  REQUEST                           = 1;
+    private static final byte  BATCH                             = 2;
+
+    public static final byte   RESPONSE_RESULT                   = 1;
+    public static final byte   RESPONSE_INTERNAL_COMPONENT_ERROR = 2;
+    public static final byte   RESPONSE_AGENT_ERROR              = 3;
+
+    private BinaryActionProtocol() {
+
+    }
+
+    public static void writeHeader( DataOutput out ) throws IOException {
+
+        out.writeInt( MAGIC );
+        out.writeByte( VERSION );
+    }
+
+    /**
+     * Read the header of a request or response stream
+     *
+     * @param in where to read from
+     * @throws IOException if the stream does not start with a valid header
+     */
+    public static void readHeader( DataInput in ) throws IOException {
+
+        int magic = in.readInt();
+        if( magic != MAGIC ) {
+            throw new IOException( "This is not an ATS actions stream" );
+        }
+        byte version = in.readByte();
+        if( version != VERSION ) {
+            throw new IOException( "Unsupported ATS actions protocol version " + version + ", expected "
+                                   + VERSION );
+        }
+    }
+
+    public static void writeRequest( DataOutput out, ActionRequest actionRequest ) throws IOException {
+
+        Object[] arguments = actionRequest.getArguments();
+        if( arguments == null ) {
+            arguments = new Object[0];
+        }
+
+        out.writeByte( REQUEST );
+        ValueCodec.writeString( out, actionRequest.getComponentName() );
+        ValueCodec.writeString( out, actionRequest.getActionName() );
+        out.writeInt( arguments.length );
+        for( Object argument : arguments ) {
+            ValueCodec.write( out, argument );
+        }
+    }
+
+    /**
+     * Read the next action request
+     *
+     * @param in where to read from
+     * @return the request or null if there are no more requests
+     * @throws IOException if the request cannot be read
+     * @throws ClassNotFoundException if the class of some argument is not found
+     */
+    public static ActionRequest readRequest( DataInputStream in ) throws IOException,
+                                                                  ClassNotFoundException {
+
+        int type = in.read();
+        if( type == -1 ) {
+            return null;
+        }
+        if( type != REQUEST ) {
+            throw new IOException( "Unknown request type " + type );
+        }
+
+        String componentName = ValueCodec.readString( in );
+        String actionName = ValueCodec.readString( in );
+        // each argument takes at least its tag byte
+        Object[] arguments = new Object[ValueCodec.readLength( in, 1 )];
+        for( int i = 0; i < arguments.length; i++ ) {
+            arguments[i] = ValueCodec.read( in );
+        }
+        return new ActionRequest( componentName, actionName, arguments );
+    }
+
+    /**
+     * Write a batch of action requests
+     *
+     * @param out where to write to
+     * @param actionRequests the requests
+     * @param independentFlags for each request, whether it can be executed at the same time as the
+     * independent requests next to it
+     * @throws IOException
+     */
+    public static void writeBatch( DataOutput out, List<ActionRequest> actionRequests,
+                                   List<Boolean> independentFlags ) throws IOException {
+
+        out.writeByte( BATCH );
+        out.writeInt( actionRequests.size() );
+
+        ByteArrayOutputStream entryBytes = new ByteArrayOutputStream();
+        DataOutputStream entryOut = new DataOutputStream( entryBytes );
+        for( int i = 0; i < actionRequests.size(); i++ ) {
+            entryBytes.reset();
+            writeRequest( entryOut, actionRequests.get( i ) );
+
+            out.writeBoolean( independentFlags.get( i ) );
+            out.writeInt( entryBytes.size() );
+            out.write( entryBytes.toByteArray() );
+        }
+    }
+
+    /**
+     * Check whether the stream continues with a batch, without reading from it
+     *
+     * @param in where to read from
+     * @return true if the next item is a batch
+     * @throws IOException
+     */
+    public static boolean isBatch( DataInputStream in ) throws IOException {
+
+        in.mark( 1 );
+        int type = in.read();
+        in.reset();
+        return type == BATCH;
+    }
+
+    /**
+     * Read a batch of action requests
+     *
+     * @param in where to read from
+     * @return the batch entries
+     * @throws IOException if the batch cannot be read
+     */
+    public static List<BatchEntry> readBatch( DataInputStream in ) throws IOException {
+
+        int type = in.readByte();
+        if( type != BATCH ) {
+            throw new IOException( "Unknown request type " + type );
+        }
+
+        // each entry takes at least its independent flag and length
+        int numberEntries = ValueCodec.readLength( in, 5 );
+        List<BatchEntry> entries = new ArrayList<BatchEntry>( numberEntries );
+        for( int i = 0; i < numberEntries; i++ ) {
+            boolean isIndependent = in.readBoolean();
+            byte[] entryBytes = new byte[ValueCodec.readLength( in, 1 )];
+            in.readFully( entryBytes );
+
+            try {
+                ActionRequest actionRequest = readRequest( new LimitedDataInputStream( new ByteArrayInputStream( entryBytes ),
+                                                                                       entryBytes.length ) );
+                if( actionRequest == null ) {
+                    throw new IOException( "Empty batch entry " + i );
+                }
+                entries.add( new BatchEntry( actionRequest, isIndependent, null ) );
+            } catch( ClassNotFoundException cnfe ) {
+                entries.add( new BatchEntry( null, isIndependent,
+                                             "Could not read action arguments: " + cnfe.getMessage() ) );
+            }
+        }
+        return entries;
+    }
+
+    public static void writeResult( DataOutput out, Object result ) throws IOException {
+
+        out.writeByte( RESPONSE_RESULT );
+        ValueCodec.write( out, result );
+    }
+
+    public static void writeInternalComponentError( DataOutput out, String componentName, String actionName,
+                                                    String exceptionMessage ) throws IOException {
+
+        out.writeByte( RESPONSE_INTERNAL_COMPONENT_ERROR );
+        ValueCodec.writeString( out, componentName );
+        ValueCodec.writeString( out, actionName );
+        ValueCodec.write( out, exceptionMessage );
+    }
+
+    public static void writeAgentError( DataOutput out, String message ) throws IOException {
+
+        out.writeByte( RESPONSE_AGENT_ERROR );
+        ValueCodec.write( out, message );
+    }
+
+    /**
+     * Read the type of the next response. It is followed by the response fields,
+     * which are read with {@link #readString(DataInput)} and {@link ValueCodec#read(DataInput)}
+     *
+     * @param in where to read from
+     * @return one of the RESPONSE_* constants
+     * @throws IOException
+     */
+    public static byte readResponseType( DataInput in ) throws IOException {
+
+        byte type = in.readByte();
+        if( type != RESPONSE_RESULT && type != RESPONSE_INTERNAL_COMPONENT_ERROR
+            && type != RESPONSE_AGENT_ERROR ) {
+            throw new IOException( "Unknown response type " + type );
+        }
+        return type;
+    }
+
+    public static String readString( DataInput in ) throws IOException {
+
+        return ValueCodec.readString( in );
+    }
+}
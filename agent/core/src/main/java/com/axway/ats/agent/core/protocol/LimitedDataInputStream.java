@@ -0,0 +1,129 @@
+/*
+ * Copyright 2017 Axway Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.axway.ats.agent.core.protocol;
+
+import java.io.DataInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.ProtocolException;
+
+/**
+ * A data input stream which knows how many bytes can still be read from it.
+ *
+ * The {@link ValueCodec} checks the lengths read from such a stream against the remaining bytes,
+ * so a malformed or hostile stream cannot make it allocate huge arrays.
+ * Reading past the limit, while the underlying stream still has data, throws a {@link ProtocolException}.
+ */
+public class LimitedDataInputStream extends DataInputStream {
+
+    /**
+     * @param in the stream to read from
+     * @param limit the maximum number of bytes to be read, usually the content length of the request
+     */
+    public LimitedDataInputStream( InputStream in, long limit ) {
+
+        super( new LimitingInputStream( in, limit ) );
+    }
+
+    /**
+     * @return the number of bytes which can still be read
+     */
+    public long getRemaining() {
+
+        return ( ( LimitingInputStream ) in ).remaining;
+    }
+
+    private static class LimitingInputStream extends FilterInputStream {
+
+        private final long limit;
+        private long       remaining;
+        private long       markedRemaining;
+
+        LimitingInputStream( InputStream in, long limit ) {
+
+            super( in );
+            this.limit = limit;
+            this.remaining = limit;
+            this.markedRemaining = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+
+            if( remaining == 0 ) {
+                return checkEnd();
+            }
+            int b = super.read();
+            if( b != -1 ) {
+                remaining--;
+            }
+            return b;
+        }
+
+        @Override
+        public int read( byte[] b, int off, int len ) throws IOException {
+
+            if( len == 0 ) {
+                return 0;
+            }
+            if( remaining == 0 ) {
+                return checkEnd();
+            }
+            int read = super.read( b, off, ( int ) Math.min( len, remaining ) );
+            if( read > 0 ) {
+                remaining -= read;
+            }
+            return read;
+        }
+
+        @Override
+        public long skip( long n ) throws IOException {
+
+            long skipped = super.skip( Math.min( n, remaining ) );
+            remaining -= skipped;
+            return skipped;
+        }
+
+        @Override
+        public int available() throws IOException {
+
+            return ( int ) Math.min( super.available(), remaining );
+        }
+
+        @Override
+        public synchronized void mark( int readlimit ) {
+
+            super.mark( readlimit );
+            markedRemaining = remaining;
+        }
+
+        @Override
+        public synchronized void reset() throws IOException {
+
+            super.reset();
+            remaining = markedRemaining;
+        }
+
+        private int checkEnd() throws IOException {
+
+            if( super.read() != -1 ) {
+                throw new ProtocolException( "The stream is longer than " + limit + " bytes" );
+            }
+            return -1;
+        }
+    }
+}
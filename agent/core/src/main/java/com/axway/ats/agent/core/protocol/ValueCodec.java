@@ -0,0 +1,516 @@
+/*
+ * Copyright 2017 Axway Software
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.axway.ats.agent.core.protocol;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.lang.reflect.Array;
+import java.net.ProtocolException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Writes and reads action arguments and results in a compact binary form.
+ *
+ * Each value starts with a one byte tag, which tells how the rest of it is encoded.
+ * Strings, primitive wrappers, primitive arrays, enums and arrays of these are written directly.
+ * All other types are written with the Java serialization, as it was done for all values before.
+ */
+public final class ValueCodec {
+
+    private static final byte                       TAG_NULL       = 0;
+    private static final byte                       TAG_ENUM       = 1;
+    private static final byte                       TAG_ARRAY      = 2;
+    private static final byte                       TAG_SERIALIZED = 3;
+
+    private static final Map<Class<?>, TypeCodec<?>> CODECS_BY_TYPE = new HashMap<Class<?>, TypeCodec<?>>();
+    private static final TypeCodec<?>[]             CODECS_BY_TAG  = new TypeCodec<?>[64];
+
+    static {
+        register( new TypeCodec<String>( 10, String.class ) {
+
+            @Override
+            void write( DataOutput out, String value ) throws IOException {
+
+                writeString( out, value );
+            }
+
+            @Override
+            String read( DataInput in ) throws IOException {
+
+                return readString( in );
+            }
+        } );
+        register( new TypeCodec<Boolean>( 11, Boolean.class ) {
+
+            @Override
+            void write( DataOutput out, Boolean value ) throws IOException {
+
+                out.writeBoolean( value );
+            }
+
+            @Override
+            Boolean read( DataInput in ) throws IOException {
+
+                return in.readBoolean();
+            }
+        } );
+        register( new TypeCodec<Byte>( 12, Byte.class ) {
+
+            @Override
+            void write( DataOutput out, Byte value ) throws IOException {
+
+                out.writeByte( value );
+            }
+
+            @Override
+            Byte read( DataInput in ) throws IOException {
+
+                return in.readByte();
+            }
+        } );
+        register( new TypeCodec<Short>( 13, Short.class ) {
+
+            @Override
+            void write( DataOutput out, Short value ) throws IOException {
+
+                out.writeShort( value );
+            }
+
+            @Override
+            Short read( DataInput in ) throws IOException {
+
+                return in.readShort();
+            }
+        } );
+        register( new TypeCodec<Character>( 14, Character.class ) {
+
+            @Override
+            void write( DataOutput out, Character value ) throws IOException {
+
+                out.writeChar( value );
+            }
+
+            @Override
+            Character read( DataInput in ) throws IOException {
+
+                return in.readChar();
+            }
+        } );
+        register( new TypeCodec<Integer>( 15, Integer.class ) {
+
+            @Override
+            void write( DataOutput out, Integer value ) throws IOException {
+
+                out.writeInt( value );
+            }
+
+            @Override
+            Integer read( DataInput in ) throws IOException {
+
+                return in.readInt();
+            }
+        } );
+        register( new TypeCodec<Long>( 16, Long.class ) {
+
+            @Override
+            void write( DataOutput out, Long value ) throws IOException {
+
+                out.writeLong( value );
+            }
+
+            @Override
+            Long read( DataInput in ) throws IOException {
+
+                return in.readLong();
+            }
+        } );
+        register( new TypeCodec<Float>( 17, Float.class ) {
+
+            @Override
+            void write( DataOutput out, Float value ) throws IOException {
+
+                out.writeFloat( value );
+            }
+
+            @Override
+            Float read( DataInput in ) throws IOException {
+
+                return in.readFloat();
+            }
+        } );
+        register( new TypeCodec<Double>( 18, Double.class ) {
+
+            @Override
+            void write( DataOutput out, Double value ) throws IOException {
+
+                out.writeDouble( value );
+            }
+
+            @Override
+            Double read( DataInput in ) throws IOException {
+
+                return in.readDouble();
+            }
+        } );
+
+        register( new TypeCodec<byte[]>( 20, byte[].class ) {
+
+            @Override
+            void write( DataOutput out, byte[] value ) throws IOException {
+
+                out.writeInt( value.length );
+                out.write( value );
+            }
+
+            @Override
+            byte[] read( DataInput in ) throws IOException {
+
+                byte[] value = new byte[readLength( in, 1 )];
+                in.readFully( value );
+                return value;
+            }
+        } );
+        register( new TypeCodec<boolean[]>( 21, boolean[].class ) {
+
+            @Override
+            void write( DataOutput out, boolean[] value ) throws IOException {
+
+                out.writeInt( value.length );
+                for( boolean element : value ) {
+                    out.writeBoolean( element );
+                }
+            }
+
+            @Override
+            boolean[] read( DataInput in ) throws IOException {
+
+                boolean[] value = new boolean[readLength( in, 1 )];
+                for( int i = 0; i < value.length; i++ ) {
+                    value[i] = in.readBoolean();
+                }
+                return value;
+            }
+        } );
+        register( new TypeCodec<short[]>( 22, short[].class ) {
+
+            @Override
+            void write( DataOutput out, short[] value ) throws IOException {
+
+                out.writeInt( value.length );
+                for( short element : value ) {
+                    out.writeShort( element );
+                }
+            }
+
+            @Override
+            short[] read( DataInput in ) throws IOException {
+
+                short[] value = new short[readLength( in, 2 )];
+                for( int i = 0; i < value.length; i++ ) {
+                    value[i] = in.readShort();
+                }
+                return value;
+            }
+        } );
+        register( new TypeCodec<char[]>( 23, char[].class ) {
+
+            @Override
+            void write( DataOutput out, char[] value ) throws IOException {
+
+                out.writeInt( value.length );
+                for( char element : value ) {
+                    out.writeChar( element );
+                }
+            }
+
+            @Override
+            char[] read( DataInput in ) throws IOException {
+
+                char[] value = new char[readLength( in, 2 )];
+                for( int i = 0; i < value.length; i++ ) {
+                    value[i] = in.readChar();
+                }
+                return value;
+            }
+        } );
+        register( new TypeCodec<int[]>( 24, int[].class ) {
+
+            @Override
+            void write( DataOutput out, int[] value ) throws IOException {
+
+                out.writeInt( value.length );
+                for( int element : value ) {
+                    out.writeInt( element );
+                }
+            }
+
+            @Override
+            int[] read( DataInput in ) throws IOException {
+
+                int[] value = new int[readLength( in, 4 )];
+                for( int i = 0; i < value.length; i++ ) {
+                    value[i] = in.readInt();
+                }
+                return value;
+            }
+        } );
+        register( new TypeCodec<long[]>( 25, long[].class ) {
+
+            @Override
+            void write( DataOutput out, long[] value ) throws IOException {
+
+                out.writeInt( value.length );
+                for( long element : value ) {
+                    out.writeLong( element );
+                }
+            }
+
+            @Override
+            long[] read( DataInput in ) throws IOException {
+
+                long[] value = new long[readLength( in, 8 )];
+                for( int i = 0; i < value.length; i++ ) {
+                    value[i] = in.readLong();
+                }
+                return value;
+            }
+        } );
+        register( new TypeCodec<float[]>( 26, float[].class ) {
+
+            @Override
+            void write( DataOutput out, float[] value ) throws IOException {
+
+                out.writeInt( value.length );
+                for( float element : value ) {
+                    out.writeFloat( element );
+                }
+            }
+
+            @Override
+            float[] read( DataInput in ) throws IOException {
+
+                float[] value = new float[readLength( in, 4 )];
+                for( int i = 0; i < value.length; i++ ) {
+                    value[i] = in.readFloat();
+                }
+                return value;
+            }
+        } );
+        register( new TypeCodec<double[]>( 27, double[].class ) {
+
+            @Override
+            void write( DataOutput out, double[] value ) throws IOException {
+
+                out.writeInt( value.length );
+                for( double element : value ) {
+                    out.writeDouble( element );
+                }
+            }
+
+            @Override
+            double[] read( DataInput in ) throws IOException {
+
+                double[] value = new double[readLength( in, 8 )];
+                for( int i = 0; i < value.length; i++ ) {
+                    value[i] = in.readDouble();
+                }
+                return value;
+            }
+        } );
+    }
+
+    private ValueCodec() {
+
+    }
+
+    /**
+     * Write a value
+     *
+     * @param out where to write
+     * @param value the value, it can be null
+     * @throws IOException if the value cannot be written, for example if it is not serializable
+     */
+    @SuppressWarnings("unchecked")
+    public static void write( DataOutput out, Object value ) throws IOException {
+
+        if( value == null ) {
+            out.writeByte( TAG_NULL );
+            return;
+        }
+
+        Class<?> type = value.getClass();
+        TypeCodec<Object> codec = ( TypeCodec<Object> ) CODECS_BY_TYPE.get( type );
+        if( codec != null ) {
+            out.writeByte( codec.tag );
+            codec.write( out, value );
+        } else if( value instanceof Enum ) {
+            out.writeByte( TAG_ENUM );
+            writeString( out, ( ( Enum<?> ) value ).getDeclaringClass().getName() );
+            writeString( out, ( ( Enum<?> ) value ).name() );
+        } else if( type.isArray() ) {
+            // an array of objects, the primitive arrays are registered
+            out.writeByte( TAG_ARRAY );
+            writeString( out, type.getComponentType().getName() );
+            int length = Array.getLength( value );
+            out.writeInt( length );
+            for( int i = 0; i < length; i++ ) {
+                write( out, Array.get( value, i ) );
+            }
+        } else {
+            ByteArrayOutputStream byteOutStream = new ByteArrayOutputStream();
+            ObjectOutputStream objectOutStream = new ObjectOutputStream( byteOutStream );
+            objectOutStream.writeObject( value );
+            objectOutStream.close();
+
+            out.writeByte( TAG_SERIALIZED );
+            out.writeInt( byteOutStream.size() );
+            out.write( byteOutStream.toByteArray() );
+        }
+    }
+
+    /**
+     * Read a value
+     *
+     * @param in where to read from
+     * @return the value, it can be null
+     * @throws IOException if the value cannot be read
+     * @throws ClassNotFoundException if the value class is not found
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    public static Object read( DataInput in ) throws IOException, ClassNotFoundException {
+
+        byte tag = in.readByte();
+        switch( tag ){
+            case TAG_NULL:
+                return null;
+            case TAG_ENUM:
+                Class enumClass = loadClass( readString( in ) );
+                return Enum.valueOf( enumClass, readString( in ) );
+            case TAG_ARRAY:
+                Class<?> componentType = loadClass( readString( in ) );
+                Object array = Array.newInstance( componentType, readLength( in, 1 ) );
+                for( int i = 0; i < Array.getLength( array ); i++ ) {
+                    Array.set( array, i, read( in ) );
+                }
+                return array;
+            case TAG_SERIALIZED:
+                byte[] bytes = new byte[readLength( in, 1 )];
+                in.readFully( bytes );
+                ObjectInputStream objectInStream = new ObjectInputStream( new ByteArrayInputStream( bytes ) );
+                return objectInStream.readObject();
+            default:
+                TypeCodec<?> codec = tag > 0 && tag < CODECS_BY_TAG.length
+                                                                           ? CODECS_BY_TAG[tag]
+                                                                           : null;
+                if( codec == null ) {
+                    throw new IOException( "Unknown value tag " + tag );
+                }
+                return codec.read( in );
+        }
+    }
+
+    /**
+     * Write a string, which can be longer than the 64KB limit of {@link DataOutput#writeUTF(String)}
+     *
+     * @param out where to write
+     * @param value the string, it must not be null
+     * @throws IOException
+     */
+    static void writeString( DataOutput out, String value ) throws IOException {
+
+        byte[] bytes = value.getBytes( StandardCharsets.UTF_8 );
+        out.writeInt( bytes.length );
+        out.write( bytes );
+    }
+
+    static String readString( DataInput in ) throws IOException {
+
+        byte[] bytes = new byte[readLength( in, 1 )];
+        in.readFully( bytes );
+        return new String( bytes, StandardCharsets.UTF_8 );
+    }
+
+    /**
+     * Read the length of some array, string or list. When reading from a {@link LimitedDataInputStream},
+     * the length is checked against the bytes remaining in the stream.
+     *
+     * @param in where to read from
+     * @param minElementSize the minimum number of bytes each element takes in the stream
+     * @return the length
+     * @throws ProtocolException if the length is negative or the stream does not have that many elements
+     * @throws IOException if the length cannot be read
+     */
+    static int readLength( DataInput in, int minElementSize ) throws IOException {
+
+        int length = in.readInt();
+        if( length < 0 ) {
+            throw new ProtocolException( "Invalid length " + length );
+        }
+        if( in instanceof LimitedDataInputStream ) {
+            long remaining = ( ( LimitedDataInputStream ) in ).getRemaining();
+            if( ( long ) length * minElementSize > remaining ) {
+                throw new ProtocolException( "Length " + length + " does not fit in the remaining " + remaining
+                                             + " bytes" );
+            }
+        }
+        return length;
+    }
+
+    private static Class<?> loadClass( String className ) throws ClassNotFoundException {
+
+        ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
+        if( contextClassLoader != null ) {
+            try {
+                return Class.forName( className, false, contextClassLoader );
+            } catch( ClassNotFoundException e ) {
+                // try with the class loader of the agent classes
+            }
+        }
+        return Class.forName( className, false, ValueCodec.class.getClassLoader() );
+    }
+
+    private static void register( TypeCodec<?> codec ) {
+
+        CODECS_BY_TYPE.put( codec.type, codec );
+        CODECS_BY_TAG[codec.tag] = codec;
+    }
+
+    /**
+     * Writes and reads the values of one type
+     */
+    private static abstract class TypeCodec<T> {
+
+        private final byte     tag;
+        private final Class<T> type;
+
+        TypeCodec( int tag, Class<T> type ) {
+
+            this.tag = ( byte ) tag;
+            this.type = type;
+        }
+
+        abstract void write( DataOutput out, T value ) throws IOException;
+
+        abstract T read( DataInput in ) throws IOException;
+    }
+}
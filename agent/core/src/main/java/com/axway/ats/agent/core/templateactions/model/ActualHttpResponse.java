@@ -0,0 +1,179 @@
+/*
+ * Copyright 2017 Axway Software
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.axway.ats.agent.core.templateactions.model;
+
+import static com.axway.ats.common.agent.templateactions.TemplateActionsXmlDefinitions.TOKEN_HEADER_NAME_ATTRIBUTE;
+import static com.axway.ats.common.agent.templateactions.TemplateActionsXmlDefinitions.TOKEN_HEADER_VALUE_ATTRIBUTE;
+import static com.axway.ats.common.agent.templateactions.TemplateActionsXmlDefinitions.TOKEN_HTTP_HEADER;
+import static com.axway.ats.common.agent.templateactions.TemplateActionsXmlDefinitions.TOKEN_HTTP_RESOURCE_FILE;
+import static com.axway.ats.common.agent.templateactions.TemplateActionsXmlDefinitions.TOKEN_HTTP_RESPONSE;
+import static com.axway.ats.common.agent.templateactions.TemplateActionsXmlDefinitions.TOKEN_HTTP_RESPONSE_RESULT;
+
+import java.util.Map;
+import java.util.Map.Entry;
+
+/**
+ * An HTTP response as received over the wire.
+ *
+ * It keeps the response headers and the information about the received body in plain fields,
+ * so the response can be verified without building an XML document for it.
+ */
+public class ActualHttpResponse {
+
+    // the header values by header name, the response status is kept under the null key
+    private final Map<String, String> headers;
+
+    // the name of the file the body is saved to, it is null if the body is not saved on the disk
+    private final String              resourceFile;
+    // the body size, -1 if no body is received
+    private final long                resourceFileSize;
+
+    private final String              contentType;
+
+    private byte[]                    bodyBytes;
+
+    public ActualHttpResponse( Map<String, String> headers, String resourceFile, long resourceFileSize,
+                               byte[] bodyBytes, String contentType ) {
+
+        this.headers = headers;
+        this.resourceFile = resourceFile;
+        this.resourceFileSize = resourceFileSize;
+        this.bodyBytes = bodyBytes;
+        this.contentType = contentType;
+    }
+
+    /**
+     * @return the response result, like "200 OK"
+     */
+    public String getResponseResult() {
+
+        return headers.get( null );
+    }
+
+    /**
+     * @param headerName the header name
+     * @return the header value or null if there is no such header
+     */
+    public String getHeaderValue( String headerName ) {
+
+        return headers.get( headerName );
+    }
+
+    /**
+     * @return the response headers, the response status is kept under the null key
+     */
+    public Map<String, String> getHeaders() {
+
+        return headers;
+    }
+
+    /**
+     * @return whether a response body is received
+     */
+    public boolean hasResourceFile() {
+
+        return resourceFileSize > -1;
+    }
+
+    /**
+     * @return the name of the file the body is saved to or null if it is not saved on the disk
+     */
+    public String getResourceFile() {
+
+        return resourceFile;
+    }
+
+    /**
+     * @return the body size or -1 if no body is received
+     */
+    public long getResourceFileSize() {
+
+        return resourceFileSize;
+    }
+
+    /**
+     * @return the body bytes, if they were requested to be kept
+     */
+    public byte[] getBodyBytes() {
+
+        return bodyBytes;
+    }
+
+    /**
+     * @return the body content as {@link String} or null if the body bytes are not kept
+     */
+    public String getBodyContentAsString() {
+
+        return bodyBytes != null
+                                 ? new String( bodyBytes )
+                                 : null;
+    }
+
+    /**
+     * @return the Content-Type header value
+     */
+    public String getContentType() {
+
+        return contentType;
+    }
+
+    /**
+     * Clean references to facilitate faster garbage collection
+     */
+    public void cleanupMembers() {
+
+        bodyBytes = null;
+    }
+
+    /**
+     * @return the response in the format it is recorded in the template action XML files, used for logging
+     */
+    @Override
+    public String toString() {
+
+        StringBuilder sb = new StringBuilder();
+        sb.append( "<" + TOKEN_HTTP_RESPONSE + ">\n" );
+        if( hasResourceFile() ) {
+            sb.append( "    <" + TOKEN_HTTP_RESOURCE_FILE + " size=\"" + resourceFileSize + "\"" );
+            if( resourceFile != null ) {
+                sb.append( ">" + escape( resourceFile ) + "</" + TOKEN_HTTP_RESOURCE_FILE + ">\n" );
+            } else {
+                sb.append( "/>\n" );
+            }
+        }
+        for( Entry<String, String> header : headers.entrySet() ) {
+            if( header.getKey() == null ) {
+                sb.append( "    <" + TOKEN_HTTP_RESPONSE_RESULT + ">" + escape( header.getValue() ) + "</"
+                           + TOKEN_HTTP_RESPONSE_RESULT + ">\n" );
+            } else {
+                sb.append( "    <" + TOKEN_HTTP_HEADER + " " + TOKEN_HEADER_NAME_ATTRIBUTE + "=\""
+                           + escape( header.getKey() ) + "\" " + TOKEN_HEADER_VALUE_ATTRIBUTE + "=\""
+                           + escape( header.getValue() ) + "\"/>\n" );
+            }
+        }
+        sb.append( "</" + TOKEN_HTTP_RESPONSE + ">" );
+
+        return sb.toString();
+    }
+
+    private static String escape( String value ) {
+
+        if( value == null ) {
+            return "";
+        }
+        return value.replace( "&", "&amp;" ).replace( "<", "&lt;" ).replace( "\"", "&quot;" );
+    }
+}
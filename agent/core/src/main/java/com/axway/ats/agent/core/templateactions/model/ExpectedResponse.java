@@ -0,0 +1,83 @@
+/*
+ * Copyright 2017 Axway Software
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.axway.ats.agent.core.templateactions.model;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.axway.ats.agent.core.templateactions.model.matchers.HeaderMatcher;
+import com.axway.ats.agent.core.templateactions.model.objects.ActionResponseObject;
+
+/**
+ * The expected response of one template action step, prepared for verifying actual responses.
+ * It is immutable, so it is shared by all threads running the same template action.
+ */
+public class ExpectedResponse {
+
+    private final String                     responseResult;
+
+    // the header matchers from the XML file by header name
+    private final Map<String, HeaderMatcher> headerMatchers;
+
+    private final String                     resourceFile;
+    private final String                     resourceFileSize;
+
+    public ExpectedResponse( ActionResponseObject responseObject ) {
+
+        this.responseResult = responseObject.getResponseResult();
+        this.resourceFile = responseObject.getResourceFile();
+        this.resourceFileSize = responseObject.getResourceFileSize();
+
+        Map<String, HeaderMatcher> headerMatchers = new LinkedHashMap<String, HeaderMatcher>();
+        for( HeaderMatcher headerMatcher : responseObject.getHttpHeaderMatchers() ) {
+            headerMatchers.put( headerMatcher.getHeaderName(), headerMatcher );
+        }
+        this.headerMatchers = Collections.unmodifiableMap( headerMatchers );
+    }
+
+    /**
+     * @return the expected response result, like "200 OK"
+     */
+    public String getResponseResult() {
+
+        return responseResult;
+    }
+
+    /**
+     * @return the header matchers from the XML file by header name
+     */
+    public Map<String, HeaderMatcher> getHeaderMatchers() {
+
+        return headerMatchers;
+    }
+
+    /**
+     * @return the expected response file or null if no file is expected
+     */
+    public String getResourceFile() {
+
+        return resourceFile;
+    }
+
+    /**
+     * @return the expected response file size
+     */
+    public String getResourceFileSize() {
+
+        return resourceFileSize;
+    }
+}
@@ -41,14 +41,19 @@ import java.net.URL;
 import java.net.URLConnection;
 import java.security.GeneralSecurityException;
 import java.security.cert.X509Certificate;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
 
 import javax.net.ssl.HostnameVerifier;
 import javax.net.ssl.HttpsURLConnection;
 import javax.net.ssl.SSLContext;
 import javax.net.ssl.SSLSession;
+import javax.net.ssl.SSLSocketFactory;
 import javax.net.ssl.TrustManager;
 import javax.net.ssl.X509TrustManager;
 
@@ -88,18 +93,29 @@ public class HttpClient {
     private static String       proxyHost;
     private static int          proxyPort;
     static SSLContext           sslContext                              = null;                                                           // reuse sslContext instead of setting it for each request. This should share connections
+    // The JDK reuses a kept-alive HTTPS connection only if it was created by the same socket factory instance.
+    // The SSL sessions are cached in the SSL context, so new connections to the same host skip the full handshake
+    private static SSLSocketFactory sslSocketFactory;
+    private static HostnameVerifier hostnameVerifier                    = new DefaultHostnameVerifier();
+
+    // the maximum number of concurrent connections per host, null means no limit
+    private static Integer      maxConnectionsPerHost;
+    // the connection permits of each host, shared by all template action users
+    private static final ConcurrentMap<String, Semaphore> connectionPermits = new ConcurrentHashMap<String, Semaphore>();
 
     static {
         parseSystemProperties();
 
-        HttpURLConnection.setFollowRedirects( false ); // manually follow them via template actions
-
         // One time initialization for default SSL socket factory (trusts everything)
         initSSL();
     }
 
     private HttpURLConnection   urlConnection;
 
+    // the permits of the host this request goes to, null when the connections are not limited
+    private Semaphore           hostPermits;
+    private boolean             hasConnectionPermit;
+
     // For tracking request/response (network+server) time
     private NetworkingStopWatch stopWatch;
 
@@ -114,6 +130,7 @@ public class HttpClient {
         try {
             sslContext = SSLContext.getInstance( "TLS" );
             sslContext.init( null, new TrustManager[]{ new DefaultTrustManager() }, null );
+            sslSocketFactory = sslContext.getSocketFactory();
         } catch( GeneralSecurityException e ) {
             throw new RuntimeException( "Error setting trust-all trust manager", e );
         }
@@ -131,6 +148,9 @@ public class HttpClient {
         try {
 
             URL url = new URL( httpUrl );
+            if( maxConnectionsPerHost != null ) {
+                hostPermits = getHostPermits( url );
+            }
             if( proxyHost != null ) {
                 urlConnection = ( HttpURLConnection ) url.openConnection( new Proxy( Type.HTTP,
                                                                                      new InetSocketAddress( proxyHost,
@@ -140,10 +160,11 @@ public class HttpClient {
             }
             if( httpUrl.toLowerCase().startsWith( "https" ) ) {
                 // SSL context is initialized one-time
-                ( ( HttpsURLConnection ) urlConnection ).setSSLSocketFactory( sslContext.getSocketFactory() );
-                ( ( HttpsURLConnection ) urlConnection ).setHostnameVerifier( new DefaultHostnameVerifier() );
+                ( ( HttpsURLConnection ) urlConnection ).setSSLSocketFactory( sslSocketFactory );
+                ( ( HttpsURLConnection ) urlConnection ).setHostnameVerifier( hostnameVerifier );
 
             }
+            urlConnection.setInstanceFollowRedirects( false ); // manually follow them via template actions
 
             // TODO - set timeouts from some property. Currently on Java 6 it seems to be 0 - wait forever
             // urlConnection.setConnectTimeout( connectionTimeoutMs);
@@ -173,6 +194,31 @@ public class HttpClient {
 
         log.info( actionStep + " -> Sending HTTP request to '" + urlConnection.getURL() + "'" );
 
+        // wait for a free connection to this host. The waiting is not measured as network time
+        if( hostPermits != null && !hasConnectionPermit ) {
+            hostPermits.acquire();
+            hasConnectionPermit = true;
+        }
+        try {
+            sendRequest( fileToSend, hasParams );
+        } catch( Exception e ) {
+            // the response will not be read, so the connection is released here
+            releaseConnection();
+            throw e;
+        }
+    }
+
+    private void sendRequest( String fileToSend, boolean hasParams ) throws Exception {
+
+        // the connection time is measured separately, it is not part of the request time.
+        // A kept-alive connection to the same host is reused if available
+        stopWatch.startConnecting();
+        try {
+            urlConnection.connect();
+        } finally {
+            stopWatch.endConnecting();
+        }
+
         if( urlConnection.getDoOutput() ) {
 
             stopWatch.step1_OpenConnectionForRequest();
@@ -256,18 +302,104 @@ public class HttpClient {
     }
 
     /**
-     * Calls the disconnect method of the HTTP URL Connection object
+     * Calls the disconnect method of the HTTP URL Connection object.
+     * It closes the underlying connection, so it can not be reused by the next requests to the same host.
      */
     public void disconnect() {
 
         urlConnection.disconnect();
+        releaseConnection();
+    }
+
+    /**
+     * Gives the connection to this host to the next waiting request, if the connections per host are limited.
+     * It is called when the response is read or the request has failed. Calling it more than once has no effect.
+     */
+    public void releaseConnection() {
+
+        if( hasConnectionPermit ) {
+            hasConnectionPermit = false;
+            hostPermits.release();
+        }
+    }
+
+    /**
+     * Reads the response of the sent request, without building an XML document for it
+     *
+     * @param actionsXml full name (with path) of the actions file. Used for generating relative paths for body contents
+     * @param actionNum action number among all ones in the file
+     * @param saveResponseBodyBytes whether to keep the response body bytes
+     * @return the actual response
+     * @throws Exception
+     */
+    public ActualHttpResponse readResponse( String actionsXml, int actionNum,
+                                            boolean saveResponseBodyBytes ) throws Exception {
+
+        String resourceFile = null;
+        long resourceFileSize = -1;
+        try {
+            stopWatch.step6_StartGetResponseCode();
+            int responseCode = urlConnection.getResponseCode(); // this effectively may send request and wait for response
+            stopWatch.step7_EndGetResponseCode();
+
+            if( urlConnection.getDoInput()
+                // if the response code is "302 Found" we assume that the response body is empty
+                && responseCode != 302 ) {
+
+                String resourceFileName = getResourceFileName( actionNum );
+                long contentLength = receiveResponseBody( resourceFileName, actionsXml, saveResponseBodyBytes );
+                if( contentLength > 0 ) {
+                    resourceFileSize = contentLength;
+                    if( isMatchFilesByContent() ) {
+                        resourceFile = resourceFileName;
+                    }
+                }
+            } else if( urlConnection.getDoInput() ) {
+                discardResponseBody();
+            }
+        } finally {
+            // the response body is consumed, so the connection is idle again
+            releaseConnection();
+        }
+
+        return new ActualHttpResponse( getResponseHeaders( Math.max( resourceFileSize, 0 ) ), resourceFile,
+                                       resourceFileSize, responseBodyBytes, urlConnection.getContentType() );
     }
 
     public Node readHeaders( Document dom, Node responseNode, int contentLength ) throws Exception {
 
+        for( Entry<String, String> headerEntry : getResponseHeaders( contentLength ).entrySet() ) {
+
+            if( headerEntry.getKey() == null ) {
+                // add response result
+                Element actionResponseResult = dom.createElement( TOKEN_HTTP_RESPONSE_RESULT );
+                actionResponseResult.appendChild( dom.createTextNode( headerEntry.getValue() ) );
+                responseNode.appendChild( actionResponseResult );
+            } else {
+                Element header = dom.createElement( TOKEN_HTTP_HEADER );
+                header.setAttribute( TOKEN_HEADER_NAME_ATTRIBUTE, headerEntry.getKey() );
+                header.setAttribute( TOKEN_HEADER_VALUE_ATTRIBUTE, headerEntry.getValue() );
+
+                responseNode.appendChild( header );
+            }
+        }
+
+        return responseNode;
+    }
+
+    /**
+     * Reads the response headers in the order they are received. The response status, like '200 OK',
+     * is kept under the null key.
+     *
+     * @param contentLength the received body size
+     * @return the header values by header name
+     * @throws Exception
+     */
+    public Map<String, String> getResponseHeaders( long contentLength ) throws Exception {
+
         Map<String, List<String>> headersMap = getHeadersMap( urlConnection );
 
-        // add headers
+        Map<String, String> headers = new LinkedHashMap<String, String>();
         for( Entry<String, List<String>> headerEntry : headersMap.entrySet() ) {
 
             String headerValue = null;
@@ -293,34 +425,19 @@ public class HttpClient {
 
             if( headerName == null ) {
                 // this should be the response status header, something like 'HTTP/1.1 200 OK'
-                String responseStatusString = headerValue;
-                String responseStatus = responseStatusString.substring( responseStatusString.indexOf( ' ' )
-                                                                        + 1, responseStatusString.length() );
-
-                // add response result
-                Element actionResponseResult = dom.createElement( TOKEN_HTTP_RESPONSE_RESULT );
-                actionResponseResult.appendChild( dom.createTextNode( responseStatus ) );
-                responseNode.appendChild( actionResponseResult );
-            } else {
+                headerValue = headerValue.substring( headerValue.indexOf( ' ' ) + 1, headerValue.length() );
+            } else if( headerName.equalsIgnoreCase( HeaderMatcher.TRANSFER_ENCODING_HEADER_NAME )
+                       && contentLength > -1 ) {
 
                 // we will skip "Transfer-Encoding" header because we have to verify the content length
                 // and will replace it with "Content-Length" header, which is always expected in the recorded XML files
-                if( headerName.equalsIgnoreCase( HeaderMatcher.TRANSFER_ENCODING_HEADER_NAME )
-                    && contentLength > -1 ) {
-
-                    headerName = HeaderMatcher.CONTENT_LENGTH_HEADER_NAME;
-                    headerValue = String.valueOf( contentLength );
-                }
-
-                Element header = dom.createElement( TOKEN_HTTP_HEADER );
-                header.setAttribute( TOKEN_HEADER_NAME_ATTRIBUTE, headerName );
-                header.setAttribute( TOKEN_HEADER_VALUE_ATTRIBUTE, headerValue );
-
-                responseNode.appendChild( header );
+                headerName = HeaderMatcher.CONTENT_LENGTH_HEADER_NAME;
+                headerValue = String.valueOf( contentLength );
             }
+            headers.put( headerName, headerValue );
         }
 
-        return responseNode;
+        return headers;
     }
 
     public byte[] readWholeBodyBytes() throws IOException {
@@ -383,21 +500,16 @@ public class HttpClient {
         // save binary file and add a reference to it in the XML
         Element resourceFileNode = null;
         if( urlConnection.getDoInput() ) {
-            String contentType = urlConnection.getContentType();
-            if( contentType == null ) {
-                log.warn( "No 'Content-Type' header in the response" );
-            }
-            String resourceFileExtension = MimeTypeFileExtensionMapper.getFileExtension( contentType,
-                                                                                         urlConnection.getContentEncoding() );
-            if( resourceFileExtension == null ) {
-
-                resourceFileExtension = "bin";
-                log.warn( "Unknown content type: " + contentType
-                          + ". Resource file will be saved with 'bin' extension. Request URL: "
-                          + urlConnection.getURL() );
+            String resourceFileName = getResourceFileName( actionNum );
+            long contentLength = receiveResponseBody( resourceFileName, actionsXml, saveResponseBodyBytes );
+            if( contentLength > 0 ) {
+                // create the file XML element
+                resourceFileNode = dom.createElement( TOKEN_HTTP_RESOURCE_FILE );
+                resourceFileNode.setAttribute( "size", String.valueOf( contentLength ) );
+                if( isMatchFilesByContent() ) {
+                    resourceFileNode.appendChild( dom.createTextNode( resourceFileName ) );
+                }
             }
-            resourceFileNode = saveResourceFile( dom, resourceFileExtension, actionsXml, actionNum,
-                                                 saveResponseBodyBytes );
         }
 
         return resourceFileNode;
@@ -451,6 +563,35 @@ public class HttpClient {
             proxyHost = null;
             proxyPort = -1;
         }
+
+        maxConnectionsPerHost = AtsSystemProperties.getPropertyAsNumber( AtsSystemProperties.AGENT__TEMPLATE_ACTIONS_MAX_CONNECTIONS_PER_HOST );
+        if( maxConnectionsPerHost != null ) {
+            if( maxConnectionsPerHost < 1 ) {
+                throw new IllegalArgumentException( "Illegal maximum number of connections per host specified: "
+                                                    + maxConnectionsPerHost );
+            }
+            log.info( "Will open up to " + maxConnectionsPerHost
+                      + " concurrent connections per host for template actions" );
+        }
+    }
+
+    private static Semaphore getHostPermits( URL url ) {
+
+        int port = url.getPort();
+        if( port == -1 ) {
+            port = url.getDefaultPort();
+        }
+        String hostKey = url.getProtocol().toLowerCase() + "://" + url.getHost().toLowerCase() + ":" + port;
+
+        Semaphore permits = connectionPermits.get( hostKey );
+        if( permits == null ) {
+            permits = new Semaphore( maxConnectionsPerHost, true );
+            Semaphore existingPermits = connectionPermits.putIfAbsent( hostKey, permits );
+            if( existingPermits != null ) {
+                permits = existingPermits;
+            }
+        }
+        return permits;
     }
 
     private Map<String, List<String>> getHeadersMap( URLConnection urlConnection ) throws Exception {
@@ -480,18 +621,41 @@ public class HttpClient {
         return headersMap;
     }
 
-    private Element saveResourceFile( Document dom, String resourceFileExtension, String actionsXml,
-                                      int actionNum,
-                                      boolean saveRespBodyBytesForFileStore ) throws HttpClientException {
+    private String getResourceFileName( int actionNum ) {
+
+        String contentType = urlConnection.getContentType();
+        if( contentType == null ) {
+            log.warn( "No 'Content-Type' header in the response" );
+        }
+        String resourceFileExtension = MimeTypeFileExtensionMapper.getFileExtension( contentType,
+                                                                                     urlConnection.getContentEncoding() );
+        if( resourceFileExtension == null ) {
+
+            resourceFileExtension = "bin";
+            log.warn( "Unknown content type: " + contentType
+                      + ". Resource file will be saved with 'bin' extension. Request URL: "
+                      + urlConnection.getURL() );
+        }
+        return TOKEN_HTTP_RESPONSE_FILE_EXPECTED + actionNum + "." + resourceFileExtension;
+    }
+
+    private boolean isMatchFilesByContent() {
 
-        boolean matchFilesByContent = false;
         Boolean templateActionsMatchFilesByContent = ConfigurationSettings.getInstance()
                                                                           .isTemplateActionsMatchFilesByContent();
-        if( templateActionsMatchFilesByContent != null ) {
-            matchFilesByContent = templateActionsMatchFilesByContent.booleanValue();
-        }
+        return templateActionsMatchFilesByContent != null && templateActionsMatchFilesByContent.booleanValue();
+    }
+
+    /**
+     * Reads the response body
+     *
+     * @return the body size or 0 if the body is not received
+     */
+    private long receiveResponseBody( String resourceFileName, String actionsXml,
+                                      boolean saveRespBodyBytesForFileStore ) throws HttpClientException {
+
+        boolean matchFilesByContent = isMatchFilesByContent();
 
-        String resourceFileName = TOKEN_HTTP_RESPONSE_FILE_EXPECTED + actionNum + "." + resourceFileExtension;
         String resourceFile = null;
         if( matchFilesByContent ) {
             String actualResourcesDir = getActualResourcesDir( actionsXml );
@@ -513,7 +677,8 @@ public class HttpClient {
                 log.info( "HTTP response code: 401 Unauthorized. File " + resourceFileName
                           + " will not be saved." );
                 stopWatch.step9_endReceivingResponseData();
-                return null;
+                discardResponseBody();
+                return 0;
             }
             boolean saveBodyForUseOrLogging = saveRespBodyBytesForFileStore;
             if( !saveBodyForUseOrLogging ) {
@@ -573,7 +738,7 @@ public class HttpClient {
             if( contentLength == 0 ) {
                 log.info( "Response (sequence name: " + resourceFileName
                           + ") will not be saved, because its length is 0" );
-                return null;
+                return 0;
             }
 
             if( saveBodyForUseOrLogging ) {
@@ -599,13 +764,34 @@ public class HttpClient {
             IoUtils.closeStream( is );
         }
 
-        // create and return the file XML element
-        Element resourceFileNode = dom.createElement( TOKEN_HTTP_RESOURCE_FILE );
-        resourceFileNode.setAttribute( "size", String.valueOf( contentLength ) );
-        if( matchFilesByContent ) {
-            resourceFileNode.appendChild( dom.createTextNode( resourceFileName ) );
+        return contentLength;
+    }
+
+    /**
+     * Read and close a not needed response body, so the connection is returned to the pool of kept-alive
+     * connections. Otherwise it stays open until it is garbage collected.
+     */
+    private void discardResponseBody() {
+
+        InputStream is = null;
+        try {
+            if( urlConnection.getResponseCode() >= HTTP_MIN_RESPONSE_CODE_FOR_ERROR_STREAM ) {
+                is = urlConnection.getErrorStream();
+            } else {
+                is = urlConnection.getInputStream();
+            }
+            if( is != null ) {
+                byte[] buffer = new byte[CHUNK_LENGTH];
+                while( is.read( buffer, 0, buffer.length ) != -1 ) {
+                    // skip the body
+                }
+            }
+        } catch( IOException e ) {
+            log.debug( "Unable to read the response body of " + urlConnection.getURL()
+                       + ", the connection will not be reused", e );
+        } finally {
+            IoUtils.closeStream( is );
         }
-        return resourceFileNode;
     }
 
     private String getActualResourcesDir( String actionsXml ) {
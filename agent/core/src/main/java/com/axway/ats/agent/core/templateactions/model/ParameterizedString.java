@@ -0,0 +1,133 @@
+/*
+ * Copyright 2017 Axway Software
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.axway.ats.agent.core.templateactions.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+
+import org.apache.log4j.Logger;
+
+import com.axway.ats.agent.core.context.ThreadContext;
+import com.axway.ats.agent.core.templateactions.exceptions.XmlUtilitiesException;
+
+/**
+ * A string from a template action XML file, which may contain user parameters in the form ${user_param_name}.
+ *
+ * The string is split into literal text and parameter names once, so applying the current
+ * user parameters does not need to search the string for each parameter known to the thread.
+ * If a parameter value is a {@link Queue}, each occurrence of the parameter takes the next value from it.
+ */
+public final class ParameterizedString {
+
+    private static final Logger log = Logger.getLogger( ParameterizedString.class );
+
+    private final String        template;
+
+    // the literal text before each parameter, the last one is the text after the last parameter
+    private final String[]      literals;
+    private final String[]      parameterNames;
+
+    public ParameterizedString( String template ) {
+
+        this.template = template;
+
+        List<String> literalsList = new ArrayList<String>();
+        List<String> parameterNamesList = new ArrayList<String>();
+        if( template != null ) {
+            int literalStartIndex = 0;
+            int paramStartIndex;
+            while( ( paramStartIndex = template.indexOf( "${", literalStartIndex ) ) > -1 ) {
+
+                int paramEndIndex = template.indexOf( '}', paramStartIndex + 2 );
+                if( paramEndIndex < 0 ) {
+                    break;
+                }
+                literalsList.add( template.substring( literalStartIndex, paramStartIndex ) );
+                parameterNamesList.add( template.substring( paramStartIndex + 2, paramEndIndex ) );
+                literalStartIndex = paramEndIndex + 1;
+            }
+            literalsList.add( template.substring( literalStartIndex ) );
+        }
+
+        this.literals = literalsList.toArray( new String[literalsList.size()] );
+        this.parameterNames = parameterNamesList.toArray( new String[parameterNamesList.size()] );
+    }
+
+    /**
+     * @return the string as it is in the template
+     */
+    public String getTemplate() {
+
+        return template;
+    }
+
+    /**
+     * @return whether there are any user parameters in this string
+     */
+    public boolean hasParameters() {
+
+        return parameterNames.length > 0;
+    }
+
+    /**
+     * Applies the user parameters of the current thread
+     *
+     * @return the string with the parameters replaced by their values
+     * @throws XmlUtilitiesException if there are more occurrences of a parameter than values provided for it
+     */
+    public String apply() throws XmlUtilitiesException {
+
+        if( parameterNames.length == 0 ) {
+            return template;
+        }
+
+        StringBuilder sb = new StringBuilder( template.length() + 16 * parameterNames.length );
+        for( int i = 0; i < parameterNames.length; i++ ) {
+            sb.append( literals[i] );
+
+            String paramName = parameterNames[i];
+            Object paramValue = ThreadContext.getAttribute( paramName );
+            if( paramValue == null ) {
+                // keep the parameter as it is
+                if( !paramName.startsWith( "=" ) ) {
+                    log.info( "Currently there is no value to replace parameter ${" + paramName
+                              + "}. Increase HttpClient's logging severity to 'TRACE' in order to see the current request data." );
+                }
+                sb.append( "${" ).append( paramName ).append( '}' );
+            } else if( paramValue instanceof Queue<?> ) {
+                // use the next value and remove it from the Queue
+                Object value = ( ( Queue<?> ) paramValue ).poll();
+                if( value == null ) {
+                    throw new XmlUtilitiesException( "The number of parameters ${" + paramName
+                                                     + "} is more than the number of provided values for them." );
+                }
+                sb.append( value );
+            } else {
+                sb.append( paramValue );
+            }
+        }
+        sb.append( literals[parameterNames.length] );
+
+        return sb.toString();
+    }
+
+    @Override
+    public String toString() {
+
+        return template;
+    }
+}
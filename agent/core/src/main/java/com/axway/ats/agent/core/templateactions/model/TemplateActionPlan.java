@@ -0,0 +1,62 @@
+/*
+ * Copyright 2017 Axway Software
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.axway.ats.agent.core.templateactions.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.axway.ats.agent.core.templateactions.model.objects.ActionObject;
+
+/**
+ * The execution plan of a template action XML file.
+ *
+ * It is compiled once, when the file is loaded, and is shared by all threads executing the
+ * template action. It must not be modified after it is compiled.
+ */
+public class TemplateActionPlan {
+
+    private final String                   actionsXml;
+
+    private final List<TemplateActionStep> steps;
+
+    TemplateActionPlan( String actionsXml, List<ActionObject> actionNodes ) {
+
+        this.actionsXml = actionsXml;
+
+        List<TemplateActionStep> steps = new ArrayList<TemplateActionStep>( actionNodes.size() );
+        for( int i = 0; i < actionNodes.size(); i++ ) {
+            steps.add( new TemplateActionStep( actionNodes.get( i ), i + 1, i == actionNodes.size() - 1 ) );
+        }
+        this.steps = Collections.unmodifiableList( steps );
+    }
+
+    /**
+     * @return the full name (with path) of the actions file
+     */
+    public String getActionsXml() {
+
+        return actionsXml;
+    }
+
+    /**
+     * @return the action steps in the order they are executed
+     */
+    public List<TemplateActionStep> getSteps() {
+
+        return steps;
+    }
+}
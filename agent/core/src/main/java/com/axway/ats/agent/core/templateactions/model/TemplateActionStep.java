@@ -0,0 +1,139 @@
+/*
+ * Copyright 2017 Axway Software
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.axway.ats.agent.core.templateactions.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.axway.ats.agent.core.templateactions.exceptions.XmlUtilitiesException;
+import com.axway.ats.agent.core.templateactions.model.matchers.HeaderMatcher;
+import com.axway.ats.agent.core.templateactions.model.objects.ActionHeader;
+import com.axway.ats.agent.core.templateactions.model.objects.ActionObject;
+import com.axway.ats.agent.core.templateactions.model.objects.ActionRequestObject;
+
+/**
+ * One request/response step of a {@link TemplateActionPlan}.
+ * The request URL and headers are split on their user parameters in advance, so only the
+ * parameter values are resolved when the request is sent.
+ */
+public class TemplateActionStep {
+
+    private final int                   stepNumber;
+    private final boolean               isLastStep;
+
+    private final ParameterizedString   httpUrl;
+    private final String                httpMethod;
+
+    private final String[]              httpHeaderNames;
+    private final ParameterizedString[] httpHeaderValues;
+
+    private final String                resourceFile;
+    private final boolean               hasParamsInResourceFile;
+
+    private final ExpectedResponse      expectedResponse;
+
+    private final XmlUtilities          xmlUtilities;
+
+    TemplateActionStep( ActionObject action, int stepNumber, boolean isLastStep ) {
+
+        ActionRequestObject request = action.getRequest();
+
+        this.stepNumber = stepNumber;
+        this.isLastStep = isLastStep;
+        this.httpUrl = new ParameterizedString( request.getTemplateHttpUrl() );
+        this.httpMethod = request.getHttpMethod();
+        this.resourceFile = request.getResourceFile();
+        this.hasParamsInResourceFile = request.hasParamsInResourceFile();
+        this.expectedResponse = new ExpectedResponse( action.getResponse() );
+        this.xmlUtilities = new XmlUtilities();
+
+        List<ActionHeader> templateHeaders = request.getTemplateHttpHeaders();
+        this.httpHeaderNames = new String[templateHeaders.size()];
+        this.httpHeaderValues = new ParameterizedString[templateHeaders.size()];
+        for( int i = 0; i < httpHeaderNames.length; i++ ) {
+            httpHeaderNames[i] = templateHeaders.get( i ).getHeaderName();
+            httpHeaderValues[i] = new ParameterizedString( templateHeaders.get( i ).getHeaderValue() );
+        }
+    }
+
+    /**
+     * @return the step number, starting from 1
+     */
+    public int getStepNumber() {
+
+        return stepNumber;
+    }
+
+    /**
+     * @return whether this is the last step of the template action
+     */
+    public boolean isLastStep() {
+
+        return isLastStep;
+    }
+
+    /**
+     * @return the request URL with applied user parameters
+     * @throws XmlUtilitiesException
+     */
+    public String getHttpUrl() throws XmlUtilitiesException {
+
+        return httpUrl.apply();
+    }
+
+    public String getHttpMethod() {
+
+        return httpMethod;
+    }
+
+    /**
+     * @return the request headers with applied user parameters and cookie values
+     * @throws XmlUtilitiesException
+     */
+    public List<ActionHeader> getHttpHeaders() throws XmlUtilitiesException {
+
+        List<ActionHeader> httpHeaders = new ArrayList<ActionHeader>( httpHeaderNames.length );
+        for( int i = 0; i < httpHeaderNames.length; i++ ) {
+
+            String headerValue;
+            if( httpHeaderNames[i].equalsIgnoreCase( HeaderMatcher.COOKIE_HEADER_NAME ) ) {
+                headerValue = xmlUtilities.applyUserParametersInCookieHeader( httpHeaderValues[i].getTemplate() );
+            } else {
+                headerValue = httpHeaderValues[i].apply();
+            }
+            httpHeaders.add( new ActionHeader( httpHeaderNames[i], headerValue ) );
+        }
+        return httpHeaders;
+    }
+
+    /**
+     * @return the request file or null if there is no request body
+     */
+    public String getResourceFile() {
+
+        return resourceFile;
+    }
+
+    public boolean hasParamsInResourceFile() {
+
+        return hasParamsInResourceFile;
+    }
+
+    public ExpectedResponse getExpectedResponse() {
+
+        return expectedResponse;
+    }
+}
@@ -17,14 +17,20 @@ package com.axway.ats.agent.core.templateactions.model;
 
 import java.io.BufferedReader;
 import java.io.Closeable;
+import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+import org.apache.log4j.Logger;
 
 import com.axway.ats.agent.core.templateactions.exceptions.XmlReaderException;
 import com.axway.ats.agent.core.templateactions.exceptions.XmlUtilitiesException;
@@ -43,11 +49,19 @@ public class XmlReader {
 
     private List<ActionObject>                     actionNodes;
 
-    private static Map<String, List<ActionObject>> actionNodesMap          = new HashMap<String, List<ActionObject>>();
+    private TemplateActionPlan                     actionPlan;
 
     private int                                    iActionNodes;
 
-    private static final int                       AVERAGE_XML_LINE_LENGTH = 150;
+    private static final Logger                    log                         = Logger.getLogger( XmlReader.class );
+
+    // the loaded actions files, the task for a file is run by the first thread which needs it
+    private static final ConcurrentMap<String, FutureTask<ActionsFile>> actionsFilesMap = new ConcurrentHashMap<String, FutureTask<ActionsFile>>();
+
+    // how often to check whether a loaded actions file is modified, in milliseconds
+    private static final long                      FILE_CHANGES_CHECK_INTERVAL = 1000;
+
+    private static final int                       AVERAGE_XML_LINE_LENGTH     = 150;
 
     public XmlReader( String actionsXml ) throws XmlReaderException, XmlUtilitiesException {
 
@@ -79,6 +93,14 @@ public class XmlReader {
         return iActionNodes == actionNodes.size() - 1;
     }
 
+    /**
+     * @return the execution plan of the loaded actions file
+     */
+    public TemplateActionPlan getActionPlan() {
+
+        return actionPlan;
+    }
+
     public ActionResponseObject getResponse() {
 
         return actionNodes.get( iActionNodes ).getResponse();
@@ -111,114 +133,217 @@ public class XmlReader {
 
     private void loadXmlFile() throws XmlReaderException, XmlUtilitiesException {
 
-        //FIXME: performance: different actionsXml files could be loaded concurrently but extensive synchronization is needed
-        synchronized( actionNodesMap ) {
+        while( true ) {
+            FutureTask<ActionsFile> actionsFileTask = actionsFilesMap.get( actionsXml );
+            if( actionsFileTask == null ) {
+                // the file is not loaded yet, only the first thread which asks for it loads it.
+                // Different files are loaded concurrently
+                FutureTask<ActionsFile> newActionsFileTask = new FutureTask<ActionsFile>( new Callable<ActionsFile>() {
+
+                    @Override
+                    public ActionsFile call() throws Exception {
+
+                        return parseXmlFile();
+                    }
+                } );
+                actionsFileTask = actionsFilesMap.putIfAbsent( actionsXml, newActionsFileTask );
+                if( actionsFileTask == null ) {
+                    actionsFileTask = newActionsFileTask;
+                    actionsFileTask.run();
+                }
+            }
+
+            ActionsFile actionsFile = getActionsFile( actionsFileTask );
+            if( actionsFile.isUpToDate( actionsXml ) ) {
+                actionNodes = actionsFile.actionNodes;
+                actionPlan = actionsFile.actionPlan;
+                iActionNodes = -1;
+                return;
+            }
 
-            if( !actionNodesMap.containsKey( actionsXml ) ) {
+            // the file is changed since it was loaded, load it again
+            log.info( "Reloading the modified template actions file " + actionsXml );
+            actionsFilesMap.remove( actionsXml, actionsFileTask );
+        }
+    }
+
+    private ActionsFile getActionsFile( FutureTask<ActionsFile> actionsFileTask ) throws XmlReaderException,
+                                                                                  XmlUtilitiesException {
 
-                // load the document
-                BufferedReader br = null;
-                FileChunkReader fileChunkReader = null;
+        boolean interrupted = false;
+        try {
+            while( true ) {
                 try {
+                    return actionsFileTask.get();
+                } catch( InterruptedException e ) {
+                    // the file is being loaded by another thread, wait for it
+                    interrupted = true;
+                }
+            }
+        } catch( ExecutionException e ) {
+            // do not keep the failure, so the file is loaded again next time
+            actionsFilesMap.remove( actionsXml, actionsFileTask );
+
+            Throwable cause = e.getCause();
+            if( cause instanceof XmlReaderException ) {
+                throw ( XmlReaderException ) cause;
+            } else if( cause instanceof XmlUtilitiesException ) {
+                throw ( XmlUtilitiesException ) cause;
+            } else {
+                throw new XmlReaderException( actionsXml, cause );
+            }
+        } finally {
+            if( interrupted ) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
 
-                    // load the action nodes and add them to the map
-                    actionNodes = new ArrayList<ActionObject>();
-
-                    br = new BufferedReader( new InputStreamReader( new FileInputStream( actionsXml ) ) );
-                    fileChunkReader = new FileChunkReader();
-
-                    StringBuilder request = new StringBuilder( 1000 );
-                    //if the response doesn't contain parameters we will keep it without the response body part
-                    StringBuilder responseWoBodyBuilder = new StringBuilder( 1000 );
-                    String response = null;
-                    boolean inRequest = false;
-                    boolean inResponse = false;
-                    boolean hasParametersInResponse = false;
-
-                    int currentLineNumber = 0;
-                    int startLineMarker = 0;
-                    String line;
-                    while( ( line = br.readLine() ) != null ) {
-
-                        currentLineNumber++;
-                        if( line.contains( "<HTTP_ACTION>" ) ) {
-
-                            inResponse = false;
-                            inRequest = false;
-                            continue;
-                        } else if( line.contains( "</HTTP_ACTION>" ) ) {
-
-                            actionNodes.add( new ActionObject( actionsXml, request.toString(), response ) );
-                            continue;
-                        } else if( line.contains( "<HTTP_REQUEST " ) || line.contains( "<HTTP_REQUEST>" ) ) {
-                            // the normal case is "<HTTP_REQUEST ", 
-                            // but we also handle here the "<HTTP_REQUEST>" in case the HTTP method attribute is missing
-                            // sometime later an appropriate exception will be thrown
-
-                            // clear old request data
-                            request.delete( 0, request.length() );
-                            inRequest = true;
-                        } else if( line.contains( "</HTTP_REQUEST>" ) ) {
-
-                            request.append( line + AtsSystemProperties.SYSTEM_LINE_SEPARATOR );
-                            inRequest = false;
-                            continue;
-                        } else if( line.contains( "<HTTP_RESPONSE>" ) ) {
-
-                            startLineMarker = currentLineNumber;
-                            // clear old response data
-                            responseWoBodyBuilder.delete( 0, responseWoBodyBuilder.length() );
-                            responseWoBodyBuilder.append( line + AtsSystemProperties.SYSTEM_LINE_SEPARATOR );
-                            inResponse = true;
-                            continue;
-                        } else if( line.contains( "</HTTP_RESPONSE>" ) ) {
-
-                            responseWoBodyBuilder.append( line + AtsSystemProperties.SYSTEM_LINE_SEPARATOR );
-                            // optimization - do not store body if there are no variables in the body
-                            if( hasParametersInResponse ) {
-                                response = fileChunkReader.readChunk( startLineMarker, currentLineNumber );
-                            } else {
-                                response = responseWoBodyBuilder.toString();
-                            }
-                            inResponse = false;
-                            hasParametersInResponse = false;
-                            continue;
-                        }
-
-                        if( inRequest ) {
-
-                            request.append( line + AtsSystemProperties.SYSTEM_LINE_SEPARATOR );
-                        } else if( inResponse ) {
-
-                            // search for parameters in the response
-                            if( !hasParametersInResponse && line.contains( "${" )
-                                && line.matches( ".*\\$\\{.+\\}.*" ) ) {
-
-                                hasParametersInResponse = true;
-                            }
-                            // collect the response data without the response body
-                            if( line.contains( "<HTTP_HEADER " ) || line.contains( "<HTTP_RESOURCE_FILE" )
-                                || line.contains( "<HTTP_RESPONSE_RESULT>" ) ) {
-
-                                responseWoBodyBuilder.append( line
-                                                              + AtsSystemProperties.SYSTEM_LINE_SEPARATOR );
-                            }
-                        }
+    private ActionsFile parseXmlFile() throws XmlReaderException {
+
+        // remember the file state before reading it, so a change made while reading it is detected later
+        File file = new File( actionsXml );
+        long lastModified = file.lastModified();
+        long length = file.length();
+
+        // load the document
+        BufferedReader br = null;
+        FileChunkReader fileChunkReader = null;
+        try {
+
+            // load the action nodes
+            List<ActionObject> actionNodes = new ArrayList<ActionObject>();
+
+            br = new BufferedReader( new InputStreamReader( new FileInputStream( actionsXml ) ) );
+            fileChunkReader = new FileChunkReader();
+
+            StringBuilder request = new StringBuilder( 1000 );
+            //if the response doesn't contain parameters we will keep it without the response body part
+            StringBuilder responseWoBodyBuilder = new StringBuilder( 1000 );
+            String response = null;
+            boolean inRequest = false;
+            boolean inResponse = false;
+            boolean hasParametersInResponse = false;
+
+            int currentLineNumber = 0;
+            int startLineMarker = 0;
+            String line;
+            while( ( line = br.readLine() ) != null ) {
+
+                currentLineNumber++;
+                if( line.contains( "<HTTP_ACTION>" ) ) {
+
+                    inResponse = false;
+                    inRequest = false;
+                    continue;
+                } else if( line.contains( "</HTTP_ACTION>" ) ) {
+
+                    actionNodes.add( new ActionObject( actionsXml, request.toString(), response ) );
+                    continue;
+                } else if( line.contains( "<HTTP_REQUEST " ) || line.contains( "<HTTP_REQUEST>" ) ) {
+                    // the normal case is "<HTTP_REQUEST ", 
+                    // but we also handle here the "<HTTP_REQUEST>" in case the HTTP method attribute is missing
+                    // sometime later an appropriate exception will be thrown
+
+                    // clear old request data
+                    request.delete( 0, request.length() );
+                    inRequest = true;
+                } else if( line.contains( "</HTTP_REQUEST>" ) ) {
+
+                    request.append( line + AtsSystemProperties.SYSTEM_LINE_SEPARATOR );
+                    inRequest = false;
+                    continue;
+                } else if( line.contains( "<HTTP_RESPONSE>" ) ) {
+
+                    startLineMarker = currentLineNumber;
+                    // clear old response data
+                    responseWoBodyBuilder.delete( 0, responseWoBodyBuilder.length() );
+                    responseWoBodyBuilder.append( line + AtsSystemProperties.SYSTEM_LINE_SEPARATOR );
+                    inResponse = true;
+                    continue;
+                } else if( line.contains( "</HTTP_RESPONSE>" ) ) {
+
+                    responseWoBodyBuilder.append( line + AtsSystemProperties.SYSTEM_LINE_SEPARATOR );
+                    // optimization - do not store body if there are no variables in the body
+                    if( hasParametersInResponse ) {
+                        response = fileChunkReader.readChunk( startLineMarker, currentLineNumber );
+                    } else {
+                        response = responseWoBodyBuilder.toString();
                     }
-                    actionNodesMap.put( actionsXml, actionNodes );
+                    inResponse = false;
+                    hasParametersInResponse = false;
+                    continue;
+                }
+
+                if( inRequest ) {
+
+                    request.append( line + AtsSystemProperties.SYSTEM_LINE_SEPARATOR );
+                } else if( inResponse ) {
+
+                    // search for parameters in the response
+                    if( !hasParametersInResponse && line.contains( "${" )
+                        && line.matches( ".*\\$\\{.+\\}.*" ) ) {
 
-                } catch( Exception e ) {
-                    throw new XmlReaderException( actionsXml, e );
-                } finally {
-                    IoUtils.closeStream( fileChunkReader );
-                    IoUtils.closeStream( br );
+                        hasParametersInResponse = true;
+                    }
+                    // collect the response data without the response body
+                    if( line.contains( "<HTTP_HEADER " ) || line.contains( "<HTTP_RESOURCE_FILE" )
+                        || line.contains( "<HTTP_RESPONSE_RESULT>" ) ) {
+
+                        responseWoBodyBuilder.append( line
+                                                      + AtsSystemProperties.SYSTEM_LINE_SEPARATOR );
+                    }
                 }
+            }
+            return new ActionsFile( actionNodes, new TemplateActionPlan( actionsXml, actionNodes ),
+                                    lastModified, length );
+        } catch( Exception e ) {
+            throw new XmlReaderException( actionsXml, e );
+        } finally {
+            IoUtils.closeStream( fileChunkReader );
+            IoUtils.closeStream( br );
+        }
+    }
 
-            } else {
+    /**
+     * A loaded actions file. The file state is checked for changes at most once per
+     * {@link XmlReader#FILE_CHANGES_CHECK_INTERVAL} milliseconds.
+     */
+    private static class ActionsFile {
 
-                actionNodes = actionNodesMap.get( actionsXml );
+        private final List<ActionObject> actionNodes;
+
+        private final TemplateActionPlan actionPlan;
+
+        private final long               lastModified;
+
+        private final long               length;
+
+        private volatile long            nextChangesCheckTime;
+
+        ActionsFile( List<ActionObject> actionNodes, TemplateActionPlan actionPlan, long lastModified,
+                     long length ) {
+
+            this.actionNodes = actionNodes;
+            this.actionPlan = actionPlan;
+            this.lastModified = lastModified;
+            this.length = length;
+            this.nextChangesCheckTime = System.currentTimeMillis() + FILE_CHANGES_CHECK_INTERVAL;
+        }
+
+        boolean isUpToDate( String actionsXml ) {
+
+            long now = System.currentTimeMillis();
+            if( now < nextChangesCheckTime ) {
+                return true;
             }
-            iActionNodes = -1;
+
+            File file = new File( actionsXml );
+            if( file.lastModified() != lastModified || file.length() != length ) {
+                return false;
+            }
+            nextChangesCheckTime = now + FILE_CHANGES_CHECK_INTERVAL;
+            return true;
         }
     }
 
@@ -27,21 +27,24 @@ import static com.axway.ats.common.agent.templateactions.TemplateActionsXmlDefin
 import java.io.ByteArrayInputStream;
 import java.io.StringWriter;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Queue;
+import java.util.Map.Entry;
+import java.util.Set;
 import java.util.regex.Matcher;
 
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.transform.OutputKeys;
 import javax.xml.transform.Transformer;
 import javax.xml.transform.TransformerException;
 import javax.xml.transform.TransformerFactory;
 import javax.xml.transform.dom.DOMSource;
 import javax.xml.transform.stream.StreamResult;
-import javax.xml.xpath.XPath;
 import javax.xml.xpath.XPathConstants;
 import javax.xml.xpath.XPathExpression;
 import javax.xml.xpath.XPathFactory;
@@ -60,8 +63,6 @@ import com.axway.ats.agent.core.context.ThreadContext;
 import com.axway.ats.agent.core.templateactions.exceptions.InvalidMatcherException;
 import com.axway.ats.agent.core.templateactions.exceptions.XmlUtilitiesException;
 import com.axway.ats.agent.core.templateactions.model.matchers.HeaderMatcher;
-import com.axway.ats.agent.core.templateactions.model.matchers.ResponseMatcher;
-import com.axway.ats.agent.core.templateactions.model.matchers.XPathBodyMatcher;
 import com.axway.ats.agent.core.templateactions.model.objects.ActionParser;
 import com.axway.ats.agent.core.templateactions.model.objects.ActionResponseObject;
 import com.axway.ats.common.agent.templateactions.TemplateActionsXmlDefinitions;
@@ -84,6 +85,25 @@ public class XmlUtilities {
     private static final String[] PRINTABLE_CONTENT_TYPES          = new String[]{ "text/", "application/xml",
                                                                                    "application/xhtml+xml", };
 
+    private static final int      MAX_COMPILED_XPATH_EXPRESSIONS   = 1000;
+
+    // the XML factories are expensive to create and are not thread-safe, so they are kept per thread
+    private static final ThreadLocal<DocumentBuilder>              documentBuilders         = new ThreadLocal<DocumentBuilder>();
+    private static final ThreadLocal<XPathFactory>                 xPathFactory             = new ThreadLocal<XPathFactory>() {
+                                                                                                @Override
+                                                                                                protected XPathFactory initialValue() {
+
+                                                                                                    return XPathFactory.newInstance();
+                                                                                                }
+                                                                                            };
+    private static final ThreadLocal<Map<String, XPathExpression>> compiledXpathExpressions = new ThreadLocal<Map<String, XPathExpression>>() {
+                                                                                                @Override
+                                                                                                protected Map<String, XPathExpression> initialValue() {
+
+                                                                                                    return new HashMap<String, XPathExpression>();
+                                                                                                }
+                                                                                            };
+
     private boolean               matchFilesBySize;
     private boolean               matchFilesByContent;
 
@@ -165,55 +185,7 @@ public class XmlUtilities {
      */
     public static String applyUserParameters( String stringToModify ) throws XmlUtilitiesException {
 
-        StringBuilder sb = new StringBuilder( stringToModify );
-
-        int paramStartIndex = -1;
-        for( String key : ThreadContext.getAttributeNames() ) {
-
-            String paramName = "${" + key + "}";
-            paramStartIndex = sb.indexOf( paramName );
-            if( paramStartIndex > -1 ) {
-
-                Object paramValue = ThreadContext.getAttribute( key );
-                if( paramValue instanceof Queue<?> ) {
-
-                    Queue<?> valuesQueue = ( Queue<?> ) paramValue;
-                    while( ( paramStartIndex = sb.indexOf( paramName, paramStartIndex ) ) > -1 ) {
-
-                        // replace the first occurrence of the parameter and remove its value from the Queue
-                        Object value = valuesQueue.poll();
-                        if( value == null ) {
-
-                            throw new XmlUtilitiesException( "The number of parameters " + paramName
-                                                             + " is more than the number of provided values for them." );
-                        }
-                        sb.replace( paramStartIndex, paramStartIndex + paramName.length(), value.toString() );
-                    }
-
-                } else {
-
-                    while( ( paramStartIndex = sb.indexOf( paramName, paramStartIndex ) ) > -1 ) {
-
-                        sb.replace( paramStartIndex, paramStartIndex + paramName.length(),
-                                    paramValue.toString() );
-                    }
-                }
-            }
-        }
-
-        while( ( paramStartIndex = sb.indexOf( "${", paramStartIndex ) ) > -1 ) {
-
-            if( sb.indexOf( "}", paramStartIndex ) > -1 && sb.charAt( paramStartIndex + 2 ) != '=' ) {
-
-                // TODO - change to warn after detailed review. Currently it seems this method is applied before new parameters extraction
-                log.info( "Currently there is no value to replace parameter "
-                          + sb.substring( paramStartIndex, sb.indexOf( "}", paramStartIndex ) + 1 )
-                          + ". Increase HttpClient's logging severity to 'TRACE' in order to see the current request data." );
-            }
-            paramStartIndex++;
-        }
-
-        return sb.toString();
+        return new ParameterizedString( stringToModify ).apply();
     }
 
     /**
@@ -244,33 +216,34 @@ public class XmlUtilities {
                             ActionResponseObject expectedHttpResponseObject, HttpClient httpClient,
                             TemplateActionsResponseVerificationConfigurator responseVerificationConfigurator ) throws Exception {
 
-        ActionParser actualHttpResponse = readActionResponse( httpClient, actionsXml,
-                                                              currentActionRequestNumber, false );
+        verifyResponse( actionsXml, actionName, currentActionRequestNumber,
+                        new ExpectedResponse( expectedHttpResponseObject ), httpClient,
+                        responseVerificationConfigurator );
+    }
+
+    /**
+     * Verify the expected and actual responses match
+     *
+     * @param expectedResponse the expected response, as compiled in the template action plan
+     * @param currentActionRequestNumber current request/response step in this action/xml (starts from 1)
+     * @throws Exception
+     */
+    public void
+            verifyResponse( String actionsXml, String actionName, int currentActionRequestNumber,
+                            ExpectedResponse expectedResponse, HttpClient httpClient,
+                            TemplateActionsResponseVerificationConfigurator responseVerificationConfigurator ) throws Exception {
+
+        ActualHttpResponse actualHttpResponse = httpClient.readResponse( actionsXml,
+                                                                         currentActionRequestNumber, false );
         if( HttpClient.log.isTraceEnabled() ) {
             String causeMsg = "Print response for debugging purposes";
             logActualResponse( causeMsg, actionName, currentActionRequestNumber, actualHttpResponse, false );
         }
 
-        // stepMatchers now are after reading response so not to influence StopWatches
-        // list with all body matchers
-        List<ResponseMatcher> stepMatchers = new ArrayList<ResponseMatcher>();
-
-        // add all matchers from the XML file
-        List<XPathBodyMatcher> xpathBodyMatchers = applyUserParameters( expectedHttpResponseObject.getXpathBodyMatchers() );
-        stepMatchers.addAll( xpathBodyMatchers );
-
-        // add all matchers from the test case
-        TemplateActionResponseVerificator responseVerificator = responseVerificationConfigurator.getActionVerificator( actionName );
-        if( responseVerificator != null ) {
-            // there is a verificator for this action
-            stepMatchers.addAll( responseVerificator.getStepBodyMatchers( currentActionRequestNumber ) );
-        }
-
         try {
             // Compare HTTP response code
-            String expectedResponseResult = expectedHttpResponseObject.getResponseResult();
-            String actualResponseResult = getFirstChildNode( actualHttpResponse.getActionNodeWithoutBody(),
-                                                             TOKEN_HTTP_RESPONSE_RESULT ).getTextContent();
+            String expectedResponseResult = expectedResponse.getResponseResult();
+            String actualResponseResult = actualHttpResponse.getResponseResult();
             if( !expectedResponseResult.equalsIgnoreCase( actualResponseResult ) ) {
 
                 String causeMsg = "Expected response result '" + expectedResponseResult
@@ -282,16 +255,13 @@ public class XmlUtilities {
 
             // Compare response headers. It extracts any user parameters if present in the headers.
             verifyResponseHeaders( actionName, currentActionRequestNumber,
-                                   expectedHttpResponseObject.getHttpHeaderMatchers(), actualHttpResponse,
+                                   expectedResponse.getHeaderMatchers(), actualHttpResponse,
                                    responseVerificationConfigurator );
 
             // Compare response files
-            verifyResponseFile( expectedHttpResponseObject, actualHttpResponse.getActionNodeWithoutBody() );
+            verifyResponseFile( expectedResponse, actualHttpResponse );
 
-            if( !stepMatchers.isEmpty() ) {
-
-                // TODO verify the response body here
-            }
+            // TODO verify the response body using the XPath body matchers from the XML file and the test case
         } finally {
             actualHttpResponse.cleanupMembers();
         }
@@ -372,14 +342,47 @@ public class XmlUtilities {
     public static Document stringToXmlDocumentObj( String xmlString ) throws XmlUtilitiesException {
 
         try {
-            DocumentBuilderFactory dbf = DocumentBuilderFactory.newInstance();
-            DocumentBuilder db = dbf.newDocumentBuilder();
-            return db.parse( new ByteArrayInputStream( xmlString.getBytes() ) );
+            return getDocumentBuilder().parse( new ByteArrayInputStream( xmlString.getBytes() ) );
         } catch( Exception e ) {
             throw new XmlUtilitiesException( "Error transforming String to XML document", e );
         }
     }
 
+    /**
+     *
+     * @param xmlBytes xml content
+     * @return xml Document object
+     * @throws XmlUtilitiesException
+     */
+    public static Document bytesToXmlDocumentObj( byte[] xmlBytes ) throws XmlUtilitiesException {
+
+        try {
+            return getDocumentBuilder().parse( new ByteArrayInputStream( xmlBytes ) );
+        } catch( Exception e ) {
+            throw new XmlUtilitiesException( "Error transforming bytes to XML document", e );
+        }
+    }
+
+    /**
+     * @return a document builder for the current thread
+     * @throws XmlUtilitiesException
+     */
+    private static DocumentBuilder getDocumentBuilder() throws XmlUtilitiesException {
+
+        DocumentBuilder documentBuilder = documentBuilders.get();
+        if( documentBuilder == null ) {
+            try {
+                documentBuilder = DocumentBuilderFactory.newInstance().newDocumentBuilder();
+            } catch( ParserConfigurationException e ) {
+                throw new XmlUtilitiesException( "Error creating XML document builder", e );
+            }
+            documentBuilders.set( documentBuilder );
+        } else {
+            documentBuilder.reset();
+        }
+        return documentBuilder;
+    }
+
     public static Node[] getChildrenNodes( Node parentNode, String childrenName ) {
 
         List<Node> childrenList = new ArrayList<Node>();
@@ -412,9 +415,10 @@ public class XmlUtilities {
     public ActionParser readActionResponse( HttpClient httpClient, String actionsXml, int actionNum,
                                             boolean saveResponseBodyBytes ) throws Exception {
 
-        DocumentBuilderFactory dbf = DocumentBuilderFactory.newInstance();
-        DocumentBuilder db = dbf.newDocumentBuilder();
-        Document dom = db.newDocument();
+        ActualHttpResponse actualHttpResponse = httpClient.readResponse( actionsXml, actionNum,
+                                                                         saveResponseBodyBytes );
+
+        Document dom = getDocumentBuilder().newDocument();
 
         Node httpActions = dom.createElement( TOKEN_HTTP_ACTIONS );
         dom.appendChild( httpActions );
@@ -424,38 +428,32 @@ public class XmlUtilities {
         Node actualResponseWithoutBodyNode = dom.createElement( TOKEN_HTTP_RESPONSE );
         httpAction.appendChild( actualResponseWithoutBodyNode );
 
-        // read connection input stream bytes
-        int contentLength = 0;
-        byte[] responseBodyBytes = null;
-        int responseCode = -1;
-        httpClient.getNetworkingStopWatch().step6_StartGetResponseCode();
-
-        responseCode = httpClient.getUrlConnection().getResponseCode(); // this effectively may send request and wait for response
-        httpClient.getNetworkingStopWatch().step7_EndGetResponseCode();
-
-        if( httpClient.getUrlConnection().getDoInput()
-            // if the response code is "302 Found" we assume that the response body is empty
-            && responseCode != 302 ) {
-
-            // save the retrieved file
-            Node resourceFileNode = httpClient.httpBodyToXml( dom, actionsXml, actionNum,
-                                                              saveResponseBodyBytes );
-            if( httpClient.getResponseBodyBytes() != null ) { // for disc write or error logging
-                responseBodyBytes = httpClient.getResponseBodyBytes();
-            }
-            if( resourceFileNode != null ) {
-                actualResponseWithoutBodyNode.appendChild( resourceFileNode );
-                if( ( ( Element ) resourceFileNode ).hasAttribute( "size" ) ) {
-                    contentLength = Integer.parseInt( ( ( Element ) resourceFileNode ).getAttribute( "size" ) );
-                }
+        if( actualHttpResponse.hasResourceFile() ) {
+            Element resourceFileNode = dom.createElement( TOKEN_HTTP_RESOURCE_FILE );
+            resourceFileNode.setAttribute( "size", String.valueOf( actualHttpResponse.getResourceFileSize() ) );
+            if( actualHttpResponse.getResourceFile() != null ) {
+                resourceFileNode.appendChild( dom.createTextNode( actualHttpResponse.getResourceFile() ) );
             }
+            actualResponseWithoutBodyNode.appendChild( resourceFileNode );
         }
 
         // add headers
-        actualResponseWithoutBodyNode = httpClient.readHeaders( dom, actualResponseWithoutBodyNode,
-                                                                contentLength );
-        ActionParser actionResponse = new ActionParser( actualResponseWithoutBodyNode, responseBodyBytes );
-        actionResponse.setContentType( httpClient.getUrlConnection().getContentType() );
+        for( Entry<String, String> headerEntry : actualHttpResponse.getHeaders().entrySet() ) {
+            if( headerEntry.getKey() == null ) {
+                Element actionResponseResult = dom.createElement( TOKEN_HTTP_RESPONSE_RESULT );
+                actionResponseResult.appendChild( dom.createTextNode( headerEntry.getValue() ) );
+                actualResponseWithoutBodyNode.appendChild( actionResponseResult );
+            } else {
+                Element header = dom.createElement( TOKEN_HTTP_HEADER );
+                header.setAttribute( TOKEN_HEADER_NAME_ATTRIBUTE, headerEntry.getKey() );
+                header.setAttribute( TOKEN_HEADER_VALUE_ATTRIBUTE, headerEntry.getValue() );
+                actualResponseWithoutBodyNode.appendChild( header );
+            }
+        }
+
+        ActionParser actionResponse = new ActionParser( actualResponseWithoutBodyNode,
+                                                        actualHttpResponse.getBodyBytes() );
+        actionResponse.setContentType( actualHttpResponse.getContentType() );
         return actionResponse;
     }
 
@@ -474,111 +472,106 @@ public class XmlUtilities {
      */
     private void
             verifyResponseHeaders( String actionName, int stepIndex,
-                                   List<HeaderMatcher> expectedHeaderMatchers,
-                                   ActionParser actualHttpResponse,
+                                   Map<String, HeaderMatcher> expectedHeaderMatchers,
+                                   ActualHttpResponse actualHttpResponse,
                                    TemplateActionsResponseVerificationConfigurator verificationConfigurator ) throws XmlUtilitiesException,
                                                                                                               InvalidMatcherException {
 
-        Node[] actualHeaderNodes = getChildrenNodes( actualHttpResponse.getActionNodeWithoutBody(),
-                                                     TOKEN_HTTP_HEADER );
-
-        // Collect all header matchers from the XML file and the test code.
-        // We keep them in a map, so if same header is specified in the XML and the test, the one coming
-        // from the test will get precedence
-        Map<String, HeaderMatcher> headerMatchersMap = new HashMap<String, HeaderMatcher>();
-        // Collect all matchers coming from the static XML file
-        for( HeaderMatcher headerMatcher : expectedHeaderMatchers ) {
-            headerMatchersMap.put( headerMatcher.getHeaderName(), headerMatcher );
-        }
-        // Collect all global header matchers, this is coming from the test case
-        for( HeaderMatcher globalHeaderMatcher : verificationConfigurator.getGlobalHeaderMatchers() ) {
-            // header matcher from global rule so we assume it is not significant if not already existing - forceOptionalHeaderIfNotAlreadyExisting=true
-            headerMatchersMap = addHeaderMatcherToMap( headerMatchersMap, globalHeaderMatcher, true );
-        }
+        Map<String, HeaderMatcher> headerMatchersMap = expectedHeaderMatchers;
+        // the headers which are matched only if they are received
+        Set<String> optionalHeaderNames = Collections.emptySet();
 
-        // Collect all matchers coming from the test case
-        // We do not check if this is an important header, this way user can specify to check a header for
-        // this action step even if it is classified globally as a not important header
+        Set<HeaderMatcher> globalHeaderMatchers = verificationConfigurator.getGlobalHeaderMatchers();
         TemplateActionResponseVerificator responseVerificator = verificationConfigurator.getActionVerificator( actionName );
-        if( responseVerificator != null ) {
-            List<HeaderMatcher> headerMatchers = responseVerificator.getStepHeaderMatchers( stepIndex );
-            for( HeaderMatcher headerMatcher : headerMatchers ) {
+        List<HeaderMatcher> stepHeaderMatchers = responseVerificator != null
+                                                                             ? responseVerificator.getStepHeaderMatchers( stepIndex )
+                                                                             : Collections.<HeaderMatcher> emptyList();
+        if( !globalHeaderMatchers.isEmpty() || !stepHeaderMatchers.isEmpty() ) {
+            // Collect all header matchers from the XML file and the test code.
+            // We keep them in a map, so if same header is specified in the XML and the test, the one coming
+            // from the test will get precedence.
+            // The matchers from the XML file are shared between the threads, so we work on a copy of the map
+            headerMatchersMap = new HashMap<String, HeaderMatcher>( expectedHeaderMatchers );
+            optionalHeaderNames = new HashSet<String>();
+
+            // Collect all global header matchers, this is coming from the test case
+            for( HeaderMatcher globalHeaderMatcher : globalHeaderMatchers ) {
+                // header matcher from global rule so we assume it is not significant if not already existing - forceOptionalHeaderIfNotAlreadyExisting=true
+                addHeaderMatcherToMap( headerMatchersMap, optionalHeaderNames, globalHeaderMatcher, true );
+            }
+
+            // Collect all matchers coming from the test case
+            // We do not check if this is an important header, this way user can specify to check a header for
+            // this action step even if it is classified globally as a not important header
+            for( HeaderMatcher headerMatcher : stepHeaderMatchers ) {
                 // header matcher from Java test code so we assume it is significant - forceOptionalHeaderIfNotAlreadyExisting=false
-                headerMatchersMap = addHeaderMatcherToMap( headerMatchersMap, headerMatcher, false );
+                addHeaderMatcherToMap( headerMatchersMap, optionalHeaderNames, headerMatcher, false );
             }
         }
 
         // Now try to match all available header matchers for this action step
-        boolean[] processedHeaderNodes = new boolean[actualHeaderNodes.length];
         for( HeaderMatcher headerMatcher : headerMatchersMap.values() ) {
-            for( int i = 0; i < actualHeaderNodes.length; i++ ) {
-                String actualHeaderName = getNodeAttribute( actualHeaderNodes[i],
-                                                            TOKEN_HEADER_NAME_ATTRIBUTE );
-                if( actualHeaderName.equals( headerMatcher.getHeaderName() ) ) {
-                    // mark the header node as processed
-                    processedHeaderNodes[i] = true;
-
-                    // try to match this header
-                    String actualHeaderValue = getNodeAttribute( actualHeaderNodes[i],
-                                                                 TOKEN_HEADER_VALUE_ATTRIBUTE );
-                    if( !headerMatcher.performMatch( null, actualHeaderValue ) ) {
-                        // header did not match
-                        String causeMsg = "Did not match header value '" + actualHeaderValue + "' for "
-                                          + headerMatcher.toString() + ".";
-                        logActualResponse( causeMsg, actionName, stepIndex, actualHttpResponse, true );
-                        throw new XmlUtilitiesException( causeMsg );
-                    }
-                    break;
+            String actualHeaderValue = actualHttpResponse.getHeaderValue( headerMatcher.getHeaderName() );
+            if( actualHeaderValue == null ) {
+                // check if this header is optional
+                // otherwise this means some expected header was not received
+                if( !optionalHeaderNames.contains( headerMatcher.getHeaderName() ) ) {
+                    String causeMsg = "Did not receive the expected header for " + headerMatcher.toString()
+                                      + ".";
+                    logActualResponse( causeMsg, actionName, stepIndex, actualHttpResponse, true );
+                    throw new XmlUtilitiesException( causeMsg );
                 }
-            }
-        }
-
-        // check if some matchers were not processed at all
-        // this means some expected header was not received
-        for( HeaderMatcher headerMatcher : headerMatchersMap.values() ) {
-            if( !headerMatcher.wasProcessed() && !headerMatcher.isOptionalHeader() ) {
-                String causeMsg = "Did not receive the expected header for " + headerMatcher.toString() + ".";
+            } else if( !headerMatcher.performMatch( null, actualHeaderValue ) ) {
+                // header did not match
+                String causeMsg = "Did not match header value '" + actualHeaderValue + "' for "
+                                  + headerMatcher.toString() + ".";
                 logActualResponse( causeMsg, actionName, stepIndex, actualHttpResponse, true );
                 throw new XmlUtilitiesException( causeMsg );
             }
         }
     }
 
-    private Map<String, HeaderMatcher>
-            addHeaderMatcherToMap( Map<String, HeaderMatcher> headerMatchersMap, HeaderMatcher headerMatcher,
-                                   boolean forceOptionalHeaderIfNotAlreadyExisting ) throws InvalidMatcherException {
+    private void addHeaderMatcherToMap( Map<String, HeaderMatcher> headerMatchersMap,
+                                        Set<String> optionalHeaderNames, HeaderMatcher headerMatcher,
+                                        boolean forceOptionalHeaderIfNotAlreadyExisting ) throws InvalidMatcherException {
 
         final String headerName = headerMatcher.getHeaderName();
         if( headerMatcher.isMergingMatcher() && headerMatchersMap.containsKey( headerName ) ) {
             // this header is already present in the map and we must merge it with the existing one
-            // instead of replacing it
-            headerMatcher.mergeTo( headerMatchersMap.get( headerName ) );
-            headerMatchersMap.put( headerName, headerMatcher );
+            // instead of replacing it.
+            // The same matcher is used by many threads and steps, so the merge is done on a copy of it
+            HeaderMatcher mergedHeaderMatcher = new HeaderMatcher( headerMatcher );
+            mergedHeaderMatcher.mergeTo( headerMatchersMap.get( headerName ) );
+            headerMatchersMap.put( headerName, mergedHeaderMatcher );
         } else {
-            if( !headerMatchersMap.containsKey( headerName ) ) {
+            if( !headerMatchersMap.containsKey( headerName ) && forceOptionalHeaderIfNotAlreadyExisting ) {
                 // no such header exists in template/map so far
                 // so we should not enforce the global header matcher in the particular request
-                headerMatcher.setOptionalHeader( forceOptionalHeaderIfNotAlreadyExisting );
+                optionalHeaderNames.add( headerName );
+            } else {
+                optionalHeaderNames.remove( headerName );
             }
             // add this header to the map, if there is already an existing one for this header name - we will override it
             headerMatchersMap.put( headerName, headerMatcher );
         }
-        return headerMatchersMap;
     }
 
-    private void verifyResponseFile( ActionResponseObject expectedHttpResponseNode,
-                                     Node actualHttpResponseNode ) throws XmlUtilitiesException {
+    private void verifyResponseFile( ExpectedResponse expectedResponse,
+                                     ActualHttpResponse actualHttpResponse ) throws XmlUtilitiesException {
 
-        String expectedResponseFile = expectedHttpResponseNode.getResourceFile();
-        Node actualResponseFileNode = getFirstChildNode( actualHttpResponseNode, TOKEN_HTTP_RESOURCE_FILE );
-        if( expectedResponseFile == null && actualResponseFileNode == null ) {
+        String expectedResponseFile = expectedResponse.getResourceFile();
+        boolean hasActualResponseFile = actualHttpResponse.hasResourceFile();
+        String actualResponseFileName = actualHttpResponse.getResourceFile() != null
+                                                                                     ? actualHttpResponse.getResourceFile()
+                                                                                     : "";
+        if( expectedResponseFile == null && !hasActualResponseFile ) {
 
             // no file is expected and no file was received
-        } else if( expectedResponseFile != null && actualResponseFileNode != null ) {
+        } else if( expectedResponseFile != null && hasActualResponseFile ) {
             if( matchFilesBySize || matchFilesByContent /* pre-check before MD5 sum */ ) {
 
-                String expectedFileSize = expectedHttpResponseNode.getResourceFileSize();
-                String actualFileSize = getNodeAttribute( actualResponseFileNode, "size" );
+                String expectedFileSize = expectedResponse.getResourceFileSize();
+                String actualFileSize = String.valueOf( actualHttpResponse.getResourceFileSize() );
 
                 if( ( actualFileSize == null && expectedFileSize != null )
                     || ( actualFileSize != null && expectedFileSize == null )
@@ -600,7 +593,7 @@ public class XmlUtilities {
                                             + AtsSystemProperties.SYSTEM_FILE_SEPARATOR
                                             + Thread.currentThread().getName()
                                             + AtsSystemProperties.SYSTEM_FILE_SEPARATOR
-                                            + actualResponseFileNode.getTextContent();
+                                            + actualResponseFileName;
 
                 String expectedFileMD5Sum;
                 String actualFileMD5Sum;
@@ -637,41 +630,14 @@ public class XmlUtilities {
                                                                                                + expectedResponseFile
                                                                                                + " file"
                                                                                              : "not receive a response file" )
-                                             + ", but " + ( actualResponseFileNode != null
-                                                                                           ? "received the "
-                                                                                             + actualResponseFileNode.getTextContent()
-                                                                                             + " file"
+                                             + ", but " + ( hasActualResponseFile
+                                                                                  ? "received the "
+                                                                                    + actualResponseFileName
+                                                                                    + " file"
                                                                                            : "did not receive a response file" ) );
         }
     }
 
-    /**
-     * Applies the user parameters, but does not modify the original (as they come from the XML file)
-     * matchers
-     *
-     * @param staticXpathBodyMatchers
-     * @return
-     * @throws InvalidMatcherException
-     */
-    private List<XPathBodyMatcher>
-            applyUserParameters( List<XPathBodyMatcher> staticXpathBodyMatchers ) throws InvalidMatcherException {
-
-        List<XPathBodyMatcher> actualXpathBodyMatchers = new ArrayList<XPathBodyMatcher>();
-
-        for( XPathBodyMatcher matcher : staticXpathBodyMatchers ) {
-            String matcherValue = matcher.getMatcherValue();
-            String attributeName = ( String ) ThreadContext.getAttribute( matcherValue );
-            if( attributeName != null ) {
-                matcherValue = ThreadContext.getAttribute( attributeName ).toString();
-            }
-
-            actualXpathBodyMatchers.add( new XPathBodyMatcher( matcher.getXpath(), matcherValue,
-                                                               matcher.getMatchMode() ) );
-        }
-
-        return actualXpathBodyMatchers;
-    }
-
     /**
      * Get values matching passed XPath expression
      * @param node
@@ -681,9 +647,16 @@ public class XmlUtilities {
      */
     private static String[] getByXpath( Node node, String expression ) throws Exception {
 
-        XPathFactory xPathFactory = XPathFactory.newInstance();
-        XPath xPath = xPathFactory.newXPath();
-        XPathExpression xPathExpression = xPath.compile( expression );
+        // XPath expressions are not thread-safe, so each thread compiles its own ones
+        Map<String, XPathExpression> xpathExpressions = compiledXpathExpressions.get();
+        XPathExpression xPathExpression = xpathExpressions.get( expression );
+        if( xPathExpression == null ) {
+            if( xpathExpressions.size() >= MAX_COMPILED_XPATH_EXPRESSIONS ) {
+                xpathExpressions.clear();
+            }
+            xPathExpression = xPathFactory.get().newXPath().compile( expression );
+            xpathExpressions.put( expression, xPathExpression );
+        }
 
         NodeList nlist = ( NodeList ) xPathExpression.evaluate( node, XPathConstants.NODESET );
 
@@ -705,14 +678,14 @@ public class XmlUtilities {
      * @param isError if this should be logged as error or just for tracing/debugging purposes
      */
     private void logActualResponse( String causeMsg, String actionName, int stepNumber,
-                                    ActionParser actualHttpResponse, boolean isError ) {
+                                    ActualHttpResponse actualHttpResponse, boolean isError ) {
 
         try {
 
             StringBuilder logMsg = new StringBuilder();
             logMsg.append( /*"Response verification failed. " + */causeMsg + "\n Dumping response of action "
                            + actionName + "[" + stepNumber + "]:\n"
-                           + xmlNodeToString( actualHttpResponse.getActionNodeWithoutBody() ) );
+                           + actualHttpResponse.toString() );
 
             // append missing body
             if( isContentPrintable( actualHttpResponse.getContentType() ) ) {
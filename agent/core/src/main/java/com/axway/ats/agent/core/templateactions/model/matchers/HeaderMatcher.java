@@ -20,6 +20,7 @@ import java.util.HashSet;
 import java.util.Set;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
 
 import org.apache.log4j.Logger;
 
@@ -47,6 +48,8 @@ public class HeaderMatcher extends ResponseMatcher {
     private int                     offsetValue;
     // used for LIST mode
     private String[]                listValues;
+    // used for REGEX mode
+    private Pattern                 regexPattern;
 
     // globally skipped headers are optional
     private boolean                 optionalHeader;
@@ -131,6 +134,13 @@ public class HeaderMatcher extends ResponseMatcher {
             }
         } else if( matchMode == TemplateHeaderMatchMode.LIST ) {
             listValues = headerValueToMatch.split( "," );
+        } else if( matchMode == TemplateHeaderMatchMode.REGEX ) {
+            try {
+                regexPattern = Pattern.compile( headerValueToMatch );
+            } catch( PatternSyntaxException pse ) {
+                throw new InvalidMatcherException( "'" + headerValueToMatch + "' is not a valid regular expression: "
+                                                   + pse.getMessage() );
+            }
         }
 
         this.headerName = headerName;
@@ -154,6 +164,7 @@ public class HeaderMatcher extends ResponseMatcher {
         this.optionalHeader = other.optionalHeader;
         this.offsetValue = other.offsetValue;
         this.listValues = other.listValues;
+        this.regexPattern = other.regexPattern;
     }
 
     public String getHeaderName() {
@@ -303,7 +314,7 @@ public class HeaderMatcher extends ResponseMatcher {
                         break;
                     case REGEX:
 
-                        actualResult = Pattern.compile( headerValueToMatch ).matcher( actualText ).find();
+                        actualResult = regexPattern.matcher( actualText ).find();
                         break;
                     case RANDOM:
 
@@ -16,6 +16,7 @@
 package com.axway.ats.agent.core.templateactions.model.matchers;
 
 import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
 
 import org.apache.log4j.Logger;
 import org.w3c.dom.Node;
@@ -40,6 +41,8 @@ public class XPathBodyMatcher extends ResponseMatcher {
     private int                       maxValue;
     // used for LIST mode
     private String[]                  listValues;
+    // used for REGEX mode
+    private Pattern                   regexPattern;
 
     public XPathBodyMatcher( String xpath,
                              String valueToMatch,
@@ -76,6 +79,15 @@ public class XPathBodyMatcher extends ResponseMatcher {
         if( matchMode == TemplateBodyNodeMatchMode.LIST ) {
             listValues = valueToMatch.split( "," );
         }
+
+        if( matchMode == TemplateBodyNodeMatchMode.REGEX ) {
+            try {
+                regexPattern = Pattern.compile( valueToMatch );
+            } catch( PatternSyntaxException pse ) {
+                throw new InvalidMatcherException( "'" + valueToMatch + "' is not a valid regular expression: "
+                                                   + pse.getMessage() );
+            }
+        }
     }
 
     @Override
@@ -124,7 +136,7 @@ public class XPathBodyMatcher extends ResponseMatcher {
                         }
                         break;
                     case REGEX:
-                        actualResult = Pattern.compile( valueToMatch ).matcher( actualValue ).find();
+                        actualResult = regexPattern.matcher( actualValue ).find();
                         break;
                     case EXTRACT:
                         actualResult = extractUserParameter( "response body", valueToMatch, actualValue );
@@ -94,6 +94,14 @@ public abstract class AbstractActionObject {
         return httpHeadersWithAppliedUserParameters;
     }
 
+    /**
+     * @return the headers as they are in the template, without applied user parameters
+     */
+    public List<ActionHeader> getTemplateHttpHeaders() {
+
+        return httpHeaders;
+    }
+
     public String getResourceFile() {
 
         return resourceFile;
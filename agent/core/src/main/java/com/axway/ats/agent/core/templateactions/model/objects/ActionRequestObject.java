@@ -74,6 +74,14 @@ public class ActionRequestObject extends AbstractActionObject {
         return XmlUtilities.applyUserParameters( httpUrl );
     }
 
+    /**
+     * @return the request URL as it is in the template, without applied user parameters
+     */
+    public String getTemplateHttpUrl() {
+
+        return httpUrl;
+    }
+
     public String getHttpMethod() {
 
         return httpMethod;
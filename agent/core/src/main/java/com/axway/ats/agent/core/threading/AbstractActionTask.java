@@ -21,6 +21,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Random;
+import java.util.concurrent.TimeUnit;
 
 import com.axway.ats.agent.core.action.ActionInvoker;
 import com.axway.ats.agent.core.action.ActionMethod;
@@ -35,14 +36,17 @@ import com.axway.ats.agent.core.exceptions.NoSuchActionException;
 import com.axway.ats.agent.core.exceptions.NoSuchComponentException;
 import com.axway.ats.agent.core.monitoring.UserActionsMonitoringAgent;
 import com.axway.ats.agent.core.monitoring.queue.QueueExecutionStatistics;
+import com.axway.ats.agent.core.monitoring.queue.QueueExecutionStatistics.ActionExecutionCounter;
 import com.axway.ats.agent.core.templateactions.CompositeResult;
 import com.axway.ats.agent.core.threading.data.ParameterDataProvider;
+import com.axway.ats.agent.core.threading.data.ParameterValuesGenerator;
 import com.axway.ats.agent.core.threading.data.config.UsernameDataConfig;
 import com.axway.ats.agent.core.threading.listeners.ActionTaskListener;
 import com.axway.ats.common.systemproperties.AtsSystemProperties;
 import com.axway.ats.core.threads.ThreadsPerCaller;
 import com.axway.ats.log.AtsDbLogger;
 import com.axway.ats.log.appenders.PassiveDbAppender;
+import com.axway.ats.log.autodb.entities.Checkpoint;
 import com.axway.ats.log.model.CheckpointResult;
 
 /**
@@ -52,6 +56,10 @@ import com.axway.ats.log.model.CheckpointResult;
 public abstract class AbstractActionTask implements Runnable {
 
     public static final String            ATS_ACTION__QUEUE_EXECUTION_TIME    = "Queue execution time";
+    /**
+     * Passed when the intended start of an iteration is not known by the caller
+     */
+    protected static final long           NOT_SCHEDULED                       = Long.MIN_VALUE;
     /**
      * Property to enable fill action time logging in addition to net time
      */
@@ -66,7 +74,15 @@ public abstract class AbstractActionTask implements Runnable {
 
     protected List<ActionRequest>         actionRequests;
     protected List<ActionInvoker>         actionInvokers;
+    // the action invokers' info which is needed on each iteration
+    private ActionExecutionInfo[]         actionInfos;
+    // the execution times of the actions in this thread
+    private ActionTimingRecorder          timingRecorder;
+    // corrects the action latencies of the paced iterations, null if not enabled
+    private LatencyCorrection             latencyCorrection;
     protected List<ParameterDataProvider> dataProviders;
+    // generates the data providers' values, it is shared by all threads of the queue
+    private ParameterValuesGenerator      parameterValuesGenerator;
     protected List<Object>                actionClassInstances;
 
     //listeners
@@ -93,6 +109,12 @@ public abstract class AbstractActionTask implements Runnable {
     //when 'false', the Queue Execution Time will be missing on the Test Explorer UI
     private static boolean                registerActionsInQueueExecutionTime = true;
 
+    //when 'true', the inserted checkpoints carry the response times with microsecond precision
+    private static final boolean          IS_HIGH_PRECISION_TIMING;
+
+    //when 'true', the paced iterations also log the action latencies measured from their intended start times
+    private static final boolean          IS_CORRECTED_LATENCY;
+
     // manager watching for too long iterations
     protected IterationTimeoutManager     itManager;
 
@@ -107,6 +129,10 @@ public abstract class AbstractActionTask implements Runnable {
     static {
         REGISTER_FULL_AND_NET_ACTION_TIME_FOR_TEMPLATE_ACTIONS = AtsSystemProperties.getPropertyAsBoolean( AtsSystemProperties.AGENT__REGISTER_FULL_AND_NET_ACTION_TIME_FOR_TEMPLATE_ACTIONS_KEY,
                                                                                                            false );
+        IS_HIGH_PRECISION_TIMING = AtsSystemProperties.getPropertyAsBoolean( AtsSystemProperties.AGENT__HIGH_PRECISION_ACTION_TIMING,
+                                                                             false );
+        IS_CORRECTED_LATENCY = AtsSystemProperties.getPropertyAsBoolean( AtsSystemProperties.AGENT__CORRECTED_ACTION_LATENCY,
+                                                                         false );
     }
 
     // remember the remote caller which initiates this action
@@ -115,6 +141,7 @@ public abstract class AbstractActionTask implements Runnable {
     /**
      * @param caller the remote caller
      * @param actionInvokers list of action invokers
+     * @param parameterValuesGenerator the generator of the data providers' values
      * @param listeners
      * @throws ActionExecutionException
      * @throws NoCompatibleMethodFoundException
@@ -123,7 +150,8 @@ public abstract class AbstractActionTask implements Runnable {
      */
     public AbstractActionTask( String caller, String queueName, ThreadsManager threadsManager,
                                IterationTimeoutManager itManager, List<ActionRequest> actionRequests,
-                               List<ParameterDataProvider> dataProviders, long intervalBetweenIterations,
+                               ParameterValuesGenerator parameterValuesGenerator,
+                               long intervalBetweenIterations,
                                long minIntervalBetweenIterations, long maxIntervalBetweenIterations,
                                List<ActionTaskListener> listeners ) throws ActionExecutionException,
                                                                     NoSuchComponentException,
@@ -152,7 +180,17 @@ public abstract class AbstractActionTask implements Runnable {
             actionInvokers.add( actionInvoker );
         }
 
-        this.dataProviders = dataProviders;
+        actionInfos = new ActionExecutionInfo[actionInvokers.size()];
+        for( int i = 0; i < actionInfos.length; i++ ) {
+            actionInfos[i] = new ActionExecutionInfo( queueName, actionInvokers.get( i ) );
+        }
+        timingRecorder = new ActionTimingRecorder( actionInvokers.size() );
+        if( IS_CORRECTED_LATENCY ) {
+            latencyCorrection = new LatencyCorrection( actionInvokers.size() );
+        }
+
+        this.parameterValuesGenerator = parameterValuesGenerator;
+        this.dataProviders = parameterValuesGenerator.getDataProviders();
         this.listeners = listeners;
         this.actionClassInstances = new ArrayList<Object>();
 
@@ -228,6 +266,14 @@ public abstract class AbstractActionTask implements Runnable {
         return externallyInterrupted;
     }
 
+    /**
+     * @return the execution times of the actions in this thread
+     */
+    public ActionTimingRecorder getTimingRecorder() {
+
+        return timingRecorder;
+    }
+
     /* (non-Javadoc)
      * @see java.lang.Runnable#run()
      */
@@ -254,6 +300,9 @@ public abstract class AbstractActionTask implements Runnable {
                 onStart();
 
                 ActionTaskResult executionResult = execute();
+                if( executionResult != ActionTaskResult.PAUSED ) {
+                    logActionTimes();
+                }
 
                 switch( executionResult ){
                     case FINISHED:
@@ -284,19 +333,14 @@ public abstract class AbstractActionTask implements Runnable {
      */
     private void renameThread() {
 
-        if( dataProviders.size() > 0 ) {
-
-            synchronized( dataProviders ) {
-                for( ParameterDataProvider dataProvider : dataProviders ) {
-                    if( dataProvider.getDataConfiguratorClass() == UsernameDataConfig.class ) {
-                        Thread.currentThread()
-                              .setName( dataProvider.getValue( new ArrayList<ArgumentValue>() )
-                                                    .getValue()
-                                                    .toString() );
+        for( ParameterDataProvider dataProvider : dataProviders ) {
+            if( dataProvider.getDataConfiguratorClass() == UsernameDataConfig.class ) {
+                Thread.currentThread()
+                      .setName( parameterValuesGenerator.generateValue( dataProvider )
+                                                        .getValue()
+                                                        .toString() );
 
-                        break;
-                    }
-                }
+                break;
             }
         }
     }
@@ -315,6 +359,18 @@ public abstract class AbstractActionTask implements Runnable {
      */
     protected final void invokeActions() throws InterruptedException {
 
+        invokeActions( NOT_SCHEDULED );
+    }
+
+    /**
+     * Invoke one iteration of all actions in the queue
+     * 
+     * @param intendedStartNanos the {@link System#nanoTime()} at which the iteration had to start,
+     * or {@link #NOT_SCHEDULED} to take it from the execution speed of this task
+     * @throws InterruptedException
+     */
+    protected final void invokeActions( long intendedStartNanos ) throws InterruptedException {
+
         UserActionsMonitoringAgent userActionsMonitoringAgent = UserActionsMonitoringAgent.getInstance( caller );
 
         if( log.isDebugEnabled() ) {
@@ -326,8 +382,22 @@ public abstract class AbstractActionTask implements Runnable {
 
         long queueDuration = 0;
         long actionStartTimestamp = 0;
+        long actionStartNanos = 0;
         long actionEndTimestamp = 0;
 
+        // the intended start of the iteration is taken once from the pacing schedule
+        boolean isCorrectingLatency = false;
+        if( latencyCorrection != null ) {
+            long startNanos = System.nanoTime();
+            if( intendedStartNanos == NOT_SCHEDULED ) {
+                intendedStartNanos = getScheduledIterationStartNanos( startNanos );
+            }
+            if( intendedStartNanos != NOT_SCHEDULED ) {
+                latencyCorrection.startIteration( intendedStartNanos, startNanos );
+                isCorrectingLatency = true;
+            }
+        }
+
         if( this.itManager != null ) { // inform a new iteration is starting now
             this.itManager.setIterationStartTime( this, System.currentTimeMillis() );
         }
@@ -337,33 +407,16 @@ public abstract class AbstractActionTask implements Runnable {
 
                 ActionInvoker actionInvoker = actionInvokers.get( i );
                 Object actionClassInstance = actionClassInstances.get( i );
-                ActionMethod actionMethod = actionInvoker.getActionMethod();
-
-                final String actionName = actionInvoker.getActionName();
-                final String transferUnit = actionMethod.getTransferUnit();
-
-                // read some settings
-                final boolean registerActionExecution = actionMethod.isRegisterActionExecution();
-                final boolean registerActionExecutionInQueueExecutionTime = actionMethod.isRegisterActionExecutionInQueueExecutionTime();
-                final boolean isTemplateActionMethod = actionMethod instanceof TemplateActionMethod;
-                final boolean logCheckpoints = !isTemplateActionMethod
-                                               || REGISTER_FULL_AND_NET_ACTION_TIME_FOR_TEMPLATE_ACTIONS;
-
-                // checkpoint name. For template actions by default only network time is tracked.
-                // Here "-full" adds total action processing including XML (de)serializations, parameterization
-                String checkpointName;
-                if( !isTemplateActionMethod ) {
-                    checkpointName = actionName;
-                } else {
-                    checkpointName = actionName + "-full";
-                }
+                ActionExecutionInfo actionInfo = actionInfos[i];
 
                 // start a checkpoint
-                userActionsMonitoringAgent.actionStarted( actionName );
-                if( registerActionExecution ) {
+                userActionsMonitoringAgent.actionStarted( actionInfo.actionName );
+                if( actionInfo.registerActionExecution ) {
                     actionStartTimestamp = System.currentTimeMillis();
-                    if( logCheckpoints && !isLoggingInBatchMode ) {
-                        log.startCheckpoint( checkpointName, transferUnit, actionStartTimestamp );
+                    actionStartNanos = System.nanoTime();
+                    if( actionInfo.logCheckpoints && !isLoggingInBatchMode ) {
+                        log.startCheckpoint( actionInfo.checkpointName, actionInfo.transferUnit,
+                                             actionStartTimestamp );
                     }
                 }
 
@@ -373,48 +426,64 @@ public abstract class AbstractActionTask implements Runnable {
                     actionReturnedResult = actionInvoker.invoke( actionClassInstance );
                 } catch( Exception e ) {
                     // the action failed - end the checkpoint
-                    if( registerActionExecution ) {
-                        if( logCheckpoints ) {
+                    if( actionInfo.registerActionExecution ) {
+                        if( actionInfo.logCheckpoints ) {
                             if( isLoggingInBatchMode ) {
-                                log.insertCheckpoint( checkpointName, actionStartTimestamp, 0, 0,
-                                                      transferUnit, CheckpointResult.FAILED );
+                                log.insertCheckpoint( actionInfo.checkpointName, actionStartTimestamp, 0, 0,
+                                                      actionInfo.transferUnit, CheckpointResult.FAILED );
                             } else {
-                                log.endCheckpoint( checkpointName, 0, CheckpointResult.FAILED );
+                                log.endCheckpoint( actionInfo.checkpointName, 0, CheckpointResult.FAILED );
                             }
 
                         }
-                        QueueExecutionStatistics.getInstance().registerActionExecutionResult( queueName,
-                                                                                              actionName,
-                                                                                              false );
+                        actionInfo.executionCounter.registerExecutionResult( false );
                     }
                     // re-throw the exception
                     throw e;
                 } finally {
-                    userActionsMonitoringAgent.actionEnded( actionName );
+                    userActionsMonitoringAgent.actionEnded( actionInfo.actionName );
                 }
 
                 // the action passed
-                if( registerActionExecution ) {
+                if( actionInfo.registerActionExecution ) {
+                    // the monotonic clock is used for the duration, the wall clock is used for the end time only
+                    long responseTimeNanos = System.nanoTime() - actionStartNanos;
                     actionEndTimestamp = System.currentTimeMillis();
-                    long responseTimeMs = actionEndTimestamp - actionStartTimestamp;
+                    long responseTimeMs = responseTimeNanos / 1000000;
+                    timingRecorder.record( i, responseTimeNanos );
 
                     long transferSize = 0;
-                    if( transferUnit.length() > 0 ) {
+                    if( actionInfo.hasTransferUnit ) {
                         transferSize = ( Long ) actionReturnedResult;
                     }
 
-                    if( logCheckpoints ) {
+                    if( actionInfo.logCheckpoints ) {
                         if( isLoggingInBatchMode ) {
-                            log.insertCheckpoint( checkpointName, actionStartTimestamp, responseTimeMs,
-                                                  transferSize, transferUnit, CheckpointResult.PASSED );
+                            if( IS_HIGH_PRECISION_TIMING ) {
+                                log.insertHighPrecisionCheckpoint( actionInfo.checkpointName,
+                                                                   actionStartTimestamp, responseTimeNanos,
+                                                                   transferSize, actionInfo.transferUnit,
+                                                                   CheckpointResult.PASSED );
+                            } else {
+                                log.insertCheckpoint( actionInfo.checkpointName, actionStartTimestamp,
+                                                      responseTimeMs, transferSize, actionInfo.transferUnit,
+                                                      CheckpointResult.PASSED );
+                            }
                         } else {
-                            log.endCheckpoint( checkpointName, transferSize, CheckpointResult.PASSED,
+                            log.endCheckpoint( actionInfo.checkpointName, transferSize, CheckpointResult.PASSED,
                                                actionEndTimestamp );
                         }
+
+                        if( isCorrectingLatency ) {
+                            long latencyNanos = latencyCorrection.correct( i, actionStartTimestamp,
+                                                                           responseTimeNanos );
+                            logCorrectedLatency( actionInfo, latencyCorrection.getIntendedStartTimestamp( i ),
+                                                 latencyNanos, transferSize );
+                        }
                     }
 
-                    if( registerActionExecutionInQueueExecutionTime ) {
-                        if( isTemplateActionMethod ) { // add net time in queue instead of full processing time
+                    if( actionInfo.registerActionExecutionInQueueExecutionTime ) {
+                        if( actionInfo.isTemplateActionMethod ) { // add net time in queue instead of full processing time
                             if( actionReturnedResult instanceof CompositeResult ) {
                                 CompositeResult res = ( CompositeResult ) actionReturnedResult;
                                 responseTimeMs = res.getReqRespNetworkTime();
@@ -423,8 +492,7 @@ public abstract class AbstractActionTask implements Runnable {
                         queueDuration += responseTimeMs;
                     }
 
-                    QueueExecutionStatistics.getInstance().registerActionExecutionResult( queueName,
-                                                                                          actionName, true );
+                    actionInfo.executionCounter.registerExecutionResult( true );
                 }
             } // end cycling all actions in this iteration
 
@@ -463,6 +531,114 @@ public abstract class AbstractActionTask implements Runnable {
         }
     }
 
+    /**
+     * On high precision timing, tell the user the execution times of the actions in this thread
+     * with microsecond precision, as the checkpoint tables keep them in milliseconds only
+     */
+    private void logActionTimes() {
+
+        if( !IS_HIGH_PRECISION_TIMING ) {
+            return;
+        }
+
+        StringBuilder times = new StringBuilder();
+        for( int i = 0; i < actionInfos.length; i++ ) {
+            if( timingRecorder.getNumberExecutions( i ) == 0 ) {
+                continue;
+            }
+            if( times.length() > 0 ) {
+                times.append( "; " );
+            }
+            times.append( String.format( "'%s' passed %d times: min %.3f ms, mean %.3f ms, max %.3f ms",
+                                         actionInfos[i].actionName,
+                                         timingRecorder.getNumberExecutions( i ),
+                                         timingRecorder.getMinNanos( i ) / 1000000D,
+                                         timingRecorder.getAverageNanos( i ) / 1000000D,
+                                         timingRecorder.getMaxNanos( i ) / 1000000D ) );
+        }
+        if( times.length() > 0 ) {
+            log.info( "Action execution times in '" + queueName + "' queue: " + times );
+        }
+    }
+
+    /**
+     * Log the corrected action latencies of the iterations which are skipped by the execution speed
+     * schedule, as they could not be started in time
+     *
+     * @param numberSkippedIterations the number of skipped iterations
+     */
+    private void logSkippedIterationLatencies( int numberSkippedIterations ) {
+
+        long expectedIntervalNanos = getExpectedIterationIntervalNanos();
+        for( int i = 0; i < actionInfos.length; i++ ) {
+            ActionExecutionInfo actionInfo = actionInfos[i];
+            if( !actionInfo.registerActionExecution || !actionInfo.logCheckpoints ) {
+                continue;
+            }
+
+            long[] skippedIterationLatencies = latencyCorrection.getSkippedIterationLatencies( i,
+                                                                                                expectedIntervalNanos,
+                                                                                                numberSkippedIterations );
+            for( int j = 0; j < skippedIterationLatencies.length; j++ ) {
+                long intendedStartTimestamp = latencyCorrection.getIntendedStartTimestamp( i )
+                                              + TimeUnit.NANOSECONDS.toMillis( ( j + 1 )
+                                                                               * expectedIntervalNanos );
+                logCorrectedLatency( actionInfo, intendedStartTimestamp, skippedIterationLatencies[j], 0 );
+            }
+
+            if( skippedIterationLatencies.length == LatencyCorrection.MAX_OMITTED_ITERATIONS ) {
+                log.warn( "Only the latencies of the first " + LatencyCorrection.MAX_OMITTED_ITERATIONS
+                          + " skipped iterations are logged for action '" + actionInfo.actionName + "'" );
+            }
+        }
+    }
+
+    private void logCorrectedLatency( ActionExecutionInfo actionInfo, long startTimestamp, long latencyNanos,
+                                      long transferSize ) {
+
+        if( IS_HIGH_PRECISION_TIMING ) {
+            log.insertHighPrecisionCheckpoint( actionInfo.correctedCheckpointName, startTimestamp, latencyNanos,
+                                               transferSize, actionInfo.transferUnit, CheckpointResult.PASSED );
+        } else {
+            log.insertCheckpoint( actionInfo.correctedCheckpointName, startTimestamp, latencyNanos / 1000000,
+                                  transferSize, actionInfo.transferUnit, CheckpointResult.PASSED );
+        }
+    }
+
+    /**
+     * @return the expected time between the starts of two iterations of this thread in nanoseconds,
+     * 0 if the execution speed is not limited
+     */
+    private long getExpectedIterationIntervalNanos() {
+
+        if( totalExecutionsPerTimeFrame > 0 ) {
+            return TimeUnit.MILLISECONDS.toNanos( timeFrameLength ) / totalExecutionsPerTimeFrame;
+        } else {
+            return 0;
+        }
+    }
+
+    /**
+     * The iterations of a time frame are intended to start evenly in it.
+     * The intervals between the iterations are not a schedule, as they are counted from the end
+     * of the previous iteration, so such iterations are never late.
+     *
+     * @param startNanos the {@link System#nanoTime()} at which the iteration started
+     * @return the {@link System#nanoTime()} at which the iteration had to start,
+     * or {@link #NOT_SCHEDULED} if the execution speed is not limited
+     */
+    private long getScheduledIterationStartNanos( long startNanos ) {
+
+        if( totalExecutionsPerTimeFrame <= 0 || timeFrameStartTimestamp <= 0 ) {
+            return NOT_SCHEDULED;
+        }
+
+        long timeInThisTimeFrameNanos = TimeUnit.MILLISECONDS.toNanos( System.currentTimeMillis()
+                                                                       - timeFrameStartTimestamp );
+        return startNanos - timeInThisTimeFrameNanos
+               + currentIterationsInThisTimeFrame * getExpectedIterationIntervalNanos();
+    }
+
     /**
      * Sleep only if this will not go beyond the endTimestamp
      *
@@ -561,6 +737,10 @@ public abstract class AbstractActionTask implements Runnable {
                 log.warn( "We were not able to execute the requested " + totalExecutionsPerTimeFrame
                           + " iterations for " + timeFrameLength / 1000 + " seconds, but only "
                           + currentIterationsInThisTimeFrame + " iterations" );
+                if( latencyCorrection != null ) {
+                    logSkippedIterationLatencies( totalExecutionsPerTimeFrame
+                                                  - currentIterationsInThisTimeFrame );
+                }
             }
 
             // reseting the time frame start time and the number of iterations in the time frame
@@ -581,15 +761,9 @@ public abstract class AbstractActionTask implements Runnable {
 
             // We will store here only the arguments which are to be replaced by a data provider.
             // We store all values from all data providers.
-            List<ArgumentValue> argumentValues = new ArrayList<ArgumentValue>();
-
             // Generate the new input arguments - all arguments should be
             // generated at the same time, so other threads do not interfere.
-            synchronized( dataProviders ) {
-                for( ParameterDataProvider dataProvider : dataProviders ) {
-                    argumentValues.add( dataProvider.getValue( argumentValues ) );
-                }
-            }
+            List<ArgumentValue> argumentValues = parameterValuesGenerator.generateValues();
 
             // set the arguments as provided
             for( ActionInvoker actionInvoker : actionInvokers ) {
@@ -626,6 +800,51 @@ public abstract class AbstractActionTask implements Runnable {
         }
     }
 
+    /**
+     * The info about an action invoker which does not change between the iterations
+     */
+    private static final class ActionExecutionInfo {
+
+        final String                 actionName;
+        final String                 transferUnit;
+        final boolean                hasTransferUnit;
+        final boolean                registerActionExecution;
+        final boolean                registerActionExecutionInQueueExecutionTime;
+        final boolean                isTemplateActionMethod;
+        final boolean                logCheckpoints;
+        final String                 checkpointName;
+        final String                 correctedCheckpointName;
+
+        // where to register the action execution results
+        final ActionExecutionCounter executionCounter;
+
+        ActionExecutionInfo( String queueName, ActionInvoker actionInvoker ) {
+
+            ActionMethod actionMethod = actionInvoker.getActionMethod();
+
+            this.actionName = actionInvoker.getActionName();
+            this.transferUnit = actionMethod.getTransferUnit();
+            this.hasTransferUnit = transferUnit.length() > 0;
+
+            this.registerActionExecution = actionMethod.isRegisterActionExecution();
+            this.registerActionExecutionInQueueExecutionTime = actionMethod.isRegisterActionExecutionInQueueExecutionTime();
+            this.isTemplateActionMethod = actionMethod instanceof TemplateActionMethod;
+            this.logCheckpoints = !isTemplateActionMethod || REGISTER_FULL_AND_NET_ACTION_TIME_FOR_TEMPLATE_ACTIONS;
+
+            // checkpoint name. For template actions by default only network time is tracked.
+            // Here "-full" adds total action processing including XML (de)serializations, parameterization
+            if( !isTemplateActionMethod ) {
+                this.checkpointName = actionName;
+            } else {
+                this.checkpointName = actionName + "-full";
+            }
+            this.correctedCheckpointName = checkpointName + Checkpoint.CORRECTED_LATENCY_SUFFIX;
+
+            this.executionCounter = QueueExecutionStatistics.getInstance().registerAction( queueName,
+                                                                                         actionName );
+        }
+    }
+
     /**
      * Calculate how many times a parameter is:
      *      - present in all data providers
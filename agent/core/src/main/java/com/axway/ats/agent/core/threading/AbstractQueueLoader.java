@@ -16,6 +16,10 @@
 package com.axway.ats.agent.core.threading;
 
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import com.axway.ats.agent.core.action.ActionRequest;
 import com.axway.ats.agent.core.exceptions.ActionExecutionException;
@@ -23,6 +27,7 @@ import com.axway.ats.agent.core.exceptions.NoCompatibleMethodFoundException;
 import com.axway.ats.agent.core.exceptions.NoSuchActionException;
 import com.axway.ats.agent.core.exceptions.NoSuchComponentException;
 import com.axway.ats.agent.core.threading.data.ParameterDataProvider;
+import com.axway.ats.agent.core.threading.data.ParameterValuesGenerator;
 import com.axway.ats.agent.core.threading.exceptions.ActionTaskLoaderException;
 import com.axway.ats.agent.core.threading.exceptions.ThreadingPatternNotSupportedException;
 import com.axway.ats.agent.core.threading.listeners.QueueLoaderListener;
@@ -43,6 +48,7 @@ public abstract class AbstractQueueLoader implements QueueLoader {
     protected boolean                        blockUntilCompletion;
     protected ActionTaskLoaderState          state;
     protected List<ParameterDataProvider>    parameterDataProviders;
+    protected ParameterValuesGenerator       parameterValuesGenerator;
     protected List<QueueLoaderListener> listeners;
 
     AbstractQueueLoader( String queueName, List<ActionRequest> actionRequests, StartPattern startPattern,
@@ -61,6 +67,7 @@ public abstract class AbstractQueueLoader implements QueueLoader {
         this.actionRequests = actionRequests;
         this.state = ActionTaskLoaderState.NOT_STARTED;
         this.parameterDataProviders = parameterDataProviders;
+        this.parameterValuesGenerator = new ParameterValuesGenerator( parameterDataProviders );
         this.listeners = listeners;
     }
 
@@ -82,12 +89,47 @@ public abstract class AbstractQueueLoader implements QueueLoader {
     @Override
     public abstract void waitUntilFinished();
 
+    /**
+     * Create the executor which runs the tasks, one thread per task
+     */
+    protected ExecutorService createExecutor() {
+
+        if( startPattern.isUseVirtualThreads() ) {
+            if( VirtualThreads.isSupported() ) {
+                log.info( "Load queue '" + queueName + "' will run its threads as virtual threads" );
+                return VirtualThreads.newVirtualThreadPerTaskExecutor();
+            } else {
+                log.warn( "Virtual threads are not supported by Java " + System.getProperty( "java.version" )
+                          + ", so load queue '" + queueName + "' will run on operating system threads" );
+            }
+        }
+
+        //create the executor - terminate threads when finished
+        ThreadPoolExecutor executor = ( ThreadPoolExecutor ) Executors.newCachedThreadPool();
+        executor.setKeepAliveTime( 0, TimeUnit.SECONDS );
+        return executor;
+    }
+
     @Override
     public synchronized final ActionTaskLoaderState getState() {
 
         return state;
     }
 
+    /**
+     * Call "on start" for all listeners
+     */
+    protected final synchronized void callOnStart() {
+
+        //set the state
+        state = ActionTaskLoaderState.RUNNING;
+
+        //notify all listeners
+        for( QueueLoaderListener listener : listeners ) {
+            listener.onStart( queueName );
+        }
+    }
+
     /**
      * Call "on pause" for all listeners
      */
@@ -96,6 +138,11 @@ public abstract class AbstractQueueLoader implements QueueLoader {
         //set the state
         state = ActionTaskLoaderState.PAUSED;
 
+        //notify all listeners
+        for( QueueLoaderListener listener : listeners ) {
+            listener.onPause( queueName );
+        }
+
         //notify the main thread that we are paused
         this.notifyAll();
     }
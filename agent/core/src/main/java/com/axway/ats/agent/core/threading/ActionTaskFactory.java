@@ -22,7 +22,7 @@ import com.axway.ats.agent.core.exceptions.ActionExecutionException;
 import com.axway.ats.agent.core.exceptions.NoCompatibleMethodFoundException;
 import com.axway.ats.agent.core.exceptions.NoSuchActionException;
 import com.axway.ats.agent.core.exceptions.NoSuchComponentException;
-import com.axway.ats.agent.core.threading.data.ParameterDataProvider;
+import com.axway.ats.agent.core.threading.data.ParameterValuesGenerator;
 import com.axway.ats.agent.core.threading.exceptions.ThreadingPatternNotSupportedException;
 import com.axway.ats.agent.core.threading.listeners.ActionTaskListener;
 import com.axway.ats.agent.core.threading.patterns.model.ExecutionPattern;
@@ -43,7 +43,7 @@ public class ActionTaskFactory {
      * @param threadingPattern the threading pattern
      * @param threadsManager the thread iterations manager for the task
      * @param actionRequests the action requests
-     * @param parameterDataProviders the data providers for the parameters
+     * @param parameterValuesGenerator the generator of the parameters' values
      * @param listeners the task event listeners
      * @return the created action task
      * @throws NoCompatibleMethodFoundException 
@@ -60,7 +60,7 @@ public class ActionTaskFactory {
                                              ThreadsManager threadsManager,
                                              IterationTimeoutManager itManager,
                                              List<ActionRequest> actionRequests,
-                                             List<ParameterDataProvider> parameterDataProviders,
+                                             ParameterValuesGenerator parameterValuesGenerator,
                                              List<ActionTaskListener> listeners,
                                              boolean isUseSynchronizedIterations )
                                                                                   throws ActionExecutionException,
@@ -89,7 +89,7 @@ public class ActionTaskFactory {
                                                       executionsPerTimeFrame,
                                                       timeFrame,
                                                       actionRequests,
-                                                      parameterDataProviders,
+                                                      parameterValuesGenerator,
                                                       listeners,
                                                       isUseSynchronizedIterations );
 
@@ -113,7 +113,7 @@ public class ActionTaskFactory {
                                                 executionsPerTimeFrame,
                                                 timeFrame,
                                                 actionRequests,
-                                                parameterDataProviders,
+                                                parameterValuesGenerator,
                                                 listeners,
                                                 isUseSynchronizedIterations );
         } else {
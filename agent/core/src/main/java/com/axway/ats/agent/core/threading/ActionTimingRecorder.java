@@ -0,0 +1,90 @@
+/*
+ * Copyright 2017 Axway Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.axway.ats.agent.core.threading;
+
+import java.util.Arrays;
+
+/**
+ * Keeps the execution times of the actions of one action task, in nanoseconds.
+ * It works with primitive arrays indexed by the action position in the queue,
+ * so recording does not create any garbage.
+ *
+ * The class is not thread-safe, each action task has its own instance.
+ */
+public class ActionTimingRecorder {
+
+    private final long[] numberExecutions;
+    private final long[] sumNanos;
+    private final long[] minNanos;
+    private final long[] maxNanos;
+
+    public ActionTimingRecorder( int numberActions ) {
+
+        this.numberExecutions = new long[numberActions];
+        this.sumNanos = new long[numberActions];
+        this.minNanos = new long[numberActions];
+        this.maxNanos = new long[numberActions];
+        Arrays.fill( minNanos, Long.MAX_VALUE );
+    }
+
+    /**
+     * @param actionIndex the action position in the queue
+     * @param durationNanos the action execution time in nanoseconds
+     */
+    public void record( int actionIndex, long durationNanos ) {
+
+        numberExecutions[actionIndex]++;
+        sumNanos[actionIndex] += durationNanos;
+        if( durationNanos < minNanos[actionIndex] ) {
+            minNanos[actionIndex] = durationNanos;
+        }
+        if( durationNanos > maxNanos[actionIndex] ) {
+            maxNanos[actionIndex] = durationNanos;
+        }
+    }
+
+    public long getNumberExecutions( int actionIndex ) {
+
+        return numberExecutions[actionIndex];
+    }
+
+    public long getSumNanos( int actionIndex ) {
+
+        return sumNanos[actionIndex];
+    }
+
+    /**
+     * @return the minimum execution time, 0 if the action is not executed yet
+     */
+    public long getMinNanos( int actionIndex ) {
+
+        return numberExecutions[actionIndex] == 0
+                                                  ? 0
+                                                  : minNanos[actionIndex];
+    }
+
+    public long getMaxNanos( int actionIndex ) {
+
+        return maxNanos[actionIndex];
+    }
+
+    public long getAverageNanos( int actionIndex ) {
+
+        return numberExecutions[actionIndex] == 0
+                                                  ? 0
+                                                  : sumNanos[actionIndex] / numberExecutions[actionIndex];
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright 2017 Axway Software
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.axway.ats.agent.core.threading;
+
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import com.axway.ats.agent.core.action.ActionRequest;
+import com.axway.ats.agent.core.exceptions.ActionExecutionException;
+import com.axway.ats.agent.core.exceptions.NoCompatibleMethodFoundException;
+import com.axway.ats.agent.core.exceptions.NoSuchActionException;
+import com.axway.ats.agent.core.exceptions.NoSuchComponentException;
+import com.axway.ats.agent.core.threading.data.ParameterValuesGenerator;
+import com.axway.ats.agent.core.threading.listeners.ActionTaskListener;
+import com.axway.ats.log.autodb.LatencyHistogram;
+import com.axway.ats.log.model.CheckpointResult;
+
+/**
+ * Action task used by the arrival rate patterns. It does not decide when to run an iteration,
+ * it runs one each time the {@link ArrivalRateQueueLoader} passes it the moment this iteration
+ * had to start.
+ * 
+ * Besides the action checkpoints, each iteration logs how long it waited after the moment it had
+ * to start and how long it took.
+ */
+public class ArrivalRateActionTask extends AbstractActionTask {
+
+    public static final String                 ATS_ACTION__QUEUEING_DELAY = "[Queueing delay]";
+    public static final String                 ATS_ACTION__SERVICE_TIME   = "[Service time]";
+
+    // passed instead of an iteration start time when there will be no more iterations
+    static final long                          NO_MORE_ARRIVALS           = Long.MIN_VALUE;
+
+    // there is at most one iteration waiting, as iterations are passed to idle tasks only
+    private final BlockingQueue<Long>          arrivals                   = new ArrayBlockingQueue<Long>( 1 );
+
+    // the task puts itself here after each iteration
+    private final Deque<ArrivalRateActionTask> idleTasks;
+
+    // the times in microseconds, they are accessed by the task thread only while it is running
+    private final LatencyHistogram             queueingDelays             = new LatencyHistogram();
+    private final LatencyHistogram             serviceTimes               = new LatencyHistogram();
+
+    /**
+     * @param caller the remote caller
+     * @param queueName the queue name
+     * @param threadsManager the thread iterations manager
+     * @param itManager the iteration timeout manager, null if there is no iteration timeout
+     * @param actionRequests the action requests
+     * @param parameterValuesGenerator the generator of the data providers' values
+     * @param listeners the action task listeners
+     * @param idleTasks where the task puts itself when ready for the next iteration
+     * 
+     * @throws ActionExecutionException if an action cannot be accessed
+     * @throws NoCompatibleMethodFoundException
+     * @throws NoSuchActionException
+     * @throws NoSuchComponentException
+     */
+    public ArrivalRateActionTask( String caller, String queueName, ThreadsManager threadsManager,
+                                  IterationTimeoutManager itManager, List<ActionRequest> actionRequests,
+                                  ParameterValuesGenerator parameterValuesGenerator,
+                                  List<ActionTaskListener> listeners,
+                                  Deque<ArrivalRateActionTask> idleTasks ) throws ActionExecutionException,
+                                                                           NoSuchComponentException,
+                                                                           NoSuchActionException,
+                                                                           NoCompatibleMethodFoundException {
+
+        super( caller, queueName, threadsManager, itManager, actionRequests, parameterValuesGenerator, 0, -1,
+               -1, listeners );
+
+        this.idleTasks = idleTasks;
+    }
+
+    /**
+     * Pass an iteration to this task. It must be called for idle tasks only.
+     * 
+     * @param intendedStartNanos the {@link System#nanoTime()} at which the iteration had to start,
+     * or {@link #NO_MORE_ARRIVALS} to make the task exit
+     * @throws InterruptedException
+     */
+    void startIteration( long intendedStartNanos ) throws InterruptedException {
+
+        arrivals.put( intendedStartNanos );
+    }
+
+    /**
+     * @return the queueing delays in microseconds
+     */
+    LatencyHistogram getQueueingDelays() {
+
+        return queueingDelays;
+    }
+
+    /**
+     * @return the service times in microseconds
+     */
+    LatencyHistogram getServiceTimes() {
+
+        return serviceTimes;
+    }
+
+    @Override
+    public ActionTaskResult execute() {
+
+        ActionTaskResult executionResult = ActionTaskResult.FINISHED;
+
+        try {
+            while( true ) {
+
+                long intendedStartNanos = arrivals.take();
+                if( intendedStartNanos == NO_MORE_ARRIVALS ) {
+                    break;
+                }
+
+                long startTimestamp = System.currentTimeMillis();
+                long startNanos = System.nanoTime();
+                long queueingDelayNanos = startNanos - intendedStartNanos;
+
+                //invoke all the actions of 1 queue iteration
+                invokeActions( intendedStartNanos );
+
+                long serviceTimeNanos = System.nanoTime() - startNanos;
+
+                queueingDelays.recordValue( queueingDelayNanos / 1000 );
+                serviceTimes.recordValue( serviceTimeNanos / 1000 );
+                log.insertHighPrecisionCheckpoint( ATS_ACTION__QUEUEING_DELAY,
+                                                   startTimestamp - queueingDelayNanos / 1000000,
+                                                   queueingDelayNanos, 0, "", CheckpointResult.PASSED );
+                log.insertHighPrecisionCheckpoint( ATS_ACTION__SERVICE_TIME, startTimestamp, serviceTimeNanos, 0,
+                                                   "", CheckpointResult.PASSED );
+
+                // ready for the next iteration
+                idleTasks.offerFirst( this );
+            }
+        } catch( InterruptedException ie ) {
+            log.warn( "Actions queue '" + queueName + "' has been cancelled - exiting" );
+            executionResult = ActionTaskResult.CANCELED;
+        } finally {
+            if( itManager != null ) {
+                // this queue is going down
+                itManager.shutdown();
+            }
+        }
+
+        return executionResult;
+    }
+}
@@ -0,0 +1,399 @@
+/*
+ * Copyright 2017 Axway Software
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.axway.ats.agent.core.threading;
+
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import com.axway.ats.agent.core.action.ActionRequest;
+import com.axway.ats.agent.core.exceptions.ActionExecutionException;
+import com.axway.ats.agent.core.exceptions.NoCompatibleMethodFoundException;
+import com.axway.ats.agent.core.exceptions.NoSuchActionException;
+import com.axway.ats.agent.core.exceptions.NoSuchComponentException;
+import com.axway.ats.agent.core.monitoring.queue.QueueExecutionStatistics;
+import com.axway.ats.agent.core.monitoring.queue.QueueExecutionStatistics.ActionExecutionCounter;
+import com.axway.ats.agent.core.threading.data.ParameterDataProvider;
+import com.axway.ats.agent.core.threading.exceptions.ActionTaskLoaderException;
+import com.axway.ats.agent.core.threading.exceptions.ThreadingPatternNotSupportedException;
+import com.axway.ats.agent.core.threading.listeners.ActionTaskListener;
+import com.axway.ats.agent.core.threading.listeners.QueueLoaderListener;
+import com.axway.ats.agent.core.threading.patterns.model.ArrivalRateExecutionPattern;
+import com.axway.ats.agent.core.threading.patterns.model.StartPattern;
+import com.axway.ats.core.threads.ThreadsPerCaller;
+import com.axway.ats.log.autodb.LatencyHistogram;
+import com.axway.ats.log.model.CheckpointResult;
+
+/**
+ * Loader for the arrival rate patterns.
+ * 
+ * A dispatcher thread sleeps until the moment the next iteration has to start and passes
+ * this iteration to an idle task. When all running tasks are busy, one more task thread is started,
+ * until the max thread count is reached. After that an iteration which finds no idle task is not
+ * started at all, it is registered as a failed "[Missed arrivals]" checkpoint and action result.
+ */
+public class ArrivalRateQueueLoader extends AbstractQueueLoader {
+
+    public static final String                 ATS_ACTION__MISSED_ARRIVALS = "[Missed arrivals]";
+
+    private double[]                           arrivalRates;
+    private int[]                              stepDurations;
+
+    // the remote caller, the dispatcher thread works on its behalf
+    private String                             caller;
+
+    private ThreadsManager                     threadsManager;
+    private IterationTimeoutManager            itManager;
+    private ExecutorService                    executor;
+
+    // all tasks, the first 'numberStartedTasks' of them are running
+    private List<ArrivalRateActionTask>        tasks;
+    private int                                numberStartedTasks;
+    // the running tasks waiting for an iteration, the last used one is first
+    private Deque<ArrivalRateActionTask>       idleTasks;
+
+    private Thread                             dispatcherThread;
+
+    private volatile long                      numberArrivals;
+    private volatile long                      numberMissedArrivals;
+    private ActionExecutionCounter             missedArrivalsCounter;
+
+    // the times of all iterations in microseconds, available when the queue is finished
+    private LatencyHistogram                   queueingDelays;
+    private LatencyHistogram                   serviceTimes;
+
+    //the default task listeners
+    private List<ActionTaskListener>           defaultTaskListeners;
+
+    /**
+     * @param queueName
+     * @param actionRequests
+     * @param startPattern
+     * @param arrivalRatePattern
+     * @param parameterDataProviders
+     * @param listeners
+     * @throws NoSuchComponentException
+     * @throws NoSuchActionException
+     * @throws NoCompatibleMethodFoundException
+     */
+    ArrivalRateQueueLoader( String queueName, List<ActionRequest> actionRequests, StartPattern startPattern,
+                            ArrivalRateExecutionPattern arrivalRatePattern,
+                            List<ParameterDataProvider> parameterDataProviders,
+                            List<QueueLoaderListener> listeners ) throws NoSuchComponentException,
+                                                                  NoSuchActionException,
+                                                                  NoCompatibleMethodFoundException {
+
+        super( queueName, actionRequests, startPattern, arrivalRatePattern, null, parameterDataProviders,
+               listeners );
+
+        this.arrivalRates = arrivalRatePattern.getArrivalRates();
+        this.stepDurations = arrivalRatePattern.getStepDurations();
+
+        //init the default listeners
+        this.defaultTaskListeners = new ArrayList<ActionTaskListener>();
+        this.defaultTaskListeners.add( new SimpleActionTaskListener() );
+    }
+
+    @Override
+    public synchronized void
+            scheduleThreads( String caller,
+                             boolean isUseSynchronizedIterations ) throws ActionExecutionException,
+                                                                   ActionTaskLoaderException,
+                                                                   NoSuchComponentException,
+                                                                   NoSuchActionException,
+                                                                   NoCompatibleMethodFoundException,
+                                                                   ThreadingPatternNotSupportedException {
+
+        //check the state first
+        if( state != ActionTaskLoaderState.NOT_STARTED ) {
+            throw new ActionTaskLoaderException( "Cannot schedule load queue " + queueName
+                                                 + " - it has already been scheduled" );
+        }
+        if( arrivalRates.length == 0 ) {
+            throw new ActionTaskLoaderException( "Cannot schedule load queue " + queueName
+                                                 + " - its threading pattern has no arrival rate steps" );
+        }
+        if( isUseSynchronizedIterations ) {
+            log.warn( "Load queue '" + queueName
+                      + "' starts its iterations at a given rate, so they will not be synchronized" );
+        }
+
+        this.caller = caller;
+        this.executor = createExecutor();
+
+        // all tasks are released at once, but they wait for iterations from the dispatcher
+        threadsManager = new ThreadsManager();
+
+        // create the thread for managing max iteration length
+        int iterationTimeout = startPattern.getIterationTimeout();
+        if( iterationTimeout > 0 ) {
+            itManager = new IterationTimeoutManager( iterationTimeout );
+        }
+
+        idleTasks = new ConcurrentLinkedDeque<ArrivalRateActionTask>();
+        tasks = new ArrayList<ArrivalRateActionTask>();
+        for( int i = 0; i < startPattern.getThreadCount(); i++ ) {
+            tasks.add( new ArrivalRateActionTask( caller, queueName, threadsManager, itManager, actionRequests,
+                                                  parameterValuesGenerator, defaultTaskListeners,
+                                                  idleTasks ) );
+        }
+
+        missedArrivalsCounter = QueueExecutionStatistics.getInstance()
+                                                        .registerAction( queueName,
+                                                                         ATS_ACTION__MISSED_ARRIVALS );
+
+        state = ActionTaskLoaderState.SCHEDULED;
+    }
+
+    @Override
+    public synchronized void start() throws ActionExecutionException, ActionTaskLoaderException {
+
+        //check the state first
+        if( state != ActionTaskLoaderState.SCHEDULED ) {
+            throw new ActionTaskLoaderException( "Cannot start load queue " + queueName
+                                                 + " - it has not been scheduled yet" );
+        }
+
+        callOnStart();
+
+        // start iterations timeout manager before starting the threads
+        if( itManager != null && !itManager.isAlive() ) {
+            itManager.start();
+        }
+        threadsManager.start();
+
+        dispatcherThread = new Thread( new Runnable() {
+
+            @Override
+            public void run() {
+
+                dispatchArrivals();
+            }
+        }, "ATS_ARRIVALS_DISPATCHER_" + queueName );
+        dispatcherThread.start();
+
+        //block until completed if necessary
+        if( blockUntilCompletion ) {
+            waitUntilFinished();
+        }
+    }
+
+    /**
+     * Pass each iteration to an idle task at the moment it has to start,
+     * then wait for all tasks to finish
+     */
+    private void dispatchArrivals() {
+
+        ThreadsPerCaller.registerThread( caller );
+        log.registerThreadWithLoadQueue( queueName );
+
+        try {
+            ArrivalSchedule schedule = new ArrivalSchedule( arrivalRates, stepDurations );
+            long executionStartNanos = System.nanoTime();
+
+            long arrivalOffset;
+            while( ( arrivalOffset = schedule.nextArrivalOffset() ) != ArrivalSchedule.NO_MORE_ARRIVALS ) {
+                long intendedStartNanos = executionStartNanos + arrivalOffset;
+
+                // the arrivals come in time order, so we only need to sleep until the next one
+                long sleepNanos = intendedStartNanos - System.nanoTime();
+                if( sleepNanos > 0 ) {
+                    TimeUnit.NANOSECONDS.sleep( sleepNanos );
+                }
+
+                dispatchArrival( intendedStartNanos );
+            }
+
+            // let the tasks finish their current iterations and exit
+            for( int i = 0; i < numberStartedTasks; i++ ) {
+                tasks.get( i ).startIteration( ArrivalRateActionTask.NO_MORE_ARRIVALS );
+            }
+            executor.shutdown();
+            executor.awaitTermination( Long.MAX_VALUE, TimeUnit.NANOSECONDS );
+        } catch( InterruptedException ie ) {
+            // the queue is cancelled
+            return;
+        } catch( RejectedExecutionException ree ) {
+            // the queue is cancelled while starting a task
+            return;
+        } finally {
+            ThreadsPerCaller.unregisterThread();
+        }
+
+        collectTimes();
+        log.info( "Load queue '" + queueName + "' started " + ( numberArrivals - numberMissedArrivals )
+                  + " iterations in " + numberStartedTasks + " threads and missed " + numberMissedArrivals
+                  + " iterations. Queueing delay: " + formatTimes( queueingDelays ) + ". Service time: "
+                  + formatTimes( serviceTimes ) );
+
+        //notify the listeners that execution has finished
+        callOnFinish();
+    }
+
+    private void dispatchArrival( long intendedStartNanos ) throws InterruptedException {
+
+        numberArrivals++;
+
+        ArrivalRateActionTask task = idleTasks.pollFirst();
+        if( task == null && numberStartedTasks < tasks.size() ) {
+            // all running tasks are busy, start one more
+            task = tasks.get( numberStartedTasks++ );
+            executor.execute( task );
+        }
+
+        if( task != null ) {
+            task.startIteration( intendedStartNanos );
+        } else {
+            // all tasks are busy
+            numberMissedArrivals++;
+            missedArrivalsCounter.registerExecutionResult( false );
+            log.insertCheckpoint( ATS_ACTION__MISSED_ARRIVALS, 0, CheckpointResult.FAILED );
+        }
+    }
+
+    private void collectTimes() {
+
+        queueingDelays = new LatencyHistogram();
+        serviceTimes = new LatencyHistogram();
+        for( int i = 0; i < numberStartedTasks; i++ ) {
+            queueingDelays.add( tasks.get( i ).getQueueingDelays() );
+            serviceTimes.add( tasks.get( i ).getServiceTimes() );
+        }
+    }
+
+    private String formatTimes( LatencyHistogram histogram ) {
+
+        return String.format( "mean %.3f ms, 99%% %.3f ms, max %.3f ms", histogram.getMean() / 1000,
+                              histogram.getValueAtPercentile( 99 ) / 1000D,
+                              histogram.getMaxValue() / 1000D );
+    }
+
+    /**
+     * @return the number of iterations which had to start so far, including the missed ones
+     */
+    public long getNumberArrivals() {
+
+        return numberArrivals;
+    }
+
+    /**
+     * @return the number of iterations which were not started as all threads were busy
+     */
+    public long getNumberMissedArrivals() {
+
+        return numberMissedArrivals;
+    }
+
+    /**
+     * @return the number of threads started so far
+     */
+    public int getNumberStartedThreads() {
+
+        return numberStartedTasks;
+    }
+
+    /**
+     * @return the time in microseconds between the moment each iteration had to start and the moment it started,
+     * null if the queue is not finished yet
+     */
+    public LatencyHistogram getQueueingDelays() {
+
+        return queueingDelays;
+    }
+
+    /**
+     * @return the duration of each iteration in microseconds, null if the queue is not finished yet
+     */
+    public LatencyHistogram getServiceTimes() {
+
+        return serviceTimes;
+    }
+
+    @Override
+    public synchronized void resume() throws ActionExecutionException, ActionTaskLoaderException {
+
+        throw new ActionTaskLoaderException( "Cannot resume load queue " + queueName
+                                             + " - it starts its iterations at a given rate, so it is never paused" );
+    }
+
+    @Override
+    public void cancel() {
+
+        //cancel only if still running
+        log.debug( "Cancelling all tasks" );
+
+        if( dispatcherThread != null ) {
+            dispatcherThread.interrupt();
+        }
+        if( executor != null ) {
+            executor.shutdownNow();
+        }
+
+        //notify the listeners
+        callOnFinish();
+    }
+
+    @Override
+    public synchronized void waitUntilFinished() {
+
+        //wait only if the load queue has already been started
+        //if it was only scheduled, then we don't need to wait
+        while( state == ActionTaskLoaderState.RUNNING ) {
+            //block until all tasks exit
+            try {
+                wait();
+            } catch( InterruptedException ie ) {
+                log.error( "Interrupted exception caught", ie );
+            }
+        }
+    }
+
+    @Override
+    public boolean waitUntilPaused() {
+
+        // the iterations are never paused
+        return false;
+    }
+
+    private class SimpleActionTaskListener implements ActionTaskListener {
+
+        @Override
+        public void onStart() {
+
+            log.registerThreadWithLoadQueue( queueName );
+        }
+
+        @Override
+        public void onPause() {
+
+            // the iterations are never paused
+        }
+
+        @Override
+        public void onFinish( Throwable throwable ) {
+
+            if( throwable != null ) {
+
+                //log the error
+                log.error( "Exception caught while executing a task", throwable );
+            }
+        }
+    }
+}
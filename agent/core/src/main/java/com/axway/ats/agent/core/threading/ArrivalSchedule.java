@@ -0,0 +1,80 @@
+/*
+ * Copyright 2017 Axway Software
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.axway.ats.agent.core.threading;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Calculates the moments the iterations of an arrival rate pattern have to start.
+ * 
+ * The arrivals in a step are evenly spaced, the first one starts at the beginning of the step.
+ * The moments are returned in time order, as offsets from the start of the execution, so they
+ * are calculated one by one instead of keeping all of them in memory.
+ */
+final class ArrivalSchedule {
+
+    static final long      NO_MORE_ARRIVALS = -1;
+
+    private final double[] arrivalRates;
+    private final long[]   stepDurationsNanos;
+
+    private int            currentStep;
+    private long           currentStepStartNanos;
+    private long           arrivalsInCurrentStep;
+
+    /**
+     * @param arrivalRates the number of arrivals per second for each step
+     * @param stepDurations the duration of each step in seconds
+     */
+    ArrivalSchedule( double[] arrivalRates, int[] stepDurations ) {
+
+        if( arrivalRates.length != stepDurations.length ) {
+            throw new IllegalArgumentException( "There are " + arrivalRates.length + " arrival rates for "
+                                                + stepDurations.length + " steps" );
+        }
+
+        this.arrivalRates = arrivalRates.clone();
+        this.stepDurationsNanos = new long[stepDurations.length];
+        for( int i = 0; i < stepDurations.length; i++ ) {
+            this.stepDurationsNanos[i] = TimeUnit.SECONDS.toNanos( stepDurations[i] );
+        }
+    }
+
+    /**
+     * @return the offset in nanoseconds of the next arrival from the start of the execution,
+     * or {@link #NO_MORE_ARRIVALS} when all steps are over
+     */
+    long nextArrivalOffset() {
+
+        while( currentStep < arrivalRates.length ) {
+            double arrivalRate = arrivalRates[currentStep];
+            if( arrivalRate > 0 ) {
+                long offsetInStep = ( long ) ( arrivalsInCurrentStep * 1000000000D / arrivalRate );
+                if( offsetInStep < stepDurationsNanos[currentStep] ) {
+                    arrivalsInCurrentStep++;
+                    return currentStepStartNanos + offsetInStep;
+                }
+            }
+
+            // this step is over
+            currentStepStartNanos += stepDurationsNanos[currentStep];
+            currentStep++;
+            arrivalsInCurrentStep = 0;
+        }
+
+        return NO_MORE_ARRIVALS;
+    }
+}
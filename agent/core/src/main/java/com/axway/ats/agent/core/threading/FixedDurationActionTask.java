@@ -23,7 +23,7 @@ import com.axway.ats.agent.core.exceptions.ActionExecutionException;
 import com.axway.ats.agent.core.exceptions.NoCompatibleMethodFoundException;
 import com.axway.ats.agent.core.exceptions.NoSuchActionException;
 import com.axway.ats.agent.core.exceptions.NoSuchComponentException;
-import com.axway.ats.agent.core.threading.data.ParameterDataProvider;
+import com.axway.ats.agent.core.threading.data.ParameterValuesGenerator;
 import com.axway.ats.agent.core.threading.listeners.ActionTaskListener;
 
 /**
@@ -50,8 +50,8 @@ public class FixedDurationActionTask extends AbstractActionTask {
      *            the time frame in seconds for executing a number of iterations
      * @param actionRequests
      *            the action requests
-     * @param dataProviders
-     *            the data providers list
+     * @param parameterValuesGenerator
+     *            the generator of the data providers' values
      * @param listeners
      *            the action task listeners
      *            
@@ -66,14 +66,14 @@ public class FixedDurationActionTask extends AbstractActionTask {
                                     long intervalBetweenIterations, long minIntervalBetweenIterations,
                                     long maxIntervalBetweenIterations, int totalExecutionsPerTimeFrame,
                                     long timeFrameLength, List<ActionRequest> actionRequests,
-                                    List<ParameterDataProvider> dataProviders,
+                                    ParameterValuesGenerator parameterValuesGenerator,
                                     List<ActionTaskListener> listeners,
                                     boolean isUseSynchronizedIterations ) throws ActionExecutionException,
                                                                           NoSuchComponentException,
                                                                           NoSuchActionException,
                                                                           NoCompatibleMethodFoundException {
 
-        super( caller, queueName, threadsManager, itManager, actionRequests, dataProviders,
+        super( caller, queueName, threadsManager, itManager, actionRequests, parameterValuesGenerator,
                intervalBetweenIterations, minIntervalBetweenIterations, maxIntervalBetweenIterations,
                listeners );
 
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2017 Axway Software
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.axway.ats.agent.core.threading;
+
+import java.util.Arrays;
+
+/**
+ * Corrects the action latencies of the paced iterations for coordinated omission.
+ *
+ * The pacing schedule tells when each iteration had to start. When an iteration starts late, because
+ * the previous ones took too long, its actions are delayed as well. So the latency of each action is measured
+ * from its intended start, which is the intended start of the iteration plus the time the previous actions
+ * of the same iteration took.
+ *
+ * When the schedule gives up the iterations which could not be started in time, they are never measured.
+ * Like HdrHistogram does when recording with an expected interval, a latency is added for each of them.
+ * It is the time from the intended start of the skipped iteration till the end of the last executed one.
+ *
+ * The class is not thread-safe, each action task has its own instance.
+ */
+final class LatencyCorrection {
+
+    // protects from flooding the log DB when an action hangs for a long time
+    static final int            MAX_OMITTED_ITERATIONS = 10000;
+
+    private static final long[] NO_LATENCIES           = new long[0];
+
+    // how late the current iteration started
+    private long                iterationDelayNanos;
+
+    // the corrected latencies of the actions in the last iteration, -1 if an action did not pass
+    private final long[]        latencyNanos;
+    private final long[]        intendedStartTimestamps;
+
+    LatencyCorrection( int numberActions ) {
+
+        this.latencyNanos = new long[numberActions];
+        this.intendedStartTimestamps = new long[numberActions];
+        Arrays.fill( latencyNanos, -1 );
+    }
+
+    /**
+     * Called once at the start of each iteration
+     *
+     * @param intendedStartNanos the {@link System#nanoTime()} at which the iteration had to start
+     * @param startNanos the {@link System#nanoTime()} at which the iteration started
+     */
+    void startIteration( long intendedStartNanos, long startNanos ) {
+
+        iterationDelayNanos = Math.max( 0, startNanos - intendedStartNanos );
+        Arrays.fill( latencyNanos, -1 );
+    }
+
+    /**
+     * @param actionIndex the action position in the queue
+     * @param startTimestamp the actual start time of the action
+     * @param responseTimeNanos the measured response time of the action
+     * @return the latency of the action measured from its intended start
+     */
+    long correct( int actionIndex, long startTimestamp, long responseTimeNanos ) {
+
+        latencyNanos[actionIndex] = responseTimeNanos + iterationDelayNanos;
+        intendedStartTimestamps[actionIndex] = startTimestamp - iterationDelayNanos / 1000000;
+        return latencyNanos[actionIndex];
+    }
+
+    /**
+     * @param actionIndex the action position in the queue
+     * @return the intended start time of the action in the last iteration
+     */
+    long getIntendedStartTimestamp( int actionIndex ) {
+
+        return intendedStartTimestamps[actionIndex];
+    }
+
+    /**
+     * @param actionIndex the action position in the queue
+     * @param expectedIntervalNanos the expected time between the starts of two iterations
+     * @param numberSkippedIterations how many iterations after the last one are skipped by the schedule
+     * @return the latencies of this action in the skipped iterations, starting with the earliest iteration.
+     * There are no more than {@link #MAX_OMITTED_ITERATIONS} latencies.
+     */
+    long[] getSkippedIterationLatencies( int actionIndex, long expectedIntervalNanos,
+                                         int numberSkippedIterations ) {
+
+        long lastLatencyNanos = latencyNanos[actionIndex];
+        if( lastLatencyNanos <= 0 || expectedIntervalNanos <= 0 || numberSkippedIterations <= 0 ) {
+            return NO_LATENCIES;
+        }
+
+        // only the iterations which had to start before the end of the last one
+        long numberOmittedIterations = Math.min( ( lastLatencyNanos - 1 ) / expectedIntervalNanos,
+                                                 Math.min( numberSkippedIterations, MAX_OMITTED_ITERATIONS ) );
+        long[] latencies = new long[( int ) numberOmittedIterations];
+        for( int i = 0; i < latencies.length; i++ ) {
+            latencies[i] = lastLatencyNanos - ( i + 1 ) * expectedIntervalNanos;
+        }
+        return latencies;
+    }
+}
@@ -26,10 +26,13 @@ import com.axway.ats.agent.core.threading.data.ParameterDataProvider;
 import com.axway.ats.agent.core.threading.exceptions.ThreadingPatternNotSupportedException;
 import com.axway.ats.agent.core.threading.listeners.QueueLoaderListener;
 import com.axway.ats.agent.core.threading.patterns.AllAtOncePattern;
+import com.axway.ats.agent.core.threading.patterns.ConstantArrivalRatePattern;
 import com.axway.ats.agent.core.threading.patterns.FixedDurationAllAtOncePattern;
 import com.axway.ats.agent.core.threading.patterns.FixedDurationRampUpPattern;
 import com.axway.ats.agent.core.threading.patterns.RampUpPattern;
+import com.axway.ats.agent.core.threading.patterns.StepArrivalRatePattern;
 import com.axway.ats.agent.core.threading.patterns.ThreadingPattern;
+import com.axway.ats.agent.core.threading.patterns.model.ArrivalRateExecutionPattern;
 import com.axway.ats.agent.core.threading.patterns.model.ExecutionPattern;
 import com.axway.ats.agent.core.threading.patterns.model.RampUpStartPattern;
 
@@ -79,6 +82,7 @@ public class LoadQueueFactory {
             rampUpPattern.setMinIntervalBetweenIterations( allAtOncePattern.getMinIntervalBetweenIterations() );
             rampUpPattern.setMaxIntervalBetweenIterations( allAtOncePattern.getMaxIntervalBetweenIterations() );
             rampUpPattern.setIterationTimeout( allAtOncePattern.getIterationTimeout() );
+            rampUpPattern.setUseVirtualThreads( allAtOncePattern.isUseVirtualThreads() );
             
             return new RampUpQueueLoader( queueName, actionRequests, rampUpPattern, allAtOncePattern,
                                                parameterDataProviders, listeners );
@@ -94,6 +98,7 @@ public class LoadQueueFactory {
             rampUpPattern.setMinIntervalBetweenIterations( allAtOncePattern.getMinIntervalBetweenIterations() );
             rampUpPattern.setMaxIntervalBetweenIterations( allAtOncePattern.getMaxIntervalBetweenIterations() );
             rampUpPattern.setIterationTimeout( threadingPattern.getIterationTimeout() );
+            rampUpPattern.setUseVirtualThreads( threadingPattern.isUseVirtualThreads() );
             
             return new RampUpQueueLoader( queueName, actionRequests, rampUpPattern, allAtOncePattern,
                                                parameterDataProviders, listeners );
@@ -107,6 +112,14 @@ public class LoadQueueFactory {
                                                ( ExecutionPattern ) threadingPattern, parameterDataProviders,
                                                listeners );
 
+        } else if( threadingPattern.getClass() == ConstantArrivalRatePattern.class
+                   || threadingPattern.getClass() == StepArrivalRatePattern.class ) {
+
+            //an open model pattern, the iterations are started at a given rate
+            return new ArrivalRateQueueLoader( queueName, actionRequests, threadingPattern,
+                                               ( ArrivalRateExecutionPattern ) threadingPattern,
+                                               parameterDataProviders, listeners );
+
         } else {
             throw new ThreadingPatternNotSupportedException( threadingPattern.getClass().getSimpleName() );
         }
@@ -19,10 +19,8 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorCompletionService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
-import java.util.concurrent.ThreadPoolExecutor;
-import java.util.concurrent.TimeUnit;
 
 import com.axway.ats.agent.core.action.ActionRequest;
 import com.axway.ats.agent.core.exceptions.ActionExecutionException;
@@ -128,9 +126,7 @@ public class RampUpQueueLoader extends AbstractQueueLoader {
                                                  + " - it has already been scheduled" );
         }
 
-        //create the executor - terminate threads when finished
-        ThreadPoolExecutor executor = ( ThreadPoolExecutor ) Executors.newCachedThreadPool();
-        executor.setKeepAliveTime( 0, TimeUnit.SECONDS );
+        ExecutorService executor = createExecutor();
 
         ExecutorCompletionService<Object> executionService = new ExecutorCompletionService<Object>( executor );
 
@@ -171,7 +167,7 @@ public class RampUpQueueLoader extends AbstractQueueLoader {
                                                                                                    threadsManager,
                                                                                                    itManager,
                                                                                                    actionRequests,
-                                                                                                   parameterDataProviders,
+                                                                                                   parameterValuesGenerator,
                                                                                                    defaultTaskListeners,
                                                                                                    isUseSynchronizedIterations ),
                                                                      null );
@@ -193,7 +189,7 @@ public class RampUpQueueLoader extends AbstractQueueLoader {
                                                  + " - it has not been scheduled yet" );
         }
 
-        state = ActionTaskLoaderState.RUNNING;
+        callOnStart();
 
         if( blockUntilCompletion || rampUpInterval == 0 ) {
             // we can stay here until all tasks are started
@@ -228,7 +224,7 @@ public class RampUpQueueLoader extends AbstractQueueLoader {
                                                  + " - it has not been paused yet" );
         }
 
-        state = ActionTaskLoaderState.RUNNING;
+        callOnStart();
 
         startAllTasks();
     }
@@ -15,11 +15,7 @@
  */
 package com.axway.ats.agent.core.threading;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.HashSet;
-import java.util.List;
-import java.util.Set;
+import java.util.concurrent.Phaser;
 
 import org.apache.log4j.Logger;
 
@@ -35,28 +31,37 @@ import org.apache.log4j.Logger;
  * The main thread is responsible to call START after all threads have completed their previous iteration.
  * 
  * As some threads run quicker then others, it happens that the quick threads request start signal again
- * while others are still running. That is why we remember the threads we have granted START for each iteration, 
- * so we do not allow them to start again in same iteration, but instead they are put to WAIT for the next iteration.
- *
+ * while others are still running. That is why each worker remembers the last iteration it was started for,
+ * so we do not allow it to start again in same iteration, but instead it is put to WAIT for the next iteration.
+ * 
+ * The iterations are the phases of a {@link Phaser} which has the main thread as its only party,
+ * so each START advances the phase and wakes up the waiting workers. This way the memory used does not
+ * depend on the number of iterations and the workers do not take any locks. The waiting does not
+ * block the carrier thread in case the workers are virtual threads.
  */
 public class ThreadsManager {
 
-    private static Logger      log                       = Logger.getLogger( ThreadsManager.class );
+    private static Logger              log = Logger.getLogger( ThreadsManager.class );
 
-    private int                iterationCounter;
+    // the current phase is the number of iterations started so far
+    private final Phaser               iterationsPhaser;
 
-    // lockers for each iteration
-    private List<RunningState> iterationLockers          = new ArrayList<RunningState>();
-    // the processed thread for each iteration
-    private List<Set<Long>>    iterationProcessedThreads = new ArrayList<Set<Long>>();
+    // the last iteration each worker was started for, -1 if not started yet
+    private final ThreadLocal<int[]>   lastStartedIteration;
 
     public ThreadsManager() {
 
-        iterationCounter = -1;
+        // the main thread is the only party, the workers just wait for the phase to advance
+        iterationsPhaser = new Phaser( 1 );
+
+        lastStartedIteration = new ThreadLocal<int[]>() {
+
+            @Override
+            protected int[] initialValue() {
 
-        // we are always prepared for one iteration ahead for the case a thread is very fast and quickly request to executed again
-        iterationLockers.add( new RunningState( false ) );
-        iterationProcessedThreads.add( Collections.synchronizedSet( new HashSet<Long>() ) );
+                return new int[]{ -1 };
+            }
+        };
     }
 
     /**
@@ -64,30 +69,7 @@ public class ThreadsManager {
      */
     public void start() {
 
-        // first allocate the needed structures that will be needed by the iteration after the next one(always one ahead)
-        iterationLockers.add( new RunningState( false ) );
-        iterationProcessedThreads.add( Collections.synchronizedSet( new HashSet<Long>() ) );
-
-        // move to the next iteration
-        iterationCounter++;
-
-        // We do not need anymore the info about the previous iteration.
-        // We do not remove the internal object from the list, we just release the not needed memory
-        if( iterationCounter - 1 >= 0 ) {
-            iterationProcessedThreads.get( iterationCounter - 1 ).clear();
-        }
-
-        // get the lock for this iteration
-        RunningState thisIterationLocker = iterationLockers.get( iterationCounter );
-        synchronized( thisIterationLocker ) {
-            // Start the current iteration
-
-            // First we set the running state to TRUE and then wake up the already waiting thread.
-            // If thread was too slow to request WAIT FOR START, it will not be blocked, but we will
-            // let it run as the current iteration state is RUNNING
-            thisIterationLocker.setRunning( true );
-            thisIterationLocker.notifyAll();
-        }
+        iterationsPhaser.arrive();
     }
 
     /**
@@ -95,94 +77,27 @@ public class ThreadsManager {
      */
     public void waitForStart() {
 
-        // remember the current iteration counter(in case the main thread moves to new iteration meanwhile)
-        int thisIterationCounter = iterationCounter;
-        if( thisIterationCounter < 0 ) {
-            // this is the case when a worker request START signal for first time, 
-            // but the main thread could not fire the event quickly enough
-            thisIterationCounter = 0;
-        }
+        int[] lastIteration = lastStartedIteration.get();
 
-        // we distinguish the workers by their IDs, the id cannot be reused in the same Agent action queue
-        Long threadId = Thread.currentThread().getId();
-
-        // check if the worker already run during this iteration
-        Set<Long> thisIterationProcessedThreads = iterationProcessedThreads.get( thisIterationCounter );
-        if( !thisIterationProcessedThreads.contains( threadId ) ) {
-            // not processed in this iteration
-            thisIterationProcessedThreads.add( threadId );
-
-            // get the locker for this iteration
-            RunningState thisIterationLocker = iterationLockers.get( thisIterationCounter );
-            synchronized( thisIterationLocker ) {
-                if( thisIterationLocker.isRunning() ) {
-                    // This iteration is already running, let the worker go
-                } else {
-                    try {
-                        // This iteration is not running yet, worker must wait
-                        thisIterationLocker.wait();
-                    } catch( InterruptedException e ) {
-                        log.warn( "Thread " + Thread.currentThread().getName()
-                                  + " was interrupted while waiting to be awaken by the main thread for iteration "
-                                  + thisIterationCounter
-                                  + ". This will probably lead to have the thread running earlier than expected" );
-                        throw new RuntimeException( e ); //throw exception, so the current future task could be stopped
-                    }
-                }
-            }
-        } else {
-            // already processed in this iteration, block it for next iteration
-            int nextIterationCounter = thisIterationCounter + 1;
-            Set<Long> nextIterationProcessedThreads = iterationProcessedThreads.get( nextIterationCounter );
-            nextIterationProcessedThreads.add( threadId );
-
-            RunningState nextIterationLocker = iterationLockers.get( nextIterationCounter );
-            synchronized( nextIterationLocker ) {
-                if( nextIterationLocker.isRunning() ) {
-                    /* 
-                     * The next iteration is already running, let the worker go
-                     * 
-                     * This is a rare case, but it happens:
-                     * The worker enters this method, remembers the current iteration number,
-                     * checks it was run in the current iteration, so it must be queued for the next iteration,
-                     * and just at this moment the main thread fires START, the iteration counter is increased and
-                     * the iteration state is set to RUNNING. Right now if the worker decide to WAIT, it will never
-                     * be awaken as the START event is already gone.
-                     * 
-                     * That is why we have to check the RUNNING state
-                     */
-                } else {
-                    try {
-                        // The next iteration is not running yet, worker must wait
-                        nextIterationLocker.wait();
-                    } catch( InterruptedException e ) {
-                        log.warn( "Thread " + Thread.currentThread().getName()
-                                  + " was interrupted while waiting to be awaken by the main thread for iteration "
-                                  + thisIterationCounter
-                                  + ". This will probably lead to have the thread running earlier than expected" );
-                        throw new RuntimeException( e ); //throw exception, so the current future task could be stopped
-                    }
-                }
-            }
-        }
-    }
+        // The worker starts in the current iteration if it has not run in it yet.
+        // Otherwise it waits for the next one
+        int currentIteration = iterationsPhaser.getPhase() - 1;
+        int thisIteration = Math.max( lastIteration[0] + 1, currentIteration );
 
-    class RunningState {
-        private boolean isRunning;
-
-        RunningState( boolean isRunning ) {
-
-            this.isRunning = isRunning;
-        }
-
-        boolean isRunning() {
-
-            return isRunning == true;
+        try {
+            int phase;
+            while( ( phase = iterationsPhaser.getPhase() ) <= thisIteration ) {
+                // the iteration is not running yet, worker must wait
+                iterationsPhaser.awaitAdvanceInterruptibly( phase );
+            }
+        } catch( InterruptedException e ) {
+            log.warn( "Thread " + Thread.currentThread().getName()
+                      + " was interrupted while waiting to be awaken by the main thread for iteration "
+                      + thisIteration
+                      + ". This will probably lead to have the thread running earlier than expected" );
+            throw new RuntimeException( e ); //throw exception, so the current future task could be stopped
         }
 
-        void setRunning( boolean isRunning ) {
-
-            this.isRunning = isRunning;
-        }
+        lastIteration[0] = thisIteration;
     }
 }
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2017 Axway Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.axway.ats.agent.core.threading;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Creates executors which run each task in a new virtual thread.
+ *
+ * Virtual threads are available since Java 21, while the agent is built for older Java versions,
+ * so the needed API is accessed with reflection. On older JVMs {@link #isSupported()} returns false.
+ */
+public final class VirtualThreads {
+
+    private static final Logger        log          = Logger.getLogger( VirtualThreads.class );
+
+    // used to give unique thread names, like the JDK does for the platform thread pools
+    private static final AtomicInteger poolCounter  = new AtomicInteger();
+
+    private static final Method        OF_VIRTUAL_METHOD;
+    private static final Method        NAME_METHOD;
+    private static final Method        FACTORY_METHOD;
+    private static final Method        NEW_THREAD_PER_TASK_EXECUTOR_METHOD;
+
+    static {
+        Method ofVirtualMethod = null;
+        Method nameMethod = null;
+        Method factoryMethod = null;
+        Method newThreadPerTaskExecutorMethod = null;
+        try {
+            Class<?> builderClass = Class.forName( "java.lang.Thread$Builder" );
+
+            ofVirtualMethod = Thread.class.getMethod( "ofVirtual" );
+            nameMethod = builderClass.getMethod( "name", String.class, long.class );
+            factoryMethod = builderClass.getMethod( "factory" );
+            newThreadPerTaskExecutorMethod = Executors.class.getMethod( "newThreadPerTaskExecutor",
+                                                                       ThreadFactory.class );
+        } catch( Exception e ) {
+            // virtual threads are not supported by this JVM
+            ofVirtualMethod = null;
+        }
+
+        OF_VIRTUAL_METHOD = ofVirtualMethod;
+        NAME_METHOD = nameMethod;
+        FACTORY_METHOD = factoryMethod;
+        NEW_THREAD_PER_TASK_EXECUTOR_METHOD = newThreadPerTaskExecutorMethod;
+    }
+
+    private VirtualThreads() {
+
+    }
+
+    /**
+     * @return whether the current JVM supports virtual threads
+     */
+    public static boolean isSupported() {
+
+        return OF_VIRTUAL_METHOD != null;
+    }
+
+    /**
+     * Create an executor which starts a new virtual thread for each task.
+     * The threads are named "vpool-&lt;pool number&gt;-thread-&lt;thread number&gt;",
+     * as the threads are distinguished by name when logging to the DB and when checking for iteration timeouts.
+     *
+     * @return the executor
+     * @throws UnsupportedOperationException if virtual threads are not supported by this JVM
+     */
+    public static ExecutorService newVirtualThreadPerTaskExecutor() {
+
+        if( !isSupported() ) {
+            throw new UnsupportedOperationException( "Virtual threads are not supported by Java "
+                                                     + System.getProperty( "java.version" ) );
+        }
+
+        try {
+            Object builder = OF_VIRTUAL_METHOD.invoke( null );
+            builder = NAME_METHOD.invoke( builder, "vpool-" + poolCounter.incrementAndGet() + "-thread-", 1L );
+            ThreadFactory threadFactory = ( ThreadFactory ) FACTORY_METHOD.invoke( builder );
+
+            return ( ExecutorService ) NEW_THREAD_PER_TASK_EXECUTOR_METHOD.invoke( null, threadFactory );
+        } catch( Exception e ) {
+            log.error( "Unable to create a virtual thread executor", e );
+            throw new UnsupportedOperationException( "Unable to create a virtual thread executor", e );
+        }
+    }
+}
@@ -45,6 +45,7 @@ public abstract class AbstractParameterDataProvider implements ParameterDataProv
     public final void initialize() throws ParameterDataProviderInitalizationException {
 
         this.perThreadIndexes = new HashMap<Long, Integer>();
+        resetValueIndexes();
 
         doInitialize();
     }
@@ -86,6 +87,14 @@ public abstract class AbstractParameterDataProvider implements ParameterDataProv
         return this.dataProviderInstance;
     }
 
+    /**
+     * Reset the indexes of the next values, used by the providers which keep them outside of
+     * {@link #perThreadIndexes}
+     */
+    void resetValueIndexes() {
+
+    }
+
     /**
      * Do any specific initialization
      */
@@ -17,11 +17,12 @@ package com.axway.ats.agent.core.threading.data;
 
 import java.io.Serializable;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -30,23 +31,29 @@ import com.axway.ats.core.utils.IoUtils;
 
 public class FileContainer implements Serializable {
 
-    private static final long    serialVersionUID  = 1L;
+    private static final long                    serialVersionUID      = 1L;
 
-    private static final Pattern PARAMETER_PATTERN = Pattern.compile( "\\$\\{([\\d\\w]+)\\}" );
+    private static final Pattern                 PARAMETER_PATTERN     = Pattern.compile( "\\$\\{([\\d\\w]+)\\}" );
 
-    private String               folderName;
+    // how many compiled patterns with resolved parameters to keep
+    private static final int                     MAX_COMPILED_PATTERNS = 10000;
 
-    private int                  percentage;
+    private String                               folderName;
 
-    private String               pattern;
+    private int                                  percentage;
 
-    private Set<String>          patternParameters;
+    private String                               pattern;
 
-    private List<String>         fileList          = new ArrayList<String>();
+    private Set<String>                          patternParameters;
 
-    private Map<Long, Integer>   threadIndexes     = new HashMap<Long, Integer>();
+    private List<String>                         fileList              = new ArrayList<String>();
 
-    private int                  currentIndex      = 0;
+    private Map<Long, Integer>                   threadIndexes         = new ConcurrentHashMap<Long, Integer>();
+
+    private AtomicInteger                        currentIndex          = new AtomicInteger();
+
+    // the compiled patterns with resolved parameters
+    private transient Map<String, Pattern>       compiledPatterns;
 
     /**
      *
@@ -84,7 +91,7 @@ public class FileContainer implements Serializable {
                 }
             }
             int startIndex = index;
-            Pattern p = Pattern.compile( currentPattern );
+            Pattern p = getCompiledPattern( currentPattern );
             while( !p.matcher( IoUtils.getFileName( fileName ) ).matches() ) {
 
                 // if (isStaticValue) then this is a case when the file name didn't match the pattern and
@@ -124,10 +131,7 @@ public class FileContainer implements Serializable {
         if( currentThreadId == null ) {
             // PER_INVOCATION
             // return current global (folder) index
-            if( currentIndex >= fileList.size() ) {
-                currentIndex = 0;
-            }
-            return currentIndex++;
+            return getNextGlobalIndex();
         }
 
         // return the file index for the current thread
@@ -137,17 +141,14 @@ public class FileContainer implements Serializable {
                 return index;
             } else {
                 // first run for THREAD_STATIC
-                if( currentIndex >= fileList.size() ) {
-                    currentIndex = 0;
-                }
-                index = currentIndex++;
+                index = getNextGlobalIndex();
             }
         } else {
             // isStaticValue = false, THREADED parameter level
             if( index != null ) {
                 index++;
             } else {
-                index = currentIndex;
+                index = currentIndex.get();
             }
         }
 
@@ -158,6 +159,45 @@ public class FileContainer implements Serializable {
         return index;
     }
 
+    /**
+     * @return the current global index, the global index is moved to the next file
+     */
+    private int getNextGlobalIndex() {
+
+        int filesCount = fileList.size();
+        while( true ) {
+            int index = currentIndex.get();
+            int nextIndex = index >= filesCount
+                                                ? 1
+                                                : index + 1;
+            if( currentIndex.compareAndSet( index, nextIndex ) ) {
+                return nextIndex - 1;
+            }
+        }
+    }
+
+    /**
+     * @param currentPattern the pattern with resolved parameters
+     * @return the compiled pattern
+     */
+    private Pattern getCompiledPattern( String currentPattern ) {
+
+        Map<String, Pattern> patterns = this.compiledPatterns;
+        if( patterns == null ) {
+            patterns = new ConcurrentHashMap<String, Pattern>();
+            this.compiledPatterns = patterns;
+        }
+
+        Pattern compiledPattern = patterns.get( currentPattern );
+        if( compiledPattern == null ) {
+            compiledPattern = Pattern.compile( currentPattern );
+            if( patterns.size() < MAX_COMPILED_PATTERNS ) {
+                patterns.put( currentPattern, compiledPattern );
+            }
+        }
+        return compiledPattern;
+    }
+
     /**
      * Retrieve data config parameters from the regex pattern. For example if the pattern is "${username}_1234.*"
      * the parameters list will be { "username" }
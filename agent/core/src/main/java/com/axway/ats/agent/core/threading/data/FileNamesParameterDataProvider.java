@@ -30,14 +30,13 @@ import com.axway.ats.agent.core.threading.exceptions.ParameterDataProviderInital
  * Data provider for file names from a given folder - during initialization, the all file names
  * from a folder a put in a list. Upon request, the next value from the list is returned.
  */
-public class FileNamesParameterDataProvider extends AbstractParameterDataProvider {
+public class FileNamesParameterDataProvider extends IndexedParameterDataProvider {
 
     private List<FileContainer> fileContainers;
     private List<FileContainer> containersArray;
     private final boolean       recursiveSearch;
     private final boolean       returnFullPath;
     private int                 containersCount;
-    private int                 currentFileContainerIndex;
 
     FileNamesParameterDataProvider( String parameterName,
                                     List<FileContainer> fileContainers,
@@ -64,72 +63,25 @@ public class FileNamesParameterDataProvider extends AbstractParameterDataProvide
         }
 
         containersCount = containersArray.size();
-        currentFileContainerIndex = 0;
     }
 
     @Override
-    protected ArgumentValue generateNewValuePerInvocation(
-                                              List<ArgumentValue> alreadyResolvedValues ) {
+    protected int getValuesCount() {
 
-        if( currentFileContainerIndex >= containersCount ) {
-            currentFileContainerIndex = 0;
-        }
-
-        return new ArgumentValue( parameterName,
-                                  containersArray.get( currentFileContainerIndex++ )
-                                                 .getFileName( alreadyResolvedValues ) );
+        return containersCount;
     }
 
     @Override
-    protected ArgumentValue generateNewValuePerThread(
-                                                       long currentThreadId,
-                                                       List<ArgumentValue> alreadyResolvedValues ) {
-
-        Integer valueIndexPerThread = perThreadIndexes.get( currentThreadId );
-        if( valueIndexPerThread != null ) {
-            valueIndexPerThread++;
-        } else {
-
-            // we have a new thread started
-            valueIndexPerThread = currentFileContainerIndex;
-        }
-        if( valueIndexPerThread >= containersCount ) {
-            valueIndexPerThread = 0;
-        }
-        perThreadIndexes.put( currentThreadId, valueIndexPerThread );
-        return new ArgumentValue( parameterName,
-                                  containersArray.get( valueIndexPerThread )
-                                                 .getFileName( currentThreadId,
-                                                               false,
-                                                               alreadyResolvedValues ) );
-    }
+    protected ArgumentValue generateValue(
+                                           int valueIndex,
+                                           Long currentThreadId,
+                                           Boolean isStaticValue,
+                                           List<ArgumentValue> alreadyResolvedValues ) {
 
-    @Override
-    protected ArgumentValue generateNewValuePerThreadStatic(
-                                                             long currentThreadId,
-                                                             List<ArgumentValue> alreadyResolvedValues ) {
-
-        Integer valueIndexPerThread = perThreadIndexes.get( currentThreadId );
-        if( valueIndexPerThread != null ) {
-            return new ArgumentValue( parameterName,
-                                      containersArray.get( valueIndexPerThread )
-                                                     .getFileName( currentThreadId,
-                                                                   true,
-                                                                   alreadyResolvedValues ) );
-        }
-        // we have a new thread started
-        if( currentFileContainerIndex >= containersCount ) {
-            currentFileContainerIndex = 0;
-        }
-        valueIndexPerThread = currentFileContainerIndex++;
-        if( valueIndexPerThread >= containersCount ) {
-            valueIndexPerThread = 0;
-        }
-        perThreadIndexes.put( currentThreadId, valueIndexPerThread );
         return new ArgumentValue( parameterName,
-                                  containersArray.get( valueIndexPerThread )
+                                  containersArray.get( valueIndex )
                                                  .getFileName( currentThreadId,
-                                                               true,
+                                                               isStaticValue,
                                                                alreadyResolvedValues ) );
     }
 
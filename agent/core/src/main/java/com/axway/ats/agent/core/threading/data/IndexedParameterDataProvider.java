@@ -0,0 +1,160 @@
+/*
+ * Copyright 2017 Axway Software
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.axway.ats.agent.core.threading.data;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.axway.ats.agent.core.action.ArgumentValue;
+import com.axway.ats.agent.core.threading.data.config.ParameterProviderLevel;
+
+/**
+ * A data provider which picks its values by index from a fixed number of values.
+ *
+ * The values can be generated concurrently by many threads without any locking:
+ * <ul>
+ * <li>PER_INVOCATION - the value index comes from an invocation counter. When used by a
+ * {@link ParameterValuesGenerator}, all providers of a queue iteration use the same invocation index</li>
+ * <li>PER_THREAD - each thread keeps its own value index</li>
+ * <li>PER_THREAD_STATIC - each new thread takes the next value index, and keeps it</li>
+ * </ul>
+ */
+public abstract class IndexedParameterDataProvider extends AbstractParameterDataProvider {
+
+    // the next value index for PER_INVOCATION and PER_THREAD_STATIC levels
+    private final AtomicLong                nextValueIndex = new AtomicLong();
+
+    // the value index of each thread for PER_THREAD and PER_THREAD_STATIC levels
+    private final ThreadLocal<ThreadCursor> threadCursors  = new ThreadLocal<ThreadCursor>();
+
+    // increased on each initialization, so the threads know their cursors are no more valid
+    private volatile int                    generation;
+
+    public IndexedParameterDataProvider( String parameterName,
+                                         ParameterProviderLevel parameterProviderLevel ) {
+
+        super( parameterName, parameterProviderLevel );
+    }
+
+    /**
+     * Get the value for an invocation. Used by the {@link ParameterValuesGenerator}, which provides
+     * the same invocation index to all providers of a queue iteration.
+     *
+     * @param invocationIndex the index of the current invocation, it is used for PER_INVOCATION provider level only
+     * @param alreadyResolvedValues already resolved values for current queue iteration
+     * @return the new value
+     */
+    public final ArgumentValue getValue( long invocationIndex, List<ArgumentValue> alreadyResolvedValues ) {
+
+        if( parameterProviderLevel.equals( ParameterProviderLevel.PER_INVOCATION ) ) {
+            return generateValue( toValueIndex( invocationIndex ), null, null, alreadyResolvedValues );
+        } else {
+            return getValue( alreadyResolvedValues );
+        }
+    }
+
+    @Override
+    final void resetValueIndexes() {
+
+        nextValueIndex.set( 0 );
+        generation++;
+    }
+
+    @Override
+    protected final ArgumentValue generateNewValuePerInvocation(
+                                                                 List<ArgumentValue> alreadyResolvedValues ) {
+
+        return generateValue( toValueIndex( nextValueIndex.getAndIncrement() ), null, null,
+                              alreadyResolvedValues );
+    }
+
+    @Override
+    protected final ArgumentValue generateNewValuePerThread(
+                                                             long currentThreadId,
+                                                             List<ArgumentValue> alreadyResolvedValues ) {
+
+        ThreadCursor cursor = getThreadCursor();
+        if( cursor == null ) {
+            // a new thread starts from the first value
+            cursor = setThreadCursor( 0 );
+        } else {
+            cursor.valueIndex = toValueIndex( cursor.valueIndex + 1 );
+        }
+        return generateValue( cursor.valueIndex, currentThreadId, false, alreadyResolvedValues );
+    }
+
+    @Override
+    protected final ArgumentValue generateNewValuePerThreadStatic(
+                                                                   long currentThreadId,
+                                                                   List<ArgumentValue> alreadyResolvedValues ) {
+
+        ThreadCursor cursor = getThreadCursor();
+        if( cursor == null ) {
+            // a new thread takes the next value
+            cursor = setThreadCursor( toValueIndex( nextValueIndex.getAndIncrement() ) );
+        }
+        return generateValue( cursor.valueIndex, currentThreadId, true, alreadyResolvedValues );
+    }
+
+    /**
+     * @return the number of values this provider picks from
+     */
+    protected abstract int getValuesCount();
+
+    /**
+     * Generate the value at some index
+     *
+     * @param valueIndex the value index, it is between 0 and the number of values
+     * @param currentThreadId current thread id, null for PER_INVOCATION provider level
+     * @param isStaticValue whether the value is static for the thread, null for PER_INVOCATION provider level
+     * @param alreadyResolvedValues already resolved values for current queue iteration
+     * @return the value
+     */
+    protected abstract ArgumentValue generateValue(
+                                                    int valueIndex,
+                                                    Long currentThreadId,
+                                                    Boolean isStaticValue,
+                                                    List<ArgumentValue> alreadyResolvedValues );
+
+    private int toValueIndex( long index ) {
+
+        return ( int ) ( index % getValuesCount() );
+    }
+
+    private ThreadCursor getThreadCursor() {
+
+        ThreadCursor cursor = threadCursors.get();
+        if( cursor == null || cursor.generation != generation ) {
+            return null;
+        }
+        return cursor;
+    }
+
+    private ThreadCursor setThreadCursor( int valueIndex ) {
+
+        ThreadCursor cursor = new ThreadCursor();
+        cursor.generation = generation;
+        cursor.valueIndex = valueIndex;
+        threadCursors.set( cursor );
+        return cursor;
+    }
+
+    private static final class ThreadCursor {
+
+        private int generation;
+        private int valueIndex;
+    }
+}
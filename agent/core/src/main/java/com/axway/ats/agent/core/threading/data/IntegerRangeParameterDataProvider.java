@@ -21,11 +21,10 @@ import com.axway.ats.agent.core.action.ArgumentValue;
 import com.axway.ats.agent.core.threading.data.config.ParameterProviderLevel;
 import com.axway.ats.agent.core.threading.exceptions.ParameterDataProviderInitalizationException;
 
-public class IntegerRangeParameterDataProvider extends AbstractParameterDataProvider {
+public class IntegerRangeParameterDataProvider extends IndexedParameterDataProvider {
 
     private int rangeStart;
     private int rangeEnd;
-    private int currentValue;
 
     /**
      * Constructor - to be used only by the factory
@@ -44,62 +43,26 @@ public class IntegerRangeParameterDataProvider extends AbstractParameterDataProv
 
         this.rangeStart = rangeStart;
         this.rangeEnd = rangeEnd;
-        this.currentValue = rangeStart;
     }
 
     @Override
     protected void doInitialize() throws ParameterDataProviderInitalizationException {
 
-        this.currentValue = rangeStart;
     }
 
     @Override
-    protected ArgumentValue generateNewValuePerInvocation(
-                                              List<ArgumentValue> alreadyResolvedValues ) {
+    protected int getValuesCount() {
 
-        if( currentValue > rangeEnd ) {
-            currentValue = rangeStart;
-        }
-
-        return new ArgumentValue( parameterName, currentValue++ );
-    }
-
-    @Override
-    protected ArgumentValue generateNewValuePerThread(
-                                                       long currentThreadId,
-                                                       List<ArgumentValue> alreadyResolvedValues ) {
-
-        Integer valueIndexPerThread = perThreadIndexes.get( currentThreadId );
-        if( valueIndexPerThread != null ) {
-
-            valueIndexPerThread++;
-        } else {
-            valueIndexPerThread = currentValue;
-        }
-        if( valueIndexPerThread > rangeEnd ) {
-            valueIndexPerThread = rangeStart;
-        }
-        perThreadIndexes.put( currentThreadId, valueIndexPerThread );
-        return new ArgumentValue( parameterName, valueIndexPerThread );
+        return rangeEnd - rangeStart + 1;
     }
 
     @Override
-    protected ArgumentValue generateNewValuePerThreadStatic(
-                                                             long currentThreadId,
-                                                             List<ArgumentValue> alreadyResolvedValues ) {
+    protected ArgumentValue generateValue(
+                                           int valueIndex,
+                                           Long currentThreadId,
+                                           Boolean isStaticValue,
+                                           List<ArgumentValue> alreadyResolvedValues ) {
 
-        Integer valueIndexPerThread = perThreadIndexes.get( currentThreadId );
-        if( valueIndexPerThread != null ) {
-            return new ArgumentValue( parameterName, valueIndexPerThread );
-        }
-        if( currentValue > rangeEnd ) {
-            currentValue = rangeStart;
-        }
-        valueIndexPerThread = currentValue++;
-        if( valueIndexPerThread > rangeEnd ) {
-            valueIndexPerThread = rangeStart;
-        }
-        perThreadIndexes.put( currentThreadId, valueIndexPerThread );
-        return new ArgumentValue( parameterName, valueIndexPerThread );
+        return new ArgumentValue( parameterName, rangeStart + valueIndex );
     }
 }
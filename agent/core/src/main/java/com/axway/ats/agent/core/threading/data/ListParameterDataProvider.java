@@ -24,11 +24,10 @@ import com.axway.ats.agent.core.threading.exceptions.ParameterDataProviderInital
 /**
  * This parameter provider implementation will pick the next value from a list
  */
-public class ListParameterDataProvider extends AbstractParameterDataProvider {
+public class ListParameterDataProvider extends IndexedParameterDataProvider {
 
     private final List<?> values;
     private final int     valuesSize;
-    private int           currentIndex;
 
     ListParameterDataProvider( String parameterName,
                                List<?> values,
@@ -38,7 +37,6 @@ public class ListParameterDataProvider extends AbstractParameterDataProvider {
 
         this.values = values;
         this.valuesSize = values.size();
-        this.currentIndex = 0;
     }
 
     ListParameterDataProvider( String parameterName,
@@ -50,64 +48,27 @@ public class ListParameterDataProvider extends AbstractParameterDataProvider {
 
         this.values = values;
         this.valuesSize = values.size();
-        this.currentIndex = 0;
         this.dataProviderInstance = dataProviderInstance;
     }
 
     @Override
     protected void doInitialize() throws ParameterDataProviderInitalizationException {
 
-        currentIndex = 0;
     }
 
     @Override
-    protected ArgumentValue generateNewValuePerInvocation(
-                                              List<ArgumentValue> alreadyResolvedValues ) {
+    protected int getValuesCount() {
 
-        if( currentIndex >= valuesSize ) {
-            currentIndex = 0;
-        }
-
-        return new ArgumentValue( parameterName, values.get( currentIndex++ ) );
+        return valuesSize;
     }
 
     @Override
-    protected ArgumentValue generateNewValuePerThread(
-                                                       long currentThreadId,
-                                                       List<ArgumentValue> alreadyResolvedValues ) {
-
-        Integer valueIndexPerThread = perThreadIndexes.get( currentThreadId );
-        if( valueIndexPerThread != null ) { // isStaticValue = false
-
-            valueIndexPerThread++;
-        } else {
-            valueIndexPerThread = currentIndex;
-        }
-        if( valueIndexPerThread >= valuesSize ) {
-            valueIndexPerThread = 0;
-        }
-        perThreadIndexes.put( currentThreadId, valueIndexPerThread );
-        return new ArgumentValue( parameterName, values.get( valueIndexPerThread ) );
-    }
+    protected ArgumentValue generateValue(
+                                           int valueIndex,
+                                           Long currentThreadId,
+                                           Boolean isStaticValue,
+                                           List<ArgumentValue> alreadyResolvedValues ) {
 
-    @Override
-    protected ArgumentValue generateNewValuePerThreadStatic(
-                                                             long currentThreadId,
-                                                             List<ArgumentValue> alreadyResolvedValues ) {
-
-        Integer valueIndexPerThread = perThreadIndexes.get( currentThreadId );
-        if( valueIndexPerThread != null ) {
-            return new ArgumentValue( parameterName, values.get( valueIndexPerThread ) );
-        }
-        if( currentIndex >= valuesSize ) {
-            currentIndex = 0;
-        }
-        valueIndexPerThread = currentIndex++;
-        if( valueIndexPerThread >= valuesSize ) {
-            valueIndexPerThread = 0;
-        }
-        perThreadIndexes.put( currentThreadId, valueIndexPerThread );
-        return new ArgumentValue( parameterName, values.get( valueIndexPerThread ) );
+        return new ArgumentValue( parameterName, values.get( valueIndex ) );
     }
-
 }
@@ -0,0 +1,252 @@
+/*
+ * Copyright 2017 Axway Software
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.axway.ats.agent.core.threading.data;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+
+import org.apache.log4j.Logger;
+
+import com.axway.ats.core.utils.IoUtils;
+
+/**
+ * A read-only text file with one record per line, which is memory-mapped together with an index
+ * of the record offsets. This way any record can be read by its number, without keeping the
+ * records in the heap.
+ *
+ * The index file is placed next to the data file, with an additional ".idx" extension. It is created
+ * when missing or older than the data file. If the data file folder is not writable, the index is created
+ * in the temporary folder.
+ *
+ * The index contains the offsets of the records as 8 byte numbers, followed by the offset after the last
+ * record and its line separator. The records are read concurrently without locking.
+ */
+class MappedDataFile {
+
+    private static final Logger  log                  = Logger.getLogger( MappedDataFile.class );
+
+    static final String          INDEX_FILE_EXTENSION = ".idx";
+
+    private static final Charset UTF8                 = Charset.forName( "UTF-8" );
+
+    // files bigger than this are mapped in a number of segments
+    private static final int     SEGMENT_SIZE         = 1 << 30;
+
+    private static final int     OFFSET_SIZE          = 8;
+
+    private final File           dataFile;
+    private final ByteBuffer[]   dataSegments;
+    private final ByteBuffer[]   indexSegments;
+    private final long           recordsCount;
+
+    private MappedDataFile( File dataFile, ByteBuffer[] dataSegments, ByteBuffer[] indexSegments,
+                            long recordsCount ) {
+
+        this.dataFile = dataFile;
+        this.dataSegments = dataSegments;
+        this.indexSegments = indexSegments;
+        this.recordsCount = recordsCount;
+    }
+
+    /**
+     * Map a data file and its index. The index is created if needed.
+     *
+     * @param dataFile the data file
+     * @return the mapped file
+     * @throws IOException if the data file cannot be read or the index cannot be created
+     */
+    static MappedDataFile open( File dataFile ) throws IOException {
+
+        if( !dataFile.isFile() ) {
+            throw new IOException( "Data file '" + dataFile.getAbsolutePath() + "' does not exist" );
+        }
+
+        File indexFile = new File( dataFile.getPath() + INDEX_FILE_EXTENSION );
+        if( !isIndexValid( dataFile, indexFile ) ) {
+            indexFile = createIndex( dataFile, indexFile );
+        }
+
+        ByteBuffer[] dataSegments = map( dataFile );
+        ByteBuffer[] indexSegments = map( indexFile );
+        long recordsCount = indexFile.length() / OFFSET_SIZE - 1;
+
+        return new MappedDataFile( dataFile, dataSegments, indexSegments, recordsCount );
+    }
+
+    /**
+     * @return the number of records
+     */
+    long getRecordsCount() {
+
+        return recordsCount;
+    }
+
+    /**
+     * Read a record
+     *
+     * @param recordIndex the record index, starting from 0
+     * @return the record without its line separator
+     */
+    String getRecord( long recordIndex ) {
+
+        if( recordIndex < 0 || recordIndex >= recordsCount ) {
+            throw new IndexOutOfBoundsException( "Record " + recordIndex + " is requested, but '"
+                                                 + dataFile.getAbsolutePath() + "' has " + recordsCount
+                                                 + " records" );
+        }
+
+        long recordStart = getOffset( recordIndex );
+        // skip the line separator
+        int recordLength = ( int ) ( getOffset( recordIndex + 1 ) - recordStart - 1 );
+
+        byte[] bytes = new byte[recordLength];
+        int copiedBytes = 0;
+        while( copiedBytes < recordLength ) {
+            long position = recordStart + copiedBytes;
+            // absolute reads are thread-safe, but bulk reads move the buffer position, so use a duplicate
+            ByteBuffer segment = dataSegments[( int ) ( position / SEGMENT_SIZE )].duplicate();
+            segment.position( ( int ) ( position % SEGMENT_SIZE ) );
+
+            int length = Math.min( recordLength - copiedBytes, segment.remaining() );
+            segment.get( bytes, copiedBytes, length );
+            copiedBytes += length;
+        }
+
+        if( recordLength > 0 && bytes[recordLength - 1] == '\r' ) {
+            recordLength--;
+        }
+        return new String( bytes, 0, recordLength, UTF8 );
+    }
+
+    private long getOffset( long offsetIndex ) {
+
+        long position = offsetIndex * OFFSET_SIZE;
+        // the segment size is a multiple of the offset size, so an offset is never split between segments
+        return indexSegments[( int ) ( position / SEGMENT_SIZE )].getLong( ( int ) ( position % SEGMENT_SIZE ) );
+    }
+
+    private static boolean isIndexValid( File dataFile, File indexFile ) throws IOException {
+
+        long indexLength = indexFile.length();
+        if( !indexFile.isFile() || indexFile.lastModified() < dataFile.lastModified()
+            || indexLength < OFFSET_SIZE || indexLength % OFFSET_SIZE != 0 ) {
+            return false;
+        }
+
+        // the last offset must match the data file length
+        long lastOffset;
+        RandomAccessFile index = new RandomAccessFile( indexFile, "r" );
+        try {
+            index.seek( indexLength - OFFSET_SIZE );
+            lastOffset = index.readLong();
+        } finally {
+            IoUtils.closeStream( index );
+        }
+        long dataLength = dataFile.length();
+        return lastOffset == dataLength || ( dataLength > 0 && lastOffset == dataLength + 1 );
+    }
+
+    private static File createIndex( File dataFile, File indexFile ) throws IOException {
+
+        File tempIndexFile;
+        try {
+            tempIndexFile = File.createTempFile( indexFile.getName(), ".tmp", indexFile.getParentFile() );
+        } catch( IOException e ) {
+            log.warn( "Unable to create the index of '" + dataFile.getAbsolutePath()
+                      + "' in its folder, it will be created in the temporary folder" );
+            tempIndexFile = File.createTempFile( indexFile.getName(), ".tmp" );
+            tempIndexFile.deleteOnExit();
+            indexFile = tempIndexFile;
+        }
+
+        long startTime = System.currentTimeMillis();
+        long recordsCount = 0;
+        InputStream data = new BufferedInputStream( new FileInputStream( dataFile ) );
+        DataOutputStream index = new DataOutputStream( new BufferedOutputStream( new FileOutputStream( tempIndexFile ),
+                                                                                 64 * 1024 ) );
+        try {
+            byte[] buffer = new byte[64 * 1024];
+            long position = 0;
+            boolean isLineEnd = true;
+            index.writeLong( 0 );
+            int readBytes;
+            while( ( readBytes = data.read( buffer ) ) != -1 ) {
+                for( int i = 0; i < readBytes; i++ ) {
+                    if( buffer[i] == '\n' ) {
+                        index.writeLong( position + i + 1 );
+                        recordsCount++;
+                    }
+                }
+                position += readBytes;
+                isLineEnd = buffer[readBytes - 1] == '\n';
+            }
+            if( !isLineEnd ) {
+                // the last record has no line separator
+                index.writeLong( position + 1 );
+                recordsCount++;
+            }
+        } finally {
+            IoUtils.closeStream( data );
+            IoUtils.closeStream( index );
+        }
+
+        if( tempIndexFile != indexFile ) {
+            // other agent queues may be using the same data file, so the index is replaced at once
+            if( !tempIndexFile.renameTo( indexFile ) && ! ( indexFile.delete() && tempIndexFile.renameTo( indexFile ) ) ) {
+                log.warn( "Unable to save the index of '" + dataFile.getAbsolutePath() + "' as '"
+                          + indexFile.getAbsolutePath() + "', a temporary index will be used" );
+                tempIndexFile.deleteOnExit();
+                indexFile = tempIndexFile;
+            }
+        }
+
+        log.info( "Indexed " + recordsCount + " records of '" + dataFile.getAbsolutePath() + "' in "
+                  + ( System.currentTimeMillis() - startTime ) + " ms" );
+        return indexFile;
+    }
+
+    private static ByteBuffer[] map( File file ) throws IOException {
+
+        RandomAccessFile randomAccessFile = new RandomAccessFile( file, "r" );
+        try {
+            FileChannel channel = randomAccessFile.getChannel();
+            long length = channel.size();
+
+            ByteBuffer[] segments = new ByteBuffer[( int ) ( ( length + SEGMENT_SIZE - 1 ) / SEGMENT_SIZE )];
+            for( int i = 0; i < segments.length; i++ ) {
+                long segmentStart = ( long ) i * SEGMENT_SIZE;
+                MappedByteBuffer segment = channel.map( FileChannel.MapMode.READ_ONLY, segmentStart,
+                                                        Math.min( SEGMENT_SIZE, length - segmentStart ) );
+                segments[i] = segment;
+            }
+            // the mapping stays valid after the file is closed
+            return segments;
+        } finally {
+            IoUtils.closeStream( randomAccessFile );
+        }
+    }
+}
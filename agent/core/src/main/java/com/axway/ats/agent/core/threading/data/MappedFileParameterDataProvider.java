@@ -0,0 +1,108 @@
+/*
+ * Copyright 2017 Axway Software
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.axway.ats.agent.core.threading.data;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+import com.axway.ats.agent.core.action.ArgumentValue;
+import com.axway.ats.agent.core.threading.data.config.ParameterProviderLevel;
+import com.axway.ats.agent.core.threading.exceptions.ParameterDataProviderInitalizationException;
+
+/**
+ * This parameter provider implementation will pick the next line from a memory-mapped file.
+ * When the file is split between a number of agents, only the lines of the current agent's
+ * range are used.
+ */
+public class MappedFileParameterDataProvider extends IndexedParameterDataProvider {
+
+    private final String   dataFileName;
+    private final int      partitionIndex;
+    private final int      partitionsCount;
+
+    private MappedDataFile dataFile;
+    private long           firstRecordIndex;
+    private int            valuesCount;
+
+    MappedFileParameterDataProvider( String parameterName,
+                                     String dataFileName,
+                                     int partitionIndex,
+                                     int partitionsCount,
+                                     ParameterProviderLevel parameterProviderLevel ) {
+
+        super( parameterName, parameterProviderLevel );
+
+        this.dataFileName = dataFileName;
+        this.partitionIndex = partitionIndex;
+        this.partitionsCount = partitionsCount;
+    }
+
+    @Override
+    protected void doInitialize() throws ParameterDataProviderInitalizationException {
+
+        if( dataFile != null ) {
+            // already mapped
+            return;
+        }
+
+        MappedDataFile mappedDataFile;
+        try {
+            mappedDataFile = MappedDataFile.open( new File( dataFileName ) );
+        } catch( IOException e ) {
+            throw new ParameterDataProviderInitalizationException( "Unable to map data file '" + dataFileName
+                                                                   + "' for parameter '" + parameterName
+                                                                   + "': " + e.getMessage() );
+        }
+
+        // split the records evenly between the partitions
+        long recordsCount = mappedDataFile.getRecordsCount();
+        long partitionStart = recordsCount * partitionIndex / partitionsCount;
+        long partitionEnd = recordsCount * ( partitionIndex + 1 ) / partitionsCount;
+        if( partitionEnd == partitionStart ) {
+            throw new ParameterDataProviderInitalizationException( "Could not distribute only " + recordsCount
+                                                                   + " values of parameter '" + parameterName
+                                                                   + "' to " + partitionsCount
+                                                                   + " agents! Decrease number of loaders or increase the possible values." );
+        }
+        if( partitionEnd - partitionStart > Integer.MAX_VALUE ) {
+            throw new ParameterDataProviderInitalizationException( "Data file '" + dataFileName + "' has "
+                                                                   + recordsCount
+                                                                   + " records, which is more than supported for parameter '"
+                                                                   + parameterName + "'" );
+        }
+
+        this.firstRecordIndex = partitionStart;
+        this.valuesCount = ( int ) ( partitionEnd - partitionStart );
+        this.dataFile = mappedDataFile;
+    }
+
+    @Override
+    protected int getValuesCount() {
+
+        return valuesCount;
+    }
+
+    @Override
+    protected ArgumentValue generateValue(
+                                           int valueIndex,
+                                           Long currentThreadId,
+                                           Boolean isStaticValue,
+                                           List<ArgumentValue> alreadyResolvedValues ) {
+
+        return new ArgumentValue( parameterName, dataFile.getRecord( firstRecordIndex + valueIndex ) );
+    }
+}
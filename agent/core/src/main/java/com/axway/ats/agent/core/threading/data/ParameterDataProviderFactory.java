@@ -21,6 +21,7 @@ import java.util.Map;
 import com.axway.ats.agent.core.threading.data.config.CustomParameterDataConfig;
 import com.axway.ats.agent.core.threading.data.config.FileNamesDataConfig;
 import com.axway.ats.agent.core.threading.data.config.ListDataConfig;
+import com.axway.ats.agent.core.threading.data.config.MappedFileDataConfig;
 import com.axway.ats.agent.core.threading.data.config.ParameterDataConfig;
 import com.axway.ats.agent.core.threading.data.config.ParameterProviderLevel;
 import com.axway.ats.agent.core.threading.data.config.RangeDataConfig;
@@ -80,6 +81,14 @@ public class ParameterDataProviderFactory {
                                                                    listDataConfig.getValues(),
                                                                    listDataConfig.getParameterProviderLevel() );
 
+        } else if( parameterConfigClass == MappedFileDataConfig.class ) {
+            MappedFileDataConfig mappedFileDataConfig = ( MappedFileDataConfig ) parameterConfig;
+            parameterDataProvider = new MappedFileParameterDataProvider( mappedFileDataConfig.getParameterName(),
+                                                                         mappedFileDataConfig.getDataFile(),
+                                                                         mappedFileDataConfig.getPartitionIndex(),
+                                                                         mappedFileDataConfig.getPartitionsCount(),
+                                                                         mappedFileDataConfig.getParameterProviderLevel() );
+
         } else if( parameterConfigClass == FileNamesDataConfig.class ) {
             FileNamesDataConfig fileNamesDataConfig = ( FileNamesDataConfig ) parameterConfig;
             parameterDataProvider = new FileNamesParameterDataProvider( fileNamesDataConfig.getParameterName(),
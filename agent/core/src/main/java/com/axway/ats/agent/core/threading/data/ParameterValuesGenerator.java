@@ -0,0 +1,108 @@
+/*
+ * Copyright 2017 Axway Software
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.axway.ats.agent.core.threading.data;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.axway.ats.agent.core.action.ArgumentValue;
+
+/**
+ * Generates the parameter values of the queue iterations. It is shared by all threads of a queue.
+ *
+ * All values of an iteration are generated as if at the same time, so other threads do not interfere.
+ * When all data providers are {@link IndexedParameterDataProvider}s, this is done without locking -
+ * each iteration takes an invocation index, and all providers pick their PER_INVOCATION values for this index.
+ * Otherwise, for example when there are custom data providers, the values are generated under a lock.
+ */
+public class ParameterValuesGenerator {
+
+    private final List<ParameterDataProvider> dataProviders;
+
+    // whether the values can be generated without locking
+    private final boolean                     isLockFree;
+
+    // the index of the next iteration
+    private final AtomicLong                  invocationCounter = new AtomicLong();
+
+    public ParameterValuesGenerator( List<ParameterDataProvider> dataProviders ) {
+
+        this.dataProviders = dataProviders;
+
+        boolean isLockFree = true;
+        for( ParameterDataProvider dataProvider : dataProviders ) {
+            if( ! ( dataProvider instanceof IndexedParameterDataProvider ) ) {
+                isLockFree = false;
+                break;
+            }
+        }
+        this.isLockFree = isLockFree;
+    }
+
+    /**
+     * @return the data providers
+     */
+    public List<ParameterDataProvider> getDataProviders() {
+
+        return dataProviders;
+    }
+
+    /**
+     * Generate the values of all data providers for the next iteration
+     *
+     * @return the values in the order of the data providers
+     */
+    public List<ArgumentValue> generateValues() {
+
+        List<ArgumentValue> argumentValues = new ArrayList<ArgumentValue>( dataProviders.size() );
+        if( dataProviders.size() == 0 ) {
+            return argumentValues;
+        }
+
+        if( isLockFree ) {
+            long invocationIndex = invocationCounter.getAndIncrement();
+            for( ParameterDataProvider dataProvider : dataProviders ) {
+                argumentValues.add( ( ( IndexedParameterDataProvider ) dataProvider ).getValue( invocationIndex,
+                                                                                                argumentValues ) );
+            }
+        } else {
+            synchronized( dataProviders ) {
+                for( ParameterDataProvider dataProvider : dataProviders ) {
+                    argumentValues.add( dataProvider.getValue( argumentValues ) );
+                }
+            }
+        }
+        return argumentValues;
+    }
+
+    /**
+     * Generate a value of a single data provider, outside of the queue iterations
+     *
+     * @param dataProvider one of the data providers
+     * @return the value
+     */
+    public ArgumentValue generateValue( ParameterDataProvider dataProvider ) {
+
+        if( isLockFree ) {
+            return dataProvider.getValue( new ArrayList<ArgumentValue>() );
+        } else {
+            synchronized( dataProviders ) {
+                return dataProvider.getValue( new ArrayList<ArgumentValue>() );
+            }
+        }
+    }
+}
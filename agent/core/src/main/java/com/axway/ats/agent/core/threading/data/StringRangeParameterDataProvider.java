@@ -16,19 +16,19 @@
 package com.axway.ats.agent.core.threading.data;
 
 import java.util.List;
+import java.util.regex.Pattern;
 
 import com.axway.ats.agent.core.action.ArgumentValue;
 import com.axway.ats.agent.core.threading.data.config.ParameterProviderLevel;
 import com.axway.ats.agent.core.threading.exceptions.ParameterDataProviderInitalizationException;
 
-public class StringRangeParameterDataProvider extends AbstractParameterDataProvider {
+public class StringRangeParameterDataProvider extends IndexedParameterDataProvider {
 
-    private static final String REPLACEMENT_REGEX = "\\{0\\}";
+    private static final Pattern REPLACEMENT_PATTERN = Pattern.compile( "\\{0\\}" );
 
-    private String              staticValue;
-    private int                 rangeStart;
-    private int                 rangeEnd;
-    private int                 currentValue;
+    private String               staticValue;
+    private int                  rangeStart;
+    private int                  rangeEnd;
 
     /**
      * Constructor - to be used only by the factory
@@ -49,7 +49,6 @@ public class StringRangeParameterDataProvider extends AbstractParameterDataProvi
         this.staticValue = staticValue;
         this.rangeStart = rangeStart;
         this.rangeEnd = rangeEnd;
-        this.currentValue = rangeStart;
     }
 
     /**
@@ -73,70 +72,29 @@ public class StringRangeParameterDataProvider extends AbstractParameterDataProvi
         this.staticValue = staticValue;
         this.rangeStart = rangeStart;
         this.rangeEnd = rangeEnd;
-        this.currentValue = rangeStart;
         this.dataProviderInstance = dataConfiguratorClass;
     }
 
     @Override
     protected void doInitialize() throws ParameterDataProviderInitalizationException {
 
-        this.currentValue = rangeStart;
     }
 
     @Override
-    protected ArgumentValue generateNewValuePerInvocation(
-                                              List<ArgumentValue> alreadyResolvedValues ) {
+    protected int getValuesCount() {
 
-        if( currentValue > rangeEnd ) {
-            currentValue = rangeStart;
-        }
-
-        return new ArgumentValue( parameterName,
-                                  staticValue.replaceAll( REPLACEMENT_REGEX,
-                                                          Integer.toString( currentValue++ ) ) );
+        return rangeEnd - rangeStart + 1;
     }
 
     @Override
-    protected ArgumentValue generateNewValuePerThread(
-                                                       long currentThreadId,
-                                                       List<ArgumentValue> alreadyResolvedValues ) {
-
-        Integer valueIndexPerThread = perThreadIndexes.get( currentThreadId );
-        if( valueIndexPerThread != null ) {
-            valueIndexPerThread++;
-        } else {
-            valueIndexPerThread = currentValue;
-        }
-        if( valueIndexPerThread > rangeEnd ) {
-            valueIndexPerThread = rangeStart;
-        }
-        perThreadIndexes.put( currentThreadId, valueIndexPerThread );
-        return new ArgumentValue( parameterName,
-                                  staticValue.replaceAll( REPLACEMENT_REGEX,
-                                                          Integer.toString( valueIndexPerThread ) ) );
-    }
+    protected ArgumentValue generateValue(
+                                           int valueIndex,
+                                           Long currentThreadId,
+                                           Boolean isStaticValue,
+                                           List<ArgumentValue> alreadyResolvedValues ) {
 
-    @Override
-    protected ArgumentValue generateNewValuePerThreadStatic(
-                                                             long currentThreadId,
-                                                             List<ArgumentValue> alreadyResolvedValues ) {
-
-        Integer valueIndexPerThread = perThreadIndexes.get( currentThreadId );
-        if( valueIndexPerThread != null ) {
-            return new ArgumentValue( parameterName,
-                                      staticValue.replaceAll( REPLACEMENT_REGEX,
-                                                              Integer.toString( valueIndexPerThread ) ) );
-        }
-        if( currentValue > rangeEnd ) {
-            currentValue = rangeStart;
-        }
-        valueIndexPerThread = currentValue++;
-        if( valueIndexPerThread > rangeEnd ) {
-            valueIndexPerThread = rangeStart;
-        }
-        perThreadIndexes.put( currentThreadId, valueIndexPerThread );
         return new ArgumentValue( parameterName,
-                                  staticValue.replaceAll( REPLACEMENT_REGEX,
-                                                          Integer.toString( valueIndexPerThread ) ) );
+                                  REPLACEMENT_PATTERN.matcher( staticValue )
+                                                     .replaceAll( Integer.toString( rangeStart + valueIndex ) ) );
     }
 }
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2017 Axway Software
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.axway.ats.agent.core.threading.data.config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.axway.ats.agent.core.threading.exceptions.ParameterDataProviderInitalizationException;
+
+/**
+ * A class for generating input data from the lines of a text file, for example when there
+ * are too many values to be passed with a {@link ListDataConfig}.
+ *
+ * The file must be present on each agent host at the provided path. The agents memory-map the file
+ * together with an index of the line offsets, so the values are not loaded in the heap and
+ * are not sent to the agents. When the queue runs on many agents, each of them uses a separate
+ * range of the lines.
+ */
+@SuppressWarnings("serial")
+public class MappedFileDataConfig extends AbstractParameterDataConfig {
+
+    private String dataFile;
+
+    // the part of the file lines used by the current agent
+    private int    partitionIndex;
+    private int    partitionsCount;
+
+    /**
+     * Constructor - values are generated per thread static - each thread will receive
+     * a particular line from the file and will use it on all its iterations
+     *
+     * @param parameterName the name of the parameter to generate data for
+     * @param dataFile the path of the file on the agent hosts, each line is a value
+     */
+    public MappedFileDataConfig( String parameterName, String dataFile ) {
+
+        this( parameterName, dataFile, ParameterProviderLevel.PER_THREAD_STATIC );
+    }
+
+    /**
+     * Constructor
+     *
+     * @param parameterName the name of the parameter to generate data for
+     * @param dataFile the path of the file on the agent hosts, each line is a value
+     * @param parameterProviderLevel the level at which new values will be generated
+     */
+    public MappedFileDataConfig( String parameterName, String dataFile,
+                                 ParameterProviderLevel parameterProviderLevel ) {
+
+        this( parameterName, dataFile, parameterProviderLevel, 0, 1 );
+    }
+
+    private MappedFileDataConfig( String parameterName, String dataFile,
+                                  ParameterProviderLevel parameterProviderLevel, int partitionIndex,
+                                  int partitionsCount ) {
+
+        super( parameterName, parameterProviderLevel );
+
+        this.dataFile = dataFile;
+        this.partitionIndex = partitionIndex;
+        this.partitionsCount = partitionsCount;
+    }
+
+    /**
+     * @return the path of the file on the agent hosts
+     */
+    public String getDataFile() {
+
+        return dataFile;
+    }
+
+    /**
+     * @return the index of the lines range used by this agent
+     */
+    public int getPartitionIndex() {
+
+        return partitionIndex;
+    }
+
+    /**
+     * @return the number of ranges the file lines are split into
+     */
+    public int getPartitionsCount() {
+
+        return partitionsCount;
+    }
+
+    @Override
+    List<ParameterDataConfig> distribute( int agents ) {
+
+        // the number of lines is not known here, so just tell each agent which part of the lines to use
+        List<ParameterDataConfig> distributedParameterProviders = new ArrayList<ParameterDataConfig>();
+        for( int i = 0; i < agents; i++ ) {
+            distributedParameterProviders.add( new MappedFileDataConfig( this.parameterName,
+                                                                         this.dataFile,
+                                                                         this.parameterProviderLevel,
+                                                                         i,
+                                                                         agents ) );
+        }
+        return distributedParameterProviders;
+    }
+
+    @Override
+    public void verifyDataConfig() throws ParameterDataProviderInitalizationException {
+
+        // the file is not checked here, as it is needed on the agent hosts only
+        if( dataFile == null || dataFile.trim().length() == 0 ) {
+            throw new ParameterDataProviderInitalizationException( "No data file is provided for the data configurator '"
+                                                                   + this.parameterName + "'" );
+        }
+    }
+}
@@ -20,6 +20,20 @@ package com.axway.ats.agent.core.threading.listeners;
  */
 public interface QueueLoaderListener {
 
+    /**
+     * Called when a loader starts or resumes its execution
+     *
+     * @param queueName name of the loader queue
+     */
+    public void onStart( String queueName );
+
+    /**
+     * Called when a loader pauses its execution
+     *
+     * @param queueName name of the loader queue
+     */
+    public void onPause( String queueName );
+
     /**
      * Called when a loader its finishes execution
      *
@@ -125,6 +125,9 @@ public final class AllAtOncePattern extends ThreadingPattern implements FixedInv
         if( queuePassRateInPercents > 0 ) {
             description += ", pass if " + queuePassRateInPercents + "% of the iterations pass";
         }
+        if( useVirtualThreads ) {
+            description += ", running on virtual threads";
+        }
         return description;
     }
 
@@ -138,6 +141,7 @@ public final class AllAtOncePattern extends ThreadingPattern implements FixedInv
         pattern.timeFrame = this.timeFrame;
         pattern.executionsPerTimeFrame = calculatedExecutionsPerTimeFrame;
         pattern.iterationTimeout = this.iterationTimeout;
+        pattern.useVirtualThreads = this.useVirtualThreads;
         return pattern;
     }
 
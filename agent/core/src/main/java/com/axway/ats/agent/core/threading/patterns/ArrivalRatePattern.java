@@ -0,0 +1,167 @@
+/*
+ * Copyright 2017 Axway Software
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.axway.ats.agent.core.threading.patterns;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.axway.ats.agent.core.model.EvenLoadDistributingUtils;
+import com.axway.ats.agent.core.threading.patterns.model.ArrivalRateExecutionPattern;
+
+/**
+ * The base for the open model patterns. They start the queue iterations at the requested rate
+ * no matter how long the previous iterations take, so the load does not drop when the tested
+ * application slows down.
+ * 
+ * The thread count is the max number of threads used to run the iterations. The threads are
+ * started only when needed. If an iteration has to start while all threads are busy, it is
+ * not started and it is counted as a missed arrival.
+ */
+public abstract class ArrivalRatePattern extends ThreadingPattern implements ArrivalRateExecutionPattern {
+
+    private static final long serialVersionUID = 1L;
+
+    protected double[]        arrivalRates     = new double[0];
+    protected int[]           stepDurations    = new int[0];
+
+    ArrivalRatePattern( int maxThreadCount, boolean blockUntilCompletion ) {
+
+        super( maxThreadCount, 0, -1, -1, blockUntilCompletion );
+    }
+
+    /**
+     * Add a step at the end of the execution
+     * 
+     * @param arrivalsPerSecond the number of iterations to start per second, 0 means no iterations
+     * @param duration the step duration in seconds
+     */
+    protected void addArrivalRateStep( double arrivalsPerSecond, int duration ) {
+
+        if( arrivalsPerSecond < 0 || Double.isNaN( arrivalsPerSecond ) || Double.isInfinite( arrivalsPerSecond ) ) {
+            throw new IllegalArgumentException( arrivalsPerSecond
+                                                + " is not a valid number of iterations per second" );
+        }
+        if( duration <= 0 ) {
+            throw new IllegalArgumentException( duration + " seconds is not a valid step duration" );
+        }
+
+        arrivalRates = Arrays.copyOf( arrivalRates, arrivalRates.length + 1 );
+        arrivalRates[arrivalRates.length - 1] = arrivalsPerSecond;
+        stepDurations = Arrays.copyOf( stepDurations, stepDurations.length + 1 );
+        stepDurations[stepDurations.length - 1] = duration;
+    }
+
+    @Override
+    public double[] getArrivalRates() {
+
+        return arrivalRates.clone();
+    }
+
+    @Override
+    public int[] getStepDurations() {
+
+        return stepDurations.clone();
+    }
+
+    /**
+     * @return the duration of all steps in seconds
+     */
+    public int getDuration() {
+
+        int duration = 0;
+        for( int stepDuration : stepDurations ) {
+            duration += stepDuration;
+        }
+        return duration;
+    }
+
+    /**
+     * The execution speed is given by the arrival rate, so it can not be set
+     */
+    @Override
+    public void setExecutionSpeed( long timeFrame, int executionsPerTimeFrame ) {
+
+        throw new UnsupportedOperationException( "The execution speed of " + getClass().getSimpleName()
+                                                 + " is given by its arrival rate" );
+    }
+
+    /**
+     * @param calculatedThreadCount the max thread count of the new pattern
+     * @return a new pattern of the same kind with the provided max thread count. The steps will be
+     * replaced by the caller
+     */
+    protected abstract ArrivalRatePattern newInstance( int calculatedThreadCount );
+
+    @Override
+    public List<ThreadingPattern> distribute( int numHosts ) {
+
+        List<ThreadingPattern> distributedPatterns = new ArrayList<ThreadingPattern>();
+        if( threadCount < numHosts ) {
+            log.warn( "We cannot distribute just " + threadCount + " threads on " + numHosts
+                      + " hosts. So all work will be done by one host" );
+            distributedPatterns.add( this );
+        } else {
+
+            // for each host - distribute the total number of threads
+            int[] threadCountValues = new EvenLoadDistributingUtils().getEvenLoad( threadCount, numHosts );
+            // each host starts its part of the iterations in each step
+            double[] hostArrivalRates = new double[arrivalRates.length];
+            for( int i = 0; i < arrivalRates.length; i++ ) {
+                hostArrivalRates[i] = arrivalRates[i] / numHosts;
+            }
+
+            for( int i = 0; i < numHosts; i++ ) {
+                ArrivalRatePattern newThreadingPattern = newInstance( threadCountValues[i] );
+                newThreadingPattern.arrivalRates = hostArrivalRates.clone();
+                newThreadingPattern.stepDurations = stepDurations.clone();
+                newThreadingPattern.iterationTimeout = this.iterationTimeout;
+                newThreadingPattern.useVirtualThreads = this.useVirtualThreads;
+                distributedPatterns.add( newThreadingPattern );
+            }
+        }
+
+        return distributedPatterns;
+    }
+
+    /**
+     * @return the description of the settings common for all arrival rate patterns
+     */
+    protected String getCommonDescription() {
+
+        String description = ", up to " + NUMBER_THREADS_TOKEN + " threads";
+        if( iterationTimeout > 0 ) {
+            description += ", " + iterationTimeout + " secs iteration timeout";
+        }
+        if( queuePassRateInPercents > 0 ) {
+            description += ", pass if " + queuePassRateInPercents + "% of the iterations pass";
+        }
+        if( useVirtualThreads ) {
+            description += ", running on virtual threads";
+        }
+        return description;
+    }
+
+    /**
+     * @return the arrival rate without a fraction part when it is a whole number
+     */
+    protected static String formatArrivalRate( double arrivalsPerSecond ) {
+
+        return arrivalsPerSecond == Math.rint( arrivalsPerSecond )
+                                                                   ? String.valueOf( ( long ) arrivalsPerSecond )
+                                                                   : String.valueOf( arrivalsPerSecond );
+    }
+}
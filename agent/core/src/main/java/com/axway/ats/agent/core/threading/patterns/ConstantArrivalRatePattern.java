@@ -0,0 +1,69 @@
+/*
+ * Copyright 2017 Axway Software
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.axway.ats.agent.core.threading.patterns;
+
+import com.axway.ats.common.PublicAtsApi;
+
+@PublicAtsApi
+public final class ConstantArrivalRatePattern extends ArrivalRatePattern {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Pattern used to start the queue iterations at a constant rate for the specified duration.
+     * Each iteration runs in one of the available threads, if all of them are busy the iteration
+     * is counted as a missed arrival.
+     * 
+     * @param maxThreadCount the max number of threads running the iterations
+     * @param blockUntilCompletion block the execution on the client until all iterations finish
+     * @param arrivalsPerSecond the number of iterations to start per second
+     * @param duration the duration time in seconds
+     */
+    @PublicAtsApi
+    public ConstantArrivalRatePattern( int maxThreadCount, boolean blockUntilCompletion,
+                                       double arrivalsPerSecond, int duration ) {
+
+        super( maxThreadCount, blockUntilCompletion );
+
+        if( arrivalsPerSecond <= 0 ) {
+            throw new IllegalArgumentException( arrivalsPerSecond
+                                                + " is not a valid number of iterations per second" );
+        }
+        addArrivalRateStep( arrivalsPerSecond, duration );
+    }
+
+    /**
+     * @return the number of iterations started per second
+     */
+    public double getArrivalRate() {
+
+        return arrivalRates[0];
+    }
+
+    @Override
+    public String getPatternDescription() {
+
+        return "Constant arrival rate - " + formatArrivalRate( arrivalRates[0] ) + " iterations per second in "
+               + stepDurations[0] + " seconds" + getCommonDescription();
+    }
+
+    @Override
+    protected ArrivalRatePattern newInstance( int calculatedThreadCount ) {
+
+        return new ConstantArrivalRatePattern( calculatedThreadCount, this.blockUntilCompletion,
+                                               this.arrivalRates[0], this.stepDurations[0] );
+    }
+}
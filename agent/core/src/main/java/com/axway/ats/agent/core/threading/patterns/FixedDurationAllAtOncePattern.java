@@ -129,6 +129,9 @@ public final class FixedDurationAllAtOncePattern extends ThreadingPattern
         if( queuePassRateInPercents > 0 ) {
             description += ", pass if " + queuePassRateInPercents + "% of the iterations pass";
         }
+        if( useVirtualThreads ) {
+            description += ", running on virtual threads";
+        }
         return description;
     }
 
@@ -144,6 +147,7 @@ public final class FixedDurationAllAtOncePattern extends ThreadingPattern
         pattern.timeFrame = this.timeFrame;
         pattern.executionsPerTimeFrame = calculatedExecutionsPerTimeFrame;
         pattern.iterationTimeout = this.iterationTimeout;
+        pattern.useVirtualThreads = this.useVirtualThreads;
         return pattern;
     }
 
@@ -156,6 +156,9 @@ public final class FixedDurationRampUpPattern extends ThreadingPattern
         if( queuePassRateInPercents > 0 ) {
             description += ", pass if " + queuePassRateInPercents + "% of the iterations pass";
         }
+        if( useVirtualThreads ) {
+            description += ", running on virtual threads";
+        }
         return description;
     }
 
@@ -173,6 +176,7 @@ public final class FixedDurationRampUpPattern extends ThreadingPattern
         pattern.timeFrame = this.timeFrame;
         pattern.executionsPerTimeFrame = this.executionsPerTimeFrame;
         pattern.iterationTimeout = this.iterationTimeout;
+        pattern.useVirtualThreads = this.useVirtualThreads;
         return pattern;
     }
 
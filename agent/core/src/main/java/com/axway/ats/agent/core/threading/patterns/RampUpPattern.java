@@ -156,6 +156,9 @@ public final class RampUpPattern extends ThreadingPattern
         if( queuePassRateInPercents > 0 ) {
             description += ", pass if " + queuePassRateInPercents + "% of the iterations pass";
         }
+        if( useVirtualThreads ) {
+            description += ", running on virtual threads";
+        }
         return description;
     }
 
@@ -169,6 +172,7 @@ public final class RampUpPattern extends ThreadingPattern
         pattern.timeFrame = this.timeFrame;
         pattern.executionsPerTimeFrame = this.executionsPerTimeFrame;
         pattern.iterationTimeout = this.iterationTimeout;
+        pattern.useVirtualThreads = this.useVirtualThreads;
         return pattern;
     }
 
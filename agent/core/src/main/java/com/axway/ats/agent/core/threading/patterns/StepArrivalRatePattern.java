@@ -0,0 +1,80 @@
+/*
+ * Copyright 2017 Axway Software
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.axway.ats.agent.core.threading.patterns;
+
+import com.axway.ats.common.PublicAtsApi;
+
+/**
+ * Pattern used to start the queue iterations at a rate which changes in steps.</br></br>
+ * 
+ * Each step has its own arrival rate and duration. For example a spike is simulated by
+ * a short step with a high rate between two longer steps with a low rate:
+ * <pre>
+ * StepArrivalRatePattern pattern = new StepArrivalRatePattern( 200, true );
+ * pattern.addStep( 10, 60 );
+ * pattern.addStep( 500, 5 );
+ * pattern.addStep( 10, 60 );
+ * </pre>
+ */
+@PublicAtsApi
+public final class StepArrivalRatePattern extends ArrivalRatePattern {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The steps are added by {@link #addStep(double, int)}
+     * 
+     * @param maxThreadCount the max number of threads running the iterations
+     * @param blockUntilCompletion block the execution on the client until all iterations finish
+     */
+    @PublicAtsApi
+    public StepArrivalRatePattern( int maxThreadCount, boolean blockUntilCompletion ) {
+
+        super( maxThreadCount, blockUntilCompletion );
+    }
+
+    /**
+     * Add a step at the end of the execution
+     * 
+     * @param arrivalsPerSecond the number of iterations to start per second, 0 makes a pause
+     * @param duration the step duration in seconds
+     */
+    @PublicAtsApi
+    public void addStep( double arrivalsPerSecond, int duration ) {
+
+        addArrivalRateStep( arrivalsPerSecond, duration );
+    }
+
+    @Override
+    public String getPatternDescription() {
+
+        String description = "Step arrival rate - ";
+        for( int i = 0; i < arrivalRates.length; i++ ) {
+            if( i > 0 ) {
+                description += ", then ";
+            }
+            description += formatArrivalRate( arrivalRates[i] ) + " iterations per second in "
+                           + stepDurations[i] + " seconds";
+        }
+        return description + getCommonDescription();
+    }
+
+    @Override
+    protected ArrivalRatePattern newInstance( int calculatedThreadCount ) {
+
+        return new StepArrivalRatePattern( calculatedThreadCount, this.blockUntilCompletion );
+    }
+}
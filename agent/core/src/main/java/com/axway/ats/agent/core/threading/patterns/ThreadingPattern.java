@@ -35,6 +35,8 @@ public abstract class ThreadingPattern implements StartPattern, Serializable {
 
     protected boolean             useSynchronizedIterations;
 
+    protected boolean             useVirtualThreads;
+
     protected long                intervalBetweenIterations    = 0;
     protected long                minIntervalBetweenIterations = -1;
     protected long                maxIntervalBetweenIterations = -1;
@@ -248,4 +250,25 @@ public abstract class ThreadingPattern implements StartPattern, Serializable {
 
         return useSynchronizedIterations;
     }
+
+    @Override
+    public boolean isUseVirtualThreads() {
+
+        return useVirtualThreads;
+    }
+
+    /**
+     * Run each simulated user in a virtual thread instead of an operating system thread.</br></br>
+     * 
+     * This allows running many more users per agent when the actions spend most of their time
+     * waiting on network I/O. It needs Java 21 or newer on the agent side, otherwise
+     * operating system threads are used.
+     * 
+     * @param useVirtualThreads whether to use virtual threads
+     */
+    @PublicAtsApi
+    public void setUseVirtualThreads( boolean useVirtualThreads ) {
+
+        this.useVirtualThreads = useVirtualThreads;
+    }
 }
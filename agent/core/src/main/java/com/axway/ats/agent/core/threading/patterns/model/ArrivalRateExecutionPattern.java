@@ -0,0 +1,35 @@
+/*
+ * Copyright 2017 Axway Software
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.axway.ats.agent.core.threading.patterns.model;
+
+/**
+ * An open model execution pattern - the iterations are started at a given rate,
+ * no matter how long the previous iterations take.
+ * 
+ * The execution is split into steps, each one having its own arrival rate and duration.
+ */
+public interface ArrivalRateExecutionPattern extends ExecutionPattern {
+
+    /**
+     * @return the number of iterations to start per second, one value for each step
+     */
+    public double[] getArrivalRates();
+
+    /**
+     * @return the duration in seconds, one value for each step
+     */
+    public int[] getStepDurations();
+}
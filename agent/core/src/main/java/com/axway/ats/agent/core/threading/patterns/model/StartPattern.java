@@ -25,4 +25,6 @@ public interface StartPattern {
                                          boolean blockUntilCompletion );
     
     public int getIterationTimeout();
+
+    public boolean isUseVirtualThreads();
 }
\ No newline at end of file
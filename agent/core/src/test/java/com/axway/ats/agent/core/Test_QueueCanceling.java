@@ -16,6 +16,7 @@
 package com.axway.ats.agent.core;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -127,6 +128,35 @@ public class Test_QueueCanceling extends BaseTest {
         Thread.sleep( 500 );
     }
 
+    /**
+     * The queue is started at the requested time, both threads are canceled while running its 1st iteration
+     */
+    @Test
+    public void allAtOnce_StartedAtTimestamp() throws Exception {
+
+        expectedNumExecutions = 2;
+
+        actionRequests.add( new ActionRequest( TEST_COMPONENT_NAME, ACTION_SLEEP, new Object[]{ "1000" } ) );
+
+        AllAtOncePattern pattern = new AllAtOncePattern( 2, false, 2, 0 );
+
+        QueueExecutionStatistics.getInstance().initActionExecutionResults( QUEUE_NAME );
+        actionHandler.scheduleActions( HOST,
+                                       QUEUE_NAME,
+                                       -1,
+                                       actionRequests,
+                                       pattern,
+                                       new LoaderDataConfig(),
+                                       false );
+
+        long startTimestamp = System.currentTimeMillis() + 300;
+        long actualStartTimestamp = actionHandler.startQueue( QUEUE_NAME, startTimestamp );
+        assertTrue( "the queue is started before the requested time", actualStartTimestamp >= startTimestamp );
+        assertTrue( System.currentTimeMillis() >= startTimestamp );
+
+        Thread.sleep( 500 );
+    }
+
     /**
      * Both threads are canceled while waiting between 1st and 2nd iterations
      */
@@ -0,0 +1,144 @@
+/*
+ * Copyright 2017 Axway Software
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.axway.ats.agent.core.action;
+
+import java.lang.annotation.Annotation;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+
+import com.axway.ats.agent.core.model.Parameter;
+
+/**
+ * Standalone benchmark for the action invocation overhead.
+ *
+ * It invokes an action, which does nothing, in a number of ways:
+ * <ul>
+ * <li>by reflection and through a method handle, which takes the instance and the arguments array</li>
+ * <li>through the {@link ActionMethod}, as the load queues do, and the way it was done before the
+ * parameter annotations were cached - they were looked up on each invocation</li>
+ * </ul>
+ *
+ * Usage: ActionInvocationBenchmark [number invocations]
+ *
+ * The default is 20000000 invocations. It is not a unit test, so it is not run during the build.
+ */
+public class ActionInvocationBenchmark {
+
+    private static final int ROUNDS = 5;
+
+    private static long      blackhole;
+
+    public static void main( String[] args ) throws Throwable {
+
+        final int numberInvocations = args.length > 0
+                                                      ? Integer.parseInt( args[0] )
+                                                      : 20000000;
+
+        // the action execution is logged at info level, that would be measured instead
+        Logger.getRootLogger().setLevel( Level.WARN );
+
+        final NoOpActions instance = new NoOpActions();
+        final Method method = NoOpActions.class.getMethod( "doNothing", String.class, int.class );
+        final MethodHandle methodHandle = MethodHandles.publicLookup()
+                                                     .unreflect( method )
+                                                     .asType( MethodType.genericMethodType( 3 ) )
+                                                     .asSpreader( Object[].class, 2 );
+        final ActionMethod actionMethod = new ActionMethod( "benchmark", "NoOp do nothing", method,
+                                                            NoOpActions.class );
+        final Object[] arguments = new Object[]{ "value", 5 };
+
+        System.out.println( "Invoking an action " + numberInvocations + " times on Java "
+                            + System.getProperty( "java.version" ) );
+        for( int round = 1; round <= ROUNDS; round++ ) {
+            System.out.println( "Round " + round + ( round < ROUNDS
+                                                                    ? " (warm-up)"
+                                                                    : "" ) );
+
+            measure( "Method.invoke", numberInvocations, new Invocation() {
+
+                @Override
+                public Object invoke() throws Exception {
+
+                    return method.invoke( instance, arguments );
+                }
+            } );
+            measure( "MethodHandle", numberInvocations, new Invocation() {
+
+                @Override
+                public Object invoke() throws Throwable {
+
+                    return ( Object ) methodHandle.invokeExact( ( Object ) instance, arguments );
+                }
+            } );
+            measure( "previous ActionMethod", numberInvocations, new Invocation() {
+
+                @Override
+                public Object invoke() throws Exception {
+
+                    // what was done on each invocation, besides the validation itself
+                    for( Annotation[] paramAnnotations : method.getParameterAnnotations() ) {
+                        for( Annotation paramAnnotation : paramAnnotations ) {
+                            if( paramAnnotation instanceof Parameter ) {
+                                blackhole += ( ( Parameter ) paramAnnotation ).name().length();
+                            }
+                        }
+                    }
+                    return method.invoke( instance, arguments );
+                }
+            } );
+            measure( "ActionMethod", numberInvocations, new Invocation() {
+
+                @Override
+                public Object invoke() throws Exception {
+
+                    return actionMethod.invoke( instance, arguments, true );
+                }
+            } );
+        }
+        System.out.println( blackhole );
+    }
+
+    private static void measure( String name, int numberInvocations,
+                                 Invocation invocation ) throws Throwable {
+
+        long startTime = System.nanoTime();
+        for( int i = 0; i < numberInvocations; i++ ) {
+            blackhole += ( Integer ) invocation.invoke();
+        }
+        long totalNanos = System.nanoTime() - startTime;
+
+        System.out.println( String.format( "%-22s %,8.1f ns/invocation", name,
+                                           ( double ) totalNanos / numberInvocations ) );
+    }
+
+    private interface Invocation {
+
+        Object invoke() throws Throwable;
+    }
+
+    public static class NoOpActions {
+
+        public int doNothing( @Parameter( name = "value") String value, @Parameter( name = "count") int count ) {
+
+            return count;
+        }
+    }
+}
@@ -0,0 +1,185 @@
+/*
+ * Copyright 2017 Axway Software
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.axway.ats.agent.core.monitoring;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.axway.ats.agent.core.monitoring.queue.QueueExecutionStatistics;
+import com.axway.ats.agent.core.monitoring.queue.QueueExecutionStatistics.ActionExecutionCounter;
+
+/**
+ * Standalone benchmark for the statistics each action task updates on every action execution:
+ * the number of users running the action and the action execution result.
+ * 
+ * It compares the current lock-free counters with the previous implementation,
+ * which used two global locks, for 1 to 256 threads.
+ * 
+ * Usage: ActionStatisticsBenchmark [duration per run in ms]
+ * 
+ * It is not a unit test, so it is not run during the build.
+ */
+public class ActionStatisticsBenchmark {
+
+    private static final String   QUEUE_NAME     = "benchmark queue";
+    private static final String[] ACTION_NAMES   = new String[]{ "action 1", "action 2", "action 3" };
+    private static final int[]    THREAD_NUMBERS = new int[]{ 1, 2, 4, 8, 16, 32, 64, 128, 256 };
+
+    public static void main( String[] args ) throws Exception {
+
+        long durationMillis = args.length > 0
+                                              ? Long.parseLong( args[0] )
+                                              : 2000;
+
+        final UserActionsMonitoringAgent monitoringAgent = UserActionsMonitoringAgent.getInstance( "benchmark" );
+        monitoringAgent.startMonitoring( System.currentTimeMillis(), 1 );
+
+        final QueueExecutionStatistics statistics = QueueExecutionStatistics.getInstance();
+        statistics.initActionExecutionResults( QUEUE_NAME );
+        final ActionExecutionCounter[] counters = new ActionExecutionCounter[ACTION_NAMES.length];
+        for( int i = 0; i < ACTION_NAMES.length; i++ ) {
+            counters[i] = statistics.registerAction( QUEUE_NAME, ACTION_NAMES[i] );
+        }
+
+        final LockingStatistics lockingStatistics = new LockingStatistics();
+
+        System.out.println( String.format( "%8s %20s %20s", "threads", "locks [actions/s]",
+                                           "lock-free [actions/s]" ) );
+        for( int numberThreads : THREAD_NUMBERS ) {
+            double lockingRate = run( numberThreads, durationMillis, new ActionBody() {
+
+                @Override
+                public void execute( int actionIndex ) {
+
+                    lockingStatistics.actionStarted( ACTION_NAMES[actionIndex] );
+                    lockingStatistics.actionEnded( ACTION_NAMES[actionIndex] );
+                    lockingStatistics.registerActionExecutionResult( ACTION_NAMES[actionIndex], true );
+                }
+            } );
+            double lockFreeRate = run( numberThreads, durationMillis, new ActionBody() {
+
+                @Override
+                public void execute( int actionIndex ) {
+
+                    monitoringAgent.actionStarted( ACTION_NAMES[actionIndex] );
+                    monitoringAgent.actionEnded( ACTION_NAMES[actionIndex] );
+                    counters[actionIndex].registerExecutionResult( true );
+                }
+            } );
+
+            System.out.println( String.format( "%8d %,20.0f %,20.0f", numberThreads, lockingRate,
+                                               lockFreeRate ) );
+        }
+
+        monitoringAgent.stopMonitoring();
+    }
+
+    private static double run( int numberThreads, final long durationMillis,
+                               final ActionBody actionBody ) throws InterruptedException {
+
+        final CountDownLatch startGate = new CountDownLatch( 1 );
+        final AtomicLong numberActions = new AtomicLong();
+        final long[] endTime = new long[1];
+
+        Thread[] threads = new Thread[numberThreads];
+        for( int i = 0; i < numberThreads; i++ ) {
+            threads[i] = new Thread( new Runnable() {
+
+                @Override
+                public void run() {
+
+                    try {
+                        startGate.await();
+                    } catch( InterruptedException e ) {
+                        return;
+                    }
+
+                    long endTimeNanos = endTime[0];
+                    long actions = 0;
+                    while( true ) {
+                        for( int j = 0; j < 100; j++ ) {
+                            actionBody.execute( j % ACTION_NAMES.length );
+                        }
+                        actions += 100;
+                        if( System.nanoTime() >= endTimeNanos ) {
+                            break;
+                        }
+                    }
+                    numberActions.addAndGet( actions );
+                }
+            } );
+            threads[i].start();
+        }
+
+        long startTime = System.nanoTime();
+        endTime[0] = startTime + durationMillis * 1000000;
+        startGate.countDown();
+        for( Thread thread : threads ) {
+            thread.join();
+        }
+        long durationNanos = System.nanoTime() - startTime;
+
+        return numberActions.get() * 1000000000D / durationNanos;
+    }
+
+    private interface ActionBody {
+
+        void execute( int actionIndex );
+    }
+
+    /**
+     * The previous implementation, kept here for comparison
+     */
+    private static class LockingStatistics {
+
+        private Map<String, Integer> runningActionsMap = new HashMap<String, Integer>();
+        private Map<String, int[]>   actionResults     = new HashMap<String, int[]>();
+
+        synchronized void actionStarted( String actionName ) {
+
+            Integer nRunning = runningActionsMap.get( actionName );
+            if( nRunning == null ) {
+                runningActionsMap.put( actionName, 1 );
+            } else {
+                runningActionsMap.put( actionName, nRunning + 1 );
+            }
+        }
+
+        synchronized void actionEnded( String actionName ) {
+
+            Integer nRunning = runningActionsMap.get( actionName );
+            if( nRunning != null ) {
+                runningActionsMap.put( actionName, nRunning - 1 );
+            }
+        }
+
+        void registerActionExecutionResult( String actionName, boolean passed ) {
+
+            synchronized( actionResults ) {
+                int[] results = actionResults.get( actionName );
+                if( results == null ) {
+                    results = new int[2];
+                    actionResults.put( actionName, results );
+                }
+                results[passed
+                               ? 0
+                               : 1]++;
+            }
+        }
+    }
+}
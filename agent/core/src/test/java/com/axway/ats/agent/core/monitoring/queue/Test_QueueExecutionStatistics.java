@@ -0,0 +1,77 @@
+/*
+ * Copyright 2017 Axway Software
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.axway.ats.agent.core.monitoring.queue;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.List;
+
+import org.junit.Test;
+
+import com.axway.ats.agent.core.BaseTest;
+import com.axway.ats.agent.core.monitoring.queue.QueueExecutionStatistics.ActionExecutionCounter;
+
+public class Test_QueueExecutionStatistics extends BaseTest {
+
+    private static final String QUEUE_NAME = "Test_QueueExecutionStatistics queue";
+
+    @Test
+    public void concurrentRegistrations() throws Exception {
+
+        final QueueExecutionStatistics statistics = QueueExecutionStatistics.getInstance();
+        statistics.initActionExecutionResults( QUEUE_NAME );
+
+        final ActionExecutionCounter counter = statistics.registerAction( QUEUE_NAME, "action 1" );
+        // registered, but never executed
+        statistics.registerAction( QUEUE_NAME, "action 2" );
+
+        Thread[] threads = new Thread[8];
+        for( int i = 0; i < threads.length; i++ ) {
+            threads[i] = new Thread( new Runnable() {
+
+                @Override
+                public void run() {
+
+                    for( int j = 0; j < 10000; j++ ) {
+                        counter.registerExecutionResult( j % 10 != 0 );
+                    }
+                }
+            } );
+            threads[i].start();
+        }
+        for( Thread thread : threads ) {
+            thread.join();
+        }
+
+        List<ActionExecutionStatistic> results = statistics.getActionExecutionResults( QUEUE_NAME );
+        assertEquals( 1, results.size() );
+        assertEquals( "action 1", results.get( 0 ).getActionName() );
+        assertEquals( 72000, results.get( 0 ).getNumberPassed() );
+        assertEquals( 8000, results.get( 0 ).getNumberFailed() );
+
+        // a new run of the same queue starts from zero, but the already registered counters still work
+        statistics.initActionExecutionResults( QUEUE_NAME );
+        assertEquals( 0, statistics.getActionExecutionResults( QUEUE_NAME ).size() );
+
+        counter.registerExecutionResult( false );
+        statistics.registerActionExecutionResult( QUEUE_NAME, "action 1", true );
+
+        results = statistics.getActionExecutionResults( QUEUE_NAME );
+        assertEquals( 1, results.size() );
+        assertEquals( 1, results.get( 0 ).getNumberPassed() );
+        assertEquals( 1, results.get( 0 ).getNumberFailed() );
+    }
+}
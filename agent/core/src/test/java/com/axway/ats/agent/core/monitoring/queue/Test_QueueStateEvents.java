@@ -0,0 +1,95 @@
+/*
+ * Copyright 2017 Axway Software
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.axway.ats.agent.core.monitoring.queue;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.axway.ats.agent.core.BaseTest;
+import com.axway.ats.agent.core.Component;
+import com.axway.ats.agent.core.ComponentActionMap;
+import com.axway.ats.agent.core.ComponentRepository;
+import com.axway.ats.agent.core.MultiThreadedActionHandler;
+import com.axway.ats.agent.core.action.ActionRequest;
+import com.axway.ats.agent.core.exceptions.AgentException;
+import com.axway.ats.agent.core.monitoring.queue.QueueStateEvents.QueueStateEvent;
+import com.axway.ats.agent.core.monitoring.queue.QueueStateEvents.Subscription;
+import com.axway.ats.agent.core.threading.ActionTaskLoaderState;
+import com.axway.ats.agent.core.threading.LoadTestActionClass;
+import com.axway.ats.agent.core.threading.data.config.LoaderDataConfig;
+import com.axway.ats.agent.core.threading.patterns.AllAtOncePattern;
+
+public class Test_QueueStateEvents extends BaseTest {
+
+    private static final String CALLER     = "Test_QueueStateEvents caller";
+    private static final String QUEUE_NAME = "Test_QueueStateEvents queue";
+
+    @BeforeClass
+    public static void setUpTest_QueueStateEvents() throws AgentException {
+
+        Component component = new Component( TEST_COMPONENT_NAME );
+        ComponentActionMap actionMap = new ComponentActionMap( TEST_COMPONENT_NAME );
+        actionMap.registerActionClass( LoadTestActionClass.class );
+        component.setActionMap( actionMap );
+
+        ComponentRepository componentRepository = ComponentRepository.getInstance();
+        componentRepository.clear();
+        componentRepository.putComponent( component );
+    }
+
+    @Test
+    public void queueStateChanges() throws Exception {
+
+        Subscription subscription = QueueStateEvents.getInstance( CALLER ).subscribe();
+        try {
+            MultiThreadedActionHandler actionHandler = MultiThreadedActionHandler.getInstance( CALLER );
+            QueueExecutionStatistics.getInstance().initActionExecutionResults( QUEUE_NAME );
+            actionHandler.scheduleActions( CALLER, QUEUE_NAME, -1,
+                                           Arrays.asList( new ActionRequest( TEST_COMPONENT_NAME, "sleep action",
+                                                                             new Object[]{ "10" } ) ),
+                                           new AllAtOncePattern( 1, true, 1, 0 ), new LoaderDataConfig(),
+                                           false );
+            actionHandler.startQueue( QUEUE_NAME );
+
+            assertQueueState( ActionTaskLoaderState.SCHEDULED, subscription.poll( 1, TimeUnit.SECONDS ) );
+            assertQueueState( ActionTaskLoaderState.RUNNING, subscription.poll( 1, TimeUnit.SECONDS ) );
+            assertQueueState( ActionTaskLoaderState.FINISHED, subscription.poll( 1, TimeUnit.SECONDS ) );
+        } finally {
+            subscription.cancel();
+        }
+
+        // the events of other callers are not received
+        subscription = QueueStateEvents.getInstance( CALLER ).subscribe();
+        try {
+            QueueStateEvents.getInstance( "another caller" ).publish( QUEUE_NAME, ActionTaskLoaderState.RUNNING );
+            assertNull( subscription.poll( 100, TimeUnit.MILLISECONDS ) );
+        } finally {
+            subscription.cancel();
+        }
+    }
+
+    private void assertQueueState( ActionTaskLoaderState expectedState, QueueStateEvent event ) {
+
+        assertEquals( QUEUE_NAME, event.getQueueName() );
+        assertEquals( expectedState, event.getState() );
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2017 Axway Software
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.axway.ats.agent.core.protocol;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.axway.ats.agent.core.BaseTest;
+import com.axway.ats.agent.core.monitoring.queue.ActionExecutionStatistic;
+import com.axway.ats.agent.core.monitoring.queue.QueueStateEvents.QueueStateEvent;
+import com.axway.ats.agent.core.threading.ActionTaskLoaderState;
+import com.axway.ats.common.performance.monitor.beans.BasicReadingBean;
+import com.axway.ats.common.performance.monitor.beans.MonitorResults;
+
+public class Test_AgentEventsProtocol extends BaseTest {
+
+    @Test
+    public void events() throws Exception {
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream( bytes );
+        BinaryActionProtocol.writeHeader( out );
+        AgentEventsProtocol.writeQueueState( out, new QueueStateEvent( "queue 1", ActionTaskLoaderState.RUNNING,
+                                                                       1234L ) );
+        AgentEventsProtocol.writeActionStatistics( out, "queue 1",
+                                                   Arrays.asList( new ActionExecutionStatistic( "action 1", 10,
+                                                                                                1 ),
+                                                                  new ActionExecutionStatistic( "action 2", 5,
+                                                                                                0 ) ) );
+        AgentEventsProtocol.writeMonitorResults( out,
+                                                 Arrays.asList( new MonitorResults( 5678L,
+                                                                                    Arrays.asList( new BasicReadingBean( "1",
+                                                                                                                         "3" ) ) ) ) );
+        AgentEventsProtocol.writeHeartbeat( out );
+
+        DataInputStream in = new DataInputStream( new ByteArrayInputStream( bytes.toByteArray() ) );
+        BinaryActionProtocol.readHeader( in );
+
+        assertEquals( AgentEventsProtocol.QUEUE_STATE, AgentEventsProtocol.readEventType( in ) );
+        QueueStateEvent event = AgentEventsProtocol.readQueueState( in );
+        assertEquals( "queue 1", event.getQueueName() );
+        assertEquals( ActionTaskLoaderState.RUNNING, event.getState() );
+        assertEquals( 1234L, event.getTimestamp() );
+
+        assertEquals( AgentEventsProtocol.ACTION_STATISTICS, AgentEventsProtocol.readEventType( in ) );
+        assertEquals( "queue 1", AgentEventsProtocol.readQueueName( in ) );
+        List<ActionExecutionStatistic> statistics = AgentEventsProtocol.readActionStatistics( in );
+        assertEquals( 2, statistics.size() );
+        assertEquals( "action 1", statistics.get( 0 ).getActionName() );
+        assertEquals( 10, statistics.get( 0 ).getNumberPassed() );
+        assertEquals( 1, statistics.get( 0 ).getNumberFailed() );
+        assertEquals( "action 2", statistics.get( 1 ).getActionName() );
+        assertEquals( 5, statistics.get( 1 ).getNumberPassed() );
+        assertEquals( 0, statistics.get( 1 ).getNumberFailed() );
+
+        assertEquals( AgentEventsProtocol.MONITOR_RESULTS, AgentEventsProtocol.readEventType( in ) );
+        List<MonitorResults> monitorResults = AgentEventsProtocol.readMonitorResults( in );
+        assertEquals( 1, monitorResults.size() );
+        assertEquals( 5678L, monitorResults.get( 0 ).getTimestamp() );
+        assertEquals( "3", monitorResults.get( 0 ).getReadings().get( 0 ).getValue() );
+
+        assertEquals( AgentEventsProtocol.HEARTBEAT, AgentEventsProtocol.readEventType( in ) );
+        assertEquals( -1, in.read() );
+    }
+
+    @Test(expected = IOException.class)
+    public void unknownEventType() throws Exception {
+
+        AgentEventsProtocol.readEventType( new DataInputStream( new ByteArrayInputStream( new byte[]{ 99 } ) ) );
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright 2017 Axway Software
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.axway.ats.agent.core.protocol;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.ProtocolException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import com.axway.ats.agent.core.BaseTest;
+import com.axway.ats.agent.core.action.ActionRequest;
+
+public class Test_BinaryActionProtocol extends BaseTest {
+
+    @Test
+    public void pipelinedRequests() throws Exception {
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream( bytes );
+        BinaryActionProtocol.writeHeader( out );
+        BinaryActionProtocol.writeRequest( out, new ActionRequest( TEST_COMPONENT_NAME, "action 1",
+                                                                   new Object[]{ 3, "value" } ) );
+        BinaryActionProtocol.writeRequest( out, new ActionRequest( TEST_COMPONENT_NAME, "action 2", null ) );
+
+        DataInputStream in = new DataInputStream( new ByteArrayInputStream( bytes.toByteArray() ) );
+        BinaryActionProtocol.readHeader( in );
+
+        ActionRequest actionRequest = BinaryActionProtocol.readRequest( in );
+        assertEquals( TEST_COMPONENT_NAME, actionRequest.getComponentName() );
+        assertEquals( "action 1", actionRequest.getActionName() );
+        assertArrayEquals( new Object[]{ 3, "value" }, actionRequest.getArguments() );
+
+        actionRequest = BinaryActionProtocol.readRequest( in );
+        assertEquals( "action 2", actionRequest.getActionName() );
+        assertArrayEquals( new Object[0], actionRequest.getArguments() );
+
+        assertNull( BinaryActionProtocol.readRequest( in ) );
+    }
+
+    @Test
+    public void batch() throws Exception {
+
+        List<ActionRequest> actionRequests = Arrays.asList( new ActionRequest( TEST_COMPONENT_NAME, "action 1",
+                                                                               new Object[]{ 3 } ),
+                                                            new ActionRequest( TEST_COMPONENT_NAME, "action 2",
+                                                                               new Object[]{ TimeUnit.SECONDS } ),
+                                                            new ActionRequest( TEST_COMPONENT_NAME, "action 3",
+                                                                               null ) );
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream( bytes );
+        BinaryActionProtocol.writeHeader( out );
+        BinaryActionProtocol.writeBatch( out, actionRequests, Arrays.asList( false, true, true ) );
+
+        // make the argument of the second action unreadable
+        String streamText = new String( bytes.toByteArray(), "ISO-8859-1" );
+        byte[] streamBytes = streamText.replace( TimeUnit.class.getName(), "java.util.concurrent.TimeUnix" )
+                                       .getBytes( "ISO-8859-1" );
+
+        DataInputStream in = new DataInputStream( new ByteArrayInputStream( streamBytes ) );
+        BinaryActionProtocol.readHeader( in );
+        assertTrue( BinaryActionProtocol.isBatch( in ) );
+
+        List<BatchEntry> entries = BinaryActionProtocol.readBatch( in );
+        assertEquals( 3, entries.size() );
+
+        assertFalse( entries.get( 0 ).isIndependent() );
+        assertEquals( "action 1", entries.get( 0 ).getActionRequest().getActionName() );
+        assertArrayEquals( new Object[]{ 3 }, entries.get( 0 ).getActionRequest().getArguments() );
+        assertNull( entries.get( 0 ).getReadError() );
+
+        assertTrue( entries.get( 1 ).isIndependent() );
+        assertNull( entries.get( 1 ).getActionRequest() );
+        assertTrue( entries.get( 1 ).getReadError().contains( "java.util.concurrent.TimeUnix" ) );
+
+        assertTrue( entries.get( 2 ).isIndependent() );
+        assertEquals( "action 3", entries.get( 2 ).getActionRequest().getActionName() );
+
+        assertEquals( -1, in.read() );
+    }
+
+    @Test
+    public void requestsAreNotBatch() throws Exception {
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        BinaryActionProtocol.writeRequest( new DataOutputStream( bytes ),
+                                           new ActionRequest( TEST_COMPONENT_NAME, "action 1", null ) );
+
+        DataInputStream in = new DataInputStream( new ByteArrayInputStream( bytes.toByteArray() ) );
+        assertFalse( BinaryActionProtocol.isBatch( in ) );
+        assertEquals( "action 1", BinaryActionProtocol.readRequest( in ).getActionName() );
+    }
+
+    @Test
+    public void responses() throws Exception {
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream( bytes );
+        BinaryActionProtocol.writeHeader( out );
+        BinaryActionProtocol.writeResult( out, 5L );
+        BinaryActionProtocol.writeInternalComponentError( out, TEST_COMPONENT_NAME, "action 1", "stack trace" );
+        BinaryActionProtocol.writeAgentError( out, null );
+
+        DataInputStream in = new DataInputStream( new ByteArrayInputStream( bytes.toByteArray() ) );
+        BinaryActionProtocol.readHeader( in );
+
+        assertEquals( BinaryActionProtocol.RESPONSE_RESULT, BinaryActionProtocol.readResponseType( in ) );
+        assertEquals( 5L, ValueCodec.read( in ) );
+
+        assertEquals( BinaryActionProtocol.RESPONSE_INTERNAL_COMPONENT_ERROR,
+                      BinaryActionProtocol.readResponseType( in ) );
+        assertEquals( TEST_COMPONENT_NAME, BinaryActionProtocol.readString( in ) );
+        assertEquals( "action 1", BinaryActionProtocol.readString( in ) );
+        assertEquals( "stack trace", ValueCodec.read( in ) );
+
+        assertEquals( BinaryActionProtocol.RESPONSE_AGENT_ERROR, BinaryActionProtocol.readResponseType( in ) );
+        assertNull( ValueCodec.read( in ) );
+    }
+
+    @Test( expected = ProtocolException.class)
+    public void tooManyArguments() throws Exception {
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream( bytes );
+        BinaryActionProtocol.writeRequest( out, new ActionRequest( TEST_COMPONENT_NAME, "action 1", null ) );
+        byte[] requestBytes = bytes.toByteArray();
+        // replace the number of arguments at the end of the request
+        requestBytes[requestBytes.length - 4] = 0x7f;
+
+        BinaryActionProtocol.readRequest( new LimitedDataInputStream( new ByteArrayInputStream( requestBytes ),
+                                                                      requestBytes.length ) );
+    }
+
+    @Test( expected = IOException.class)
+    public void invalidHeader() throws Exception {
+
+        BinaryActionProtocol.readHeader( new DataInputStream( new ByteArrayInputStream( "<soap:Envelope".getBytes() ) ) );
+    }
+}
@@ -0,0 +1,208 @@
+/*
+ * Copyright 2017 Axway Software
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.axway.ats.agent.core.protocol;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.net.ProtocolException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.axway.ats.agent.core.BaseTest;
+import com.axway.ats.core.validation.ValidationType;
+
+public class Test_ValueCodec extends BaseTest {
+
+    @Test
+    public void primitiveWrappersAndStrings() throws Exception {
+
+        Object[] values = new Object[]{ null, "", "some text", "\u043d\u0435\u0449\u043e", true, ( byte ) -5,
+                                        ( short ) 300, 'c', 123456, Long.MIN_VALUE, 1.5f, Double.NaN };
+        for( Object value : values ) {
+            assertEquals( value, roundTrip( value ) );
+        }
+    }
+
+    @Test
+    public void longString() throws Exception {
+
+        char[] chars = new char[100000];
+        Arrays.fill( chars, 'x' );
+        String value = new String( chars );
+
+        assertEquals( value, roundTrip( value ) );
+    }
+
+    @Test
+    public void primitiveArrays() throws Exception {
+
+        assertArrayEquals( new byte[]{ 1, 2, 3 }, ( byte[] ) roundTrip( new byte[]{ 1, 2, 3 } ) );
+        assertTrue( Arrays.equals( new boolean[]{ true, false },
+                                   ( boolean[] ) roundTrip( new boolean[]{ true, false } ) ) );
+        assertArrayEquals( new short[]{ 1, -1 }, ( short[] ) roundTrip( new short[]{ 1, -1 } ) );
+        assertArrayEquals( new char[]{ 'a', 'b' }, ( char[] ) roundTrip( new char[]{ 'a', 'b' } ) );
+        assertArrayEquals( new int[]{ 1, 2, 3 }, ( int[] ) roundTrip( new int[]{ 1, 2, 3 } ) );
+        assertArrayEquals( new long[]{ 1, Long.MAX_VALUE }, ( long[] ) roundTrip( new long[]{ 1, Long.MAX_VALUE } ) );
+        assertArrayEquals( new float[]{ 1.5f }, ( float[] ) roundTrip( new float[]{ 1.5f } ), 0 );
+        assertArrayEquals( new double[]{ 2.5, -1 }, ( double[] ) roundTrip( new double[]{ 2.5, -1 } ), 0 );
+        assertArrayEquals( new int[0], ( int[] ) roundTrip( new int[0] ) );
+    }
+
+    @Test
+    public void objectArrays() throws Exception {
+
+        String[] strings = new String[]{ "a", null, "c" };
+        Object result = roundTrip( strings );
+        assertSame( String[].class, result.getClass() );
+        assertArrayEquals( strings, ( String[] ) result );
+
+        Integer[] integers = new Integer[]{ 1, null, 3 };
+        assertArrayEquals( integers, ( Integer[] ) roundTrip( integers ) );
+
+        int[][] matrix = new int[][]{ { 1, 2 }, { 3 } };
+        int[][] matrixResult = ( int[][] ) roundTrip( matrix );
+        assertArrayEquals( matrix[0], matrixResult[0] );
+        assertArrayEquals( matrix[1], matrixResult[1] );
+
+        Object[] mixed = new Object[]{ "a", 1, ValidationType.NONE, new Date( 1000 ) };
+        assertArrayEquals( mixed, ( Object[] ) roundTrip( mixed ) );
+    }
+
+    @Test
+    public void enums() throws Exception {
+
+        assertSame( ValidationType.STRING_NOT_EMPTY, roundTrip( ValidationType.STRING_NOT_EMPTY ) );
+        // an enum constant with a body is a subclass of the enum
+        assertSame( Operation.PLUS, roundTrip( Operation.PLUS ) );
+
+        Operation[] operations = new Operation[]{ Operation.MINUS, Operation.PLUS };
+        assertArrayEquals( operations, ( Operation[] ) roundTrip( operations ) );
+    }
+
+    @Test
+    public void otherTypesAreSerialized() throws Exception {
+
+        List<String> list = new ArrayList<String>( Arrays.asList( "a", "b" ) );
+        assertEquals( list, roundTrip( list ) );
+        assertEquals( new Date( 12345 ), roundTrip( new Date( 12345 ) ) );
+    }
+
+    @Test( expected = IOException.class)
+    public void notSerializableType() throws Exception {
+
+        roundTrip( new Object() );
+    }
+
+    @Test( expected = IOException.class)
+    public void unknownTag() throws Exception {
+
+        ValueCodec.read( new DataInputStream( new ByteArrayInputStream( new byte[]{ 63 } ) ) );
+    }
+
+    @Test( expected = ProtocolException.class)
+    public void negativeLength() throws Exception {
+
+        // a string with length -1
+        ValueCodec.read( new DataInputStream( new ByteArrayInputStream( new byte[]{ 10, -1, -1, -1, -1 } ) ) );
+    }
+
+    @Test
+    public void lengthLongerThanTheStream() throws Exception {
+
+        // an int array with Integer.MAX_VALUE elements, followed by a few bytes only
+        byte[] bytes = new byte[]{ 24, 0x7f, -1, -1, -1, 0, 0, 0, 1 };
+        try {
+            ValueCodec.read( new LimitedDataInputStream( new ByteArrayInputStream( bytes ), bytes.length ) );
+            fail( "The length is not checked" );
+        } catch( ProtocolException pe ) {
+            assertTrue( pe.getMessage().contains( "remaining 4 bytes" ) );
+        }
+
+        byte[] valid = encode( new Object[]{ "a", new long[]{ 1, 2 } } );
+        assertArrayEquals( new Object[]{ "a", new long[]{ 1, 2 } },
+                           ( Object[] ) ValueCodec.read( new LimitedDataInputStream( new ByteArrayInputStream( valid ),
+                                                                                     valid.length ) ) );
+    }
+
+    @Test( expected = ProtocolException.class)
+    public void streamLongerThanTheLimit() throws Exception {
+
+        byte[] bytes = encode( "some text" );
+        ValueCodec.read( new LimitedDataInputStream( new ByteArrayInputStream( bytes ), bytes.length - 2 ) );
+    }
+
+    @Test
+    public void smallerThanJavaSerialization() throws Exception {
+
+        for( Object value : new Object[]{ "/tmp/some/file.txt", 5, new int[]{ 1, 2, 3 },
+                                          ValidationType.NONE } ) {
+            ByteArrayOutputStream serialized = new ByteArrayOutputStream();
+            ObjectOutputStream objectOutStream = new ObjectOutputStream( serialized );
+            objectOutStream.writeObject( value );
+            objectOutStream.close();
+
+            assertTrue( encode( value ).length < serialized.size() );
+        }
+    }
+
+    private static Object roundTrip( Object value ) throws Exception {
+
+        return ValueCodec.read( new DataInputStream( new ByteArrayInputStream( encode( value ) ) ) );
+    }
+
+    private static byte[] encode( Object value ) throws IOException {
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ValueCodec.write( new DataOutputStream( bytes ), value );
+        return bytes.toByteArray();
+    }
+
+    public enum Operation {
+
+        PLUS {
+
+            @Override
+            int apply( int a, int b ) {
+
+                return a + b;
+            }
+        },
+        MINUS {
+
+            @Override
+            int apply( int a, int b ) {
+
+                return a - b;
+            }
+        };
+
+        abstract int apply( int a, int b );
+    }
+}
@@ -0,0 +1,289 @@
+/*
+ * Copyright 2017 Axway Software
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.axway.ats.agent.core.templateactions.model;
+
+import static com.axway.ats.common.agent.templateactions.TemplateActionsXmlDefinitions.TOKEN_HEADER_NAME_ATTRIBUTE;
+import static com.axway.ats.common.agent.templateactions.TemplateActionsXmlDefinitions.TOKEN_HEADER_VALUE_ATTRIBUTE;
+import static com.axway.ats.common.agent.templateactions.TemplateActionsXmlDefinitions.TOKEN_HTTP_ACTION;
+import static com.axway.ats.common.agent.templateactions.TemplateActionsXmlDefinitions.TOKEN_HTTP_ACTIONS;
+import static com.axway.ats.common.agent.templateactions.TemplateActionsXmlDefinitions.TOKEN_HTTP_HEADER;
+import static com.axway.ats.common.agent.templateactions.TemplateActionsXmlDefinitions.TOKEN_HTTP_RESPONSE;
+import static com.axway.ats.common.agent.templateactions.TemplateActionsXmlDefinitions.TOKEN_HTTP_RESPONSE_RESULT;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+import com.axway.ats.agent.core.configuration.TemplateActionsResponseVerificationConfigurator;
+import com.axway.ats.agent.core.context.ThreadContext;
+import com.axway.ats.agent.core.templateactions.model.matchers.HeaderMatcher;
+import com.axway.ats.agent.core.templateactions.model.objects.ActionResponseObject;
+import com.axway.ats.common.agent.templateactions.NetworkingStopWatch;
+import com.axway.ats.core.utils.IoUtils;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Standalone benchmark which compares the number of template action requests per second when
+ * executing a compiled {@link TemplateActionPlan} and when going through the actions file
+ * step by step as before, building a DOM for each received response with a new document builder
+ * and matching the headers from it.
+ *
+ * The requests are sent to a local HTTP server. As the request rate depends much on the local sockets,
+ * the CPU time spent by the client thread is printed as well.
+ * The actions file used is TestTemplateActionPlan/benchmarkActions.xml from the test resources.
+ *
+ * Usage: TemplateActionPlanBenchmark [number iterations] [number warm-up iterations]
+ *
+ * The defaults are 20000 iterations, each one executing all steps of the actions file,
+ * and 5000 warm-up iterations. The iterations are split in rounds in which the two ways take turns.
+ * It is not a unit test, so it is not run during the build.
+ */
+public class TemplateActionPlanBenchmark {
+
+    private static final int    NUMBER_ROUNDS = 10;
+
+    private static final String ACTIONS_XML   = "src/test/resources/com/axway/ats/agent/core/templateactions/TestTemplateActionPlan/benchmarkActions.xml";
+
+    public static void main( String[] args ) throws Exception {
+
+        int numberIterations = args.length > 0
+                                               ? Integer.parseInt( args[0] )
+                                               : 20000;
+        int numberWarmUpIterations = args.length > 1
+                                                     ? Integer.parseInt( args[1] )
+                                                     : 5000;
+
+        HttpServer server = startServer();
+        try {
+            String actionsXml = IoUtils.normalizeFilePath( new File( ACTIONS_XML ).getAbsolutePath() );
+            ThreadContext.setAttribute( "serverHost", "127.0.0.1:" + server.getAddress().getPort() );
+            ThreadContext.setAttribute( "userId", "42" );
+
+            TemplateActionsResponseVerificationConfigurator verificationConfigurator = new TemplateActionsResponseVerificationConfigurator( "benchmark" );
+
+            ActionsRunner[] runners = new ActionsRunner[]{ new PlanRunner(), new DomRunner() };
+            for( ActionsRunner runner : runners ) {
+                run( runner, actionsXml, verificationConfigurator, numberWarmUpIterations );
+            }
+
+            // the runners take turns, so both are equally affected by the state of the local sockets
+            ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+            long[] totalNanos = new long[runners.length];
+            long[] totalCpuNanos = new long[runners.length];
+            for( int round = 0; round < NUMBER_ROUNDS; round++ ) {
+                for( int i = 0; i < runners.length; i++ ) {
+                    long startCpuTime = threadMXBean.getCurrentThreadCpuTime();
+                    long startTime = System.nanoTime();
+                    run( runners[i], actionsXml, verificationConfigurator, numberIterations / NUMBER_ROUNDS );
+                    totalNanos[i] += System.nanoTime() - startTime;
+                    totalCpuNanos[i] += threadMXBean.getCurrentThreadCpuTime() - startCpuTime;
+                }
+            }
+
+            int numberSteps = new XmlReader( actionsXml ).getActionPlan().getSteps().size();
+            long numberRequests = ( long ) ( numberIterations / NUMBER_ROUNDS ) * NUMBER_ROUNDS * numberSteps;
+            System.out.println( "Executed " + numberIterations + " times the " + numberSteps + " steps of "
+                                + actionsXml );
+            for( int i = 0; i < runners.length; i++ ) {
+                System.out.println( String.format( "%-20s %,10.0f requests/sec, %,8.1f us per request, client CPU time %,8.1f us per request",
+                                                   runners[i].getName(),
+                                                   numberRequests / ( totalNanos[i] / 1000000000D ),
+                                                   totalNanos[i] / 1000D / numberRequests,
+                                                   totalCpuNanos[i] / 1000D / numberRequests ) );
+            }
+        } finally {
+            server.stop( 0 );
+        }
+    }
+
+    private static void run( ActionsRunner runner, String actionsXml,
+                             TemplateActionsResponseVerificationConfigurator verificationConfigurator,
+                             int numberIterations ) throws Exception {
+
+        XmlUtilities xmlUtilities = new XmlUtilities();
+        for( int i = 0; i < numberIterations; i++ ) {
+            runner.runActions( actionsXml, xmlUtilities, verificationConfigurator );
+        }
+    }
+
+    private static HttpServer startServer() throws IOException {
+
+        HttpServer server = HttpServer.create( new InetSocketAddress( InetAddress.getByName( "127.0.0.1" ),
+                                                                      0 ),
+                                               100 );
+        server.createContext( "/", new HttpHandler() {
+
+            @Override
+            public void handle( HttpExchange exchange ) throws IOException {
+
+                if( exchange.getRequestURI().getPath().startsWith( "/users/" ) ) {
+                    exchange.getResponseHeaders().add( "Server", "Apache-Coyote/1.1" );
+                    exchange.sendResponseHeaders( 200, -1 );
+                } else {
+                    exchange.getResponseHeaders().add( "Location", "http://"
+                                                                   + exchange.getRequestHeaders()
+                                                                             .getFirst( "Host" )
+                                                                   + "/index.html" );
+                    exchange.sendResponseHeaders( 302, -1 );
+                }
+                exchange.close();
+            }
+        } );
+        server.start();
+        return server;
+    }
+
+    private interface ActionsRunner {
+
+        String getName();
+
+        void runActions( String actionsXml, XmlUtilities xmlUtilities,
+                         TemplateActionsResponseVerificationConfigurator verificationConfigurator ) throws Exception;
+    }
+
+    private static class PlanRunner implements ActionsRunner {
+
+        @Override
+        public String getName() {
+
+            return "compiled plan";
+        }
+
+        @Override
+        public void runActions( String actionsXml, XmlUtilities xmlUtilities,
+                                TemplateActionsResponseVerificationConfigurator verificationConfigurator ) throws Exception {
+
+            for( TemplateActionStep step : new XmlReader( actionsXml ).getActionPlan().getSteps() ) {
+                NetworkingStopWatch stopWatch = new NetworkingStopWatch( "benchmark" );
+                stopWatch.step0_SetNewContext( "benchmark" );
+
+                HttpClient httpClient = new HttpClient( step.getHttpUrl(), step.getHttpMethod(),
+                                                        step.getHttpHeaders(), stopWatch );
+                httpClient.sendHttpRequest( "benchmark", step.getResourceFile(),
+                                            step.hasParamsInResourceFile() );
+                stopWatch.step5_StartInterimTimer();
+
+                xmlUtilities.verifyResponse( actionsXml, "benchmark", step.getStepNumber(),
+                                             step.getExpectedResponse(), httpClient,
+                                             verificationConfigurator );
+            }
+        }
+    }
+
+    /**
+     * The previous way of executing the actions, kept here for comparison
+     */
+    private static class DomRunner implements ActionsRunner {
+
+        @Override
+        public String getName() {
+
+            return "per-response DOM";
+        }
+
+        @Override
+        public void runActions( String actionsXml, XmlUtilities xmlUtilities,
+                                TemplateActionsResponseVerificationConfigurator verificationConfigurator ) throws Exception {
+
+            XmlReader xmlReader = new XmlReader( actionsXml );
+            int actionNum = 0;
+            while( xmlReader.goToNextAction() ) {
+                actionNum++;
+                NetworkingStopWatch stopWatch = new NetworkingStopWatch( "benchmark" );
+                stopWatch.step0_SetNewContext( "benchmark" );
+
+                HttpClient httpClient = new HttpClient( xmlReader.getRequestHttpUrl(),
+                                                        xmlReader.getRequestHttpMethod(),
+                                                        xmlReader.getRequestHttpHeaders(), stopWatch );
+                httpClient.sendHttpRequest( "benchmark", xmlReader.getRequestResourceFile(),
+                                            xmlReader.hasParamsInRequestResourceFile() );
+                stopWatch.step5_StartInterimTimer();
+
+                ActualHttpResponse actualResponse = httpClient.readResponse( actionsXml, actionNum, false );
+                verifyFromDom( xmlReader.getResponse(), responseToDom( actualResponse ) );
+                actualResponse.cleanupMembers();
+            }
+        }
+
+        private Node responseToDom( ActualHttpResponse actualResponse ) throws ParserConfigurationException {
+
+            // a new document builder was created for each response
+            Document dom = DocumentBuilderFactory.newInstance().newDocumentBuilder().newDocument();
+
+            Node httpActions = dom.createElement( TOKEN_HTTP_ACTIONS );
+            dom.appendChild( httpActions );
+            Node httpAction = dom.createElement( TOKEN_HTTP_ACTION );
+            httpActions.appendChild( httpAction );
+            Node responseNode = dom.createElement( TOKEN_HTTP_RESPONSE );
+            httpAction.appendChild( responseNode );
+
+            for( Entry<String, String> headerEntry : actualResponse.getHeaders().entrySet() ) {
+                if( headerEntry.getKey() == null ) {
+                    Element responseResult = dom.createElement( TOKEN_HTTP_RESPONSE_RESULT );
+                    responseResult.appendChild( dom.createTextNode( headerEntry.getValue() ) );
+                    responseNode.appendChild( responseResult );
+                } else {
+                    Element header = dom.createElement( TOKEN_HTTP_HEADER );
+                    header.setAttribute( TOKEN_HEADER_NAME_ATTRIBUTE, headerEntry.getKey() );
+                    header.setAttribute( TOKEN_HEADER_VALUE_ATTRIBUTE, headerEntry.getValue() );
+                    responseNode.appendChild( header );
+                }
+            }
+            return responseNode;
+        }
+
+        private void verifyFromDom( ActionResponseObject expectedResponse, Node actualResponseNode ) {
+
+            // the matchers were copied for each verification
+            Map<String, HeaderMatcher> expectedMatchers = new ExpectedResponse( expectedResponse ).getHeaderMatchers();
+
+            NodeList actualNodes = actualResponseNode.getChildNodes();
+            for( int i = 0; i < actualNodes.getLength(); i++ ) {
+                Node actualNode = actualNodes.item( i );
+                if( TOKEN_HTTP_RESPONSE_RESULT.equals( actualNode.getNodeName() ) ) {
+                    if( !expectedResponse.getResponseResult().equals( actualNode.getTextContent() ) ) {
+                        throw new IllegalStateException( "Unexpected response result "
+                                                         + actualNode.getTextContent() );
+                    }
+                } else if( TOKEN_HTTP_HEADER.equals( actualNode.getNodeName() ) ) {
+                    Element header = ( Element ) actualNode;
+                    HeaderMatcher matcher = expectedMatchers.get( header.getAttribute( TOKEN_HEADER_NAME_ATTRIBUTE ) );
+                    if( matcher != null ) {
+                        String actualValue = header.getAttribute( TOKEN_HEADER_VALUE_ATTRIBUTE );
+                        if( !new HeaderMatcher( matcher ).performMatch( null, actualValue ) ) {
+                            throw new IllegalStateException( "Did not match header value " + actualValue );
+                        }
+                    }
+                }
+            }
+        }
+    }
+}
@@ -20,6 +20,9 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
 import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -39,10 +42,15 @@ import com.axway.ats.agent.core.context.ThreadContext;
 import com.axway.ats.agent.core.templateactions.TemplateActionsBaseTest;
 import com.axway.ats.agent.core.templateactions.model.matchers.HeaderMatcher;
 import com.axway.ats.agent.core.templateactions.model.matchers.mode.TemplateHeaderMatchMode;
+import com.axway.ats.agent.core.templateactions.model.objects.ActionHeader;
 import com.axway.ats.agent.core.templateactions.model.objects.ActionParser;
+import com.axway.ats.common.agent.templateactions.NetworkingStopWatch;
 import com.axway.ats.common.filesystem.FileSystemOperationException;
 import com.axway.ats.common.filesystem.Md5SumMode;
 import com.axway.ats.core.filesystem.LocalFileSystemOperations;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
 
 public class Test_HttpClient extends TemplateActionsBaseTest {
 
@@ -204,6 +212,67 @@ public class Test_HttpClient extends TemplateActionsBaseTest {
         verifyResponseMatch( expectedResponseBody, actualResponseBody, "response body", "response bodies" );
     }
 
+    @Test
+    public void keepAliveConnectionIsReused() throws Exception {
+
+        resolveActionName( false );
+
+        // remember the client port of each received request
+        final List<Integer> clientPorts = new ArrayList<Integer>();
+        HttpServer server = HttpServer.create( new InetSocketAddress( InetAddress.getByName( "127.0.0.1" ), 0 ),
+                                               0 );
+        server.createContext( "/", new HttpHandler() {
+
+            @Override
+            public void handle( HttpExchange exchange ) throws IOException {
+
+                clientPorts.add( exchange.getRemoteAddress().getPort() );
+
+                byte[] body;
+                if( exchange.getRequestURI().getPath().equals( "/redirect" ) ) {
+                    // a redirect response with a body, which is not needed by the client
+                    body = "moved".getBytes();
+                    exchange.getResponseHeaders().add( "Location", "/page" );
+                    exchange.sendResponseHeaders( 302, body.length );
+                } else {
+                    body = "page content".getBytes();
+                    exchange.sendResponseHeaders( 200, body.length );
+                }
+                exchange.getResponseBody().write( body );
+                exchange.close();
+            }
+        } );
+        server.start();
+        try {
+            String serverUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+            String actionsXml = getDownloadsFolder() + actionName + ".xml";
+
+            NetworkingStopWatch stopWatch = new NetworkingStopWatch( actionName );
+            HttpClient client = new HttpClient( serverUrl + "/redirect", "GET", new ArrayList<ActionHeader>(),
+                                                stopWatch );
+            client.sendHttpRequest( actionName + "[1]", null, false );
+            stopWatch.step5_StartInterimTimer();
+            client.readResponse( actionsXml, 1, false );
+            // the redirect is not followed
+            assertEquals( 302, client.getUrlConnection().getResponseCode() );
+            assertTrue( HttpURLConnection.getFollowRedirects() );
+
+            stopWatch.step0_SetNewContext( actionName + "[2]" );
+            client = new HttpClient( serverUrl + "/page", "GET", new ArrayList<ActionHeader>(), stopWatch );
+            client.sendHttpRequest( actionName + "[2]", null, false );
+            stopWatch.step5_StartInterimTimer();
+            ActualHttpResponse response = client.readResponse( actionsXml, 2, true );
+            assertEquals( "200 OK", response.getResponseResult() );
+            assertEquals( "page content", response.getBodyContentAsString() );
+        } finally {
+            server.stop( 0 );
+        }
+
+        // both requests are sent over the same connection
+        assertEquals( 2, clientPorts.size() );
+        assertEquals( clientPorts.get( 0 ), clientPorts.get( 1 ) );
+    }
+
     private void httpMessage( String contentType, String contentEncoding,
                               String downloadFileExtension ) throws Exception {
 
@@ -0,0 +1,224 @@
+/*
+ * Copyright 2017 Axway Software
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.axway.ats.agent.core.templateactions.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Test;
+
+import com.axway.ats.agent.core.configuration.TemplateActionsResponseVerificationConfigurator;
+import com.axway.ats.agent.core.context.ThreadContext;
+import com.axway.ats.agent.core.templateactions.TemplateActionsBaseTest;
+import com.axway.ats.agent.core.templateactions.exceptions.XmlUtilitiesException;
+import com.axway.ats.agent.core.templateactions.model.matchers.HeaderMatcher;
+import com.axway.ats.agent.core.templateactions.model.matchers.mode.TemplateHeaderMatchMode;
+import com.axway.ats.agent.core.templateactions.model.objects.ActionHeader;
+
+public class Test_TemplateActionPlan extends TemplateActionsBaseTest {
+
+    private final static String TEST_ACTIONS_HOME = TEST_RESOURCES_HOME + "TestTemplateActionPlan/";
+
+    private final static String ACTIONS_XML       = TEST_ACTIONS_HOME + "parameterizedActions.xml";
+
+    @After
+    public void afterMethod() {
+
+        ThreadContext.clear();
+    }
+
+    @Test
+    public void parameterizedString() throws Exception {
+
+        ThreadContext.setAttribute( "host", "127.0.0.1" );
+        ThreadContext.setAttribute( "id",
+                                    new LinkedList<String>( Arrays.asList( new String[]{ "3", "4" } ) ) );
+
+        ParameterizedString noParameters = new ParameterizedString( "http://localhost/" );
+        assertFalse( noParameters.hasParameters() );
+        assertEquals( "http://localhost/", noParameters.apply() );
+
+        ParameterizedString withParameters = new ParameterizedString( "http://${host}/${id}/${id}/${unknown}${=extracted}" );
+        assertTrue( withParameters.hasParameters() );
+        // parameters without values are kept as they are
+        assertEquals( "http://127.0.0.1/3/4/${unknown}${=extracted}", withParameters.apply() );
+
+        try {
+            withParameters.apply();
+            fail( "The queue with values is empty, so an exception is expected" );
+        } catch( XmlUtilitiesException xue ) {
+            assertEquals( "The number of parameters ${id} is more than the number of provided values for them.",
+                          xue.getMessage() );
+        }
+    }
+
+    @Test
+    public void compilePlan() throws Exception {
+
+        ThreadContext.setAttribute( "serverHost", "127.0.0.1:8080" );
+        ThreadContext.setAttribute( "userId", "42" );
+        ThreadContext.setAttribute( ThreadContext.COOKIE_VAR_PREFFIX + "JSESSIONID", "xdnf0batsesw" );
+
+        TemplateActionPlan plan = new XmlReader( ACTIONS_XML ).getActionPlan();
+        assertEquals( ACTIONS_XML, plan.getActionsXml() );
+        assertEquals( 2, plan.getSteps().size() );
+
+        TemplateActionStep firstStep = plan.getSteps().get( 0 );
+        assertEquals( 1, firstStep.getStepNumber() );
+        assertFalse( firstStep.isLastStep() );
+        assertEquals( "GET", firstStep.getHttpMethod() );
+        assertEquals( "http://127.0.0.1:8080/users/42/details.html", firstStep.getHttpUrl() );
+
+        List<ActionHeader> headers = firstStep.getHttpHeaders();
+        assertEquals( 3, headers.size() );
+        assertEquals( "Host:127.0.0.1:8080", headers.get( 0 ).toString() );
+        assertEquals( "Accept:text/html", headers.get( 1 ).toString() );
+        assertEquals( "Cookie:JSESSIONID=\"xdnf0batsesw\"", headers.get( 2 ).toString() );
+
+        ExpectedResponse expectedResponse = firstStep.getExpectedResponse();
+        assertEquals( "200 OK", expectedResponse.getResponseResult() );
+        // the 'Date' header is not a significant one
+        assertEquals( Arrays.asList( "Content-Length", "Server", "Set-Cookie" ),
+                      new LinkedList<String>( expectedResponse.getHeaderMatchers().keySet() ) );
+
+        TemplateActionStep lastStep = plan.getSteps().get( 1 );
+        assertEquals( 2, lastStep.getStepNumber() );
+        assertTrue( lastStep.isLastStep() );
+        assertEquals( "http://127.0.0.1:8080/logout.html", lastStep.getHttpUrl() );
+
+        // the plan is compiled once per file
+        assertTrue( plan == new XmlReader( ACTIONS_XML ).getActionPlan() );
+    }
+
+    @Test
+    public void verifyResponse() throws Exception {
+
+        TemplateActionPlan plan = new XmlReader( ACTIONS_XML ).getActionPlan();
+
+        Map<String, List<String>> headers = new HashMap<String, List<String>>();
+        headers.put( null, Collections.singletonList( "HTTP/1.1 200 OK" ) );
+        headers.put( "Content-Length", Collections.singletonList( "0" ) );
+        headers.put( "Server", Collections.singletonList( "Apache-Coyote/1.1" ) );
+        headers.put( "Set-Cookie", Collections.singletonList( "JSESSIONID=bz41hk; Path=/" ) );
+
+        verifyFirstStep( plan, headers, new TemplateActionsResponseVerificationConfigurator( "queue name" ) );
+
+        // the cookie is extracted from the response
+        assertEquals( "bz41hk", ThreadContext.getAttribute( ThreadContext.COOKIE_VAR_PREFFIX + "JSESSIONID" ) );
+    }
+
+    @Test
+    public void verifyResponse_notMatchingHeader() throws Exception {
+
+        TemplateActionPlan plan = new XmlReader( ACTIONS_XML ).getActionPlan();
+
+        Map<String, List<String>> headers = new HashMap<String, List<String>>();
+        headers.put( null, Collections.singletonList( "HTTP/1.1 200 OK" ) );
+        headers.put( "Content-Length", Collections.singletonList( "0" ) );
+        headers.put( "Server", Collections.singletonList( "Apache-Coyote/2.0.1" ) );
+        headers.put( "Set-Cookie", Collections.singletonList( "JSESSIONID=bz41hk; Path=/" ) );
+
+        try {
+            verifyFirstStep( plan, headers, new TemplateActionsResponseVerificationConfigurator( "queue name" ) );
+            fail( "The 'Server' header does not match, so an exception is expected" );
+        } catch( XmlUtilitiesException xue ) {
+            assertTrue( xue.getMessage().startsWith( "Did not match header value 'Apache-Coyote/2.0.1'" ) );
+        }
+    }
+
+    @Test
+    public void verifyResponse_missingHeader() throws Exception {
+
+        TemplateActionPlan plan = new XmlReader( ACTIONS_XML ).getActionPlan();
+
+        Map<String, List<String>> headers = new HashMap<String, List<String>>();
+        headers.put( null, Collections.singletonList( "HTTP/1.1 200 OK" ) );
+        headers.put( "Content-Length", Collections.singletonList( "0" ) );
+        headers.put( "Set-Cookie", Collections.singletonList( "JSESSIONID=bz41hk; Path=/" ) );
+
+        // the header matchers of the plan are shared, so the check must fail each time
+        for( int i = 0; i < 2; i++ ) {
+            try {
+                verifyFirstStep( plan, headers,
+                                 new TemplateActionsResponseVerificationConfigurator( "queue name" ) );
+                fail( "The 'Server' header is not received, so an exception is expected" );
+            } catch( XmlUtilitiesException xue ) {
+                assertTrue( xue.getMessage().startsWith( "Did not receive the expected header" ) );
+            }
+        }
+    }
+
+    @Test
+    public void verifyResponse_globalHeaderMatchers() throws Exception {
+
+        TemplateActionPlan plan = new XmlReader( ACTIONS_XML ).getActionPlan();
+
+        Map<String, List<String>> headers = new HashMap<String, List<String>>();
+        headers.put( null, Collections.singletonList( "HTTP/1.1 200 OK" ) );
+        headers.put( "Content-Length", Collections.singletonList( "95" ) );
+        headers.put( "Server", Collections.singletonList( "Apache-Coyote/1.1" ) );
+        headers.put( "Set-Cookie", Collections.singletonList( "JSESSIONID=bz41hk; Path=/" ) );
+
+        TemplateActionsResponseVerificationConfigurator verificationConfigurator = new TemplateActionsResponseVerificationConfigurator( "queue name" );
+        HeaderMatcher contentLengthMatcher = new HeaderMatcher( "Content-Length", "100",
+                                                                TemplateHeaderMatchMode.RANGE_OFFSET );
+        // this header is not in the template, so it is not required
+        HeaderMatcher notReceivedHeaderMatcher = new HeaderMatcher( "X-Not-Received", null,
+                                                                    TemplateHeaderMatchMode.RANDOM );
+        verificationConfigurator.addGlobalHeaderMatchers( new HashSet<HeaderMatcher>( Arrays.asList( contentLengthMatcher,
+                                                                                                              notReceivedHeaderMatcher ) ) );
+
+        verifyFirstStep( plan, headers, verificationConfigurator );
+
+        // the global matcher is not modified when merged with the one from the template
+        assertEquals( "100", contentLengthMatcher.getHeaderValueToMatch() );
+        assertEquals( "0", plan.getSteps()
+                               .get( 0 )
+                               .getExpectedResponse()
+                               .getHeaderMatchers()
+                               .get( "Content-Length" )
+                               .getHeaderValueToMatch() );
+    }
+
+    private void verifyFirstStep( TemplateActionPlan plan, Map<String, List<String>> headers,
+                                  TemplateActionsResponseVerificationConfigurator verificationConfigurator ) throws Exception {
+
+        MockHttpURLConnection mockHttpURLConnection = new MockHttpURLConnection();
+        mockHttpURLConnection.setFakeInputStream( TEST_RESOURCES_HOME + "TestXmlUtilities/",
+                                                  "verifyContentLengthZero_response.bin" );
+        mockHttpURLConnection.setFakeContentType( "text/html" );
+        mockHttpURLConnection.setFakeHeaderFields( headers );
+
+        HttpClient client = Test_HttpClient.getHttpClient( mockHttpURLConnection );
+
+        // the actual response files are saved in a temporary folder
+        actionName = "parameterizedActions";
+        new XmlUtilities().verifyResponse( getDownloadsFolder() + actionName + ".xml", actionName, 1,
+                                           plan.getSteps().get( 0 ).getExpectedResponse(), client,
+                                           verificationConfigurator );
+    }
+}
@@ -17,12 +17,23 @@ package com.axway.ats.agent.core.templateactions.model;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.junit.Test;
 
@@ -113,6 +124,92 @@ public class Test_XmlReader extends TemplateActionsBaseTest {
         }
     }
 
+    @Test
+    public void reloadModifiedFile() throws Exception {
+
+        resolveActionName( false );
+
+        File actionsFile = new File( getDownloadsFolder() + actionName + ".xml" );
+        copyActionsFile( TEST_ACTIONS_HOME + "skippedHeaders.xml", actionsFile );
+
+        TemplateActionPlan plan = new XmlReader( actionsFile.getPath() ).getActionPlan();
+        assertTrue( plan.getSteps().get( 0 ).getHttpUrl().endsWith( "/data/${senderMessageAttachmentId}" ) );
+
+        // modify the file
+        String content = new String( Files.readAllBytes( actionsFile.toPath() ), "UTF-8" );
+        Files.write( actionsFile.toPath(), content.replace( "/data/", "/files/" ).getBytes( "UTF-8" ) );
+        actionsFile.setLastModified( actionsFile.lastModified() + 10000 );
+
+        // the file changes are not checked on each load
+        assertSame( plan, new XmlReader( actionsFile.getPath() ).getActionPlan() );
+
+        Thread.sleep( 1100 );
+        TemplateActionPlan reloadedPlan = new XmlReader( actionsFile.getPath() ).getActionPlan();
+        assertNotSame( plan, reloadedPlan );
+        assertTrue( reloadedPlan.getSteps()
+                                .get( 0 )
+                                .getHttpUrl()
+                                .endsWith( "/files/${senderMessageAttachmentId}" ) );
+    }
+
+    @Test
+    public void failedLoadIsNotCached() throws Exception {
+
+        resolveActionName( false );
+
+        File actionsFile = new File( getDownloadsFolder() + actionName + ".xml" );
+        copyActionsFile( TEST_ACTIONS_HOME + "noUrlSpecified.xml", actionsFile );
+        try {
+            new XmlReader( actionsFile.getPath() );
+            assertTrue( false );
+        } catch( XmlReaderException e ) {
+            assertTrue( e.getCause().getMessage().endsWith( "No HTTP_REQUEST_URL node" ) );
+        }
+
+        // the fixed file is loaded without waiting for a check for file changes
+        copyActionsFile( TEST_ACTIONS_HOME + "skippedHeaders.xml", actionsFile );
+        assertEquals( 1, new XmlReader( actionsFile.getPath() ).getActionPlan().getSteps().size() );
+    }
+
+    @Test
+    public void concurrentLoading() throws Exception {
+
+        resolveActionName( false );
+
+        final String actionsXml = getDownloadsFolder() + actionName + ".xml";
+        copyActionsFile( TEST_ACTIONS_HOME + "skippedHeaders.xml", new File( actionsXml ) );
+
+        int numberThreads = 20;
+        final CountDownLatch startGate = new CountDownLatch( 1 );
+        ExecutorService executor = Executors.newFixedThreadPool( numberThreads );
+        List<Future<TemplateActionPlan>> plans = new ArrayList<Future<TemplateActionPlan>>();
+        for( int i = 0; i < numberThreads; i++ ) {
+            plans.add( executor.submit( new Callable<TemplateActionPlan>() {
+
+                @Override
+                public TemplateActionPlan call() throws Exception {
+
+                    startGate.await();
+                    return new XmlReader( actionsXml ).getActionPlan();
+                }
+            } ) );
+        }
+        startGate.countDown();
+        executor.shutdown();
+
+        // the file is loaded just once
+        TemplateActionPlan plan = plans.get( 0 ).get();
+        assertNotNull( plan );
+        for( Future<TemplateActionPlan> otherPlan : plans ) {
+            assertSame( plan, otherPlan.get() );
+        }
+    }
+
+    private void copyActionsFile( String sourceFile, File targetFile ) throws IOException {
+
+        Files.copy( new File( sourceFile ).toPath(), targetFile.toPath(), StandardCopyOption.REPLACE_EXISTING );
+    }
+
     private void processMessage() throws Exception {
 
         resolveActionName( true );
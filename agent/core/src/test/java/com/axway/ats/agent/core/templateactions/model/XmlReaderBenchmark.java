@@ -0,0 +1,172 @@
+/*
+ * Copyright 2017 Axway Software
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.axway.ats.agent.core.templateactions.model;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.axway.ats.common.systemproperties.AtsSystemProperties;
+import com.axway.ats.core.utils.IoUtils;
+
+/**
+ * Standalone benchmark which measures the template actions queue start latency, which is the time until all
+ * queue threads have loaded their actions files.
+ * It compares the current per-file loading with the previous one, in which all files were loaded
+ * under a single global lock. The global lock is simulated by loading each file in a block synchronized on
+ * one object.
+ *
+ * Each thread loads one of the generated actions files, as when a queue runs different template actions.
+ * Each way uses its own copy of the files, so the files are not loaded before the measurement.
+ *
+ * Usage: XmlReaderBenchmark [number threads] [number files] [number actions per file]
+ *
+ * The defaults are 2000 threads, 30 files and 50 actions per file.
+ * It is not a unit test, so it is not run during the build.
+ */
+public class XmlReaderBenchmark {
+
+    private static final Object GLOBAL_LOCK = new Object();
+
+    public static void main( String[] args ) throws Exception {
+
+        int numberThreads = args.length > 0
+                                            ? Integer.parseInt( args[0] )
+                                            : 2000;
+        int numberFiles = args.length > 1
+                                          ? Integer.parseInt( args[1] )
+                                          : 30;
+        int numberActions = args.length > 2
+                                            ? Integer.parseInt( args[2] )
+                                            : 50;
+
+        System.out.println( "Start latency of " + numberThreads + " threads loading " + numberFiles
+                            + " files with " + numberActions + " actions each:" );
+        run( "global lock", true, numberThreads, numberFiles, numberActions );
+        run( "per-file loading", false, numberThreads, numberFiles, numberActions );
+    }
+
+    private static void run( String name, final boolean useGlobalLock, int numberThreads, int numberFiles,
+                             int numberActions ) throws Exception {
+
+        final String[] actionsFiles = createActionsFiles( name, numberFiles, numberActions );
+
+        final CountDownLatch startGate = new CountDownLatch( 1 );
+        final CountDownLatch threadsReady = new CountDownLatch( numberThreads );
+        final CountDownLatch threadsLoaded = new CountDownLatch( numberThreads );
+        final AtomicLong totalWaitNanos = new AtomicLong();
+        final AtomicLong maxWaitNanos = new AtomicLong();
+
+        ExecutorService executor = Executors.newFixedThreadPool( numberThreads );
+        for( int i = 0; i < numberThreads; i++ ) {
+            final String actionsFile = actionsFiles[i % numberFiles];
+            executor.execute( new Runnable() {
+
+                @Override
+                public void run() {
+
+                    try {
+                        threadsReady.countDown();
+                        startGate.await();
+
+                        long startTime = System.nanoTime();
+                        if( useGlobalLock ) {
+                            synchronized( GLOBAL_LOCK ) {
+                                new XmlReader( actionsFile );
+                            }
+                        } else {
+                            new XmlReader( actionsFile );
+                        }
+                        long waitNanos = System.nanoTime() - startTime;
+
+                        totalWaitNanos.addAndGet( waitNanos );
+                        long currentMax;
+                        while( waitNanos > ( currentMax = maxWaitNanos.get() )
+                               && !maxWaitNanos.compareAndSet( currentMax, waitNanos ) ) {
+                            // try again
+                        }
+                    } catch( Exception e ) {
+                        e.printStackTrace();
+                    } finally {
+                        threadsLoaded.countDown();
+                    }
+                }
+            } );
+        }
+
+        threadsReady.await();
+        long startTime = System.nanoTime();
+        startGate.countDown();
+        threadsLoaded.await();
+        long startLatencyNanos = System.nanoTime() - startTime;
+
+        executor.shutdown();
+        executor.awaitTermination( 1, TimeUnit.MINUTES );
+
+        System.out.println( String.format( "%-18s all threads started in %,8.1f ms, wait per thread: average %,8.1f ms, max %,8.1f ms",
+                                           name, startLatencyNanos / 1000000D,
+                                           totalWaitNanos.get() / 1000000D / numberThreads,
+                                           maxWaitNanos.get() / 1000000D ) );
+    }
+
+    private static String[] createActionsFiles( String name, int numberFiles,
+                                                int numberActions ) throws IOException {
+
+        File dir = new File( IoUtils.normalizeDirPath( AtsSystemProperties.SYSTEM_USER_TEMP_DIR )
+                             + "XmlReaderBenchmark" + File.separator + name.replace( ' ', '_' ) + "_"
+                             + System.currentTimeMillis() );
+        dir.mkdirs();
+        dir.deleteOnExit();
+
+        String[] actionsFiles = new String[numberFiles];
+        for( int i = 0; i < numberFiles; i++ ) {
+            File file = new File( dir, "actions" + i + ".xml" );
+            file.deleteOnExit();
+
+            Writer writer = new OutputStreamWriter( new FileOutputStream( file ), "UTF-8" );
+            try {
+                writer.write( "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<HTTP_ACTIONS>\n" );
+                for( int j = 0; j < numberActions; j++ ) {
+                    writer.write( "    <HTTP_ACTION>\n" );
+                    writer.write( "        <HTTP_REQUEST method=\"GET\">\n" );
+                    writer.write( "            <HTTP_REQUEST_URL>http://${serverHost}/file" + i + "/page" + j
+                                  + ".html</HTTP_REQUEST_URL>\n" );
+                    writer.write( "            <HTTP_HEADER name=\"Host\" value=\"${serverHost}\"/>\n" );
+                    writer.write( "            <HTTP_HEADER name=\"Accept\" value=\"text/html\"/>\n" );
+                    writer.write( "        </HTTP_REQUEST>\n" );
+                    writer.write( "        <HTTP_RESPONSE>\n" );
+                    writer.write( "            <HTTP_RESPONSE_RESULT>200 OK</HTTP_RESPONSE_RESULT>\n" );
+                    writer.write( "            <HTTP_HEADER name=\"Content-Type\" value=\"text/html\"/>\n" );
+                    writer.write( "            <HTTP_HEADER name=\"Server\" value=\"${REGEX=^Apache.*}\"/>\n" );
+                    writer.write( "        </HTTP_RESPONSE>\n" );
+                    writer.write( "    </HTTP_ACTION>\n" );
+                }
+                writer.write( "</HTTP_ACTIONS>\n" );
+            } finally {
+                IoUtils.closeStream( writer );
+            }
+            actionsFiles[i] = IoUtils.normalizeFilePath( file.getAbsolutePath() );
+        }
+        return actionsFiles;
+    }
+}
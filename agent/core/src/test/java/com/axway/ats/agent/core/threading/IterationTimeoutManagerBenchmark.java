@@ -0,0 +1,292 @@
+/*
+ * Copyright 2017 Axway Software
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.axway.ats.agent.core.threading;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import com.axway.ats.agent.core.action.ActionRequest;
+import com.axway.ats.agent.core.threading.data.ParameterDataProvider;
+import com.axway.ats.agent.core.threading.data.ParameterValuesGenerator;
+import com.axway.ats.agent.core.threading.patterns.AllAtOncePattern;
+
+/**
+ * Standalone benchmark for the per-iteration overhead of the {@link IterationTimeoutManager}.
+ *
+ * Each thread starts and ends a number of empty iterations, informing the iteration timeout manager
+ * as the action tasks do. It runs without an iteration timeout, with the current manager and with the previous one,
+ * which kept the threads in a map under a global lock and searched for the soonest iteration start time.
+ *
+ * Usage: IterationTimeoutManagerBenchmark [number threads] [number iterations per thread]
+ *
+ * The defaults are 5000 threads and 2000 iterations. It is not a unit test, so it is not run during the build.
+ */
+public class IterationTimeoutManagerBenchmark {
+
+    public static void main( String[] args ) throws Exception {
+
+        int numberThreads = args.length > 0
+                                            ? Integer.parseInt( args[0] )
+                                            : 5000;
+        int numberIterations = args.length > 1
+                                               ? Integer.parseInt( args[1] )
+                                               : 2000;
+
+        System.out.println( "Running " + numberThreads + " threads with " + numberIterations
+                            + " iterations each" );
+
+        // warm up
+        run( "timeout disabled", new NoIterationTimeout(), numberThreads, numberIterations / 10, false );
+        run( "per-thread slots", new SlotsIterationTimeout(), numberThreads, numberIterations / 10, false );
+        run( "global lock", new GlobalLockIterationTimeout(), numberThreads, numberIterations / 10, false );
+
+        run( "timeout disabled", new NoIterationTimeout(), numberThreads, numberIterations, true );
+        run( "per-thread slots", new SlotsIterationTimeout(), numberThreads, numberIterations, true );
+        run( "global lock", new GlobalLockIterationTimeout(), numberThreads, numberIterations, true );
+    }
+
+    private static void run( String name, final IterationTimeout iterationTimeout, int numberThreads,
+                             final int numberIterations, boolean printResult ) throws Exception {
+
+        final List<AbstractActionTask> actionTasks = new ArrayList<AbstractActionTask>();
+        for( int i = 0; i < numberThreads; i++ ) {
+            actionTasks.add( createActionTask( iterationTimeout.getManager() ) );
+        }
+
+        final CountDownLatch startLatch = new CountDownLatch( 1 );
+        final CountDownLatch endLatch = new CountDownLatch( numberThreads );
+
+        ExecutorService executor = Executors.newFixedThreadPool( numberThreads );
+        for( int i = 0; i < numberThreads; i++ ) {
+            final AbstractActionTask actionTask = actionTasks.get( i );
+            executor.execute( new Runnable() {
+
+                @Override
+                public void run() {
+
+                    try {
+                        startLatch.await();
+                        for( int j = 0; j < numberIterations; j++ ) {
+                            iterationTimeout.start( actionTask );
+                            iterationTimeout.end();
+                        }
+                    } catch( InterruptedException e ) {
+                        Thread.currentThread().interrupt();
+                    } finally {
+                        iterationTimeout.shutdown();
+                        endLatch.countDown();
+                    }
+                }
+            } );
+        }
+
+        iterationTimeout.startManager();
+
+        long startTime = System.nanoTime();
+        startLatch.countDown();
+        endLatch.await();
+        long totalNanos = System.nanoTime() - startTime;
+
+        executor.shutdown();
+        executor.awaitTermination( 1, TimeUnit.MINUTES );
+
+        if( printResult ) {
+            long totalIterations = ( long ) numberThreads * numberIterations;
+            System.out.println( String.format( "%-18s %,10.1f ns per iteration, total time %,10.1f ms", name,
+                                               ( double ) totalNanos / totalIterations,
+                                               totalNanos / 1000000D ) );
+        }
+    }
+
+    private static AbstractActionTask createActionTask( IterationTimeoutManager itManager ) throws Exception {
+
+        AllAtOncePattern pattern = new AllAtOncePattern( 1, true, 1, 0 );
+        ParameterValuesGenerator parameterValuesGenerator = new ParameterValuesGenerator( new ArrayList<ParameterDataProvider>() );
+        return ( AbstractActionTask ) ActionTaskFactory.createTask( "IP", "Benchmark queue", pattern,
+                                                                    pattern.getExecutionsPerTimeFrame(),
+                                                                    new ThreadsManager(), itManager,
+                                                                    new ArrayList<ActionRequest>(),
+                                                                    parameterValuesGenerator,
+                                                                    null, false );
+    }
+
+    private interface IterationTimeout {
+
+        IterationTimeoutManager getManager();
+
+        void startManager();
+
+        void start( AbstractActionTask actionTask );
+
+        void end();
+
+        void shutdown();
+    }
+
+    private static class NoIterationTimeout implements IterationTimeout {
+
+        @Override
+        public IterationTimeoutManager getManager() {
+
+            return null;
+        }
+
+        @Override
+        public void startManager() {
+
+        }
+
+        @Override
+        public void start( AbstractActionTask actionTask ) {
+
+        }
+
+        @Override
+        public void end() {
+
+        }
+
+        @Override
+        public void shutdown() {
+
+        }
+    }
+
+    private static class SlotsIterationTimeout implements IterationTimeout {
+
+        // long enough, so no iteration times out
+        private final IterationTimeoutManager itManager = new IterationTimeoutManager( 3600 );
+
+        @Override
+        public IterationTimeoutManager getManager() {
+
+            return itManager;
+        }
+
+        @Override
+        public void startManager() {
+
+            itManager.setDaemon( true );
+            itManager.start();
+        }
+
+        @Override
+        public void start( AbstractActionTask actionTask ) {
+
+            itManager.setIterationStartTime( actionTask, System.currentTimeMillis() );
+        }
+
+        @Override
+        public void end() {
+
+            itManager.clearIterationStartTime();
+        }
+
+        @Override
+        public void shutdown() {
+
+            itManager.shutdown();
+        }
+    }
+
+    /**
+     * The hot path of the previous IterationTimeoutManager implementation, kept here for comparison
+     */
+    private static class GlobalLockIterationTimeout implements IterationTimeout {
+
+        private static final long             NOT_SET_START_TIME     = Long.MAX_VALUE;
+
+        private Map<String, ThreadDescriptor> threads                = new HashMap<String, ThreadDescriptor>();
+        private long                          nextIterationStartTime = NOT_SET_START_TIME;
+
+        @Override
+        public IterationTimeoutManager getManager() {
+
+            return null;
+        }
+
+        @Override
+        public void startManager() {
+
+        }
+
+        @Override
+        public void start( AbstractActionTask actionTask ) {
+
+            long iterationStartTime = System.currentTimeMillis();
+            Thread thread = Thread.currentThread();
+            synchronized( this.threads ) {
+                if( this.nextIterationStartTime > iterationStartTime ) {
+                    this.nextIterationStartTime = iterationStartTime;
+                }
+
+                String threadName = thread.getName();
+                ThreadDescriptor threadDesc = this.threads.get( threadName );
+                if( threadDesc == null ) {
+                    threadDesc = new ThreadDescriptor();
+                    threadDesc.actionTask = actionTask;
+                    threadDesc.thread = thread;
+                    this.threads.put( threadName, threadDesc );
+                }
+                threadDesc.iterationStartTime = iterationStartTime;
+            }
+        }
+
+        @Override
+        public void end() {
+
+            String threadName = Thread.currentThread().getName();
+            synchronized( this.threads ) {
+                ThreadDescriptor threadDesc = this.threads.get( threadName );
+                if( threadDesc != null ) {
+                    long thisThreadIterationStartTime = threadDesc.iterationStartTime;
+                    threadDesc.iterationStartTime = NOT_SET_START_TIME;
+
+                    if( thisThreadIterationStartTime == this.nextIterationStartTime ) {
+                        this.nextIterationStartTime = NOT_SET_START_TIME;
+                        for( ThreadDescriptor _threadDesc : threads.values() ) {
+                            if( this.nextIterationStartTime > _threadDesc.iterationStartTime ) {
+                                this.nextIterationStartTime = _threadDesc.iterationStartTime;
+                            }
+                        }
+                    }
+                }
+            }
+        }
+
+        @Override
+        public void shutdown() {
+
+            synchronized( this.threads ) {
+                this.threads.remove( Thread.currentThread().getName() );
+            }
+        }
+
+        private static class ThreadDescriptor {
+            @SuppressWarnings("unused")
+            private AbstractActionTask actionTask;
+            @SuppressWarnings("unused")
+            private Thread             thread;
+            private long               iterationStartTime;
+        }
+    }
+}
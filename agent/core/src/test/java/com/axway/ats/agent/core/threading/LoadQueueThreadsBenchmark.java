@@ -0,0 +1,140 @@
+/*
+ * Copyright 2017 Axway Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.axway.ats.agent.core.threading;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Standalone benchmark which compares running the simulated users on operating system threads
+ * and on virtual threads.
+ *
+ * The users wait for the start signal on a {@link ThreadsManager}, as the load queue threads do,
+ * and then run a number of iterations, blocking in each one as if waiting for a network response.
+ * For each mode it prints the time needed to start all users, the time needed to release them all
+ * and the iteration scheduling overhead, which is the iteration time above the simulated I/O time.
+ *
+ * Usage: LoadQueueThreadsBenchmark [number users] [number iterations] [I/O time in ms]
+ *
+ * It is not a unit test, so it is not run during the build. Virtual threads need Java 21 or newer.
+ */
+public class LoadQueueThreadsBenchmark {
+
+    public static void main( String[] args ) throws Exception {
+
+        int numberUsers = args.length > 0
+                                          ? Integer.parseInt( args[0] )
+                                          : 5000;
+        int numberIterations = args.length > 1
+                                               ? Integer.parseInt( args[1] )
+                                               : 20;
+        long ioMillis = args.length > 2
+                                        ? Long.parseLong( args[2] )
+                                        : 50;
+
+        System.out.println( "Running " + numberUsers + " users for " + numberIterations + " iterations with "
+                            + ioMillis + " ms I/O time on Java " + System.getProperty( "java.version" ) );
+
+        run( "platform threads", Executors.newCachedThreadPool(), numberUsers, numberIterations, ioMillis );
+
+        if( VirtualThreads.isSupported() ) {
+            run( "virtual threads", VirtualThreads.newVirtualThreadPerTaskExecutor(), numberUsers,
+                 numberIterations, ioMillis );
+        } else {
+            System.out.println( "Virtual threads are not supported by this JVM" );
+        }
+    }
+
+    private static void run( String modeName, ExecutorService executor, int numberUsers,
+                             final int numberIterations, final long ioMillis ) throws Exception {
+
+        final ThreadsManager threadsManager = new ThreadsManager();
+        final CountDownLatch usersWaiting = new CountDownLatch( numberUsers );
+        final CountDownLatch usersReleased = new CountDownLatch( numberUsers );
+        final CountDownLatch usersFinished = new CountDownLatch( numberUsers );
+        final AtomicLong overheadNanos = new AtomicLong();
+        final AtomicLong maxOverheadNanos = new AtomicLong();
+        final long ioNanos = TimeUnit.MILLISECONDS.toNanos( ioMillis );
+
+        long startTime = System.nanoTime();
+        try {
+            for( int i = 0; i < numberUsers; i++ ) {
+                executor.execute( new Runnable() {
+
+                    @Override
+                    public void run() {
+
+                        usersWaiting.countDown();
+                        threadsManager.waitForStart();
+                        usersReleased.countDown();
+
+                        long userOverheadNanos = 0;
+                        long userMaxOverheadNanos = 0;
+                        try {
+                            for( int j = 0; j < numberIterations; j++ ) {
+                                long iterationStartTime = System.nanoTime();
+                                Thread.sleep( ioMillis );
+                                long iterationOverheadNanos = System.nanoTime() - iterationStartTime - ioNanos;
+
+                                userOverheadNanos += iterationOverheadNanos;
+                                userMaxOverheadNanos = Math.max( userMaxOverheadNanos, iterationOverheadNanos );
+                            }
+                        } catch( InterruptedException e ) {
+                            Thread.currentThread().interrupt();
+                        } finally {
+                            overheadNanos.addAndGet( userOverheadNanos );
+                            long currentMax;
+                            while( userMaxOverheadNanos > ( currentMax = maxOverheadNanos.get() )
+                                   && !maxOverheadNanos.compareAndSet( currentMax, userMaxOverheadNanos ) ) {
+                                // try again
+                            }
+                            usersFinished.countDown();
+                        }
+                    }
+                } );
+            }
+            usersWaiting.await();
+        } catch( OutOfMemoryError e ) {
+            // the JVM cannot create that many operating system threads
+            System.out.println( String.format( "%-18s unable to start %,d users: %s", modeName, numberUsers,
+                                               e.getMessage() ) );
+            executor.shutdownNow();
+            return;
+        }
+        long startUsersNanos = System.nanoTime() - startTime;
+
+        long releaseStartTime = System.nanoTime();
+        threadsManager.start();
+        usersReleased.await();
+        long releaseUsersNanos = System.nanoTime() - releaseStartTime;
+
+        usersFinished.await();
+        long totalNanos = System.nanoTime() - startTime;
+
+        executor.shutdown();
+        executor.awaitTermination( 1, TimeUnit.MINUTES );
+
+        long numberUserIterations = ( long ) numberUsers * numberIterations;
+        System.out.println( String.format( "%-18s %,8d users started in %,8.1f ms, released in %,8.1f ms, iteration overhead: average %,8.3f ms, max %,8.3f ms, total time %,8.1f ms",
+                                           modeName, numberUsers, startUsersNanos / 1000000D,
+                                           releaseUsersNanos / 1000000D,
+                                           overheadNanos.get() / 1000000D / numberUserIterations,
+                                           maxOverheadNanos.get() / 1000000D, totalNanos / 1000000D ) );
+    }
+}
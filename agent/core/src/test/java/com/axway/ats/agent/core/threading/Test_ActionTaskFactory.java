@@ -29,6 +29,7 @@ import com.axway.ats.agent.core.exceptions.NoCompatibleMethodFoundException;
 import com.axway.ats.agent.core.exceptions.NoSuchActionException;
 import com.axway.ats.agent.core.exceptions.NoSuchComponentException;
 import com.axway.ats.agent.core.threading.data.ParameterDataProvider;
+import com.axway.ats.agent.core.threading.data.ParameterValuesGenerator;
 import com.axway.ats.agent.core.threading.exceptions.ThreadingPatternNotSupportedException;
 import com.axway.ats.agent.core.threading.patterns.AllAtOncePattern;
 import com.axway.ats.agent.core.threading.patterns.FixedDurationAllAtOncePattern;
@@ -44,6 +45,7 @@ public class Test_ActionTaskFactory extends BaseTest {
                                                      ThreadingPatternNotSupportedException {
 
         AllAtOncePattern pattern = new AllAtOncePattern( 10, true, 20, 1400 );
+        ParameterValuesGenerator parameterValuesGenerator = new ParameterValuesGenerator( new ArrayList<ParameterDataProvider>() );
         Runnable actionTask = ActionTaskFactory.createTask( "IP",
                                                             "Action_Queue",
                                                             pattern,
@@ -51,7 +53,7 @@ public class Test_ActionTaskFactory extends BaseTest {
                                                             new ThreadsManager(),
                                                             null,
                                                             new ArrayList<ActionRequest>(),
-                                                            new ArrayList<ParameterDataProvider>(),
+                                                            parameterValuesGenerator,
                                                             null,
                                                             false );
 
@@ -64,6 +66,7 @@ public class Test_ActionTaskFactory extends BaseTest {
                                                ThreadingPatternNotSupportedException {
 
         FixedDurationAllAtOncePattern pattern = new FixedDurationAllAtOncePattern( 10, true, 20, 1400 );
+        ParameterValuesGenerator parameterValuesGenerator = new ParameterValuesGenerator( new ArrayList<ParameterDataProvider>() );
         Runnable actionTask = ActionTaskFactory.createTask( "IP",
                                                             "Action_Queue",
                                                             pattern,
@@ -71,7 +74,7 @@ public class Test_ActionTaskFactory extends BaseTest {
                                                             new ThreadsManager(),
                                                             null,
                                                             new ArrayList<ActionRequest>(),
-                                                            new ArrayList<ParameterDataProvider>(),
+                                                            parameterValuesGenerator,
                                                             null,
                                                             false );
 
@@ -85,6 +88,7 @@ public class Test_ActionTaskFactory extends BaseTest {
                                                              ThreadingPatternNotSupportedException {
 
         UnsupportedPattern pattern = new UnsupportedPattern( 10, false );
+        ParameterValuesGenerator parameterValuesGenerator = new ParameterValuesGenerator( new ArrayList<ParameterDataProvider>() );
         Runnable actionTask = ActionTaskFactory.createTask( "IP",
                                                             "Action_Queue",
                                                             pattern,
@@ -92,7 +96,7 @@ public class Test_ActionTaskFactory extends BaseTest {
                                                             new ThreadsManager(),
                                                             null,
                                                             new ArrayList<ActionRequest>(),
-                                                            new ArrayList<ParameterDataProvider>(),
+                                                            parameterValuesGenerator,
                                                             null,
                                                             false );
 
@@ -0,0 +1,47 @@
+/*
+ * Copyright 2017 Axway Software
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.axway.ats.agent.core.threading;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import com.axway.ats.agent.core.BaseTest;
+
+public class Test_ActionTimingRecorder extends BaseTest {
+
+    @Test
+    public void recordPerAction() {
+
+        ActionTimingRecorder recorder = new ActionTimingRecorder( 2 );
+
+        recorder.record( 0, 1500 );
+        recorder.record( 0, 500 );
+        recorder.record( 0, 1000 );
+
+        assertEquals( 3, recorder.getNumberExecutions( 0 ) );
+        assertEquals( 3000, recorder.getSumNanos( 0 ) );
+        assertEquals( 500, recorder.getMinNanos( 0 ) );
+        assertEquals( 1500, recorder.getMaxNanos( 0 ) );
+        assertEquals( 1000, recorder.getAverageNanos( 0 ) );
+
+        // the second action is not executed
+        assertEquals( 0, recorder.getNumberExecutions( 1 ) );
+        assertEquals( 0, recorder.getMinNanos( 1 ) );
+        assertEquals( 0, recorder.getMaxNanos( 1 ) );
+        assertEquals( 0, recorder.getAverageNanos( 1 ) );
+    }
+}
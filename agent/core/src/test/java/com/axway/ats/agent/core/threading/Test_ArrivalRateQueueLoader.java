@@ -0,0 +1,124 @@
+/*
+ * Copyright 2017 Axway Software
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.axway.ats.agent.core.threading;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.axway.ats.agent.core.BaseTest;
+import com.axway.ats.agent.core.Component;
+import com.axway.ats.agent.core.ComponentActionMap;
+import com.axway.ats.agent.core.ComponentRepository;
+import com.axway.ats.agent.core.action.ActionRequest;
+import com.axway.ats.agent.core.exceptions.AgentException;
+import com.axway.ats.agent.core.monitoring.queue.ActionExecutionStatistic;
+import com.axway.ats.agent.core.monitoring.queue.QueueExecutionStatistics;
+import com.axway.ats.agent.core.threading.data.ParameterDataProvider;
+import com.axway.ats.agent.core.threading.patterns.ConstantArrivalRatePattern;
+import com.axway.ats.agent.core.threading.patterns.StepArrivalRatePattern;
+import com.axway.ats.agent.core.threading.patterns.ThreadingPattern;
+
+public class Test_ArrivalRateQueueLoader extends BaseTest {
+
+    private static final String QUEUE_NAME = "Arrival rate queue";
+
+    @BeforeClass
+    public static void setUpTest_ArrivalRateQueueLoader() throws AgentException {
+
+        Component component = new Component( TEST_COMPONENT_NAME );
+        ComponentActionMap actionMap = new ComponentActionMap( TEST_COMPONENT_NAME );
+        actionMap.registerActionClass( LoadTestActionClass.class );
+        component.setActionMap( actionMap );
+
+        ComponentRepository componentRepository = ComponentRepository.getInstance();
+        componentRepository.clear();
+        componentRepository.putComponent( component );
+    }
+
+    @Test
+    public void allArrivalsStarted() throws Exception {
+
+        ConstantArrivalRatePattern pattern = new ConstantArrivalRatePattern( 10, true, 20, 1 );
+        ArrivalRateQueueLoader loader = runQueue( pattern, 5 );
+
+        assertEquals( 20, loader.getNumberArrivals() );
+        assertEquals( 0, loader.getNumberMissedArrivals() );
+        assertEquals( 20, loader.getQueueingDelays().getTotalCount() );
+        assertEquals( 20, loader.getServiceTimes().getTotalCount() );
+        // the threads are started only when needed
+        assertTrue( loader.getNumberStartedThreads() < 10 );
+        // each iteration sleeps at least 5 ms
+        assertTrue( loader.getServiceTimes().getMinValue() >= 5000 );
+    }
+
+    @Test
+    public void arrivalsMissedWhenAllThreadsAreBusy() throws Exception {
+
+        // one iteration takes longer than the time between two arrivals
+        StepArrivalRatePattern pattern = new StepArrivalRatePattern( 1, true );
+        pattern.addStep( 20, 1 );
+        ArrivalRateQueueLoader loader = runQueue( pattern, 120 );
+
+        assertEquals( 20, loader.getNumberArrivals() );
+        assertEquals( 1, loader.getNumberStartedThreads() );
+        assertTrue( loader.getNumberMissedArrivals() > 0 );
+        assertEquals( 20 - loader.getNumberMissedArrivals(), loader.getServiceTimes().getTotalCount() );
+
+        // the missed arrivals are reported as failed executions
+        int numberFailed = 0;
+        for( ActionExecutionStatistic statistic : QueueExecutionStatistics.getInstance()
+                                                                          .getActionExecutionResults( QUEUE_NAME ) ) {
+            if( ArrivalRateQueueLoader.ATS_ACTION__MISSED_ARRIVALS.equals( statistic.getActionName() ) ) {
+                numberFailed = statistic.getNumberFailed();
+            }
+        }
+        assertEquals( loader.getNumberMissedArrivals(), numberFailed );
+    }
+
+    @Test
+    public void cancel() throws Exception {
+
+        ConstantArrivalRatePattern pattern = new ConstantArrivalRatePattern( 2, false, 10, 60 );
+        ArrivalRateQueueLoader loader = runQueue( pattern, 5 );
+        assertEquals( ActionTaskLoaderState.RUNNING, loader.getState() );
+
+        loader.cancel();
+        assertEquals( ActionTaskLoaderState.FINISHED, loader.getState() );
+    }
+
+    private ArrivalRateQueueLoader runQueue( ThreadingPattern pattern, int sleepTime ) throws Exception {
+
+        List<ActionRequest> actionRequests = new ArrayList<ActionRequest>();
+        actionRequests.add( new ActionRequest( TEST_COMPONENT_NAME, "sleep action",
+                                               new Object[]{ String.valueOf( sleepTime ) } ) );
+
+        ArrivalRateQueueLoader loader = ( ArrivalRateQueueLoader ) LoadQueueFactory.createLoadQueue( QUEUE_NAME,
+                                                                                                     actionRequests,
+                                                                                                     pattern,
+                                                                                                     new ArrayList<ParameterDataProvider>(),
+                                                                                                     null );
+        loader.scheduleThreads( "IP", false );
+        QueueExecutionStatistics.getInstance().initActionExecutionResults( QUEUE_NAME );
+        loader.start();
+        return loader;
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2017 Axway Software
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.axway.ats.agent.core.threading;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import com.axway.ats.agent.core.BaseTest;
+
+public class Test_ArrivalSchedule extends BaseTest {
+
+    @Test
+    public void constantRate() {
+
+        ArrivalSchedule schedule = new ArrivalSchedule( new double[]{ 4 }, new int[]{ 2 } );
+
+        for( int i = 0; i < 8; i++ ) {
+            assertEquals( i * TimeUnit.MILLISECONDS.toNanos( 250 ), schedule.nextArrivalOffset() );
+        }
+        assertEquals( ArrivalSchedule.NO_MORE_ARRIVALS, schedule.nextArrivalOffset() );
+        assertEquals( ArrivalSchedule.NO_MORE_ARRIVALS, schedule.nextArrivalOffset() );
+    }
+
+    @Test
+    public void fractionalRate() {
+
+        // one arrival every 4 seconds
+        ArrivalSchedule schedule = new ArrivalSchedule( new double[]{ 0.25 }, new int[]{ 10 } );
+
+        assertEquals( 0, schedule.nextArrivalOffset() );
+        assertEquals( TimeUnit.SECONDS.toNanos( 4 ), schedule.nextArrivalOffset() );
+        assertEquals( TimeUnit.SECONDS.toNanos( 8 ), schedule.nextArrivalOffset() );
+        assertEquals( ArrivalSchedule.NO_MORE_ARRIVALS, schedule.nextArrivalOffset() );
+    }
+
+    @Test
+    public void stepsWithPause() {
+
+        ArrivalSchedule schedule = new ArrivalSchedule( new double[]{ 1, 0, 2 }, new int[]{ 2, 3, 1 } );
+
+        assertEquals( 0, schedule.nextArrivalOffset() );
+        assertEquals( TimeUnit.SECONDS.toNanos( 1 ), schedule.nextArrivalOffset() );
+        // no arrivals in the next 3 seconds
+        assertEquals( TimeUnit.SECONDS.toNanos( 5 ), schedule.nextArrivalOffset() );
+        assertEquals( TimeUnit.MILLISECONDS.toNanos( 5500 ), schedule.nextArrivalOffset() );
+        assertEquals( ArrivalSchedule.NO_MORE_ARRIVALS, schedule.nextArrivalOffset() );
+    }
+
+    @Test
+    public void highRate() {
+
+        ArrivalSchedule schedule = new ArrivalSchedule( new double[]{ 1000000 }, new int[]{ 3 } );
+
+        long numberArrivals = 0;
+        long previousOffset = -1;
+        long offset;
+        while( ( offset = schedule.nextArrivalOffset() ) != ArrivalSchedule.NO_MORE_ARRIVALS ) {
+            if( previousOffset >= 0 ) {
+                assertEquals( 1000, offset - previousOffset, 1 );
+            }
+            previousOffset = offset;
+            numberArrivals++;
+        }
+        assertEquals( 3000000, numberArrivals );
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void differentNumberOfRatesAndDurations() {
+
+        new ArrivalSchedule( new double[]{ 1, 2 }, new int[]{ 2 } );
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2017 Axway Software
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.axway.ats.agent.core.threading;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Test;
+
+import com.axway.ats.agent.core.BaseTest;
+import com.axway.ats.agent.core.action.ActionRequest;
+import com.axway.ats.agent.core.threading.data.ParameterDataProvider;
+import com.axway.ats.agent.core.threading.data.ParameterValuesGenerator;
+import com.axway.ats.agent.core.threading.patterns.AllAtOncePattern;
+
+public class Test_IterationTimeoutManager extends BaseTest {
+
+    @Test
+    public void timedOutIterationIsInterrupted() throws Exception {
+
+        final IterationTimeoutManager itManager = new IterationTimeoutManager( 1 );
+        final AbstractActionTask actionTask = createActionTask( itManager );
+        final AtomicBoolean isInterrupted = new AtomicBoolean();
+
+        Thread thread = new Thread( new Runnable() {
+
+            @Override
+            public void run() {
+
+                itManager.setIterationStartTime( actionTask, System.currentTimeMillis() );
+                // the users can rename their threads
+                Thread.currentThread().setName( "renamed user thread" );
+                try {
+                    Thread.sleep( 10000 );
+                } catch( InterruptedException e ) {
+                    isInterrupted.set( true );
+                } finally {
+                    itManager.clearIterationStartTime();
+                    itManager.shutdown();
+                }
+            }
+        } );
+        itManager.start();
+        thread.start();
+
+        thread.join( 5000 );
+        assertTrue( isInterrupted.get() );
+        assertTrue( actionTask.isTimedOut() );
+
+        // there are no more threads to manage
+        itManager.join( 5000 );
+        assertFalse( itManager.isAlive() );
+    }
+
+    @Test
+    public void finishedIterationIsNotInterrupted() throws Exception {
+
+        final IterationTimeoutManager itManager = new IterationTimeoutManager( 1 );
+        final AbstractActionTask actionTask = createActionTask( itManager );
+        final AtomicBoolean isInterrupted = new AtomicBoolean();
+        final CountDownLatch endLatch = new CountDownLatch( 1 );
+
+        Thread thread = new Thread( new Runnable() {
+
+            @Override
+            public void run() {
+
+                try {
+                    for( int i = 0; i < 20; i++ ) {
+                        itManager.setIterationStartTime( actionTask, System.currentTimeMillis() );
+                        Thread.sleep( 100 );
+                        itManager.clearIterationStartTime();
+                    }
+                    // sleeping between iterations
+                    endLatch.await();
+                } catch( InterruptedException e ) {
+                    isInterrupted.set( true );
+                } finally {
+                    itManager.shutdown();
+                }
+            }
+        } );
+        itManager.start();
+        thread.start();
+
+        Thread.sleep( 3500 );
+        endLatch.countDown();
+        thread.join( 5000 );
+
+        assertFalse( isInterrupted.get() );
+        assertFalse( actionTask.isTimedOut() );
+
+        itManager.join( 5000 );
+        assertFalse( itManager.isAlive() );
+    }
+
+    private AbstractActionTask createActionTask( IterationTimeoutManager itManager ) throws Exception {
+
+        AllAtOncePattern pattern = new AllAtOncePattern( 1, true, 1, 0 );
+        ParameterValuesGenerator parameterValuesGenerator = new ParameterValuesGenerator( new ArrayList<ParameterDataProvider>() );
+        return ( AbstractActionTask ) ActionTaskFactory.createTask( "IP", "Timeout queue", pattern,
+                                                                    pattern.getExecutionsPerTimeFrame(),
+                                                                    new ThreadsManager(), itManager,
+                                                                    new ArrayList<ActionRequest>(),
+                                                                    parameterValuesGenerator,
+                                                                    null, false );
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2017 Axway Software
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.axway.ats.agent.core.threading;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import com.axway.ats.agent.core.BaseTest;
+
+public class Test_LatencyCorrection extends BaseTest {
+
+    @Test
+    public void iterationOnTime() {
+
+        LatencyCorrection correction = new LatencyCorrection( 1 );
+        // started earlier than intended
+        correction.startIteration( 1000, 900 );
+
+        assertEquals( 50, correction.correct( 0, 5000, 50 ) );
+        assertEquals( 5000, correction.getIntendedStartTimestamp( 0 ) );
+    }
+
+    @Test
+    public void allActionsOfLateIterationAreCorrected() {
+
+        LatencyCorrection correction = new LatencyCorrection( 2 );
+        // the iteration started 300 ms late
+        correction.startIteration( 1000000000L, 1300000000L );
+
+        // the first action took 100 ms, the second one 50 ms
+        assertEquals( 400000000L, correction.correct( 0, 5000, 100000000L ) );
+        assertEquals( 4700, correction.getIntendedStartTimestamp( 0 ) );
+        assertEquals( 350000000L, correction.correct( 1, 5100, 50000000L ) );
+        assertEquals( 4800, correction.getIntendedStartTimestamp( 1 ) );
+
+        // the delay is per iteration
+        correction.startIteration( 2000000000L, 2000000000L );
+        assertEquals( 100000000L, correction.correct( 0, 6000, 100000000L ) );
+    }
+
+    @Test
+    public void noSkippedIterations() {
+
+        LatencyCorrection correction = new LatencyCorrection( 2 );
+        correction.startIteration( 0, 0 );
+        correction.correct( 0, 5000, 350 );
+
+        // not paced
+        assertEquals( 0, correction.getSkippedIterationLatencies( 0, 0, 5 ).length );
+        // nothing skipped
+        assertEquals( 0, correction.getSkippedIterationLatencies( 0, 100, 0 ).length );
+        // the action did not pass
+        assertEquals( 0, correction.getSkippedIterationLatencies( 1, 100, 5 ).length );
+        // the next iteration had to start when the last one ended
+        correction.correct( 0, 5000, 100 );
+        assertEquals( 0, correction.getSkippedIterationLatencies( 0, 100, 5 ).length );
+    }
+
+    @Test
+    public void skippedIterations() {
+
+        LatencyCorrection correction = new LatencyCorrection( 1 );
+        correction.startIteration( 0, 0 );
+        correction.correct( 0, 5000, 350 );
+
+        // the iterations which had to start at 100, 200 and 300 could not start till 350
+        assertArrayEquals( new long[]{ 250, 150, 50 }, correction.getSkippedIterationLatencies( 0, 100, 5 ) );
+        // only the skipped ones are counted
+        assertArrayEquals( new long[]{ 250 }, correction.getSkippedIterationLatencies( 0, 100, 1 ) );
+    }
+
+    @Test
+    public void tooManySkippedIterations() {
+
+        LatencyCorrection correction = new LatencyCorrection( 1 );
+        correction.startIteration( 0, 0 );
+        correction.correct( 0, 5000, Long.MAX_VALUE / 2 );
+
+        long[] latencies = correction.getSkippedIterationLatencies( 0, 1, Integer.MAX_VALUE );
+
+        assertEquals( LatencyCorrection.MAX_OMITTED_ITERATIONS, latencies.length );
+        assertEquals( Long.MAX_VALUE / 2 - 1, latencies[0] );
+    }
+}
@@ -26,9 +26,11 @@ import com.axway.ats.agent.core.action.ActionRequest;
 import com.axway.ats.agent.core.threading.data.ParameterDataProvider;
 import com.axway.ats.agent.core.threading.exceptions.ThreadingPatternNotSupportedException;
 import com.axway.ats.agent.core.threading.patterns.AllAtOncePattern;
+import com.axway.ats.agent.core.threading.patterns.ConstantArrivalRatePattern;
 import com.axway.ats.agent.core.threading.patterns.FixedDurationAllAtOncePattern;
 import com.axway.ats.agent.core.threading.patterns.FixedDurationRampUpPattern;
 import com.axway.ats.agent.core.threading.patterns.RampUpPattern;
+import com.axway.ats.agent.core.threading.patterns.StepArrivalRatePattern;
 import com.axway.ats.agent.core.threading.patterns.ThreadingPattern;
 
 public class Test_LoadQueueFactory {
@@ -81,6 +83,31 @@ public class Test_LoadQueueFactory {
         assertEquals( RampUpQueueLoader.class, loader.getClass() );
     }
 
+    @Test
+    public void createQueueConstantArrivalRatePatternPositive() throws Exception {
+
+        ConstantArrivalRatePattern pattern = new ConstantArrivalRatePattern( 100, false, 50, 60 );
+
+        QueueLoader loader = LoadQueueFactory.createLoadQueue( "test", new ArrayList<ActionRequest>(),
+                                                               pattern,
+                                                               new ArrayList<ParameterDataProvider>(), null );
+
+        assertEquals( ArrivalRateQueueLoader.class, loader.getClass() );
+    }
+
+    @Test
+    public void createQueueStepArrivalRatePatternPositive() throws Exception {
+
+        StepArrivalRatePattern pattern = new StepArrivalRatePattern( 100, false );
+        pattern.addStep( 50, 60 );
+
+        QueueLoader loader = LoadQueueFactory.createLoadQueue( "test", new ArrayList<ActionRequest>(),
+                                                               pattern,
+                                                               new ArrayList<ParameterDataProvider>(), null );
+
+        assertEquals( ArrivalRateQueueLoader.class, loader.getClass() );
+    }
+
     @Test(expected = ThreadingPatternNotSupportedException.class)
     public void createQueueNegativePatternNotSupported() throws Exception {
 
@@ -15,13 +15,19 @@
  */
 package com.axway.ats.agent.core.threading;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 import java.util.Random;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.apache.log4j.Logger;
 import org.junit.Test;
@@ -85,6 +91,87 @@ public class Test_ThreadsManager extends BaseTest {
         checkAllRemainingThreads();
     }
 
+    @Test
+    public void manyQuickIterations() throws Exception {
+
+        final int nThreads = 50;
+        final int nIterations = 2000;
+
+        final ThreadsManager threadsManager = new ThreadsManager();
+        final AtomicReference<CountDownLatch> iterationEndGate = new AtomicReference<CountDownLatch>();
+        final AtomicInteger runsInIteration = new AtomicInteger();
+
+        ExecutorService executor = Executors.newFixedThreadPool( nThreads );
+        try {
+            for( int j = 0; j < nThreads; j++ ) {
+                executor.execute( new Runnable() {
+
+                    @Override
+                    public void run() {
+
+                        for( int i = 0; i < nIterations; i++ ) {
+                            threadsManager.waitForStart();
+                            runsInIteration.incrementAndGet();
+                            iterationEndGate.get().countDown();
+                        }
+                    }
+                } );
+            }
+
+            for( int i = 0; i < nIterations; i++ ) {
+                CountDownLatch endGate = new CountDownLatch( nThreads );
+                iterationEndGate.set( endGate );
+                runsInIteration.set( 0 );
+
+                threadsManager.start();
+
+                assertTrue( "Iteration " + i + " did not complete",
+                            endGate.await( 10, TimeUnit.SECONDS ) );
+                // each thread must run exactly once per iteration
+                assertEquals( nThreads, runsInIteration.get() );
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void lateWorkerStartsInCurrentIteration() throws Exception {
+
+        final ThreadsManager threadsManager = new ThreadsManager();
+
+        // start some iterations before the worker asks for start
+        threadsManager.start();
+        threadsManager.start();
+        threadsManager.start();
+
+        final AtomicInteger nRuns = new AtomicInteger();
+        Thread worker = new Thread( new Runnable() {
+
+            @Override
+            public void run() {
+
+                // runs in the current iteration
+                threadsManager.waitForStart();
+                nRuns.incrementAndGet();
+
+                // waits for the next iteration
+                threadsManager.waitForStart();
+                nRuns.incrementAndGet();
+            }
+        } );
+        worker.start();
+
+        worker.join( 500 );
+        assertEquals( 1, nRuns.get() );
+        assertTrue( worker.isAlive() );
+
+        threadsManager.start();
+        worker.join( 5000 );
+        assertEquals( 2, nRuns.get() );
+        assertFalse( worker.isAlive() );
+    }
+
     void runThisIteration() {
 
         synchronized( Test_ThreadsManager.waitForIterationCompletionObject ) {
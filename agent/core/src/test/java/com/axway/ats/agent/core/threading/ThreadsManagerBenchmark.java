@@ -0,0 +1,244 @@
+/*
+ * Copyright 2017 Axway Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.axway.ats.agent.core.threading;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Standalone stress benchmark for the {@link ThreadsManager} iteration barrier.
+ * It compares the current implementation with the previous one, which kept a lock and a set of
+ * thread ids for each iteration.
+ *
+ * Two things are measured:
+ * <ul>
+ * <li>memory - the heap retained by a barrier after starting a number of iterations</li>
+ * <li>wake-up latency - the time from starting an iteration until all threads are running</li>
+ * </ul>
+ *
+ * Usage: ThreadsManagerBenchmark [number threads] [number iterations] [number latency iterations]
+ *
+ * The defaults are 10000 threads, 1000000 iterations for the memory test and 1000 iterations
+ * for the latency test. It is not a unit test, so it is not run during the build.
+ */
+public class ThreadsManagerBenchmark {
+
+    public static void main( String[] args ) throws Exception {
+
+        int numberThreads = args.length > 0
+                                            ? Integer.parseInt( args[0] )
+                                            : 10000;
+        int numberIterations = args.length > 1
+                                               ? Integer.parseInt( args[1] )
+                                               : 1000000;
+        int numberLatencyIterations = args.length > 2
+                                                      ? Integer.parseInt( args[2] )
+                                                      : 1000;
+
+        System.out.println( "Memory after " + numberIterations + " iterations:" );
+        measureMemory( "phaser barrier", new PhaserBarrier(), numberIterations );
+        measureMemory( "per-iteration lists", new ListBasedBarrier(), numberIterations );
+
+        System.out.println( "Wake-up latency for " + numberThreads + " threads and " + numberLatencyIterations
+                            + " iterations:" );
+        measureLatency( "phaser barrier", new PhaserBarrier(), numberThreads, numberLatencyIterations );
+        measureLatency( "per-iteration lists", new ListBasedBarrier(), numberThreads,
+                        numberLatencyIterations );
+    }
+
+    private static void measureMemory( String name, IterationBarrier barrier,
+                                       int numberIterations ) throws Exception {
+
+        long usedMemoryBefore = getUsedMemory();
+        for( int i = 0; i < numberIterations; i++ ) {
+            barrier.start();
+        }
+        long usedMemoryAfter = getUsedMemory();
+
+        System.out.println( String.format( "%-20s %,14d bytes retained", name,
+                                           Math.max( 0, usedMemoryAfter - usedMemoryBefore ) ) );
+        // keep the barrier reachable until the measurement is done
+        barrier.start();
+    }
+
+    private static void measureLatency( String name, final IterationBarrier barrier, int numberThreads,
+                                        final int numberIterations ) throws Exception {
+
+        final AtomicReference<CountDownLatch> iterationEndGate = new AtomicReference<CountDownLatch>();
+        final AtomicLong lastWakeUpTime = new AtomicLong();
+
+        ExecutorService executor = Executors.newFixedThreadPool( numberThreads );
+        for( int j = 0; j < numberThreads; j++ ) {
+            executor.execute( new Runnable() {
+
+                @Override
+                public void run() {
+
+                    for( int i = 0; i < numberIterations; i++ ) {
+                        barrier.waitForStart();
+
+                        long now = System.nanoTime();
+                        long currentLast;
+                        while( now > ( currentLast = lastWakeUpTime.get() )
+                               && !lastWakeUpTime.compareAndSet( currentLast, now ) ) {
+                            // try again
+                        }
+                        iterationEndGate.get().countDown();
+                    }
+                }
+            } );
+        }
+
+        long totalLatencyNanos = 0;
+        long maxLatencyNanos = 0;
+        int completedIterations = 0;
+        for( ; completedIterations < numberIterations; completedIterations++ ) {
+            CountDownLatch endGate = new CountDownLatch( numberThreads );
+            iterationEndGate.set( endGate );
+
+            long startTime = System.nanoTime();
+            lastWakeUpTime.set( startTime );
+            barrier.start();
+
+            if( !endGate.await( 30, TimeUnit.SECONDS ) ) {
+                System.out.println( String.format( "%-20s iteration %d did not complete, some threads did not run exactly once",
+                                                   name, completedIterations ) );
+                break;
+            }
+
+            long latencyNanos = lastWakeUpTime.get() - startTime;
+            totalLatencyNanos += latencyNanos;
+            maxLatencyNanos = Math.max( maxLatencyNanos, latencyNanos );
+        }
+        executor.shutdownNow();
+
+        if( completedIterations > 0 ) {
+            System.out.println( String.format( "%-20s average %,10.1f us, max %,10.1f us over %,d iterations",
+                                               name, totalLatencyNanos / 1000D / completedIterations,
+                                               maxLatencyNanos / 1000D, completedIterations ) );
+        }
+    }
+
+    private static long getUsedMemory() throws InterruptedException {
+
+        Runtime runtime = Runtime.getRuntime();
+        for( int i = 0; i < 3; i++ ) {
+            System.gc();
+            Thread.sleep( 100 );
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private interface IterationBarrier {
+
+        void start();
+
+        void waitForStart();
+    }
+
+    private static class PhaserBarrier implements IterationBarrier {
+
+        private final ThreadsManager threadsManager = new ThreadsManager();
+
+        @Override
+        public void start() {
+
+            threadsManager.start();
+        }
+
+        @Override
+        public void waitForStart() {
+
+            threadsManager.waitForStart();
+        }
+    }
+
+    /**
+     * The previous ThreadsManager implementation, kept here for comparison
+     */
+    private static class ListBasedBarrier implements IterationBarrier {
+
+        private int                iterationCounter          = -1;
+
+        private List<Object>       iterationLockers          = new ArrayList<Object>();
+        private List<boolean[]>    iterationStates           = new ArrayList<boolean[]>();
+        private List<Set<Long>>    iterationProcessedThreads = new ArrayList<Set<Long>>();
+
+        ListBasedBarrier() {
+
+            addIteration();
+        }
+
+        private void addIteration() {
+
+            iterationLockers.add( new Object() );
+            iterationStates.add( new boolean[1] );
+            iterationProcessedThreads.add( Collections.synchronizedSet( new HashSet<Long>() ) );
+        }
+
+        @Override
+        public void start() {
+
+            addIteration();
+            iterationCounter++;
+            if( iterationCounter - 1 >= 0 ) {
+                iterationProcessedThreads.get( iterationCounter - 1 ).clear();
+            }
+
+            Object locker = iterationLockers.get( iterationCounter );
+            synchronized( locker ) {
+                iterationStates.get( iterationCounter )[0] = true;
+                locker.notifyAll();
+            }
+        }
+
+        @Override
+        public void waitForStart() {
+
+            int thisIterationCounter = Math.max( 0, iterationCounter );
+            Long threadId = Thread.currentThread().getId();
+
+            int iterationToWaitFor = thisIterationCounter;
+            Set<Long> thisIterationProcessedThreads = iterationProcessedThreads.get( thisIterationCounter );
+            if( !thisIterationProcessedThreads.contains( threadId ) ) {
+                thisIterationProcessedThreads.add( threadId );
+            } else {
+                iterationToWaitFor = thisIterationCounter + 1;
+                iterationProcessedThreads.get( iterationToWaitFor ).add( threadId );
+            }
+
+            Object locker = iterationLockers.get( iterationToWaitFor );
+            synchronized( locker ) {
+                if( !iterationStates.get( iterationToWaitFor )[0] ) {
+                    try {
+                        locker.wait();
+                    } catch( InterruptedException e ) {
+                        throw new RuntimeException( e );
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright 2017 Axway Software
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.axway.ats.agent.core.threading.data;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import com.axway.ats.agent.core.action.ArgumentValue;
+import com.axway.ats.agent.core.threading.data.config.ParameterProviderLevel;
+
+/**
+ * Standalone benchmark for generating the parameter values of the queue iterations.
+ * It compares the {@link ParameterValuesGenerator} with the previous approach, where all threads
+ * of a queue generated their values under a lock on the data providers list.
+ *
+ * Each thread generates the values of a PER_INVOCATION integer range, string range, list and file names
+ * data providers. The throughput in millions of generated iterations per second is printed.
+ *
+ * Usage: ParameterDataProvidersBenchmark [number threads] [number iterations per thread]
+ *
+ * The defaults are 64 threads and 200000 iterations. It is not a unit test, so it is not run during the build.
+ */
+public class ParameterDataProvidersBenchmark {
+
+    public static void main( String[] args ) throws Exception {
+
+        int numberThreads = args.length > 0
+                                            ? Integer.parseInt( args[0] )
+                                            : 64;
+        int numberIterations = args.length > 1
+                                               ? Integer.parseInt( args[1] )
+                                               : 200000;
+
+        System.out.println( "Generating values for " + numberThreads + " threads, " + numberIterations
+                            + " iterations each:" );
+        // the first runs warm up the JIT
+        for( int i = 0; i < 3; i++ ) {
+            run( "shared lock", false, numberThreads, numberIterations );
+            run( "lock-free", true, numberThreads, numberIterations );
+        }
+    }
+
+    private static void run( String name, final boolean isLockFree, int numberThreads,
+                             final int numberIterations ) throws Exception {
+
+        final List<ParameterDataProvider> dataProviders = createDataProviders();
+        final ParameterValuesGenerator generator = new ParameterValuesGenerator( dataProviders );
+
+        final CountDownLatch startLatch = new CountDownLatch( 1 );
+        List<Thread> threads = new ArrayList<Thread>();
+        for( int i = 0; i < numberThreads; i++ ) {
+            Thread thread = new Thread( new Runnable() {
+
+                @Override
+                public void run() {
+
+                    try {
+                        startLatch.await();
+                    } catch( InterruptedException e ) {
+                        return;
+                    }
+
+                    for( int j = 0; j < numberIterations; j++ ) {
+                        if( isLockFree ) {
+                            generator.generateValues();
+                        } else {
+                            generateValuesUnderLock( dataProviders );
+                        }
+                    }
+                }
+            } );
+            threads.add( thread );
+            thread.start();
+        }
+
+        long startTime = System.nanoTime();
+        startLatch.countDown();
+        for( Thread thread : threads ) {
+            thread.join();
+        }
+        long totalNanos = System.nanoTime() - startTime;
+
+        long totalIterations = ( long ) numberThreads * numberIterations;
+        System.out.println( String.format( "%-12s %,10.2f M iterations/s, %,8.1f ns per iteration", name,
+                                           totalIterations * 1000D / totalNanos,
+                                           ( double ) totalNanos / totalIterations ) );
+    }
+
+    /**
+     * The way the values were generated before
+     */
+    private static List<ArgumentValue> generateValuesUnderLock( List<ParameterDataProvider> dataProviders ) {
+
+        List<ArgumentValue> argumentValues = new ArrayList<ArgumentValue>();
+        synchronized( dataProviders ) {
+            for( ParameterDataProvider dataProvider : dataProviders ) {
+                argumentValues.add( dataProvider.getValue( argumentValues ) );
+            }
+        }
+        return argumentValues;
+    }
+
+    private static List<ParameterDataProvider> createDataProviders() throws Exception {
+
+        List<String> listValues = new ArrayList<String>();
+        for( int i = 0; i < 100; i++ ) {
+            listValues.add( "value" + i );
+        }
+
+        String folderName = new File( ParameterDataProvidersBenchmark.class.getResource( "/testfolder/classloader.html" )
+                                                                           .toURI() ).getParent();
+        List<FileContainer> fileContainers = new ArrayList<FileContainer>();
+        fileContainers.add( new FileContainer( folderName, 100, ".*" ) );
+
+        List<ParameterDataProvider> dataProviders = new ArrayList<ParameterDataProvider>();
+        dataProviders.add( new IntegerRangeParameterDataProvider( "id", 1, 1000,
+                                                                  ParameterProviderLevel.PER_INVOCATION ) );
+        dataProviders.add( new StringRangeParameterDataProvider( "user", "user{0}", 1, 1000,
+                                                                 ParameterProviderLevel.PER_INVOCATION ) );
+        dataProviders.add( new ListParameterDataProvider( "value", listValues,
+                                                          ParameterProviderLevel.PER_INVOCATION ) );
+        dataProviders.add( new FileNamesParameterDataProvider( "file", fileContainers, false, true,
+                                                               ParameterProviderLevel.PER_INVOCATION ) );
+        for( ParameterDataProvider dataProvider : dataProviders ) {
+            dataProvider.initialize();
+        }
+        return dataProviders;
+    }
+}
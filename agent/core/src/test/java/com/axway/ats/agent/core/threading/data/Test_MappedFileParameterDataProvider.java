@@ -0,0 +1,171 @@
+/*
+ * Copyright 2017 Axway Software
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.axway.ats.agent.core.threading.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.axway.ats.agent.core.BaseTest;
+import com.axway.ats.agent.core.action.ArgumentValue;
+import com.axway.ats.agent.core.exceptions.AgentException;
+import com.axway.ats.agent.core.threading.data.config.ParameterProviderLevel;
+import com.axway.ats.agent.core.threading.exceptions.ParameterDataProviderInitalizationException;
+
+public class Test_MappedFileParameterDataProvider extends BaseTest {
+
+    private File dataFile;
+    private File indexFile;
+
+    @Before
+    public void setUp() throws IOException {
+
+        dataFile = File.createTempFile( "mapped_data_", ".txt" );
+        indexFile = new File( dataFile.getPath() + MappedDataFile.INDEX_FILE_EXTENSION );
+    }
+
+    @After
+    public void tearDown() {
+
+        dataFile.delete();
+        indexFile.delete();
+    }
+
+    @Test
+    public void readRecords() throws Exception {
+
+        writeDataFile( "value0\nvalue1\r\n\nстойност3" );
+
+        MappedDataFile mappedDataFile = MappedDataFile.open( dataFile );
+        assertEquals( 4, mappedDataFile.getRecordsCount() );
+        assertEquals( "value0", mappedDataFile.getRecord( 0 ) );
+        assertEquals( "value1", mappedDataFile.getRecord( 1 ) );
+        assertEquals( "", mappedDataFile.getRecord( 2 ) );
+        assertEquals( "стойност3", mappedDataFile.getRecord( 3 ) );
+        assertTrue( indexFile.isFile() );
+    }
+
+    @Test
+    public void lastLineSeparatorIsNotARecord() throws Exception {
+
+        writeDataFile( "value0\nvalue1\n" );
+
+        MappedDataFile mappedDataFile = MappedDataFile.open( dataFile );
+        assertEquals( 2, mappedDataFile.getRecordsCount() );
+        assertEquals( "value1", mappedDataFile.getRecord( 1 ) );
+    }
+
+    @Test
+    public void indexIsRecreatedWhenDataFileChanges() throws Exception {
+
+        writeDataFile( "value0\nvalue1\n" );
+        assertEquals( 2, MappedDataFile.open( dataFile ).getRecordsCount() );
+
+        writeDataFile( "value0\nvalue1\nvalue2" );
+        MappedDataFile mappedDataFile = MappedDataFile.open( dataFile );
+        assertEquals( 3, mappedDataFile.getRecordsCount() );
+        assertEquals( "value2", mappedDataFile.getRecord( 2 ) );
+    }
+
+    @Test
+    public void perInvocationGeneration() throws AgentException, IOException {
+
+        writeDataFile( "value0\nvalue1\nvalue2" );
+
+        MappedFileParameterDataProvider dataProvider = createDataProvider( 0, 1,
+                                                                           ParameterProviderLevel.PER_INVOCATION );
+        for( int i = 0; i < 7; i++ ) {
+            ArgumentValue generatedValue = dataProvider.getValue( new ArrayList<ArgumentValue>() );
+            assertEquals( "param1", generatedValue.getName() );
+            assertEquals( "value" + ( i % 3 ), generatedValue.getValue() );
+        }
+    }
+
+    @Test
+    public void perThreadStaticGeneration() throws AgentException, IOException {
+
+        writeDataFile( "value0\nvalue1\nvalue2" );
+
+        MappedFileParameterDataProvider dataProvider = createDataProvider( 0, 1,
+                                                                           ParameterProviderLevel.PER_THREAD_STATIC );
+        assertEquals( "value0", dataProvider.getValue( new ArrayList<ArgumentValue>() ).getValue() );
+        assertEquals( "value0", dataProvider.getValue( new ArrayList<ArgumentValue>() ).getValue() );
+    }
+
+    @Test
+    public void eachPartitionUsesItsOwnRecords() throws AgentException, IOException {
+
+        writeDataFile( "value0\nvalue1\nvalue2\nvalue3\nvalue4\n" );
+
+        String[][] expectedValues = new String[][]{ { "value0" }, { "value1", "value2" }, { "value3", "value4" } };
+        for( int partition = 0; partition < expectedValues.length; partition++ ) {
+            MappedFileParameterDataProvider dataProvider = createDataProvider( partition, 3,
+                                                                               ParameterProviderLevel.PER_INVOCATION );
+            for( int i = 0; i < 4; i++ ) {
+                String[] partitionValues = expectedValues[partition];
+                assertEquals( partitionValues[i % partitionValues.length],
+                              dataProvider.getValue( new ArrayList<ArgumentValue>() ).getValue() );
+            }
+        }
+    }
+
+    @Test( expected = ParameterDataProviderInitalizationException.class)
+    public void notEnoughRecordsForAllPartitions() throws AgentException, IOException {
+
+        writeDataFile( "value0\nvalue1" );
+
+        createDataProvider( 0, 3, ParameterProviderLevel.PER_INVOCATION );
+    }
+
+    @Test( expected = ParameterDataProviderInitalizationException.class)
+    public void missingDataFile() throws AgentException {
+
+        new MappedFileParameterDataProvider( "param1", dataFile.getPath() + "_missing", 0, 1,
+                                             ParameterProviderLevel.PER_INVOCATION ).initialize();
+    }
+
+    private MappedFileParameterDataProvider createDataProvider( int partitionIndex, int partitionsCount,
+                                                                ParameterProviderLevel parameterProviderLevel ) throws AgentException {
+
+        MappedFileParameterDataProvider dataProvider = new MappedFileParameterDataProvider( "param1",
+                                                                                            dataFile.getPath(),
+                                                                                            partitionIndex,
+                                                                                            partitionsCount,
+                                                                                            parameterProviderLevel );
+        dataProvider.initialize();
+        return dataProvider;
+    }
+
+    private void writeDataFile( String content ) throws IOException {
+
+        FileOutputStream out = new FileOutputStream( dataFile );
+        try {
+            out.write( content.getBytes( "UTF-8" ) );
+        } finally {
+            out.close();
+        }
+        // make sure the data file is newer than an index of its previous content
+        dataFile.setLastModified( System.currentTimeMillis() + 2000 );
+    }
+}
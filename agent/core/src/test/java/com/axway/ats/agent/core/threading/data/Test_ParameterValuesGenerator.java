@@ -0,0 +1,241 @@
+/*
+ * Copyright 2017 Axway Software
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.axway.ats.agent.core.threading.data;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import com.axway.ats.agent.core.BaseTest;
+import com.axway.ats.agent.core.action.ArgumentValue;
+import com.axway.ats.agent.core.threading.data.config.ParameterProviderLevel;
+import com.axway.ats.agent.core.threading.exceptions.ParameterDataProviderInitalizationException;
+
+public class Test_ParameterValuesGenerator extends BaseTest {
+
+    private static final int NUMBER_THREADS    = 8;
+    private static final int NUMBER_ITERATIONS = 5000;
+
+    @Test
+    public void perInvocationValuesOfAnIterationMatch() throws Exception {
+
+        List<ParameterDataProvider> dataProviders = new ArrayList<ParameterDataProvider>();
+        dataProviders.add( new StringRangeParameterDataProvider( "user", "user{0}", 1, 10,
+                                                                 ParameterProviderLevel.PER_INVOCATION ) );
+        dataProviders.add( new IntegerRangeParameterDataProvider( "id", 1, 10,
+                                                                  ParameterProviderLevel.PER_INVOCATION ) );
+        final ParameterValuesGenerator generator = new ParameterValuesGenerator( dataProviders );
+
+        final ConcurrentHashMap<Object, AtomicInteger> valueCounts = new ConcurrentHashMap<Object, AtomicInteger>();
+        final AtomicInteger mismatches = new AtomicInteger();
+        runConcurrently( new Runnable() {
+
+            @Override
+            public void run() {
+
+                for( int i = 0; i < NUMBER_ITERATIONS; i++ ) {
+                    List<ArgumentValue> values = generator.generateValues();
+                    if( !values.get( 0 ).getValue().equals( "user" + values.get( 1 ).getValue() ) ) {
+                        mismatches.incrementAndGet();
+                    }
+                    countValue( valueCounts, values.get( 1 ).getValue() );
+                }
+            }
+        } );
+
+        assertEquals( 0, mismatches.get() );
+        // the values are evenly distributed
+        assertEquals( 10, valueCounts.size() );
+        for( AtomicInteger count : valueCounts.values() ) {
+            assertEquals( NUMBER_THREADS * NUMBER_ITERATIONS / 10, count.get() );
+        }
+    }
+
+    @Test
+    public void perThreadStaticValuesAreDifferentForEachThread() throws Exception {
+
+        List<ParameterDataProvider> dataProviders = new ArrayList<ParameterDataProvider>();
+        dataProviders.add( new IntegerRangeParameterDataProvider( "id", 1, 100,
+                                                                  ParameterProviderLevel.PER_THREAD_STATIC ) );
+        final ParameterValuesGenerator generator = new ParameterValuesGenerator( dataProviders );
+
+        final Set<Object> threadValues = Collections.synchronizedSet( new HashSet<Object>() );
+        final AtomicInteger changedValues = new AtomicInteger();
+        runConcurrently( new Runnable() {
+
+            @Override
+            public void run() {
+
+                Object threadValue = generator.generateValues().get( 0 ).getValue();
+                threadValues.add( threadValue );
+                for( int i = 0; i < NUMBER_ITERATIONS; i++ ) {
+                    if( !threadValue.equals( generator.generateValues().get( 0 ).getValue() ) ) {
+                        changedValues.incrementAndGet();
+                    }
+                }
+            }
+        } );
+
+        assertEquals( 0, changedValues.get() );
+        assertEquals( NUMBER_THREADS, threadValues.size() );
+    }
+
+    @Test
+    public void perThreadValuesAreIndependentForEachThread() throws Exception {
+
+        List<ParameterDataProvider> dataProviders = new ArrayList<ParameterDataProvider>();
+        List<String> values = new ArrayList<String>();
+        for( int i = 0; i < 7; i++ ) {
+            values.add( "value" + i );
+        }
+        dataProviders.add( new ListParameterDataProvider( "param", values, ParameterProviderLevel.PER_THREAD ) );
+        final ParameterValuesGenerator generator = new ParameterValuesGenerator( dataProviders );
+
+        final AtomicInteger unexpectedValues = new AtomicInteger();
+        runConcurrently( new Runnable() {
+
+            @Override
+            public void run() {
+
+                for( int i = 0; i < NUMBER_ITERATIONS; i++ ) {
+                    if( !( "value" + ( i % 7 ) ).equals( generator.generateValues().get( 0 ).getValue() ) ) {
+                        unexpectedValues.incrementAndGet();
+                    }
+                }
+            }
+        } );
+
+        assertEquals( 0, unexpectedValues.get() );
+    }
+
+    @Test
+    public void customProvidersAreUsedUnderLock() throws Exception {
+
+        List<ParameterDataProvider> dataProviders = new ArrayList<ParameterDataProvider>();
+        dataProviders.add( new CountingDataProvider( "counter" ) );
+        dataProviders.add( new IntegerRangeParameterDataProvider( "id", 0, 9,
+                                                                  ParameterProviderLevel.PER_INVOCATION ) );
+        final ParameterValuesGenerator generator = new ParameterValuesGenerator( dataProviders );
+
+        final Set<Object> counterValues = Collections.synchronizedSet( new HashSet<Object>() );
+        final AtomicInteger mismatches = new AtomicInteger();
+        runConcurrently( new Runnable() {
+
+            @Override
+            public void run() {
+
+                for( int i = 0; i < NUMBER_ITERATIONS; i++ ) {
+                    List<ArgumentValue> values = generator.generateValues();
+                    counterValues.add( values.get( 0 ).getValue() );
+                    if( ( Integer ) values.get( 0 ).getValue() % 10 != ( Integer ) values.get( 1 ).getValue() ) {
+                        mismatches.incrementAndGet();
+                    }
+                }
+            }
+        } );
+
+        // the custom provider is not thread-safe, but it still returns unique values
+        assertEquals( NUMBER_THREADS * NUMBER_ITERATIONS, counterValues.size() );
+        assertEquals( 0, mismatches.get() );
+    }
+
+    private static void countValue( ConcurrentHashMap<Object, AtomicInteger> valueCounts, Object value ) {
+
+        AtomicInteger count = valueCounts.get( value );
+        if( count == null ) {
+            count = new AtomicInteger();
+            AtomicInteger existingCount = valueCounts.putIfAbsent( value, count );
+            if( existingCount != null ) {
+                count = existingCount;
+            }
+        }
+        count.incrementAndGet();
+    }
+
+    private static void runConcurrently( final Runnable runnable ) throws InterruptedException {
+
+        List<Thread> threads = new ArrayList<Thread>();
+        final CountDownLatch startLatch = new CountDownLatch( 1 );
+        for( int i = 0; i < NUMBER_THREADS; i++ ) {
+            Thread thread = new Thread( new Runnable() {
+
+                @Override
+                public void run() {
+
+                    try {
+                        startLatch.await();
+                    } catch( InterruptedException e ) {
+                        return;
+                    }
+                    runnable.run();
+                }
+            } );
+            threads.add( thread );
+            thread.start();
+        }
+
+        startLatch.countDown();
+        for( Thread thread : threads ) {
+            thread.join();
+        }
+    }
+
+    private static class CountingDataProvider extends CustomParameterDataProvider {
+
+        private int counter;
+
+        CountingDataProvider( String parameterName ) {
+
+            super( parameterName, new HashMap<String, String>(), ParameterProviderLevel.PER_INVOCATION );
+        }
+
+        @Override
+        protected void doInitialize() throws ParameterDataProviderInitalizationException {
+
+            counter = 0;
+        }
+
+        @Override
+        protected ArgumentValue generateNewValuePerInvocation( List<ArgumentValue> alreadyResolvedValues ) {
+
+            return new ArgumentValue( parameterName, counter++ );
+        }
+
+        @Override
+        protected ArgumentValue generateNewValuePerThread( long currentThreadId,
+                                                           List<ArgumentValue> alreadyResolvedValues ) {
+
+            return generateNewValuePerInvocation( alreadyResolvedValues );
+        }
+
+        @Override
+        protected ArgumentValue generateNewValuePerThreadStatic( long currentThreadId,
+                                                                 List<ArgumentValue> alreadyResolvedValues ) {
+
+            return generateNewValuePerInvocation( alreadyResolvedValues );
+        }
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2017 Axway Software
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.axway.ats.agent.core.threading.data.config;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.List;
+
+import org.junit.Test;
+
+import com.axway.ats.agent.core.BaseTest;
+import com.axway.ats.agent.core.threading.exceptions.ParameterDataProviderInitalizationException;
+
+public class Test_MappedFileDataConfig extends BaseTest {
+
+    @Test
+    public void gettersPositive() {
+
+        MappedFileDataConfig dataConfig = new MappedFileDataConfig( "user", "/data/users.txt" );
+
+        assertEquals( "user", dataConfig.getParameterName() );
+        assertEquals( "/data/users.txt", dataConfig.getDataFile() );
+        assertEquals( ParameterProviderLevel.PER_THREAD_STATIC, dataConfig.getParameterProviderLevel() );
+        assertEquals( 0, dataConfig.getPartitionIndex() );
+        assertEquals( 1, dataConfig.getPartitionsCount() );
+
+        dataConfig = new MappedFileDataConfig( "user", "/data/users.txt", ParameterProviderLevel.PER_INVOCATION );
+
+        assertEquals( ParameterProviderLevel.PER_INVOCATION, dataConfig.getParameterProviderLevel() );
+    }
+
+    @Test
+    public void distributeSeveralHosts() {
+
+        MappedFileDataConfig dataConfig = new MappedFileDataConfig( "user", "/data/users.txt",
+                                                                    ParameterProviderLevel.PER_INVOCATION );
+
+        List<ParameterDataConfig> distributedDataConfigs = dataConfig.distribute( 3 );
+        assertEquals( 3, distributedDataConfigs.size() );
+
+        for( int i = 0; i < 3; i++ ) {
+            MappedFileDataConfig currentDataConfig = ( MappedFileDataConfig ) distributedDataConfigs.get( i );
+
+            assertEquals( "user", currentDataConfig.getParameterName() );
+            assertEquals( "/data/users.txt", currentDataConfig.getDataFile() );
+            assertEquals( ParameterProviderLevel.PER_INVOCATION, currentDataConfig.getParameterProviderLevel() );
+            assertEquals( i, currentDataConfig.getPartitionIndex() );
+            assertEquals( 3, currentDataConfig.getPartitionsCount() );
+        }
+    }
+
+    @Test( expected = ParameterDataProviderInitalizationException.class)
+    public void verifyNoDataFile() throws Exception {
+
+        new MappedFileDataConfig( "user", " " ).verifyDataConfig();
+    }
+}
@@ -121,6 +121,22 @@ public class Test_AllAtOncePattern extends BaseTest {
         }
     }
 
+    @Test
+    public void distributeVirtualThreads() {
+
+        AllAtOncePattern pattern = new AllAtOncePattern( 99, true, 20, 500 );
+        assertFalse( pattern.isUseVirtualThreads() );
+
+        pattern.setUseVirtualThreads( true );
+        List<ThreadingPattern> distributedPatterns = pattern.distribute( 3 );
+
+        assertEquals( 3, distributedPatterns.size() );
+        for( ThreadingPattern currentPattern : distributedPatterns ) {
+            assertTrue( currentPattern.isUseVirtualThreads() );
+            assertTrue( currentPattern.getPatternDescription().endsWith( ", running on virtual threads" ) );
+        }
+    }
+
     @Test
     public void distributeSeveralHostsUneven() {
 
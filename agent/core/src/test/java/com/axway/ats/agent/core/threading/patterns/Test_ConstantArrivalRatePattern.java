@@ -0,0 +1,104 @@
+/*
+ * Copyright 2017 Axway Software
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.axway.ats.agent.core.threading.patterns;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.List;
+
+import org.junit.Test;
+
+import com.axway.ats.agent.core.BaseTest;
+
+public class Test_ConstantArrivalRatePattern extends BaseTest {
+
+    @Test
+    public void constructor() {
+
+        ConstantArrivalRatePattern pattern = new ConstantArrivalRatePattern( 100, true, 50, 60 );
+
+        assertEquals( 100, pattern.getThreadCount() );
+        assertEquals( true, pattern.isBlockUntilCompletion() );
+        assertEquals( 50D, pattern.getArrivalRate(), 0 );
+        assertEquals( 60, pattern.getDuration() );
+        assertArrayEquals( new double[]{ 50 }, pattern.getArrivalRates(), 0 );
+        assertArrayEquals( new int[]{ 60 }, pattern.getStepDurations() );
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void zeroArrivalRate() {
+
+        new ConstantArrivalRatePattern( 100, true, 0, 60 );
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void zeroDuration() {
+
+        new ConstantArrivalRatePattern( 100, true, 50, 0 );
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void setExecutionSpeed() {
+
+        new ConstantArrivalRatePattern( 100, true, 50, 60 ).setExecutionSpeed( 10, 100 );
+    }
+
+    @Test
+    public void distributeSeveralHosts() {
+
+        ConstantArrivalRatePattern pattern = new ConstantArrivalRatePattern( 100, true, 50, 60 );
+        pattern.setIterationTimeout( 5 );
+        pattern.setUseVirtualThreads( true );
+        List<ThreadingPattern> distributedPatterns = pattern.distribute( 4 );
+
+        assertEquals( 4, distributedPatterns.size() );
+        for( ThreadingPattern distributedPattern : distributedPatterns ) {
+            ConstantArrivalRatePattern currentPattern = ( ConstantArrivalRatePattern ) distributedPattern;
+
+            assertEquals( 25, currentPattern.getThreadCount() );
+            assertEquals( 12.5D, currentPattern.getArrivalRate(), 0 );
+            assertEquals( 60, currentPattern.getDuration() );
+            assertEquals( 5, currentPattern.getIterationTimeout() );
+            assertEquals( true, currentPattern.isUseVirtualThreads() );
+            assertEquals( true, currentPattern.isBlockUntilCompletion() );
+        }
+    }
+
+    @Test
+    public void distributeOneHost() {
+
+        ConstantArrivalRatePattern pattern = new ConstantArrivalRatePattern( 2, true, 50, 60 );
+        List<ThreadingPattern> distributedPatterns = pattern.distribute( 3 );
+
+        assertEquals( 1, distributedPatterns.size() );
+        assertSame( pattern, distributedPatterns.get( 0 ) );
+    }
+
+    @Test
+    public void toStringPositive() {
+
+        ConstantArrivalRatePattern pattern1 = new ConstantArrivalRatePattern( 100, true, 50, 60 );
+        assertEquals( "Constant arrival rate - 50 iterations per second in 60 seconds, up to <number_threads> threads",
+                      pattern1.getPatternDescription() );
+
+        ConstantArrivalRatePattern pattern2 = new ConstantArrivalRatePattern( 100, true, 0.5, 60 );
+        pattern2.setIterationTimeout( 10 );
+        assertEquals( "Constant arrival rate - 0.5 iterations per second in 60 seconds, up to <number_threads> threads, 10 secs iteration timeout",
+                      pattern2.getPatternDescription() );
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2017 Axway Software
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.axway.ats.agent.core.threading.patterns;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.List;
+
+import org.junit.Test;
+
+import com.axway.ats.agent.core.BaseTest;
+
+public class Test_StepArrivalRatePattern extends BaseTest {
+
+    @Test
+    public void addSteps() {
+
+        StepArrivalRatePattern pattern = new StepArrivalRatePattern( 200, false );
+        pattern.addStep( 10, 60 );
+        pattern.addStep( 500, 5 );
+        pattern.addStep( 0, 10 );
+
+        assertEquals( 200, pattern.getThreadCount() );
+        assertEquals( false, pattern.isBlockUntilCompletion() );
+        assertEquals( 75, pattern.getDuration() );
+        assertArrayEquals( new double[]{ 10, 500, 0 }, pattern.getArrivalRates(), 0 );
+        assertArrayEquals( new int[]{ 60, 5, 10 }, pattern.getStepDurations() );
+    }
+
+    @Test
+    public void stepsCanNotBeChangedOutside() {
+
+        StepArrivalRatePattern pattern = new StepArrivalRatePattern( 200, false );
+        pattern.addStep( 10, 60 );
+
+        pattern.getArrivalRates()[0] = 20;
+        pattern.getStepDurations()[0] = 30;
+
+        assertArrayEquals( new double[]{ 10 }, pattern.getArrivalRates(), 0 );
+        assertArrayEquals( new int[]{ 60 }, pattern.getStepDurations() );
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void negativeArrivalRate() {
+
+        new StepArrivalRatePattern( 200, false ).addStep( -1, 60 );
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidArrivalRate() {
+
+        new StepArrivalRatePattern( 200, false ).addStep( Double.NaN, 60 );
+    }
+
+    @Test
+    public void distributeSeveralHostsUneven() {
+
+        StepArrivalRatePattern pattern = new StepArrivalRatePattern( 100, true );
+        pattern.addStep( 30, 60 );
+        pattern.addStep( 300, 5 );
+        List<ThreadingPattern> distributedPatterns = pattern.distribute( 3 );
+
+        assertEquals( 3, distributedPatterns.size() );
+        int totalThreads = 0;
+        for( ThreadingPattern distributedPattern : distributedPatterns ) {
+            StepArrivalRatePattern currentPattern = ( StepArrivalRatePattern ) distributedPattern;
+
+            totalThreads += currentPattern.getThreadCount();
+            assertArrayEquals( new double[]{ 10, 100 }, currentPattern.getArrivalRates(), 0 );
+            assertArrayEquals( new int[]{ 60, 5 }, currentPattern.getStepDurations() );
+        }
+        assertEquals( 100, totalThreads );
+    }
+
+    @Test
+    public void toStringPositive() {
+
+        StepArrivalRatePattern pattern = new StepArrivalRatePattern( 200, true );
+        pattern.addStep( 10, 60 );
+        pattern.addStep( 500, 5 );
+        pattern.setQueuePassRate( 90 );
+        assertEquals( "Step arrival rate - 10 iterations per second in 60 seconds, then 500 iterations per second in 5 seconds, up to <number_threads> threads, pass if 90.0% of the iterations pass",
+                      pattern.getPatternDescription() );
+    }
+}
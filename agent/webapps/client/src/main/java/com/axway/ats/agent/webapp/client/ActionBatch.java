@@ -0,0 +1,189 @@
+/*
+ * Copyright 2017 Axway Software
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.axway.ats.agent.webapp.client;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.axway.ats.agent.core.action.ActionRequest;
+import com.axway.ats.agent.core.exceptions.AgentException;
+import com.axway.ats.agent.webapp.client.executors.LocalExecutor;
+import com.axway.ats.agent.webapp.client.executors.RemoteExecutor;
+import com.axway.ats.common.PublicAtsApi;
+import com.axway.ats.core.utils.HostUtils;
+
+/**
+ * Records the actions called on an ATS Agent and then executes them all in one call,
+ * instead of making a network round trip for each of them.
+ *
+ * While a batch is recorded, the actions called in the current thread through the action clients
+ * of its agent are not executed, but added to the batch. They return null or 0 for primitive types.
+ * The actions called on other agents are executed as usual.
+ *
+ * <pre>
+ * ActionBatch batch = ActionBatch.startBatch( "10.0.0.1" );
+ * fileActions.createFile( ... );
+ * fileActions.createFile( ... );
+ * List&lt;ActionResult&gt; results = batch.execute();
+ * </pre>
+ *
+ * The actions are executed in the order they are recorded, all of them are executed even if some fail.
+ * The actions recorded after {@link #recordIndependentActions()} may be executed at the same time
+ * as the other independent actions next to them.
+ */
+@PublicAtsApi
+public class ActionBatch {
+
+    private static final ThreadLocal<ActionBatch> currentBatch     = new ThreadLocal<ActionBatch>();
+
+    private final String                          atsAgent;
+
+    private final List<ActionRequest>             actionRequests   = new ArrayList<ActionRequest>();
+    private final List<Boolean>                   independentFlags = new ArrayList<Boolean>();
+
+    private boolean                               recordIndependent;
+
+    private ActionBatch( String atsAgent ) {
+
+        this.atsAgent = atsAgent;
+    }
+
+    /**
+     * Start recording the actions called on an agent in the current thread
+     *
+     * @param atsAgent the agent address, "local" for the actions executed in the current JVM
+     * @return the new batch
+     * @throws AgentException if a batch is already recorded in the current thread
+     */
+    @PublicAtsApi
+    public static ActionBatch startBatch( String atsAgent ) throws AgentException {
+
+        if( currentBatch.get() != null ) {
+            throw new AgentException( "A batch of actions for " + currentBatch.get().atsAgent
+                                      + " is already recorded in this thread" );
+        }
+
+        if( !AbstractAgentClient.LOCAL_JVM.equals( atsAgent ) ) {
+            // add default port in case none is not provided by the user
+            atsAgent = HostUtils.getAtsAgentIpAndPort( atsAgent );
+        }
+
+        ActionBatch actionBatch = new ActionBatch( atsAgent );
+        currentBatch.set( actionBatch );
+        return actionBatch;
+    }
+
+    /**
+     * The actions recorded from now on may be executed at the same time as the other independent actions
+     * next to them. Use it for actions which do not depend on each other, like creating many files.
+     */
+    @PublicAtsApi
+    public void recordIndependentActions() {
+
+        recordIndependent = true;
+    }
+
+    /**
+     * The actions recorded from now on are executed after all actions before them complete.
+     * This is the default.
+     */
+    @PublicAtsApi
+    public void recordOrderedActions() {
+
+        recordIndependent = false;
+    }
+
+    /**
+     * @return the number of recorded actions
+     */
+    @PublicAtsApi
+    public int getNumberActions() {
+
+        return actionRequests.size();
+    }
+
+    /**
+     * Stop recording and execute all recorded actions
+     *
+     * @return the outcome of each action, in the order the actions are recorded
+     * @throws AgentException if the batch cannot be executed. The action exceptions are returned
+     * in their results
+     */
+    @PublicAtsApi
+    public List<ActionResult> execute() throws AgentException {
+
+        stopRecording();
+
+        if( actionRequests.isEmpty() ) {
+            return new ArrayList<ActionResult>();
+        }
+
+        if( AbstractAgentClient.LOCAL_JVM.equals( atsAgent ) ) {
+            LocalExecutor localExecutor = new LocalExecutor();
+            List<ActionResult> results = new ArrayList<ActionResult>( actionRequests.size() );
+            for( ActionRequest actionRequest : actionRequests ) {
+                try {
+                    results.add( new ActionResult( localExecutor.executeAction( actionRequest ), null ) );
+                } catch( AgentException e ) {
+                    results.add( new ActionResult( null, e ) );
+                }
+            }
+            return results;
+        } else {
+            return new RemoteExecutor( atsAgent ).executeBatch( actionRequests, independentFlags );
+        }
+    }
+
+    /**
+     * Stop recording without executing the recorded actions
+     */
+    @PublicAtsApi
+    public void cancel() {
+
+        stopRecording();
+        actionRequests.clear();
+        independentFlags.clear();
+    }
+
+    /**
+     * @return the batch recorded in the current thread, null if there is no such
+     */
+    static ActionBatch getCurrentInstance() {
+
+        return currentBatch.get();
+    }
+
+    /**
+     * @return whether the actions called on this agent are recorded
+     */
+    boolean isRecording( String atsAgent ) {
+
+        return this.atsAgent.equals( atsAgent );
+    }
+
+    void addActionRequest( ActionRequest actionRequest ) {
+
+        actionRequests.add( actionRequest );
+        independentFlags.add( recordIndependent );
+    }
+
+    private void stopRecording() {
+
+        if( currentBatch.get() == this ) {
+            currentBatch.remove();
+        }
+    }
+}
@@ -15,6 +15,8 @@
  */
 package com.axway.ats.agent.webapp.client;
 
+import java.lang.reflect.Array;
+
 import com.axway.ats.agent.core.action.ActionRequest;
 import com.axway.ats.agent.core.exceptions.AgentException;
 import com.axway.ats.agent.webapp.client.executors.LocalExecutor;
@@ -61,17 +63,48 @@ public abstract class ActionClient extends AbstractAgentClient {
                                     String actionName,
                                     Object[] arguments ) throws AgentException {
 
+        return executeAction( actionName, arguments, null );
+    }
+
+    /**
+     * Execute the given action
+     *
+     * @param actionName
+     *            name of the action
+     * @param arguments
+     *            arguments for the action
+     * @param returnType
+     *            the action return type, it is used to return a default value for the primitive types
+     *            when the action is not executed immediately, but added to a batch or a queue
+     * @return result of the action execution
+     * @throws AgentException
+     *             if exception occurs during action execution
+     */
+    protected Object executeAction(
+                                    String actionName,
+                                    Object[] arguments,
+                                    Class<?> returnType ) throws AgentException {
+
         // construct an action request
         ActionRequest actionRequest = new ActionRequest( component, actionName, arguments );
 
         // the returned result
         Object result = null;
 
+        // the commands to the Monitoring Service are never batched or queued
+        boolean isMonitoringAction = component.equals( SystemMonitorDefinitions.ATS_SYSTEM_MONITORING_COMPONENT_NAME );
+
+        // Check if we are recording a batch for this agent - in this case the action is added to the batch
+        ActionBatch actionBatch = ActionBatch.getCurrentInstance();
+        if( actionBatch != null && actionBatch.isRecording( atsAgent ) && !isMonitoringAction ) {
+            actionBatch.addActionRequest( actionRequest );
+            return getDefaultValue( returnType );
+        }
+
         // Check if we are queuing - in this case all actions will be routed to the queue
         // The exception is when we are sending command to the Monitoring Service
         ActionQueue actionQueue = ActionQueue.getCurrentInstance();
-        if( !actionQueue.isInQueueMode()
-            || component.equals( SystemMonitorDefinitions.ATS_SYSTEM_MONITORING_COMPONENT_NAME ) ) {
+        if( !actionQueue.isInQueueMode() || isMonitoringAction ) {
             if( atsAgent.equals( LOCAL_JVM ) ) {
                 LocalExecutor localExecutor = new LocalExecutor();
                 result = localExecutor.executeAction( actionRequest );
@@ -81,8 +114,20 @@ public abstract class ActionClient extends AbstractAgentClient {
             }
         } else {
             actionQueue.addActionRequest( actionRequest );
+            result = getDefaultValue( returnType );
         }
 
         return result;
     }
+
+    /**
+     * @return 0 or false for the primitive types, null for all other types
+     */
+    private static Object getDefaultValue( Class<?> returnType ) {
+
+        if( returnType == null || !returnType.isPrimitive() || returnType == void.class ) {
+            return null;
+        }
+        return Array.get( Array.newInstance( returnType, 1 ), 0 );
+    }
 }
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2017 Axway Software
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.axway.ats.agent.webapp.client;
+
+import com.axway.ats.agent.core.exceptions.AgentException;
+import com.axway.ats.common.PublicAtsApi;
+
+/**
+ * The outcome of an action executed as part of an {@link ActionBatch} - either its result or its exception
+ */
+@PublicAtsApi
+public class ActionResult {
+
+    private final Object         result;
+    private final AgentException exception;
+
+    /**
+     * @param result the action result
+     * @param exception the action exception, null if the action was successful
+     */
+    public ActionResult( Object result, AgentException exception ) {
+
+        this.result = result;
+        this.exception = exception;
+    }
+
+    /**
+     * @return whether the action was executed successfully
+     */
+    @PublicAtsApi
+    public boolean isSuccessful() {
+
+        return exception == null;
+    }
+
+    /**
+     * Get the action result
+     *
+     * @return the result, null if the action does not return a value
+     * @throws AgentException the action exception, if the action failed
+     */
+    @PublicAtsApi
+    public Object getResult() throws AgentException {
+
+        if( exception != null ) {
+            throw exception;
+        }
+        return result;
+    }
+
+    /**
+     * @return the action exception, null if the action was successful
+     */
+    @PublicAtsApi
+    public AgentException getException() {
+
+        return exception;
+    }
+}
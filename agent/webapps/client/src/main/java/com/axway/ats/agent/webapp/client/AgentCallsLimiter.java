@@ -0,0 +1,143 @@
+/*
+ * Copyright 2017 Axway Software
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.axway.ats.agent.webapp.client;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Limits the number of calls executed on one agent at the same time and keeps statistics about them.
+ *
+ * When the limit is reached, the next calls wait until a running call completes.
+ * The statistics can be used to see whether the limit is too low for the tests.
+ * All methods are thread-safe.
+ */
+public class AgentCallsLimiter {
+
+    private final String        atsAgent;
+    private final int           maxConcurrentCalls;
+
+    // null if the calls are not limited
+    private final Semaphore     permits;
+
+    private final AtomicInteger runningCalls       = new AtomicInteger();
+    private final AtomicLong    numberCalls        = new AtomicLong();
+    private final AtomicLong    numberWaitingCalls = new AtomicLong();
+    private final AtomicLong    totalWaitNanos     = new AtomicLong();
+    private final AtomicLong    maxWaitNanos       = new AtomicLong();
+
+    /**
+     * @param atsAgent the agent address
+     * @param maxConcurrentCalls the maximum number of calls at the same time, 0 for no limit
+     */
+    public AgentCallsLimiter( String atsAgent, int maxConcurrentCalls ) {
+
+        this.atsAgent = atsAgent;
+        this.maxConcurrentCalls = maxConcurrentCalls;
+        this.permits = maxConcurrentCalls > 0
+                                              ? new Semaphore( maxConcurrentCalls, true )
+                                              : null;
+    }
+
+    /**
+     * Wait until a call can be made. Each successful call to this method must be followed
+     * by a call to {@link #release()} when the agent call completes.
+     *
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public void acquire() throws InterruptedException {
+
+        if( permits != null && !permits.tryAcquire() ) {
+            long startTime = System.nanoTime();
+            permits.acquire();
+            long waitNanos = System.nanoTime() - startTime;
+
+            numberWaitingCalls.incrementAndGet();
+            totalWaitNanos.addAndGet( waitNanos );
+            long currentMax;
+            while( waitNanos > ( currentMax = maxWaitNanos.get() )
+                   && !maxWaitNanos.compareAndSet( currentMax, waitNanos ) ) {
+                // try again
+            }
+        }
+        numberCalls.incrementAndGet();
+        runningCalls.incrementAndGet();
+    }
+
+    public void release() {
+
+        runningCalls.decrementAndGet();
+        if( permits != null ) {
+            permits.release();
+        }
+    }
+
+    public String getAtsAgent() {
+
+        return atsAgent;
+    }
+
+    /**
+     * @return the maximum number of calls at the same time, 0 if not limited
+     */
+    public int getMaxConcurrentCalls() {
+
+        return maxConcurrentCalls;
+    }
+
+    public int getRunningCalls() {
+
+        return runningCalls.get();
+    }
+
+    public long getNumberCalls() {
+
+        return numberCalls.get();
+    }
+
+    /**
+     * @return the number of calls which waited for another call to complete
+     */
+    public long getNumberWaitingCalls() {
+
+        return numberWaitingCalls.get();
+    }
+
+    /**
+     * @return the total time in milliseconds the calls waited for other calls to complete
+     */
+    public long getTotalWaitTime() {
+
+        return totalWaitNanos.get() / 1000000;
+    }
+
+    /**
+     * @return the longest time in milliseconds a call waited for other calls to complete
+     */
+    public long getMaxWaitTime() {
+
+        return maxWaitNanos.get() / 1000000;
+    }
+
+    @Override
+    public String toString() {
+
+        return "Calls to " + atsAgent + ": " + getNumberCalls() + " total, " + getRunningCalls() + " running, "
+               + getNumberWaitingCalls() + " waited " + getTotalWaitTime() + " ms in total and "
+               + getMaxWaitTime() + " ms at most";
+    }
+}
@@ -0,0 +1,221 @@
+/*
+ * Copyright 2017 Axway Software
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.axway.ats.agent.webapp.client;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+
+import org.apache.log4j.Logger;
+
+import com.axway.ats.agent.core.configuration.AgentConfigurator;
+import com.axway.ats.agent.core.context.ApplicationContext;
+import com.axway.ats.agent.core.exceptions.AgentException;
+import com.axway.ats.agent.core.protocol.AgentEventsProtocol;
+import com.axway.ats.agent.core.protocol.BinaryActionProtocol;
+import com.axway.ats.agent.webapp.agentservice.AgentWsDefinitions;
+import com.axway.ats.common.PublicAtsApi;
+
+/**
+ * Receives the queue state changes, the action statistics and optionally the user activity of
+ * a remote ATS Agent as they happen, instead of polling the agent for them.
+ *
+ * The agent sends the events of all queues started by this test executor over one long-lived HTTP response.
+ * It sends the action statistics of the queues scheduled after the subscription only, so subscribe
+ * before executing the queued actions.
+ */
+@PublicAtsApi
+public class AgentEventsClient {
+
+    private static final Logger  log                 = Logger.getLogger( AgentEventsClient.class );
+
+    private static final int     CONNECT_TIMEOUT     = 10000;
+    // the agent sends something on each interval, so it is considered lost after a few missed intervals
+    private static final int     MIN_READ_TIMEOUT    = 10000;
+    private static final int     MISSED_INTERVALS    = 3;
+
+    public static final long     DEFAULT_INTERVAL    = 1000;
+
+    private final String         atsAgent;
+    private final URL            url;
+    private final String         uniqueId;
+    private final int            readTimeout;
+
+    private volatile boolean     isClosed;
+    private HttpURLConnection    connection;
+    private Thread               readerThread;
+
+    /**
+     * @param atsAgent the remote agent address
+     * @throws AgentException
+     */
+    @PublicAtsApi
+    public AgentEventsClient( String atsAgent ) throws AgentException {
+
+        this( atsAgent, DEFAULT_INTERVAL, false );
+    }
+
+    /**
+     * @param atsAgent the remote agent address
+     * @param interval how often the agent sends the statistics, in milliseconds
+     * @param withMonitoringResults whether the agent sends the user activity too. The user activity
+     * must not be polled at the same time, as each result is sent once only
+     * @throws AgentException
+     */
+    @PublicAtsApi
+    public AgentEventsClient( String atsAgent, long interval,
+                              boolean withMonitoringResults ) throws AgentException {
+
+        this.atsAgent = atsAgent;
+
+        // the web service client is initialized first, so the agent recognizes this caller
+        AgentServicePool agentServicePool = AgentServicePool.getInstance();
+        agentServicePool.getClient( atsAgent );
+        this.uniqueId = agentServicePool.getUniqueId();
+        this.readTimeout = ( int ) Math.min( Integer.MAX_VALUE,
+                                             Math.max( MIN_READ_TIMEOUT, interval * MISSED_INTERVALS ) );
+
+        String protocol = AgentConfigurator.getConnectionProtocol( atsAgent );
+        if( protocol == null ) {
+            protocol = "http";
+        }
+        try {
+            this.url = new URL( protocol + "://" + atsAgent + AgentWsDefinitions.EVENTS_ENDPOINT_ADDRESS
+                                + "?interval=" + interval + "&monitoring=" + withMonitoringResults );
+        } catch( IOException e ) {
+            throw new AgentException( "Invalid agent address '" + atsAgent + "'", e );
+        }
+    }
+
+    /**
+     * Connect to the agent and start passing its events to the listener.
+     * The events are read in a separate thread until {@link #close()} is called or the connection is lost.
+     *
+     * @param listener the listener
+     * @throws AgentException if the agent cannot be connected or it does not support sending events
+     */
+    @PublicAtsApi
+    public synchronized void subscribe( final AgentEventsListener listener ) throws AgentException {
+
+        if( readerThread != null ) {
+            throw new AgentException( "Already subscribed for the events of agent at " + atsAgent );
+        }
+
+        final DataInputStream in;
+        try {
+            connection = ( HttpURLConnection ) url.openConnection();
+            connection.setConnectTimeout( CONNECT_TIMEOUT );
+            connection.setReadTimeout( readTimeout );
+            if( uniqueId != null ) {
+                connection.setRequestProperty( ApplicationContext.ATS_UID_SESSION_TOKEN, uniqueId );
+            }
+
+            int responseCode = connection.getResponseCode();
+            if( responseCode != HttpURLConnection.HTTP_OK ) {
+                connection.disconnect();
+                throw new AgentException( "Could not subscribe for the events of agent at " + atsAgent
+                                          + ". HTTP response: " + responseCode + " "
+                                          + connection.getResponseMessage() );
+            }
+
+            in = new DataInputStream( new BufferedInputStream( connection.getInputStream() ) );
+            BinaryActionProtocol.readHeader( in );
+        } catch( IOException ioe ) {
+            if( connection != null ) {
+                connection.disconnect();
+            }
+            throw new AgentException( "Could not subscribe for the events of agent at " + atsAgent, ioe );
+        }
+
+        readerThread = new Thread( new Runnable() {
+
+            @Override
+            public void run() {
+
+                readEvents( in, listener );
+            }
+        }, "ATS events from " + atsAgent );
+        readerThread.setDaemon( true );
+        readerThread.start();
+    }
+
+    /**
+     * Stop receiving events
+     */
+    @PublicAtsApi
+    public void close() {
+
+        Thread thread;
+        synchronized( this ) {
+            if( isClosed ) {
+                return;
+            }
+            isClosed = true;
+            thread = readerThread;
+            if( connection != null ) {
+                // unblocks the reader thread
+                connection.disconnect();
+            }
+        }
+
+        if( thread != null ) {
+            try {
+                thread.join( CONNECT_TIMEOUT );
+            } catch( InterruptedException ie ) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void readEvents( DataInputStream in, AgentEventsListener listener ) {
+
+        Exception error = null;
+        try {
+            while( !isClosed ) {
+                byte eventType = AgentEventsProtocol.readEventType( in );
+                try {
+                    if( eventType == AgentEventsProtocol.QUEUE_STATE ) {
+                        listener.onQueueStateChange( atsAgent, AgentEventsProtocol.readQueueState( in ) );
+                    } else if( eventType == AgentEventsProtocol.ACTION_STATISTICS ) {
+                        String queueName = AgentEventsProtocol.readQueueName( in );
+                        listener.onActionStatistics( atsAgent, queueName,
+                                                     AgentEventsProtocol.readActionStatistics( in ) );
+                    } else if( eventType == AgentEventsProtocol.MONITOR_RESULTS ) {
+                        listener.onMonitorResults( atsAgent, AgentEventsProtocol.readMonitorResults( in ) );
+                    }
+                } catch( RuntimeException e ) {
+                    // a failing listener does not stop the other events
+                    log.error( "Error processing an event from agent at " + atsAgent, e );
+                }
+            }
+        } catch( IOException ioe ) {
+            if( !isClosed ) {
+                log.error( "Lost the connection for the events of agent at " + atsAgent, ioe );
+                error = ioe;
+            }
+        } finally {
+            try {
+                in.close();
+            } catch( IOException e ) {
+                // the connection is not reused
+            }
+        }
+
+        listener.onDisconnect( atsAgent, error );
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2017 Axway Software
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.axway.ats.agent.webapp.client;
+
+import java.util.List;
+
+import com.axway.ats.agent.core.monitoring.queue.ActionExecutionStatistic;
+import com.axway.ats.agent.core.monitoring.queue.QueueStateEvents.QueueStateEvent;
+import com.axway.ats.common.PublicAtsApi;
+import com.axway.ats.common.performance.monitor.beans.MonitorResults;
+
+/**
+ * Receives the events sent by an ATS Agent to an {@link AgentEventsClient}.
+ *
+ * All methods are called from the thread reading the events of this agent, so they must return quickly.
+ */
+@PublicAtsApi
+public interface AgentEventsListener {
+
+    /**
+     * Called when a queue changes its state
+     *
+     * @param atsAgent the agent address
+     * @param event the queue state change
+     */
+    @PublicAtsApi
+    public void onQueueStateChange( String atsAgent, QueueStateEvent event );
+
+    /**
+     * Called on each interval while a queue is running and right before it is paused or finished
+     *
+     * @param atsAgent the agent address
+     * @param queueName the queue name
+     * @param statistics the number of actions executed since the previous call for this queue
+     */
+    @PublicAtsApi
+    public void onActionStatistics( String atsAgent, String queueName, List<ActionExecutionStatistic> statistics );
+
+    /**
+     * Called on each interval when some user activity is collected
+     *
+     * @param atsAgent the agent address
+     * @param monitorResults the user activity collected since the previous call
+     */
+    @PublicAtsApi
+    public void onMonitorResults( String atsAgent, List<MonitorResults> monitorResults );
+
+    /**
+     * Called when no more events will be received
+     *
+     * @param atsAgent the agent address
+     * @param error the reason, null when the client was closed
+     */
+    @PublicAtsApi
+    public void onDisconnect( String atsAgent, Exception error );
+}
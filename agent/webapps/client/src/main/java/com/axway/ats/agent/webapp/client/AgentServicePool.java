@@ -17,16 +17,25 @@ package com.axway.ats.agent.webapp.client;
 
 import java.io.File;
 import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
 import java.net.URL;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import javax.xml.namespace.QName;
 import javax.xml.ws.BindingProvider;
 import javax.xml.ws.Service;
+import javax.xml.ws.WebServiceException;
 import javax.xml.ws.handler.MessageContext;
 
 import org.apache.log4j.Logger;
@@ -41,26 +50,44 @@ import com.axway.ats.core.utils.IoUtils;
 import com.axway.ats.core.utils.SslUtils;
 import com.sun.xml.ws.client.BindingProviderProperties;
 
+/**
+ * Keeps one web service client per agent. It is safe to use it from many threads.
+ *
+ * The agent WSDL is parsed once and the clients of all agents are created from it.
+ * The HTTP connections are kept alive and reused by the JDK, up to "http.maxConnections"(5 by default)
+ * idle connections per agent. The number of calls executed on an agent at the same time can be limited
+ * with the {@link AtsSystemProperties#AGENT__MAX_CONCURRENT_CALLS} property. The calls which wait for
+ * a queue are not limited, as they would keep a place for a long time and the calls which cancel
+ * or check the queue would have to wait for them.
+ */
 public class AgentServicePool {
 
-    private static Logger log = Logger.getLogger( AgentServicePool.class );
-    
+    private static Logger                                  log           = Logger.getLogger( AgentServicePool.class );
+
+    // the calls which may block for a long time, they are not limited
+    private static final Set<String>                       WAITING_CALLS = new HashSet<String>( Arrays.asList( "waitUntilQueueFinish",
+                                                                                                                "waitUntilAllQueuesFinish",
+                                                                                                                "waitUntilQueueIsPaused",
+                                                                                                                "startQueueAt" ) );
+
     //singleton instance
-    private static AgentServicePool       instance;
+    private static final AgentServicePool                  instance      = new AgentServicePool();
+
+    //all service ports and the limiters of the calls through them
+    private final ConcurrentMap<String, AgentService>      servicePorts  = new ConcurrentHashMap<String, AgentService>();
+    private final ConcurrentMap<String, AgentCallsLimiter> callsLimiters = new ConcurrentHashMap<String, AgentCallsLimiter>();
 
-    //hashmap of all service ports
-    private HashMap<String, AgentService> servicePorts;
+    // the agent service model, created from the WSDL on first use
+    private Service                                        agentService;
 
     // A universe wide ;) unique ID used for maintaining session between Agent and its caller.
     // We use one instance per Test Executor JVM.
-    // It is used by the Agent to recognize the caller. 
-    private String                          uniqueId;
-    
-    private static boolean                  useNewUuId = false;
+    // It is used by the Agent to recognize the caller.
+    private volatile String                                uniqueId;
 
-    private AgentServicePool() {
+    private static volatile boolean                        useNewUuId    = false;
 
-        servicePorts = new HashMap<String, AgentService>();
+    private AgentServicePool() {
 
         //Fix for JWSDP web services library
         //TestNG enables assertion by default and the code for
@@ -71,16 +98,19 @@ public class AgentServicePool {
 
     public static AgentServicePool getInstance() {
 
-        if( instance == null ) {
-            instance = new AgentServicePool();
-        }
-
         return instance;
     }
-    
+
     public static void useNewUniqueId() {
 
-        useNewUuId = true;
+        if( !useNewUuId ) {
+            useNewUuId = true;
+            // the clients are created again, with a new ID
+            synchronized( instance ) {
+                instance.uniqueId = null;
+                instance.servicePorts.clear();
+            }
+        }
     }
 
     public AgentService getClient( String atsAgent ) throws AgentException {
@@ -89,13 +119,50 @@ public class AgentServicePool {
 
         AgentService servicePort = servicePorts.get( atsAgent );
         if( servicePort == null ) {
-            servicePort = createServicePort( atsAgent );
-            servicePorts.put( atsAgent, servicePort );
+            synchronized( this ) {
+                // it may have been created while waiting for the lock
+                servicePort = servicePorts.get( atsAgent );
+                if( servicePort == null ) {
+                    servicePort = createServicePort( atsAgent );
+                    servicePorts.put( atsAgent, servicePort );
+                }
+            }
         }
 
         return servicePort;
     }
 
+    /**
+     * @return the unique ID, which the agents use to recognize this caller.
+     * It is available after the first {@link #getClient(String)} call
+     */
+    public String getUniqueId() {
+
+        return uniqueId;
+    }
+
+    /**
+     * Get the limiter of the calls to an agent. All calls made through the {@link #getClient(String)} client
+     * go through it, other ways of calling the agent should use it as well.
+     *
+     * @param atsAgent the agent address
+     * @return the limiter, it also has statistics about the calls
+     */
+    public AgentCallsLimiter getCallsLimiter( String atsAgent ) {
+
+        AgentCallsLimiter callsLimiter = callsLimiters.get( atsAgent );
+        if( callsLimiter == null ) {
+            int maxConcurrentCalls = AtsSystemProperties.getPropertyAsNonNegativeNumber( AtsSystemProperties.AGENT__MAX_CONCURRENT_CALLS,
+                                                                                         0 );
+            AgentCallsLimiter newCallsLimiter = new AgentCallsLimiter( atsAgent, maxConcurrentCalls );
+            callsLimiter = callsLimiters.putIfAbsent( atsAgent, newCallsLimiter );
+            if( callsLimiter == null ) {
+                callsLimiter = newCallsLimiter;
+            }
+        }
+        return callsLimiter;
+    }
+
     private AgentService createServicePort( String host ) throws AgentException {
 
         try {
@@ -108,13 +175,15 @@ public class AgentServicePool {
                 SslUtils.trustAllHostnames();
             }
 
-            URL url = this.getClass()
-                          .getResource( "/META-INF/wsdl/" + AgentWsDefinitions.AGENT_SERVICE_XML_LOCAL_NAME
-                                        + ".wsdl" );
+            if( agentService == null ) {
+                URL url = this.getClass()
+                              .getResource( "/META-INF/wsdl/" + AgentWsDefinitions.AGENT_SERVICE_XML_LOCAL_NAME
+                                            + ".wsdl" );
 
-            Service agentService = Service.create( url,
-                                                   new QName( AgentWsDefinitions.AGENT_SERVICE_XML_TARGET_NAMESPACE,
-                                                              AgentWsDefinitions.AGENT_SERVICE_XML_LOCAL_NAME ) );
+                agentService = Service.create( url,
+                                               new QName( AgentWsDefinitions.AGENT_SERVICE_XML_TARGET_NAMESPACE,
+                                                          AgentWsDefinitions.AGENT_SERVICE_XML_LOCAL_NAME ) );
+            }
             AgentService agentServicePort = agentService.getPort( new QName( AgentWsDefinitions.AGENT_SERVICE_XML_TARGET_NAMESPACE,
                                                                              AgentWsDefinitions.AGENT_SERVICE_XML_PORT_NAME ),
                                                                   AgentService.class );
@@ -128,60 +197,122 @@ public class AgentServicePool {
                       protocol + "://" + host + AgentWsDefinitions.AGENT_SERVICE_ENDPOINT_ADDRESS );
             // setting timeouts
             ctxt.put( BindingProviderProperties.CONNECT_TIMEOUT, 10000 ); // timeout in milliseconds
-            
-            // check if new unique id must be generated each time
-            if( !useNewUuId ) {
-                // create temp file containing caller working directory and the unique id
-                String userWorkingDirectory = AtsSystemProperties.SYSTEM_USER_HOME_DIR;
-                String uuiFileLocation = AtsSystemProperties.SYSTEM_USER_TEMP_DIR + AtsSystemProperties.SYSTEM_FILE_SEPARATOR + "\\ats_uid.txt";
-                File uuiFile = new File( uuiFileLocation );
-                
-                // check if the file exist and if exist check if the data we need is in, 
-                // otherwise add it to the file 
-                if( uuiFile.exists() ) {
-                    String uuiFileContent = IoUtils.streamToString( IoUtils.readFile( uuiFileLocation ) );
-                    if( uuiFileContent.contains( userWorkingDirectory ) ) {
-                        for( String line : uuiFileContent.split( "\n" ) ) {
-                            if( line.contains( userWorkingDirectory ) ) {
-                                uniqueId = line.substring( userWorkingDirectory.length() ).trim();
-                            }
-                        }
-                    } else {
-                        generateNewUUID();
-                        new LocalFileSystemOperations().appendToFile( uuiFileLocation,
-                                                                      userWorkingDirectory + "\t" + uniqueId + "\n" );
-                    }
-                } else {
-                    generateNewUUID();
-                    try{
-                        uuiFile.createNewFile();
-                    }catch (IOException e) {
-                        log.warn( "Unable to create file '"+uuiFile.getAbsolutePath()+"'");
-                    }
-                    if(uuiFile.exists()){
-                        new LocalFileSystemOperations().appendToFile( uuiFileLocation,
-                                                                      userWorkingDirectory + "\t" + uniqueId + "\n" ); 
-                    }
-                }
-            } else{
-                generateNewUUID();
+
+            if( uniqueId == null ) {
+                uniqueId = loadUniqueId();
             }
-            
+
             // add header with unique session ID
             Map<String, List<String>> requestHeaders = new HashMap<>();
             requestHeaders.put( ApplicationContext.ATS_UID_SESSION_TOKEN,
                                 Arrays.asList( uniqueId ) );
             ctxt.put( MessageContext.HTTP_REQUEST_HEADERS, requestHeaders );
 
-            return agentServicePort;
+            return limitCalls( agentServicePort, getCallsLimiter( host ) );
         } catch( Exception e ) {
             throw new AgentException( "Cannot connect to Agent application on host '" + host
                                       + "' check your configuration", e );
         }
     }
-    
-    private void generateNewUUID(){
-        
-        uniqueId = UUID.randomUUID().toString().trim();
+
+    /**
+     * @return the unique ID of this caller
+     */
+    private String loadUniqueId() throws IOException {
+
+        // check if new unique id must be generated
+        if( useNewUuId ) {
+            return generateNewUUID();
+        }
+
+        // create temp file containing caller working directory and the unique id
+        String userWorkingDirectory = AtsSystemProperties.SYSTEM_USER_HOME_DIR;
+        String uuiFileLocation = AtsSystemProperties.SYSTEM_USER_TEMP_DIR + AtsSystemProperties.SYSTEM_FILE_SEPARATOR + "\\ats_uid.txt";
+        File uuiFile = new File( uuiFileLocation );
+
+        // check if the file exist and if exist check if the data we need is in,
+        // otherwise add it to the file
+        String newUniqueId = null;
+        if( uuiFile.exists() ) {
+            String uuiFileContent = IoUtils.streamToString( IoUtils.readFile( uuiFileLocation ) );
+            if( uuiFileContent.contains( userWorkingDirectory ) ) {
+                for( String line : uuiFileContent.split( "\n" ) ) {
+                    if( line.contains( userWorkingDirectory ) ) {
+                        newUniqueId = line.substring( userWorkingDirectory.length() ).trim();
+                    }
+                }
+            } else {
+                newUniqueId = generateNewUUID();
+                new LocalFileSystemOperations().appendToFile( uuiFileLocation,
+                                                              userWorkingDirectory + "\t" + newUniqueId + "\n" );
+            }
+        } else {
+            newUniqueId = generateNewUUID();
+            try{
+                uuiFile.createNewFile();
+            }catch (IOException e) {
+                log.warn( "Unable to create file '"+uuiFile.getAbsolutePath()+"'");
+            }
+            if(uuiFile.exists()){
+                new LocalFileSystemOperations().appendToFile( uuiFileLocation,
+                                                              userWorkingDirectory + "\t" + newUniqueId + "\n" );
+            }
+        }
+        return newUniqueId;
+    }
+
+    private String generateNewUUID(){
+
+        return UUID.randomUUID().toString().trim();
+    }
+
+    /**
+     * Wrap a service port, so all calls through it, except the ones waiting for queues,
+     * go through the calls limiter
+     *
+     * @param agentServicePort the service port
+     * @param callsLimiter the calls limiter
+     * @return the wrapped service port
+     */
+    static AgentService limitCalls( final AgentService agentServicePort,
+                                    final AgentCallsLimiter callsLimiter ) {
+
+        return ( AgentService ) Proxy.newProxyInstance( AgentService.class.getClassLoader(),
+                                                        new Class<?>[]{ AgentService.class },
+                                                        new InvocationHandler() {
+
+                                                            @Override
+                                                            public Object invoke( Object proxy, Method method,
+                                                                                  Object[] args ) throws Throwable {
+
+                                                                if( method.getDeclaringClass() == Object.class ) {
+                                                                    return method.invoke( agentServicePort, args );
+                                                                }
+                                                                if( WAITING_CALLS.contains( method.getName() ) ) {
+                                                                    try {
+                                                                        return method.invoke( agentServicePort,
+                                                                                              args );
+                                                                    } catch( InvocationTargetException ite ) {
+                                                                        throw ite.getCause();
+                                                                    }
+                                                                }
+
+                                                                try {
+                                                                    callsLimiter.acquire();
+                                                                } catch( InterruptedException ie ) {
+                                                                    Thread.currentThread().interrupt();
+                                                                    throw new WebServiceException( "Interrupted while waiting to call agent "
+                                                                                                   + callsLimiter.getAtsAgent(),
+                                                                                                   ie );
+                                                                }
+                                                                try {
+                                                                    return method.invoke( agentServicePort, args );
+                                                                } catch( InvocationTargetException ite ) {
+                                                                    throw ite.getCause();
+                                                                } finally {
+                                                                    callsLimiter.release();
+                                                                }
+                                                            }
+                                                        } );
     }
 }
@@ -0,0 +1,271 @@
+/*
+ * Copyright 2017 Axway Software
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.axway.ats.agent.webapp.client;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.log4j.Logger;
+
+import com.axway.ats.agent.core.action.ActionRequest;
+import com.axway.ats.agent.core.configuration.AgentConfigurator;
+import com.axway.ats.agent.core.context.ApplicationContext;
+import com.axway.ats.agent.core.exceptions.AgentException;
+import com.axway.ats.agent.core.exceptions.InternalComponentException;
+import com.axway.ats.agent.core.protocol.BinaryActionProtocol;
+import com.axway.ats.agent.core.protocol.ValueCodec;
+import com.axway.ats.agent.webapp.agentservice.AgentWsDefinitions;
+import com.axway.ats.core.utils.HostUtils;
+
+/**
+ * Executes actions on a remote ATS Agent with the {@link BinaryActionProtocol}.
+ *
+ * The HTTP connections are kept alive and reused by the JDK between the calls.
+ * Many actions can be sent in one call, they are executed one after another without waiting
+ * for a network round trip for each of them.
+ */
+public class BinaryActionClient {
+
+    private static final Logger      log                 = Logger.getLogger( BinaryActionClient.class );
+
+    private static final int         CONNECT_TIMEOUT     = 10000;
+
+    // the agents which do not have the binary actions endpoint, they are older than this client
+    private static final Set<String> notSupportingAgents = Collections.synchronizedSet( new HashSet<String>() );
+
+    private final String             atsAgent;
+    private final URL                url;
+    private final String             uniqueId;
+    private final AgentCallsLimiter  callsLimiter;
+
+    /**
+     * @param atsAgent the remote agent address
+     * @throws AgentException
+     */
+    public BinaryActionClient( String atsAgent ) throws AgentException {
+
+        this.atsAgent = atsAgent;
+
+        // the web service client is initialized first, so the agent recognizes this caller
+        // no matter which protocol is used
+        AgentServicePool agentServicePool = AgentServicePool.getInstance();
+        agentServicePool.getClient( atsAgent );
+        this.uniqueId = agentServicePool.getUniqueId();
+        this.callsLimiter = agentServicePool.getCallsLimiter( atsAgent );
+
+        String protocol = AgentConfigurator.getConnectionProtocol( atsAgent );
+        if( protocol == null ) {
+            protocol = "http";
+        }
+        try {
+            this.url = new URL( protocol + "://" + atsAgent
+                                + AgentWsDefinitions.BINARY_ACTIONS_ENDPOINT_ADDRESS );
+        } catch( IOException e ) {
+            throw new AgentException( "Invalid agent address '" + atsAgent + "'", e );
+        }
+    }
+
+    /**
+     * @param atsAgent the remote agent address
+     * @return false if the agent is known to not support the binary protocol
+     */
+    public static boolean isSupportedBy( String atsAgent ) {
+
+        return !notSupportingAgents.contains( atsAgent );
+    }
+
+    /**
+     * Execute an action
+     *
+     * @param actionRequest the action request
+     * @return the action result
+     * @throws AgentException if the action cannot be executed or it fails
+     */
+    public Object executeAction( ActionRequest actionRequest ) throws AgentException {
+
+        return executeActions( Collections.singletonList( actionRequest ) ).get( 0 );
+    }
+
+    /**
+     * Execute a number of actions in one call. They are executed in the provided order.
+     * If an action fails, its exception is thrown and the actions after it are not executed.
+     *
+     * @param actionRequests the action requests
+     * @return the action results, in the order of the requests
+     * @throws AgentException if some action cannot be executed or it fails
+     */
+    public List<Object> executeActions( List<ActionRequest> actionRequests ) throws AgentException {
+
+        byte[] requestBytes;
+        try {
+            ByteArrayOutputStream byteOutStream = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream( byteOutStream );
+            BinaryActionProtocol.writeHeader( out );
+            for( ActionRequest actionRequest : actionRequests ) {
+                BinaryActionProtocol.writeRequest( out, actionRequest );
+            }
+            requestBytes = byteOutStream.toByteArray();
+        } catch( IOException ioe ) {
+            throw new AgentException( "Could not serialize input arguments", ioe );
+        }
+
+        List<Object> results = new ArrayList<Object>( actionRequests.size() );
+        for( ActionResult actionResult : send( requestBytes, actionRequests.size(), true ) ) {
+            results.add( actionResult.getResult() );
+        }
+        return results;
+    }
+
+    /**
+     * Execute a batch of actions in one call. They are executed in the provided order,
+     * all of them are executed even if some fail.
+     *
+     * @param actionRequests the action requests
+     * @param independentFlags for each request, whether it can be executed at the same time as the
+     * independent requests next to it
+     * @return the outcome of each action, in the order of the requests
+     * @throws AgentException if the batch cannot be executed
+     */
+    public List<ActionResult> executeBatch( List<ActionRequest> actionRequests,
+                                            List<Boolean> independentFlags ) throws AgentException {
+
+        byte[] requestBytes;
+        try {
+            ByteArrayOutputStream byteOutStream = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream( byteOutStream );
+            BinaryActionProtocol.writeHeader( out );
+            BinaryActionProtocol.writeBatch( out, actionRequests, independentFlags );
+            requestBytes = byteOutStream.toByteArray();
+        } catch( IOException ioe ) {
+            throw new AgentException( "Could not serialize input arguments", ioe );
+        }
+
+        return send( requestBytes, actionRequests.size(), false );
+    }
+
+    /**
+     * Send the request and read the responses
+     *
+     * @param requestBytes the request
+     * @param numberResponses the number of expected responses
+     * @param stopOnFailure whether the agent stops after the first failed action
+     * @return the responses
+     * @throws AgentException if the request cannot be sent or the responses cannot be read
+     */
+    private List<ActionResult> send( byte[] requestBytes, int numberResponses,
+                                     boolean stopOnFailure ) throws AgentException {
+
+        try {
+            callsLimiter.acquire();
+        } catch( InterruptedException ie ) {
+            Thread.currentThread().interrupt();
+            throw new AgentException( "Interrupted while waiting to execute actions on agent at " + atsAgent, ie );
+        }
+
+        InputStream responseStream = null;
+        try {
+            HttpURLConnection connection = ( HttpURLConnection ) url.openConnection();
+            connection.setRequestMethod( "POST" );
+            connection.setDoOutput( true );
+            connection.setConnectTimeout( CONNECT_TIMEOUT );
+            connection.setRequestProperty( "Content-Type", BinaryActionProtocol.CONTENT_TYPE );
+            if( uniqueId != null ) {
+                connection.setRequestProperty( ApplicationContext.ATS_UID_SESSION_TOKEN, uniqueId );
+            }
+
+            OutputStream requestStream = connection.getOutputStream();
+            requestStream.write( requestBytes );
+            requestStream.close();
+
+            int responseCode = connection.getResponseCode();
+            if( responseCode != HttpURLConnection.HTTP_OK ) {
+                responseStream = connection.getErrorStream();
+                if( responseCode == HttpURLConnection.HTTP_NOT_FOUND ) {
+                    log.warn( "ATS Agent at " + atsAgent
+                              + " does not support the binary protocol, its web service will be used instead" );
+                    notSupportingAgents.add( atsAgent );
+                }
+                throw new AgentException( "Could not execute actions on agent at " + atsAgent + ". HTTP response: "
+                                          + responseCode + " " + connection.getResponseMessage() );
+            }
+
+            responseStream = connection.getInputStream();
+            DataInputStream in = new DataInputStream( new BufferedInputStream( responseStream ) );
+            BinaryActionProtocol.readHeader( in );
+
+            List<ActionResult> results = new ArrayList<ActionResult>( numberResponses );
+            for( int i = 0; i < numberResponses; i++ ) {
+                ActionResult actionResult = readResponse( in );
+                results.add( actionResult );
+                if( stopOnFailure && !actionResult.isSuccessful() ) {
+                    // the agent does not execute the actions after this one
+                    break;
+                }
+            }
+            // read to the end, so the connection can be reused
+            while( in.read() != -1 ) {
+                // nothing is expected here
+            }
+            return results;
+        } catch( IOException ioe ) {
+            throw new AgentException( "Could not execute actions on agent at " + atsAgent, ioe );
+        } catch( ClassNotFoundException cnfe ) {
+            throw new AgentException( "Could not deserialize returned result from agent at " + atsAgent,
+                                      cnfe );
+        } finally {
+            if( responseStream != null ) {
+                try {
+                    responseStream.close();
+                } catch( IOException e ) {
+                    // the connection will not be reused
+                }
+            }
+            callsLimiter.release();
+        }
+    }
+
+    private ActionResult readResponse( DataInputStream in ) throws IOException, ClassNotFoundException {
+
+        byte responseType = BinaryActionProtocol.readResponseType( in );
+        if( responseType == BinaryActionProtocol.RESPONSE_RESULT ) {
+            return new ActionResult( ValueCodec.read( in ), null );
+        } else if( responseType == BinaryActionProtocol.RESPONSE_INTERNAL_COMPONENT_ERROR ) {
+            String componentName = BinaryActionProtocol.readString( in );
+            String actionName = BinaryActionProtocol.readString( in );
+            String exceptionMessage = ( String ) ValueCodec.read( in ) + "\n[" + HostUtils.getLocalHostIP()
+                                      + " stacktrace]";
+
+            return new ActionResult( null, new InternalComponentException( componentName, actionName,
+                                                                           exceptionMessage, atsAgent ) );
+        } else {
+            return new ActionResult( null,
+                                     new AgentException( "Error while executing action on agent at " + atsAgent
+                                                         + ". Exception message: " + ValueCodec.read( in ) ) );
+        }
+    }
+}
@@ -18,6 +18,7 @@ package com.axway.ats.agent.webapp.client;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 import com.axway.ats.agent.core.exceptions.ActionExecutionException;
@@ -140,6 +141,34 @@ public class LoadClient {
         this.loaderDataConfig.addParameterConfig( parameterDataConfig );
     }
 
+    /**
+     * Receive the queue state changes and the action statistics from all loaders while the queues run,
+     * instead of polling the loaders for them.
+     * Call it before executing the queued actions, and close the returned clients when no more events are needed.
+     *
+     * @param listener the listener for the events of all loaders
+     * @return the events client for each loader
+     * @throws AgentException if some loader cannot be subscribed to
+     */
+    @PublicAtsApi
+    public List<AgentEventsClient> subscribeForEvents( AgentEventsListener listener ) throws AgentException {
+
+        List<AgentEventsClient> eventsClients = new ArrayList<AgentEventsClient>();
+        try {
+            for( String loaderAddress : loaderAddresses ) {
+                AgentEventsClient eventsClient = new AgentEventsClient( loaderAddress );
+                eventsClient.subscribe( listener );
+                eventsClients.add( eventsClient );
+            }
+        } catch( AgentException e ) {
+            for( AgentEventsClient eventsClient : eventsClients ) {
+                eventsClient.close();
+            }
+            throw e;
+        }
+        return eventsClients;
+    }
+
     /**
      * All actions after this point will be queued for later execution
      * @param queueName
@@ -21,10 +21,22 @@ import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.xml.ws.soap.SOAPFaultException;
 
 import com.axway.ats.agent.core.action.ActionRequest;
 import com.axway.ats.agent.core.exceptions.AgentException;
@@ -38,6 +50,7 @@ import com.axway.ats.agent.webapp.client.AgentService;
 import com.axway.ats.agent.webapp.client.AgentServicePool;
 import com.axway.ats.agent.webapp.client.InternalComponentException;
 import com.axway.ats.agent.webapp.client.InternalComponentException_Exception;
+import com.axway.ats.common.systemproperties.AtsSystemProperties;
 import com.axway.ats.core.events.TestcaseStateEventsDispacher;
 import com.axway.ats.core.utils.HostUtils;
 import com.axway.ats.log.model.LoadQueueResult;
@@ -48,8 +61,17 @@ import com.axway.ats.log.model.LoadQueueResult;
  */
 public class DistributedLoadExecutor extends RemoteExecutor {
 
-    private List<String> atsAgents;
-    private int          queueSequence;
+    // the maximum number of agents which are called at the same time
+    private static final int         MAX_PARALLEL_AGENT_CALLS  = 64;
+
+    // the default time between sending the start command and starting the queue on all agents
+    private static final int         DEFAULT_START_DELAY       = 500;
+
+    // the agents which do not have the startQueueAt operation, they are older than this client
+    private static final Set<String> agentsWithoutStartQueueAt = Collections.synchronizedSet( new HashSet<String>() );
+
+    private List<String>             atsAgents;
+    private int                      queueSequence;
 
     public DistributedLoadExecutor( String name, int sequence, List<String> atsAgents,
                                     ThreadingPattern threadingPattern,
@@ -94,34 +116,36 @@ public class DistributedLoadExecutor extends RemoteExecutor {
         final List<LoaderDataConfig> distributedLoaderDataConfigs = loaderDataConfig.distribute( distributedPatterns.size() );
 
         // start queue in the database and retrieve its ID
-        int queueId = retrieveQueueId( queueSequence, getHostsList() );
+        final int queueId = retrieveQueueId( queueSequence, getHostsList() );
 
         //call the web service now
         try {
 
-            //first schedule the loaders on all hosts
-            for( int i = 0; i < distributedPatterns.size(); i++ ) {
+            //wrap all the action requests
+            final List<ActionWrapper> actionWrappers = new ArrayList<ActionWrapper>();
+            for( ActionRequest actionRequest : actionRequests ) {
+                actionWrappers.add( wrapActionRequest( actionRequest ) );
+            }
 
-                //serialize the threading pattern - it's easier to pass it to the web service that way
-                byte[] serializedThreadingPattern = serializeObject( distributedPatterns.get( i ) );
-                byte[] serializedLoaderDataConfig = serializeObject( distributedLoaderDataConfigs.get( i ) );
+            //first schedule the loaders on all hosts at the same time
+            callAllAgents( atsAgents.subList( 0, distributedPatterns.size() ), new AgentCall<Void>() {
 
-                //wrap all the action requests
-                List<ActionWrapper> actionWrappers = new ArrayList<ActionWrapper>();
-                for( ActionRequest actionRequest : actionRequests ) {
-                    actionWrappers.add( wrapActionRequest( actionRequest ) );
-                }
+                @Override
+                public Void call( int agentIndex, AgentService agentServicePort ) throws Exception {
 
-                //schedule the actions, but do not execute
-                //get the client
-                AgentService agentServicePort = AgentServicePool.getInstance()
-                                                                .getClient( atsAgents.get( i ) );
-                agentServicePort.scheduleActionsInMultipleThreads( queueName, queueId, actionWrappers,
-                                                                   serializedThreadingPattern,
-                                                                   serializedLoaderDataConfig,
-                                                                   distributedPatterns.get( 0 )
-                                                                                      .isUseSynchronizedIterations() );
-            }
+                    //serialize the threading pattern - it's easier to pass it to the web service that way
+                    byte[] serializedThreadingPattern = serializeObject( distributedPatterns.get( agentIndex ) );
+                    byte[] serializedLoaderDataConfig = serializeObject( distributedLoaderDataConfigs.get( agentIndex ) );
+
+                    //schedule the actions, but do not execute
+                    agentServicePort.scheduleActionsInMultipleThreads( queueName, queueId, actionWrappers,
+                                                                       serializedThreadingPattern,
+                                                                       serializedLoaderDataConfig,
+                                                                       distributedPatterns.get( 0 )
+                                                                                          .isUseSynchronizedIterations() );
+                    return null;
+                }
+            } );
 
             boolean useSynchronizedIterations = distributedPatterns.get( 0 ).isUseSynchronizedIterations();
             if( useSynchronizedIterations && !blockUntilCompletion ) {
@@ -250,12 +274,7 @@ public class DistributedLoadExecutor extends RemoteExecutor {
                                            : "Will not wait to finish." ) );
         try {
             // start the actions on all loaders
-            for( int i = 0; i < atsAgents.size(); i++ ) {
-                String host = atsAgents.get( i );
-
-                AgentService agentServicePort = AgentServicePool.getInstance().getClient( host );
-                agentServicePort.startQueue( queueName );
-            }
+            startQueueOnAllAgents();
         } catch( Exception e ) {
             String msg = "Error starting action queue '" + queueName + "'";
             log.error( msg, e );
@@ -327,10 +346,7 @@ public class DistributedLoadExecutor extends RemoteExecutor {
                   + atsAgents.toString() );
 
         try {
-            for( String host : atsAgents ) {
-                AgentService agentServicePort = AgentServicePool.getInstance().getClient( host );
-                agentServicePort.startQueue( queueName );
-            }
+            startQueueOnAllAgents();
         } catch( Exception e ) {
             String msg = "Error running action queue '" + queueName + "'";
             log.error( msg, e );
@@ -366,10 +382,15 @@ public class DistributedLoadExecutor extends RemoteExecutor {
                 }
 
                 // resume the actions on all agents
-                for( String agent : atsAgentsTmp ) {
-                    AgentService agentServicePort = AgentServicePool.getInstance().getClient( agent );
-                    agentServicePort.resumeQueue( queueName );
-                }
+                callAllAgents( atsAgentsTmp, new AgentCall<Void>() {
+
+                    @Override
+                    public Void call( int agentIndex, AgentService agentServicePort ) throws Exception {
+
+                        agentServicePort.resumeQueue( queueName );
+                        return null;
+                    }
+                } );
             }
 
             // the queue finished but there might be some failed actions
@@ -392,6 +413,178 @@ public class DistributedLoadExecutor extends RemoteExecutor {
         }
     }
 
+    /**
+     * Start the queue on all agents at the same moment. The agents are sent a start time a little
+     * in the future, and each of them waits for it, so the time needed to reach the agents does not matter.
+     * Older agents, which do not have the startQueueAt operation, are sent the immediate start command
+     * when that time comes.
+     */
+    private void startQueueOnAllAgents() throws Exception {
+
+        int startDelay = AtsSystemProperties.getPropertyAsNonNegativeNumber( AtsSystemProperties.AGENT__DISTRIBUTED_QUEUE_START_DELAY,
+                                                                             DEFAULT_START_DELAY );
+        final long startTimestamp = System.currentTimeMillis() + startDelay;
+
+        List<Long> actualStartTimestamps = callAllAgents( atsAgents, new AgentCall<Long>() {
+
+            @Override
+            public Long call( int agentIndex, AgentService agentServicePort ) throws Exception {
+
+                String atsAgent = atsAgents.get( agentIndex );
+                if( !agentsWithoutStartQueueAt.contains( atsAgent ) ) {
+                    try {
+                        return agentServicePort.startQueueAt( queueName, startTimestamp );
+                    } catch( SOAPFaultException sfe ) {
+                        if( !isUnknownOperationFault( sfe, "startQueueAt" ) ) {
+                            throw sfe;
+                        }
+                        log.warn( "ATS Agent at " + atsAgent + " does not support starting a queue at some moment,"
+                                  + " it will be sent the start command when the others start" );
+                        agentsWithoutStartQueueAt.add( atsAgent );
+                    }
+                }
+
+                long timeToStart = startTimestamp - System.currentTimeMillis();
+                if( timeToStart > 0 ) {
+                    Thread.sleep( timeToStart );
+                }
+                agentServicePort.startQueue( queueName );
+                // the actual start time is not known
+                return null;
+            }
+        } );
+
+        // report how late each agent started the queue, according to its own clock
+        long minStartDelay = Long.MAX_VALUE;
+        long maxStartDelay = Long.MIN_VALUE;
+        StringBuilder agentStartDelays = new StringBuilder();
+        for( int i = 0; i < atsAgents.size(); i++ ) {
+            if( actualStartTimestamps.get( i ) == null ) {
+                continue;
+            }
+            long agentStartDelay = actualStartTimestamps.get( i ) - startTimestamp;
+            minStartDelay = Math.min( minStartDelay, agentStartDelay );
+            maxStartDelay = Math.max( maxStartDelay, agentStartDelay );
+
+            if( agentStartDelays.length() > 0 ) {
+                agentStartDelays.append( ", " );
+            }
+            agentStartDelays.append( atsAgents.get( i ) + ": " + agentStartDelay + " ms" );
+        }
+        if( agentStartDelays.length() > 0 ) {
+            log.info( "Started action queue '" + queueName + "' on " + atsAgents.size() + " agents with "
+                      + ( maxStartDelay - minStartDelay )
+                      + " ms start skew. Delay after the requested start time: " + agentStartDelays );
+        } else {
+            log.info( "Started action queue '" + queueName + "' on " + atsAgents.size() + " agents" );
+        }
+    }
+
+    /**
+     * @return if the agent does not know about some web service operation. The message
+     * of the returned SOAP fault contains the operation name in such case.
+     */
+    static boolean isUnknownOperationFault( SOAPFaultException sfe, String operationName ) {
+
+        String faultString = sfe.getFault() != null
+                                                    ? sfe.getFault().getFaultString()
+                                                    : sfe.getMessage();
+        return faultString != null && faultString.contains( operationName );
+    }
+
+    /**
+     * Call some agents at the same time and wait for all of them to complete
+     *
+     * @param hosts the agents to call
+     * @param agentCall the call
+     * @return the results in the order of the agents
+     * @throws Exception the first error thrown by some of the calls
+     */
+    private <T> List<T> callAllAgents( List<String> hosts, final AgentCall<T> agentCall ) throws Exception {
+
+        // get the service ports in the current thread, they are created on first use
+        final List<AgentService> agentServicePorts = new ArrayList<AgentService>();
+        for( String host : hosts ) {
+            agentServicePorts.add( AgentServicePool.getInstance().getClient( host ) );
+        }
+
+        List<T> results = new ArrayList<T>();
+        if( hosts.size() == 1 ) {
+            results.add( agentCall.call( 0, agentServicePorts.get( 0 ) ) );
+            return results;
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool( Math.min( hosts.size(), MAX_PARALLEL_AGENT_CALLS ),
+                                                                 new AgentCallThreadFactory( queueName ) );
+        try {
+            List<Future<T>> futures = new ArrayList<Future<T>>();
+            for( int i = 0; i < hosts.size(); i++ ) {
+                final int agentIndex = i;
+                futures.add( executor.submit( new Callable<T>() {
+
+                    @Override
+                    public T call() throws Exception {
+
+                        return agentCall.call( agentIndex, agentServicePorts.get( agentIndex ) );
+                    }
+                } ) );
+            }
+
+            // wait for all calls, even if some of them fail
+            Exception firstError = null;
+            for( int i = 0; i < futures.size(); i++ ) {
+                try {
+                    results.add( futures.get( i ).get() );
+                } catch( ExecutionException ee ) {
+                    Throwable cause = ee.getCause();
+                    if( firstError == null ) {
+                        firstError = cause instanceof Exception
+                                                                ? ( Exception ) cause
+                                                                : new AgentException( cause.getMessage(), cause );
+                    } else {
+                        log.error( "Error calling agent '" + hosts.get( i ) + "' for action queue '" + queueName
+                                   + "'", cause );
+                    }
+                    results.add( null );
+                }
+            }
+            if( firstError != null ) {
+                throw firstError;
+            }
+        } finally {
+            executor.shutdown();
+        }
+        return results;
+    }
+
+    /**
+     * A call to a single agent, done by {@link DistributedLoadExecutor#callAllAgents(List, AgentCall)}
+     */
+    private interface AgentCall<T> {
+
+        T call( int agentIndex, AgentService agentServicePort ) throws Exception;
+    }
+
+    private static class AgentCallThreadFactory implements ThreadFactory {
+
+        private final String        queueName;
+        private final AtomicInteger threadCounter = new AtomicInteger();
+
+        AgentCallThreadFactory( String queueName ) {
+
+            this.queueName = queueName;
+        }
+
+        @Override
+        public Thread newThread( Runnable runnable ) {
+
+            Thread thread = new Thread( runnable, "Agent calls for queue '" + queueName + "' "
+                                                  + threadCounter.incrementAndGet() );
+            thread.setDaemon( true );
+            return thread;
+        }
+    }
+
     /**
      * See if the queue has passed or failed based on number of pass and failed iterations
      */
@@ -26,13 +26,16 @@ import java.util.List;
 
 import com.axway.ats.agent.core.action.ActionRequest;
 import com.axway.ats.agent.core.exceptions.AgentException;
+import com.axway.ats.agent.webapp.client.ActionResult;
 import com.axway.ats.agent.webapp.client.ActionWrapper;
 import com.axway.ats.agent.webapp.client.AgentException_Exception;
 import com.axway.ats.agent.webapp.client.AgentService;
 import com.axway.ats.agent.webapp.client.AgentServicePool;
 import com.axway.ats.agent.webapp.client.ArgumentWrapper;
+import com.axway.ats.agent.webapp.client.BinaryActionClient;
 import com.axway.ats.agent.webapp.client.InternalComponentException;
 import com.axway.ats.agent.webapp.client.InternalComponentException_Exception;
+import com.axway.ats.common.systemproperties.AtsSystemProperties;
 import com.axway.ats.core.events.TestcaseStateEventsDispacher;
 import com.axway.ats.core.utils.HostUtils;
 
@@ -42,7 +45,10 @@ import com.axway.ats.core.utils.HostUtils;
  */
 public class RemoteExecutor extends AbstractClientExecutor {
 
-    protected String atsAgent;
+    protected String           atsAgent;
+
+    // created on first use, when the binary protocol is enabled
+    private BinaryActionClient binaryActionClient;
 
     /**
      * @param atsAgent the remote agent address
@@ -88,6 +94,21 @@ public class RemoteExecutor extends AbstractClientExecutor {
     @Override
     public Object executeAction( ActionRequest actionRequest ) throws AgentException {
 
+        if( AtsSystemProperties.getPropertyAsBoolean( AtsSystemProperties.AGENT__BINARY_PROTOCOL, false )
+            && BinaryActionClient.isSupportedBy( atsAgent ) ) {
+            try {
+                if( binaryActionClient == null ) {
+                    binaryActionClient = new BinaryActionClient( atsAgent );
+                }
+                return binaryActionClient.executeAction( actionRequest );
+            } catch( AgentException ae ) {
+                if( BinaryActionClient.isSupportedBy( atsAgent ) ) {
+                    throw ae;
+                }
+                // this agent is older, nothing was executed, so continue with its web service
+            }
+        }
+
         String actionName = actionRequest.getActionName();
         String componentName = actionRequest.getComponentName();
         Object[] arguments = actionRequest.getArguments();
@@ -155,6 +176,44 @@ public class RemoteExecutor extends AbstractClientExecutor {
         return result;
     }
 
+    /**
+     * Execute a batch of actions. The agent executes them all in one call, all of them are executed
+     * even if some fail. Agents which do not support batches execute them one by one.
+     *
+     * @param actionRequests the action requests
+     * @param independentFlags for each request, whether it can be executed at the same time as the
+     * independent requests next to it
+     * @return the outcome of each action, in the order of the requests
+     * @throws AgentException if the batch cannot be executed
+     */
+    public List<ActionResult> executeBatch( List<ActionRequest> actionRequests,
+                                            List<Boolean> independentFlags ) throws AgentException {
+
+        if( BinaryActionClient.isSupportedBy( atsAgent ) ) {
+            try {
+                if( binaryActionClient == null ) {
+                    binaryActionClient = new BinaryActionClient( atsAgent );
+                }
+                return binaryActionClient.executeBatch( actionRequests, independentFlags );
+            } catch( AgentException ae ) {
+                if( BinaryActionClient.isSupportedBy( atsAgent ) ) {
+                    throw ae;
+                }
+                // this agent is older, nothing was executed, so continue with its web service
+            }
+        }
+
+        List<ActionResult> results = new ArrayList<ActionResult>( actionRequests.size() );
+        for( ActionRequest actionRequest : actionRequests ) {
+            try {
+                results.add( new ActionResult( executeAction( actionRequest ), null ) );
+            } catch( AgentException ae ) {
+                results.add( new ActionResult( null, ae ) );
+            }
+        }
+        return results;
+    }
+
     @Override
     public boolean isComponentLoaded( ActionRequest actionRequest ) throws AgentException {
 
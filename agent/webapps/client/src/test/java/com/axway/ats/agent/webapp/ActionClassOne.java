@@ -94,6 +94,13 @@ public class ActionClassOne {
         return value;
     }
 
+    @Action(name = "action exception")
+    public void actionException(
+                                 @Parameter(name = "message") String message ) {
+
+        throw new IllegalStateException( message );
+    }
+
     @Action(name = "action wrong type")
     public ActionClassOne actionString(
                                         @Parameter(name = "valueToMatch") ActionClassOne value ) {
@@ -0,0 +1,170 @@
+/*
+ * Copyright 2017 Axway Software
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.axway.ats.agent.webapp.client;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.servlet.ServletContextHandler;
+import org.eclipse.jetty.servlet.ServletHolder;
+
+import com.axway.ats.agent.core.Component;
+import com.axway.ats.agent.core.ComponentActionMap;
+import com.axway.ats.agent.core.ComponentRepository;
+import com.axway.ats.agent.core.action.ActionRequest;
+import com.axway.ats.agent.webapp.ActionClassOne;
+import com.axway.ats.agent.webapp.agentservice.BinaryActionsServlet;
+import com.axway.ats.agent.webapp.client.executors.RemoteExecutor;
+import com.axway.ats.common.systemproperties.AtsSystemProperties;
+import com.sun.xml.ws.transport.http.servlet.WSServlet;
+import com.sun.xml.ws.transport.http.servlet.WSServletContextListener;
+
+/**
+ * Standalone benchmark for the round trip latency of executing an action on an agent.
+ *
+ * It starts a local agent with both the web service and the binary actions endpoint
+ * and executes a small action with each protocol, one call at a time.
+ * Then it executes the same number of actions with the binary protocol in batches, sent in one call each.
+ *
+ * Usage: BinaryProtocolBenchmark [number calls] [batch size]
+ *
+ * The defaults are 5000 calls and batches of 100 actions. It is not a unit test, so it is not run during the build.
+ * The web service runtime needs Java 8.
+ */
+public class BinaryProtocolBenchmark {
+
+    private static final String COMPONENT_NAME = "agenttest";
+
+    public static void main( String[] args ) throws Exception {
+
+        int numberCalls = args.length > 0
+                                          ? Integer.parseInt( args[0] )
+                                          : 5000;
+        int batchSize = args.length > 1
+                                        ? Integer.parseInt( args[1] )
+                                        : 100;
+
+        // the action execution is logged at info level, that would be measured instead
+        Logger.getRootLogger().setLevel( Level.WARN );
+
+        Component component = new Component( COMPONENT_NAME );
+        ComponentActionMap actionMap = new ComponentActionMap( COMPONENT_NAME );
+        actionMap.registerActionClass( ActionClassOne.class );
+        component.setActionMap( actionMap );
+        ComponentRepository.getInstance().putComponent( component );
+
+        Server agent = startAgent();
+        try {
+            String atsAgent = "127.0.0.1:" + agent.getConnectors()[0].getLocalPort();
+            ActionRequest actionRequest = new ActionRequest( COMPONENT_NAME, "action string",
+                                                             new Object[]{ "/tmp/some/folder/file.txt" } );
+
+            System.out.println( "Executing " + numberCalls + " actions on a local agent" );
+            for( int round = 1; round <= 3; round++ ) {
+                System.out.println( "Round " + round + ( round < 3
+                                                                   ? " (warm-up)"
+                                                                   : "" ) );
+
+                System.clearProperty( AtsSystemProperties.AGENT__BINARY_PROTOCOL );
+                measure( "SOAP", new RemoteExecutor( atsAgent, false ), actionRequest, numberCalls );
+
+                System.setProperty( AtsSystemProperties.AGENT__BINARY_PROTOCOL, "true" );
+                measure( "binary", new RemoteExecutor( atsAgent, false ), actionRequest, numberCalls );
+
+                measureBatches( "binary batches of " + batchSize, new BinaryActionClient( atsAgent ),
+                                actionRequest, numberCalls, batchSize );
+            }
+        } finally {
+            agent.stop();
+        }
+    }
+
+    private static void measure( String name, RemoteExecutor remoteExecutor, ActionRequest actionRequest,
+                                 int numberCalls ) throws Exception {
+
+        long startTime = System.nanoTime();
+        for( int i = 0; i < numberCalls; i++ ) {
+            remoteExecutor.executeAction( actionRequest );
+        }
+        print( name, System.nanoTime() - startTime, numberCalls );
+    }
+
+    private static void measureBatches( String name, BinaryActionClient client, ActionRequest actionRequest,
+                                        int numberCalls, int batchSize ) throws Exception {
+
+        List<ActionRequest> batch = new ArrayList<ActionRequest>();
+        for( int i = 0; i < batchSize; i++ ) {
+            batch.add( actionRequest );
+        }
+
+        long startTime = System.nanoTime();
+        int numberBatches = numberCalls / batchSize;
+        for( int i = 0; i < numberBatches; i++ ) {
+            client.executeActions( batch );
+        }
+        print( name, System.nanoTime() - startTime, numberBatches * batchSize );
+    }
+
+    private static void print( String name, long totalNanos, int numberActions ) {
+
+        System.out.println( String.format( "%-26s %,10.1f us/action, %,10.0f actions/s", name,
+                                           totalNanos / 1000D / numberActions,
+                                           numberActions * 1000000000D / totalNanos ) );
+    }
+
+    private static Server startAgent() throws Exception {
+
+        // the web service endpoint is described in this file, as in the agent web application
+        File webAppFolder = new File( System.getProperty( "java.io.tmpdir" ), "ats_benchmark_agentapp" );
+        File webInfFolder = new File( webAppFolder, "WEB-INF" );
+        webInfFolder.mkdirs();
+        writeFile( new File( webInfFolder, "sun-jaxws.xml" ),
+                   "<endpoints xmlns='http://java.sun.com/xml/ns/jax-ws/ri/runtime' version='2.0'>"
+                                                              + "<endpoint name='agentservice'"
+                                                              + " implementation='com.axway.ats.agent.webapp.agentservice.AgentWsImpl'"
+                                                              + " url-pattern='/agentservice'/>"
+                                                              + "</endpoints>" );
+
+        ServletContextHandler context = new ServletContextHandler( ServletContextHandler.NO_SESSIONS );
+        context.setContextPath( "/agentapp" );
+        context.setResourceBase( webAppFolder.getAbsolutePath() );
+        context.addEventListener( new WSServletContextListener() );
+        context.addServlet( new ServletHolder( new WSServlet() ), "/agentservice" );
+        context.addServlet( new ServletHolder( new BinaryActionsServlet() ), "/actions" );
+
+        Server server = new Server( 0 );
+        server.setHandler( context );
+        server.start();
+        return server;
+    }
+
+    private static void writeFile( File file, String content ) throws IOException {
+
+        OutputStream out = new FileOutputStream( file );
+        try {
+            out.write( content.getBytes( "UTF-8" ) );
+        } finally {
+            out.close();
+        }
+    }
+}
@@ -0,0 +1,187 @@
+/*
+ * Copyright 2017 Axway Software
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.axway.ats.agent.webapp.client;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.servlet.ServletContextHandler;
+import org.eclipse.jetty.servlet.ServletHolder;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.axway.ats.agent.core.exceptions.AgentException;
+import com.axway.ats.agent.core.monitoring.queue.ActionExecutionStatistic;
+import com.axway.ats.agent.core.monitoring.queue.QueueExecutionStatistics;
+import com.axway.ats.agent.core.monitoring.queue.QueueStateEvents;
+import com.axway.ats.agent.core.monitoring.queue.QueueStateEvents.QueueStateEvent;
+import com.axway.ats.agent.core.threading.ActionTaskLoaderState;
+import com.axway.ats.agent.webapp.agentservice.AgentEventsServlet;
+import com.axway.ats.common.performance.monitor.beans.MonitorResults;
+import com.axway.ats.junit.BaseTestWebapps;
+
+public class Test_AgentEventsClient extends BaseTestWebapps {
+
+    private static final String QUEUE_NAME = "Test_AgentEventsClient queue";
+
+    private static Server       agent;
+    private static String       atsAgent;
+
+    @BeforeClass
+    public static void setUpTest_AgentEventsClient() throws Exception {
+
+        // an agent which has the events endpoint only
+        ServletContextHandler context = new ServletContextHandler( ServletContextHandler.NO_SESSIONS );
+        context.setContextPath( "/agentapp" );
+        context.addServlet( new ServletHolder( new AgentEventsServlet() ), "/events" );
+
+        agent = new Server( 0 );
+        agent.setHandler( context );
+        agent.start();
+        atsAgent = "127.0.0.1:" + agent.getConnectors()[0].getLocalPort();
+    }
+
+    @AfterClass
+    public static void tearDownTest_AgentEventsClient() throws Exception {
+
+        agent.stop();
+    }
+
+    @Test
+    public void queueEvents() throws Exception {
+
+        RecordingListener listener = new RecordingListener();
+        AgentEventsClient client = new AgentEventsClient( atsAgent, 100, false );
+        client.subscribe( listener );
+
+        String uid = AgentServicePool.getInstance().getUniqueId();
+        QueueStateEvents queueStateEvents = QueueStateEvents.getInstance( "<Caller: 127.0.0.1; ATS UID: "
+                                                                          + ( uid == null
+                                                                                          ? ""
+                                                                                          : uid )
+                                                                          + ">" );
+        QueueExecutionStatistics statistics = QueueExecutionStatistics.getInstance();
+        try {
+            statistics.initActionExecutionResults( QUEUE_NAME );
+            queueStateEvents.publish( QUEUE_NAME, ActionTaskLoaderState.SCHEDULED );
+            assertQueueState( ActionTaskLoaderState.SCHEDULED, listener.nextEvent() );
+            queueStateEvents.publish( QUEUE_NAME, ActionTaskLoaderState.RUNNING );
+            assertQueueState( ActionTaskLoaderState.RUNNING, listener.nextEvent() );
+
+            statistics.registerActionExecutionResult( QUEUE_NAME, "action 1", true );
+            statistics.registerActionExecutionResult( QUEUE_NAME, "action 1", false );
+            assertStatistic( 1, 1, listener.nextEvent() );
+
+            // only the actions executed since the previous statistics are sent
+            statistics.registerActionExecutionResult( QUEUE_NAME, "action 1", true );
+            statistics.registerActionExecutionResult( QUEUE_NAME, "action 1", true );
+            assertStatistic( 2, 0, listener.nextEvent() );
+
+            // the last statistics are sent before the queue finish
+            statistics.registerActionExecutionResult( QUEUE_NAME, "action 1", false );
+            queueStateEvents.publish( QUEUE_NAME, ActionTaskLoaderState.FINISHED );
+            assertStatistic( 0, 1, listener.nextEvent() );
+            assertQueueState( ActionTaskLoaderState.FINISHED, listener.nextEvent() );
+        } finally {
+            client.close();
+        }
+
+        assertEquals( "disconnected", listener.nextEvent() );
+        assertNull( listener.disconnectError );
+    }
+
+    @Test
+    public void onlyOneSubscriptionPerClient() throws Exception {
+
+        AgentEventsClient client = new AgentEventsClient( atsAgent );
+        client.subscribe( new RecordingListener() );
+        try {
+            client.subscribe( new RecordingListener() );
+            fail( "Subscribed twice" );
+        } catch( AgentException e ) {
+            assertTrue( e.getMessage().contains( "Already subscribed" ) );
+        } finally {
+            client.close();
+        }
+    }
+
+    private void assertQueueState( ActionTaskLoaderState expectedState, Object event ) {
+
+        QueueStateEvent queueStateEvent = ( QueueStateEvent ) event;
+        assertEquals( QUEUE_NAME, queueStateEvent.getQueueName() );
+        assertEquals( expectedState, queueStateEvent.getState() );
+    }
+
+    @SuppressWarnings("unchecked")
+    private void assertStatistic( int expectedPassed, int expectedFailed, Object event ) {
+
+        List<ActionExecutionStatistic> statistics = ( List<ActionExecutionStatistic> ) event;
+        assertEquals( 1, statistics.size() );
+        assertEquals( "action 1", statistics.get( 0 ).getActionName() );
+        assertEquals( expectedPassed, statistics.get( 0 ).getNumberPassed() );
+        assertEquals( expectedFailed, statistics.get( 0 ).getNumberFailed() );
+    }
+
+    private static class RecordingListener implements AgentEventsListener {
+
+        private final BlockingQueue<Object> events = new LinkedBlockingQueue<Object>();
+        private volatile Exception          disconnectError;
+
+        Object nextEvent() throws InterruptedException {
+
+            Object event = events.poll( 5, TimeUnit.SECONDS );
+            if( event == null ) {
+                fail( "No event received" );
+            }
+            return event;
+        }
+
+        @Override
+        public void onQueueStateChange( String atsAgent, QueueStateEvent event ) {
+
+            events.add( event );
+        }
+
+        @Override
+        public void onActionStatistics( String atsAgent, String queueName,
+                                        List<ActionExecutionStatistic> statistics ) {
+
+            events.add( statistics );
+        }
+
+        @Override
+        public void onMonitorResults( String atsAgent, List<MonitorResults> monitorResults ) {
+
+            events.add( monitorResults );
+        }
+
+        @Override
+        public void onDisconnect( String atsAgent, Exception error ) {
+
+            disconnectError = error;
+            events.add( "disconnected" );
+        }
+    }
+}
@@ -0,0 +1,212 @@
+/*
+ * Copyright 2017 Axway Software
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.axway.ats.agent.webapp.client;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.xml.ws.WebServiceException;
+
+import org.junit.Test;
+
+import com.axway.ats.junit.BaseTestWebapps;
+
+public class Test_AgentServicePool extends BaseTestWebapps {
+
+    private static final String ATS_AGENT = "127.0.0.1:1";
+
+    @Test
+    public void concurrentCallsGetTheSameClient() throws Exception {
+
+        final AgentServicePool agentServicePool = AgentServicePool.getInstance();
+
+        ExecutorService executor = Executors.newFixedThreadPool( 8 );
+        try {
+            List<Future<AgentService>> clients = new ArrayList<Future<AgentService>>();
+            for( int i = 0; i < 8; i++ ) {
+                clients.add( executor.submit( new Callable<AgentService>() {
+
+                    @Override
+                    public AgentService call() throws Exception {
+
+                        return agentServicePool.getClient( ATS_AGENT );
+                    }
+                } ) );
+            }
+
+            AgentService client = agentServicePool.getClient( ATS_AGENT );
+            for( Future<AgentService> otherClient : clients ) {
+                assertSame( client, otherClient.get() );
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertSame( agentServicePool.getCallsLimiter( ATS_AGENT ),
+                    agentServicePool.getCallsLimiter( ATS_AGENT ) );
+    }
+
+    @Test
+    public void callsAreLimited() throws Exception {
+
+        final AtomicInteger runningCalls = new AtomicInteger();
+        final AtomicInteger maxRunningCalls = new AtomicInteger();
+        AgentCallsLimiter callsLimiter = new AgentCallsLimiter( ATS_AGENT, 2 );
+        final AgentService client = AgentServicePool.limitCalls( newAgentService( new InvocationHandler() {
+
+            @Override
+            public Object invoke( Object proxy, Method method, Object[] args ) throws Throwable {
+
+                int currentRunningCalls = runningCalls.incrementAndGet();
+                synchronized( maxRunningCalls ) {
+                    maxRunningCalls.set( Math.max( maxRunningCalls.get(), currentRunningCalls ) );
+                }
+                Thread.sleep( 50 );
+                runningCalls.decrementAndGet();
+                return true;
+            }
+        } ), callsLimiter );
+
+        ExecutorService executor = Executors.newFixedThreadPool( 6 );
+        try {
+            List<Future<Boolean>> results = new ArrayList<Future<Boolean>>();
+            for( int i = 0; i < 6; i++ ) {
+                results.add( executor.submit( new Callable<Boolean>() {
+
+                    @Override
+                    public Boolean call() throws Exception {
+
+                        return client.isComponentLoaded( "some component" );
+                    }
+                } ) );
+            }
+            for( Future<Boolean> result : results ) {
+                assertTrue( result.get() );
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals( 2, maxRunningCalls.get() );
+        assertEquals( 6, callsLimiter.getNumberCalls() );
+        assertEquals( 0, callsLimiter.getRunningCalls() );
+        assertTrue( callsLimiter.getNumberWaitingCalls() >= 4 );
+        assertTrue( callsLimiter.getMaxWaitTime() > 0 );
+    }
+
+    @Test
+    public void failedCallsAreReleased() throws Exception {
+
+        AgentCallsLimiter callsLimiter = new AgentCallsLimiter( ATS_AGENT, 1 );
+        AgentService client = AgentServicePool.limitCalls( newAgentService( new InvocationHandler() {
+
+            @Override
+            public Object invoke( Object proxy, Method method, Object[] args ) throws Throwable {
+
+                throw new WebServiceException( "agent not reachable" );
+            }
+        } ), callsLimiter );
+
+        for( int i = 0; i < 2; i++ ) {
+            try {
+                client.isComponentLoaded( "some component" );
+                fail( "The call exception is not thrown" );
+            } catch( WebServiceException e ) {
+                assertEquals( "agent not reachable", e.getMessage() );
+            }
+        }
+
+        assertEquals( 2, callsLimiter.getNumberCalls() );
+        assertEquals( 0, callsLimiter.getRunningCalls() );
+        assertEquals( 0, callsLimiter.getNumberWaitingCalls() );
+    }
+
+    @Test
+    public void waitingCallsAreNotLimited() throws Exception {
+
+        final CountDownLatch waitStarted = new CountDownLatch( 1 );
+        final CountDownLatch queueCanceled = new CountDownLatch( 1 );
+        AgentCallsLimiter callsLimiter = new AgentCallsLimiter( ATS_AGENT, 1 );
+        final AgentService client = AgentServicePool.limitCalls( newAgentService( new InvocationHandler() {
+
+            @Override
+            public Object invoke( Object proxy, Method method, Object[] args ) throws Throwable {
+
+                if( "waitUntilQueueFinish".equals( method.getName() ) ) {
+                    waitStarted.countDown();
+                    queueCanceled.await();
+                } else if( "cancelQueue".equals( method.getName() ) ) {
+                    queueCanceled.countDown();
+                }
+                return null;
+            }
+        } ), callsLimiter );
+
+        ExecutorService executor = Executors.newFixedThreadPool( 2 );
+        try {
+            Future<Object> waitResult = executor.submit( new Callable<Object>() {
+
+                @Override
+                public Object call() throws Exception {
+
+                    client.waitUntilQueueFinish( "queue" );
+                    return null;
+                }
+            } );
+            assertTrue( waitStarted.await( 5, TimeUnit.SECONDS ) );
+
+            // the waiting call does not take the only place, so the queue can be canceled
+            Future<Object> cancelResult = executor.submit( new Callable<Object>() {
+
+                @Override
+                public Object call() throws Exception {
+
+                    client.cancelQueue( "queue" );
+                    return null;
+                }
+            } );
+            cancelResult.get( 5, TimeUnit.SECONDS );
+            waitResult.get( 5, TimeUnit.SECONDS );
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals( 1, callsLimiter.getNumberCalls() );
+        assertEquals( 0, callsLimiter.getRunningCalls() );
+        assertEquals( 0, callsLimiter.getNumberWaitingCalls() );
+    }
+
+    private static AgentService newAgentService( InvocationHandler handler ) {
+
+        return ( AgentService ) Proxy.newProxyInstance( AgentService.class.getClassLoader(),
+                                                        new Class<?>[]{ AgentService.class }, handler );
+    }
+}
@@ -0,0 +1,326 @@
+/*
+ * Copyright 2017 Axway Software
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.axway.ats.agent.webapp.client;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.List;
+
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.servlet.ServletContextHandler;
+import org.eclipse.jetty.servlet.ServletHolder;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.axway.ats.agent.core.Component;
+import com.axway.ats.agent.core.ComponentActionMap;
+import com.axway.ats.agent.core.ComponentRepository;
+import com.axway.ats.agent.core.action.ActionRequest;
+import com.axway.ats.agent.core.exceptions.AgentException;
+import com.axway.ats.agent.core.exceptions.InternalComponentException;
+import com.axway.ats.agent.core.protocol.BinaryActionProtocol;
+import com.axway.ats.agent.webapp.ActionClassOne;
+import com.axway.ats.agent.webapp.agentservice.BinaryActionsServlet;
+import com.axway.ats.agent.webapp.client.executors.RemoteExecutor;
+import com.axway.ats.common.systemproperties.AtsSystemProperties;
+import com.axway.ats.junit.BaseTestWebapps;
+
+public class Test_BinaryActionClient extends BaseTestWebapps {
+
+    private static final String TEST_COMPONENT_NAME = "agenttest";
+
+    private static Server       agent;
+    private static String       atsAgent;
+
+    @BeforeClass
+    public static void setUpTest_BinaryActionClient() throws Exception {
+
+        Component component = new Component( TEST_COMPONENT_NAME );
+        ComponentActionMap actionMap = new ComponentActionMap( TEST_COMPONENT_NAME );
+        actionMap.registerActionClass( ActionClassOne.class );
+        component.setActionMap( actionMap );
+
+        ComponentRepository componentRepository = ComponentRepository.getInstance();
+        componentRepository.clear();
+        componentRepository.putComponent( component );
+
+        // an agent which has the binary actions endpoint only
+        ServletContextHandler context = new ServletContextHandler( ServletContextHandler.NO_SESSIONS );
+        context.setContextPath( "/agentapp" );
+        context.addServlet( new ServletHolder( new BinaryActionsServlet() ), "/actions" );
+        agent = startAgent( context );
+        atsAgent = "127.0.0.1:" + agent.getConnectors()[0].getLocalPort();
+    }
+
+    @AfterClass
+    public static void tearDownTest_BinaryActionClient() throws Exception {
+
+        agent.stop();
+        System.clearProperty( AtsSystemProperties.AGENT__BINARY_PROTOCOL );
+    }
+
+    @Before
+    public void setUp() {
+
+        ActionClassOne.ACTION_VALUE = 0;
+    }
+
+    @Test
+    public void executeAction() throws Exception {
+
+        BinaryActionClient client = new BinaryActionClient( atsAgent );
+
+        assertEquals( 5L, client.executeAction( new ActionRequest( TEST_COMPONENT_NAME, "action long",
+                                                                   new Object[]{ 5L } ) ) );
+        assertEquals( "some value",
+                      client.executeAction( new ActionRequest( TEST_COMPONENT_NAME, "action string",
+                                                               new Object[]{ "some value" } ) ) );
+        assertEquals( 3, client.executeAction( new ActionRequest( TEST_COMPONENT_NAME, "action array",
+                                                                  new Object[]{ new int[]{ 1, 2, 3 } } ) ) );
+    }
+
+    @Test
+    public void executePipelinedActions() throws Exception {
+
+        List<ActionRequest> actionRequests = Arrays.asList( new ActionRequest( TEST_COMPONENT_NAME, "action 1",
+                                                                               new Object[]{ 7 } ),
+                                                            new ActionRequest( TEST_COMPONENT_NAME,
+                                                                               "action boolean",
+                                                                               new Object[]{ true } ),
+                                                            new ActionRequest( TEST_COMPONENT_NAME, "action double",
+                                                                               new Object[]{ 2.5 } ) );
+        List<Object> results = new BinaryActionClient( atsAgent ).executeActions( actionRequests );
+
+        assertArrayEquals( new Object[]{ null, true, 2.5 }, results.toArray() );
+        assertEquals( 7, ActionClassOne.ACTION_VALUE );
+    }
+
+    @Test
+    public void failedActionStopsThePipeline() throws Exception {
+
+        List<ActionRequest> actionRequests = Arrays.asList( new ActionRequest( TEST_COMPONENT_NAME, "action 1",
+                                                                               new Object[]{ 1 } ),
+                                                            new ActionRequest( TEST_COMPONENT_NAME,
+                                                                               "action exception",
+                                                                               new Object[]{ "action failed" } ),
+                                                            new ActionRequest( TEST_COMPONENT_NAME, "action 1",
+                                                                               new Object[]{ 2 } ) );
+        try {
+            new BinaryActionClient( atsAgent ).executeActions( actionRequests );
+            fail( "The action exception is not thrown" );
+        } catch( InternalComponentException ice ) {
+            assertEquals( "action exception", ice.getActionName() );
+            assertTrue( ice.getExceptionMessage().contains( "action failed" ) );
+        }
+
+        // the action after the failed one is not executed
+        assertEquals( 1, ActionClassOne.ACTION_VALUE );
+    }
+
+    @Test
+    public void executeBatch() throws Exception {
+
+        List<ActionRequest> actionRequests = Arrays.asList( new ActionRequest( TEST_COMPONENT_NAME, "action 1",
+                                                                               new Object[]{ 1 } ),
+                                                            new ActionRequest( TEST_COMPONENT_NAME,
+                                                                               "action exception",
+                                                                               new Object[]{ "action failed" } ),
+                                                            new ActionRequest( TEST_COMPONENT_NAME, "action long",
+                                                                               new Object[]{ 5L } ),
+                                                            new ActionRequest( TEST_COMPONENT_NAME, "action double",
+                                                                               new Object[]{ 2.5 } ),
+                                                            new ActionRequest( TEST_COMPONENT_NAME, "action 1",
+                                                                               new Object[]{ 2 } ) );
+        List<ActionResult> results = new BinaryActionClient( atsAgent ).executeBatch( actionRequests,
+                                                                                      Arrays.asList( false, false,
+                                                                                                     true, true,
+                                                                                                     false ) );
+
+        assertEquals( 5, results.size() );
+        assertTrue( results.get( 0 ).isSuccessful() );
+        assertNull( results.get( 0 ).getResult() );
+
+        assertFalse( results.get( 1 ).isSuccessful() );
+        InternalComponentException ice = ( InternalComponentException ) results.get( 1 ).getException();
+        assertEquals( "action exception", ice.getActionName() );
+        assertTrue( ice.getExceptionMessage().contains( "action failed" ) );
+
+        assertEquals( 5L, results.get( 2 ).getResult() );
+        assertEquals( 2.5, results.get( 3 ).getResult() );
+        assertTrue( results.get( 4 ).isSuccessful() );
+
+        // the actions after the failed one are executed as well
+        assertEquals( 2, ActionClassOne.ACTION_VALUE );
+    }
+
+    @Test
+    public void batchRecordsTheClientCalls() throws Exception {
+
+        ActionClassOneClient client = new ActionClassOneClient( atsAgent );
+
+        ActionBatch batch = ActionBatch.startBatch( atsAgent );
+        try {
+            client.action1( 3 );
+            batch.recordIndependentActions();
+            // the action is not executed now, so a default value is returned
+            assertEquals( 0L, client.actionLong( 4L ) );
+            assertEquals( 0L, client.actionLong( 5L ) );
+        } finally {
+            batch.cancel();
+        }
+
+        batch = ActionBatch.startBatch( atsAgent );
+        client.action1( 3 );
+        batch.recordIndependentActions();
+        client.actionLong( 4L );
+        client.actionLong( 5L );
+        assertEquals( 3, batch.getNumberActions() );
+        assertEquals( 0, ActionClassOne.ACTION_VALUE );
+
+        List<ActionResult> results = batch.execute();
+        assertEquals( 3, results.size() );
+        assertEquals( 4L, results.get( 1 ).getResult() );
+        assertEquals( 5L, results.get( 2 ).getResult() );
+        assertEquals( 3, ActionClassOne.ACTION_VALUE );
+
+        // the calls are executed immediately again
+        assertNull( ActionBatch.getCurrentInstance() );
+    }
+
+    @Test( expected = AgentException.class)
+    public void onlyOneBatchPerThread() throws Exception {
+
+        ActionBatch batch = ActionBatch.startBatch( atsAgent );
+        try {
+            ActionBatch.startBatch( atsAgent );
+        } finally {
+            batch.cancel();
+        }
+    }
+
+    @Test
+    public void invalidArguments() throws Exception {
+
+        try {
+            new BinaryActionClient( atsAgent ).executeAction( new ActionRequest( TEST_COMPONENT_NAME,
+                                                                                 "action string",
+                                                                                 new Object[]{ "" } ) );
+            fail( "The validation exception is not thrown" );
+        } catch( InternalComponentException ice ) {
+            fail( "The validation exception is not an action exception" );
+        } catch( AgentException ae ) {
+            assertTrue( ae.getMessage().startsWith( "Error while executing action on agent at " + atsAgent ) );
+        }
+    }
+
+    @Test
+    public void malformedRequest() throws Exception {
+
+        // a request whose component name claims to be 2 GB long
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream( bytes );
+        BinaryActionProtocol.writeHeader( out );
+        out.writeByte( 1 );
+        out.writeInt( Integer.MAX_VALUE );
+
+        HttpURLConnection connection = ( HttpURLConnection ) new URL( "http://" + atsAgent
+                                                                      + "/agentapp/actions" ).openConnection();
+        connection.setDoOutput( true );
+        connection.setRequestProperty( "Content-Type", BinaryActionProtocol.CONTENT_TYPE );
+        connection.getOutputStream().write( bytes.toByteArray() );
+
+        assertEquals( HttpURLConnection.HTTP_BAD_REQUEST, connection.getResponseCode() );
+        connection.disconnect();
+    }
+
+    @Test
+    public void remoteExecutorUsesTheBinaryProtocol() throws Exception {
+
+        System.setProperty( AtsSystemProperties.AGENT__BINARY_PROTOCOL, "true" );
+        try {
+            // there is no web service on this agent
+            RemoteExecutor remoteExecutor = new RemoteExecutor( atsAgent, false );
+            assertEquals( ( short ) 4,
+                          remoteExecutor.executeAction( new ActionRequest( TEST_COMPONENT_NAME, "action short",
+                                                                           new Object[]{ ( short ) 4 } ) ) );
+        } finally {
+            System.clearProperty( AtsSystemProperties.AGENT__BINARY_PROTOCOL );
+        }
+    }
+
+    @Test
+    public void olderAgent() throws Exception {
+
+        // an agent without the binary actions endpoint
+        ServletContextHandler context = new ServletContextHandler( ServletContextHandler.NO_SESSIONS );
+        context.setContextPath( "/agentapp" );
+        Server olderAgent = startAgent( context );
+        String olderAtsAgent = "127.0.0.1:" + olderAgent.getConnectors()[0].getLocalPort();
+        try {
+            assertTrue( BinaryActionClient.isSupportedBy( olderAtsAgent ) );
+            new BinaryActionClient( olderAtsAgent ).executeAction( new ActionRequest( TEST_COMPONENT_NAME,
+                                                                                      "action 1",
+                                                                                      new Object[]{ 1 } ) );
+            fail( "The action is executed on an agent without the binary protocol" );
+        } catch( AgentException ae ) {
+            assertFalse( BinaryActionClient.isSupportedBy( olderAtsAgent ) );
+        } finally {
+            olderAgent.stop();
+        }
+        assertEquals( 0, ActionClassOne.ACTION_VALUE );
+    }
+
+    /**
+     * A client like the ones generated for the action classes
+     */
+    private static class ActionClassOneClient extends ActionClient {
+
+        ActionClassOneClient( String host ) {
+
+            super( host, TEST_COMPONENT_NAME );
+        }
+
+        public void action1( int value ) throws AgentException {
+
+            executeAction( "action 1", new Object[]{ value } );
+        }
+
+        public long actionLong( long value ) throws AgentException {
+
+            return ( Long ) executeAction( "action long", new Object[]{ value }, long.class );
+        }
+    }
+
+    private static Server startAgent( ServletContextHandler context ) throws Exception {
+
+        Server server = new Server( 0 );
+        server.setHandler( context );
+        server.start();
+        return server;
+    }
+}
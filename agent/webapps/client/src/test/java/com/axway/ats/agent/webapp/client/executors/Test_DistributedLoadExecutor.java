@@ -0,0 +1,52 @@
+/*
+ * Copyright 2017 Axway Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.axway.ats.agent.webapp.client.executors;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import javax.xml.soap.SOAPFactory;
+import javax.xml.soap.SOAPFault;
+import javax.xml.ws.soap.SOAPFaultException;
+
+import org.junit.Test;
+
+import com.axway.ats.junit.BaseTestWebapps;
+
+public class Test_DistributedLoadExecutor extends BaseTestWebapps {
+
+    @Test
+    public void unknownOperationFault() throws Exception {
+
+        // the message returned by the JAX-WS runtime of an older agent
+        assertTrue( DistributedLoadExecutor.isUnknownOperationFault( createFault( "Cannot find dispatch method for {http://agentservice.webapp.agent.ats.axway.com/}startQueueAt" ),
+                                                                     "startQueueAt" ) );
+    }
+
+    @Test
+    public void otherFault() throws Exception {
+
+        assertFalse( DistributedLoadExecutor.isUnknownOperationFault( createFault( "java.lang.NullPointerException" ),
+                                                                      "startQueueAt" ) );
+    }
+
+    private SOAPFaultException createFault( String faultString ) throws Exception {
+
+        SOAPFault fault = SOAPFactory.newInstance().createFault();
+        fault.setFaultString( faultString );
+        return new SOAPFaultException( fault );
+    }
+}
@@ -0,0 +1,204 @@
+/*
+ * Copyright 2017 Axway Software
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.axway.ats.agent.webapp.agentservice;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import com.axway.ats.agent.core.context.ApplicationContext;
+import com.axway.ats.agent.core.exceptions.AgentException;
+import com.axway.ats.agent.core.monitoring.UserActionsMonitoringAgent;
+import com.axway.ats.agent.core.monitoring.queue.ActionExecutionStatistic;
+import com.axway.ats.agent.core.monitoring.queue.QueueExecutionStatistics;
+import com.axway.ats.agent.core.monitoring.queue.QueueStateEvents;
+import com.axway.ats.agent.core.monitoring.queue.QueueStateEvents.QueueStateEvent;
+import com.axway.ats.agent.core.protocol.AgentEventsProtocol;
+import com.axway.ats.agent.core.protocol.BinaryActionProtocol;
+import com.axway.ats.agent.core.threading.ActionTaskLoaderState;
+import com.axway.ats.common.performance.monitor.beans.MonitorResults;
+import com.axway.ats.core.threads.ThreadsPerCaller;
+import com.axway.ats.log.AtsDbLogger;
+
+/**
+ * Streams the events of the caller's load queues with the {@link AgentEventsProtocol}, so the client
+ * does not have to poll for them.
+ *
+ * The response is not completed until the client disconnects. The queue state changes are sent as soon as they happen.
+ * On each interval the agent sends the number of actions executed since the previous interval for the queues
+ * which were scheduled after the client subscribed, and optionally the collected user activity.
+ *
+ * Request parameters:
+ * <ul>
+ * <li>interval - the interval in milliseconds, 1000 by default</li>
+ * <li>monitoring - whether to send the user activity. When true, the user activity must not be polled at the same time,
+ * as each result is passed once only</li>
+ * </ul>
+ */
+@SuppressWarnings("serial")
+public class AgentEventsServlet extends HttpServlet {
+
+    private static final AtsDbLogger log              = AtsDbLogger.getLogger( "com.axway.ats.agent.webapp.agentservice" );
+
+    private static final long        DEFAULT_INTERVAL = 1000;
+    private static final long        MIN_INTERVAL     = 100;
+
+    @Override
+    protected void doGet( HttpServletRequest request, HttpServletResponse response ) throws IOException {
+
+        String intervalParameter = request.getParameter( "interval" );
+        long interval = DEFAULT_INTERVAL;
+        if( intervalParameter != null ) {
+            try {
+                interval = Math.max( MIN_INTERVAL, Long.parseLong( intervalParameter ) );
+            } catch( NumberFormatException nfe ) {
+                response.sendError( HttpServletResponse.SC_BAD_REQUEST,
+                                    "Invalid interval '" + intervalParameter + "'" );
+                return;
+            }
+        }
+        boolean sendMonitoringResults = Boolean.parseBoolean( request.getParameter( "monitoring" ) );
+
+        String uid = request.getHeader( ApplicationContext.ATS_UID_SESSION_TOKEN );
+        String caller = AgentWsImpl.getCaller( request.getRemoteAddr(), uid == null
+                                                                                   ? ""
+                                                                                   : uid );
+        ThreadsPerCaller.registerThread( caller );
+
+        response.setContentType( AgentEventsProtocol.CONTENT_TYPE );
+        // the content length is not known, so the container sends the events in chunks, on each flush
+        DataOutputStream out = new DataOutputStream( response.getOutputStream() );
+
+        QueueStateEvents.Subscription subscription = QueueStateEvents.getInstance( caller ).subscribe();
+        try {
+            BinaryActionProtocol.writeHeader( out );
+            out.flush();
+
+            streamEvents( caller, subscription, interval, sendMonitoringResults, out );
+        } catch( IOException ioe ) {
+            // this is the usual way to end the stream
+            log.debug( "Stopped sending events to " + caller + ": " + ioe.getMessage() );
+        } catch( InterruptedException ie ) {
+            Thread.currentThread().interrupt();
+        } finally {
+            subscription.cancel();
+            ThreadsPerCaller.unregisterThread();
+        }
+    }
+
+    private void streamEvents( String caller, QueueStateEvents.Subscription subscription, long interval,
+                               boolean sendMonitoringResults,
+                               DataOutputStream out ) throws IOException, InterruptedException {
+
+        // the statistics sent so far for each queue scheduled after the client subscribed
+        // < queue name, < action name, statistic > >
+        Map<String, Map<String, ActionExecutionStatistic>> sentStatistics = new HashMap<String, Map<String, ActionExecutionStatistic>>();
+
+        long nextIntervalTime = System.currentTimeMillis() + interval;
+        while( true ) {
+            long timeToWait = nextIntervalTime - System.currentTimeMillis();
+            QueueStateEvent event = timeToWait > 0
+                                                   ? subscription.poll( timeToWait, TimeUnit.MILLISECONDS )
+                                                   : null;
+            if( event != null ) {
+                String queueName = event.getQueueName();
+                if( event.getState() == ActionTaskLoaderState.SCHEDULED ) {
+                    sentStatistics.put( queueName, new HashMap<String, ActionExecutionStatistic>() );
+                } else if( sentStatistics.containsKey( queueName )
+                           && ( event.getState() == ActionTaskLoaderState.PAUSED
+                                || event.getState() == ActionTaskLoaderState.FINISHED ) ) {
+                    // the client gets all statistics of the queue before it learns the queue stopped
+                    writeActionStatistics( queueName, sentStatistics.get( queueName ), out );
+                    if( event.getState() == ActionTaskLoaderState.FINISHED ) {
+                        sentStatistics.remove( queueName );
+                    }
+                }
+
+                AgentEventsProtocol.writeQueueState( out, event );
+                out.flush();
+                continue;
+            }
+
+            boolean isAnythingSent = false;
+            for( Map.Entry<String, Map<String, ActionExecutionStatistic>> queueStatistics : sentStatistics.entrySet() ) {
+                isAnythingSent |= writeActionStatistics( queueStatistics.getKey(), queueStatistics.getValue(),
+                                                         out );
+            }
+            if( sendMonitoringResults ) {
+                List<MonitorResults> monitorResults = UserActionsMonitoringAgent.getInstance( caller )
+                                                                                .getMonitoringResults();
+                if( !monitorResults.isEmpty() ) {
+                    AgentEventsProtocol.writeMonitorResults( out, monitorResults );
+                    isAnythingSent = true;
+                }
+            }
+            if( !isAnythingSent ) {
+                AgentEventsProtocol.writeHeartbeat( out );
+            }
+            out.flush();
+
+            nextIntervalTime = System.currentTimeMillis() + interval;
+        }
+    }
+
+    /**
+     * Write the number of actions executed since the statistics were last sent
+     *
+     * @return whether anything was written
+     */
+    private boolean writeActionStatistics( String queueName, Map<String, ActionExecutionStatistic> sentStatistics,
+                                           DataOutputStream out ) throws IOException {
+
+        List<ActionExecutionStatistic> currentStatistics;
+        try {
+            currentStatistics = QueueExecutionStatistics.getInstance().getActionExecutionResults( queueName );
+        } catch( AgentException e ) {
+            log.error( "Could not get the action statistics of queue '" + queueName + "'", e );
+            return false;
+        }
+
+        List<ActionExecutionStatistic> deltas = new ArrayList<ActionExecutionStatistic>();
+        for( ActionExecutionStatistic current : currentStatistics ) {
+            ActionExecutionStatistic sent = sentStatistics.get( current.getActionName() );
+            int passedDelta = current.getNumberPassed();
+            int failedDelta = current.getNumberFailed();
+            // the counters may have been reset since the last time, then all current numbers are new
+            if( sent != null && sent.getNumberPassed() <= passedDelta && sent.getNumberFailed() <= failedDelta ) {
+                passedDelta -= sent.getNumberPassed();
+                failedDelta -= sent.getNumberFailed();
+            }
+
+            if( passedDelta > 0 || failedDelta > 0 ) {
+                deltas.add( new ActionExecutionStatistic( current.getActionName(), passedDelta, failedDelta ) );
+                sentStatistics.put( current.getActionName(), current );
+            }
+        }
+
+        if( deltas.isEmpty() ) {
+            return false;
+        }
+        AgentEventsProtocol.writeActionStatistics( out, queueName, deltas );
+        return true;
+    }
+}
@@ -22,4 +22,10 @@ public class AgentWsDefinitions {
     final public static String AGENT_SERVICE_XML_TARGET_NAMESPACE = "http://agentservice/";
     final public static String AGENT_SERVICE_XML_LOCAL_NAME       = "AgentService";
     final public static String AGENT_SERVICE_XML_PORT_NAME        = "AgentServicePort";
+
+    // the endpoint for executing actions with the binary protocol
+    final public static String BINARY_ACTIONS_ENDPOINT_ADDRESS    = "/agentapp/actions";
+
+    // the endpoint which streams the queue and monitoring events
+    final public static String EVENTS_ENDPOINT_ADDRESS            = "/agentapp/events";
 }
@@ -454,6 +454,39 @@ public class AgentWsImpl {
         }
     }
 
+    /**
+     * Start an action queue at some moment. Used when the queue is distributed between a number
+     * of agents, so all of them start it at the same time.
+     *
+     * @param queueName the name of the action queue
+     * @param startTimestamp the time to start the queue at, in milliseconds since the epoch
+     * @return the time the queue was actually started at
+     * @throws AgentException on error
+     * @throws InternalComponentException if an exception is thrown while the actions are executed
+     */
+    @WebMethod
+    public long startQueueAt( @WebParam(name = "name") String queueName,
+                              @WebParam(name = "startTimestamp") long startTimestamp ) throws AgentException,
+                                                                                       InternalComponentException {
+
+        // initialize the structure which will keep info about the execution results of this queue
+        QueueExecutionStatistics.getInstance().initActionExecutionResults( queueName );
+
+        final String caller = getCaller();
+        ThreadsPerCaller.registerThread( caller );
+
+        long actualStartTimestamp = -1;
+        try {
+            actualStartTimestamp = MultiThreadedActionHandler.getInstance( caller ).startQueue( queueName,
+                                                                                                startTimestamp );
+        } catch( Exception e ) {
+            handleExceptions( e );
+        } finally {
+            ThreadsPerCaller.unregisterThread();
+        }
+        return actualStartTimestamp;
+    }
+
     /**
      * Resume a queue which was paused
      *
@@ -813,7 +846,17 @@ public class AgentWsImpl {
             }
         }
         
-        return "<Caller: " + request.getRemoteAddr() + "; ATS UID: " + uid + ">";
+        return getCaller( request.getRemoteAddr(), uid );
+    }
+
+    /**
+     * @param remoteAddress the IP of the caller
+     * @param uid the ATS UID of the caller
+     * @return the caller identification, used to keep separate the actions and queues of different callers
+     */
+    static String getCaller( String remoteAddress, String uid ) {
+
+        return "<Caller: " + remoteAddress + "; ATS UID: " + uid + ">";
     }
 
     private void handleExceptions( Exception e ) throws AgentException, InternalComponentException {
@@ -0,0 +1,341 @@
+/*
+ * Copyright 2017 Axway Software
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.axway.ats.agent.webapp.agentservice;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import com.axway.ats.agent.core.ActionHandler;
+import com.axway.ats.agent.core.action.ActionRequest;
+import com.axway.ats.agent.core.context.ApplicationContext;
+import com.axway.ats.agent.core.exceptions.InternalComponentException;
+import com.axway.ats.agent.core.protocol.BatchEntry;
+import com.axway.ats.agent.core.protocol.BinaryActionProtocol;
+import com.axway.ats.agent.core.protocol.LimitedDataInputStream;
+import com.axway.ats.common.systemproperties.AtsSystemProperties;
+import com.axway.ats.core.threads.ThreadsPerCaller;
+import com.axway.ats.log.AtsDbLogger;
+
+/**
+ * Executes actions sent with the {@link BinaryActionProtocol}.
+ *
+ * It is an alternative to the executeAction web method, which avoids the SOAP envelope and
+ * the Java serialization of the common argument types. A client can send many requests in one HTTP call,
+ * the responses are sent back in the same order, as soon as each action completes.
+ * A client can also send a batch, whose entries are all executed even if some fail.
+ */
+@SuppressWarnings("serial")
+public class BinaryActionsServlet extends HttpServlet {
+
+    private static final AtsDbLogger log                        = AtsDbLogger.getLogger( "com.axway.ats.agent.webapp.agentservice" );
+
+    // the maximum number of independent batch entries executed at the same time
+    private static final int         MAX_PARALLEL_BATCH_ACTIONS = 16;
+
+    // the default maximum size of a request
+    private static final int         DEFAULT_MAX_REQUEST_SIZE   = 256 * 1024 * 1024;
+
+    @Override
+    protected void doPost( HttpServletRequest request, HttpServletResponse response ) throws IOException {
+
+        int maxRequestSize = AtsSystemProperties.getPropertyAsNonNegativeNumber( AtsSystemProperties.AGENT__BINARY_PROTOCOL_MAX_REQUEST_SIZE,
+                                                                                 DEFAULT_MAX_REQUEST_SIZE );
+        int contentLength = request.getContentLength();
+        if( contentLength > maxRequestSize ) {
+            response.sendError( HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE,
+                                "The request is longer than " + maxRequestSize + " bytes" );
+            return;
+        }
+
+        // the lengths in the request are checked against the bytes remaining in it
+        LimitedDataInputStream in = new LimitedDataInputStream( new BufferedInputStream( request.getInputStream() ),
+                                                                contentLength >= 0
+                                                                                   ? contentLength
+                                                                                   : maxRequestSize );
+        try {
+            BinaryActionProtocol.readHeader( in );
+        } catch( IOException e ) {
+            response.sendError( HttpServletResponse.SC_BAD_REQUEST, e.getMessage() );
+            return;
+        }
+
+        String uid = request.getHeader( ApplicationContext.ATS_UID_SESSION_TOKEN );
+        final String caller = AgentWsImpl.getCaller( request.getRemoteAddr(), uid == null
+                                                                                         ? ""
+                                                                                         : uid );
+        ThreadsPerCaller.registerThread( caller );
+
+        try {
+            if( BinaryActionProtocol.isBatch( in ) ) {
+                List<BatchEntry> batchEntries;
+                try {
+                    batchEntries = BinaryActionProtocol.readBatch( in );
+                } catch( IOException e ) {
+                    response.sendError( HttpServletResponse.SC_BAD_REQUEST, e.getMessage() );
+                    return;
+                }
+                executeBatch( caller, batchEntries, startResponse( response ) );
+            } else {
+                executeRequests( caller, in, startResponse( response ) );
+            }
+        } catch( IOException e ) {
+            log.error( "Could not process a binary actions request from " + caller, e );
+            if( !response.isCommitted() ) {
+                // drop the responses prepared so far, the client gets just the error
+                response.reset();
+                response.sendError( HttpServletResponse.SC_BAD_REQUEST, e.getMessage() );
+            }
+            // otherwise some responses are sent already, the client will find the rest missing
+        } finally {
+            ThreadsPerCaller.unregisterThread();
+        }
+    }
+
+    private DataOutputStream startResponse( HttpServletResponse response ) throws IOException {
+
+        response.setContentType( BinaryActionProtocol.CONTENT_TYPE );
+        // the container buffers the response, it is sent when flushed or when the request is completed
+        DataOutputStream out = new DataOutputStream( response.getOutputStream() );
+        BinaryActionProtocol.writeHeader( out );
+        return out;
+    }
+
+    /**
+     * Execute the requests one by one, until there are no more requests or some action fails
+     */
+    private void executeRequests( String caller, DataInputStream in, DataOutputStream out ) throws IOException {
+
+        // each response is prepared here first, so a result which cannot be written
+        // does not leave an incomplete response in the stream
+        ByteArrayOutputStream responseBytes = new ByteArrayOutputStream();
+        DataOutputStream responseOut = new DataOutputStream( responseBytes );
+
+        // whether some responses are sent to the client already
+        boolean isFlushed = false;
+        boolean isSuccessful = true;
+        while( isSuccessful ) {
+            responseBytes.reset();
+
+            ActionRequest actionRequest;
+            try {
+                actionRequest = BinaryActionProtocol.readRequest( in );
+            } catch( IOException ioe ) {
+                if( !isFlushed ) {
+                    // nothing is sent yet, so the whole request is rejected
+                    throw ioe;
+                }
+                log.error( "Could not read action request", ioe );
+                BinaryActionProtocol.writeAgentError( responseOut, "Could not read action request: "
+                                                                   + ioe.getMessage() );
+                actionRequest = null;
+                isSuccessful = false;
+            } catch( ClassNotFoundException cnfe ) {
+                log.error( "Could not read action arguments", cnfe );
+                BinaryActionProtocol.writeAgentError( responseOut, "Could not read action arguments: "
+                                                                   + cnfe.getMessage() );
+                actionRequest = null;
+                isSuccessful = false;
+            }
+
+            if( actionRequest != null ) {
+                isSuccessful = executeAction( caller, actionRequest, responseBytes, responseOut );
+            }
+
+            if( responseBytes.size() == 0 ) {
+                // no more requests
+                break;
+            }
+            responseBytes.writeTo( out );
+            if( isSuccessful && hasMoreRequests( in ) ) {
+                // send the response now, so the client can read it while the next actions run.
+                // The last response is sent when the request is completed, together with the end of the response
+                out.flush();
+                isFlushed = true;
+            }
+        }
+    }
+
+    /**
+     * Execute all batch entries and write their responses in the entries order.
+     * The consecutive independent entries are executed at the same time.
+     */
+    private void executeBatch( final String caller, List<BatchEntry> batchEntries,
+                               DataOutputStream out ) throws IOException {
+
+        ExecutorService executor = null;
+        try {
+            int groupStart = 0;
+            while( groupStart < batchEntries.size() ) {
+                int groupEnd = groupStart + 1;
+                if( batchEntries.get( groupStart ).isIndependent() ) {
+                    while( groupEnd < batchEntries.size() && batchEntries.get( groupEnd ).isIndependent() ) {
+                        groupEnd++;
+                    }
+                }
+
+                if( groupEnd - groupStart == 1 ) {
+                    executeBatchEntry( caller, batchEntries.get( groupStart ) ).writeTo( out );
+                } else {
+                    if( executor == null ) {
+                        executor = Executors.newFixedThreadPool( MAX_PARALLEL_BATCH_ACTIONS,
+                                                                 new BatchThreadFactory( caller ) );
+                    }
+
+                    List<Future<ByteArrayOutputStream>> responses = new ArrayList<Future<ByteArrayOutputStream>>();
+                    for( final BatchEntry batchEntry : batchEntries.subList( groupStart, groupEnd ) ) {
+                        responses.add( executor.submit( new Callable<ByteArrayOutputStream>() {
+
+                            @Override
+                            public ByteArrayOutputStream call() throws Exception {
+
+                                ThreadsPerCaller.registerThread( caller );
+                                try {
+                                    return executeBatchEntry( caller, batchEntry );
+                                } finally {
+                                    ThreadsPerCaller.unregisterThread();
+                                }
+                            }
+                        } ) );
+                    }
+                    for( Future<ByteArrayOutputStream> response : responses ) {
+                        getResponse( response ).writeTo( out );
+                    }
+                }
+                groupStart = groupEnd;
+            }
+        } finally {
+            if( executor != null ) {
+                executor.shutdown();
+            }
+        }
+    }
+
+    private ByteArrayOutputStream executeBatchEntry( String caller, BatchEntry batchEntry ) throws IOException {
+
+        ByteArrayOutputStream responseBytes = new ByteArrayOutputStream();
+        DataOutputStream responseOut = new DataOutputStream( responseBytes );
+
+        if( batchEntry.getActionRequest() == null ) {
+            log.error( batchEntry.getReadError() );
+            BinaryActionProtocol.writeAgentError( responseOut, batchEntry.getReadError() );
+        } else {
+            executeAction( caller, batchEntry.getActionRequest(), responseBytes, responseOut );
+        }
+        return responseBytes;
+    }
+
+    private ByteArrayOutputStream getResponse( Future<ByteArrayOutputStream> response ) throws IOException {
+
+        try {
+            return response.get();
+        } catch( InterruptedException ie ) {
+            Thread.currentThread().interrupt();
+            throw new IOException( "Interrupted while executing a batch of actions", ie );
+        } catch( ExecutionException ee ) {
+            throw new IOException( "Could not execute a batch of actions", ee.getCause() );
+        }
+    }
+
+    private boolean hasMoreRequests( DataInputStream in ) throws IOException {
+
+        in.mark( 1 );
+        int nextByte = in.read();
+        in.reset();
+        return nextByte != -1;
+    }
+
+    /**
+     * Execute an action and write its response
+     *
+     * @return whether the action was successful
+     */
+    private boolean executeAction( String caller, ActionRequest actionRequest,
+                                   ByteArrayOutputStream responseBytes,
+                                   DataOutputStream responseOut ) throws IOException {
+
+        Object result;
+        try {
+            result = ActionHandler.executeAction( caller, actionRequest.getComponentName(),
+                                                  actionRequest.getActionName(),
+                                                  actionRequest.getArguments() );
+        } catch( InternalComponentException ice ) {
+            // log the stack trace on the agent side, otherwise we loose it
+            if( ice.getCause() instanceof InterruptedException ) {
+                log.error( "InterruptedException exception: ", ice.getCause() );
+            } else {
+                log.error( "Internal component exception: ", ice.getCause() );
+            }
+            BinaryActionProtocol.writeInternalComponentError( responseOut, ice.getComponentName(),
+                                                              ice.getActionName(),
+                                                              ice.getExceptionMessage() );
+            return false;
+        } catch( Exception e ) {
+            log.error( "Unhandled exception thrown during action execution", e );
+            BinaryActionProtocol.writeAgentError( responseOut, e.getMessage() );
+            return false;
+        }
+
+        try {
+            BinaryActionProtocol.writeResult( responseOut, result );
+            return true;
+        } catch( IOException ioe ) {
+            log.error( "Could not serialize the result of action '" + actionRequest.getActionName() + "'",
+                       ioe );
+            // drop the partially written result
+            responseBytes.reset();
+            BinaryActionProtocol.writeAgentError( responseOut, "Could not serialize the result of action '"
+                                                               + actionRequest.getActionName() + "': "
+                                                               + ioe.getMessage() );
+            return false;
+        }
+    }
+
+    private static class BatchThreadFactory implements ThreadFactory {
+
+        private final String        caller;
+        private final AtomicInteger threadCounter = new AtomicInteger();
+
+        BatchThreadFactory( String caller ) {
+
+            this.caller = caller;
+        }
+
+        @Override
+        public Thread newThread( Runnable runnable ) {
+
+            Thread thread = new Thread( runnable, "Batch actions for " + caller + " "
+                                                  + threadCounter.incrementAndGet() );
+            thread.setDaemon( true );
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,252 @@
+/*
+ * Copyright 2017 Axway Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.axway.ats.common.filetransfer;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import com.axway.ats.common.PublicAtsApi;
+
+/**
+ * The result of transferring many files at once over a number of parallel sessions
+ */
+@PublicAtsApi
+public class BulkTransferResult {
+
+    private final int                      numberFiles;
+    private final long                     durationMillis;
+    private final Map<String, String>      failedFiles;
+    private final List<SessionStatistics>  sessions;
+
+    /**
+     * @param numberFiles the number of files which were to be transferred
+     * @param durationMillis the time needed to transfer all files
+     * @param failedFiles the files which could not be transferred, mapped to the reason
+     * @param sessions the statistics of each session
+     */
+    public BulkTransferResult( int numberFiles, long durationMillis, Map<String, String> failedFiles,
+                               List<SessionStatistics> sessions ) {
+
+        this.numberFiles = numberFiles;
+        this.durationMillis = durationMillis;
+        this.failedFiles = Collections.unmodifiableMap( failedFiles );
+        this.sessions = Collections.unmodifiableList( sessions );
+    }
+
+    /**
+     * @return the number of files which were to be transferred
+     */
+    @PublicAtsApi
+    public int getNumberFiles() {
+
+        return numberFiles;
+    }
+
+    /**
+     * @return the number of successfully transferred files
+     */
+    @PublicAtsApi
+    public int getNumberTransferredFiles() {
+
+        int transferredFiles = 0;
+        for( SessionStatistics session : sessions ) {
+            transferredFiles += session.getNumberFiles();
+        }
+        return transferredFiles;
+    }
+
+    /**
+     * @return the files which could not be transferred, given by their path relative to the
+     * transferred directory and mapped to the reason for the failure
+     */
+    @PublicAtsApi
+    public Map<String, String> getFailedFiles() {
+
+        return failedFiles;
+    }
+
+    /**
+     * @return the size of the successfully transferred files in bytes
+     */
+    @PublicAtsApi
+    public long getNumberBytes() {
+
+        long bytes = 0;
+        for( SessionStatistics session : sessions ) {
+            bytes += session.getNumberBytes();
+        }
+        return bytes;
+    }
+
+    /**
+     * @return the time needed to transfer all files in milliseconds
+     */
+    @PublicAtsApi
+    public long getDurationMillis() {
+
+        return durationMillis;
+    }
+
+    /**
+     * @return the number of transferred files per second
+     */
+    @PublicAtsApi
+    public double getFilesPerSecond() {
+
+        return perSecond( getNumberTransferredFiles(), durationMillis );
+    }
+
+    /**
+     * @return the number of transferred megabytes per second
+     */
+    @PublicAtsApi
+    public double getMegabytesPerSecond() {
+
+        return perSecond( getNumberBytes() / ( 1024D * 1024D ), durationMillis );
+    }
+
+    /**
+     * @return the statistics of each session
+     */
+    @PublicAtsApi
+    public List<SessionStatistics> getSessions() {
+
+        return sessions;
+    }
+
+    @Override
+    public String toString() {
+
+        StringBuilder sb = new StringBuilder();
+        sb.append( String.format( "Transferred %d of %d files, %d bytes in %d ms: %.2f files/s, %.3f MB/s",
+                                  getNumberTransferredFiles(), numberFiles, getNumberBytes(), durationMillis,
+                                  getFilesPerSecond(), getMegabytesPerSecond() ) );
+        for( SessionStatistics session : sessions ) {
+            sb.append( "\n\t" ).append( session );
+        }
+        return sb.toString();
+    }
+
+    private static double perSecond( double value, long millis ) {
+
+        return millis > 0
+                          ? value * 1000 / millis
+                          : 0;
+    }
+
+    /**
+     * The statistics of one of the parallel sessions
+     */
+    @PublicAtsApi
+    public static class SessionStatistics {
+
+        private final int  index;
+        private final int  numberFiles;
+        private final long numberBytes;
+        private final int  numberRetries;
+        private final long transferMillis;
+
+        /**
+         * @param index the session index, starting from 0
+         * @param numberFiles the number of files transferred by this session
+         * @param numberBytes the size of the files transferred by this session
+         * @param numberRetries the number of times a file transfer was retried
+         * @param transferMillis the time spent in transferring files
+         */
+        public SessionStatistics( int index, int numberFiles, long numberBytes, int numberRetries,
+                                  long transferMillis ) {
+
+            this.index = index;
+            this.numberFiles = numberFiles;
+            this.numberBytes = numberBytes;
+            this.numberRetries = numberRetries;
+            this.transferMillis = transferMillis;
+        }
+
+        /**
+         * @return the session index, starting from 0
+         */
+        @PublicAtsApi
+        public int getIndex() {
+
+            return index;
+        }
+
+        /**
+         * @return the number of files transferred by this session
+         */
+        @PublicAtsApi
+        public int getNumberFiles() {
+
+            return numberFiles;
+        }
+
+        /**
+         * @return the size of the files transferred by this session in bytes
+         */
+        @PublicAtsApi
+        public long getNumberBytes() {
+
+            return numberBytes;
+        }
+
+        /**
+         * @return the number of times a file transfer was retried
+         */
+        @PublicAtsApi
+        public int getNumberRetries() {
+
+            return numberRetries;
+        }
+
+        /**
+         * @return the time spent in transferring files in milliseconds, it does not include
+         * the time for connecting
+         */
+        @PublicAtsApi
+        public long getTransferMillis() {
+
+            return transferMillis;
+        }
+
+        /**
+         * @return the number of files per second this session has transferred
+         */
+        @PublicAtsApi
+        public double getFilesPerSecond() {
+
+            return perSecond( numberFiles, transferMillis );
+        }
+
+        /**
+         * @return the number of megabytes per second this session has transferred
+         */
+        @PublicAtsApi
+        public double getMegabytesPerSecond() {
+
+            return perSecond( numberBytes / ( 1024D * 1024D ), transferMillis );
+        }
+
+        @Override
+        public String toString() {
+
+            return String.format( "session %d: %d files, %d bytes, %d retries in %d ms: %.2f files/s, %.3f MB/s",
+                                  index, numberFiles, numberBytes, numberRetries, transferMillis,
+                                  getFilesPerSecond(), getMegabytesPerSecond() );
+        }
+    }
+}
@@ -0,0 +1,278 @@
+/*
+ * Copyright 2017 Axway Software
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.axway.ats.common.performance.monitor.beans;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A compact container for the readings of many timestamps.
+ *
+ * Each distinct reading id is kept once in a dictionary. Each timestamp keeps the indexes of its readings
+ * in this dictionary and their values as primitive arrays, so no bean is created per reading value.
+ * The definitions of the readings which are polled for the first time are kept as full reading beans.
+ *
+ * Values which are missing or are not numbers are kept as {@link Float#NaN}.
+ */
+public class ReadingsBatch implements Serializable {
+
+    private static final long                 serialVersionUID = 1L;
+
+    // the distinct reading ids
+    private transient String[]                readingIds;
+
+    // the readings seen for the first time, without their values
+    private transient List<FullReadingBean>   newReadings;
+
+    private transient long[]                  timestamps;
+    private transient int[][]                 readingIndexes;
+    private transient float[][]               values;
+
+    private ReadingsBatch( String[] readingIds, List<FullReadingBean> newReadings, long[] timestamps,
+                           int[][] readingIndexes, float[][] values ) {
+
+        this.readingIds = readingIds;
+        this.newReadings = newReadings;
+        this.timestamps = timestamps;
+        this.readingIndexes = readingIndexes;
+        this.values = values;
+    }
+
+    /**
+     * Create a batch from the readings of many timestamps.
+     * Readings without an id are skipped.
+     *
+     * @param monitorResults the readings for each timestamp
+     * @return the batch
+     */
+    public static ReadingsBatch fromMonitorResults( List<MonitorResults> monitorResults ) {
+
+        Map<String, Integer> readingIdIndexes = new HashMap<String, Integer>();
+        List<String> readingIds = new ArrayList<String>();
+        List<FullReadingBean> newReadings = new ArrayList<FullReadingBean>();
+
+        long[] timestamps = new long[monitorResults.size()];
+        int[][] readingIndexes = new int[monitorResults.size()][];
+        float[][] values = new float[monitorResults.size()][];
+
+        for( int i = 0; i < monitorResults.size(); i++ ) {
+            MonitorResults resultsLine = monitorResults.get( i );
+            List<BasicReadingBean> readings = resultsLine.getReadings();
+
+            int[] lineIndexes = new int[readings.size()];
+            float[] lineValues = new float[readings.size()];
+            int numberReadings = 0;
+            for( BasicReadingBean reading : readings ) {
+                String readingId = reading.getId();
+                if( readingId == null ) {
+                    continue;
+                }
+
+                Integer readingIndex = readingIdIndexes.get( readingId );
+                if( readingIndex == null ) {
+                    readingIndex = readingIds.size();
+                    readingIdIndexes.put( readingId, readingIndex );
+                    readingIds.add( readingId );
+                }
+                if( reading instanceof FullReadingBean ) {
+                    FullReadingBean newReading = ( ( FullReadingBean ) reading ).getNewCopy();
+                    newReading.setValue( null );
+                    newReadings.add( newReading );
+                }
+
+                lineIndexes[numberReadings] = readingIndex;
+                lineValues[numberReadings] = parseValue( reading.getValue() );
+                numberReadings++;
+            }
+
+            timestamps[i] = resultsLine.getTimestamp();
+            readingIndexes[i] = Arrays.copyOf( lineIndexes, numberReadings );
+            values[i] = Arrays.copyOf( lineValues, numberReadings );
+        }
+
+        return new ReadingsBatch( readingIds.toArray( new String[readingIds.size()] ), newReadings,
+                                  timestamps, readingIndexes, values );
+    }
+
+    /**
+     * Create the bean representation of this batch. The readings seen for the first time
+     * are returned as full reading beans, as the monitors do.
+     *
+     * @return the readings for each timestamp
+     */
+    public List<MonitorResults> toMonitorResults() {
+
+        Map<String, FullReadingBean> newReadingsMap = new HashMap<String, FullReadingBean>();
+        for( FullReadingBean newReading : newReadings ) {
+            newReadingsMap.put( newReading.getId(), newReading );
+        }
+
+        List<MonitorResults> monitorResults = new ArrayList<MonitorResults>( timestamps.length );
+        for( int i = 0; i < timestamps.length; i++ ) {
+            List<BasicReadingBean> readings = new ArrayList<BasicReadingBean>( values[i].length );
+            for( int j = 0; j < values[i].length; j++ ) {
+                String readingId = readingIds[readingIndexes[i][j]];
+                String value = Float.isNaN( values[i][j] )
+                                                           ? null
+                                                           : String.valueOf( values[i][j] );
+
+                FullReadingBean newReading = newReadingsMap.remove( readingId );
+                if( newReading != null ) {
+                    newReading = newReading.getNewCopy();
+                    newReading.setValue( value );
+                    readings.add( newReading );
+                } else {
+                    readings.add( new BasicReadingBean( readingId, value ) );
+                }
+            }
+            monitorResults.add( new MonitorResults( timestamps[i], readings ) );
+        }
+        return monitorResults;
+    }
+
+    /**
+     * @return the distinct reading ids, the reading indexes point in this array
+     */
+    public String[] getReadingIds() {
+
+        return readingIds;
+    }
+
+    /**
+     * @return the definitions of the readings which are polled for the first time
+     */
+    public List<FullReadingBean> getNewReadings() {
+
+        return newReadings;
+    }
+
+    public int getNumberTimestamps() {
+
+        return timestamps.length;
+    }
+
+    public long getTimestamp( int timestampIndex ) {
+
+        return timestamps[timestampIndex];
+    }
+
+    /**
+     * @param timestampIndex the timestamp index
+     * @return the indexes of the reading ids of this timestamp
+     */
+    public int[] getReadingIndexes( int timestampIndex ) {
+
+        return readingIndexes[timestampIndex];
+    }
+
+    /**
+     * @param timestampIndex the timestamp index
+     * @return the reading values of this timestamp, {@link Float#NaN} for the missing values
+     */
+    public float[] getValues( int timestampIndex ) {
+
+        return values[timestampIndex];
+    }
+
+    /**
+     * @return the number of reading values in all timestamps
+     */
+    public int getNumberValues() {
+
+        int numberValues = 0;
+        for( float[] lineValues : values ) {
+            numberValues += lineValues.length;
+        }
+        return numberValues;
+    }
+
+    private void writeObject( ObjectOutputStream out ) throws IOException {
+
+        out.defaultWriteObject();
+
+        out.writeInt( readingIds.length );
+        for( String readingId : readingIds ) {
+            out.writeUTF( readingId );
+        }
+        out.writeObject( newReadings );
+
+        out.writeInt( timestamps.length );
+        for( int i = 0; i < timestamps.length; i++ ) {
+            out.writeLong( timestamps[i] );
+            out.writeInt( values[i].length );
+            for( int j = 0; j < values[i].length; j++ ) {
+                out.writeInt( readingIndexes[i][j] );
+                out.writeFloat( values[i][j] );
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void readObject( ObjectInputStream in ) throws IOException, ClassNotFoundException {
+
+        in.defaultReadObject();
+
+        readingIds = new String[in.readInt()];
+        for( int i = 0; i < readingIds.length; i++ ) {
+            readingIds[i] = in.readUTF();
+        }
+        newReadings = ( List<FullReadingBean> ) in.readObject();
+
+        int numberTimestamps = in.readInt();
+        timestamps = new long[numberTimestamps];
+        readingIndexes = new int[numberTimestamps][];
+        values = new float[numberTimestamps][];
+        for( int i = 0; i < numberTimestamps; i++ ) {
+            timestamps[i] = in.readLong();
+            int numberReadings = in.readInt();
+            readingIndexes[i] = new int[numberReadings];
+            values[i] = new float[numberReadings];
+            for( int j = 0; j < numberReadings; j++ ) {
+                int readingIndex = in.readInt();
+                if( readingIndex < 0 || readingIndex >= readingIds.length ) {
+                    throw new IOException( "Invalid reading index " + readingIndex );
+                }
+                readingIndexes[i][j] = readingIndex;
+                values[i][j] = in.readFloat();
+            }
+        }
+    }
+
+    private static float parseValue( String value ) {
+
+        if( value == null ) {
+            return Float.NaN;
+        }
+        try {
+            return Float.parseFloat( value );
+        } catch( NumberFormatException e ) {
+            return Float.NaN;
+        }
+    }
+
+    @Override
+    public String toString() {
+
+        return readingIds.length + " readings in " + timestamps.length + " timestamps";
+    }
+}
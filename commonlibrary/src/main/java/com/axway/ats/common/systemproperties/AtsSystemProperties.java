@@ -44,6 +44,27 @@ public class AtsSystemProperties {
     public static final String  AGENT__TEMPLATE_ACTIONS_FOLDER                                    = "ats.agent.template.actions.folder";
     public static final String  AGENT__TEMPLATE_ACTIONS_MATCH_FILES_BY_SIZE                       = "ats.agent.template.actions.match.files.by.size";
     public static final String  AGENT__TEMPLATE_ACTIONS_MATCH_FILES_BY_CONTENT                    = "ats.agent.template.actions.match.files.by.content";
+    // the maximum number of concurrent connections per host, shared by all template action users. The requests over the limit wait for a free connection. Not limited by default
+    @PublicAtsApi
+    public static final String  AGENT__TEMPLATE_ACTIONS_MAX_CONNECTIONS_PER_HOST                  = "ats.agent.template.actions.max.connections.per.host";
+    // when enabled, the action response times are sent to the log DB with microsecond precision
+    @PublicAtsApi
+    public static final String  AGENT__HIGH_PRECISION_ACTION_TIMING                               = "ats.agent.high.precision.action.timing";
+    // when enabled, the queues with limited execution speed or arrival rate also log the action latencies corrected for coordinated omission
+    @PublicAtsApi
+    public static final String  AGENT__CORRECTED_ACTION_LATENCY                                   = "ats.agent.corrected.action.latency";
+    // the time in milliseconds between sending the start command of a distributed queue and starting it on all agents at once
+    @PublicAtsApi
+    public static final String  AGENT__DISTRIBUTED_QUEUE_START_DELAY                              = "ats.agent.distributed.queue.start.delay";
+    // when enabled, the actions are executed on remote agents with the binary protocol instead of SOAP
+    @PublicAtsApi
+    public static final String  AGENT__BINARY_PROTOCOL                                            = "ats.agent.binary.protocol";
+    // the maximum size in bytes of a request to the binary protocol endpoint of an agent, the default is 256 MB
+    @PublicAtsApi
+    public static final String  AGENT__BINARY_PROTOCOL_MAX_REQUEST_SIZE                           = "ats.agent.binary.protocol.max.request.size";
+    // the maximum number of calls executed on an agent at the same time, the other calls wait. Not limited by default
+    @PublicAtsApi
+    public static final String  AGENT__MAX_CONCURRENT_CALLS                                       = "ats.agent.max.concurrent.calls";
 
     // Log properties
     @PublicAtsApi
@@ -66,6 +87,9 @@ public class AtsSystemProperties {
     // Java secure channel verbose mode
     @PublicAtsApi
     public static final String  CORE__JSCH_VERBOSE_MODE                                           = "ats.core.ssh.verbose.mode";
+    // Whether the method parameters validation plan is built once per call site(the default) or on each call
+    @PublicAtsApi
+    public static final String  CORE__VALIDATION_CACHE_PLANS                                      = "ats.core.validation.cache.plans";
 
     /*
      * Following are system properties which are not supposed to be changed
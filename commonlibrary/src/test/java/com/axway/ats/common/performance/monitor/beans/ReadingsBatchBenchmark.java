@@ -0,0 +1,98 @@
+/*
+ * Copyright 2017 Axway Software
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.axway.ats.common.performance.monitor.beans;
+
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Standalone benchmark which compares the serialized size and the serialization time of
+ * the monitoring results of one poll, sent as a list of {@link MonitorResults} and as a {@link ReadingsBatch}.
+ *
+ * Usage: ReadingsBatchBenchmark [number readings] [number timestamps] [number runs]
+ *
+ * The defaults are 200 readings, 30 timestamps(a minute of results polled every 2 seconds) and 200 runs.
+ * It is not a unit test, so it is not run during the build.
+ */
+public class ReadingsBatchBenchmark {
+
+    public static void main( String[] args ) throws Exception {
+
+        int numberReadings = args.length > 0
+                                              ? Integer.parseInt( args[0] )
+                                              : 200;
+        int numberTimestamps = args.length > 1
+                                               ? Integer.parseInt( args[1] )
+                                               : 30;
+        int numberRuns = args.length > 2
+                                         ? Integer.parseInt( args[2] )
+                                         : 200;
+
+        List<MonitorResults> monitorResults = createMonitorResults( numberReadings, numberTimestamps );
+
+        System.out.println( numberReadings + " readings in " + numberTimestamps + " timestamps:" );
+        measure( "monitor results", ( Serializable ) monitorResults, numberRuns );
+        measure( "readings batch", ReadingsBatch.fromMonitorResults( monitorResults ), numberRuns );
+    }
+
+    private static void measure( String name, Serializable object, int numberRuns ) throws Exception {
+
+        int size = 0;
+        long startTime = System.nanoTime();
+        for( int i = 0; i < numberRuns; i++ ) {
+            size = serialize( object ).length;
+        }
+        long totalNanos = System.nanoTime() - startTime;
+
+        System.out.println( String.format( "%-16s %,10d bytes, serialized in %,8.3f ms", name, size,
+                                           totalNanos / 1000000D / numberRuns ) );
+    }
+
+    private static byte[] serialize( Serializable object ) throws Exception {
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream( bytes );
+        out.writeObject( object );
+        out.close();
+        return bytes.toByteArray();
+    }
+
+    private static List<MonitorResults> createMonitorResults( int numberReadings, int numberTimestamps ) {
+
+        Random random = new Random( 1 );
+        List<MonitorResults> monitorResults = new ArrayList<MonitorResults>();
+        for( int i = 0; i < numberTimestamps; i++ ) {
+            List<BasicReadingBean> readings = new ArrayList<BasicReadingBean>();
+            for( int j = 0; j < numberReadings; j++ ) {
+                String value = String.valueOf( random.nextInt( 100000 ) / 100F );
+                if( i == 0 ) {
+                    FullReadingBean reading = new FullReadingBean( "SystemMonitor", "Reading " + j, "%" );
+                    reading.setId( String.valueOf( j ) );
+                    reading.setValue( value );
+                    readings.add( reading );
+                } else {
+                    readings.add( new BasicReadingBean( String.valueOf( j ), value ) );
+                }
+            }
+            monitorResults.add( new MonitorResults( 1000L * i, readings ) );
+        }
+        return monitorResults;
+    }
+}
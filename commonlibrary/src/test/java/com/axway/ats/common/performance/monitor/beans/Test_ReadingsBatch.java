@@ -0,0 +1,141 @@
+/*
+ * Copyright 2017 Axway Software
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.axway.ats.common.performance.monitor.beans;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+public class Test_ReadingsBatch {
+
+    @Test
+    public void fromMonitorResults() {
+
+        FullReadingBean cpuReading = new FullReadingBean( "SystemMonitor", "CPU usage", "%" );
+        cpuReading.setId( "1" );
+        cpuReading.setValue( "12.5" );
+
+        List<MonitorResults> monitorResults = new ArrayList<MonitorResults>();
+        monitorResults.add( new MonitorResults( 1000, Arrays.<BasicReadingBean> asList( cpuReading,
+                                                                                          new BasicReadingBean( "2",
+                                                                                                                "300" ) ) ) );
+        monitorResults.add( new MonitorResults( 2000, Arrays.asList( new BasicReadingBean( "2", "310" ),
+                                                                     new BasicReadingBean( "1", null ),
+                                                                     new BasicReadingBean( null, "1" ),
+                                                                     new BasicReadingBean( "12, 3",
+                                                                                           "not a number" ) ) ) );
+
+        ReadingsBatch batch = ReadingsBatch.fromMonitorResults( monitorResults );
+
+        assertEquals( Arrays.asList( "1", "2", "12, 3" ), Arrays.asList( batch.getReadingIds() ) );
+        assertEquals( 1, batch.getNewReadings().size() );
+        assertEquals( "CPU usage", batch.getNewReadings().get( 0 ).getName() );
+        assertNull( batch.getNewReadings().get( 0 ).getValue() );
+        // the source bean is not changed
+        assertEquals( "12.5", cpuReading.getValue() );
+
+        assertEquals( 2, batch.getNumberTimestamps() );
+        assertEquals( 5, batch.getNumberValues() );
+
+        assertEquals( 1000, batch.getTimestamp( 0 ) );
+        assertTrue( Arrays.equals( new int[]{ 0, 1 }, batch.getReadingIndexes( 0 ) ) );
+        assertTrue( Arrays.equals( new float[]{ 12.5F, 300 }, batch.getValues( 0 ) ) );
+
+        // the reading without id is skipped, the missing and invalid values are NaN
+        assertEquals( 2000, batch.getTimestamp( 1 ) );
+        assertTrue( Arrays.equals( new int[]{ 1, 0, 2 }, batch.getReadingIndexes( 1 ) ) );
+        assertTrue( Arrays.equals( new float[]{ 310, Float.NaN, Float.NaN }, batch.getValues( 1 ) ) );
+    }
+
+    @Test
+    public void toMonitorResults() {
+
+        FullReadingBean cpuReading = new FullReadingBean( "SystemMonitor", "CPU usage", "%" );
+        cpuReading.setId( "1" );
+        cpuReading.setValue( "12.5" );
+
+        List<MonitorResults> monitorResults = new ArrayList<MonitorResults>();
+        monitorResults.add( new MonitorResults( 1000,
+                                                Arrays.<BasicReadingBean> asList( cpuReading ) ) );
+        monitorResults.add( new MonitorResults( 2000,
+                                                Arrays.asList( new BasicReadingBean( "1", "13" ) ) ) );
+
+        List<MonitorResults> convertedResults = ReadingsBatch.fromMonitorResults( monitorResults )
+                                                             .toMonitorResults();
+
+        assertEquals( 2, convertedResults.size() );
+
+        BasicReadingBean firstReading = convertedResults.get( 0 ).getReadings().get( 0 );
+        assertTrue( firstReading instanceof FullReadingBean );
+        assertEquals( "CPU usage", ( ( FullReadingBean ) firstReading ).getName() );
+        assertEquals( "12.5", firstReading.getValue() );
+
+        BasicReadingBean secondReading = convertedResults.get( 1 ).getReadings().get( 0 );
+        assertEquals( BasicReadingBean.class, secondReading.getClass() );
+        assertEquals( "1", secondReading.getId() );
+        assertEquals( 13F, Float.parseFloat( secondReading.getValue() ), 0 );
+    }
+
+    @Test
+    public void serialization() throws Exception {
+
+        FullReadingBean memoryReading = new FullReadingBean( "SystemMonitor", "Memory used", "MB" );
+        memoryReading.setId( "5" );
+        memoryReading.setValue( "512" );
+
+        List<MonitorResults> monitorResults = new ArrayList<MonitorResults>();
+        monitorResults.add( new MonitorResults( 1000, Arrays.<BasicReadingBean> asList( memoryReading ) ) );
+        monitorResults.add( new MonitorResults( 2000,
+                                                Arrays.asList( new BasicReadingBean( "5", "520" ),
+                                                               new BasicReadingBean( "6", "-1" ) ) ) );
+        monitorResults.add( new MonitorResults( 3000, new ArrayList<BasicReadingBean>() ) );
+
+        ReadingsBatch batch = serializeAndDeserialize( ReadingsBatch.fromMonitorResults( monitorResults ) );
+
+        assertEquals( Arrays.asList( "5", "6" ), Arrays.asList( batch.getReadingIds() ) );
+        assertEquals( "Memory used", batch.getNewReadings().get( 0 ).getName() );
+        assertEquals( 3, batch.getNumberTimestamps() );
+        assertEquals( 2000, batch.getTimestamp( 1 ) );
+        assertTrue( Arrays.equals( new int[]{ 0, 1 }, batch.getReadingIndexes( 1 ) ) );
+        assertTrue( Arrays.equals( new float[]{ 520, -1 }, batch.getValues( 1 ) ) );
+        assertEquals( 0, batch.getValues( 2 ).length );
+    }
+
+    private ReadingsBatch serializeAndDeserialize( ReadingsBatch batch ) throws Exception {
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream( bytes );
+        out.writeObject( batch );
+        out.close();
+
+        ObjectInputStream in = new ObjectInputStream( new ByteArrayInputStream( bytes.toByteArray() ) );
+        try {
+            return ( ReadingsBatch ) in.readObject();
+        } finally {
+            in.close();
+        }
+    }
+}
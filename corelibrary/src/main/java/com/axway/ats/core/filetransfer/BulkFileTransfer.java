@@ -0,0 +1,476 @@
+/*
+ * Copyright 2017 Axway Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.axway.ats.core.filetransfer;
+
+import java.io.File;
+import java.nio.file.FileSystems;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.log4j.Logger;
+
+import com.axway.ats.common.filetransfer.BulkTransferResult;
+import com.axway.ats.common.filetransfer.BulkTransferResult.SessionStatistics;
+import com.axway.ats.common.filetransfer.FileTransferException;
+import com.axway.ats.core.filetransfer.model.BulkTransferListener;
+import com.axway.ats.core.filetransfer.model.IBulkFileTransferClient;
+import com.axway.ats.core.filetransfer.model.IFileTransferClient;
+
+/**
+ * Transfers the files of a directory tree over a number of parallel sessions.
+ *
+ * The files are taken from a common queue, so a session which transfers small files is not
+ * held back by a session which transfers a big one. When a file transfer fails, the session
+ * reconnects and retries it. If the client is an {@link IBulkFileTransferClient}, the retry
+ * continues from where the failed transfer stopped, otherwise the whole file is transferred again.
+ *
+ * The files can be selected with a glob pattern, for example "*.txt" or "logs/**.log". A pattern
+ * without '/' is matched against the file names, otherwise it is matched against the file paths
+ * relative to the transferred directory.
+ */
+public class BulkFileTransfer {
+
+    private static final Logger  log = Logger.getLogger( BulkFileTransfer.class );
+
+    private final SessionFactory sessionFactory;
+    private final int            numberSessions;
+    private final int            numberRetries;
+
+    private BulkTransferListener listener;
+
+    /**
+     * @param sessionFactory creates the sessions
+     * @param numberSessions the maximum number of parallel sessions
+     * @param numberRetries how many times a failed file transfer is retried
+     */
+    public BulkFileTransfer( SessionFactory sessionFactory, int numberSessions, int numberRetries ) {
+
+        if( numberSessions < 1 ) {
+            throw new IllegalArgumentException( "The number of sessions must be positive, but it is "
+                                                + numberSessions );
+        }
+        if( numberRetries < 0 ) {
+            throw new IllegalArgumentException( "The number of retries must not be negative, but it is "
+                                                + numberRetries );
+        }
+
+        this.sessionFactory = sessionFactory;
+        this.numberSessions = numberSessions;
+        this.numberRetries = numberRetries;
+    }
+
+    /**
+     * @param listener the listener to notify about the transfer progress, can be null
+     */
+    public void setListener( BulkTransferListener listener ) {
+
+        this.listener = listener;
+    }
+
+    /**
+     * Upload the files of a local directory tree. The remote directory must exist,
+     * its missing sub-directories are created.
+     *
+     * @param localDir the local directory
+     * @param remoteDir the remote directory
+     * @param filesGlob glob pattern for the files to upload, null for all files
+     * @return the transfer result
+     * @throws FileTransferException if the files can not be listed or the first session can not be opened,
+     * the failures of single files are given by the result
+     */
+    public BulkTransferResult upload( String localDir, String remoteDir,
+                                      String filesGlob ) throws FileTransferException {
+
+        long startTime = System.currentTimeMillis();
+
+        File localRoot = new File( localDir );
+        if( !localRoot.isDirectory() ) {
+            throw new FileTransferException( "'" + localDir + "' is not a directory" );
+        }
+        PathMatcher matcher = createMatcher( filesGlob );
+        List<String> files = new ArrayList<String>();
+        listLocalFiles( localRoot, "", matcher, files );
+
+        long numberBytes = 0;
+        for( String file : files ) {
+            numberBytes += new File( localRoot, file ).length();
+        }
+        log.info( "Uploading " + files.size() + " files with " + numberBytes + " bytes from '" + localDir
+                  + "' to '" + remoteDir + "'" );
+
+        String remoteRoot = toDirectory( remoteDir );
+        IFileTransferClient firstSession = sessionFactory.createSession();
+        try {
+            if( firstSession instanceof IBulkFileTransferClient ) {
+                // a sorted set gives the parent directories before their children
+                Set<String> remoteDirs = new TreeSet<String>();
+                for( String file : files ) {
+                    int slashIndex = file.indexOf( '/' );
+                    while( slashIndex > 0 ) {
+                        remoteDirs.add( file.substring( 0, slashIndex ) );
+                        slashIndex = file.indexOf( '/', slashIndex + 1 );
+                    }
+                }
+                for( String dir : remoteDirs ) {
+                    ( ( IBulkFileTransferClient ) firstSession ).createRemoteDirectory( remoteRoot + dir );
+                }
+            }
+        } catch( RuntimeException e ) {
+            disconnect( firstSession );
+            throw e;
+        }
+
+        return transfer( true, localRoot, remoteRoot, files, numberBytes, firstSession, startTime );
+    }
+
+    /**
+     * Download the files of a remote directory tree. The local directory and its sub-directories
+     * are created if missing.
+     *
+     * @param localDir the local directory
+     * @param remoteDir the remote directory
+     * @param filesGlob glob pattern for the files to download, null for all files
+     * @return the transfer result
+     * @throws FileTransferException if the files can not be listed or the first session can not be opened,
+     * the failures of single files are given by the result
+     */
+    public BulkTransferResult download( String localDir, String remoteDir,
+                                        String filesGlob ) throws FileTransferException {
+
+        long startTime = System.currentTimeMillis();
+
+        File localRoot = new File( localDir );
+        PathMatcher matcher = createMatcher( filesGlob );
+        String remoteRoot = toDirectory( remoteDir );
+
+        List<String> files = new ArrayList<String>();
+        IFileTransferClient firstSession = sessionFactory.createSession();
+        try {
+            if( ! ( firstSession instanceof IBulkFileTransferClient ) ) {
+                throw new FileTransferException( firstSession.getClass().getName()
+                                                 + " can not list remote directories, so it can not download many files at once" );
+            }
+            listRemoteFiles( ( IBulkFileTransferClient ) firstSession, remoteRoot, "", matcher, files );
+
+            for( String file : files ) {
+                File localParent = new File( localRoot, file ).getParentFile();
+                if( !localParent.isDirectory() && !localParent.mkdirs() ) {
+                    throw new FileTransferException( "Unable to create local directory '" + localParent + "'" );
+                }
+            }
+        } catch( RuntimeException e ) {
+            disconnect( firstSession );
+            throw e;
+        }
+        log.info( "Downloading " + files.size() + " files from '" + remoteDir + "' to '" + localDir + "'" );
+
+        return transfer( false, localRoot, remoteRoot, files, -1, firstSession, startTime );
+    }
+
+    private BulkTransferResult transfer( final boolean upload, final File localRoot, final String remoteRoot,
+                                         List<String> files, long numberBytes, IFileTransferClient firstSession,
+                                         long startTime ) throws FileTransferException {
+
+        if( listener != null ) {
+            listener.transferStarted( files.size(), numberBytes );
+        }
+
+        final Queue<String> pendingFiles = new ConcurrentLinkedQueue<String>( files );
+        final Map<String, String> failedFiles = new ConcurrentHashMap<String, String>();
+        List<SessionStatistics> sessionStatistics = new ArrayList<SessionStatistics>();
+
+        int numberWorkers = Math.min( numberSessions, files.size() );
+        if( numberWorkers <= 1 ) {
+            // no need of other threads
+            sessionStatistics.add( new SessionWorker( 0, firstSession, upload, localRoot, remoteRoot,
+                                                      pendingFiles, failedFiles ).call() );
+        } else {
+            ExecutorService executor = Executors.newFixedThreadPool( numberWorkers,
+                                                                     new SessionThreadFactory() );
+            try {
+                List<Future<SessionStatistics>> futures = new ArrayList<Future<SessionStatistics>>();
+                for( int i = 0; i < numberWorkers; i++ ) {
+                    // the other sessions are opened in their own threads, so they connect in parallel
+                    futures.add( executor.submit( new SessionWorker( i, i == 0
+                                                                               ? firstSession
+                                                                               : null,
+                                                                     upload, localRoot, remoteRoot,
+                                                                     pendingFiles, failedFiles ) ) );
+                }
+                for( Future<SessionStatistics> future : futures ) {
+                    sessionStatistics.add( future.get() );
+                }
+            } catch( InterruptedException e ) {
+                executor.shutdownNow();
+                Thread.currentThread().interrupt();
+                throw new FileTransferException( "Interrupted while waiting for the file transfers", e );
+            } catch( ExecutionException e ) {
+                executor.shutdownNow();
+                // the file transfer errors are collected by the workers, so this is an unexpected
+                // error, for example thrown by the listener
+                Throwable cause = e.getCause();
+                if( cause instanceof Error ) {
+                    throw ( Error ) cause;
+                }
+                throw ( RuntimeException ) cause;
+            } finally {
+                executor.shutdown();
+            }
+        }
+
+        BulkTransferResult result = new BulkTransferResult( files.size(),
+                                                            System.currentTimeMillis() - startTime,
+                                                            new TreeMap<String, String>( failedFiles ),
+                                                            sessionStatistics );
+        log.info( result );
+        if( listener != null ) {
+            listener.transferFinished( result );
+        }
+        return result;
+    }
+
+    private void listLocalFiles( File dir, String relativeDir, PathMatcher matcher, List<String> files ) {
+
+        File[] children = dir.listFiles();
+        if( children == null ) {
+            throw new FileTransferException( "Unable to list the content of local directory '" + dir + "'" );
+        }
+        Arrays.sort( children );
+        for( File child : children ) {
+            String relativePath = relativeDir + child.getName();
+            if( child.isDirectory() ) {
+                listLocalFiles( child, relativePath + "/", matcher, files );
+            } else if( matches( matcher, relativePath, child.getName() ) ) {
+                files.add( relativePath );
+            }
+        }
+    }
+
+    private void listRemoteFiles( IBulkFileTransferClient session, String remoteRoot, String relativeDir,
+                                  PathMatcher matcher, List<String> files ) {
+
+        List<String> children = new ArrayList<String>( session.listRemoteDirectory( remoteRoot
+                                                                                    + relativeDir ) );
+        Collections.sort( children );
+        for( String child : children ) {
+            if( child.endsWith( "/" ) ) {
+                listRemoteFiles( session, remoteRoot, relativeDir + child, matcher, files );
+            } else if( matches( matcher, relativeDir + child, child ) ) {
+                files.add( relativeDir + child );
+            }
+        }
+    }
+
+    private static PathMatcher createMatcher( String filesGlob ) {
+
+        if( filesGlob == null || filesGlob.isEmpty() ) {
+            return null;
+        }
+        return FileSystems.getDefault().getPathMatcher( "glob:" + filesGlob );
+    }
+
+    private static boolean matches( PathMatcher matcher, String relativePath, String fileName ) {
+
+        if( matcher == null ) {
+            return true;
+        }
+        // the matcher does not tell its pattern, so both paths are checked.
+        // A pattern with '/' does not match a single file name and vice versa
+        return matcher.matches( Paths.get( fileName ) ) || matcher.matches( Paths.get( relativePath ) );
+    }
+
+    private static String toDirectory( String dir ) {
+
+        return dir.endsWith( "/" )
+                                   ? dir
+                                   : dir + "/";
+    }
+
+    private static void disconnect( IFileTransferClient session ) {
+
+        try {
+            session.disconnect();
+        } catch( Exception e ) {
+            log.warn( "Unable to disconnect a file transfer session", e );
+        }
+    }
+
+    /**
+     * Creates the sessions of a bulk transfer
+     */
+    public interface SessionFactory {
+
+        /**
+         * @return a new connected file transfer client
+         * @throws FileTransferException
+         */
+        IFileTransferClient createSession() throws FileTransferException;
+    }
+
+    /**
+     * Transfers files from the common queue over one session, until the queue is empty
+     */
+    private class SessionWorker implements Callable<SessionStatistics> {
+
+        private final int                 index;
+        private final boolean             upload;
+        private final File                localRoot;
+        private final String              remoteRoot;
+        private final Queue<String>       pendingFiles;
+        private final Map<String, String> failedFiles;
+
+        private IFileTransferClient       session;
+
+        private int                       numberFiles;
+        private long                      numberBytes;
+        private int                       numberRetries;
+        private long                      transferNanos;
+
+        SessionWorker( int index, IFileTransferClient session, boolean upload, File localRoot,
+                       String remoteRoot, Queue<String> pendingFiles, Map<String, String> failedFiles ) {
+
+            this.index = index;
+            this.session = session;
+            this.upload = upload;
+            this.localRoot = localRoot;
+            this.remoteRoot = remoteRoot;
+            this.pendingFiles = pendingFiles;
+            this.failedFiles = failedFiles;
+        }
+
+        @Override
+        public SessionStatistics call() {
+
+            try {
+                String file;
+                while( ( file = pendingFiles.poll() ) != null ) {
+                    transfer( file );
+                }
+            } finally {
+                if( session != null ) {
+                    disconnect( session );
+                }
+            }
+            return new SessionStatistics( index, numberFiles, numberBytes, numberRetries,
+                                          TimeUnit.NANOSECONDS.toMillis( transferNanos ) );
+        }
+
+        private void transfer( String file ) {
+
+            File localFile = new File( localRoot, file );
+            int slashIndex = file.lastIndexOf( '/' );
+            String remoteDir = remoteRoot + file.substring( 0, slashIndex + 1 );
+            String remoteFile = file.substring( slashIndex + 1 );
+
+            for( int attempt = 0;; attempt++ ) {
+                RuntimeException error = null;
+                try {
+                    if( session == null ) {
+                        session = sessionFactory.createSession();
+                    }
+                    long startNanos = System.nanoTime();
+                    // a failed attempt may have transferred a part of the file
+                    transferFile( localFile.getPath(), remoteDir, remoteFile, attempt > 0 );
+                    transferNanos += System.nanoTime() - startNanos;
+                } catch( RuntimeException e ) {
+                    error = e;
+                }
+
+                if( error == null ) {
+                    long fileSize = localFile.length();
+                    numberFiles++;
+                    numberBytes += fileSize;
+                    if( listener != null ) {
+                        listener.fileTransferred( file, fileSize, index );
+                    }
+                    return;
+                }
+
+                boolean willRetry = attempt < BulkFileTransfer.this.numberRetries;
+                if( listener != null ) {
+                    listener.fileFailed( file, error, willRetry, index );
+                }
+
+                // the connection may be broken, so a new one is used for the next attempt
+                if( session != null ) {
+                    disconnect( session );
+                    session = null;
+                }
+
+                if( willRetry ) {
+                    log.warn( "Unable to transfer '" + file + "' on attempt " + ( attempt + 1 )
+                              + ", it will be retried: " + error.getMessage() );
+                    numberRetries++;
+                } else {
+                    log.error( "Unable to transfer '" + file + "'", error );
+                    failedFiles.put( file, String.valueOf( error.getMessage() ) );
+                    return;
+                }
+            }
+        }
+
+        private void transferFile( String localFile, String remoteDir, String remoteFile, boolean resume ) {
+
+            if( resume && session instanceof IBulkFileTransferClient ) {
+                IBulkFileTransferClient bulkSession = ( IBulkFileTransferClient ) session;
+                if( upload ) {
+                    bulkSession.resumeUploadFile( localFile, remoteDir, remoteFile );
+                } else {
+                    bulkSession.resumeDownloadFile( localFile, remoteDir, remoteFile );
+                }
+            } else {
+                if( upload ) {
+                    session.uploadFile( localFile, remoteDir, remoteFile );
+                } else {
+                    session.downloadFile( localFile, remoteDir, remoteFile );
+                }
+            }
+        }
+    }
+
+    private static class SessionThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger threadCounter = new AtomicInteger();
+
+        @Override
+        public Thread newThread( Runnable runnable ) {
+
+            Thread thread = new Thread( runnable, "Bulk file transfer session "
+                                                  + threadCounter.getAndIncrement() );
+            thread.setDaemon( true );
+            return thread;
+        }
+    }
+}
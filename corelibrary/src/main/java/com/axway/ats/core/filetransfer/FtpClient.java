@@ -23,11 +23,13 @@ import java.util.ArrayList;
 import java.util.List;
 
 import org.apache.commons.net.ProtocolCommandListener;
+import org.apache.commons.net.ftp.FTPFile;
+import org.apache.commons.net.ftp.FTPReply;
 import org.apache.log4j.Logger;
 
 import com.axway.ats.common.filetransfer.FileTransferException;
 import com.axway.ats.common.filetransfer.TransferMode;
-import com.axway.ats.core.filetransfer.model.IFileTransferClient;
+import com.axway.ats.core.filetransfer.model.IBulkFileTransferClient;
 import com.axway.ats.core.filetransfer.model.TransferListener;
 import com.axway.ats.core.filetransfer.model.ftp.FtpListener;
 import com.axway.ats.core.filetransfer.model.ftp.FtpResponseListener;
@@ -38,7 +40,7 @@ import com.axway.ats.core.utils.StringUtils;
  * ( https://commons.apache.org/proper/commons-net/ ) to initiate and execute FTP
  * connections to a remote server.
  */
-public class FtpClient extends AbstractFileTransferClient implements IFileTransferClient {
+public class FtpClient extends AbstractFileTransferClient implements IBulkFileTransferClient {
 
     private org.apache.commons.net.ftp.FTPClient ftpConnection = null;
     private static final Logger                  log           = Logger.getLogger( FtpClient.class );
@@ -311,6 +313,188 @@ public class FtpClient extends AbstractFileTransferClient implements IFileTransf
         return returnCode;
     }
 
+    @Override
+    public void createRemoteDirectory(
+                                       String remoteDir ) throws FileTransferException {
+
+        try {
+            if( this.ftpConnection.makeDirectory( remoteDir ) ) {
+                return;
+            }
+
+            // the directory may already exist
+            String currentDir = this.ftpConnection.printWorkingDirectory();
+            if( !this.ftpConnection.changeWorkingDirectory( remoteDir ) ) {
+                throw new FileTransferException( "Unable to create remote directory " + remoteDir + ": "
+                                                 + this.ftpConnection.getReplyString() );
+            }
+            if( !this.ftpConnection.changeWorkingDirectory( currentDir ) ) {
+                throw new FileTransferException( "Unable to change working directory to " + currentDir );
+            }
+        } catch( IOException e ) {
+            throw new FileTransferException( "Unable to create remote directory " + remoteDir, e );
+        }
+    }
+
+    @Override
+    public List<String> listRemoteDirectory(
+                                             String remoteDir ) throws FileTransferException {
+
+        try {
+            FTPFile[] files = this.ftpConnection.listFiles( remoteDir );
+            if( !FTPReply.isPositiveCompletion( this.ftpConnection.getReplyCode() ) ) {
+                throw new FileTransferException( "Unable to list remote directory " + remoteDir + ": "
+                                                 + this.ftpConnection.getReplyString() );
+            }
+
+            List<String> names = new ArrayList<String>();
+            for( FTPFile file : files ) {
+                String name = file.getName();
+                if( !".".equals( name ) && !"..".equals( name ) ) {
+                    names.add( file.isDirectory()
+                                                  ? name + "/"
+                                                  : name );
+                }
+            }
+            return names;
+        } catch( IOException e ) {
+            throw new FileTransferException( "Unable to list remote directory " + remoteDir, e );
+        }
+    }
+
+    /**
+     * Upload a file, which was partially uploaded before. The upload continues
+     * from the end of the remote file using the REST command.
+     * In ASCII mode the file sizes differ on the two sides, so the whole file is uploaded.
+     */
+    @Override
+    public void resumeUploadFile(
+                                  String localFile,
+                                  String remoteDir,
+                                  String remoteFile ) throws FileTransferException {
+
+        checkPausedTransferRunning( false );
+
+        String remotePath = toRemotePath( remoteDir, remoteFile );
+        File file = new File( localFile );
+        FileInputStream fis = null;
+        try {
+            long remoteSize = this.transferMode == TransferMode.ASCII
+                                                                      ? -1
+                                                                      : getRemoteFileSize( remotePath );
+            if( remoteSize == file.length() ) {
+                log.info( "'" + remotePath + "' is already uploaded, host " + ftpConnection.getPassiveHost() );
+                return;
+            }
+
+            fis = new FileInputStream( file );
+            long offset = 0;
+            if( remoteSize > 0 && remoteSize < file.length() ) {
+                offset = remoteSize;
+                fis.getChannel().position( offset );
+                this.ftpConnection.setRestartOffset( offset );
+            }
+            if( !this.ftpConnection.storeFile( remotePath, fis ) ) {
+                throw new FileTransferException( "Unable to store " + localFile + " to "
+                                                 + this.ftpConnection.getPassiveHost() + " as a " + remotePath
+                                                 + ": " + this.ftpConnection.getReplyString() );
+            }
+            log.info( "Successfully uploaded '" + localFile + "' to '" + remotePath + "' starting from byte "
+                      + offset + ", host " + ftpConnection.getPassiveHost() );
+        } catch( IOException e ) {
+            log.error( "Unable to resume upload of file " + localFile, e );
+            throw new FileTransferException( e );
+        } finally {
+            if( fis != null ) {
+                try {
+                    fis.close();
+                } catch( IOException e ) {
+                    log.error( "Unable to close the file stream after successful upload!", e );
+                }
+            }
+        }
+    }
+
+    /**
+     * Download a file, which was partially downloaded before. The download continues
+     * from the end of the local file using the REST command.
+     * In ASCII mode the file sizes differ on the two sides, so the whole file is downloaded.
+     */
+    @Override
+    public void resumeDownloadFile(
+                                    String localFile,
+                                    String remoteDir,
+                                    String remoteFile ) throws FileTransferException {
+
+        checkPausedTransferRunning( false );
+
+        String remotePath = toRemotePath( remoteDir, remoteFile );
+        File file = new File( localFile );
+        FileOutputStream fos = null;
+        try {
+            long offset = file.length();
+            long remoteSize = this.transferMode == TransferMode.ASCII || offset == 0
+                                                                                     ? -1
+                                                                                     : getRemoteFileSize( remotePath );
+            if( remoteSize == offset ) {
+                log.info( "'" + localFile + "' is already downloaded, host " + ftpConnection.getPassiveHost() );
+                return;
+            }
+            if( remoteSize < offset ) {
+                // the remote size is not known or the local file is not a part of the remote one
+                offset = 0;
+            }
+
+            fos = new FileOutputStream( file, offset > 0 );
+            if( offset > 0 ) {
+                this.ftpConnection.setRestartOffset( offset );
+            }
+            if( !this.ftpConnection.retrieveFile( remotePath, fos ) ) {
+                throw new FileTransferException( "Unable to retrieve " + remotePath + " from "
+                                                 + this.ftpConnection.getPassiveHost() + " as a " + localFile
+                                                 + ": " + this.ftpConnection.getReplyString() );
+            }
+            log.info( "Successfully downloaded '" + localFile + "' from '" + remotePath + "' starting from byte "
+                      + offset + ", host " + ftpConnection.getPassiveHost() );
+        } catch( IOException e ) {
+            log.error( "Unable to resume download of file " + localFile, e );
+            throw new FileTransferException( e );
+        } finally {
+            if( fos != null ) {
+                try {
+                    fos.close();
+                } catch( IOException e ) {
+                    log.error( "Unable to close the file stream after successful download!", e );
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the size of a remote file as returned by the SIZE command, -1 if it is not known
+     */
+    private long getRemoteFileSize(
+                                    String remotePath ) throws IOException {
+
+        if( this.ftpConnection.sendCommand( "SIZE", remotePath ) == FTPReply.FILE_STATUS ) {
+            try {
+                return Long.parseLong( this.ftpConnection.getReplyString().substring( 4 ).trim() );
+            } catch( NumberFormatException e ) {
+                log.warn( "Unexpected reply to the SIZE command: " + this.ftpConnection.getReplyString() );
+            }
+        }
+        return -1;
+    }
+
+    private static String toRemotePath(
+                                        String remoteDir,
+                                        String remoteFile ) {
+
+        return remoteDir.endsWith( "/" )
+                                         ? remoteDir + remoteFile
+                                         : remoteDir + "/" + remoteFile;
+    }
+
     @Override
     protected TransferListener addListener(
                                             int progressEventNumber ) {
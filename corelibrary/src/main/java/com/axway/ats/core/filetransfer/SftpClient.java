@@ -24,29 +24,33 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.Vector;
 
 import org.apache.log4j.Logger;
 import org.bouncycastle.jce.provider.BouncyCastleProvider;
 
 import com.axway.ats.common.filetransfer.FileTransferException;
 import com.axway.ats.common.filetransfer.SshCipher;
+import com.axway.ats.core.filetransfer.model.IBulkFileTransferClient;
 import com.axway.ats.core.filetransfer.model.TransferListener;
 import com.axway.ats.core.filetransfer.model.ftp.SftpFileTransferProgressMonitor;
 import com.axway.ats.core.filetransfer.model.ftp.SftpListener;
 import com.axway.ats.core.filetransfer.model.ftp.SynchronizationSftpTransferListener;
 import com.axway.ats.core.utils.IoUtils;
 import com.jcraft.jsch.ChannelSftp;
+import com.jcraft.jsch.ChannelSftp.LsEntry;
 import com.jcraft.jsch.JSch;
 import com.jcraft.jsch.JSchException;
 import com.jcraft.jsch.Session;
 import com.jcraft.jsch.SftpException;
+import com.jcraft.jsch.SftpProgressMonitor;
 
 /**
  * Uses the JSch component suite for Java
  * ( http://www.jcraft.com/jsch/ ) to initiate and execute SFTP connections
  * to a remote server.
  */
-public class SftpClient extends AbstractFileTransferClient {
+public class SftpClient extends AbstractFileTransferClient implements IBulkFileTransferClient {
 
     private JSch                                jsch                                = null;
     private Session                             session                             = null;
@@ -300,6 +304,153 @@ public class SftpClient extends AbstractFileTransferClient {
 
     }
 
+    @Override
+    public void createRemoteDirectory( String remoteDir ) throws FileTransferException {
+
+        try {
+            try {
+                if( this.channel.stat( remoteDir ).isDir() ) {
+                    return;
+                }
+            } catch( SftpException e ) {
+                if( e.id != ChannelSftp.SSH_FX_NO_SUCH_FILE ) {
+                    throw e;
+                }
+            }
+            this.channel.mkdir( remoteDir );
+        } catch( SftpException e ) {
+            throw new FileTransferException( "Unable to create remote directory " + remoteDir, e );
+        }
+    }
+
+    @Override
+    public List<String> listRemoteDirectory( String remoteDir ) throws FileTransferException {
+
+        try {
+            List<String> names = new ArrayList<String>();
+            for( Object entry : ( Vector<?> ) this.channel.ls( remoteDir ) ) {
+                LsEntry lsEntry = ( LsEntry ) entry;
+                String name = lsEntry.getFilename();
+                if( !".".equals( name ) && !"..".equals( name ) ) {
+                    names.add( lsEntry.getAttrs().isDir()
+                                                          ? name + "/"
+                                                          : name );
+                }
+            }
+            return names;
+        } catch( SftpException e ) {
+            throw new FileTransferException( "Unable to list remote directory " + remoteDir, e );
+        }
+    }
+
+    @Override
+    public void resumeUploadFile( String localFile, String remoteDir,
+                                  String remoteFile ) throws FileTransferException {
+
+        checkPausedTransferRunning( false );
+
+        String remotePath = toRemotePath( remoteDir, remoteFile );
+        File file = new File( localFile );
+        FileInputStream fis = null;
+        try {
+            long remoteSize = getRemoteFileSize( remotePath );
+            if( remoteSize == file.length() ) {
+                log.info( "'" + remotePath + "' is already uploaded, host " + this.hostname );
+                return;
+            }
+
+            // the channel skips the already uploaded bytes of the stream when resuming
+            fis = new FileInputStream( file );
+            this.channel.put( fis, remotePath, getProgressMonitor( localFile, remoteFile, file.length() ),
+                              remoteSize > 0 && remoteSize < file.length()
+                                                                           ? ChannelSftp.RESUME
+                                                                           : ChannelSftp.OVERWRITE );
+            log.info( "Successfully uploaded '" + localFile + "' to '" + remotePath + "' starting from byte "
+                      + Math.max( remoteSize, 0 ) + ", host " + this.hostname );
+        } catch( SftpException e ) {
+            log.error( "Unable to resume upload of file " + localFile, e );
+            throw new FileTransferException( e );
+        } catch( FileNotFoundException e ) {
+            log.error( "Unable to find the file that needs to be uploaded!", e );
+            throw new FileTransferException( e );
+        } finally {
+            IoUtils.closeStream( fis, "Unable to close the file stream after successful upload!" );
+        }
+    }
+
+    @Override
+    public void resumeDownloadFile( String localFile, String remoteDir,
+                                    String remoteFile ) throws FileTransferException {
+
+        checkPausedTransferRunning( false );
+
+        String remotePath = toRemotePath( remoteDir, remoteFile );
+        File file = new File( localFile );
+        FileOutputStream fos = null;
+        try {
+            long localSize = file.length();
+            long remoteSize = getRemoteFileSize( remotePath );
+            if( remoteSize == localSize ) {
+                log.info( "'" + localFile + "' is already downloaded, host " + this.hostname );
+                return;
+            }
+
+            boolean resume = localSize > 0 && localSize < remoteSize;
+            fos = new FileOutputStream( file, resume );
+            this.channel.get( remotePath, fos, getProgressMonitor( localFile, remoteFile, remoteSize ),
+                              resume
+                                     ? ChannelSftp.RESUME
+                                     : ChannelSftp.OVERWRITE,
+                              resume
+                                     ? localSize
+                                     : 0 );
+            log.info( "Successfully downloaded '" + localFile + "' from '" + remotePath + "' starting from byte "
+                      + ( resume
+                                 ? localSize
+                                 : 0 )
+                      + ", host " + this.hostname );
+        } catch( SftpException e ) {
+            log.error( "Unable to resume download of " + localFile, e );
+            throw new FileTransferException( e );
+        } catch( FileNotFoundException e ) {
+            log.error( "Unable to create " + localFile, e );
+            throw new FileTransferException( e );
+        } finally {
+            IoUtils.closeStream( fos, "Unable to close the file stream after successful download!" );
+        }
+    }
+
+    /**
+     * @return the size of a remote file, -1 if it does not exist
+     */
+    private long getRemoteFileSize( String remotePath ) throws SftpException {
+
+        try {
+            return this.channel.stat( remotePath ).getSize();
+        } catch( SftpException e ) {
+            if( e.id == ChannelSftp.SSH_FX_NO_SUCH_FILE ) {
+                return -1;
+            }
+            throw e;
+        }
+    }
+
+    private SftpProgressMonitor getProgressMonitor( String localFile, String remoteFile, long fileSize ) {
+
+        if( isDebugMode() && debugProgressMonitor != null ) {
+            debugProgressMonitor.setTransferMetadata( localFile, remoteFile, fileSize );
+            return debugProgressMonitor;
+        }
+        return null;
+    }
+
+    private static String toRemotePath( String remoteDir, String remoteFile ) {
+
+        return remoteDir.endsWith( "/" )
+                                         ? remoteDir + remoteFile
+                                         : remoteDir + "/" + remoteFile;
+    }
+
     @Override
     protected TransferListener addListener( int progressEventNumber ) {
 
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2017 Axway Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.axway.ats.core.filetransfer.model;
+
+import com.axway.ats.common.filetransfer.BulkTransferResult;
+
+/**
+ * Receives the progress of a bulk transfer.
+ *
+ * The files are transferred by a number of parallel sessions, so the methods are called
+ * from different threads and must be thread safe.
+ * The files are given by their path relative to the transferred directory.
+ */
+public interface BulkTransferListener extends TransferListener {
+
+    /**
+     * Called when the files to transfer are found and the transfer is about to start
+     *
+     * @param numberFiles the number of files to transfer
+     * @param numberBytes the size of the files to transfer, -1 if not known
+     */
+    public void transferStarted(
+                                 int numberFiles,
+                                 long numberBytes );
+
+    /**
+     * Called when a file is successfully transferred
+     *
+     * @param file the transferred file
+     * @param numberBytes the file size
+     * @param sessionIndex the index of the session which transferred the file
+     */
+    public void fileTransferred(
+                                 String file,
+                                 long numberBytes,
+                                 int sessionIndex );
+
+    /**
+     * Called when a file transfer fails
+     *
+     * @param file the file
+     * @param error the error
+     * @param willRetry whether the transfer will be retried
+     * @param sessionIndex the index of the session which transferred the file
+     */
+    public void fileFailed(
+                            String file,
+                            Exception error,
+                            boolean willRetry,
+                            int sessionIndex );
+
+    /**
+     * Called when all files are processed
+     *
+     * @param result the transfer result
+     */
+    public void transferFinished(
+                                  BulkTransferResult result );
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2017 Axway Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.axway.ats.core.filetransfer.model;
+
+import java.util.List;
+
+import com.axway.ats.common.filetransfer.FileTransferException;
+import com.axway.ats.core.filetransfer.BulkFileTransfer;
+
+/**
+ * Methods needed by the {@link BulkFileTransfer} for transferring directory trees.
+ *
+ * Clients which do not implement this interface can still upload many files at once, but
+ * the remote directories are not created and a failed file is transferred again from its beginning.
+ */
+public interface IBulkFileTransferClient extends IFileTransferClient {
+
+    /**
+     * Create a remote directory, its parent directory must exist.
+     * Nothing is done if the directory already exists.
+     *
+     * @param remoteDir the remote directory
+     * @throws FileTransferException
+     */
+    public void createRemoteDirectory(
+                                       String remoteDir ) throws FileTransferException;
+
+    /**
+     * List the content of a remote directory
+     *
+     * @param remoteDir the remote directory
+     * @return the names of the files and directories in it, the directory names end with '/'
+     * @throws FileTransferException
+     */
+    public List<String> listRemoteDirectory(
+                                             String remoteDir ) throws FileTransferException;
+
+    /**
+     * Upload a file, which was partially uploaded before. Only the part of the local file
+     * which is after the end of the remote file is sent.
+     *
+     * @param localFile the local file to upload
+     * @param remoteDir the remote directory to upload the file to
+     * @param remoteFile the remote file name that the file should have
+     * @throws FileTransferException
+     */
+    public void resumeUploadFile(
+                                  String localFile,
+                                  String remoteDir,
+                                  String remoteFile ) throws FileTransferException;
+
+    /**
+     * Download a file, which was partially downloaded before. Only the part of the remote file
+     * which is after the end of the local file is received.
+     *
+     * @param localFile the local file that will be completed
+     * @param remoteDir the remote directory to download from
+     * @param remoteFile the remote file to download
+     * @throws FileTransferException
+     */
+    public void resumeDownloadFile(
+                                    String localFile,
+                                    String remoteDir,
+                                    String remoteFile ) throws FileTransferException;
+}
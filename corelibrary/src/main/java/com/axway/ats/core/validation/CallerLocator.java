@@ -0,0 +1,169 @@
+/*
+ * Copyright 2017 Axway Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.axway.ats.core.validation;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Finds a method up in the stack of the current thread.
+ *
+ * On Java 9 and newer the java.lang.StackWalker API is used, as it creates objects only for the
+ * frames we go through, while {@link Throwable#getStackTrace()} creates an element for each frame
+ * in the stack. The library is built for older Java versions, so StackWalker is accessed with reflection.
+ */
+final class CallerLocator {
+
+    private static final Logger         log = Logger.getLogger( CallerLocator.class );
+
+    private static final Object         STACK_WALKER;
+    private static final Method         WALK_METHOD;
+    private static final Constructor<?> WALK_FUNCTION_CONSTRUCTOR;
+    private static final Method         SKIP_METHOD;
+    private static final Method         FIND_FIRST_METHOD;
+    private static final Method         OR_ELSE_METHOD;
+    private static final Method         GET_CLASS_NAME_METHOD;
+    private static final Method         GET_METHOD_NAME_METHOD;
+
+    static {
+        Object stackWalker = null;
+        Method walkMethod = null;
+        Constructor<?> walkFunctionConstructor = null;
+        Method skipMethod = null;
+        Method findFirstMethod = null;
+        Method orElseMethod = null;
+        Method getClassNameMethod = null;
+        Method getMethodNameMethod = null;
+        try {
+            Class<?> stackWalkerClass = Class.forName( "java.lang.StackWalker" );
+            Class<?> stackFrameClass = Class.forName( "java.lang.StackWalker$StackFrame" );
+            Class<?> functionClass = Class.forName( "java.util.function.Function" );
+            Class<?> streamClass = Class.forName( "java.util.stream.Stream" );
+
+            stackWalker = stackWalkerClass.getMethod( "getInstance" ).invoke( null );
+            walkMethod = stackWalkerClass.getMethod( "walk", functionClass );
+            walkFunctionConstructor = Proxy.getProxyClass( CallerLocator.class.getClassLoader(),
+                                                           functionClass )
+                                           .getConstructor( InvocationHandler.class );
+            skipMethod = streamClass.getMethod( "skip", long.class );
+            findFirstMethod = streamClass.getMethod( "findFirst" );
+            orElseMethod = Class.forName( "java.util.Optional" ).getMethod( "orElse", Object.class );
+            getClassNameMethod = stackFrameClass.getMethod( "getClassName" );
+            getMethodNameMethod = stackFrameClass.getMethod( "getMethodName" );
+        } catch( Exception e ) {
+            // StackWalker is not supported by this JVM
+            stackWalker = null;
+        }
+
+        STACK_WALKER = stackWalker;
+        WALK_METHOD = walkMethod;
+        WALK_FUNCTION_CONSTRUCTOR = walkFunctionConstructor;
+        SKIP_METHOD = skipMethod;
+        FIND_FIRST_METHOD = findFirstMethod;
+        OR_ELSE_METHOD = orElseMethod;
+        GET_CLASS_NAME_METHOD = getClassNameMethod;
+        GET_METHOD_NAME_METHOD = getMethodNameMethod;
+    }
+
+    private CallerLocator() {
+
+    }
+
+    /**
+     * Get a method from the stack of the current thread
+     *
+     * @param depth how many frames to go up, 0 is the method calling us
+     * @return the method or null if the stack is not that deep
+     */
+    static Caller getCaller( int depth ) {
+
+        if( depth < 0 ) {
+            return null;
+        }
+
+        if( STACK_WALKER != null ) {
+            try {
+                return getCallerFromStackWalker( depth + 2 );
+            } catch( Exception e ) {
+                log.debug( "Unable to walk the stack with StackWalker, the stack trace will be used", e );
+            }
+        }
+        return getCallerFromStackTrace( depth + 2 );
+    }
+
+    private static Caller getCallerFromStackWalker( final int framesToSkip ) throws Exception {
+
+        // the Function passed to StackWalker.walk(), it gets the needed frame from the frames stream
+        InvocationHandler walkFunction = new InvocationHandler() {
+
+            @Override
+            public Object invoke( Object proxy, Method method, Object[] args ) throws Throwable {
+
+                if( !"apply".equals( method.getName() ) ) {
+                    // one of the java.lang.Object methods
+                    return method.invoke( this, args );
+                }
+
+                Object frames = SKIP_METHOD.invoke( args[0], ( long ) framesToSkip );
+                return OR_ELSE_METHOD.invoke( FIND_FIRST_METHOD.invoke( frames ), ( Object ) null );
+            }
+        };
+
+        // the reflection frames are not shown by StackWalker, so the first frame is this method
+        Object frame = WALK_METHOD.invoke( STACK_WALKER, WALK_FUNCTION_CONSTRUCTOR.newInstance( walkFunction ) );
+        if( frame == null ) {
+            return null;
+        }
+        return new Caller( ( String ) GET_CLASS_NAME_METHOD.invoke( frame ),
+                           ( String ) GET_METHOD_NAME_METHOD.invoke( frame ) );
+    }
+
+    private static Caller getCallerFromStackTrace( int framesToSkip ) {
+
+        StackTraceElement[] stackTrace = new Throwable().getStackTrace();
+
+        // Sometimes, using IBM JRE/JDK, the expected stack trace is changed and at the top
+        // of the StackTrace stack is added one more Class - Throwable. So we have to skip it
+        if( stackTrace.length > 0 && Throwable.class.getName().equals( stackTrace[0].getClassName() ) ) {
+            framesToSkip++;
+        }
+
+        if( framesToSkip >= stackTrace.length ) {
+            return null;
+        }
+        return new Caller( stackTrace[framesToSkip].getClassName(),
+                           stackTrace[framesToSkip].getMethodName() );
+    }
+
+    /**
+     * A method found in the stack
+     */
+    static final class Caller {
+
+        final String className;
+        final String methodName;
+
+        Caller( String className, String methodName ) {
+
+            this.className = className;
+            this.methodName = methodName;
+        }
+    }
+}
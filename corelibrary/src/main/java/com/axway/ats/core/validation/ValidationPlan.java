@@ -0,0 +1,206 @@
+/*
+ * Copyright 2017 Axway Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.axway.ats.core.validation;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.log4j.Logger;
+
+import com.axway.ats.core.reflect.AmbiguousMethodException;
+import com.axway.ats.core.reflect.MethodFinder;
+import com.axway.ats.core.validation.types.BaseType;
+import com.axway.ats.core.validation.types.TypeFactory;
+
+/**
+ * The validations to apply on the parameters of a method annotated with {@link Validate}.
+ *
+ * Finding the method and reading its annotations is done when the plan is built,
+ * so validating the method parameters only needs to create the validation types for the passed values.
+ */
+final class ValidationPlan {
+
+    private static final Logger               log = Logger.getLogger( ValidationPlan.class );
+
+    private final List<ParameterValidation>   parameterValidations;
+
+    private ValidationPlan( List<ParameterValidation> parameterValidations ) {
+
+        this.parameterValidations = parameterValidations;
+    }
+
+    /**
+     * Build the validation plan for a method
+     *
+     * @param errMessagePrefix top level prefix for the error message
+     * @param className the class declaring the method
+     * @param methodName the method name, it is "&lt;init&gt;" for constructors
+     * @param parameterTypes the types of the passed method arguments
+     * @return the validation plan
+     */
+    static ValidationPlan build( String errMessagePrefix, String className, String methodName,
+                                 Class<?>[] parameterTypes ) {
+
+        // find the method
+        Annotation[][] parameterAnnotations;
+        Class<?> targetClass;
+        try {
+            targetClass = Class.forName( className );
+            MethodFinder methodFinder = new MethodFinder( targetClass );
+
+            if( "<init>".equals( methodName ) ) {
+                parameterAnnotations = methodFinder.findConstructor( parameterTypes )
+                                                   .getParameterAnnotations();
+            } else {
+                parameterAnnotations = methodFinder.findMethod( methodName, parameterTypes )
+                                                   .getParameterAnnotations();
+            }
+        } catch( ClassNotFoundException cnfe ) {
+            // throw runtime exception, as this is a fatal error
+            throw new RuntimeException( errMessagePrefix + "Could not find class '" + className + "'", cnfe );
+        } catch( NoSuchMethodException nsme ) {
+            // throw runtime exception, as this is a fatal error
+            throw new RuntimeException( errMessagePrefix + "Could not find method '" + methodName + "'",
+                                        nsme );
+        } catch( AmbiguousMethodException ame ) {
+            // throw runtime exception, as this is a fatal error
+            throw new RuntimeException( errMessagePrefix + "Found ambiguous method '" + methodName + "'",
+                                        ame );
+        }
+
+        List<ParameterValidation> parameterValidations = new ArrayList<ParameterValidation>();
+        for( int i = 0; i < parameterAnnotations.length; i++ ) {
+            for( Annotation currentParamAnnotation : parameterAnnotations[i] ) {
+                if( currentParamAnnotation instanceof Validate ) {
+                    Validate validateAnnotation = ( Validate ) currentParamAnnotation;
+
+                    ValidationType validationType = validateAnnotation.type();
+                    // if we are checking for valid constants, then the args array should contain
+                    // the name of the array holding the valid constants
+                    if( validationType == ValidationType.STRING_CONSTANT
+                        || validationType == ValidationType.NUMBER_CONSTANT ) {
+                        parameterValidations.add( new ParameterValidation( i, validationType,
+                                                                           validateAnnotation.name(),
+                                                                           getValidConstants( errMessagePrefix,
+                                                                                              targetClass,
+                                                                                              validateAnnotation ) ) );
+                    } else {
+                        parameterValidations.add( new ParameterValidation( i, validationType,
+                                                                           validateAnnotation.name(),
+                                                                           validateAnnotation.args() ) );
+                    }
+                }
+            }
+        }
+
+        return new ValidationPlan( parameterValidations );
+    }
+
+    /**
+     * Create the validation types for the passed method arguments
+     *
+     * @param argumentsValues the method's arguments
+     * @param typeValidators the list to add the validation types to
+     */
+    void createValidators( Object[] argumentsValues, List<BaseType> typeValidators ) {
+
+        for( ParameterValidation parameterValidation : parameterValidations ) {
+            parameterValidation.createBaseTypes( argumentsValues[parameterValidation.parameterIndex],
+                                                 typeValidators );
+        }
+    }
+
+    /** Reads the array with valid constants, its name is given in the 'args' field of the annotation */
+    private static String[] getValidConstants( String errMessagePrefix, Class<?> targetClass,
+                                               Validate validateAnnotation ) {
+
+        try {
+            String arrayName = validateAnnotation.args()[0];
+
+            // get the field and set access level if necessary
+            Field arrayField = targetClass.getDeclaredField( arrayName );
+            if( !arrayField.isAccessible() ) {
+                arrayField.setAccessible( true );
+            }
+            Object arrayValidConstants = arrayField.get( null );
+
+            // convert the object array to string array
+            String[] arrayValidConstatnsStr = new String[Array.getLength( arrayValidConstants )];
+            for( int j = 0; j < Array.getLength( arrayValidConstants ); j++ ) {
+                arrayValidConstatnsStr[j] = Array.get( arrayValidConstants, j ).toString();
+            }
+            return arrayValidConstatnsStr;
+        } catch( IndexOutOfBoundsException iobe ) {
+            // throw runtime exception, as this is a fatal error
+            throw new RuntimeException( errMessagePrefix
+                                        + "You need to specify the name of the array with valid constants in the 'args' field of the Validate annotation" );
+        } catch( Exception e ) {
+            // throw runtime exception, as this is a fatal error
+            throw new RuntimeException( errMessagePrefix + "Could not get array with valid constants" );
+        }
+    }
+
+    /**
+     * The validation of one method parameter
+     */
+    private static final class ParameterValidation {
+
+        private final int            parameterIndex;
+        private final ValidationType type;
+        private final String         parameterName;
+        private final Object[]       args;
+
+        ParameterValidation( int parameterIndex, ValidationType type, String parameterName, Object[] args ) {
+
+            this.parameterIndex = parameterIndex;
+            this.type = type;
+            this.parameterName = parameterName;
+            this.args = args;
+        }
+
+        /** Creates as much validation types as needed to validate the input data */
+        void createBaseTypes( Object values, List<BaseType> typeValidators ) {
+
+            TypeFactory factory = TypeFactory.getInstance();
+
+            // if this is an array of types to be validated, then add each
+            // of them separatly to the list
+            if( ( values != null ) && values.getClass().isArray() ) {
+                for( int i = 0; i < Array.getLength( values ); i++ ) {
+                    typeValidators.add( factory.createValidationType( type, parameterName,
+                                                                      Array.get( values, i ), args ) );
+                }
+                // otherwise just add the single validation type
+            } else {
+                if( log.isDebugEnabled() ) {
+                    log.debug( new StringBuilder().append( "Validating if parameter with the name of [" )
+                                                  .append( parameterName )
+                                                  .append( "] and value [" )
+                                                  .append( values )
+                                                  .append( "] is by the type of [" )
+                                                  .append( type )
+                                                  .append( "]" )
+                                                  .toString() );
+                }
+
+                typeValidators.add( factory.createValidationType( type, parameterName, values, args ) );
+            }
+        }
+    }
+}
@@ -15,18 +15,17 @@
  */
 package com.axway.ats.core.validation;
 
-import java.lang.annotation.Annotation;
 import java.lang.reflect.Array;
-import java.lang.reflect.Constructor;
-import java.lang.reflect.Field;
-import java.lang.reflect.Method;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Stack;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.apache.log4j.Logger;
 
-import com.axway.ats.core.reflect.AmbiguousMethodException;
+import com.axway.ats.common.systemproperties.AtsSystemProperties;
 import com.axway.ats.core.reflect.MethodFinder;
 import com.axway.ats.core.utils.StringUtils;
 import com.axway.ats.core.validation.exceptions.InvalidInputArgumentsException;
@@ -57,6 +56,9 @@ public class Validator {
 
     private static Logger         log                        = Logger.getLogger( Validator.class );
 
+    // the validation plans of the methods, shared by all validator instances
+    private static final ConcurrentMap<ValidationPlanKey, ValidationPlan> validationPlans = new ConcurrentHashMap<ValidationPlanKey, ValidationPlan>();
+
     private final List<BaseType>  typeValidators;
 
     private final Stack<String>   methodNames;
@@ -239,112 +241,49 @@ public class Validator {
      */
     private void init( String errMessagePrefix, Object[] argumentsValues, int offset ) {
 
-        try {
-            throw new Exception( "Stack Trace" );
-        } catch( Exception e ) {
+        // get the stack-element before the last (i.e. us)
+        CallerLocator.Caller caller = CallerLocator.getCaller( offset );
+        if( caller == null ) {
+            return;
+        }
+        pushMethodName( caller.methodName );
 
-            // get the stack-element before the last (i.e. us)
-            if( ( offset < e.getStackTrace().length ) && ( offset >= 0 ) ) {
+        // log the method name and arguments
+        if( log.isDebugEnabled() ) {
+            logMethodSignature( methodNames, argumentsValues );
+        }
 
-                // Sometimes, using IBM JRE/JDK, the expected stack trace is changed and at the top
-                // of the StackTrace stack is added one more Class - Throwable. So we have to skip it
-                if( Throwable.class.getName().equals( e.getStackTrace()[0].getClassName() ) ) {
-                    offset++;
-                }
+        getValidationPlan( errMessagePrefix, caller, argumentsValues ).createValidators( argumentsValues,
+                                                                                         this.typeValidators );
+    }
 
-                StackTraceElement stack = e.getStackTrace()[offset];
-                String sClassName = stack.getClassName();
-                pushMethodName( stack.getMethodName() );
-
-                // log the method name and arguments
-                logMethodSignature( methodNames, argumentsValues );
-
-                // find the method
-                Annotation[][] parameterAnnotations;
-                Method matchedMethod;
-                Constructor<?> matchedConstructor;
-                Class<?> targetClass;
-                try {
-                    targetClass = Class.forName( sClassName );
-                    MethodFinder methodFinder = new MethodFinder( targetClass );
-
-                    Class<?>[] parameterTypes = MethodFinder.getParameterTypesFrom( argumentsValues );
-
-                    if( "<init>".equals( methodNames.peek() ) ) {
-                        matchedConstructor = methodFinder.findConstructor( parameterTypes );
-                        parameterAnnotations = matchedConstructor.getParameterAnnotations();
-                    } else {
-                        matchedMethod = methodFinder.findMethod( methodNames.peek(), parameterTypes );
-                        parameterAnnotations = matchedMethod.getParameterAnnotations();
-                    }
-                } catch( ClassNotFoundException cnfe ) {
-                    // throw runtime exception, as this is a fatal error
-                    throw new RuntimeException( errMessagePrefix + "Could not find class '" + sClassName
-                                                + "'", cnfe );
-                } catch( NoSuchMethodException nsme ) {
-                    // throw runtime exception, as this is a fatal error
-                    throw new RuntimeException( errMessagePrefix + "Could not find method '"
-                                                + methodNames.peek() + "'", nsme );
-                } catch( AmbiguousMethodException ame ) {
-                    // throw runtime exception, as this is a fatal error
-                    throw new RuntimeException( errMessagePrefix + "Found ambiguous method '"
-                                                + methodNames.peek() + "'", ame );
-                }
+    /**
+     * Gets the validation plan for the calling method. Unless disabled by the
+     * {@link AtsSystemProperties#CORE__VALIDATION_CACHE_PLANS} property, the plan is built once
+     * for each method and types of passed arguments, and then it is taken from the cache.
+     */
+    private ValidationPlan getValidationPlan( String errMessagePrefix, CallerLocator.Caller caller,
+                                              Object[] argumentsValues ) {
 
-                for( int i = 0; i < parameterAnnotations.length; i++ ) {
-                    Annotation[] currentParamAnnotations = parameterAnnotations[i];
-
-                    for( Annotation currentParamAnnotation : currentParamAnnotations ) {
-                        if( currentParamAnnotation instanceof Validate ) {
-                            // perform validation
-                            Validate validateAnnotation = ( Validate ) currentParamAnnotation;
-
-                            ValidationType validationType = validateAnnotation.type();
-                            // if we are checking for valid constants, then the
-                            // args array should contain
-                            // the name of the array holding the valid constants
-                            if( validationType == ValidationType.STRING_CONSTANT
-                                || validationType == ValidationType.NUMBER_CONSTANT ) {
-                                try {
-                                    String arrayName = validateAnnotation.args()[0];
-
-                                    // get the field and set access level if
-                                    // necessary
-                                    Field arrayField = targetClass.getDeclaredField( arrayName );
-                                    if( !arrayField.isAccessible() ) {
-                                        arrayField.setAccessible( true );
-                                    }
-                                    Object arrayValidConstants = arrayField.get( null );
-
-                                    // convert the object array to string array
-                                    String[] arrayValidConstatnsStr = new String[Array.getLength( arrayValidConstants )];
-                                    for( int j = 0; j < Array.getLength( arrayValidConstants ); j++ ) {
-                                        arrayValidConstatnsStr[j] = Array.get( arrayValidConstants, j )
-                                                                         .toString();
-                                    }
-                                    createBaseTypes( validationType, validateAnnotation.name(),
-                                                     argumentsValues[i], arrayValidConstatnsStr );
-
-                                } catch( IndexOutOfBoundsException iobe ) {
-                                    // throw runtime exception, as this is a
-                                    // fatal error
-                                    throw new RuntimeException( errMessagePrefix
-                                                                + "You need to specify the name of the array with valid constants in the 'args' field of the Validate annotation" );
-                                } catch( Exception e1 ) {
-                                    // throw runtime exception, as this is a
-                                    // fatal error
-                                    throw new RuntimeException( errMessagePrefix
-                                                                + "Could not get array with valid constants" );
-                                }
-                            } else {
-                                createBaseTypes( validationType, validateAnnotation.name(),
-                                                 argumentsValues[i], validateAnnotation.args() );
-                            }
-                        }
-                    }
-                }
-            }
+        Class<?>[] parameterTypes = MethodFinder.getParameterTypesFrom( argumentsValues );
+
+        if( !AtsSystemProperties.getPropertyAsBoolean( AtsSystemProperties.CORE__VALIDATION_CACHE_PLANS,
+                                                       true ) ) {
+            return ValidationPlan.build( errMessagePrefix, caller.className, caller.methodName,
+                                         parameterTypes );
         }
+
+        ValidationPlanKey planKey = new ValidationPlanKey( caller.className, caller.methodName,
+                                                           parameterTypes );
+        ValidationPlan plan = validationPlans.get( planKey );
+        if( plan == null ) {
+            // more than one thread may build the plan for the same method, but the plans are equal,
+            // so it does not matter which one will remain in the cache
+            plan = ValidationPlan.build( errMessagePrefix, caller.className, caller.methodName,
+                                         parameterTypes );
+            validationPlans.put( planKey, plan );
+        }
+        return plan;
     }
 
     /** Logs the signature of the method used for debuging purposes */
@@ -387,34 +326,46 @@ public class Validator {
         log.debug( "START - " + buffer );
     }
 
-    /** Creates as much validation types as needed to validate the input data */
-    private void createBaseTypes( ValidationType type, String paramName, Object values, Object[] args ) {
-
-        // if this is an array of types to be validated, then add each
-        // of them separatly to the list
-        if( ( values != null ) && values.getClass().isArray() ) {
-            for( int i = 0; i < Array.getLength( values ); i++ ) {
-                Object value = Array.get( values, i );
-                TypeFactory factory = TypeFactory.getInstance();
-                BaseType baseType = factory.createValidationType( type, paramName, value, args );
-                this.typeValidators.add( baseType );
+    /**
+     * Identifies a validation plan. The argument types are part of the key, as they are used to find
+     * the method among its overloads. The class names are kept instead of the classes, so the classes
+     * can be unloaded.
+     */
+    private static final class ValidationPlanKey {
+
+        private final String   className;
+        private final String   methodName;
+        private final String[] parameterTypeNames;
+        private final int      hashCode;
+
+        ValidationPlanKey( String className, String methodName, Class<?>[] parameterTypes ) {
+
+            this.className = className;
+            this.methodName = methodName;
+            this.parameterTypeNames = new String[parameterTypes.length];
+            for( int i = 0; i < parameterTypes.length; i++ ) {
+                this.parameterTypeNames[i] = parameterTypes[i].getName();
             }
-            // otherwise just add the single validation type
-        } else {
-            TypeFactory factory = TypeFactory.getInstance();
-
-            String message = new StringBuilder().append( "Validating if parameter with the name of [" )
-                                                .append( paramName )
-                                                .append( "] and value [" )
-                                                .append( values )
-                                                .append( "] is by the type of [" )
-                                                .append( type )
-                                                .append( "]" )
-                                                .toString();
-            log.debug( message );
-
-            BaseType baseType = factory.createValidationType( type, paramName, values, args );
-            this.typeValidators.add( baseType );
+            this.hashCode = 31 * ( 31 * className.hashCode() + methodName.hashCode() )
+                            + Arrays.hashCode( parameterTypeNames );
+        }
+
+        @Override
+        public boolean equals( Object obj ) {
+
+            if( ! ( obj instanceof ValidationPlanKey ) ) {
+                return false;
+            }
+            ValidationPlanKey other = ( ValidationPlanKey ) obj;
+            return hashCode == other.hashCode && className.equals( other.className )
+                   && methodName.equals( other.methodName )
+                   && Arrays.equals( parameterTypeNames, other.parameterTypeNames );
+        }
+
+        @Override
+        public int hashCode() {
+
+            return hashCode;
         }
     }
 }
@@ -28,13 +28,13 @@ import com.axway.ats.core.validation.ValidationType;
  * Created on : Oct 10, 2007
  */
 public class TypeFactory {
-    private static TypeFactory  factory            = null;
-    private static Logger       log                = Logger.getLogger( TypeFactory.class );
-    private static final String UNSUPPORTED_TYPE   = "The factory has encountered an unsupported validation type. ";
-    private static final String ARGUMENTS_REQUIRED = "This validation type requires arguments to be passed. ";
+    private static final TypeFactory factory            = new TypeFactory();
+    private static Logger            log                = Logger.getLogger( TypeFactory.class );
+    private static final String      UNSUPPORTED_TYPE   = "The factory has encountered an unsupported validation type. ";
+    private static final String      ARGUMENTS_REQUIRED = "This validation type requires arguments to be passed. ";
 
-    private static final double LOWEST_PORT        = 0;
-    private static final double HIGHEST_PORT       = 65535;
+    private static final double      LOWEST_PORT        = 0;
+    private static final double      HIGHEST_PORT       = 65535;
 
     /** Default constructor */
     private TypeFactory() {
@@ -43,15 +43,11 @@ public class TypeFactory {
     }
 
     /**
-     * Creates (if nessasary) and returns the current instance of the
-     * validation type factory
+     * Returns the current instance of the validation type factory.
+     * The factory keeps no state, so it is used by many threads without synchronization.
      * @return the current instance of the {@link TypeFactory}
      */
-    public static synchronized TypeFactory getInstance() {
-
-        if( factory == null ) {
-            factory = new TypeFactory();
-        }
+    public static TypeFactory getInstance() {
 
         return factory;
     }
@@ -66,9 +62,9 @@ public class TypeFactory {
      * @param value the value to validate
      * @return the resulting {@link BaseType}
      */
-    public synchronized BaseType createValidationType(
-                                                       ValidationType type,
-                                                       Object value ) {
+    public BaseType createValidationType(
+                                          ValidationType type,
+                                          Object value ) {
 
         return createValidationType( type, null, value, null );
     }
@@ -87,10 +83,10 @@ public class TypeFactory {
      * @param args an {@link Object} array containing the arguments
      * @return the resulting {@link BaseType}
      */
-    public synchronized BaseType createValidationType(
-                                                       ValidationType type,
-                                                       Object value,
-                                                       Object[] args ) {
+    public BaseType createValidationType(
+                                          ValidationType type,
+                                          Object value,
+                                          Object[] args ) {
 
         return createValidationType( type, null, value, args );
     }
@@ -105,10 +101,10 @@ public class TypeFactory {
      * @param value the value to validate
      * @return the resulting {@link BaseType}
      */
-    public synchronized BaseType createValidationType(
-                                                       ValidationType type,
-                                                       String paramName,
-                                                       Object value ) {
+    public BaseType createValidationType(
+                                          ValidationType type,
+                                          String paramName,
+                                          Object value ) {
 
         return createValidationType( type, paramName, value, null );
     }
@@ -127,11 +123,11 @@ public class TypeFactory {
      * @param args an {@link Object} array containing the arguments
      * @return the resulting {@link BaseType}
      */
-    public synchronized BaseType createValidationType(
-                                                       ValidationType type,
-                                                       String paramName,
-                                                       Object value,
-                                                       Object[] args ) {
+    public BaseType createValidationType(
+                                          ValidationType type,
+                                          String paramName,
+                                          Object value,
+                                          Object[] args ) {
 
         if( !this.checkRequirements( type, args ) ) {
             log.error( ARGUMENTS_REQUIRED );
@@ -81,32 +81,19 @@ public class TypeNumber extends TypeObject {
     protected Double extractNumber(
                                     Object val ) {
 
-        double result = 0;
-
-        try {
-            result = Integer.parseInt( val.toString() );
-        } catch( NumberFormatException ex ) {
-            // Do not handle - still could be some other
-            // sort of a number
-        }
-        try {
-            result = Float.parseFloat( val.toString() );
-        } catch( NumberFormatException ex ) {
-            // Do not handle - still could be some other
-            // sort of a number
+        // the common number types are converted directly, any other value is parsed
+        // from its string representation
+        if( val instanceof Double ) {
+            return ( Double ) val;
         }
-        try {
-            result = Long.parseLong( val.toString() );
-        } catch( NumberFormatException ex ) {
-            // Do not handle - still could be some other
-            // sort of a number
+        if( val instanceof Integer || val instanceof Long || val instanceof Short || val instanceof Byte ) {
+            return ( ( Number ) val ).doubleValue();
         }
+
         try {
-            result = Double.parseDouble( val.toString() );
+            return Double.parseDouble( val.toString() );
         } catch( NumberFormatException ex ) {
             return null;
         }
-
-        return new Double( result );
     }
 }
@@ -0,0 +1,460 @@
+/*
+ * Copyright 2017 Axway Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.axway.ats.core.filetransfer;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.axway.ats.common.filetransfer.BulkTransferResult;
+import com.axway.ats.common.filetransfer.BulkTransferResult.SessionStatistics;
+import com.axway.ats.common.filetransfer.FileTransferException;
+import com.axway.ats.core.BaseTest;
+import com.axway.ats.core.filetransfer.model.BulkTransferListener;
+import com.axway.ats.core.filetransfer.model.IBulkFileTransferClient;
+import com.axway.ats.core.filetransfer.model.IFileTransferClient;
+import com.axway.ats.core.filetransfer.model.TransferListener;
+
+/**
+ * Tests the {@link BulkFileTransfer} with clients which copy files between two local directories
+ */
+public class Test_BulkFileTransfer extends BaseTest {
+
+    private File                              testDir;
+    private File                              localDir;
+    private File                              remoteDir;
+
+    // the number of times a file transfer will fail, after transferring a half of the file
+    private final Map<String, AtomicInteger>  failures        = new ConcurrentHashMap<String, AtomicInteger>();
+    private final AtomicInteger               createdSessions = new AtomicInteger();
+    private final AtomicInteger               resumedFiles    = new AtomicInteger();
+
+    @Before
+    public void before() throws IOException {
+
+        testDir = Files.createTempDirectory( "bulk_transfer" ).toFile();
+        localDir = new File( testDir, "local" );
+        remoteDir = new File( testDir, "remote" );
+        localDir.mkdir();
+        remoteDir.mkdir();
+    }
+
+    @After
+    public void after() {
+
+        delete( testDir );
+    }
+
+    @Test
+    public void uploadDirectoryTree() throws IOException {
+
+        createFiles( localDir, "a.txt", "b.log", "sub/c.txt", "sub/deeper/d.txt", "other/e.bin" );
+
+        RecordingListener listener = new RecordingListener();
+        BulkFileTransfer transfer = new BulkFileTransfer( new LocalSessionFactory( true ), 3, 0 );
+        transfer.setListener( listener );
+        BulkTransferResult result = transfer.upload( localDir.getPath(), remoteDir.getPath(), null );
+
+        assertSameFiles( localDir, remoteDir, "a.txt", "b.log", "sub/c.txt", "sub/deeper/d.txt",
+                         "other/e.bin" );
+        Assert.assertEquals( 5, result.getNumberFiles() );
+        Assert.assertEquals( 5, result.getNumberTransferredFiles() );
+        Assert.assertEquals( totalSize( localDir ), result.getNumberBytes() );
+        Assert.assertTrue( result.getFailedFiles().isEmpty() );
+        Assert.assertEquals( 3, result.getSessions().size() );
+        // a session is opened only if there are still files to transfer when its thread starts
+        Assert.assertTrue( createdSessions.get() <= 3 );
+
+        Assert.assertEquals( 5, listener.startedFiles );
+        Assert.assertEquals( totalSize( localDir ), listener.startedBytes );
+        Assert.assertEquals( 5, listener.transferredFiles.size() );
+        Assert.assertTrue( listener.failedFiles.isEmpty() );
+        Assert.assertSame( result, listener.result );
+    }
+
+    @Test
+    public void uploadWithGlob() throws IOException {
+
+        createFiles( localDir, "a.txt", "b.log", "sub/c.txt", "sub/deeper/d.txt", "other/e.bin" );
+
+        // a pattern without '/' is matched against the file names
+        BulkTransferResult result = new BulkFileTransfer( new LocalSessionFactory( true ), 2, 0 ).upload( localDir.getPath(),
+                                                                                                          remoteDir.getPath(),
+                                                                                                          "*.txt" );
+        Assert.assertEquals( 3, result.getNumberTransferredFiles() );
+        assertSameFiles( localDir, remoteDir, "a.txt", "sub/c.txt", "sub/deeper/d.txt" );
+        Assert.assertFalse( new File( remoteDir, "b.log" ).exists() );
+        Assert.assertFalse( new File( remoteDir, "other" ).exists() );
+
+        // a pattern with '/' is matched against the relative paths
+        delete( remoteDir );
+        remoteDir.mkdir();
+        result = new BulkFileTransfer( new LocalSessionFactory( true ), 2, 0 ).upload( localDir.getPath(),
+                                                                                       remoteDir.getPath(),
+                                                                                       "sub/**" );
+        Assert.assertEquals( 2, result.getNumberTransferredFiles() );
+        assertSameFiles( localDir, remoteDir, "sub/c.txt", "sub/deeper/d.txt" );
+        Assert.assertFalse( new File( remoteDir, "a.txt" ).exists() );
+    }
+
+    @Test
+    public void retryResumesPartialUpload() throws IOException {
+
+        createFiles( localDir, "a.txt", "big.bin", "sub/c.txt" );
+        failures.put( "big.bin", new AtomicInteger( 2 ) );
+
+        RecordingListener listener = new RecordingListener();
+        BulkFileTransfer transfer = new BulkFileTransfer( new LocalSessionFactory( true ), 2, 2 );
+        transfer.setListener( listener );
+        BulkTransferResult result = transfer.upload( localDir.getPath(), remoteDir.getPath(), null );
+
+        assertSameFiles( localDir, remoteDir, "a.txt", "big.bin", "sub/c.txt" );
+        Assert.assertTrue( result.getFailedFiles().isEmpty() );
+        Assert.assertEquals( 2, resumedFiles.get() );
+        Assert.assertEquals( 2, numberRetries( result ) );
+        Assert.assertEquals( Arrays.asList( "big.bin:true", "big.bin:true" ), listener.failedFiles );
+    }
+
+    @Test
+    public void retryWithoutResumeSupport() throws IOException {
+
+        createFiles( localDir, "a.txt", "big.bin" );
+        failures.put( "big.bin", new AtomicInteger( 1 ) );
+
+        BulkTransferResult result = new BulkFileTransfer( new LocalSessionFactory( false ), 1, 1 ).upload( localDir.getPath(),
+                                                                                                           remoteDir.getPath(),
+                                                                                                           null );
+
+        assertSameFiles( localDir, remoteDir, "a.txt", "big.bin" );
+        Assert.assertTrue( result.getFailedFiles().isEmpty() );
+        Assert.assertEquals( 0, resumedFiles.get() );
+        Assert.assertEquals( 1, numberRetries( result ) );
+        // the failed session is replaced with a new one
+        Assert.assertEquals( 2, createdSessions.get() );
+    }
+
+    @Test
+    public void permanentFailureIsReported() throws IOException {
+
+        createFiles( localDir, "a.txt", "big.bin", "sub/c.txt" );
+        failures.put( "big.bin", new AtomicInteger( 10 ) );
+
+        RecordingListener listener = new RecordingListener();
+        BulkFileTransfer transfer = new BulkFileTransfer( new LocalSessionFactory( true ), 2, 1 );
+        transfer.setListener( listener );
+        BulkTransferResult result = transfer.upload( localDir.getPath(), remoteDir.getPath(), null );
+
+        assertSameFiles( localDir, remoteDir, "a.txt", "sub/c.txt" );
+        Assert.assertEquals( 3, result.getNumberFiles() );
+        Assert.assertEquals( 2, result.getNumberTransferredFiles() );
+        Assert.assertEquals( Collections.singleton( "big.bin" ), result.getFailedFiles().keySet() );
+        Assert.assertEquals( Arrays.asList( "big.bin:true", "big.bin:false" ), listener.failedFiles );
+        Assert.assertSame( result, listener.result );
+    }
+
+    @Test
+    public void downloadDirectoryTree() throws IOException {
+
+        createFiles( remoteDir, "a.txt", "b.log", "sub/c.txt", "sub/deeper/d.txt" );
+        failures.put( "d.txt", new AtomicInteger( 1 ) );
+
+        RecordingListener listener = new RecordingListener();
+        BulkFileTransfer transfer = new BulkFileTransfer( new LocalSessionFactory( true ), 4, 1 );
+        transfer.setListener( listener );
+        File downloadDir = new File( localDir, "downloaded" );
+        BulkTransferResult result = transfer.download( downloadDir.getPath(), remoteDir.getPath(), "**.txt" );
+
+        assertSameFiles( remoteDir, downloadDir, "a.txt", "sub/c.txt", "sub/deeper/d.txt" );
+        Assert.assertFalse( new File( downloadDir, "b.log" ).exists() );
+        Assert.assertEquals( 3, result.getNumberTransferredFiles() );
+        Assert.assertEquals( 1, resumedFiles.get() );
+        Assert.assertEquals( 3, listener.startedFiles );
+        Assert.assertEquals( -1, listener.startedBytes );
+    }
+
+    @Test(expected = FileTransferException.class)
+    public void downloadNeedsListingSupport() {
+
+        new BulkFileTransfer( new LocalSessionFactory( false ), 2, 0 ).download( localDir.getPath(),
+                                                                                 remoteDir.getPath(), null );
+    }
+
+    @Test
+    public void emptyDirectory() {
+
+        BulkTransferResult result = new BulkFileTransfer( new LocalSessionFactory( true ), 4, 0 ).upload( localDir.getPath(),
+                                                                                                          remoteDir.getPath(),
+                                                                                                          null );
+        Assert.assertEquals( 0, result.getNumberFiles() );
+        Assert.assertEquals( 1, createdSessions.get() );
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidNumberSessions() {
+
+        new BulkFileTransfer( new LocalSessionFactory( true ), 0, 0 );
+    }
+
+    private static int numberRetries( BulkTransferResult result ) {
+
+        int retries = 0;
+        for( SessionStatistics session : result.getSessions() ) {
+            retries += session.getNumberRetries();
+        }
+        return retries;
+    }
+
+    private static void createFiles( File dir, String... files ) throws IOException {
+
+        for( int i = 0; i < files.length; i++ ) {
+            File file = new File( dir, files[i] );
+            file.getParentFile().mkdirs();
+            StringBuilder content = new StringBuilder();
+            for( int line = 0; line < ( i + 1 ) * 100; line++ ) {
+                content.append( files[i] ).append( " line " ).append( line ).append( '\n' );
+            }
+            Files.write( file.toPath(), content.toString().getBytes( "UTF-8" ) );
+        }
+    }
+
+    private static void assertSameFiles( File sourceDir, File targetDir, String... files ) throws IOException {
+
+        for( String file : files ) {
+            Assert.assertArrayEquals( file, Files.readAllBytes( new File( sourceDir, file ).toPath() ),
+                                      Files.readAllBytes( new File( targetDir, file ).toPath() ) );
+        }
+    }
+
+    private static long totalSize( File dir ) {
+
+        long size = 0;
+        for( File file : dir.listFiles() ) {
+            size += file.isDirectory()
+                                       ? totalSize( file )
+                                       : file.length();
+        }
+        return size;
+    }
+
+    private static void delete( File file ) {
+
+        File[] children = file.listFiles();
+        if( children != null ) {
+            for( File child : children ) {
+                delete( child );
+            }
+        }
+        file.delete();
+    }
+
+    private class LocalSessionFactory implements BulkFileTransfer.SessionFactory {
+
+        private final boolean bulkClient;
+
+        LocalSessionFactory( boolean bulkClient ) {
+
+            this.bulkClient = bulkClient;
+        }
+
+        @Override
+        public IFileTransferClient createSession() throws FileTransferException {
+
+            createdSessions.incrementAndGet();
+            return bulkClient
+                              ? new LocalBulkClient()
+                              : new LocalClient();
+        }
+    }
+
+    /**
+     * Copies files between local directories, the remote directories are local directories as well
+     */
+    private class LocalClient extends AbstractFileTransferClient {
+
+        private boolean connected = true;
+
+        @Override
+        protected void performUploadFile( String localFile, String remoteDir,
+                                          String remoteFile ) throws FileTransferException {
+
+            copy( new File( localFile ), new File( remoteDir, remoteFile ), false );
+        }
+
+        @Override
+        protected void performDownloadFile( String localFile, String remoteDir,
+                                            String remoteFile ) throws FileTransferException {
+
+            copy( new File( remoteDir, remoteFile ), new File( localFile ), false );
+        }
+
+        /**
+         * Copy a file, the transfer fails in the middle of the file if a failure is expected
+         */
+        protected void copy( File source, File target, boolean resume ) {
+
+            Assert.assertTrue( "The session is disconnected", connected );
+            try {
+                byte[] content = Files.readAllBytes( source.toPath() );
+                int offset = resume
+                                    ? ( int ) target.length()
+                                    : 0;
+                int end = content.length;
+
+                AtomicInteger remainingFailures = failures.get( source.getName() );
+                boolean fail = remainingFailures != null && remainingFailures.getAndDecrement() > 0;
+                if( fail ) {
+                    end = offset + ( end - offset ) / 2;
+                }
+
+                RandomAccessFile file = new RandomAccessFile( target, "rw" );
+                try {
+                    file.setLength( offset );
+                    file.seek( offset );
+                    file.write( content, offset, end - offset );
+                } finally {
+                    file.close();
+                }
+
+                if( fail ) {
+                    throw new FileTransferException( "Connection lost while transferring " + source );
+                }
+            } catch( IOException e ) {
+                throw new FileTransferException( e );
+            }
+        }
+
+        @Override
+        public void connect( String hostname, String userName,
+                             String password ) throws FileTransferException {
+
+        }
+
+        @Override
+        public void connect( String hostname, String keystoreFile, String keystorePassword,
+                             String publicKeyAlias ) throws FileTransferException {
+
+        }
+
+        @Override
+        public void disconnect() throws FileTransferException {
+
+            connected = false;
+        }
+
+        @Override
+        public String executeCommand( String command ) throws FileTransferException {
+
+            throw new FileTransferException( "Not implemented" );
+        }
+
+        @Override
+        protected TransferListener addListener( int progressEventNumber ) {
+
+            return null;
+        }
+
+        @Override
+        protected void removeListener( TransferListener listener ) {
+
+        }
+    }
+
+    private class LocalBulkClient extends LocalClient implements IBulkFileTransferClient {
+
+        @Override
+        public void createRemoteDirectory( String remoteDir ) throws FileTransferException {
+
+            File dir = new File( remoteDir );
+            Assert.assertTrue( "The parent of " + remoteDir + " must exist", dir.getParentFile().isDirectory() );
+            dir.mkdir();
+        }
+
+        @Override
+        public List<String> listRemoteDirectory( String remoteDir ) throws FileTransferException {
+
+            List<String> names = new ArrayList<String>();
+            for( File file : new File( remoteDir ).listFiles() ) {
+                names.add( file.isDirectory()
+                                              ? file.getName() + "/"
+                                              : file.getName() );
+            }
+            return names;
+        }
+
+        @Override
+        public void resumeUploadFile( String localFile, String remoteDir,
+                                      String remoteFile ) throws FileTransferException {
+
+            resumedFiles.incrementAndGet();
+            copy( new File( localFile ), new File( remoteDir, remoteFile ), true );
+        }
+
+        @Override
+        public void resumeDownloadFile( String localFile, String remoteDir,
+                                        String remoteFile ) throws FileTransferException {
+
+            resumedFiles.incrementAndGet();
+            copy( new File( remoteDir, remoteFile ), new File( localFile ), true );
+        }
+    }
+
+    private static class RecordingListener implements BulkTransferListener {
+
+        private int                startedFiles;
+        private long               startedBytes;
+        private final List<String> transferredFiles = Collections.synchronizedList( new ArrayList<String>() );
+        private final List<String> failedFiles      = Collections.synchronizedList( new ArrayList<String>() );
+        private BulkTransferResult result;
+
+        @Override
+        public void transferStarted( int numberFiles, long numberBytes ) {
+
+            this.startedFiles = numberFiles;
+            this.startedBytes = numberBytes;
+        }
+
+        @Override
+        public void fileTransferred( String file, long numberBytes, int sessionIndex ) {
+
+            transferredFiles.add( file );
+        }
+
+        @Override
+        public void fileFailed( String file, Exception error, boolean willRetry, int sessionIndex ) {
+
+            failedFiles.add( file + ":" + willRetry );
+        }
+
+        @Override
+        public void transferFinished( BulkTransferResult result ) {
+
+            this.result = result;
+        }
+    }
+}
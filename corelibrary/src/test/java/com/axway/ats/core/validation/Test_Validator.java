@@ -15,9 +15,13 @@
  */
 package com.axway.ats.core.validation;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
 import org.junit.Before;
 import org.junit.Test;
 
+import com.axway.ats.common.systemproperties.AtsSystemProperties;
 import com.axway.ats.core.BaseTest;
 import com.axway.ats.core.validation.Validate;
 import com.axway.ats.core.validation.ValidationType;
@@ -33,6 +37,9 @@ public class Test_Validator extends BaseTest {
 
     private static final String[]  SPAMISH_TYPES          = { "uno", "dos", "tres" };
 
+    // changed by the test checking the plans cache
+    private static final String[]  CHANGING_TYPES         = { "uno" };
+
     /** Valid test data */
     private static final String    EXISTING_FILE_NAME     = "src/test/resources/validation/file.txt"; // TODO change as for ANT the CWD is project root
     private static final Object    NUMBER_IN_RANGE        = new Double( 1 );
@@ -162,4 +169,113 @@ public class Test_Validator extends BaseTest {
 
         this.validator.validateMethodParameters( new Object[]{ spamish } );
     }
+
+    /**
+     * The plan of a method is built once, so later changes of the valid constants are seen
+     * only when the plans cache is disabled
+     * @throws Exception
+     */
+    @Test
+    public void testValidatorPlanCache() throws Exception {
+
+        CHANGING_TYPES[0] = "uno";
+        testMethodChangingConstants( "uno" );
+
+        CHANGING_TYPES[0] = "dos";
+        // the cached plan still has the previous valid constants
+        testMethodChangingConstants( "uno" );
+
+        System.setProperty( AtsSystemProperties.CORE__VALIDATION_CACHE_PLANS, "false" );
+        try {
+            testMethodChangingConstants( "dos" );
+            try {
+                testMethodChangingConstants( "uno" );
+                fail( "The validation plan was not built again" );
+            } catch( InvalidInputArgumentsException e ) {
+                // expected
+            }
+        } finally {
+            System.clearProperty( AtsSystemProperties.CORE__VALIDATION_CACHE_PLANS );
+        }
+    }
+
+    /**
+     * Overloaded methods are validated according to their own annotations
+     * @throws Exception
+     */
+    @Test
+    public void testValidatorOverloadedMethods() throws Exception {
+
+        testOverloadedMethod( "text" );
+        testOverloadedMethod( 1 );
+
+        try {
+            testOverloadedMethod( "" );
+            fail( "The string parameter was not validated" );
+        } catch( InvalidInputArgumentsException e ) {
+            // expected
+        }
+        try {
+            testOverloadedMethod( -1 );
+            fail( "The number parameter was not validated" );
+        } catch( InvalidInputArgumentsException e ) {
+            // expected
+        }
+    }
+
+    /**
+     * Checks constructor arguments validation
+     * @throws Exception
+     */
+    @Test
+    public void testValidatorConstructor() throws Exception {
+
+        new ValidatedConstructor( "text" );
+        try {
+            new ValidatedConstructor( "" );
+            fail( "The constructor parameter was not validated" );
+        } catch( InvalidInputArgumentsException e ) {
+            // expected
+        }
+    }
+
+    /**
+     * Checks the calling method is properly found
+     * @throws Exception
+     */
+    @Test
+    public void testCallerLocator() throws Exception {
+
+        CallerLocator.Caller caller = CallerLocator.getCaller( 0 );
+
+        assertEquals( Test_Validator.class.getName(), caller.className );
+        assertEquals( "testCallerLocator", caller.methodName );
+        assertEquals( null, CallerLocator.getCaller( 10000 ) );
+    }
+
+    private void testMethodChangingConstants(
+                                              @Validate(name = "changing", type = ValidationType.STRING_CONSTANT, args = { "CHANGING_TYPES" }) String changing ) {
+
+        this.validator.validateMethodParameters( new Object[]{ changing } );
+    }
+
+    private void testOverloadedMethod(
+                                       @Validate(name = "text", type = ValidationType.STRING_NOT_EMPTY) String text ) {
+
+        this.validator.validateMethodParameters( new Object[]{ text } );
+    }
+
+    private void testOverloadedMethod(
+                                       @Validate(name = "number", type = ValidationType.NUMBER_POSITIVE) Integer number ) {
+
+        this.validator.validateMethodParameters( new Object[]{ number } );
+    }
+
+    private static class ValidatedConstructor {
+
+        ValidatedConstructor( @Validate(name = "text", type = ValidationType.STRING_NOT_EMPTY) String text ) {
+
+            new Validator().validateMethodParameters( new Object[]{ text } );
+        }
+    }
 }
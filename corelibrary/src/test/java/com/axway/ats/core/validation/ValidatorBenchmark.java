@@ -0,0 +1,224 @@
+/*
+ * Copyright 2017 Axway Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.axway.ats.core.validation;
+
+import java.lang.annotation.Annotation;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import com.axway.ats.common.systemproperties.AtsSystemProperties;
+import com.axway.ats.core.reflect.MethodFinder;
+import com.axway.ats.core.validation.exceptions.TypeException;
+import com.axway.ats.core.validation.types.BaseType;
+import com.axway.ats.core.validation.types.TypeFactory;
+
+/**
+ * Standalone benchmark for validating method parameters with the {@link Validator}.
+ *
+ * It compares validating with cached validation plans, with plans built on each call and the previous
+ * implementation, which got the caller from the stack trace of a thrown exception and found the
+ * validated method on each call. The validated method is called from a deep stack, as it happens when
+ * the action libraries are used from a test framework.
+ *
+ * Usage: ValidatorBenchmark [number threads] [number calls per thread] [stack depth]
+ *
+ * The defaults are 8 threads, 100000 calls per thread and a stack depth of 60 frames.
+ * It is not a unit test, so it is not run during the build.
+ */
+public class ValidatorBenchmark {
+
+    private static final int      ROUNDS      = 5;
+
+    private static final String[] VALID_MODES = { "ascii", "binary" };
+
+    public static void main( String[] args ) throws Exception {
+
+        int numberThreads = args.length > 0
+                                            ? Integer.parseInt( args[0] )
+                                            : 8;
+        int numberCalls = args.length > 1
+                                          ? Integer.parseInt( args[1] )
+                                          : 100000;
+        int stackDepth = args.length > 2
+                                         ? Integer.parseInt( args[2] )
+                                         : 60;
+
+        System.out.println( "Validating " + numberCalls + " calls per thread from a stack of " + stackDepth
+                            + " frames on Java " + System.getProperty( "java.version" ) );
+
+        // the modes are alternated, so they are equally affected by the JIT compilation
+        for( int round = 1; round <= ROUNDS; round++ ) {
+            System.out.println( "Round " + round + ":" );
+            for( int threads : new int[]{ 1, numberThreads } ) {
+                System.clearProperty( AtsSystemProperties.CORE__VALIDATION_CACHE_PLANS );
+                run( "cached plans", new ValidatorCall(), threads, numberCalls, stackDepth );
+
+                System.setProperty( AtsSystemProperties.CORE__VALIDATION_CACHE_PLANS, "false" );
+                run( "plan on each call", new ValidatorCall(), threads, numberCalls, stackDepth );
+
+                run( "previous validator", new LegacyCall(), threads, numberCalls, stackDepth );
+            }
+        }
+        System.clearProperty( AtsSystemProperties.CORE__VALIDATION_CACHE_PLANS );
+    }
+
+    private static void run( String modeName, final ValidatedCall call, int numberThreads,
+                             final int numberCalls, final int stackDepth ) throws Exception {
+
+        final CountDownLatch startGate = new CountDownLatch( 1 );
+        final CountDownLatch endGate = new CountDownLatch( numberThreads );
+
+        ExecutorService executor = Executors.newFixedThreadPool( numberThreads );
+        for( int i = 0; i < numberThreads; i++ ) {
+            executor.execute( new Runnable() {
+
+                @Override
+                public void run() {
+
+                    try {
+                        startGate.await();
+                        callFromDepth( call, numberCalls, stackDepth );
+                    } catch( InterruptedException e ) {
+                        Thread.currentThread().interrupt();
+                    } finally {
+                        endGate.countDown();
+                    }
+                }
+            } );
+        }
+
+        long startTime = System.nanoTime();
+        startGate.countDown();
+        endGate.await();
+        long totalNanos = System.nanoTime() - startTime;
+
+        executor.shutdown();
+        executor.awaitTermination( 1, TimeUnit.MINUTES );
+
+        long totalCalls = ( long ) numberThreads * numberCalls;
+        System.out.println( String.format( "  %-20s %3d threads: %,12.0f calls/sec, %,8.2f us per call",
+                                           modeName, numberThreads, totalCalls * 1000000000D / totalNanos,
+                                           totalNanos / 1000D / numberCalls ) );
+    }
+
+    private static void callFromDepth( ValidatedCall call, int numberCalls, int depth ) {
+
+        if( depth > 0 ) {
+            callFromDepth( call, numberCalls, depth - 1 );
+        } else {
+            for( int i = 0; i < numberCalls; i++ ) {
+                call.call( "localhost", 8080 + ( i & 0xFF ), VALID_MODES[i & 1] );
+            }
+        }
+    }
+
+    // the validated methods are searched among the public methods, so they are public
+    public interface ValidatedCall {
+
+        void call( String host, Integer port, String mode );
+    }
+
+    public static class ValidatorCall implements ValidatedCall {
+
+        @SuppressWarnings("unused")
+        private static final String[] VALID_MODES = ValidatorBenchmark.VALID_MODES;
+
+        @Override
+        public void call(
+                          @Validate(name = "host", type = ValidationType.STRING_NOT_EMPTY) String host,
+                          @Validate(name = "port", type = ValidationType.NUMBER_PORT_NUMBER) Integer port,
+                          @Validate(name = "mode", type = ValidationType.STRING_CONSTANT, args = { "VALID_MODES" }) String mode ) {
+
+            new Validator().validateMethodParameters( new Object[]{ host, port, mode } );
+        }
+    }
+
+    public static class LegacyCall implements ValidatedCall {
+
+        @SuppressWarnings("unused")
+        private static final String[] VALID_MODES = ValidatorBenchmark.VALID_MODES;
+
+        @Override
+        public void call(
+                          @Validate(name = "host", type = ValidationType.STRING_NOT_EMPTY) String host,
+                          @Validate(name = "port", type = ValidationType.NUMBER_PORT_NUMBER) Integer port,
+                          @Validate(name = "mode", type = ValidationType.STRING_CONSTANT, args = { "VALID_MODES" }) String mode ) {
+
+            new LegacyValidator().validateMethodParameters( new Object[]{ host, port, mode } );
+        }
+    }
+
+    /**
+     * The main steps of the previous Validator implementation, kept here for comparison.
+     * Unlike it, the method signature is not logged and the current validation types are used.
+     */
+    private static class LegacyValidator {
+
+        private final List<BaseType> typeValidators = new ArrayList<BaseType>();
+
+        void validateMethodParameters( Object[] argumentsValues ) {
+
+            init( argumentsValues, 2 );
+
+            for( BaseType type : typeValidators ) {
+                try {
+                    type.validate();
+                } catch( TypeException e ) {
+                    throw new IllegalArgumentException( e );
+                }
+            }
+        }
+
+        private void init( Object[] argumentsValues, int offset ) {
+
+            try {
+                throw new Exception( "Stack Trace" );
+            } catch( Exception e ) {
+                StackTraceElement stack = e.getStackTrace()[offset];
+                try {
+                    Class<?> targetClass = Class.forName( stack.getClassName() );
+                    Annotation[][] parameterAnnotations = new MethodFinder( targetClass ).findMethod( stack.getMethodName(),
+                                                                                                     MethodFinder.getParameterTypesFrom( argumentsValues ) )
+                                                                                         .getParameterAnnotations();
+                    for( int i = 0; i < parameterAnnotations.length; i++ ) {
+                        for( Annotation annotation : parameterAnnotations[i] ) {
+                            if( annotation instanceof Validate ) {
+                                Validate validate = ( Validate ) annotation;
+                                Object[] args = validate.args();
+                                if( validate.type() == ValidationType.STRING_CONSTANT ) {
+                                    java.lang.reflect.Field field = targetClass.getDeclaredField( args[0].toString() );
+                                    field.setAccessible( true );
+                                    args = ( Object[] ) field.get( null );
+                                }
+                                typeValidators.add( TypeFactory.getInstance()
+                                                               .createValidationType( validate.type(),
+                                                                                      validate.name(),
+                                                                                      argumentsValues[i],
+                                                                                      args ) );
+                            }
+                        }
+                    }
+                } catch( Exception e1 ) {
+                    throw new RuntimeException( e1 );
+                }
+            }
+        }
+    }
+}
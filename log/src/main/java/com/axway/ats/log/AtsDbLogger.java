@@ -677,6 +677,35 @@ public class AtsDbLogger {
                                               result ) );
     }
 
+    /**
+     * Directly insert a checkpoint, which is measured with nanosecond precision.
+     * The response time is kept in milliseconds, truncated as for the other checkpoints,
+     * but the checkpoint histograms keep it in microseconds.
+     *
+     * @param name the name of the checkpoint
+     * @param startTimestamp the start time in milliseconds since the epoch
+     * @param responseTimeNanos the response time in nanoseconds
+     */
+    public void insertHighPrecisionCheckpoint(
+                                               String name,
+                                               long startTimestamp,
+                                               long responseTimeNanos,
+                                               long transferSize,
+                                               String transferUnit,
+                                               CheckpointResult result ) {
+
+        sendEvent( new InsertCheckpointEvent( ATS_DB_LOGGER_CLASS_NAME,
+                                              logger,
+                                              name,
+                                              startTimestamp,
+                                              responseTimeNanos / 1000000,
+                                              responseTimeNanos / 1000,
+                                              transferSize,
+                                              transferUnit,
+                                              Thread.currentThread().getName(),
+                                              result ) );
+    }
+
     /**
      * Insert system statistics identified by their DB IDs
      *
@@ -699,6 +728,29 @@ public class AtsDbLogger {
                                                    timestamp ) );
     }
 
+    /**
+     * Insert system statistics identified by their DB IDs. This is much faster than
+     * passing the statistics as strings, as they are inserted with a few multi-row statements.
+     *
+     * @param monitoredMachine the monitored machine
+     * @param statisticIds the statistics' DB IDs
+     * @param statisticValues the statistics' values
+     * @param timestamp the timestamp
+     */
+    public void insertSystemStatistcs(
+                                       String monitoredMachine,
+                                       int[] statisticIds,
+                                       float[] statisticValues,
+                                       long timestamp ) {
+
+        sendEvent( new InsertSystemStatisticEvent( ATS_DB_LOGGER_CLASS_NAME,
+                                                   logger,
+                                                   monitoredMachine,
+                                                   statisticIds,
+                                                   statisticValues,
+                                                   timestamp ) );
+    }
+
     /**
      * Join to an existing test case
      *
@@ -16,23 +16,39 @@
 
 package com.axway.ats.log.appenders;
 
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Date;
 import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.log4j.AppenderSkeleton;
 import org.apache.log4j.Layout;
+import org.apache.log4j.Level;
+import org.apache.log4j.helpers.LogLog;
+import org.apache.log4j.spi.Filter;
+import org.apache.log4j.spi.LoggingEvent;
 
 import com.axway.ats.common.systemproperties.AtsSystemProperties;
 import com.axway.ats.core.utils.TimeUtils;
 import com.axway.ats.log.autodb.DbAppenderConfiguration;
 import com.axway.ats.log.autodb.DbEventRequestProcessor;
 import com.axway.ats.log.autodb.LogEventRequest;
+import com.axway.ats.log.autodb.PipelineQueueLoggerThread;
 import com.axway.ats.log.autodb.QueueLoggerThread;
+import com.axway.ats.log.autodb.RingBufferEventsQueue;
 import com.axway.ats.log.autodb.TestCaseState;
 import com.axway.ats.log.autodb.events.GetCurrentTestCaseEvent;
+import com.axway.ats.log.autodb.events.InsertMessageEvent;
 import com.axway.ats.log.autodb.exceptions.DatabaseAccessException;
 import com.axway.ats.log.autodb.exceptions.DbAppenederException;
 import com.axway.ats.log.autodb.exceptions.InvalidAppenderConfigurationException;
+import com.axway.ats.log.autodb.model.AbstractLoggingEvent;
 import com.axway.ats.log.autodb.model.EventRequestProcessorListener;
+import com.axway.ats.log.autodb.model.QueueOverflowPolicy;
 
 /**
  * This appender is capable of arranging the database storage and storing messages into it.
@@ -43,7 +59,7 @@ public abstract class AbstractDbAppender extends AppenderSkeleton {
     /**
      * The appender's data for the current thread
      */
-    protected ArrayBlockingQueue<LogEventRequest> queue;
+    protected BlockingQueue<LogEventRequest>      queue;
 
     /**
      * the logger thread
@@ -73,6 +89,19 @@ public abstract class AbstractDbAppender extends AppenderSkeleton {
     private boolean                               isMonitoringEventsQueue;
     private long                                  lastQueueCapacityTick;
 
+    /**
+     * What to do when the events queue is full and how many times it happened
+     */
+    protected QueueOverflowPolicy                 overflowPolicy;
+    private final AtomicLong                      numberBlockedEvents  = new AtomicLong();
+    private final AtomicLong                      numberDroppedEvents  = new AtomicLong();
+    private final AtomicLong                      numberSpilledEvents  = new AtomicLong();
+
+    /**
+     * The local file with the messages which did not fit in the events queue
+     */
+    private PrintWriter                           spillFileWriter;
+
     /**
      * Constructor
      */
@@ -107,7 +136,12 @@ public abstract class AbstractDbAppender extends AppenderSkeleton {
         appenderConfig.setLoggingThreshold( getThreshold() );
 
         //the logging queue
-        queue = new ArrayBlockingQueue<LogEventRequest>( getMaxNumberLogEvents() );
+        if( appenderConfig.isRingBufferQueue() ) {
+            queue = new RingBufferEventsQueue<LogEventRequest>( getMaxNumberLogEvents() );
+        } else {
+            queue = new ArrayBlockingQueue<LogEventRequest>( getMaxNumberLogEvents() );
+        }
+        overflowPolicy = appenderConfig.getQueueOverflowPolicy();
 
         // enable batch mode at ATS Agent side only
         boolean isWorkingAtAgentSide = this instanceof PassiveDbAppender;
@@ -125,11 +159,78 @@ public abstract class AbstractDbAppender extends AppenderSkeleton {
         }
 
         //start the logging thread
-        queueLogger = new QueueLoggerThread( queue, eventProcessor, isBatchMode );
+        if( appenderConfig.getNumberWorkers() > 0 ) {
+            try {
+                queueLogger = new PipelineQueueLoggerThread( queue, eventProcessor, appenderConfig,
+                                                             isBatchMode );
+            } catch( DatabaseAccessException e ) {
+                throw new RuntimeException( "Unable to create DB logging workers", e );
+            }
+        } else {
+            queueLogger = new QueueLoggerThread( queue, eventProcessor, isBatchMode );
+        }
         queueLogger.setDaemon( true );
         queueLogger.start();
     }
 
+    /**
+     * The log4j implementation of this method is synchronized, so all logging threads
+     * would pass one by one through it. When the lock-free ring buffer is used, the messages, checkpoints
+     * and statistics are passed to the queue without that lock. The rest of the events change the state
+     * of the appender, so they are still appended one by one.
+     */
+    @Override
+    public void doAppend( LoggingEvent event ) {
+
+        if( ! ( queue instanceof RingBufferEventsQueue ) || !isQueuedOnlyEvent( event ) ) {
+            super.doAppend( event );
+            return;
+        }
+
+        // the same checks as in the log4j implementation
+        if( closed ) {
+            LogLog.error( "Attempted to append to closed appender named [" + name + "]." );
+            return;
+        }
+        if( !isAsSevereAsThreshold( event.getLevel() ) ) {
+            return;
+        }
+        Filter filter = getFirstFilter();
+        while( filter != null ) {
+            int decision = filter.decide( event );
+            if( decision == Filter.DENY ) {
+                return;
+            } else if( decision == Filter.ACCEPT ) {
+                break;
+            }
+            filter = filter.getNext();
+        }
+
+        append( event );
+    }
+
+    /**
+     * @param event the logging event
+     * @return whether the event is only passed to the queue, without changing the state of this appender
+     */
+    private boolean isQueuedOnlyEvent( LoggingEvent event ) {
+
+        if( ! ( event instanceof AbstractLoggingEvent ) ) {
+            return true;
+        }
+
+        switch( ( ( AbstractLoggingEvent ) event ).getEventType() ){
+            case INSERT_MESSAGE:
+            case START_CHECKPOINT:
+            case END_CHECKPOINT:
+            case INSERT_CHECKPOINT:
+            case INSERT_SYSTEM_STAT:
+                return true;
+            default:
+                return false;
+        }
+    }
+
     protected void passEventToLoggerQueue( LogEventRequest packedEvent ) {
 
         if( isMonitoringEventsQueue ) {
@@ -137,14 +238,32 @@ public abstract class AbstractDbAppender extends AppenderSkeleton {
             // Do this every second.
             long newTick = System.currentTimeMillis();
             if( newTick - lastQueueCapacityTick > 1000 ) {
-                System.out.println( TimeUtils.getFormattedDateTillMilliseconds()
-                                    + " Remaining queue capacity is " + queue.remainingCapacity() );
+                StringBuilder queueState = new StringBuilder( TimeUtils.getFormattedDateTillMilliseconds() );
+                queueState.append( " Remaining queue capacity is " ).append( queue.remainingCapacity() );
+                if( queue instanceof RingBufferEventsQueue ) {
+                    RingBufferEventsQueue<LogEventRequest> ringBuffer = ( RingBufferEventsQueue<LogEventRequest> ) queue;
+                    queueState.append( ", maximum occupancy is " )
+                              .append( ringBuffer.getMaxOccupancy() )
+                              .append( ", producers waited " )
+                              .append( ringBuffer.getProducerWaits() )
+                              .append( " times for " )
+                              .append( ringBuffer.getProducerWaitNanos() / 1000000 )
+                              .append( " ms" );
+                }
+                System.out.println( queueState.toString() );
                 lastQueueCapacityTick = newTick;
             }
         }
 
         // this thread passes the events to the queue,
         // while another thread is reading them on the other side
+        if( overflowPolicy != QueueOverflowPolicy.FAIL ) {
+            if( !queue.offer( packedEvent ) ) {
+                handleQueueOverflow( packedEvent );
+            }
+            return;
+        }
+
         try {
             queue.add( packedEvent );
         } catch( IllegalStateException ex ) {
@@ -159,6 +278,73 @@ public abstract class AbstractDbAppender extends AppenderSkeleton {
         }
     }
 
+    /**
+     * Called when the events queue is full and the overflow policy is not FAIL
+     *
+     * @param packedEvent the event which does not fit in the queue
+     */
+    private void handleQueueOverflow( LogEventRequest packedEvent ) {
+
+        LoggingEvent event = packedEvent.getEvent();
+        boolean isMessage = ! ( event instanceof AbstractLoggingEvent )
+                            || event instanceof InsertMessageEvent;
+
+        if( isMessage && overflowPolicy == QueueOverflowPolicy.DROP
+            && !event.getLevel().isGreaterOrEqual( Level.WARN ) ) {
+            numberDroppedEvents.incrementAndGet();
+            return;
+        }
+
+        if( isMessage && overflowPolicy == QueueOverflowPolicy.SPILL && spillEvent( packedEvent ) ) {
+            numberSpilledEvents.incrementAndGet();
+            return;
+        }
+
+        // wait for a free place in the queue
+        numberBlockedEvents.incrementAndGet();
+        try {
+            queue.put( packedEvent );
+        } catch( InterruptedException ie ) {
+            Thread.currentThread().interrupt();
+            throw new DbAppenederException( TimeUtils.getFormattedDateTillMilliseconds()
+                                            + "*** ATS *** Interrupted while waiting for a free place in the logging queue",
+                                            ie );
+        }
+    }
+
+    /**
+     * Write a message into the local spill file
+     *
+     * @param packedEvent the message event
+     * @return false if we could not write into the spill file
+     */
+    private synchronized boolean spillEvent( LogEventRequest packedEvent ) {
+
+        if( spillFileWriter == null ) {
+            File spillFile = new File( AtsSystemProperties.SYSTEM_USER_TEMP_DIR,
+                                       "ats_db_appender_spill_" + System.currentTimeMillis() + ".log" );
+            try {
+                spillFileWriter = new PrintWriter( new FileWriter( spillFile, true ) );
+            } catch( IOException e ) {
+                System.err.println( TimeUtils.getFormattedDateTillMilliseconds()
+                                    + "*** ATS *** Unable to create logging queue spill file "
+                                    + spillFile.getAbsolutePath() + ": " + e.getMessage() );
+                overflowPolicy = QueueOverflowPolicy.BLOCK;
+                return false;
+            }
+            System.out.println( TimeUtils.getFormattedDateTillMilliseconds()
+                                + "*** ATS *** The logging queue is full, messages which do not fit in it are written into "
+                                + spillFile.getAbsolutePath() );
+        }
+
+        LoggingEvent event = packedEvent.getEvent();
+        spillFileWriter.println( TimeUtils.getFormattedDateTillMilliseconds( new Date( packedEvent.getTimestamp() ) ) + " "
+                                 + event.getLevel() + " [" + packedEvent.getThreadName() + "] "
+                                 + event.getRenderedMessage() );
+        spillFileWriter.flush();
+        return true;
+    }
+
     public abstract GetCurrentTestCaseEvent getCurrentTestCaseState( GetCurrentTestCaseEvent event );
 
     protected abstract EventRequestProcessorListener getEventRequestProcessorListener();
@@ -172,6 +358,13 @@ public abstract class AbstractDbAppender extends AppenderSkeleton {
         if( queueLogger != null ) {
             queueLogger.interrupt();
         }
+
+        synchronized( this ) {
+            if( spillFileWriter != null ) {
+                spillFileWriter.close();
+                spillFileWriter = null;
+            }
+        }
     }
 
     /* (non-Javadoc)
@@ -222,6 +415,68 @@ public abstract class AbstractDbAppender extends AppenderSkeleton {
         return queue.size();
     }
 
+    /**
+     * @return how many times a thread waited for a free place in the full logging queue
+     */
+    public long getNumberBlockedEvents() {
+
+        return numberBlockedEvents.get();
+    }
+
+    /**
+     * @return how many messages were dropped because the logging queue was full
+     */
+    public long getNumberDroppedEvents() {
+
+        return numberDroppedEvents.get();
+    }
+
+    /**
+     * @return how many messages were written into the local spill file because the logging queue was full
+     */
+    public long getNumberSpilledEvents() {
+
+        return numberSpilledEvents.get();
+    }
+
+    /**
+     * log4j system reads the "workers" parameter from the log4j.xml and calls this method
+     *
+     * When more than 0, the test case messages and the inserted checkpoints are sent to the DB
+     * by this number of threads, each one using its own DB connection.
+     *
+     * @param workers number of worker threads
+     */
+    public void setWorkers( String workers ) {
+
+        this.appenderConfig.setWorkers( workers );
+    }
+
+    /**
+     * log4j system reads the "overflow" parameter from the log4j.xml and calls this method
+     *
+     * Expected values are "fail"(default), "block", "drop" and "spill"
+     *
+     * @param overflow what to do when the logging queue is full
+     */
+    public void setOverflow( String overflow ) {
+
+        this.appenderConfig.setOverflow( overflow );
+    }
+
+    /**
+     * log4j system reads the "queue" parameter from the log4j.xml and calls this method
+     *
+     * Expected values are "array"(default) and "ringbuffer". The ring buffer does not use locks,
+     * so it scales better when many threads are logging at the same time.
+     *
+     * @param queue the type of the logging queue
+     */
+    public void setQueue( String queue ) {
+
+        this.appenderConfig.setQueue( queue );
+    }
+
     /**
      * @return if sending log messages in batch mode
      */
@@ -233,7 +488,8 @@ public abstract class AbstractDbAppender extends AppenderSkeleton {
     /**
      * log4j system reads the "mode" parameter from the log4j.xml and calls this method
      *
-     * Expected value is "batch", everything else is skipped.
+     * Expected values are "batch" and "bulk", everything else is skipped.
+     * The "bulk" mode is a batch mode which sends the checkpoints as multi-row inserts.
      *
      * @param mode
      */
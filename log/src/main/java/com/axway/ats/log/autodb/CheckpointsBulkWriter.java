@@ -0,0 +1,615 @@
+/*
+ * Copyright 2017 Axway Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.axway.ats.log.autodb;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.axway.ats.core.dbaccess.DbUtils;
+import com.axway.ats.log.model.CheckpointLogLevel;
+import com.axway.ats.log.model.CheckpointResult;
+
+/**
+ * Caches inserted checkpoints and sends them to the DB with multi-row INSERT statements.
+ * The checkpoint summaries are updated with one aggregate UPDATE statement at flush time.
+ *
+ * This is used in "bulk" mode as a replacement of the batched <i>sp_insert_checkpoint</i> calls,
+ * as most JDBC drivers execute a batched CallableStatement as one round-trip per row.
+ *
+ * On HISTOGRAM checkpoint log level the checkpoints are also aggregated into a response time histogram
+ * per checkpoint summary and time window. A window is sent to the DB when it is closed, or when
+ * all histograms are explicitly flushed. This is a row in the tCheckpointHistograms table:
+ * (checkpointSummaryId INT, windowStart DATETIME, windowLength INT, numPassed INT, numFailed INT,
+ * minResponseTime BIGINT, maxResponseTime BIGINT, sumResponseTime BIGINT, sumTransferSize BIGINT, histogram VARCHAR(MAX))
+ * The response times of the histograms are in microseconds.
+ *
+ * The class is not thread-safe, it is used by the logging thread only.
+ */
+class CheckpointsBulkWriter {
+
+    /*
+     * MSSQL allows up to 2100 parameters per statement.
+     * We have 7 parameters per checkpoint row and 9 parameters per summary row.
+     */
+    static final int                   ROWS_PER_CHECKPOINTS_INSERT = 250;
+    static final int                   ROWS_PER_SUMMARIES_UPDATE   = 200;
+    static final int                   ROWS_PER_HISTOGRAMS_INSERT  = 200;
+
+    // the length of the histogram time windows in milliseconds
+    static final int                   HISTOGRAM_WINDOW_LENGTH     = 10 * 1000;
+
+    // min response time and transfer rate of a new checkpoint summary, the DB readers handle it as 0
+    private static final int           NO_MIN_VALUE                = Integer.MAX_VALUE;
+
+    private List<CachedCheckpoint>     checkpoints                 = new ArrayList<CachedCheckpoint>();
+
+    /*
+     * The checkpoint summary IDs we already know about
+     *
+     * key = <load queue id>-><checkpoint name>; value = <checkpoint summary ID>
+     */
+    private Map<String, Integer>       summaryIds                  = new HashMap<String, Integer>();
+
+    /*
+     * The histograms of the time windows which are not sent to the DB yet
+     *
+     * key = <load queue id>-><checkpoint name>-><window start>; value = <histogram window>
+     */
+    private Map<String, HistogramWindow> histogramWindows          = new LinkedHashMap<String, HistogramWindow>();
+
+    void addCheckpoint( String name, long startTimestamp, long responseTime, long transferSize,
+                        String transferUnit, int result, int loadQueueId ) {
+
+        checkpoints.add( new CachedCheckpoint( name, startTimestamp, responseTime, transferSize, transferUnit,
+                                               result, loadQueueId ) );
+    }
+
+    /**
+     * Add a checkpoint to the histogram of its time window
+     *
+     * @param responseTime the response time in milliseconds
+     * @param responseTimeMicros the response time in microseconds
+     */
+    void addToHistogram( String name, long startTimestamp, long responseTime, long responseTimeMicros,
+                         long transferSize, int result, int loadQueueId ) {
+
+        long endTimestamp = startTimestamp + responseTime;
+        long windowStart = endTimestamp - endTimestamp % HISTOGRAM_WINDOW_LENGTH;
+
+        String key = getSummaryKey( loadQueueId, name ) + "->" + windowStart;
+        HistogramWindow window = histogramWindows.get( key );
+        if( window == null ) {
+            window = new HistogramWindow( name, loadQueueId, windowStart );
+            histogramWindows.put( key, window );
+        }
+        window.add( responseTimeMicros, transferSize, result );
+    }
+
+    int getNumberHistogramWindows() {
+
+        return histogramWindows.size();
+    }
+
+    void clearHistograms() {
+
+        histogramWindows.clear();
+    }
+
+    int getNumberCheckpoints() {
+
+        return checkpoints.size();
+    }
+
+    void clear() {
+
+        checkpoints.clear();
+    }
+
+    /**
+     * Forget the cached checkpoint summary IDs. This must be done when a flush fails, because the newly
+     * created checkpoint summaries are rolled back.
+     */
+    void clearSummaryIds() {
+
+        summaryIds.clear();
+    }
+
+    /**
+     * Send the cached checkpoints to the DB. The caller is responsible for committing the transaction.
+     *
+     * The histogram windows which are ready are returned, so the caller can send them with
+     * {@link #insertHistograms(Connection, List)} in a separate transaction. This way a problem with
+     * the histograms does not cause losing the checkpoints.
+     *
+     * @param connection the connection to use
+     * @param checkpointLogLevel the checkpoints are inserted into tCheckpoints in FULL mode only
+     * @param flushAllHistograms whether to take the histograms of the time windows which are not closed yet
+     * @return the histogram windows to send, their checkpoint summaries are already created
+     * @throws SQLException
+     */
+    List<HistogramWindow> flush( Connection connection, CheckpointLogLevel checkpointLogLevel,
+                                 boolean flushAllHistograms ) throws SQLException {
+
+        List<HistogramWindow> windows = takeHistogramWindows( flushAllHistograms
+                                                                                 ? Long.MAX_VALUE
+                                                                                 : System.currentTimeMillis() );
+        if( checkpoints.size() == 0 && windows.size() == 0 ) {
+            return windows;
+        }
+
+        Map<String, SummaryDelta> summaryDeltas = aggregate();
+        // the checkpoints of a histogram window may have been sent in a previous flush
+        Map<String, SummaryDelta> windowSummaries = new LinkedHashMap<String, SummaryDelta>();
+        for( HistogramWindow window : windows ) {
+            String key = getSummaryKey( window.loadQueueId, window.name );
+            if( !summaryDeltas.containsKey( key ) ) {
+                windowSummaries.put( key, new SummaryDelta( window.name, "", window.loadQueueId ) );
+            }
+        }
+        resolveSummaryIds( connection, summaryDeltas );
+        resolveSummaryIds( connection, windowSummaries );
+
+        if( checkpointLogLevel == CheckpointLogLevel.FULL ) {
+            insertCheckpoints( connection );
+        }
+        updateSummaries( connection, new ArrayList<SummaryDelta>( summaryDeltas.values() ) );
+
+        return windows;
+    }
+
+    /**
+     * Remove and return the histogram windows which end before the provided time
+     */
+    List<HistogramWindow> takeHistogramWindows( long endTime ) {
+
+        List<HistogramWindow> windows = new ArrayList<HistogramWindow>();
+        Iterator<HistogramWindow> it = histogramWindows.values().iterator();
+        while( it.hasNext() ) {
+            HistogramWindow window = it.next();
+            if( window.windowStart + HISTOGRAM_WINDOW_LENGTH <= endTime ) {
+                windows.add( window );
+                it.remove();
+            }
+        }
+        return windows;
+    }
+
+    /**
+     * Group the cached checkpoints by load queue and name
+     */
+    Map<String, SummaryDelta> aggregate() {
+
+        Map<String, SummaryDelta> summaryDeltas = new LinkedHashMap<String, SummaryDelta>();
+        for( CachedCheckpoint checkpoint : checkpoints ) {
+            String key = getSummaryKey( checkpoint.loadQueueId, checkpoint.name );
+            SummaryDelta delta = summaryDeltas.get( key );
+            if( delta == null ) {
+                delta = new SummaryDelta( checkpoint.name, checkpoint.getTransferRateUnit(),
+                                          checkpoint.loadQueueId );
+                summaryDeltas.put( key, delta );
+            }
+            delta.add( checkpoint );
+        }
+        return summaryDeltas;
+    }
+
+    private void resolveSummaryIds( Connection connection,
+                                    Map<String, SummaryDelta> summaryDeltas ) throws SQLException {
+
+        // first load all summaries of the load queues we have not seen yet
+        List<Integer> loadQueuesToLoad = new ArrayList<Integer>();
+        for( SummaryDelta delta : summaryDeltas.values() ) {
+            if( !summaryIds.containsKey( getSummaryKey( delta.loadQueueId, delta.name ) )
+                && !loadQueuesToLoad.contains( delta.loadQueueId ) ) {
+                loadQueuesToLoad.add( delta.loadQueueId );
+            }
+        }
+        for( int loadQueueId : loadQueuesToLoad ) {
+            loadSummaryIds( connection, loadQueueId );
+        }
+
+        // then create the summaries which are still not present.
+        // Other agents or logging workers may create the same summary at the same time
+        PreparedStatement statement = null;
+        try {
+            for( SummaryDelta delta : summaryDeltas.values() ) {
+                String key = getSummaryKey( delta.loadQueueId, delta.name );
+                Integer summaryId = summaryIds.get( key );
+                if( summaryId == null ) {
+                    if( statement == null ) {
+                        statement = connection.prepareStatement( buildCreateSummarySql() );
+                    }
+                    statement.setInt( 1, delta.loadQueueId );
+                    statement.setString( 2, delta.name );
+                    statement.setString( 3, delta.name );
+                    statement.setString( 4, delta.transferRateUnit );
+                    statement.setInt( 5, delta.loadQueueId );
+
+                    ResultSet rs = statement.executeQuery();
+                    try {
+                        if( !rs.next() ) {
+                            throw new SQLException( "No ID returned for the checkpoint summary '"
+                                                    + delta.name + "' of load queue " + delta.loadQueueId );
+                        }
+                        summaryId = rs.getInt( 1 );
+                    } finally {
+                        DbUtils.closeResultSet( rs );
+                    }
+                    summaryIds.put( key, summaryId );
+                }
+                delta.checkpointSummaryId = summaryId;
+            }
+        } finally {
+            DbUtils.closeStatement( statement );
+        }
+    }
+
+    private void loadSummaryIds( Connection connection, int loadQueueId ) throws SQLException {
+
+        PreparedStatement statement = null;
+        ResultSet rs = null;
+        try {
+            statement = connection.prepareStatement( "SELECT checkpointSummaryId, name FROM tCheckpointsSummary WHERE loadQueueId = ?" );
+            statement.setInt( 1, loadQueueId );
+            rs = statement.executeQuery();
+            while( rs.next() ) {
+                summaryIds.put( getSummaryKey( loadQueueId, rs.getString( "name" ) ),
+                                rs.getInt( "checkpointSummaryId" ) );
+            }
+        } finally {
+            DbUtils.closeResultSet( rs );
+            DbUtils.closeStatement( statement );
+        }
+    }
+
+    private void insertCheckpoints( Connection connection ) throws SQLException {
+
+        PreparedStatement fullStatement = null;
+        PreparedStatement lastStatement = null;
+        try {
+            for( int fromIndex = 0; fromIndex < checkpoints.size(); fromIndex += ROWS_PER_CHECKPOINTS_INSERT ) {
+                int toIndex = Math.min( fromIndex + ROWS_PER_CHECKPOINTS_INSERT, checkpoints.size() );
+                int numberRows = toIndex - fromIndex;
+
+                PreparedStatement statement;
+                if( numberRows == ROWS_PER_CHECKPOINTS_INSERT ) {
+                    // all chunks but the last one have the same size, so we reuse their statement
+                    if( fullStatement == null ) {
+                        fullStatement = connection.prepareStatement( buildInsertCheckpointsSql( numberRows ) );
+                    }
+                    statement = fullStatement;
+                } else {
+                    lastStatement = connection.prepareStatement( buildInsertCheckpointsSql( numberRows ) );
+                    statement = lastStatement;
+                }
+
+                int parameterIndex = 1;
+                for( int i = fromIndex; i < toIndex; i++ ) {
+                    CachedCheckpoint checkpoint = checkpoints.get( i );
+                    statement.setInt( parameterIndex++,
+                                      summaryIds.get( getSummaryKey( checkpoint.loadQueueId,
+                                                                     checkpoint.name ) ) );
+                    statement.setString( parameterIndex++, checkpoint.name );
+                    statement.setInt( parameterIndex++, ( int ) checkpoint.responseTime );
+                    statement.setFloat( parameterIndex++, checkpoint.getTransferRate() );
+                    statement.setString( parameterIndex++, checkpoint.getTransferRateUnit() );
+                    statement.setInt( parameterIndex++, checkpoint.result );
+                    statement.setTimestamp( parameterIndex++,
+                                            new Timestamp( checkpoint.startTimestamp
+                                                           + checkpoint.responseTime ) );
+                }
+                statement.executeUpdate();
+            }
+        } finally {
+            DbUtils.closeStatement( fullStatement );
+            DbUtils.closeStatement( lastStatement );
+        }
+    }
+
+    private void updateSummaries( Connection connection, List<SummaryDelta> deltas ) throws SQLException {
+
+        for( int fromIndex = 0; fromIndex < deltas.size(); fromIndex += ROWS_PER_SUMMARIES_UPDATE ) {
+            int toIndex = Math.min( fromIndex + ROWS_PER_SUMMARIES_UPDATE, deltas.size() );
+
+            PreparedStatement statement = null;
+            try {
+                statement = connection.prepareStatement( buildUpdateSummariesSql( toIndex - fromIndex ) );
+
+                int parameterIndex = 1;
+                for( int i = fromIndex; i < toIndex; i++ ) {
+                    SummaryDelta delta = deltas.get( i );
+                    statement.setInt( parameterIndex++, delta.checkpointSummaryId );
+                    statement.setInt( parameterIndex++, delta.numPassed );
+                    statement.setInt( parameterIndex++, delta.numFailed );
+                    statement.setInt( parameterIndex++, delta.minResponseTime );
+                    statement.setInt( parameterIndex++, delta.maxResponseTime );
+                    statement.setLong( parameterIndex++, delta.sumResponseTime );
+                    statement.setFloat( parameterIndex++, delta.minTransferRate );
+                    statement.setFloat( parameterIndex++, delta.maxTransferRate );
+                    statement.setDouble( parameterIndex++, delta.sumTransferRate );
+                }
+                statement.executeUpdate();
+            } finally {
+                DbUtils.closeStatement( statement );
+            }
+        }
+    }
+
+    /**
+     * Send the provided histogram windows to the DB. The caller is responsible for committing the transaction.
+     *
+     * @param connection the connection to use
+     * @param windows the windows returned by a previous {@link #flush(Connection, CheckpointLogLevel, boolean)}
+     * @throws SQLException
+     */
+    void insertHistograms( Connection connection, List<HistogramWindow> windows ) throws SQLException {
+
+        for( int fromIndex = 0; fromIndex < windows.size(); fromIndex += ROWS_PER_HISTOGRAMS_INSERT ) {
+            int toIndex = Math.min( fromIndex + ROWS_PER_HISTOGRAMS_INSERT, windows.size() );
+
+            PreparedStatement statement = null;
+            try {
+                statement = connection.prepareStatement( buildInsertHistogramsSql( toIndex - fromIndex ) );
+
+                int parameterIndex = 1;
+                for( int i = fromIndex; i < toIndex; i++ ) {
+                    HistogramWindow window = windows.get( i );
+                    statement.setInt( parameterIndex++,
+                                      summaryIds.get( getSummaryKey( window.loadQueueId, window.name ) ) );
+                    statement.setTimestamp( parameterIndex++, new Timestamp( window.windowStart ) );
+                    statement.setInt( parameterIndex++, HISTOGRAM_WINDOW_LENGTH );
+                    statement.setLong( parameterIndex++, window.responseTimes.getTotalCount() );
+                    statement.setInt( parameterIndex++, window.numFailed );
+                    statement.setLong( parameterIndex++, window.responseTimes.getMinValue() );
+                    statement.setLong( parameterIndex++, window.responseTimes.getMaxValue() );
+                    statement.setLong( parameterIndex++, window.responseTimes.getSumValues() );
+                    statement.setLong( parameterIndex++, window.sumTransferSize );
+                    statement.setString( parameterIndex++, window.responseTimes.encode() );
+                }
+                statement.executeUpdate();
+            } finally {
+                DbUtils.closeStatement( statement );
+            }
+        }
+    }
+
+    /*
+     * Returns the ID of the checkpoint summary with the provided load queue and name, creating it if needed.
+     * The range lock of the SELECT is kept till the end of the transaction, so two connections
+     * can not create the same summary.
+     */
+    static String buildCreateSummarySql() {
+
+        return "SET NOCOUNT ON;"
+               + " DECLARE @checkpointSummaryId INT;"
+               + " SELECT @checkpointSummaryId = checkpointSummaryId FROM tCheckpointsSummary WITH (UPDLOCK, HOLDLOCK)"
+               + " WHERE loadQueueId = ? AND name = ?;"
+               + " IF @checkpointSummaryId IS NULL"
+               + " BEGIN"
+               + " INSERT INTO tCheckpointsSummary"
+               + " (name,numRunning,numPassed,numFailed,minResponseTime,avgResponseTime,maxResponseTime,minTransferRate,avgTransferRate,maxTransferRate,transferRateUnit,loadQueueId)"
+               + " VALUES (?,0,0,0," + NO_MIN_VALUE + ",0,0," + NO_MIN_VALUE + ",0,0,?,?);"
+               + " SET @checkpointSummaryId = SCOPE_IDENTITY();"
+               + " END;"
+               + " SELECT @checkpointSummaryId AS checkpointSummaryId";
+    }
+
+    static String buildInsertHistogramsSql( int numberRows ) {
+
+        StringBuilder sql = new StringBuilder( "INSERT INTO tCheckpointHistograms"
+                                               + " (checkpointSummaryId,windowStart,windowLength,numPassed,numFailed,minResponseTime,maxResponseTime,sumResponseTime,sumTransferSize,histogram)"
+                                               + " VALUES " );
+        for( int i = 0; i < numberRows; i++ ) {
+            if( i > 0 ) {
+                sql.append( "," );
+            }
+            sql.append( "(?,?,?,?,?,?,?,?,?,?)" );
+        }
+        return sql.toString();
+    }
+
+    static String buildInsertCheckpointsSql( int numberRows ) {
+
+        StringBuilder sql = new StringBuilder( "INSERT INTO tCheckpoints"
+                                               + " (checkpointSummaryId,name,responseTime,transferRate,transferRateUnit,result,endTime)"
+                                               + " VALUES " );
+        for( int i = 0; i < numberRows; i++ ) {
+            if( i > 0 ) {
+                sql.append( "," );
+            }
+            sql.append( "(?,?,?,?,?,?,?)" );
+        }
+        return sql.toString();
+    }
+
+    /*
+     * The right side of all SET expressions sees the values from before the update,
+     * so the averages are recalculated from the old number of passed checkpoints.
+     * Only passed checkpoints contribute to the response time and transfer rate values.
+     */
+    static String buildUpdateSummariesSql( int numberRows ) {
+
+        StringBuilder sql = new StringBuilder( "UPDATE s SET" );
+        sql.append( " s.numPassed = s.numPassed + d.numPassed," );
+        sql.append( " s.numFailed = s.numFailed + d.numFailed," );
+        sql.append( " s.minResponseTime = CASE WHEN d.numPassed > 0 AND d.minResponseTime < s.minResponseTime"
+                    + " THEN d.minResponseTime ELSE s.minResponseTime END," );
+        sql.append( " s.maxResponseTime = CASE WHEN d.numPassed > 0 AND d.maxResponseTime > s.maxResponseTime"
+                    + " THEN d.maxResponseTime ELSE s.maxResponseTime END," );
+        sql.append( " s.avgResponseTime = CASE WHEN s.numPassed + d.numPassed = 0 THEN 0"
+                    + " ELSE (s.avgResponseTime * s.numPassed + d.sumResponseTime) / (s.numPassed + d.numPassed) END," );
+        sql.append( " s.minTransferRate = CASE WHEN d.numPassed > 0 AND d.minTransferRate < s.minTransferRate"
+                    + " THEN d.minTransferRate ELSE s.minTransferRate END," );
+        sql.append( " s.maxTransferRate = CASE WHEN d.numPassed > 0 AND d.maxTransferRate > s.maxTransferRate"
+                    + " THEN d.maxTransferRate ELSE s.maxTransferRate END," );
+        sql.append( " s.avgTransferRate = CASE WHEN s.numPassed + d.numPassed = 0 THEN 0"
+                    + " ELSE (s.avgTransferRate * s.numPassed + d.sumTransferRate) / (s.numPassed + d.numPassed) END" );
+        sql.append( " FROM tCheckpointsSummary s INNER JOIN (VALUES " );
+        for( int i = 0; i < numberRows; i++ ) {
+            if( i > 0 ) {
+                sql.append( "," );
+            }
+            sql.append( "(?,?,?,?,?,?,?,?,?)" );
+        }
+        sql.append( ") AS d (checkpointSummaryId,numPassed,numFailed,minResponseTime,maxResponseTime,sumResponseTime,minTransferRate,maxTransferRate,sumTransferRate)" );
+        sql.append( " ON s.checkpointSummaryId = d.checkpointSummaryId" );
+        return sql.toString();
+    }
+
+    private static String getSummaryKey( int loadQueueId, String name ) {
+
+        return loadQueueId + "->" + name;
+    }
+
+    /**
+     * A checkpoint waiting to be sent to the DB
+     */
+    static class CachedCheckpoint {
+
+        final String name;
+        final long   startTimestamp;
+        final long   responseTime;
+        final long   transferSize;
+        final String transferUnit;
+        final int    result;
+        final int    loadQueueId;
+
+        CachedCheckpoint( String name, long startTimestamp, long responseTime, long transferSize,
+                          String transferUnit, int result, int loadQueueId ) {
+
+            this.name = name;
+            this.startTimestamp = startTimestamp;
+            this.responseTime = responseTime;
+            this.transferSize = transferSize;
+            this.transferUnit = transferUnit;
+            this.result = result;
+            this.loadQueueId = loadQueueId;
+        }
+
+        /**
+         * @return the transferred amount per second
+         */
+        float getTransferRate() {
+
+            if( responseTime <= 0 ) {
+                return 0;
+            }
+            return transferSize * 1000F / responseTime;
+        }
+
+        String getTransferRateUnit() {
+
+            if( transferUnit == null || transferUnit.length() == 0 ) {
+                return "";
+            }
+            return transferUnit + "/sec";
+        }
+    }
+
+    /**
+     * The checkpoints of one checkpoint summary which ended in one time window
+     */
+    static class HistogramWindow {
+
+        final String           name;
+        final int              loadQueueId;
+        final long             windowStart;
+
+        // the response times of the passed checkpoints in microseconds
+        final LatencyHistogram responseTimes = new LatencyHistogram();
+        int                    numFailed;
+        long                   sumTransferSize;
+
+        HistogramWindow( String name, int loadQueueId, long windowStart ) {
+
+            this.name = name;
+            this.loadQueueId = loadQueueId;
+            this.windowStart = windowStart;
+        }
+
+        void add( long responseTimeMicros, long transferSize, int result ) {
+
+            if( result == CheckpointResult.FAILED.toInt() ) {
+                numFailed++;
+            } else if( result == CheckpointResult.PASSED.toInt() ) {
+                responseTimes.recordValue( responseTimeMicros );
+                sumTransferSize += transferSize;
+            }
+        }
+    }
+
+    /**
+     * The changes to apply on one checkpoint summary
+     */
+    static class SummaryDelta {
+
+        final String name;
+        final String transferRateUnit;
+        final int    loadQueueId;
+
+        int          checkpointSummaryId;
+
+        int          numPassed;
+        int          numFailed;
+
+        int          minResponseTime = NO_MIN_VALUE;
+        int          maxResponseTime;
+        long         sumResponseTime;
+
+        float        minTransferRate = NO_MIN_VALUE;
+        float        maxTransferRate;
+        double       sumTransferRate;
+
+        SummaryDelta( String name, String transferRateUnit, int loadQueueId ) {
+
+            this.name = name;
+            this.transferRateUnit = transferRateUnit;
+            this.loadQueueId = loadQueueId;
+        }
+
+        void add( CachedCheckpoint checkpoint ) {
+
+            if( checkpoint.result == CheckpointResult.FAILED.toInt() ) {
+                numFailed++;
+                return;
+            } else if( checkpoint.result != CheckpointResult.PASSED.toInt() ) {
+                // inserted checkpoints are never running
+                return;
+            }
+
+            numPassed++;
+
+            int responseTime = ( int ) checkpoint.responseTime;
+            minResponseTime = Math.min( minResponseTime, responseTime );
+            maxResponseTime = Math.max( maxResponseTime, responseTime );
+            sumResponseTime += responseTime;
+
+            float transferRate = checkpoint.getTransferRate();
+            minTransferRate = Math.min( minTransferRate, transferRate );
+            maxTransferRate = Math.max( maxTransferRate, transferRate );
+            sumTransferRate += transferRate;
+        }
+    }
+}
@@ -24,6 +24,7 @@ import org.apache.log4j.Level;
 import org.apache.log4j.Priority;
 
 import com.axway.ats.log.autodb.exceptions.InvalidAppenderConfigurationException;
+import com.axway.ats.log.autodb.model.QueueOverflowPolicy;
 
 /**
  * Hold the configuration data for this db appender
@@ -45,6 +46,17 @@ public class DbAppenderConfiguration implements Serializable {
     //are checkpoints enabled
     private boolean            enableCheckpoints                     = true;
 
+    // the number of threads which insert messages and checkpoints, 0 means all events are processed by one thread
+    private String             workers                               = "";
+    private static final int   MAX_NUMBER_WORKERS                    = 32;
+
+    // what to do when the logging queue is full
+    private String             overflow                              = "";
+
+    // the implementation of the logging queue
+    private String             queueType                             = "";
+    private static final String RING_BUFFER_QUEUE_TYPE              = "ringbuffer";
+
     //the effective logging level. Serialized only by int value to prevent classloading issues of Priority/Level classes
     transient private Priority loggingThreshold;
 
@@ -134,9 +146,23 @@ public class DbAppenderConfiguration implements Serializable {
         }
     }
 
+    /**
+     * @return true if events are sent to the DB in batches. The "bulk" mode is a batch mode as well.
+     */
     public boolean isBatchMode() {
 
-        return "batch".equalsIgnoreCase( mode.trim() );
+        return "batch".equalsIgnoreCase( mode.trim() ) || isBulkMode();
+    }
+
+    /**
+     * In bulk mode the checkpoints are sent to the DB as multi-row inserts
+     * instead of one stored procedure call per checkpoint.
+     *
+     * @return true if bulk mode is used
+     */
+    public boolean isBulkMode() {
+
+        return "bulk".equalsIgnoreCase( mode.trim() );
     }
 
     public void setMode(
@@ -147,6 +173,81 @@ public class DbAppenderConfiguration implements Serializable {
         }
     }
 
+    /**
+     * Read the "workers" parameter value from log4j.xml.
+     * When more than 0, messages and checkpoints are inserted by this number of threads,
+     * each one using its own DB connection.
+     *
+     * @return the number of worker threads
+     */
+    public int getNumberWorkers() {
+
+        int numberWorkers;
+        try {
+            // the value is null when deserialized from an older version of this class
+            numberWorkers = Integer.parseInt( workers == null
+                                                              ? ""
+                                                              : workers.trim() );
+        } catch( NumberFormatException nfe ) {
+            // bad number
+            numberWorkers = 0;
+        }
+
+        if( numberWorkers < 0 ) {
+            numberWorkers = 0;
+        } else if( numberWorkers > MAX_NUMBER_WORKERS ) {
+            numberWorkers = MAX_NUMBER_WORKERS;
+        }
+
+        return numberWorkers;
+    }
+
+    public void setWorkers(
+                            String workers ) {
+
+        if( workers != null ) {
+            this.workers = workers;
+        }
+    }
+
+    /**
+     * Read the "overflow" parameter value from log4j.xml.
+     *
+     * @return what to do when the logging queue is full
+     */
+    public QueueOverflowPolicy getQueueOverflowPolicy() {
+
+        return QueueOverflowPolicy.fromString( overflow );
+    }
+
+    public void setOverflow(
+                             String overflow ) {
+
+        if( overflow != null ) {
+            this.overflow = overflow;
+        }
+    }
+
+    /**
+     * Read the "queue" parameter value from log4j.xml.
+     *
+     * @return if the logging queue is a lock-free ring buffer
+     */
+    public boolean isRingBufferQueue() {
+
+        return RING_BUFFER_QUEUE_TYPE.equalsIgnoreCase( queueType == null
+                                                                          ? ""
+                                                                          : queueType.trim() );
+    }
+
+    public void setQueue(
+                          String queueType ) {
+
+        if( queueType != null ) {
+            this.queueType = queueType;
+        }
+    }
+
     public boolean getEnableCheckpoints() {
 
         return enableCheckpoints;
@@ -229,6 +330,18 @@ public class DbAppenderConfiguration implements Serializable {
             return false;
         }
 
+        if( workers != null && !workers.equals( otherConfig.workers ) ) {
+            return false;
+        }
+
+        if( overflow != null && !overflow.equals( otherConfig.overflow ) ) {
+            return false;
+        }
+
+        if( queueType != null && !queueType.equals( otherConfig.queueType ) ) {
+            return false;
+        }
+
         if( enableCheckpoints != otherConfig.enableCheckpoints ) {
             return false;
         }
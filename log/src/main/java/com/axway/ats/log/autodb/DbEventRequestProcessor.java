@@ -139,7 +139,8 @@ public class DbEventRequestProcessor implements EventRequestProcessor {
         this.isBatchMode = isBatchMode;
 
         //create the db access layer
-        this.dbAccess = new DbWriteAccess( dbConnection, isBatchMode );
+        this.dbAccess = new DbWriteAccess( dbConnection, isBatchMode,
+                                           isBatchMode && appenderConfig.isBulkMode() );
         this.eventProcessorState = new EventProcessorState();
         this.layout = layout;
         this.listener = listener;
@@ -294,6 +295,72 @@ public class DbEventRequestProcessor implements EventRequestProcessor {
         }
     }
 
+    /**
+     * In pipeline mode the test case messages and the inserted checkpoints are sent to the DB by worker threads.
+     * Here we resolve the DB entities they belong to, so the workers do not need to know the current state.
+     *
+     * @param eventRequest the event request
+     * @return the event for a worker thread or null if the event must be processed by this processor
+     * @throws LoggingException if the event can not be processed in the current state
+     */
+    public DbEventsWorker.WorkerEvent prepareWorkerEvent( LogEventRequest eventRequest ) throws LoggingException {
+
+        if( eventRequest == null || testcaseToDelete > 0
+            || eventProcessorState.getLifeCycleState() != LifeCycleState.TEST_CASE_STARTED ) {
+            return null;
+        }
+
+        final int testcaseId = eventProcessorState.getTestCaseId();
+        if( deletedTestcases.contains( testcaseId ) ) {
+            // the processor will skip it
+            return null;
+        }
+
+        LoggingEvent event = eventRequest.getEvent();
+        if( ! ( event instanceof AbstractLoggingEvent ) ) {
+            return new DbEventsWorker.MessageWorkerEvent( getLoggingMesage( event ),
+                                                          convertMsgLevel( event.getLevel() ), false,
+                                                          machineName, eventRequest.getThreadName(),
+                                                          eventRequest.getTimestamp(), testcaseId );
+        }
+
+        AbstractLoggingEvent dbAppenderEvent = ( AbstractLoggingEvent ) event;
+        switch( dbAppenderEvent.getEventType() ){
+            case INSERT_MESSAGE:
+                InsertMessageEvent insertMessageEvent = ( InsertMessageEvent ) event;
+                if( insertMessageEvent.isRunMessage() ) {
+                    return null;
+                }
+                dbAppenderEvent.checkIfCanBeProcessed( eventProcessorState );
+
+                return new DbEventsWorker.MessageWorkerEvent( getLoggingMesage( event ),
+                                                              convertMsgLevel( event.getLevel() ),
+                                                              insertMessageEvent.isEscapeHtml(), machineName,
+                                                              eventRequest.getThreadName(),
+                                                              eventRequest.getTimestamp(), testcaseId );
+            case INSERT_CHECKPOINT:
+                if( !appenderConfig.getEnableCheckpoints() ) {
+                    return null;
+                }
+                dbAppenderEvent.checkIfCanBeProcessed( eventProcessorState );
+
+                InsertCheckpointEvent insertCheckpointEvent = ( InsertCheckpointEvent ) event;
+                int loadQueueId = eventProcessorState.getLoadQueuesState()
+                                                     .getLoadQueueIdForThread( insertCheckpointEvent.getThread() );
+                return new DbEventsWorker.CheckpointWorkerEvent( insertCheckpointEvent.getName(),
+                                                                 insertCheckpointEvent.getThread(),
+                                                                 insertCheckpointEvent.getStartTimestamp(),
+                                                                 insertCheckpointEvent.getResponseTime(),
+                                                                 insertCheckpointEvent.getResponseTimeMicros(),
+                                                                 insertCheckpointEvent.getTransferSize(),
+                                                                 insertCheckpointEvent.getTransferUnit(),
+                                                                 insertCheckpointEvent.getResult().toInt(),
+                                                                 loadQueueId );
+            default:
+                return null;
+        }
+    }
+
     private void startRun( StartRunEvent startRunEvent, long timeStamp ) throws DatabaseAccessException {
 
         // this temporary map must be cleared prior to each run
@@ -679,6 +746,7 @@ public class DbEventRequestProcessor implements EventRequestProcessor {
                                                insertCheckpointEvent.getThread(),
                                                insertCheckpointEvent.getStartTimestamp(),
                                                insertCheckpointEvent.getResponseTime(),
+                                               insertCheckpointEvent.getResponseTimeMicros(),
                                                insertCheckpointEvent.getTransferSize(),
                                                insertCheckpointEvent.getTransferUnit(),
                                                insertCheckpointEvent.getResult().toInt(), loadQueueId, true );
@@ -694,11 +762,19 @@ public class DbEventRequestProcessor implements EventRequestProcessor {
         final int testcaseId = eventProcessorState.getTestCaseId();
         if( !deletedTestcases.contains( testcaseId ) ) {
             try {
-                dbAccess.insertSystemStatistics( eventProcessorState.getTestCaseId(),
-                                                 insertSystemStatEvent.getMonitoredMachine(),
-                                                 insertSystemStatEvent.getStatisticIds(),
-                                                 insertSystemStatEvent.getStatisticValues(),
-                                                 insertSystemStatEvent.getTimestamp(), true );
+                if( insertSystemStatEvent.hasPrimitiveValues() ) {
+                    dbAccess.insertSystemStatistics( eventProcessorState.getTestCaseId(),
+                                                     insertSystemStatEvent.getMonitoredMachine(),
+                                                     insertSystemStatEvent.getStatisticDbIds(),
+                                                     insertSystemStatEvent.getStatisticFloatValues(),
+                                                     insertSystemStatEvent.getTimestamp(), true );
+                } else {
+                    dbAccess.insertSystemStatistics( eventProcessorState.getTestCaseId(),
+                                                     insertSystemStatEvent.getMonitoredMachine(),
+                                                     insertSystemStatEvent.getStatisticIds(),
+                                                     insertSystemStatEvent.getStatisticValues(),
+                                                     insertSystemStatEvent.getTimestamp(), true );
+                }
             } catch( LoggingException e ) {
                 handleDeletedTestcase( e, testcaseId );
             }
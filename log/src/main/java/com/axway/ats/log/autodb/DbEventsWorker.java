@@ -0,0 +1,270 @@
+/*
+ * Copyright 2017 Axway Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.axway.ats.log.autodb;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import com.axway.ats.core.dbaccess.DbConnection;
+import com.axway.ats.core.utils.ExceptionUtils;
+import com.axway.ats.core.utils.TimeUtils;
+import com.axway.ats.log.autodb.exceptions.DatabaseAccessException;
+import com.axway.ats.log.autodb.exceptions.LoggingException;
+
+/**
+ * Inserts messages and checkpoints into the DB using its own DB connection.
+ * It is used by the {@link PipelineQueueLoggerThread}, which resolves the DB entities
+ * the events belong to and passes them here.
+ */
+public class DbEventsWorker extends Thread {
+
+    private static final int                 QUEUE_CAPACITY    = 10000;
+    private static final int                 DRAIN_BATCH_SIZE  = 500;
+
+    private DbWriteAccess                    dbAccess;
+
+    private boolean                          isBatchMode;
+
+    private boolean                          isUnableToConnect = false;
+
+    private ArrayBlockingQueue<WorkerEvent>  queue;
+
+    public DbEventsWorker( DbConnection dbConnection, boolean isBatchMode, boolean isBulkMode,
+                           int index ) throws DatabaseAccessException {
+
+        this( new DbWriteAccess( dbConnection, isBatchMode, isBulkMode ), isBatchMode, index );
+    }
+
+    DbEventsWorker( DbWriteAccess dbAccess, boolean isBatchMode, int index ) {
+
+        this.dbAccess = dbAccess;
+        this.isBatchMode = isBatchMode;
+        this.queue = new ArrayBlockingQueue<WorkerEvent>( QUEUE_CAPACITY );
+
+        this.setDaemon( true );
+        this.setName( this.getClass().getSimpleName() + "-" + index );
+    }
+
+    /**
+     * Pass an event to this worker. Blocks if the worker queue is full.
+     *
+     * @param event the event
+     * @throws InterruptedException
+     */
+    void addEvent( WorkerEvent event ) throws InterruptedException {
+
+        queue.put( event );
+    }
+
+    /**
+     * Ask this worker to send to the DB all events it has received so far.
+     *
+     * @param latch it is counted down when all events are sent to the DB
+     * @throws InterruptedException
+     */
+    void requestFlush( CountDownLatch latch ) throws InterruptedException {
+
+        queue.put( new FlushRequest( latch ) );
+    }
+
+    @Override
+    public void run() {
+
+        List<WorkerEvent> events = new ArrayList<WorkerEvent>( DRAIN_BATCH_SIZE );
+        while( true ) {
+            try {
+                if( queue.drainTo( events, DRAIN_BATCH_SIZE ) == 0 ) {
+                    WorkerEvent event;
+                    if( isBatchMode ) {
+                        // get the next event, wait no more than 10 seconds
+                        event = queue.poll( 10, TimeUnit.SECONDS );
+                    } else {
+                        event = queue.take();
+                    }
+
+                    if( event == null ) {
+                        // timeout waiting for next event - flush the current cache
+                        flushCache();
+                        continue;
+                    }
+                    events.add( event );
+                }
+            } catch( InterruptedException ie ) {
+                break;
+            }
+
+            for( WorkerEvent event : events ) {
+                try {
+                    if( event instanceof FlushRequest ) {
+                        flushCache();
+                        ( ( FlushRequest ) event ).latch.countDown();
+                    } else {
+                        event.process( dbAccess );
+                    }
+                } catch( Exception e ) {
+                    handleProcessingException( e );
+                }
+            }
+            events.clear();
+        }
+    }
+
+    private void flushCache() {
+
+        if( isBatchMode ) {
+            try {
+                dbAccess.flushCache();
+            } catch( Exception e ) {
+                handleProcessingException( e );
+            }
+        }
+    }
+
+    private void handleProcessingException( Exception e ) {
+
+        if( e instanceof LoggingException
+            && AbstractDbAccess.UNABLE_TO_CONNECT_ERRROR.equalsIgnoreCase( e.getMessage() ) ) {
+            if( isUnableToConnect ) {
+                // We do not log the no connectivity problem on each failure, we do it just once.
+                return;
+            }
+            isUnableToConnect = true;
+        }
+
+        System.err.println( ExceptionUtils.getExceptionMsg( e,
+                                                            TimeUtils.getFormattedDateTillMilliseconds()
+                                                               + "*** ATS *** Error processing log event in "
+                                                               + getName() ) );
+    }
+
+    /**
+     * An event which is ready to be sent to the DB without any further knowledge about the current state
+     */
+    public static abstract class WorkerEvent {
+
+        abstract void process( DbWriteAccess dbAccess ) throws LoggingException;
+
+        /**
+         * @return the key which decides the worker of this event, the events with same key
+         * always go to the same worker
+         */
+        abstract String getRoutingKey();
+    }
+
+    static class MessageWorkerEvent extends WorkerEvent {
+
+        private final String  message;
+        private final int     level;
+        private final boolean escapeHtml;
+        private final String  machineName;
+        private final String  threadName;
+        private final long    timestamp;
+        private final int     testcaseId;
+
+        MessageWorkerEvent( String message, int level, boolean escapeHtml, String machineName,
+                            String threadName, long timestamp, int testcaseId ) {
+
+            this.message = message;
+            this.level = level;
+            this.escapeHtml = escapeHtml;
+            this.machineName = machineName;
+            this.threadName = threadName;
+            this.timestamp = timestamp;
+            this.testcaseId = testcaseId;
+        }
+
+        @Override
+        void process( DbWriteAccess dbAccess ) throws LoggingException {
+
+            dbAccess.insertMessage( message, level, escapeHtml, machineName, threadName, timestamp, testcaseId,
+                                    true );
+        }
+
+        @Override
+        String getRoutingKey() {
+
+            // keep the order of the messages of one thread
+            return threadName;
+        }
+    }
+
+    static class CheckpointWorkerEvent extends WorkerEvent {
+
+        private final String name;
+        private final String threadName;
+        private final long   startTimestamp;
+        private final long   responseTime;
+        private final long   responseTimeMicros;
+        private final long   transferSize;
+        private final String transferUnit;
+        private final int    result;
+        private final int    loadQueueId;
+
+        CheckpointWorkerEvent( String name, String threadName, long startTimestamp, long responseTime,
+                               long responseTimeMicros, long transferSize, String transferUnit, int result,
+                               int loadQueueId ) {
+
+            this.name = name;
+            this.threadName = threadName;
+            this.startTimestamp = startTimestamp;
+            this.responseTime = responseTime;
+            this.responseTimeMicros = responseTimeMicros;
+            this.transferSize = transferSize;
+            this.transferUnit = transferUnit;
+            this.result = result;
+            this.loadQueueId = loadQueueId;
+        }
+
+        @Override
+        void process( DbWriteAccess dbAccess ) throws LoggingException {
+
+            dbAccess.insertCheckpoint( name, threadName, startTimestamp, responseTime, responseTimeMicros,
+                                       transferSize, transferUnit, result, loadQueueId, true );
+        }
+
+        @Override
+        String getRoutingKey() {
+
+            // a checkpoint summary must be created and updated by one worker only
+            return loadQueueId + "->" + name;
+        }
+    }
+
+    private static class FlushRequest extends WorkerEvent {
+
+        private final CountDownLatch latch;
+
+        FlushRequest( CountDownLatch latch ) {
+
+            this.latch = latch;
+        }
+
+        @Override
+        void process( DbWriteAccess dbAccess ) {
+
+            // handled by the worker itself
+        }
+
+        @Override
+        String getRoutingKey() {
+
+            return null;
+        }
+    }
+}
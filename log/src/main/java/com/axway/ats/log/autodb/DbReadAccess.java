@@ -26,6 +26,8 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -34,6 +36,7 @@ import com.axway.ats.core.dbaccess.DbConnection;
 import com.axway.ats.core.dbaccess.DbUtils;
 import com.axway.ats.core.utils.BackwardCompatibility;
 import com.axway.ats.log.autodb.entities.Checkpoint;
+import com.axway.ats.log.autodb.entities.CheckpointHistogram;
 import com.axway.ats.log.autodb.entities.CheckpointSummary;
 import com.axway.ats.log.autodb.entities.LoadQueue;
 import com.axway.ats.log.autodb.entities.Machine;
@@ -65,6 +68,8 @@ public class DbReadAccess extends AbstractDbAccess implements IDbReadAccess {
                                                                                       / 2;
     private static final int   START_FAKE_ID_VALUE_FOR_AGGREGATED_SYSTEM_STATISTICS = START_FAKE_ID_VALUE_FOR_AGGREGATED_CHECKPOINTS
                                                                                       / 2;
+    private static final int   START_FAKE_ID_VALUE_FOR_CHECKPOINT_PERCENTILES       = START_FAKE_ID_VALUE_FOR_AGGREGATED_CHECKPOINTS
+                                                                                      + START_FAKE_ID_VALUE_FOR_AGGREGATED_SYSTEM_STATISTICS;
 
     public static final String MACHINE_NAME_FOR_ATS_AGENTS                          = "ATS Agents";
 
@@ -1375,6 +1380,60 @@ public class DbReadAccess extends AbstractDbAccess implements IDbReadAccess {
         return statisticId;
     }
 
+    public List<Statistic> getCheckpointStatistics( float timeOffset, String testcaseIds, String actionNames,
+                                                    Set<String> expectedSingleActionUIDs,
+                                                    Set<String> expectedCombinedActionUIDs,
+                                                    boolean includeCorrectedLatencies ) throws DatabaseAccessException {
+
+        if( !includeCorrectedLatencies ) {
+            return getCheckpointStatistics( timeOffset, testcaseIds, actionNames, expectedSingleActionUIDs,
+                                            expectedCombinedActionUIDs );
+        }
+
+        // the corrected latencies are kept in separate checkpoints, so we just ask for them as well
+        return getCheckpointStatistics( timeOffset, testcaseIds, addCorrectedCheckpointNames( actionNames ),
+                                        addCorrectedStatisticUids( expectedSingleActionUIDs ),
+                                        addCorrectedStatisticUids( expectedCombinedActionUIDs ) );
+    }
+
+    /**
+     * @param actionNames comma separated checkpoint names, they may be quoted
+     * @return the provided names followed by the names of their corrected latency checkpoints
+     */
+    static String addCorrectedCheckpointNames( String actionNames ) {
+
+        if( actionNames == null || actionNames.trim().length() == 0 ) {
+            return actionNames;
+        }
+
+        StringBuilder allActionNames = new StringBuilder( actionNames );
+        for( String actionName : actionNames.split( "," ) ) {
+            actionName = actionName.trim();
+            if( actionName.length() > 1 && actionName.startsWith( "'" ) && actionName.endsWith( "'" ) ) {
+                allActionNames.append( ",'" )
+                              .append( actionName.substring( 1, actionName.length() - 1 ) )
+                              .append( Checkpoint.CORRECTED_LATENCY_SUFFIX )
+                              .append( "'" );
+            } else if( actionName.length() > 0 ) {
+                allActionNames.append( ',' ).append( actionName ).append( Checkpoint.CORRECTED_LATENCY_SUFFIX );
+            }
+        }
+        return allActionNames.toString();
+    }
+
+    /**
+     * @param statisticUIDs checkpoint statistic UIDs, they end with the checkpoint name
+     * @return the provided UIDs together with the UIDs of their corrected latency checkpoints
+     */
+    static Set<String> addCorrectedStatisticUids( Set<String> statisticUIDs ) {
+
+        Set<String> allStatisticUIDs = new HashSet<String>( statisticUIDs );
+        for( String statisticUID : statisticUIDs ) {
+            allStatisticUIDs.add( statisticUID + Checkpoint.CORRECTED_LATENCY_SUFFIX );
+        }
+        return allStatisticUIDs;
+    }
+
     public List<Statistic> getCheckpointAggregatedStatistics( float timeOffset, String testcaseIds,
                                                               String actionNames,
                                                               Set<String> expectedSingleActionUIDs,
@@ -1503,6 +1562,168 @@ public class DbReadAccess extends AbstractDbAccess implements IDbReadAccess {
         return allStatistics;
     }
 
+    public List<CheckpointHistogram> getCheckpointHistograms( String testcaseIds, Set<String> actionNames,
+                                                              int interval ) throws DatabaseAccessException {
+
+        String sqlLog = new SqlRequestFormatter().add( "testcase ids", testcaseIds )
+                                                 .add( "checkpoint names", actionNames )
+                                                 .add( "inverval (seconds)", interval )
+                                                 .format();
+
+        StringBuilder testcaseIdsList = new StringBuilder();
+        for( String testcaseId : testcaseIds.split( "," ) ) {
+            if( testcaseIdsList.length() > 0 ) {
+                testcaseIdsList.append( "," );
+            }
+            try {
+                testcaseIdsList.append( Integer.parseInt( testcaseId.trim() ) );
+            } catch( NumberFormatException nfe ) {
+                throw new DatabaseAccessException( "Error when " + sqlLog + ": invalid testcase id '"
+                                                   + testcaseId + "'" );
+            }
+        }
+
+        StringBuilder sql = new StringBuilder( "SELECT h.checkpointSummaryId, chs.name, c.name as queueName, c.testcaseId,"
+                                               + " DATEDIFF(second, CONVERT( datetime, '1970-01-01 00:00:00', 20), h.windowStart) as windowStart,"
+                                               + " h.windowLength, h.numFailed, h.sumTransferSize, h.histogram "
+                                               + "FROM tCheckpointHistograms h"
+                                               + " INNER JOIN tCheckpointsSummary chs on (chs.checkpointSummaryId = h.checkpointSummaryId)"
+                                               + " INNER JOIN tLoadQueues c on (c.loadQueueId = chs.loadQueueId) "
+                                               + "WHERE c.testcaseId IN (" + testcaseIdsList + ")" );
+        if( actionNames != null && actionNames.size() > 0 ) {
+            sql.append( " AND chs.name IN (" );
+            for( int i = 0; i < actionNames.size(); i++ ) {
+                sql.append( i == 0
+                                   ? "?"
+                                   : ",?" );
+            }
+            sql.append( ")" );
+        }
+        sql.append( " ORDER BY h.windowStart" );
+
+        /*
+         * The same window may come in more than one row, when the sender flushed it before it was closed.
+         * The windows are also merged into intervals when requested.
+         */
+        Map<String, CheckpointHistogram> histograms = new LinkedHashMap<String, CheckpointHistogram>();
+
+        Connection connection = getConnection();
+        PreparedStatement statement = null;
+        ResultSet rs = null;
+        try {
+            statement = connection.prepareStatement( sql.toString() );
+            if( actionNames != null ) {
+                int parameterIndex = 1;
+                for( String actionName : actionNames ) {
+                    statement.setString( parameterIndex++, actionName );
+                }
+            }
+
+            int numberRecords = 0;
+            rs = statement.executeQuery();
+            while( rs.next() ) {
+                int checkpointSummaryId = rs.getInt( "checkpointSummaryId" );
+                long windowStart = rs.getLong( "windowStart" ) * 1000;
+                int windowLength = rs.getInt( "windowLength" );
+                if( interval > 0 ) {
+                    windowStart = windowStart - windowStart % ( interval * 1000L );
+                    windowLength = interval * 1000;
+                }
+
+                String key = checkpointSummaryId + "->" + windowStart;
+                CheckpointHistogram histogram = histograms.get( key );
+                if( histogram == null ) {
+                    histogram = new CheckpointHistogram();
+                    histogram.checkpointSummaryId = checkpointSummaryId;
+                    histogram.name = rs.getString( "name" );
+                    histogram.queueName = rs.getString( "queueName" );
+                    histogram.testcaseId = rs.getInt( "testcaseId" );
+                    histogram.windowStart = windowStart;
+                    histogram.windowLength = windowLength;
+                    histograms.put( key, histogram );
+                }
+                histogram.numFailed += rs.getInt( "numFailed" );
+                histogram.sumTransferSize += rs.getLong( "sumTransferSize" );
+                histogram.responseTimes.add( LatencyHistogram.decode( rs.getString( "histogram" ) ) );
+
+                numberRecords++;
+            }
+
+            logQuerySuccess( sqlLog, "checkpoint histograms", numberRecords );
+        } catch( Exception e ) {
+            throw new DatabaseAccessException( "Error when " + sqlLog, e );
+        } finally {
+            DbUtils.closeResultSet( rs );
+            DbUtils.close( connection, statement );
+        }
+
+        return new ArrayList<CheckpointHistogram>( histograms.values() );
+    }
+
+    public List<Statistic> getCheckpointPercentileStatistics( String testcaseIds, Set<String> actionNames,
+                                                              int interval,
+                                                              double percentile ) throws DatabaseAccessException {
+
+        List<Statistic> allStatistics = new ArrayList<Statistic>();
+
+        Map<String, Integer> fakeStatisticIds = new HashMap<String, Integer>();
+
+        /*
+         * The histograms of the same checkpoint in all queues are merged,
+         * so the combined percentiles are the real ones and not an average of the queue percentiles
+         */
+        Map<String, Statistic> combinedStatistics = new LinkedHashMap<String, Statistic>();
+        Map<String, LatencyHistogram> combinedHistograms = new HashMap<String, LatencyHistogram>();
+
+        for( CheckpointHistogram histogram : getCheckpointHistograms( testcaseIds, actionNames, interval ) ) {
+
+            Statistic statistic = new Statistic();
+            statistic.name = histogram.name;
+            statistic.parentName = histogram.queueName;
+            statistic.unit = "ms";
+            statistic.timestamp = histogram.windowStart;
+            statistic.machineId = 0; // Checkpoints will be collected and displayed for testcase
+            statistic.testcaseId = histogram.testcaseId;
+            setHistogramValues( statistic, histogram.responseTimes, percentile );
+            statistic.transferSize = histogram.sumTransferSize;
+            statistic.statisticTypeId = getStatisticFakeId( START_FAKE_ID_VALUE_FOR_CHECKPOINT_PERCENTILES,
+                                                            fakeStatisticIds, statistic );
+            allStatistics.add( statistic );
+
+            String statisticKey = histogram.testcaseId + "->" + histogram.windowStart + "->" + histogram.name;
+            Statistic combinedStatistic = combinedStatistics.get( statisticKey );
+            if( combinedStatistic == null ) {
+                combinedStatistic = statistic.newInstance();
+                combinedStatistic.parentName = Statistic.COMBINED_STATISTICS_CONTAINER;
+                combinedStatistic.statisticTypeId = getStatisticFakeId( START_FAKE_ID_VALUE_FOR_CHECKPOINT_PERCENTILES,
+                                                                        fakeStatisticIds,
+                                                                        combinedStatistic );
+                combinedStatistics.put( statisticKey, combinedStatistic );
+                combinedHistograms.put( statisticKey, new LatencyHistogram() );
+            }
+            LatencyHistogram combinedHistogram = combinedHistograms.get( statisticKey );
+            combinedHistogram.add( histogram.responseTimes );
+            setHistogramValues( combinedStatistic, combinedHistogram, percentile );
+            combinedStatistic.transferSize += histogram.sumTransferSize;
+        }
+
+        // the histograms come ordered by time, so are the combined statistics
+        allStatistics.addAll( combinedStatistics.values() );
+
+        return allStatistics;
+    }
+
+    /**
+     * The histograms keep microseconds, while the statistics are in milliseconds with a fraction
+     */
+    private void setHistogramValues( Statistic statistic, LatencyHistogram histogram, double percentile ) {
+
+        statistic.value = histogram.getValueAtPercentile( percentile ) / 1000F;
+        statistic.avgValue = ( float ) ( histogram.getMean() / 1000 );
+        statistic.sumValue = histogram.getSumValues() / 1000F;
+        statistic.countValue = histogram.getTotalCount();
+    }
+
     public List<LoadQueue> getLoadQueues( String whereClause, String sortColumn, boolean ascending,
                                           boolean dateFormatNoYear ) throws DatabaseAccessException {
 
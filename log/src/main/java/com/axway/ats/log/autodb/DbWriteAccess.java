@@ -55,16 +55,29 @@ public class DbWriteAccess extends AbstractDbAccess implements IDbWriteAccess {
     // if we are using batch mode
     private boolean                      isBatchMode;
 
+    // if we are sending the checkpoints as multi-row inserts, applicable in batch mode only
+    private boolean                      isBulkMode;
+
     /**
      * When true - we dump info about the usage of the events queue.
      * It is targeted as a debug tool when cannot sent the events to the DB fast enough.
      */
     private boolean                      isMonitorEventsQueue;
 
+    // sends the system statistics provided as primitive arrays
+    private SystemStatisticsBulkWriter   systemStatisticsWriter = new SystemStatisticsBulkWriter();
+
     public DbWriteAccess( DbConnection dbConnection, boolean isBatchMode ) throws DatabaseAccessException {
 
+        this( dbConnection, isBatchMode, false );
+    }
+
+    public DbWriteAccess( DbConnection dbConnection, boolean isBatchMode,
+                          boolean isBulkMode ) throws DatabaseAccessException {
+
         super( dbConnection );
         this.isBatchMode = isBatchMode;
+        this.isBulkMode = isBatchMode && isBulkMode;
         this.insertFactory = new InsertEventStatementsFactory( isBatchMode );
 
         if( isBatchMode ) {
@@ -796,6 +809,26 @@ public class DbWriteAccess extends AbstractDbAccess implements IDbWriteAccess {
                                      long transferSize, String transferUnit, int result, int loadQueueId,
                                      boolean closeConnection ) throws DatabaseAccessException {
 
+        return insertCheckpoint( name, threadName, startTimestamp, responseTime, responseTime * 1000,
+                                 transferSize, transferUnit, result, loadQueueId, closeConnection );
+    }
+
+    /**
+     * Insert a checkpoint whose response time is also known in microseconds.
+     * The DB tables keep the response time in milliseconds, while the checkpoint histograms use microseconds.
+     */
+    public boolean insertCheckpoint( String name, String threadName, long startTimestamp, long responseTime,
+                                     long responseTimeMicros, long transferSize, String transferUnit,
+                                     int result, int loadQueueId,
+                                     boolean closeConnection ) throws DatabaseAccessException {
+
+        if( isBulkMode || ( isBatchMode && checkpointLogLevel == CheckpointLogLevel.HISTOGRAM ) ) {
+            // schedule this event for a multi-row insert or aggregate it in a histogram
+            return dbEventsCache.addInsertCheckpointEventToBulk( name, startTimestamp, responseTime,
+                                                                 responseTimeMicros, transferSize,
+                                                                 transferUnit, result, loadQueueId );
+        }
+
         Connection currentConnection;
         if( !isBatchMode ) {
             currentConnection = refreshInternalConnection();
@@ -811,7 +844,7 @@ public class DbWriteAccess extends AbstractDbAccess implements IDbWriteAccess {
                                                                                                   transferSize,
                                                                                                   transferUnit,
                                                                                                   result,
-                                                                                                  checkpointLogLevel,
+                                                                                                  getDbCheckpointLogLevel(),
                                                                                                   loadQueueId );
 
         if( isBatchMode ) {
@@ -859,6 +892,18 @@ public class DbWriteAccess extends AbstractDbAccess implements IDbWriteAccess {
         checkpointLogLevel = newCheckpointLogLevel;
     }
 
+    /**
+     * The stored procedures know about SHORT and FULL levels only.
+     * The histograms are handled here, for the DB it is the same as SHORT.
+     */
+    private static CheckpointLogLevel getDbCheckpointLogLevel() {
+
+        if( checkpointLogLevel == CheckpointLogLevel.HISTOGRAM ) {
+            return CheckpointLogLevel.SHORT;
+        }
+        return checkpointLogLevel;
+    }
+
     public CheckpointInfo startCheckpoint( String name, String threadName, long startTimestamp,
                                            String transferUnit, int loadQueueId,
                                            boolean closeConnection ) throws DatabaseAccessException {
@@ -877,7 +922,7 @@ public class DbWriteAccess extends AbstractDbAccess implements IDbWriteAccess {
             callableStatement.setInt( 1, loadQueueId );
             callableStatement.setString( 2, threadName );
             callableStatement.setString( 3, name );
-            callableStatement.setInt( 4, checkpointLogLevel.toInt() );
+            callableStatement.setInt( 4, getDbCheckpointLogLevel().toInt() );
             callableStatement.setString( 5, transferUnit );
             callableStatement.registerOutParameter( indexCheckpointSummaryId, Types.INTEGER );
             callableStatement.registerOutParameter( indexCheckpointId, Types.INTEGER );
@@ -929,7 +974,7 @@ public class DbWriteAccess extends AbstractDbAccess implements IDbWriteAccess {
                                       ( int ) ( endTimestamp - runningCheckpointInfo.getStartTimestamp() ) );
             callableStatement.setLong( 4, transferSize );
             callableStatement.setInt( 5, result );
-            callableStatement.setInt( 6, checkpointLogLevel.toInt() );
+            callableStatement.setInt( 6, getDbCheckpointLogLevel().toInt() );
             callableStatement.setTimestamp( 7, new Timestamp( endTimestamp ) );
             callableStatement.registerOutParameter( indexRowsInserted, Types.INTEGER );
 
@@ -1031,6 +1076,40 @@ public class DbWriteAccess extends AbstractDbAccess implements IDbWriteAccess {
         }
     }
 
+    /**
+     * Insert system statistics with multi-row INSERT statements.
+     * The statistic values are provided as primitive arrays, so there is no limit on their number.
+     *
+     * @param testCaseId the test case ID
+     * @param machine the monitored machine
+     * @param statisticIds the statistics' DB IDs
+     * @param statisticValues the statistics' values
+     * @param timestamp the timestamp
+     * @param closeConnection whether to close the connection when done
+     * @throws DatabaseAccessException
+     */
+    public void insertSystemStatistics( int testCaseId, String machine, int[] statisticIds,
+                                        float[] statisticValues, long timestamp,
+                                        boolean closeConnection ) throws DatabaseAccessException {
+
+        try {
+            refreshInternalConnection();
+
+            systemStatisticsWriter.insert( connection, testCaseId, machine, statisticIds, statisticValues,
+                                           timestamp );
+        } catch( Exception e ) {
+            systemStatisticsWriter.clearMachineIds();
+
+            String errMsg = "Unable to insert " + statisticIds.length + " system statistics for machine '"
+                            + machine + "', timestamp " + timestamp;
+            throw new DatabaseAccessException( errMsg, e );
+        } finally {
+            if( closeConnection ) {
+                DbUtils.closeConnection( connection );
+            }
+        }
+    }
+
     public int populateSystemStatisticDefinition( String name, String parentName, String internalName,
                                                   String unit,
                                                   String params ) throws DatabaseAccessException {
@@ -1402,6 +1481,14 @@ public class DbWriteAccess extends AbstractDbAccess implements IDbWriteAccess {
         private CallableStatement insertCheckpointStatement      = null;
         private int               numberCachedCheckpoints;
 
+        // used instead of the checkpoints statement in bulk mode and on HISTOGRAM checkpoint log level
+        private CheckpointsBulkWriter checkpointsBulkWriter;
+
+        // the checkpoint histograms are collected only if the DB has a table for them,
+        // otherwise the HISTOGRAM checkpoint log level works as SHORT
+        private boolean           isHistogramsTableAvailable;
+        private boolean           isHistogramsTableWarningShown;
+
         private DbWriteAccess     parent;
 
         // temporary variables used for telling the user how long it takes to commit the cached events
@@ -1418,11 +1505,14 @@ public class DbWriteAccess extends AbstractDbAccess implements IDbWriteAccess {
             } catch( SQLException e ) {
                 throw new DatabaseAccessException( "Unable to set batch mode on DB connection", e );
             }
+            isHistogramsTableAvailable = checkHistogramsTable();
 
             numberCachedRunMessages = 0;
             numberCachedSuiteMessages = 0;
             numberCachedTestcaseMessages = 0;
             numberCachedCheckpoints = 0;
+
+            checkpointsBulkWriter = new CheckpointsBulkWriter();
         }
 
         private boolean addInsertRunMessageEventToBatch( CallableStatement insertMessageStatement ) throws DatabaseAccessException {
@@ -1495,6 +1585,55 @@ public class DbWriteAccess extends AbstractDbAccess implements IDbWriteAccess {
             return flushCacheIfNeeded();
         }
 
+        private boolean addInsertCheckpointEventToBulk( String name, long startTimestamp,
+                                                        long responseTime, long responseTimeMicros,
+                                                        long transferSize, String transferUnit, int result,
+                                                        int loadQueueId ) throws DatabaseAccessException {
+
+            checkpointsBulkWriter.addCheckpoint( name, startTimestamp, responseTime, transferSize,
+                                                 transferUnit, result, loadQueueId );
+            if( checkpointLogLevel == CheckpointLogLevel.HISTOGRAM ) {
+                if( isHistogramsTableAvailable ) {
+                    checkpointsBulkWriter.addToHistogram( name, startTimestamp, responseTime,
+                                                          responseTimeMicros, transferSize, result,
+                                                          loadQueueId );
+                } else if( !isHistogramsTableWarningShown ) {
+                    isHistogramsTableWarningShown = true;
+                    System.err.println( TimeUtils.getFormattedDateTillMilliseconds()
+                                        + "*** ATS *** The log DB has no tCheckpointHistograms table, checkpoints will be logged as on "
+                                        + CheckpointLogLevel.SHORT + " checkpoint log level" );
+                }
+            }
+            ++numberCachedCheckpoints;
+
+            updateCacheBirthtime();
+
+            return flushCacheIfNeeded();
+        }
+
+        /**
+         * @return whether the DB has the table for the checkpoint histograms
+         */
+        private boolean checkHistogramsTable() {
+
+            PreparedStatement statement = null;
+            ResultSet rs = null;
+            try {
+                statement = connection.prepareStatement( "SELECT OBJECT_ID('tCheckpointHistograms', 'U')" );
+                rs = statement.executeQuery();
+                boolean isTableAvailable = rs.next() && rs.getObject( 1 ) != null;
+                connection.commit();
+                return isTableAvailable;
+            } catch( SQLException e ) {
+                System.err.println( ExceptionUtils.getExceptionMsg( e,
+                                                                    "Unable to check for the checkpoint histograms table, the histograms will not be logged" ) );
+                return false;
+            } finally {
+                DbUtils.closeResultSet( rs );
+                DbUtils.closeStatement( statement );
+            }
+        }
+
         private void updateCacheBirthtime() {
 
             // if this is the first event, we have to remember the cache birth time
@@ -1506,8 +1645,16 @@ public class DbWriteAccess extends AbstractDbAccess implements IDbWriteAccess {
 
         private void flushCache() throws DatabaseAccessException {
 
+            flushCache( true );
+        }
+
+        /**
+         * @param flushAllHistograms whether to flush the histograms of the time windows which are not closed yet
+         */
+        private void flushCache( boolean flushAllHistograms ) throws DatabaseAccessException {
+
             if( numberCachedRunMessages + numberCachedSuiteMessages + numberCachedTestcaseMessages
-                + numberCachedCheckpoints == 0 ) {
+                + numberCachedCheckpoints == 0 && checkpointsBulkWriter.getNumberHistogramWindows() == 0 ) {
                 // no events in the cache
                 return;
             }
@@ -1522,7 +1669,7 @@ public class DbWriteAccess extends AbstractDbAccess implements IDbWriteAccess {
             flushInsertRunMessageEvents();
             flushInsertSuiteMessageEvents();
             flushInsertTestcaseMessageEvents();
-            flushInsertCheckpointEvents();
+            flushInsertCheckpointEvents( flushAllHistograms );
 
             cacheBirthTime = 0;
 
@@ -1548,7 +1695,7 @@ public class DbWriteAccess extends AbstractDbAccess implements IDbWriteAccess {
             }
 
             if( isTimeToFlush ) {
-                flushCache();
+                flushCache( false );
             }
 
             return isTimeToFlush;
@@ -1695,18 +1842,26 @@ public class DbWriteAccess extends AbstractDbAccess implements IDbWriteAccess {
             }
         }
 
-        private void flushInsertCheckpointEvents() throws DatabaseAccessException {
+        private void flushInsertCheckpointEvents( boolean flushAllHistograms ) throws DatabaseAccessException {
 
-            if( numberCachedCheckpoints == 0 ) {
+            if( numberCachedCheckpoints == 0 && checkpointsBulkWriter.getNumberHistogramWindows() == 0 ) {
                 return;
             }
 
             boolean gotError = false;
+            List<CheckpointsBulkWriter.HistogramWindow> histogramWindows = null;
             try {
-                insertCheckpointStatement.executeBatch();
+                // the checkpoint log level may be changed at any time, so we may have both kinds of cached checkpoints
+                List<CheckpointsBulkWriter.HistogramWindow> windows = checkpointsBulkWriter.flush( connection,
+                                                                                                   getDbCheckpointLogLevel(),
+                                                                                                   flushAllHistograms );
+                if( insertCheckpointStatement != null ) {
+                    insertCheckpointStatement.executeBatch();
+                }
 
                 // data sent to the DB, commit the transaction
                 connection.commit();
+                histogramWindows = windows;
             } catch( Exception e ) {
 
                 /*  The next code is not used for now
@@ -1715,6 +1870,9 @@ public class DbWriteAccess extends AbstractDbAccess implements IDbWriteAccess {
                     }
                 */
 
+                // the newly created checkpoint summaries are rolled back as well
+                checkpointsBulkWriter.clearSummaryIds();
+
                 // rollback the entire transaction
                 try {
                     connection.rollback();
@@ -1737,6 +1895,44 @@ public class DbWriteAccess extends AbstractDbAccess implements IDbWriteAccess {
                 resetCheckpointsCache();
             }
 
+            if( gotError ) {
+                connection = parent.refreshInternalConnection();
+            } else if( histogramWindows != null && histogramWindows.size() > 0 ) {
+                flushHistograms( histogramWindows );
+            }
+        }
+
+        /**
+         * The histograms are sent in their own transaction after the checkpoints are committed,
+         * so a failure here does not affect the checkpoints
+         */
+        private void flushHistograms( List<CheckpointsBulkWriter.HistogramWindow> histogramWindows ) throws DatabaseAccessException {
+
+            boolean gotError = false;
+            try {
+                checkpointsBulkWriter.insertHistograms( connection, histogramWindows );
+
+                connection.commit();
+            } catch( Exception e ) {
+                try {
+                    connection.rollback();
+
+                    System.err.println( ExceptionUtils.getExceptionMsg( e,
+                                                                        "Commit failed while inserting "
+                                                                           + histogramWindows.size()
+                                                                           + " checkpoint histograms in one transaction" ) );
+                } catch( Exception rollbackException ) {
+                    gotError = true;
+
+                    System.err.println( ExceptionUtils.getExceptionMsg( rollbackException,
+                                                                        "Commit and rollback both failed while inserting "
+                                                                                           + histogramWindows.size()
+                                                                                           + " checkpoint histograms in one transaction."
+                                                                                           + " Following is the rollback exception ..." ) );
+                    rollbackException.printStackTrace();
+                }
+            }
+
             if( gotError ) {
                 connection = parent.refreshInternalConnection();
             }
@@ -1748,6 +1944,7 @@ public class DbWriteAccess extends AbstractDbAccess implements IDbWriteAccess {
             resetSuiteMessagesCache();
             resetTestcaseMessagesCache();
             resetCheckpointsCache();
+            checkpointsBulkWriter.clearHistograms();
         }
 
         private void resetRunMessagesCache() {
@@ -1787,10 +1984,13 @@ public class DbWriteAccess extends AbstractDbAccess implements IDbWriteAccess {
 
             if( numberCachedCheckpoints > 0 ) {
                 numberCachedCheckpoints = 0;
-                try {
-                    insertCheckpointStatement.clearBatch();
-                } catch( SQLException e ) {}
-                insertCheckpointStatement = null;
+                checkpointsBulkWriter.clear();
+                if( insertCheckpointStatement != null ) {
+                    try {
+                        insertCheckpointStatement.clearBatch();
+                    } catch( SQLException e ) {}
+                    insertCheckpointStatement = null;
+                }
             }
         }
 
@@ -0,0 +1,269 @@
+/*
+ * Copyright 2017 Axway Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.axway.ats.log.autodb;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * A histogram of non-negative values(like response times in milliseconds) with a fixed relative precision.
+ *
+ * The values below 128 are counted exactly. Each bigger power of 2 range is split into 64 buckets,
+ * so the reported values are within 1.6% of the real ones. This way the histogram stays small no matter
+ * how many values are recorded, and histograms can be merged without losing precision.
+ *
+ * The class is not thread-safe.
+ */
+public class LatencyHistogram implements Serializable {
+
+    private static final long serialVersionUID  = 1L;
+
+    private static final int  SUB_BUCKET_BITS   = 6;
+    private static final int  SUB_BUCKET_COUNT  = 1 << SUB_BUCKET_BITS;
+    // the values below this one have a bucket each
+    private static final int  LINEAR_BUCKETS    = SUB_BUCKET_COUNT << 1;
+
+    private static final int  INITIAL_BUCKETS   = 512;
+
+    private long[]            counts            = new long[INITIAL_BUCKETS];
+    private int               maxUsedIndex      = -1;
+
+    private long              totalCount;
+    private long              minValue          = Long.MAX_VALUE;
+    private long              maxValue;
+    private long              sumValues;
+
+    /**
+     * Record a value. Negative values are recorded as 0.
+     *
+     * @param value the value
+     */
+    public void recordValue( long value ) {
+
+        recordValue( value, 1 );
+    }
+
+    /**
+     * Record a value a number of times. Negative values are recorded as 0.
+     *
+     * @param value the value
+     * @param count how many times to record it
+     */
+    public void recordValue( long value, long count ) {
+
+        if( count <= 0 ) {
+            return;
+        }
+        if( value < 0 ) {
+            value = 0;
+        }
+
+        addToBucket( getBucketIndex( value ), count );
+
+        totalCount += count;
+        sumValues += value * count;
+        minValue = Math.min( minValue, value );
+        maxValue = Math.max( maxValue, value );
+    }
+
+    /**
+     * Add all values of another histogram to this one
+     *
+     * @param other the other histogram
+     */
+    public void add( LatencyHistogram other ) {
+
+        if( other.totalCount == 0 ) {
+            return;
+        }
+
+        for( int i = 0; i <= other.maxUsedIndex; i++ ) {
+            if( other.counts[i] > 0 ) {
+                addToBucket( i, other.counts[i] );
+            }
+        }
+
+        totalCount += other.totalCount;
+        sumValues += other.sumValues;
+        minValue = Math.min( minValue, other.minValue );
+        maxValue = Math.max( maxValue, other.maxValue );
+    }
+
+    public long getTotalCount() {
+
+        return totalCount;
+    }
+
+    /**
+     * @return the minimum recorded value, 0 if there are no values
+     */
+    public long getMinValue() {
+
+        return totalCount == 0
+                               ? 0
+                               : minValue;
+    }
+
+    public long getMaxValue() {
+
+        return maxValue;
+    }
+
+    public long getSumValues() {
+
+        return sumValues;
+    }
+
+    public double getMean() {
+
+        return totalCount == 0
+                               ? 0
+                               : ( double ) sumValues / totalCount;
+    }
+
+    /**
+     * Get the value below which the provided percent of the recorded values fall
+     *
+     * @param percentile a number between 0 and 100
+     * @return the value at this percentile, 0 if there are no values
+     */
+    public long getValueAtPercentile( double percentile ) {
+
+        if( totalCount == 0 ) {
+            return 0;
+        }
+
+        double requestedPercentile = Math.min( Math.max( percentile, 0 ), 100 );
+        long countAtPercentile = Math.max( 1, ( long ) Math.ceil( requestedPercentile / 100 * totalCount ) );
+
+        long runningCount = 0;
+        for( int i = 0; i <= maxUsedIndex; i++ ) {
+            runningCount += counts[i];
+            if( runningCount >= countAtPercentile ) {
+                // the real value is somewhere in this bucket, but it is never outside the recorded range
+                return Math.max( minValue, Math.min( maxValue, getHighestValueInBucket( i ) ) );
+            }
+        }
+        return maxValue;
+    }
+
+    /**
+     * Encode the histogram in a compact text form, which lists the non-empty buckets only.
+     * The format is "&lt;min&gt;,&lt;max&gt;,&lt;sum&gt;|&lt;index delta&gt;:&lt;count&gt;,..."
+     *
+     * @return the encoded histogram
+     */
+    public String encode() {
+
+        StringBuilder sb = new StringBuilder();
+        sb.append( getMinValue() ).append( ',' ).append( maxValue ).append( ',' ).append( sumValues );
+        sb.append( '|' );
+
+        int previousIndex = 0;
+        boolean isFirst = true;
+        for( int i = 0; i <= maxUsedIndex; i++ ) {
+            if( counts[i] > 0 ) {
+                if( !isFirst ) {
+                    sb.append( ',' );
+                }
+                sb.append( i - previousIndex ).append( ':' ).append( counts[i] );
+                previousIndex = i;
+                isFirst = false;
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Create a histogram from its encoded form
+     *
+     * @param encoded the result of {@link #encode()}
+     * @return the histogram
+     * @throws IllegalArgumentException if the provided text is not an encoded histogram
+     */
+    public static LatencyHistogram decode( String encoded ) {
+
+        LatencyHistogram histogram = new LatencyHistogram();
+        if( encoded == null || encoded.length() == 0 ) {
+            return histogram;
+        }
+
+        try {
+            int separatorIndex = encoded.indexOf( '|' );
+            String[] totals = encoded.substring( 0, separatorIndex ).split( "," );
+
+            int index = 0;
+            String buckets = encoded.substring( separatorIndex + 1 );
+            if( buckets.length() > 0 ) {
+                for( String bucket : buckets.split( "," ) ) {
+                    int countIndex = bucket.indexOf( ':' );
+                    index += Integer.parseInt( bucket.substring( 0, countIndex ) );
+                    long count = Long.parseLong( bucket.substring( countIndex + 1 ) );
+                    histogram.addToBucket( index, count );
+                    histogram.totalCount += count;
+                }
+            }
+
+            if( histogram.totalCount > 0 ) {
+                histogram.minValue = Long.parseLong( totals[0] );
+                histogram.maxValue = Long.parseLong( totals[1] );
+                histogram.sumValues = Long.parseLong( totals[2] );
+            }
+        } catch( RuntimeException e ) {
+            throw new IllegalArgumentException( "Invalid histogram '" + encoded + "'", e );
+        }
+        return histogram;
+    }
+
+    @Override
+    public String toString() {
+
+        return "count " + totalCount + ", min " + getMinValue() + ", mean " + getMean() + ", max "
+               + maxValue;
+    }
+
+    static int getBucketIndex( long value ) {
+
+        if( value < LINEAR_BUCKETS ) {
+            return ( int ) value;
+        }
+
+        int highestBit = 63 - Long.numberOfLeadingZeros( value );
+        int shift = highestBit - SUB_BUCKET_BITS;
+        int subBucket = ( int ) ( value >>> shift ) - SUB_BUCKET_COUNT;
+        return LINEAR_BUCKETS + ( shift - 1 ) * SUB_BUCKET_COUNT + subBucket;
+    }
+
+    static long getHighestValueInBucket( int index ) {
+
+        if( index < LINEAR_BUCKETS ) {
+            return index;
+        }
+
+        int shift = ( index - LINEAR_BUCKETS ) / SUB_BUCKET_COUNT + 1;
+        long subBucket = SUB_BUCKET_COUNT + ( index - LINEAR_BUCKETS ) % SUB_BUCKET_COUNT;
+        return ( ( subBucket + 1 ) << shift ) - 1;
+    }
+
+    private void addToBucket( int index, long count ) {
+
+        if( index >= counts.length ) {
+            counts = Arrays.copyOf( counts, Math.max( index + 1, counts.length * 2 ) );
+        }
+        counts[index] += count;
+        maxUsedIndex = Math.max( maxUsedIndex, index );
+    }
+}
@@ -0,0 +1,192 @@
+/*
+ * Copyright 2017 Axway Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.axway.ats.log.autodb;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.log4j.spi.LoggingEvent;
+
+import com.axway.ats.core.dbaccess.mssql.DbConnSQLServer;
+import com.axway.ats.core.utils.TimeUtils;
+import com.axway.ats.log.autodb.exceptions.DatabaseAccessException;
+import com.axway.ats.log.autodb.model.AbstractLoggingEvent;
+import com.axway.ats.log.autodb.model.LoggingEventType;
+
+/**
+ * A logging thread which takes the events from the queue in batches.
+ *
+ * The test case messages and the inserted checkpoints are passed to a number of worker threads,
+ * each one having its own DB connection. The messages of one thread always go to the same worker,
+ * so their order is kept. The checkpoints with same name and load queue always go to the same worker,
+ * so their summary is created and updated by one DB connection only.
+ * All other events are processed by this thread. Prior to processing a life cycle event(like starting
+ * or ending a test case) we wait for the workers to send all their events to the DB.
+ */
+public class PipelineQueueLoggerThread extends QueueLoggerThread {
+
+    private static final int                    DRAIN_BATCH_SIZE = 1000;
+
+    /*
+     * The events which must not be processed before all previous events are in the DB
+     */
+    private static final Set<LoggingEventType>  LIFE_CYCLE_EVENTS = EnumSet.of( LoggingEventType.START_RUN,
+                                                                                LoggingEventType.END_RUN,
+                                                                                LoggingEventType.START_SUITE,
+                                                                                LoggingEventType.END_SUITE,
+                                                                                LoggingEventType.START_TEST_CASE,
+                                                                                LoggingEventType.END_TEST_CASE,
+                                                                                LoggingEventType.JOIN_TEST_CASE,
+                                                                                LoggingEventType.LEAVE_TEST_CASE,
+                                                                                LoggingEventType.END_LOADQUEUE );
+
+    private DbEventRequestProcessor             dbEventProcessor;
+
+    private DbEventsWorker[]                    workers;
+
+    public PipelineQueueLoggerThread( BlockingQueue<LogEventRequest> queue,
+                                      DbEventRequestProcessor eventProcessor,
+                                      DbAppenderConfiguration appenderConfig,
+                                      boolean isBatchMode ) throws DatabaseAccessException {
+
+        this( queue, eventProcessor, createWorkers( appenderConfig, isBatchMode ), isBatchMode );
+    }
+
+    PipelineQueueLoggerThread( BlockingQueue<LogEventRequest> queue, DbEventRequestProcessor eventProcessor,
+                               DbEventsWorker[] workers, boolean isBatchMode ) {
+
+        super( queue, eventProcessor, isBatchMode );
+
+        this.dbEventProcessor = eventProcessor;
+        this.workers = workers;
+    }
+
+    private static DbEventsWorker[] createWorkers( DbAppenderConfiguration appenderConfig,
+                                                   boolean isBatchMode ) throws DatabaseAccessException {
+
+        DbEventsWorker[] workers = new DbEventsWorker[appenderConfig.getNumberWorkers()];
+        for( int i = 0; i < workers.length; i++ ) {
+            workers[i] = new DbEventsWorker( new DbConnSQLServer( appenderConfig.getHost(),
+                                                                  appenderConfig.getDatabase(),
+                                                                  appenderConfig.getUser(),
+                                                                  appenderConfig.getPassword() ),
+                                             isBatchMode, isBatchMode && appenderConfig.isBulkMode(), i );
+        }
+        return workers;
+    }
+
+    @Override
+    public void run() {
+
+        System.out.println( TimeUtils.getFormattedDateTillMilliseconds() + " Started logger thread named '"
+                            + getName() + "' with queue of maximum " + queue.remainingCapacity()
+                            + " events and " + workers.length + " worker threads. Batch mode is "
+                            + ( isBatchMode
+                                            ? "enabled"
+                                            : "disabled" ) );
+
+        for( DbEventsWorker worker : workers ) {
+            worker.start();
+        }
+
+        List<LogEventRequest> batch = new ArrayList<LogEventRequest>( DRAIN_BATCH_SIZE );
+        try {
+            while( true ) {
+                if( queue.drainTo( batch, DRAIN_BATCH_SIZE ) == 0 ) {
+                    LogEventRequest logEventRequest;
+                    if( isBatchMode ) {
+                        // get the next event, wait no more than 10 seconds
+                        logEventRequest = queue.poll( 10, TimeUnit.SECONDS );
+                    } else {
+                        // block until receive an event in the queue
+                        logEventRequest = queue.take();
+                    }
+
+                    if( logEventRequest == null ) {
+                        // timeout waiting for next event - the processor will flush its cache,
+                        // the workers do the same on their own
+                        try {
+                            eventProcessor.processEventRequest( null );
+                        } catch( Exception e ) {
+                            handleProcessingException( e, null );
+                        }
+                        continue;
+                    }
+                    batch.add( logEventRequest );
+                }
+
+                for( LogEventRequest logEventRequest : batch ) {
+                    try {
+                        dispatch( logEventRequest );
+                    } catch( InterruptedException ie ) {
+                        throw ie;
+                    } catch( Exception e ) {
+                        handleProcessingException( e, logEventRequest );
+                    }
+                }
+                batch.clear();
+            }
+        } catch( InterruptedException ie ) {
+            // NOTE: In this method we talk to the user using console only as we cannot send it to the log DB
+            System.err.println( TimeUtils.getFormattedDateTillMilliseconds()
+                                + "*** ATS *** Logging thread is interrupted and will stop logging." );
+            for( DbEventsWorker worker : workers ) {
+                worker.interrupt();
+            }
+        }
+    }
+
+    private void dispatch( LogEventRequest logEventRequest ) throws Exception {
+
+        DbEventsWorker.WorkerEvent workerEvent = dbEventProcessor.prepareWorkerEvent( logEventRequest );
+        if( workerEvent != null ) {
+            workers[getWorkerIndex( workerEvent.getRoutingKey() )].addEvent( workerEvent );
+            return;
+        }
+
+        LoggingEvent event = logEventRequest.getEvent();
+        if( event instanceof AbstractLoggingEvent
+            && LIFE_CYCLE_EVENTS.contains( ( ( AbstractLoggingEvent ) event ).getEventType() ) ) {
+            waitForWorkers();
+        }
+        eventProcessor.processEventRequest( logEventRequest );
+    }
+
+    /**
+     * Wait until all workers send to the DB the events they have received so far
+     */
+    private void waitForWorkers() throws InterruptedException {
+
+        CountDownLatch latch = new CountDownLatch( workers.length );
+        for( DbEventsWorker worker : workers ) {
+            worker.requestFlush( latch );
+        }
+        latch.await();
+    }
+
+    private int getWorkerIndex( String routingKey ) {
+
+        int hash = routingKey == null
+                                      ? 0
+                                      : routingKey.hashCode();
+        return ( hash & Integer.MAX_VALUE ) % workers.length;
+    }
+}
@@ -19,7 +19,7 @@
 
 package com.axway.ats.log.autodb;
 
-import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.TimeUnit;
 
 import org.apache.log4j.Logger;
@@ -37,20 +37,20 @@ import com.axway.ats.log.autodb.model.LoggingEventType;
  */
 public class QueueLoggerThread extends Thread {
 
-    final static Logger                         log               = Logger.getLogger( QueueLoggerThread.class );
-    private EventRequestProcessor               eventProcessor;
-    private LoggingException                    loggingException;
+    final static Logger                           log               = Logger.getLogger( QueueLoggerThread.class );
+    protected EventRequestProcessor               eventProcessor;
+    private LoggingException                      loggingException;
 
-    private boolean                             isBatchMode;
+    protected boolean                             isBatchMode;
 
-    private boolean                             isUnableToConnect = false;
+    private boolean                               isUnableToConnect = false;
 
     /**
      * the events queue
      */
-    private ArrayBlockingQueue<LogEventRequest> queue;
+    protected BlockingQueue<LogEventRequest>      queue;
 
-    public QueueLoggerThread( ArrayBlockingQueue<LogEventRequest> queue, EventRequestProcessor eventProcessor,
+    public QueueLoggerThread( BlockingQueue<LogEventRequest> queue, EventRequestProcessor eventProcessor,
                               boolean isBatchMode ) {
 
         this.queue = queue;
@@ -92,64 +92,76 @@ public class QueueLoggerThread extends Thread {
                                     + "*** ATS *** Logging thread is interrupted and will stop logging." );
                 break;
             } catch( Exception e ) {
-                if( e instanceof LoggingException && logEventRequest != null ) {
-                    LoggingException le = ( LoggingException ) e;
-                    LoggingEvent event = logEventRequest.getEvent();
-                    if( event instanceof AbstractLoggingEvent ) {
-                        AbstractLoggingEvent dbAppenderEvent = ( AbstractLoggingEvent ) event;
-                        LoggingEventType eventType = dbAppenderEvent.getEventType();
-                        // If START_* log entity event do not work, we can not end it
-                        // nor we can insert into that entity its sub-entities
-
-                        // We do not let user know about other type of failed events, as it would be too verbose.
-                        // We do not remember other type of failed events, as these are the only ones we check in the main thread.
-                        // The Join Testcase event is the one that connects to the DB on the side of ATS Agent
-                        if( eventType == LoggingEventType.START_RUN
-                            || eventType == LoggingEventType.START_SUITE
-                            || eventType == LoggingEventType.START_TEST_CASE
-                            || eventType == LoggingEventType.JOIN_TEST_CASE
-                            || eventType == LoggingEventType.START_CHECKPOINT ) {
-
-                            System.err.println( ExceptionUtils.getExceptionMsg( le,
-                                                                                TimeUtils.getFormattedDateTillMilliseconds()
-                                                                                    + " *** ATS *** Error running "
-                                                                                    + eventType
-                                                                                    + " event" ) );
-
-                            synchronized( this ) {
-                                this.loggingException = le;
-                            }
-                        }
-                    } else if( le.getMessage().equalsIgnoreCase( AbstractDbAccess.UNABLE_TO_CONNECT_ERRROR )
-                               && !isUnableToConnect ) {
-                        // We do not log the no connectivity problem on each failure, we do it just once.
-                        // This case is likely to happen on a remote Agent host without set DNS servers - in such
-                        // case providing FQDN in the log4j.xml makes the DB logging impossible
-                        System.err.println( ExceptionUtils.getExceptionMsg( e,
-                                                                            TimeUtils.getFormattedDateTillMilliseconds()
-                                                                               + "*** ATS *** Error processing log event" ) );
-
-                        isUnableToConnect = true;
-                    }
-                } else {
-                    // we do not let this exception break this thread, but only log it into the console
-                    // we expect to get here when hit some very unusual errors
-
-                    if( logEventRequest != null ) {
-                        System.err.println( ExceptionUtils.getExceptionMsg( e,
-                                                                            TimeUtils.getFormattedDateTillMilliseconds()
-                                                                               + "*** ATS *** Error processing log event "
-                                                                               + logEventRequest.getEvent()
-                                                                                                .getMessage() ) );
-                    } else {
-                        // The 'log event request' object is null because timed out while waiting for it from the queue.
-                        // This happens when running in batch mode.
-                        // Then we tried to flush the current events, but this was not successful, so came here.
-                        System.err.println( ExceptionUtils.getExceptionMsg( e,
-                                                                            TimeUtils.getFormattedDateTillMilliseconds()
-                                                                               + "*** ATS *** Error processing log events in batch mode" ) );
+                handleProcessingException( e, logEventRequest );
+            }
+        }
+    }
+
+    /**
+     * Report a problem while processing an event.
+     * We do not let the exception break this thread, but only log it into the console.
+     *
+     * @param e the exception
+     * @param logEventRequest the event which was processed, null when timed out waiting for an event in batch mode
+     */
+    protected void handleProcessingException( Exception e, LogEventRequest logEventRequest ) {
+
+        if( e instanceof LoggingException && logEventRequest != null ) {
+            LoggingException le = ( LoggingException ) e;
+            LoggingEvent event = logEventRequest.getEvent();
+            if( event instanceof AbstractLoggingEvent ) {
+                AbstractLoggingEvent dbAppenderEvent = ( AbstractLoggingEvent ) event;
+                LoggingEventType eventType = dbAppenderEvent.getEventType();
+                // If START_* log entity event do not work, we can not end it
+                // nor we can insert into that entity its sub-entities
+
+                // We do not let user know about other type of failed events, as it would be too verbose.
+                // We do not remember other type of failed events, as these are the only ones we check in the main thread.
+                // The Join Testcase event is the one that connects to the DB on the side of ATS Agent
+                if( eventType == LoggingEventType.START_RUN
+                    || eventType == LoggingEventType.START_SUITE
+                    || eventType == LoggingEventType.START_TEST_CASE
+                    || eventType == LoggingEventType.JOIN_TEST_CASE
+                    || eventType == LoggingEventType.START_CHECKPOINT ) {
+
+                    System.err.println( ExceptionUtils.getExceptionMsg( le,
+                                                                        TimeUtils.getFormattedDateTillMilliseconds()
+                                                                            + " *** ATS *** Error running "
+                                                                            + eventType
+                                                                            + " event" ) );
+
+                    synchronized( this ) {
+                        this.loggingException = le;
                     }
                 }
+            } else if( le.getMessage().equalsIgnoreCase( AbstractDbAccess.UNABLE_TO_CONNECT_ERRROR )
+                       && !isUnableToConnect ) {
+                // We do not log the no connectivity problem on each failure, we do it just once.
+                // This case is likely to happen on a remote Agent host without set DNS servers - in such
+                // case providing FQDN in the log4j.xml makes the DB logging impossible
+                System.err.println( ExceptionUtils.getExceptionMsg( e,
+                                                                    TimeUtils.getFormattedDateTillMilliseconds()
+                                                                       + "*** ATS *** Error processing log event" ) );
+
+                isUnableToConnect = true;
+            }
+        } else {
+            // we do not let this exception break this thread, but only log it into the console
+            // we expect to get here when hit some very unusual errors
+
+            if( logEventRequest != null ) {
+                System.err.println( ExceptionUtils.getExceptionMsg( e,
+                                                                    TimeUtils.getFormattedDateTillMilliseconds()
+                                                                       + "*** ATS *** Error processing log event "
+                                                                       + logEventRequest.getEvent()
+                                                                                        .getMessage() ) );
+            } else {
+                // The 'log event request' object is null because timed out while waiting for it from the queue.
+                // This happens when running in batch mode.
+                // Then we tried to flush the current events, but this was not successful, so came here.
+                System.err.println( ExceptionUtils.getExceptionMsg( e,
+                                                                    TimeUtils.getFormattedDateTillMilliseconds()
+                                                                       + "*** ATS *** Error processing log events in batch mode" ) );
             }
         }
     }
@@ -0,0 +1,389 @@
+/*
+ * Copyright 2017 Axway Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.axway.ats.log.autodb;
+
+import java.util.AbstractQueue;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A bounded, lock-free queue backed by a pre-allocated ring of slots.
+ *
+ * Each slot has a sequence number which tells whether it is free for the producer of a given
+ * position or filled for the consumer of that position. The producers claim positions with a CAS
+ * operation, so they do not contend on a shared lock as with {@link java.util.concurrent.ArrayBlockingQueue}.
+ *
+ * It is designed for many producers(the threads which log) and one consumer(the logging thread),
+ * but it is safe to be used by many consumers as well.
+ * Waiting on a full or empty queue is done by spinning for a while and then parking the thread.
+ *
+ * @param <E> the type of the elements
+ */
+public class RingBufferEventsQueue<E> extends AbstractQueue<E> implements BlockingQueue<E> {
+
+    private static final int              SPINS_BEFORE_PARK = 100;
+    private static final long             MAX_PARK_NANOS    = TimeUnit.MILLISECONDS.toNanos( 1 );
+
+    private final int                     capacity;
+    private final int                     mask;
+
+    private final AtomicReferenceArray<E> slots;
+    private final AtomicLongArray         sequences;
+
+    // next position to write to
+    private final AtomicLong              tail              = new AtomicLong();
+    // next position to read from
+    private final AtomicLong              head              = new AtomicLong();
+
+    // a consumer waiting for elements, the producers wake it up
+    private volatile Thread               waitingConsumer;
+
+    // metrics
+    private final AtomicLong              maxOccupancy      = new AtomicLong();
+    private final AtomicLong              producerWaits     = new AtomicLong();
+    private final AtomicLong              producerWaitNanos = new AtomicLong();
+    private final AtomicLong              consumerWaitNanos = new AtomicLong();
+
+    /**
+     * @param requestedCapacity the minimum capacity, it is rounded up to a power of 2
+     */
+    public RingBufferEventsQueue( int requestedCapacity ) {
+
+        if( requestedCapacity < 1 ) {
+            throw new IllegalArgumentException( "Capacity must be positive, but it is " + requestedCapacity );
+        }
+
+        int newCapacity = 1;
+        while( newCapacity < requestedCapacity ) {
+            newCapacity <<= 1;
+        }
+        this.capacity = newCapacity;
+        this.mask = newCapacity - 1;
+
+        this.slots = new AtomicReferenceArray<E>( newCapacity );
+        this.sequences = new AtomicLongArray( newCapacity );
+        for( int i = 0; i < newCapacity; i++ ) {
+            sequences.set( i, i );
+        }
+    }
+
+    @Override
+    public boolean offer( E element ) {
+
+        if( element == null ) {
+            throw new NullPointerException();
+        }
+
+        while( true ) {
+            long position = tail.get();
+            int index = ( int ) position & mask;
+            long difference = sequences.get( index ) - position;
+            if( difference == 0 ) {
+                // the slot is free, try to claim it
+                if( tail.compareAndSet( position, position + 1 ) ) {
+                    slots.lazySet( index, element );
+                    sequences.set( index, position + 1 );
+
+                    updateMaxOccupancy( position + 1 - head.get() );
+                    Thread consumer = waitingConsumer;
+                    if( consumer != null ) {
+                        LockSupport.unpark( consumer );
+                    }
+                    return true;
+                }
+            } else if( difference < 0 ) {
+                // the slot is still not consumed - the queue is full
+                return false;
+            }
+            // else another producer claimed this position, try again
+        }
+    }
+
+    @Override
+    public E poll() {
+
+        while( true ) {
+            long position = head.get();
+            int index = ( int ) position & mask;
+            long difference = sequences.get( index ) - ( position + 1 );
+            if( difference == 0 ) {
+                // the slot is filled, try to claim it
+                if( head.compareAndSet( position, position + 1 ) ) {
+                    E element = slots.get( index );
+                    slots.lazySet( index, null );
+                    // free the slot for the producer which comes one lap later
+                    sequences.set( index, position + capacity );
+                    return element;
+                }
+            } else if( difference < 0 ) {
+                // the slot is still not filled - the queue is empty
+                return null;
+            }
+            // else another consumer claimed this position, try again
+        }
+    }
+
+    @Override
+    public E peek() {
+
+        long position = head.get();
+        int index = ( int ) position & mask;
+        if( sequences.get( index ) == position + 1 ) {
+            return slots.get( index );
+        }
+        return null;
+    }
+
+    @Override
+    public void put( E element ) throws InterruptedException {
+
+        if( offer( element ) ) {
+            return;
+        }
+
+        long startTime = System.nanoTime();
+        int spins = 0;
+        while( !offer( element ) ) {
+            if( Thread.interrupted() ) {
+                registerProducerWait( startTime );
+                throw new InterruptedException();
+            }
+            spins = backOff( spins, MAX_PARK_NANOS );
+        }
+        registerProducerWait( startTime );
+    }
+
+    @Override
+    public boolean offer( E element, long timeout, TimeUnit unit ) throws InterruptedException {
+
+        if( offer( element ) ) {
+            return true;
+        }
+
+        long startTime = System.nanoTime();
+        long deadline = startTime + unit.toNanos( timeout );
+        int spins = 0;
+        try {
+            while( !offer( element ) ) {
+                if( Thread.interrupted() ) {
+                    throw new InterruptedException();
+                }
+                long remaining = deadline - System.nanoTime();
+                if( remaining <= 0 ) {
+                    return false;
+                }
+                spins = backOff( spins, Math.min( remaining, MAX_PARK_NANOS ) );
+            }
+            return true;
+        } finally {
+            registerProducerWait( startTime );
+        }
+    }
+
+    @Override
+    public E take() throws InterruptedException {
+
+        E element = poll();
+        if( element != null ) {
+            return element;
+        }
+
+        long startTime = System.nanoTime();
+        waitingConsumer = Thread.currentThread();
+        try {
+            int spins = 0;
+            while( ( element = poll() ) == null ) {
+                if( Thread.interrupted() ) {
+                    throw new InterruptedException();
+                }
+                spins = backOff( spins, MAX_PARK_NANOS );
+            }
+            return element;
+        } finally {
+            waitingConsumer = null;
+            consumerWaitNanos.addAndGet( System.nanoTime() - startTime );
+        }
+    }
+
+    @Override
+    public E poll( long timeout, TimeUnit unit ) throws InterruptedException {
+
+        E element = poll();
+        if( element != null ) {
+            return element;
+        }
+
+        long startTime = System.nanoTime();
+        long deadline = startTime + unit.toNanos( timeout );
+        waitingConsumer = Thread.currentThread();
+        try {
+            int spins = 0;
+            while( ( element = poll() ) == null ) {
+                if( Thread.interrupted() ) {
+                    throw new InterruptedException();
+                }
+                long remaining = deadline - System.nanoTime();
+                if( remaining <= 0 ) {
+                    return null;
+                }
+                // the producers wake us up, so we can park for longer here
+                spins = backOff( spins, remaining );
+            }
+            return element;
+        } finally {
+            waitingConsumer = null;
+            consumerWaitNanos.addAndGet( System.nanoTime() - startTime );
+        }
+    }
+
+    @Override
+    public int drainTo( Collection<? super E> collection ) {
+
+        return drainTo( collection, Integer.MAX_VALUE );
+    }
+
+    @Override
+    public int drainTo( Collection<? super E> collection, int maxElements ) {
+
+        if( collection == this ) {
+            throw new IllegalArgumentException();
+        }
+
+        int numberDrained = 0;
+        E element;
+        while( numberDrained < maxElements && ( element = poll() ) != null ) {
+            collection.add( element );
+            numberDrained++;
+        }
+        return numberDrained;
+    }
+
+    @Override
+    public int size() {
+
+        // read head first, so we never see a size bigger than the real one
+        long currentHead = head.get();
+        long size = tail.get() - currentHead;
+        if( size < 0 ) {
+            return 0;
+        } else if( size > capacity ) {
+            return capacity;
+        }
+        return ( int ) size;
+    }
+
+    @Override
+    public int remainingCapacity() {
+
+        return capacity - size();
+    }
+
+    /**
+     * @return a weakly consistent iterator over a snapshot of the current elements
+     */
+    @Override
+    public Iterator<E> iterator() {
+
+        List<E> snapshot = new ArrayList<E>();
+        long currentTail = tail.get();
+        for( long position = head.get(); position < currentTail; position++ ) {
+            int index = ( int ) position & mask;
+            if( sequences.get( index ) == position + 1 ) {
+                E element = slots.get( index );
+                if( element != null ) {
+                    snapshot.add( element );
+                }
+            }
+        }
+        return snapshot.iterator();
+    }
+
+    public int getCapacity() {
+
+        return capacity;
+    }
+
+    /**
+     * @return the maximum number of elements which were in the queue at the same time
+     */
+    public long getMaxOccupancy() {
+
+        return maxOccupancy.get();
+    }
+
+    /**
+     * @return how many times a producer waited for a free slot
+     */
+    public long getProducerWaits() {
+
+        return producerWaits.get();
+    }
+
+    /**
+     * @return the total time the producers waited for a free slot, in nanoseconds
+     */
+    public long getProducerWaitNanos() {
+
+        return producerWaitNanos.get();
+    }
+
+    /**
+     * @return the total time the consumers waited for elements, in nanoseconds
+     */
+    public long getConsumerWaitNanos() {
+
+        return consumerWaitNanos.get();
+    }
+
+    private void updateMaxOccupancy( long occupancy ) {
+
+        long currentMax;
+        while( occupancy > ( currentMax = maxOccupancy.get() ) ) {
+            if( maxOccupancy.compareAndSet( currentMax, occupancy ) ) {
+                return;
+            }
+        }
+    }
+
+    private void registerProducerWait( long startTime ) {
+
+        producerWaits.incrementAndGet();
+        producerWaitNanos.addAndGet( System.nanoTime() - startTime );
+    }
+
+    /**
+     * Spin for a while, then park for up to the provided time
+     *
+     * @return the new number of spins
+     */
+    private static int backOff( int spins, long maxParkNanos ) {
+
+        if( spins < SPINS_BEFORE_PARK ) {
+            Thread.yield();
+        } else {
+            LockSupport.parkNanos( maxParkNanos );
+        }
+        return spins + 1;
+    }
+}
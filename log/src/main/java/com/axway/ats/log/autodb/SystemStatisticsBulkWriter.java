@@ -0,0 +1,196 @@
+/*
+ * Copyright 2017 Axway Software
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.axway.ats.log.autodb;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.axway.ats.core.dbaccess.DbUtils;
+
+/**
+ * Inserts system statistics which are provided as primitive arrays with multi-row INSERT statements.
+ *
+ * This is a replacement of the <i>sp_insert_system_statistic_by_ids</i> calls, which need the statistic IDs
+ * and values packed in strings that are limited in size, so many calls are needed when there are many statistics.
+ *
+ * The class is not thread-safe, it is used by the logging thread only.
+ */
+class SystemStatisticsBulkWriter {
+
+    /*
+     * MSSQL allows up to 2100 parameters per statement.
+     * We have 3 common parameters and 2 parameters per statistic row.
+     */
+    static final int             ROWS_PER_STATISTICS_INSERT = 1000;
+
+    /*
+     * The machine IDs we already know about
+     *
+     * key = <machine name>; value = <machine ID>
+     */
+    private Map<String, Integer> machineIds                 = new HashMap<String, Integer>();
+
+    /**
+     * Insert the statistics of one machine for one timestamp
+     *
+     * @param connection the connection to use
+     * @param testCaseId the test case ID
+     * @param machine the machine name
+     * @param statisticIds the statistics' DB IDs
+     * @param statisticValues the statistics' values
+     * @param timestamp the timestamp
+     * @return the number of executed statements
+     * @throws SQLException
+     */
+    int insert( Connection connection, int testCaseId, String machine, int[] statisticIds,
+                float[] statisticValues, long timestamp ) throws SQLException {
+
+        if( statisticIds.length != statisticValues.length ) {
+            throw new IllegalArgumentException( "There are " + statisticIds.length + " statistic IDs, but "
+                                                + statisticValues.length + " statistic values" );
+        }
+        if( statisticIds.length == 0 ) {
+            return 0;
+        }
+
+        int machineId = getMachineId( connection, machine );
+
+        int numberStatements = 0;
+        PreparedStatement fullStatement = null;
+        PreparedStatement lastStatement = null;
+        try {
+            for( int fromIndex = 0; fromIndex < statisticIds.length; fromIndex += ROWS_PER_STATISTICS_INSERT ) {
+                int toIndex = Math.min( fromIndex + ROWS_PER_STATISTICS_INSERT, statisticIds.length );
+                int numberRows = toIndex - fromIndex;
+
+                PreparedStatement statement;
+                if( numberRows == ROWS_PER_STATISTICS_INSERT ) {
+                    // all chunks but the last one have the same size, so we reuse their statement
+                    if( fullStatement == null ) {
+                        fullStatement = connection.prepareStatement( buildInsertStatisticsSql( numberRows ) );
+                    }
+                    statement = fullStatement;
+                } else {
+                    lastStatement = connection.prepareStatement( buildInsertStatisticsSql( numberRows ) );
+                    statement = lastStatement;
+                }
+
+                int parameterIndex = 1;
+                statement.setInt( parameterIndex++, testCaseId );
+                statement.setInt( parameterIndex++, machineId );
+                statement.setTimestamp( parameterIndex++, new Timestamp( timestamp ) );
+                for( int i = fromIndex; i < toIndex; i++ ) {
+                    statement.setInt( parameterIndex++, statisticIds[i] );
+                    statement.setFloat( parameterIndex++, statisticValues[i] );
+                }
+                statement.executeUpdate();
+                numberStatements++;
+            }
+        } finally {
+            DbUtils.closeStatement( fullStatement );
+            DbUtils.closeStatement( lastStatement );
+        }
+        return numberStatements;
+    }
+
+    /**
+     * Forget the cached machine IDs. This must be done when an insert fails, because a newly
+     * created machine may be rolled back.
+     */
+    void clearMachineIds() {
+
+        machineIds.clear();
+    }
+
+    private int getMachineId( Connection connection, String machine ) throws SQLException {
+
+        Integer machineId = machineIds.get( machine );
+        if( machineId == null ) {
+            machineId = loadMachineId( connection, machine );
+            if( machineId == null ) {
+                machineId = createMachine( connection, machine );
+            }
+            machineIds.put( machine, machineId );
+        }
+        return machineId;
+    }
+
+    private Integer loadMachineId( Connection connection, String machine ) throws SQLException {
+
+        PreparedStatement statement = null;
+        ResultSet rs = null;
+        try {
+            statement = connection.prepareStatement( "SELECT machineId FROM tMachines WHERE machineName = ?" );
+            statement.setString( 1, machine );
+            rs = statement.executeQuery();
+            if( rs.next() ) {
+                return rs.getInt( "machineId" );
+            }
+            return null;
+        } finally {
+            DbUtils.closeResultSet( rs );
+            DbUtils.closeStatement( statement );
+        }
+    }
+
+    private int createMachine( Connection connection, String machine ) throws SQLException {
+
+        PreparedStatement statement = null;
+        try {
+            statement = connection.prepareStatement( "INSERT INTO tMachines (machineName) VALUES (?)",
+                                                     Statement.RETURN_GENERATED_KEYS );
+            statement.setString( 1, machine );
+            statement.executeUpdate();
+
+            ResultSet rs = statement.getGeneratedKeys();
+            try {
+                if( !rs.next() ) {
+                    throw new SQLException( "No ID returned for the new machine '" + machine + "'" );
+                }
+                return rs.getInt( 1 );
+            } finally {
+                DbUtils.closeResultSet( rs );
+            }
+        } finally {
+            DbUtils.closeStatement( statement );
+        }
+    }
+
+    /*
+     * The test case, machine and timestamp are the same for all rows, so they are passed once
+     */
+    static String buildInsertStatisticsSql( int numberRows ) {
+
+        StringBuilder sql = new StringBuilder( "INSERT INTO tSystemStats (testcaseId,machineId,statsTypeId,timestamp,value)"
+                                               + " SELECT t.testcaseId, t.machineId, s.statsTypeId, t.timestamp, s.value"
+                                               + " FROM (VALUES (?,?,?)) AS t (testcaseId,machineId,timestamp)"
+                                               + " CROSS JOIN (VALUES " );
+        for( int i = 0; i < numberRows; i++ ) {
+            if( i > 0 ) {
+                sql.append( "," );
+            }
+            sql.append( "(?,?)" );
+        }
+        sql.append( ") AS s (statsTypeId,value)" );
+        return sql.toString();
+    }
+}
@@ -21,6 +21,11 @@ public class Checkpoint implements Serializable {
 
     private static final long serialVersionUID = 1L;
 
+    /**
+     * Added to the name of a checkpoint which carries the action latencies corrected for coordinated omission
+     */
+    public static final String CORRECTED_LATENCY_SUFFIX = " (corrected)";
+
     public int                checkpointId;
     public String             name;
 
@@ -0,0 +1,59 @@
+/*
+ * Copyright 2017 Axway Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.axway.ats.log.autodb.entities;
+
+import java.io.Serializable;
+
+import com.axway.ats.log.autodb.LatencyHistogram;
+
+/**
+ * The response times of one checkpoint in one load queue for one time window.
+ * It is present when the checkpoints are logged on HISTOGRAM checkpoint log level.
+ */
+public class CheckpointHistogram implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    public int                checkpointSummaryId;
+    public String             name;
+    public String             queueName;
+    public int                testcaseId;
+
+    // the window start as milliseconds since the epoch
+    public long               windowStart;
+    // the window length in milliseconds
+    public int                windowLength;
+
+    public int                numFailed;
+    public long               sumTransferSize;
+
+    // the response times of the passed checkpoints in microseconds
+    public LatencyHistogram   responseTimes    = new LatencyHistogram();
+
+    public long getNumPassed() {
+
+        return responseTimes.getTotalCount();
+    }
+
+    /**
+     * @param percentile a number between 0 and 100
+     * @return the response time at this percentile in microseconds
+     */
+    public long getResponseTimeAtPercentile( double percentile ) {
+
+        return responseTimes.getValueAtPercentile( percentile );
+    }
+}
@@ -28,6 +28,7 @@ public class InsertCheckpointEvent extends TestCaseLoggingEvent implements Cache
     private String           name;
     private long             startTimestamp;
     private long             responseTime;
+    private long             responseTimeMicros;
     private long             transferSize;
     private String           transferUnit;
     private String           threadName;
@@ -43,6 +44,33 @@ public class InsertCheckpointEvent extends TestCaseLoggingEvent implements Cache
                                   String threadName,
                                   CheckpointResult result ) {
 
+        this( fqnOfCategoryClass,
+              logger,
+              name,
+              startTimestamp,
+              responseTime,
+              responseTime * 1000,
+              transferSize,
+              transferUnit,
+              threadName,
+              result );
+    }
+
+    /**
+     * @param responseTime the response time in milliseconds
+     * @param responseTimeMicros the same response time in microseconds, when it is measured with such precision
+     */
+    public InsertCheckpointEvent( String fqnOfCategoryClass,
+                                  Logger logger,
+                                  String name,
+                                  long startTimestamp,
+                                  long responseTime,
+                                  long responseTimeMicros,
+                                  long transferSize,
+                                  String transferUnit,
+                                  String threadName,
+                                  CheckpointResult result ) {
+
         super( fqnOfCategoryClass,
                logger,
                "Insert checkpoint '" + name + "'",
@@ -54,6 +82,7 @@ public class InsertCheckpointEvent extends TestCaseLoggingEvent implements Cache
             this.startTimestamp = System.currentTimeMillis();
         }
         this.responseTime = responseTime;
+        this.responseTimeMicros = responseTimeMicros;
         this.name = name;
         this.transferSize = transferSize;
         this.transferUnit = transferUnit;
@@ -71,6 +100,15 @@ public class InsertCheckpointEvent extends TestCaseLoggingEvent implements Cache
         return responseTime;
     }
 
+    /**
+     * @return the response time in microseconds. Unless measured with such precision,
+     * this is the response time in milliseconds multiplied by 1000
+     */
+    public long getResponseTimeMicros() {
+
+        return responseTimeMicros;
+    }
+
     public String getName() {
 
         return name;
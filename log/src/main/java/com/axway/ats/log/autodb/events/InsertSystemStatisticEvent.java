@@ -26,10 +26,12 @@ import com.axway.ats.log.autodb.model.TestCaseLoggingEvent;
 @SuppressWarnings("serial")
 public class InsertSystemStatisticEvent extends TestCaseLoggingEvent {
 
-    private String monitoredMachine;
-    private String statisticIds;
-    private String statisticValues;
-    private long   timestamp;
+    private String  monitoredMachine;
+    private String  statisticIds;
+    private String  statisticValues;
+    private int[]   statisticDbIds;
+    private float[] statisticFloatValues;
+    private long    timestamp;
 
     /**
      * Constructor
@@ -56,6 +58,31 @@ public class InsertSystemStatisticEvent extends TestCaseLoggingEvent {
         this.timestamp = timestamp;
     }
 
+    /**
+     * Constructor for statistics provided as primitive arrays
+     *
+     * @param loggerFQCN
+     * @param logger
+     * @param monitoredMachine
+     * @param statisticDbIds
+     * @param statisticValues
+     * @param timestamp
+     */
+    public InsertSystemStatisticEvent( String loggerFQCN,
+                                       Logger logger,
+                                       String monitoredMachine,
+                                       int[] statisticDbIds,
+                                       float[] statisticValues,
+                                       long timestamp ) {
+
+        super( loggerFQCN, logger, "Insert system statistic", LoggingEventType.INSERT_SYSTEM_STAT );
+
+        this.monitoredMachine = monitoredMachine;
+        this.statisticDbIds = statisticDbIds;
+        this.statisticFloatValues = statisticValues;
+        this.timestamp = timestamp;
+    }
+
     /**
      * @return the name of the monitored machine
      */
@@ -72,6 +99,30 @@ public class InsertSystemStatisticEvent extends TestCaseLoggingEvent {
         return statisticIds;
     }
 
+    /**
+     * @return the DB IDs of the statistics, when they are provided as primitive arrays
+     */
+    public int[] getStatisticDbIds() {
+
+        return statisticDbIds;
+    }
+
+    /**
+     * @return the values of the statistics, when they are provided as primitive arrays
+     */
+    public float[] getStatisticFloatValues() {
+
+        return statisticFloatValues;
+    }
+
+    /**
+     * @return whether the statistics are provided as primitive arrays
+     */
+    public boolean hasPrimitiveValues() {
+
+        return statisticDbIds != null;
+    }
+
     /**
      * @return the timestamp of this statistic
      */
@@ -19,6 +19,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
+import com.axway.ats.log.autodb.entities.Checkpoint;
+import com.axway.ats.log.autodb.entities.CheckpointHistogram;
 import com.axway.ats.log.autodb.entities.CheckpointSummary;
 import com.axway.ats.log.autodb.entities.LoadQueue;
 import com.axway.ats.log.autodb.entities.Machine;
@@ -142,6 +144,23 @@ public interface IDbReadAccess {
                                                     Set<String> expectedSingleActionUIDs,
                                                     Set<String> expectedCombinedActionUIDs ) throws DatabaseAccessException;
 
+    /**
+     * Get the checkpoint statistics, optionally together with the latencies corrected for coordinated omission.
+     * The corrected latencies are logged by the paced load queues when the agent runs with the
+     * "ats.agent.corrected.action.latency" system property. They come as statistics with the
+     * name of the checkpoint followed by {@link Checkpoint#CORRECTED_LATENCY_SUFFIX}, so both can be plotted
+     * side by side.
+     *
+     * @param includeCorrectedLatencies whether to return the corrected latencies of the requested checkpoints
+     */
+    public List<Statistic> getCheckpointStatistics(
+                                                    float timeOffset,
+                                                    String testcaseIds,
+                                                    String actionNames,
+                                                    Set<String> expectedSingleActionUIDs,
+                                                    Set<String> expectedCombinedActionUIDs,
+                                                    boolean includeCorrectedLatencies ) throws DatabaseAccessException;
+
     public List<Statistic> getCheckpointAggregatedStatistics(
                                                               float timeOffset,
                                                               String testcaseIds,
@@ -151,6 +170,35 @@ public interface IDbReadAccess {
                                                               int interval,
                                                               int mode ) throws DatabaseAccessException;
 
+    /**
+     * Get the checkpoint response time histograms, they are present for the load queues
+     * which are logged on HISTOGRAM checkpoint log level
+     *
+     * @param testcaseIds comma separated testcase IDs
+     * @param actionNames the checkpoint names, all checkpoints are returned when null or empty
+     * @param interval the histograms are merged in intervals of this number of seconds, 0 means no merging
+     */
+    public List<CheckpointHistogram> getCheckpointHistograms(
+                                                              String testcaseIds,
+                                                              Set<String> actionNames,
+                                                              int interval ) throws DatabaseAccessException;
+
+    /**
+     * Get a time series of checkpoint response time percentiles, calculated from the checkpoint histograms.
+     * Besides the percentile, the statistics carry the average, sum and count of the response times.
+     * The values are in milliseconds with a fraction, as the histograms keep microseconds.
+     *
+     * @param testcaseIds comma separated testcase IDs
+     * @param actionNames the checkpoint names, all checkpoints are returned when null or empty
+     * @param interval the length of one time series point in seconds, 0 means the length of the histogram windows
+     * @param percentile a number between 0 and 100
+     */
+    public List<Statistic> getCheckpointPercentileStatistics(
+                                                              String testcaseIds,
+                                                              Set<String> actionNames,
+                                                              int interval,
+                                                              double percentile ) throws DatabaseAccessException;
+
     public List<LoadQueue> getLoadQueues(
                                             String whereClause,
                                             String sortColumn,
@@ -119,6 +119,10 @@ public interface IDbWriteAccess {
                                         String statisticValues, long timestamp,
                                         boolean closeConnection ) throws DatabaseAccessException;
 
+    public void insertSystemStatistics( int testCaseId, String machine, int[] statisticIds,
+                                        float[] statisticValues, long timestamp,
+                                        boolean closeConnection ) throws DatabaseAccessException;
+
     public int populateSystemStatisticDefinition( String name, String parentName, String internalName,
                                                   String unit, String params ) throws DatabaseAccessException;
 
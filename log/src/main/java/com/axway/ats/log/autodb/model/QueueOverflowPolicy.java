@@ -0,0 +1,58 @@
+/*
+ * Copyright 2017 Axway Software
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.axway.ats.log.autodb.model;
+
+/**
+ * What to do when the logging events queue is full
+ */
+public enum QueueOverflowPolicy {
+
+    /**
+     * Throw an exception in the logging thread. This is the default behavior
+     */
+    FAIL,
+
+    /**
+     * Block the logging thread until there is a free place in the queue
+     */
+    BLOCK,
+
+    /**
+     * Drop the messages with level lower than WARN, block for all other events
+     */
+    DROP,
+
+    /**
+     * Write the messages into a local file, block for all other events
+     */
+    SPILL;
+
+    /**
+     * @param policy the policy name, case insensitive
+     * @return the policy with this name or FAIL if there is no such
+     */
+    public static QueueOverflowPolicy fromString( String policy ) {
+
+        if( policy != null ) {
+            for( QueueOverflowPolicy value : values() ) {
+                if( value.name().equalsIgnoreCase( policy.trim() ) ) {
+                    return value;
+                }
+            }
+        }
+        return FAIL;
+    }
+}
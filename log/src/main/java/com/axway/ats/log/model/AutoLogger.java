@@ -497,6 +497,21 @@ public class AutoLogger {
                                                    statisticIds, statisticValues, timestamp ) );
     }
 
+    /**
+     * Insert system statistics identified by their DB IDs, provided as primitive arrays
+     *
+     * @param monitoredMachine the monitored machine
+     * @param statisticIds the statistics' DB IDs
+     * @param statisticValues the statistics' values
+     * @param timestamp the timestamp
+     */
+    public void insertSystemStatistcs( String monitoredMachine, int[] statisticIds, float[] statisticValues,
+                                       long timestamp ) {
+
+        sendEvent( new InsertSystemStatisticEvent( AUTO_LOGGER_CLASS_NAME, logger, monitoredMachine,
+                                                   statisticIds, statisticValues, timestamp ) );
+    }
+
     /**
      * Join to an existing test case
      *
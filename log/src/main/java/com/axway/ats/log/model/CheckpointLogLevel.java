@@ -17,10 +17,18 @@ package com.axway.ats.log.model;
 
 /**
  * The valid checkpoint log levels
+ *
+ * <ul>
+ * <li>SHORT - only the checkpoint summaries are kept</li>
+ * <li>FULL - each checkpoint is kept as well</li>
+ * <li>HISTOGRAM - the checkpoint summaries are kept, while the inserted checkpoints are aggregated
+ * on the sender side into response time histograms per time window. It is applied in batch mode only,
+ * otherwise it works as SHORT.</li>
+ * </ul>
  */
 public enum CheckpointLogLevel {
 
-    SHORT(0), FULL(1);
+    SHORT(0), FULL(1), HISTOGRAM(2);
 
     private int value;
 
@@ -0,0 +1,235 @@
+/*
+ * Copyright 2017 Axway Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.axway.ats.log.appenders;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+import org.apache.log4j.spi.Filter;
+import org.apache.log4j.spi.LoggingEvent;
+import org.junit.Test;
+
+import com.axway.ats.common.systemproperties.AtsSystemProperties;
+import com.axway.ats.log.autodb.LogEventRequest;
+import com.axway.ats.log.autodb.RingBufferEventsQueue;
+import com.axway.ats.log.autodb.events.GetCurrentTestCaseEvent;
+import com.axway.ats.log.autodb.model.EventRequestProcessorListener;
+import com.axway.ats.log.autodb.model.QueueOverflowPolicy;
+
+public class Test_AbstractDbAppender {
+
+    @Test
+    public void ringBufferAppendChecksThreshold() {
+
+        TestAppender appender = new TestAppender( new RingBufferEventsQueue<LogEventRequest>( 8 ) );
+        appender.setThreshold( Level.WARN );
+
+        appender.doAppend( createEvent( Level.INFO ) );
+        appender.doAppend( createEvent( Level.ERROR ) );
+
+        assertEquals( 1, appender.queue.size() );
+        assertEquals( Level.ERROR, appender.queue.peek().getEvent().getLevel() );
+    }
+
+    @Test
+    public void ringBufferAppendChecksFilters() {
+
+        TestAppender appender = new TestAppender( new RingBufferEventsQueue<LogEventRequest>( 8 ) );
+        appender.addFilter( new Filter() {
+            @Override
+            public int decide( LoggingEvent event ) {
+
+                return Level.DEBUG.equals( event.getLevel() )
+                                                              ? Filter.DENY
+                                                              : Filter.NEUTRAL;
+            }
+        } );
+
+        appender.doAppend( createEvent( Level.DEBUG ) );
+        appender.doAppend( createEvent( Level.INFO ) );
+
+        assertEquals( 1, appender.queue.size() );
+        assertEquals( Level.INFO, appender.queue.peek().getEvent().getLevel() );
+    }
+
+    @Test
+    public void ringBufferAppendSkipsClosedAppender() {
+
+        TestAppender appender = new TestAppender( new RingBufferEventsQueue<LogEventRequest>( 8 ) );
+        appender.markClosed();
+
+        appender.doAppend( createEvent( Level.INFO ) );
+
+        assertEquals( 0, appender.queue.size() );
+    }
+
+    @Test
+    public void overflowBlock() throws Exception {
+
+        TestAppender appender = new TestAppender( new ArrayBlockingQueue<LogEventRequest>( 1 ),
+                                                  QueueOverflowPolicy.BLOCK );
+        appender.doAppend( createEvent( Level.INFO ) );
+
+        // the queue is full, so the next message waits for a free place
+        Thread appendingThread = appendInBackground( appender, Level.DEBUG );
+        waitForBlockedEvents( appender, 1 );
+        assertTrue( appendingThread.isAlive() );
+
+        assertEquals( Level.INFO, appender.queue.take().getEvent().getLevel() );
+        appendingThread.join( 5000 );
+
+        assertEquals( 1, appender.queue.size() );
+        assertEquals( Level.DEBUG, appender.queue.peek().getEvent().getLevel() );
+        assertEquals( 1, appender.getNumberBlockedEvents() );
+        assertEquals( 0, appender.getNumberDroppedEvents() );
+        assertEquals( 0, appender.getNumberSpilledEvents() );
+    }
+
+    @Test
+    public void overflowDropBelowWarn() throws Exception {
+
+        TestAppender appender = new TestAppender( new ArrayBlockingQueue<LogEventRequest>( 1 ),
+                                                  QueueOverflowPolicy.DROP );
+        appender.doAppend( createEvent( Level.INFO ) );
+
+        appender.doAppend( createEvent( Level.DEBUG ) );
+        appender.doAppend( createEvent( Level.INFO ) );
+        assertEquals( 2, appender.getNumberDroppedEvents() );
+        assertEquals( 0, appender.getNumberBlockedEvents() );
+
+        // the warnings and errors are never dropped, they wait for a free place
+        Thread appendingThread = appendInBackground( appender, Level.WARN );
+        waitForBlockedEvents( appender, 1 );
+
+        appender.queue.take();
+        appendingThread.join( 5000 );
+
+        assertEquals( 1, appender.queue.size() );
+        assertEquals( Level.WARN, appender.queue.peek().getEvent().getLevel() );
+        assertEquals( 2, appender.getNumberDroppedEvents() );
+        assertEquals( 1, appender.getNumberBlockedEvents() );
+        assertEquals( 0, appender.getNumberSpilledEvents() );
+    }
+
+    @Test
+    public void overflowSpill() {
+
+        long startTime = System.currentTimeMillis();
+        TestAppender appender = new TestAppender( new ArrayBlockingQueue<LogEventRequest>( 1 ),
+                                                  QueueOverflowPolicy.SPILL );
+        try {
+            appender.doAppend( createEvent( Level.INFO ) );
+
+            appender.doAppend( createEvent( Level.DEBUG ) );
+            appender.doAppend( createEvent( Level.ERROR ) );
+
+            assertEquals( 1, appender.queue.size() );
+            assertEquals( Level.INFO, appender.queue.peek().getEvent().getLevel() );
+            assertEquals( 2, appender.getNumberSpilledEvents() );
+            assertEquals( 0, appender.getNumberBlockedEvents() );
+            assertEquals( 0, appender.getNumberDroppedEvents() );
+        } finally {
+            appender.close();
+            deleteSpillFiles( startTime );
+        }
+    }
+
+    private Thread appendInBackground( final TestAppender appender, final Level level ) {
+
+        Thread thread = new Thread( new Runnable() {
+            @Override
+            public void run() {
+
+                appender.doAppend( createEvent( level ) );
+            }
+        } );
+        thread.setDaemon( true );
+        thread.start();
+        return thread;
+    }
+
+    private void waitForBlockedEvents( TestAppender appender, long numberBlockedEvents ) throws InterruptedException {
+
+        long endTime = System.currentTimeMillis() + 5000;
+        while( appender.getNumberBlockedEvents() < numberBlockedEvents && System.currentTimeMillis() < endTime ) {
+            Thread.sleep( 10 );
+        }
+        assertEquals( numberBlockedEvents, appender.getNumberBlockedEvents() );
+    }
+
+    private void deleteSpillFiles( long startTime ) {
+
+        File[] files = new File( AtsSystemProperties.SYSTEM_USER_TEMP_DIR ).listFiles();
+        if( files != null ) {
+            for( File file : files ) {
+                if( file.getName().startsWith( "ats_db_appender_spill_" )
+                    && file.lastModified() >= startTime - 1000 ) {
+                    file.delete();
+                }
+            }
+        }
+    }
+
+    private LoggingEvent createEvent( Level level ) {
+
+        return new LoggingEvent( getClass().getName(), Logger.getLogger( getClass() ), level, "message",
+                                 null );
+    }
+
+    private static class TestAppender extends AbstractDbAppender {
+
+        TestAppender( BlockingQueue<LogEventRequest> queue ) {
+
+            this.queue = queue;
+        }
+
+        TestAppender( BlockingQueue<LogEventRequest> queue, QueueOverflowPolicy overflowPolicy ) {
+
+            this.queue = queue;
+            this.overflowPolicy = overflowPolicy;
+        }
+
+        void markClosed() {
+
+            closed = true;
+        }
+
+        @Override
+        protected void append( LoggingEvent event ) {
+
+            passEventToLoggerQueue( new LogEventRequest( Thread.currentThread().getName(), event,
+                                                         event.getTimeStamp() ) );
+        }
+
+        @Override
+        public GetCurrentTestCaseEvent getCurrentTestCaseState( GetCurrentTestCaseEvent event ) {
+
+            return event;
+        }
+
+        @Override
+        protected EventRequestProcessorListener getEventRequestProcessorListener() {
+
+            return null;
+        }
+    }
+}
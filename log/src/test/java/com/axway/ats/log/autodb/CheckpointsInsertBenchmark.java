@@ -0,0 +1,73 @@
+/*
+ * Copyright 2017 Axway Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.axway.ats.log.autodb;
+
+import com.axway.ats.core.dbaccess.mssql.DbConnSQLServer;
+import com.axway.ats.log.model.CheckpointLogLevel;
+import com.axway.ats.log.model.CheckpointResult;
+
+/**
+ * Standalone benchmark which compares the checkpoint insert rate of the batch and bulk modes.
+ * It needs a Test Explorer database and an existing load queue.
+ *
+ * Usage: CheckpointsInsertBenchmark &lt;host&gt; &lt;database&gt; &lt;user&gt; &lt;password&gt; &lt;load queue id&gt; [number checkpoints]
+ *
+ * It is not a unit test, so it is not run during the build.
+ */
+public class CheckpointsInsertBenchmark {
+
+    public static void main( String[] args ) throws Exception {
+
+        if( args.length < 5 ) {
+            System.out.println( "Usage: CheckpointsInsertBenchmark <host> <database> <user> <password> <load queue id> [number checkpoints]" );
+            return;
+        }
+
+        DbConnSQLServer dbConnection = new DbConnSQLServer( args[0], args[1], args[2], args[3] );
+        int loadQueueId = Integer.parseInt( args[4] );
+        int numberCheckpoints = args.length > 5
+                                                ? Integer.parseInt( args[5] )
+                                                : 100000;
+
+        DbWriteAccess.setCheckpointLogLevel( CheckpointLogLevel.FULL );
+
+        // warm up the DB and the JIT
+        run( "batch (warm up)", new DbWriteAccess( dbConnection, true, false ), loadQueueId,
+             numberCheckpoints / 10 );
+        run( "bulk (warm up)", new DbWriteAccess( dbConnection, true, true ), loadQueueId,
+             numberCheckpoints / 10 );
+
+        run( "batch", new DbWriteAccess( dbConnection, true, false ), loadQueueId, numberCheckpoints );
+        run( "bulk", new DbWriteAccess( dbConnection, true, true ), loadQueueId, numberCheckpoints );
+    }
+
+    private static void run( String modeName, DbWriteAccess dbAccess, int loadQueueId,
+                             int numberCheckpoints ) throws Exception {
+
+        long startTime = System.nanoTime();
+        for( int i = 0; i < numberCheckpoints; i++ ) {
+            dbAccess.insertCheckpoint( "benchmark-action-" + ( i % 10 ), "benchmark-thread",
+                                       System.currentTimeMillis(), i % 100, 1024, "KB",
+                                       CheckpointResult.PASSED.toInt(), loadQueueId, false );
+        }
+        dbAccess.flushCache();
+        long durationNs = System.nanoTime() - startTime;
+
+        System.out.println( String.format( "%-16s %,10d checkpoints in %,8d ms = %,12.0f rows/sec", modeName,
+                                           numberCheckpoints, durationNs / 1000000,
+                                           numberCheckpoints * 1000000000D / durationNs ) );
+    }
+}
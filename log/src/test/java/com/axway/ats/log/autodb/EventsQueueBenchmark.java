@@ -0,0 +1,155 @@
+/*
+ * Copyright 2017 Axway Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.axway.ats.log.autodb;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+import org.apache.log4j.spi.LoggingEvent;
+
+import com.axway.ats.log.appenders.AbstractDbAppender;
+import com.axway.ats.log.autodb.events.GetCurrentTestCaseEvent;
+import com.axway.ats.log.autodb.model.EventRequestProcessorListener;
+
+/**
+ * Standalone benchmark which compares the throughput of the DB appender with each of the logging queue
+ * implementations when many threads are logging at the same time. The events go through the appender,
+ * including its locking, and one thread drains the queue, as the logging thread does.
+ *
+ * Usage: EventsQueueBenchmark [events per run]
+ *
+ * It is not a unit test, so it is not run during the build.
+ */
+public class EventsQueueBenchmark {
+
+    private static final int   QUEUE_CAPACITY     = 100000;
+    private static final int[] NUMBERS_PRODUCERS  = new int[]{ 1, 8, 64, 512 };
+
+    public static void main( String[] args ) throws Exception {
+
+        int numberEvents = args.length > 0
+                                           ? Integer.parseInt( args[0] )
+                                           : 5000000;
+
+        // warm up the JIT
+        run( "array (warm up)", new ArrayBlockingQueue<LogEventRequest>( QUEUE_CAPACITY ), 8,
+             numberEvents / 10 );
+        run( "ringbuffer (warm up)", new RingBufferEventsQueue<LogEventRequest>( QUEUE_CAPACITY ), 8,
+             numberEvents / 10 );
+
+        for( int numberProducers : NUMBERS_PRODUCERS ) {
+            run( "array", new ArrayBlockingQueue<LogEventRequest>( QUEUE_CAPACITY ), numberProducers,
+                 numberEvents );
+            RingBufferEventsQueue<LogEventRequest> ringBuffer = new RingBufferEventsQueue<LogEventRequest>( QUEUE_CAPACITY );
+            run( "ringbuffer", ringBuffer, numberProducers, numberEvents );
+            System.out.println( String.format( "%-22s max occupancy %,d, producer waits %,d for %,d ms", "",
+                                               ringBuffer.getMaxOccupancy(), ringBuffer.getProducerWaits(),
+                                               ringBuffer.getProducerWaitNanos() / 1000000 ) );
+        }
+    }
+
+    private static void run( String queueName, BlockingQueue<LogEventRequest> queue, int numberProducers,
+                             int numberEvents ) throws Exception {
+
+        final BenchmarkAppender appender = new BenchmarkAppender( queue );
+        final int eventsPerProducer = numberEvents / numberProducers;
+        final CountDownLatch startLatch = new CountDownLatch( 1 );
+        final LoggingEvent event = new LoggingEvent( EventsQueueBenchmark.class.getName(),
+                                                     Logger.getLogger( EventsQueueBenchmark.class ),
+                                                     Level.INFO, "benchmark message", null );
+
+        List<Thread> producers = new ArrayList<Thread>( numberProducers );
+        for( int i = 0; i < numberProducers; i++ ) {
+            Thread producer = new Thread() {
+                @Override
+                public void run() {
+
+                    try {
+                        startLatch.await();
+                        for( int j = 0; j < eventsPerProducer; j++ ) {
+                            appender.doAppend( event );
+                        }
+                    } catch( InterruptedException e ) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            };
+            producer.setDaemon( true );
+            producer.start();
+            producers.add( producer );
+        }
+
+        int totalEvents = eventsPerProducer * numberProducers;
+        List<LogEventRequest> batch = new ArrayList<LogEventRequest>( 1000 );
+
+        long startTime = System.nanoTime();
+        startLatch.countDown();
+        int consumedEvents = 0;
+        while( consumedEvents < totalEvents ) {
+            int drained = queue.drainTo( batch, 1000 );
+            if( drained == 0 ) {
+                queue.take();
+                drained = 1;
+            }
+            consumedEvents += drained;
+            batch.clear();
+        }
+        long durationNs = System.nanoTime() - startTime;
+
+        for( Thread producer : producers ) {
+            producer.join();
+        }
+
+        System.out.println( String.format( "%-22s %3d producers: %,10d events in %,6d ms = %,12.0f events/sec",
+                                           queueName, numberProducers, totalEvents, durationNs / 1000000,
+                                           totalEvents * 1000000000D / durationNs ) );
+    }
+
+    /**
+     * A DB appender which only passes the events to the provided queue, there is no DB behind it
+     */
+    private static class BenchmarkAppender extends AbstractDbAppender {
+
+        BenchmarkAppender( BlockingQueue<LogEventRequest> queue ) {
+
+            this.queue = queue;
+        }
+
+        @Override
+        protected void append( LoggingEvent event ) {
+
+            passEventToLoggerQueue( new LogEventRequest( Thread.currentThread().getName(), event,
+                                                         event.getTimeStamp() ) );
+        }
+
+        @Override
+        public GetCurrentTestCaseEvent getCurrentTestCaseState( GetCurrentTestCaseEvent event ) {
+
+            return event;
+        }
+
+        @Override
+        protected EventRequestProcessorListener getEventRequestProcessorListener() {
+
+            return null;
+        }
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2017 Axway Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.axway.ats.log.autodb;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.axway.ats.log.autodb.CheckpointsBulkWriter.HistogramWindow;
+import com.axway.ats.log.autodb.CheckpointsBulkWriter.SummaryDelta;
+import com.axway.ats.log.model.CheckpointResult;
+
+public class Test_CheckpointsBulkWriter {
+
+    @Test
+    public void aggregatePerLoadQueueAndName() {
+
+        CheckpointsBulkWriter writer = new CheckpointsBulkWriter();
+        writer.addCheckpoint( "action1", 1000, 10, 2048, "KB", CheckpointResult.PASSED.toInt(), 1 );
+        writer.addCheckpoint( "action1", 1000, 30, 0, "KB", CheckpointResult.PASSED.toInt(), 1 );
+        writer.addCheckpoint( "action1", 1000, 5, 0, "KB", CheckpointResult.FAILED.toInt(), 1 );
+        writer.addCheckpoint( "action1", 1000, 20, 0, "KB", CheckpointResult.PASSED.toInt(), 2 );
+        writer.addCheckpoint( "action2", 1000, 20, 0, null, CheckpointResult.PASSED.toInt(), 1 );
+
+        assertEquals( 5, writer.getNumberCheckpoints() );
+
+        Map<String, SummaryDelta> deltas = writer.aggregate();
+        assertEquals( 3, deltas.size() );
+
+        SummaryDelta delta = deltas.get( "1->action1" );
+        assertEquals( 2, delta.numPassed );
+        assertEquals( 1, delta.numFailed );
+        assertEquals( 10, delta.minResponseTime );
+        assertEquals( 30, delta.maxResponseTime );
+        assertEquals( 40, delta.sumResponseTime );
+        assertEquals( 0F, delta.minTransferRate, 0 );
+        assertEquals( 204800F, delta.maxTransferRate, 0 );
+        assertEquals( "KB/sec", delta.transferRateUnit );
+
+        assertEquals( 1, deltas.get( "2->action1" ).numPassed );
+        assertEquals( "", deltas.get( "1->action2" ).transferRateUnit );
+
+        writer.clear();
+        assertEquals( 0, writer.getNumberCheckpoints() );
+    }
+
+    @Test
+    public void histogramWindows() {
+
+        final long windowLength = CheckpointsBulkWriter.HISTOGRAM_WINDOW_LENGTH;
+
+        CheckpointsBulkWriter writer = new CheckpointsBulkWriter();
+        writer.addToHistogram( "action1", 0, 10, 10000, 100, CheckpointResult.PASSED.toInt(), 1 );
+        writer.addToHistogram( "action1", 0, 20, 20345, 100, CheckpointResult.PASSED.toInt(), 1 );
+        writer.addToHistogram( "action1", 0, 5, 5000, 0, CheckpointResult.FAILED.toInt(), 1 );
+        writer.addToHistogram( "action1", windowLength, 30, 30000, 100, CheckpointResult.PASSED.toInt(), 1 );
+        writer.addToHistogram( "action1", 0, 10, 10000, 100, CheckpointResult.PASSED.toInt(), 2 );
+        assertEquals( 3, writer.getNumberHistogramWindows() );
+
+        // only the closed windows are taken
+        List<HistogramWindow> windows = writer.takeHistogramWindows( windowLength );
+        assertEquals( 2, windows.size() );
+        assertEquals( 1, writer.getNumberHistogramWindows() );
+
+        HistogramWindow window = windows.get( 0 );
+        assertEquals( 1, window.loadQueueId );
+        assertEquals( 0, window.windowStart );
+        assertEquals( 2, window.responseTimes.getTotalCount() );
+        // the histograms keep microseconds
+        assertEquals( 20345, window.responseTimes.getMaxValue() );
+        assertEquals( 1, window.numFailed );
+        assertEquals( 200, window.sumTransferSize );
+
+        windows = writer.takeHistogramWindows( Long.MAX_VALUE );
+        assertEquals( 1, windows.size() );
+        assertEquals( windowLength, windows.get( 0 ).windowStart );
+        assertEquals( 0, writer.getNumberHistogramWindows() );
+    }
+
+    @Test
+    public void sqlStatements() {
+
+        String insertSql = CheckpointsBulkWriter.buildInsertCheckpointsSql( 3 );
+        assertTrue( insertSql.startsWith( "INSERT INTO tCheckpoints" ) );
+        assertTrue( insertSql.endsWith( "VALUES (?,?,?,?,?,?,?),(?,?,?,?,?,?,?),(?,?,?,?,?,?,?)" ) );
+
+        String updateSql = CheckpointsBulkWriter.buildUpdateSummariesSql( 2 );
+        assertTrue( updateSql.startsWith( "UPDATE s SET" ) );
+        assertTrue( updateSql.contains( "(VALUES (?,?,?,?,?,?,?,?,?),(?,?,?,?,?,?,?,?,?)) AS d" ) );
+
+        // we must not hit the limit of 2100 parameters per statement
+        assertTrue( CheckpointsBulkWriter.ROWS_PER_CHECKPOINTS_INSERT * 7 < 2100 );
+        assertTrue( CheckpointsBulkWriter.ROWS_PER_SUMMARIES_UPDATE * 9 < 2100 );
+        assertTrue( CheckpointsBulkWriter.ROWS_PER_HISTOGRAMS_INSERT * 10 < 2100 );
+
+        // the summary is looked up and created under one lock
+        String createSummarySql = CheckpointsBulkWriter.buildCreateSummarySql();
+        assertTrue( createSummarySql.contains( "FROM tCheckpointsSummary WITH (UPDLOCK, HOLDLOCK) WHERE loadQueueId = ? AND name = ?" ) );
+        assertTrue( createSummarySql.indexOf( "WITH (UPDLOCK, HOLDLOCK)" ) < createSummarySql.indexOf( "INSERT INTO tCheckpointsSummary" ) );
+
+        String histogramsSql = CheckpointsBulkWriter.buildInsertHistogramsSql( 2 );
+        assertTrue( histogramsSql.startsWith( "INSERT INTO tCheckpointHistograms" ) );
+        assertTrue( histogramsSql.endsWith( "VALUES (?,?,?,?,?,?,?,?,?,?),(?,?,?,?,?,?,?,?,?,?)" ) );
+    }
+}
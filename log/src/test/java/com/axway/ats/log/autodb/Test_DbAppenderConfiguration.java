@@ -16,11 +16,14 @@
 package com.axway.ats.log.autodb;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 import org.junit.Test;
 
 import com.axway.ats.log.autodb.DbAppenderConfiguration;
 import com.axway.ats.log.autodb.exceptions.InvalidAppenderConfigurationException;
+import com.axway.ats.log.autodb.model.QueueOverflowPolicy;
 
 public class Test_DbAppenderConfiguration {
 
@@ -45,6 +48,58 @@ public class Test_DbAppenderConfiguration {
         assertEquals( true, appenderConfig.getEnableCheckpoints() );
     }
 
+    @Test
+    public void modes() {
+
+        DbAppenderConfiguration appenderConfig = new DbAppenderConfiguration();
+        assertFalse( appenderConfig.isBatchMode() );
+        assertFalse( appenderConfig.isBulkMode() );
+
+        appenderConfig.setMode( "batch" );
+        assertTrue( appenderConfig.isBatchMode() );
+        assertFalse( appenderConfig.isBulkMode() );
+
+        // bulk mode is a batch mode as well
+        appenderConfig.setMode( "Bulk" );
+        assertTrue( appenderConfig.isBatchMode() );
+        assertTrue( appenderConfig.isBulkMode() );
+    }
+
+    @Test
+    public void workersAndOverflow() {
+
+        DbAppenderConfiguration appenderConfig = new DbAppenderConfiguration();
+        assertEquals( 0, appenderConfig.getNumberWorkers() );
+        assertEquals( QueueOverflowPolicy.FAIL, appenderConfig.getQueueOverflowPolicy() );
+
+        appenderConfig.setWorkers( "4" );
+        assertEquals( 4, appenderConfig.getNumberWorkers() );
+        appenderConfig.setWorkers( "-1" );
+        assertEquals( 0, appenderConfig.getNumberWorkers() );
+        appenderConfig.setWorkers( "1000" );
+        assertEquals( 32, appenderConfig.getNumberWorkers() );
+        appenderConfig.setWorkers( "not a number" );
+        assertEquals( 0, appenderConfig.getNumberWorkers() );
+
+        appenderConfig.setOverflow( "Spill" );
+        assertEquals( QueueOverflowPolicy.SPILL, appenderConfig.getQueueOverflowPolicy() );
+        appenderConfig.setOverflow( "unknown" );
+        assertEquals( QueueOverflowPolicy.FAIL, appenderConfig.getQueueOverflowPolicy() );
+    }
+
+    @Test
+    public void queueType() {
+
+        DbAppenderConfiguration appenderConfig = new DbAppenderConfiguration();
+        assertFalse( appenderConfig.isRingBufferQueue() );
+
+        appenderConfig.setQueue( "RingBuffer" );
+        assertTrue( appenderConfig.isRingBufferQueue() );
+
+        appenderConfig.setQueue( "array" );
+        assertFalse( appenderConfig.isRingBufferQueue() );
+    }
+
     @Test
     public void validatePositive() throws InvalidAppenderConfigurationException {
 
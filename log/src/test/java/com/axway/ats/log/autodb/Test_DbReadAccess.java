@@ -0,0 +1,56 @@
+/*
+ * Copyright 2017 Axway Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.axway.ats.log.autodb;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Test;
+
+public class Test_DbReadAccess {
+
+    @Test
+    public void addCorrectedCheckpointNames() {
+
+        assertEquals( "'action 1','action 2','action 1 (corrected)','action 2 (corrected)'",
+                      DbReadAccess.addCorrectedCheckpointNames( "'action 1','action 2'" ) );
+        assertEquals( "action1, action2,action1 (corrected),action2 (corrected)",
+                      DbReadAccess.addCorrectedCheckpointNames( "action1, action2" ) );
+
+        assertNull( DbReadAccess.addCorrectedCheckpointNames( null ) );
+        assertEquals( "", DbReadAccess.addCorrectedCheckpointNames( "" ) );
+    }
+
+    @Test
+    public void addCorrectedStatisticUids() {
+
+        Set<String> uids = new HashSet<String>( Arrays.asList( "1->0->queue->action1",
+                                                               "1->0->queue->action2" ) );
+
+        Set<String> allUids = DbReadAccess.addCorrectedStatisticUids( uids );
+
+        assertEquals( new HashSet<String>( Arrays.asList( "1->0->queue->action1", "1->0->queue->action2",
+                                                          "1->0->queue->action1 (corrected)",
+                                                          "1->0->queue->action2 (corrected)" ) ),
+                      allUids );
+        // the provided UIDs are not changed
+        assertEquals( 2, uids.size() );
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2017 Axway Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.axway.ats.log.autodb;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class Test_LatencyHistogram {
+
+    @Test
+    public void bucketsAreContinuous() {
+
+        int previousIndex = 0;
+        for( long value = 1; value < 1000000; value++ ) {
+            int index = LatencyHistogram.getBucketIndex( value );
+            assertTrue( index == previousIndex || index == previousIndex + 1 );
+            assertTrue( LatencyHistogram.getHighestValueInBucket( index ) >= value );
+            previousIndex = index;
+        }
+    }
+
+    @Test
+    public void percentiles() {
+
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals( 0, histogram.getValueAtPercentile( 99 ) );
+        assertEquals( 0, histogram.getMinValue() );
+
+        for( int i = 1; i <= 100; i++ ) {
+            histogram.recordValue( i );
+        }
+        assertEquals( 100, histogram.getTotalCount() );
+        assertEquals( 1, histogram.getMinValue() );
+        assertEquals( 100, histogram.getMaxValue() );
+        assertEquals( 50.5, histogram.getMean(), 0 );
+
+        // small values are exact
+        assertEquals( 50, histogram.getValueAtPercentile( 50 ) );
+        assertEquals( 99, histogram.getValueAtPercentile( 99 ) );
+        assertEquals( 100, histogram.getValueAtPercentile( 100 ) );
+        assertEquals( 1, histogram.getValueAtPercentile( 0 ) );
+
+        // big values are within the histogram precision
+        histogram.recordValue( 123456, 1000 );
+        long p99 = histogram.getValueAtPercentile( 99 );
+        assertTrue( Math.abs( p99 - 123456 ) <= 123456 / 64 );
+    }
+
+    @Test
+    public void encodeDecodeAndMerge() {
+
+        LatencyHistogram histogram1 = new LatencyHistogram();
+        histogram1.recordValue( 5 );
+        histogram1.recordValue( 5000, 3 );
+
+        LatencyHistogram histogram2 = LatencyHistogram.decode( histogram1.encode() );
+        assertEquals( histogram1.encode(), histogram2.encode() );
+        assertEquals( 4, histogram2.getTotalCount() );
+        assertEquals( 15005, histogram2.getSumValues() );
+        assertEquals( 5, histogram2.getMinValue() );
+        assertEquals( 5000, histogram2.getMaxValue() );
+
+        histogram2.recordValue( 1 );
+        histogram1.add( histogram2 );
+        assertEquals( 9, histogram1.getTotalCount() );
+        assertEquals( 1, histogram1.getMinValue() );
+        assertEquals( 5, histogram1.getValueAtPercentile( 30 ) );
+
+        assertEquals( 0, LatencyHistogram.decode( new LatencyHistogram().encode() ).getTotalCount() );
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void decodeInvalid() {
+
+        LatencyHistogram.decode( "1,2,3|abc" );
+    }
+}
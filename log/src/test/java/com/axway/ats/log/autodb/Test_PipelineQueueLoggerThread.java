@@ -0,0 +1,257 @@
+/*
+ * Copyright 2017 Axway Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.axway.ats.log.autodb;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+import org.apache.log4j.spi.LoggingEvent;
+import org.junit.Test;
+
+import com.axway.ats.log.autodb.events.EndRunEvent;
+import com.axway.ats.log.autodb.events.EndSuiteEvent;
+import com.axway.ats.log.autodb.events.EndTestCaseEvent;
+import com.axway.ats.log.autodb.exceptions.DatabaseAccessException;
+import com.axway.ats.log.autodb.model.AbstractLoggingEvent;
+import com.axway.ats.log.model.TestCaseResult;
+
+public class Test_PipelineQueueLoggerThread {
+
+    private static final Logger LOGGER         = Logger.getLogger( Test_PipelineQueueLoggerThread.class );
+
+    private static final int    NUMBER_WORKERS = 3;
+
+    @Test
+    public void lifeCycleEventsWaitForTheWorkers() throws Exception {
+
+        BlockingQueue<LogEventRequest> queue = new ArrayBlockingQueue<LogEventRequest>( 1000 );
+        for( int i = 0; i < 20; i++ ) {
+            queue.add( createMessage( "thread" + ( i % 4 ), i ) );
+        }
+        queue.add( new LogEventRequest( "thread0",
+                                        new EndTestCaseEvent( LOGGER.getName(), LOGGER, TestCaseResult.PASSED ),
+                                        0 ) );
+        for( int i = 20; i < 40; i++ ) {
+            queue.add( createMessage( "thread" + ( i % 4 ), i ) );
+        }
+        queue.add( new LogEventRequest( "thread0", new EndSuiteEvent( LOGGER.getName(), LOGGER ), 0 ) );
+        queue.add( new LogEventRequest( "thread0", new EndRunEvent( LOGGER.getName(), LOGGER ), 0 ) );
+
+        List<String> processedEvents = runLoggerThread( queue, 5 );
+
+        assertEquals( 43, processedEvents.size() );
+        // all messages before a life cycle event are sent to the DB before it
+        assertEquals( "END_TEST_CASE", processedEvents.get( 20 ) );
+        assertEquals( "END_SUITE", processedEvents.get( 41 ) );
+        assertEquals( "END_RUN", processedEvents.get( 42 ) );
+        for( int i = 0; i < 20; i++ ) {
+            int messageIndex = getMessageIndex( processedEvents.get( i ) );
+            assertTrue( messageIndex < 20 );
+        }
+        for( int i = 21; i < 41; i++ ) {
+            int messageIndex = getMessageIndex( processedEvents.get( i ) );
+            assertTrue( messageIndex >= 20 && messageIndex < 40 );
+        }
+    }
+
+    @Test
+    public void eventsOfOneThreadKeepTheirOrder() throws Exception {
+
+        BlockingQueue<LogEventRequest> queue = new ArrayBlockingQueue<LogEventRequest>( 1000 );
+        for( int i = 0; i < 800; i++ ) {
+            queue.add( createMessage( "thread" + ( i % 8 ), i ) );
+        }
+        queue.add( new LogEventRequest( "thread0", new EndRunEvent( LOGGER.getName(), LOGGER ), 0 ) );
+
+        List<String> processedEvents = runLoggerThread( queue, 0 );
+
+        assertEquals( 801, processedEvents.size() );
+        for( int thread = 0; thread < 8; thread++ ) {
+            int lastMessageIndex = -1;
+            for( String processedEvent : processedEvents ) {
+                if( processedEvent.startsWith( "thread" + thread + ":" ) ) {
+                    int messageIndex = getMessageIndex( processedEvent );
+                    assertTrue( messageIndex > lastMessageIndex );
+                    lastMessageIndex = messageIndex;
+                }
+            }
+            assertEquals( 800 - 8 + thread, lastMessageIndex );
+        }
+    }
+
+    @Test
+    public void checkpointsOfOneSummaryGoToOneWorker() {
+
+        DbEventsWorker.WorkerEvent checkpoint1 = new DbEventsWorker.CheckpointWorkerEvent( "action", "thread1",
+                                                                                           0, 10, 10000, 0,
+                                                                                           "", 1, 5 );
+        DbEventsWorker.WorkerEvent checkpoint2 = new DbEventsWorker.CheckpointWorkerEvent( "action", "thread2",
+                                                                                           0, 20, 20000, 0,
+                                                                                           "", 1, 5 );
+        DbEventsWorker.WorkerEvent otherQueueCheckpoint = new DbEventsWorker.CheckpointWorkerEvent( "action",
+                                                                                                    "thread1",
+                                                                                                    0, 10,
+                                                                                                    10000, 0,
+                                                                                                    "", 1, 6 );
+
+        assertEquals( checkpoint1.getRoutingKey(), checkpoint2.getRoutingKey() );
+        assertNotEquals( checkpoint1.getRoutingKey(), otherQueueCheckpoint.getRoutingKey() );
+    }
+
+    /**
+     * Process the events in the queue and return their order of processing
+     *
+     * @param queue the events, the last one must be the end of the run
+     * @param workerDelay how many milliseconds the workers spend on each message
+     */
+    private List<String> runLoggerThread( BlockingQueue<LogEventRequest> queue,
+                                          long workerDelay ) throws Exception {
+
+        List<String> processedEvents = Collections.synchronizedList( new ArrayList<String>() );
+        CountDownLatch endRunLatch = new CountDownLatch( 1 );
+
+        DbEventsWorker[] workers = new DbEventsWorker[NUMBER_WORKERS];
+        for( int i = 0; i < workers.length; i++ ) {
+            workers[i] = new DbEventsWorker( null, false, i );
+        }
+        PipelineQueueLoggerThread loggerThread = new PipelineQueueLoggerThread( queue,
+                                                                                new TestEventProcessor( processedEvents,
+                                                                                                        workerDelay,
+                                                                                                        endRunLatch ),
+                                                                                workers, false );
+        loggerThread.start();
+        try {
+            assertTrue( endRunLatch.await( 30, TimeUnit.SECONDS ) );
+        } finally {
+            loggerThread.interrupt();
+        }
+        return new ArrayList<String>( processedEvents );
+    }
+
+    private LogEventRequest createMessage( String threadName, int index ) {
+
+        return new LogEventRequest( threadName,
+                                    new LoggingEvent( LOGGER.getName(), LOGGER, Level.INFO,
+                                                      threadName + ":" + index, null ),
+                                    System.currentTimeMillis() );
+    }
+
+    private int getMessageIndex( String processedEvent ) {
+
+        return Integer.parseInt( processedEvent.substring( processedEvent.indexOf( ':' ) + 1 ) );
+    }
+
+    /**
+     * Passes the messages to the workers and remembers the order in which all events are processed
+     */
+    private static class TestEventProcessor extends DbEventRequestProcessor {
+
+        private final List<String>   processedEvents;
+        private final long           workerDelay;
+        private final CountDownLatch endRunLatch;
+
+        TestEventProcessor( List<String> processedEvents, long workerDelay,
+                            CountDownLatch endRunLatch ) throws DatabaseAccessException {
+
+            super( createAppenderConfig(), null, false );
+
+            this.processedEvents = processedEvents;
+            this.workerDelay = workerDelay;
+            this.endRunLatch = endRunLatch;
+        }
+
+        private static DbAppenderConfiguration createAppenderConfig() {
+
+            DbAppenderConfiguration appenderConfig = new DbAppenderConfiguration();
+            appenderConfig.setHost( "localhost" );
+            appenderConfig.setDatabase( "test_db" );
+            appenderConfig.setUser( "user" );
+            appenderConfig.setPassword( "password" );
+            return appenderConfig;
+        }
+
+        @Override
+        public DbEventsWorker.WorkerEvent prepareWorkerEvent( LogEventRequest eventRequest ) {
+
+            LoggingEvent event = eventRequest.getEvent();
+            if( event instanceof AbstractLoggingEvent ) {
+                return null;
+            }
+            return new TestWorkerEvent( eventRequest.getThreadName(), event.getRenderedMessage(),
+                                        processedEvents, workerDelay );
+        }
+
+        @Override
+        public void processEventRequest( LogEventRequest eventRequest ) {
+
+            if( eventRequest == null ) {
+                return;
+            }
+
+            AbstractLoggingEvent event = ( AbstractLoggingEvent ) eventRequest.getEvent();
+            processedEvents.add( event.getEventType().name() );
+            if( event instanceof EndRunEvent ) {
+                endRunLatch.countDown();
+            }
+        }
+    }
+
+    private static class TestWorkerEvent extends DbEventsWorker.WorkerEvent {
+
+        private final String       threadName;
+        private final String       message;
+        private final List<String> processedEvents;
+        private final long         workerDelay;
+
+        TestWorkerEvent( String threadName, String message, List<String> processedEvents, long workerDelay ) {
+
+            this.threadName = threadName;
+            this.message = message;
+            this.processedEvents = processedEvents;
+            this.workerDelay = workerDelay;
+        }
+
+        @Override
+        void process( DbWriteAccess dbAccess ) {
+
+            if( workerDelay > 0 ) {
+                try {
+                    Thread.sleep( workerDelay );
+                } catch( InterruptedException e ) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            processedEvents.add( message );
+        }
+
+        @Override
+        String getRoutingKey() {
+
+            return threadName;
+        }
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright 2017 Axway Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.axway.ats.log.autodb;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+public class Test_RingBufferEventsQueue {
+
+    @Test
+    public void capacityIsRoundedUp() {
+
+        assertEquals( 1, new RingBufferEventsQueue<String>( 1 ).getCapacity() );
+        assertEquals( 8, new RingBufferEventsQueue<String>( 5 ).getCapacity() );
+        assertEquals( 131072, new RingBufferEventsQueue<String>( 100000 ).getCapacity() );
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void zeroCapacity() {
+
+        new RingBufferEventsQueue<String>( 0 );
+    }
+
+    @Test
+    public void fifoOrderAndFullQueue() throws InterruptedException {
+
+        RingBufferEventsQueue<String> queue = new RingBufferEventsQueue<String>( 4 );
+        assertNull( queue.poll() );
+        assertEquals( 4, queue.remainingCapacity() );
+
+        for( int i = 0; i < 4; i++ ) {
+            assertTrue( queue.offer( "event" + i ) );
+        }
+        assertFalse( queue.offer( "one too many" ) );
+        assertFalse( queue.offer( "one too many", 10, TimeUnit.MILLISECONDS ) );
+        assertEquals( 4, queue.size() );
+        assertEquals( 4, queue.getMaxOccupancy() );
+        assertEquals( 1, queue.getProducerWaits() );
+
+        assertEquals( "event0", queue.peek() );
+        assertEquals( "event0", queue.poll() );
+
+        List<String> drained = new ArrayList<String>();
+        assertEquals( 2, queue.drainTo( drained, 2 ) );
+        assertEquals( "event1", drained.get( 0 ) );
+        assertEquals( "event2", drained.get( 1 ) );
+
+        // wrap around the end of the ring
+        assertTrue( queue.offer( "event4" ) );
+        assertEquals( "event3", queue.take() );
+        assertEquals( "event4", queue.poll( 10, TimeUnit.MILLISECONDS ) );
+        assertNull( queue.poll( 10, TimeUnit.MILLISECONDS ) );
+        assertTrue( queue.isEmpty() );
+    }
+
+    @Test
+    public void manyProducers() throws InterruptedException {
+
+        final int numberProducers = 8;
+        final int eventsPerProducer = 20000;
+        final RingBufferEventsQueue<Integer> queue = new RingBufferEventsQueue<Integer>( 64 );
+
+        List<Thread> producers = new ArrayList<Thread>();
+        for( int i = 0; i < numberProducers; i++ ) {
+            final int producerIndex = i;
+            Thread producer = new Thread() {
+                @Override
+                public void run() {
+
+                    try {
+                        for( int j = 0; j < eventsPerProducer; j++ ) {
+                            queue.put( producerIndex * eventsPerProducer + j );
+                        }
+                    } catch( InterruptedException e ) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            };
+            producers.add( producer );
+            producer.start();
+        }
+
+        // each producer's events must come in the order they were put
+        int[] lastEvents = new int[numberProducers];
+        for( int i = 0; i < numberProducers; i++ ) {
+            lastEvents[i] = -1;
+        }
+        for( int i = 0; i < numberProducers * eventsPerProducer; i++ ) {
+            int event = queue.take();
+            int producerIndex = event / eventsPerProducer;
+            int eventIndex = event % eventsPerProducer;
+            assertEquals( lastEvents[producerIndex] + 1, eventIndex );
+            lastEvents[producerIndex] = eventIndex;
+        }
+
+        for( Thread producer : producers ) {
+            producer.join();
+        }
+        assertTrue( queue.isEmpty() );
+        assertTrue( queue.getMaxOccupancy() <= queue.getCapacity() );
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2017 Axway Software
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.axway.ats.log.autodb;
+
+import static org.easymock.EasyMock.anyFloat;
+import static org.easymock.EasyMock.anyInt;
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.createNiceMock;
+import static org.easymock.EasyMock.eq;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.expectLastCall;
+import static org.easymock.EasyMock.isA;
+import static org.easymock.EasyMock.replay;
+import static org.easymock.EasyMock.verify;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+
+import org.junit.Test;
+
+public class Test_SystemStatisticsBulkWriter {
+
+    @Test
+    public void buildInsertStatisticsSql() {
+
+        String sql = SystemStatisticsBulkWriter.buildInsertStatisticsSql( 3 );
+        assertTrue( sql.startsWith( "INSERT INTO tSystemStats (testcaseId,machineId,statsTypeId,timestamp,value)" ) );
+        assertTrue( sql.contains( "(VALUES (?,?),(?,?),(?,?)) AS s (statsTypeId,value)" ) );
+        assertEquals( 3 + 3 * 2, countParameters( sql ) );
+
+        // the biggest statement does not exceed the MSSQL limit of 2100 parameters
+        String fullSql = SystemStatisticsBulkWriter.buildInsertStatisticsSql( SystemStatisticsBulkWriter.ROWS_PER_STATISTICS_INSERT );
+        assertTrue( countParameters( fullSql ) <= 2100 );
+    }
+
+    @Test
+    public void insertInChunks() throws Exception {
+
+        final int rowsPerInsert = SystemStatisticsBulkWriter.ROWS_PER_STATISTICS_INSERT;
+
+        Connection connection = createMock( Connection.class );
+        PreparedStatement selectStatement = createNiceMock( PreparedStatement.class );
+        ResultSet resultSet = createNiceMock( ResultSet.class );
+        PreparedStatement insertStatement = createNiceMock( PreparedStatement.class );
+
+        // the machine ID is loaded once only
+        expect( connection.prepareStatement( "SELECT machineId FROM tMachines WHERE machineName = ?" ) ).andReturn( selectStatement );
+        expect( selectStatement.executeQuery() ).andReturn( resultSet );
+        expect( resultSet.next() ).andReturn( true );
+        expect( resultSet.getInt( "machineId" ) ).andReturn( 7 );
+
+        // the statement of the full chunks is prepared once
+        expect( connection.prepareStatement( SystemStatisticsBulkWriter.buildInsertStatisticsSql( rowsPerInsert ) ) ).andReturn( insertStatement );
+        expect( connection.prepareStatement( SystemStatisticsBulkWriter.buildInsertStatisticsSql( 5 ) ) ).andReturn( insertStatement );
+        expect( connection.prepareStatement( SystemStatisticsBulkWriter.buildInsertStatisticsSql( 3 ) ) ).andReturn( insertStatement );
+
+        insertStatement.setInt( 1, 11 );
+        expectLastCall().times( 4 );
+        insertStatement.setInt( 2, 7 );
+        expectLastCall().times( 4 );
+        insertStatement.setTimestamp( eq( 3 ), isA( Timestamp.class ) );
+        expectLastCall().times( 4 );
+        insertStatement.setInt( anyInt(), anyInt() );
+        expectLastCall().times( 2 * rowsPerInsert + 5 + 3 );
+        insertStatement.setFloat( anyInt(), anyFloat() );
+        expectLastCall().times( 2 * rowsPerInsert + 5 + 3 );
+        expect( insertStatement.executeUpdate() ).andReturn( 0 ).times( 4 );
+
+        replay( connection, selectStatement, resultSet, insertStatement );
+
+        SystemStatisticsBulkWriter writer = new SystemStatisticsBulkWriter();
+        assertEquals( 3, writer.insert( connection, 11, "host1", new int[2 * rowsPerInsert + 5],
+                                        new float[2 * rowsPerInsert + 5], 1000 ) );
+        assertEquals( 1, writer.insert( connection, 11, "host1", new int[]{ 1, 2, 3 },
+                                        new float[]{ 1, 2, 3 }, 2000 ) );
+        // nothing to insert
+        assertEquals( 0, writer.insert( connection, 11, "host1", new int[0], new float[0], 3000 ) );
+
+        verify( connection, selectStatement, resultSet, insertStatement );
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void differentNumberOfIdsAndValues() throws Exception {
+
+        new SystemStatisticsBulkWriter().insert( null, 1, "host1", new int[2], new float[1], 1000 );
+    }
+
+    private int countParameters( String sql ) {
+
+        int numberParameters = 0;
+        for( char ch : sql.toCharArray() ) {
+            if( ch == '?' ) {
+                numberParameters++;
+            }
+        }
+        return numberParameters;
+    }
+}
@@ -15,11 +15,13 @@
  */
 package com.axway.ats.monitoring.model;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import com.axway.ats.agent.components.monitoring.operations.clients.InternalSystemMonitoringOperations;
 import com.axway.ats.common.performance.monitor.beans.BasicReadingBean;
-import com.axway.ats.common.performance.monitor.beans.MonitorResults;
+import com.axway.ats.common.performance.monitor.beans.ReadingsBatch;
 import com.axway.ats.log.AtsDbLogger;
 import com.axway.ats.log.autodb.exceptions.DatabaseAccessException;
 import com.axway.ats.monitoring.model.exceptions.MonitoringException;
@@ -33,19 +35,9 @@ import com.axway.ats.monitoring.model.readings.ReadingsRepository;
  */
 public class SystemStatsLoggerTask extends AbstractLoggerTask {
 
-    private static AtsDbLogger log                         = AtsDbLogger.getLogger( SystemStatsLoggerTask.class.getName() );
+    private static AtsDbLogger log = AtsDbLogger.getLogger( SystemStatsLoggerTask.class.getName() );
 
-    /*
-     * If the system statistics are too many, we have to send the data to the
-     * DB in chunks.
-     *
-     * The DB stored procedure accepts "statisticIds" long 1000 chars
-     * and "statisticValues" long 8000 chars
-     */
-    private static final int  MAX_LENGTH_STATISTIC_IDS    = 950;
-    private static final int  MAX_LENGTH_STATISTIC_VALUES = 7950;
-
-    private String            monitoredHost;
+    private String             monitoredHost;
 
     /**
      * Task for logging the system statistics in the database
@@ -65,17 +57,16 @@ public class SystemStatsLoggerTask extends AbstractLoggerTask {
         log.debug( "Getting system monitoring results for " + monitoredHost );
         try {
             InternalSystemMonitoringOperations sysMonitoringActions = new InternalSystemMonitoringOperations( monitoredHost );
-            List<MonitorResults> monitorResults = sysMonitoringActions.getCollectedResults();
+            ReadingsBatch readingsBatch = sysMonitoringActions.getCollectedReadings();
 
-            if( monitorResults.size() > 0 ) {
+            if( readingsBatch.getNumberTimestamps() > 0 ) {
 
                 // update the DB definitions if needed
-                for( MonitorResults monitorResult : monitorResults ) {
-                    updateDatabaseRepository( monitoredHost, monitorResult.getReadings() );
-                }
+                updateDatabaseRepository( monitoredHost,
+                                          new ArrayList<BasicReadingBean>( readingsBatch.getNewReadings() ) );
 
                 //log the results to the database
-                int resultsAddeed = logResults( monitorResults );
+                int resultsAddeed = logResults( readingsBatch );
                 log.debug( "Successfully sent " + resultsAddeed
                            + " system monitoring results to the logging database" );
             } else {
@@ -88,82 +79,54 @@ public class SystemStatsLoggerTask extends AbstractLoggerTask {
     }
 
     private int logResults(
-                            List<MonitorResults> monitorResults ) {
+                            ReadingsBatch readingsBatch ) {
 
-        // counter to hold the number of results which have logged
-        int resultsAddeed = 0;
+        ReadingsRepository readingsRepository = ReadingsRepository.getInstance();
 
-        for( MonitorResults newResultsLine : monitorResults ) {
-            resultsAddeed += logResultsForOneTimestamp( newResultsLine );
+        // find the DB IDs of all readings in this batch just once
+        String[] readingIds = readingsBatch.getReadingIds();
+        Integer[] readingDbIds = new Integer[readingIds.length];
+        for( int i = 0; i < readingIds.length; i++ ) {
+            readingDbIds[i] = readingsRepository.getReadingDbId( readingIds[i] );
+            if( readingDbIds[i] == null ) {
+                log.error( "We do not have information in the database about reading with id '"
+                           + readingIds[i] + "'. We will not insert this reading in the database." );
+            }
         }
 
-        return resultsAddeed;
-    }
-
-    private int logResultsForOneTimestamp(
-                                           MonitorResults resultsLine ) {
-
-        ReadingsRepository readingsRepository = ReadingsRepository.getInstance();
-
+        // counter to hold the number of results which have logged
         int resultsAddeed = 0;
 
-        // transform all reading info into 2 Strings: one for DB IDs and one for their values
-        StringBuilder statisticDbIds = new StringBuilder();
-        StringBuilder statisticValues = new StringBuilder();
-        for( BasicReadingBean reading : resultsLine.getReadings() ) {
-            String readingId = reading.getId();
-            if( readingId == null ) {
-                log.error( "This reading ["
-                           + reading.toString()
-                           + "] does not have set a reading ID which indicates an error in some of the attached monitors. We will not insert this reading in the database." );
-                continue;
-            }
-            Integer readingDbId = readingsRepository.getReadingDbId( readingId );
-            if( readingDbId == null ) {
-                log.error( "We do not have information in the database about this reading ["
-                           + reading.toString() + "]. We will not insert this reading in the database." );
-                continue;
-            }
-            String readingValue = reading.getValue();
-            if( readingValue == null ) {
-                log.error( "Null value is passed for this reading [" + reading.toString()
-                           + "]. We will not insert this reading in the database." );
-                continue;
+        for( int i = 0; i < readingsBatch.getNumberTimestamps(); i++ ) {
+            int[] readingIndexes = readingsBatch.getReadingIndexes( i );
+            float[] readingValues = readingsBatch.getValues( i );
+
+            int[] statisticDbIds = new int[readingIndexes.length];
+            float[] statisticValues = new float[readingIndexes.length];
+            int numberStatistics = 0;
+            for( int j = 0; j < readingIndexes.length; j++ ) {
+                Integer readingDbId = readingDbIds[readingIndexes[j]];
+                if( readingDbId == null ) {
+                    continue;
+                }
+                if( Float.isNaN( readingValues[j] ) ) {
+                    log.error( "Null or not a number value is passed for reading with id '"
+                               + readingIds[readingIndexes[j]]
+                               + "'. We will not insert this reading in the database." );
+                    continue;
+                }
+                statisticDbIds[numberStatistics] = readingDbId;
+                statisticValues[numberStatistics] = parseReadingValue( null, readingValues[j] );
+                numberStatistics++;
             }
-            statisticDbIds.append( readingDbId );
-            statisticDbIds.append( "_" );
-
-            statisticValues.append( readingValue );
-            statisticValues.append( "_" );
 
-            resultsAddeed++;
-
-            if( statisticDbIds.length() > MAX_LENGTH_STATISTIC_IDS
-                || statisticValues.length() > MAX_LENGTH_STATISTIC_VALUES ) {
-                // we have to send a chunk
-                statisticDbIds.setLength( statisticDbIds.length() - 1 );
-                statisticValues.setLength( statisticValues.length() - 1 );
-
-                log.insertSystemStatistcs( monitoredHost,
-                                           statisticDbIds.toString(),
-                                           statisticValues.toString(),
-                                           resultsLine.getTimestamp() );
-
-                statisticDbIds.setLength( 0 );
-                statisticValues.setLength( 0 );
+            if( numberStatistics > 0 ) {
+                log.insertSystemStatistcs( monitoredHost, Arrays.copyOf( statisticDbIds, numberStatistics ),
+                                           Arrays.copyOf( statisticValues, numberStatistics ),
+                                           readingsBatch.getTimestamp( i ) );
+                resultsAddeed += numberStatistics;
             }
         }
-
-        if( statisticDbIds.length() > 0 ) {
-            // send the last(or only) chunk
-            statisticDbIds.setLength( statisticDbIds.length() - 1 );
-            statisticValues.setLength( statisticValues.length() - 1 );
-
-            log.insertSystemStatistcs( monitoredHost,
-                                       statisticDbIds.toString(),
-                                       statisticValues.toString(),
-                                       resultsLine.getTimestamp() );
-        }
         return resultsAddeed;
     }
 
@@ -15,6 +15,7 @@
  */
 package com.axway.ats.monitoring.model;
 
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
@@ -226,10 +227,11 @@ public class UserActivityLoggerTask extends AbstractLoggerTask {
 
                 // check if we got data from ALL loaders at this timestamp
                 if( userActivityPerTimestamp.getNumberCollectedChunks() == numberMonitoredAgents ) {
-                    // transform all reading info into 2 Strings: one for DB IDs and one for their values
+                    // transform all reading info into 2 arrays: one for DB IDs and one for their values
                     Map<String, Integer> readingsMap = userActivityPerTimestamp.getReadingsMap();
-                    StringBuilder statisticDbIds = new StringBuilder();
-                    StringBuilder statisticValues = new StringBuilder();
+                    int[] statisticDbIds = new int[readingsMap.size()];
+                    float[] statisticValues = new float[readingsMap.size()];
+                    int numberStatistics = 0;
                     for( Entry<String, Integer> readingIdEntry : readingsMap.entrySet() ) {
 
                         if( readingIdEntry.getKey() == null ) {
@@ -252,21 +254,19 @@ public class UserActivityLoggerTask extends AbstractLoggerTask {
                             continue;
                         }
 
-                        statisticDbIds.append( readingDbId );
-                        statisticDbIds.append( "_" );
-
-                        statisticValues.append( parseReadingValue( null, String.valueOf( readingValue ) ) );
-                        statisticValues.append( "_" );
+                        statisticDbIds[numberStatistics] = readingDbId;
+                        statisticValues[numberStatistics] = parseReadingValue( null,
+                                                                               readingValue.floatValue() );
+                        numberStatistics++;
 
                         resultsAddeed++;
                     }
 
-                    if( statisticDbIds.length() > 0 ) {
-                        statisticDbIds.setLength( statisticDbIds.length() - 1 );
-                        statisticValues.setLength( statisticValues.length() - 1 );
-
-                        log.insertSystemStatistcs( ATS_AGENT_HOSTS, statisticDbIds.toString(),
-                                                   statisticValues.toString(), timestampEntry.getKey() );
+                    if( numberStatistics > 0 ) {
+                        log.insertSystemStatistcs( ATS_AGENT_HOSTS,
+                                                   Arrays.copyOf( statisticDbIds, numberStatistics ),
+                                                   Arrays.copyOf( statisticValues, numberStatistics ),
+                                                   timestampEntry.getKey() );
 
                         // mark the flushed item, we do not remove the map item here, as we are iterating over this map
                         pendingReadings.put( timestampEntry.getKey(), null );